@@ -20,6 +20,7 @@ import org.xvm.runtime.MainContainer;
 import org.xvm.runtime.NativeContainer;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.Runtime;
+import org.xvm.runtime.SystemSnapshot;
 
 
 /**
@@ -44,10 +45,24 @@ public class Connector
      * Construct the Connector based on the specified ModuleRepository.
      */
     public Connector(ModuleRepository repository)
+        {
+        this(repository, null);
+        }
+
+    /**
+     * Construct the Connector based on the specified ModuleRepository, using a snapshot of the
+     * linked system modules to speed up the start-up.
+     *
+     * @param repository    the module repository
+     * @param fileSnapshot  the snapshot file, which is created (or replaced) if it is missing or
+     *                      out of date; null to not use a snapshot
+     */
+    public Connector(ModuleRepository repository, File fileSnapshot)
         {
         m_repository      = repository;
         f_runtime         = new Runtime();
-        f_containerNative = new NativeContainer(f_runtime, repository);
+        f_containerNative = new NativeContainer(f_runtime, repository,
+                fileSnapshot == null ? null : new SystemSnapshot(fileSnapshot));
         }
 
     /**
@@ -1027,7 +1027,9 @@ public abstract class Constant
 
     /**
      * A Comparator of Constant values that orders the "most frequently used" constants to the front
-     * of the ConstantPool.
+     * of the ConstantPool. Constants that are used equally often are in their natural order, so the
+     * resulting order does not depend on the order in which the constants were registered (which is
+     * not deterministic when modules are compiled concurrently).
      */
     public static final Comparator<Constant> MFU_ORDER = (o1, o2) ->
         {
@@ -1042,7 +1044,9 @@ public abstract class Constant
         int cDif = o1.m_cRefs - o2.m_cRefs;
 
         // most used comes first (i.e. _reverse_ sort on most used)
-        return -cDif;
+        return cDif == 0
+                ? o1.compareTo(o2)
+                : -cDif;
         };
 
 
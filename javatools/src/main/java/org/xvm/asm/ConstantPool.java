@@ -44,6 +44,8 @@ import org.xvm.util.ListMap;
 import org.xvm.util.PackedInteger;
 import org.xvm.util.TransientThreadLocal;
 
+import org.xvm.util.concurrent.ConcurrentAppendList;
+
 import static org.xvm.compiler.Lexer.isValidIdentifier;
 import static org.xvm.compiler.Lexer.isValidQualifiedModule;
 
@@ -151,6 +153,16 @@ public class ConstantPool
             return null;
             }
 
+        // a constant that occupies its own slot in this pool is the registered (canonical) one; its
+        // typedefs were resolved when it was registered, so this most common run-time case needs
+        // neither the typedef resolution nor the lookup; note that the position alone proves
+        // nothing, since a constant adopted from another pool may carry its old position
+        if (!m_fRecurseReg && constant.getContaining() == this
+                && m_listConst.isAt(constant.getPosition(), constant))
+            {
+            return constant;
+            }
+
         // before registering the constant, see if there is a simpler alternative to use; for
         // example, this allows a type constant that refers to a typedef constant to be replaced
         // with the type constant that the typedef refers to, removing a level of indirection;
@@ -179,35 +191,38 @@ public class ConstantPool
                 constant = constant.adoptedBy(this);
                 }
 
-            synchronized (this)
+            // there is no pool-wide lock: the insertion only locks the map's bin for the constant,
+            // and the position is claimed atomically (and assigned before the constant becomes
+            // visible to other threads); if the same constant is concurrently inserted by another
+            // thread, that thread's constant wins
+            constantOld = mapConstants.computeIfAbsent(constant, constantNew ->
                 {
-                if (mapConstants.containsKey(constant))
-                    {
-                    // it was concurrently inserted
-                    return mapConstants.get(constant);
-                    }
+                constantNew.setPosition(m_listConst.append(constantNew));
+                return constantNew;
+                });
 
-                constant.setPosition(m_listConst.size());
-                m_listConst.add(constant);
-                mapConstants.put(constant, constant);
+            if (constantOld != constant)
+                {
+                // it was concurrently inserted
+                return constantOld;
+                }
 
-                // also allow the constant to be looked up by a locator
-                Object oLocator = constant.getLocator();
-                if (oLocator != null)
+            // also allow the constant to be looked up by a locator
+            Object oLocator = constant.getLocator();
+            if (oLocator != null)
+                {
+                if (oLocator instanceof Constant constLocator &&
+                        constLocator.getContaining() != this)
                     {
-                    if (oLocator instanceof Constant constLocator &&
-                            constLocator.getContaining() != this)
-                        {
-                        constLocator = constLocator.adoptedBy(this);
-                        constLocator.registerConstants(this);
-                        oLocator = constLocator;
-                        }
+                    constLocator = constLocator.adoptedBy(this);
+                    constLocator.registerConstants(this);
+                    oLocator = constLocator;
+                    }
 
-                    Constant constOld = ensureLocatorLookup(constant.getFormat()).put(oLocator, constant);
-                    if (constOld != null && !constOld.equals(constant))
-                        {
-                        throw new IllegalStateException("locator collision: old=" + constOld + ", new=" + constant);
-                        }
+                Constant constOld = ensureLocatorLookup(constant.getFormat()).put(oLocator, constant);
+                if (constOld != null && !constOld.equals(constant))
+                    {
+                    throw new IllegalStateException("locator collision: old=" + constOld + ", new=" + constant);
                     }
                 }
 
@@ -2588,7 +2603,7 @@ public class ConstantPool
         {
         return new Iterator<>()
             {
-            private final ArrayList<Constant> listConst = m_listConst;
+            private final List<Constant> listConst = m_listConst;
             private int iNext = 0;
 
             @Override
@@ -3870,9 +3885,10 @@ public class ConstantPool
     public static final TypeConstant[] NO_TYPES = TypeConstant.NO_TYPES;
 
     /**
-     * Storage of Constant objects by index.
+     * Storage of Constant objects by index; the constants are appended without locking, so any
+     * number of threads can register constants concurrently.
      */
-    private final ArrayList<Constant> m_listConst = new ArrayList<>();
+    private final ConcurrentAppendList<Constant> m_listConst = new ConcurrentAppendList<>();
 
     /**
      * Reverse lookup structure to find a particular constant by constant.
@@ -4026,7 +4042,7 @@ public class ConstantPool
      */
     private void optimize()
         {
-        ArrayList<Constant> list = m_listConst;
+        ConcurrentAppendList<Constant> list = m_listConst;
 
         // remove unused constants
         int cBefore       = list.size();
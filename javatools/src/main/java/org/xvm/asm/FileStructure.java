@@ -226,6 +226,25 @@ public class FileStructure
         }
 
 
+    /**
+     * Synthesize all necessary structures for each (non-fingerprint) module in this FileStructure.
+     * This is what {@link #merge} does when asked to synthesize; it is necessary for a merged
+     * FileStructure that was read back from its binary form, because the synthesized structures
+     * are transient, and therefore never persisted.
+     */
+    public void synthesizeModules()
+        {
+        for (Component child : children())
+            {
+            ModuleStructure module = (ModuleStructure) child;
+            if (!module.isFingerprint())
+                {
+                module.synthesizeChildren();
+                }
+            }
+        }
+
+
     // ----- serialization -------------------------------------------------------------------------
 
     /**
@@ -52,10 +52,13 @@ import org.xvm.compiler.Compiler;
 import org.xvm.compiler.ast.AstNode;
 import org.xvm.compiler.ast.TypeCompositionStatement;
 
+import org.xvm.runtime.ClassTemplate;
 import org.xvm.runtime.Container;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.Utils;
 
+import org.xvm.runtime.jit.CompiledMethod;
+
 import org.xvm.util.LinkedIterator;
 import org.xvm.util.ListMap;
 import org.xvm.util.Severity;
@@ -1118,10 +1121,12 @@ public class MethodStructure
      */
     public void resetRuntimeInfo()
         {
-        m_code    = null;
-        m_cVars   = 0;
-        m_cScopes = 0;
-        m_fNative = false;
+        m_code      = null;
+        m_cVars     = 0;
+        m_cScopes   = 0;
+        m_fNative   = false;
+        m_aoNative1 = null;
+        m_aoNativeN = null;
         }
 
     boolean needsReassembly()
@@ -1256,6 +1261,100 @@ public class MethodStructure
         m_fTransient = true;
         }
 
+    /**
+     * Bind the implementation of this native method invoked with exactly one argument on a handle
+     * of the specified template.
+     *
+     * @param template  the template that provides the implementation
+     * @param impl      the implementation
+     */
+    public void bindNative1(ClassTemplate template, ClassTemplate.NativeMethod1 impl)
+        {
+        assert isNative();
+
+        m_aoNative1 = addBinding(m_aoNative1, template, impl);
+        }
+
+    /**
+     * Bind the implementation of this native method invoked with zero or more than one argument on
+     * a handle of the specified template.
+     *
+     * @param template  the template that provides the implementation
+     * @param impl      the implementation
+     */
+    public void bindNativeN(ClassTemplate template, ClassTemplate.NativeMethodN impl)
+        {
+        assert isNative();
+
+        m_aoNativeN = addBinding(m_aoNativeN, template, impl);
+        }
+
+    /**
+     * @return the pre-bound implementation of this method invoked with exactly one argument on a
+     *         handle of the specified template, or null
+     */
+    public ClassTemplate.NativeMethod1 getNativeMethod1(ClassTemplate template)
+        {
+        return (ClassTemplate.NativeMethod1) findBinding(m_aoNative1, template);
+        }
+
+    /**
+     * @return the pre-bound implementation of this method invoked with zero or more than one
+     *         argument on a handle of the specified template, or null
+     */
+    public ClassTemplate.NativeMethodN getNativeMethodN(ClassTemplate template)
+        {
+        return (ClassTemplate.NativeMethodN) findBinding(m_aoNativeN, template);
+        }
+
+    /**
+     * Add (or replace) the binding for the specified template.
+     *
+     * @return the new bindings array
+     */
+    private static Object[] addBinding(Object[] aoBinding, ClassTemplate template, Object impl)
+        {
+        if (aoBinding == null)
+            {
+            return new Object[] {template, impl};
+            }
+
+        int c = aoBinding.length;
+        for (int i = 0; i < c; i += 2)
+            {
+            if (aoBinding[i] == template)
+                {
+                aoBinding = aoBinding.clone();
+                aoBinding[i + 1] = impl;
+                return aoBinding;
+                }
+            }
+
+        aoBinding = Arrays.copyOf(aoBinding, c + 2);
+        aoBinding[c]     = template;
+        aoBinding[c + 1] = impl;
+        return aoBinding;
+        }
+
+    /**
+     * @return the implementation bound for the specified template or null
+     */
+    private static Object findBinding(Object[] aoBinding, ClassTemplate template)
+        {
+        if (aoBinding != null)
+            {
+            // a native method is almost always bound by a single template
+            for (int i = 0, c = aoBinding.length; i < c; i += 2)
+                {
+                if (aoBinding[i] == template)
+                    {
+                    return aoBinding[i + 1];
+                    }
+                }
+            }
+        return null;
+        }
+
     /**
      * @return true iff the method has been marked as transient
      */
@@ -1724,6 +1823,44 @@ public class MethodStructure
         return m_nNextUnassignedIndex++;
         }
 
+    /**
+     * Record an invocation of this method or a backward jump within its ops. This information is
+     * used by the runtime to detect the "hot" methods.
+     *
+     * @return the updated "hotness" value
+     */
+    public int recordHotness()
+        {
+        // a racy increment is sufficient for this purpose
+        return ++m_cHotness;
+        }
+
+    /**
+     * @return the number of recorded invocations and backward jumps
+     */
+    public int getHotness()
+        {
+        return m_cHotness;
+        }
+
+    /**
+     * @return the JVM code compiled for this method's ops or null
+     */
+    public CompiledMethod getCompiledMethod()
+        {
+        return m_compiled;
+        }
+
+    /**
+     * Store the JVM code compiled for this method's ops.
+     *
+     * @param compiled  the compiled code
+     */
+    public void setCompiledMethod(CompiledMethod compiled)
+        {
+        m_compiled = compiled;
+        }
+
 
     // ----- Component methods ---------------------------------------------------------------------
 
@@ -1943,6 +2080,10 @@ public class MethodStructure
         // force the reloading of the m_structFinally
         that.m_structFinally = null;
 
+        // the run-time profile is not shared
+        that.m_cHotness = 0;
+        that.m_compiled = null;
+
         if (this.m_source != null)
             {
             that.m_source = this.m_source.clone();
@@ -3529,6 +3670,18 @@ public class MethodStructure
      */
     private transient boolean m_fNative;
 
+    /**
+     * The pre-bound native implementations for invocations with exactly one argument, as an array
+     * of (ClassTemplate, NativeMethod1) pairs.
+     */
+    private transient Object[] m_aoNative1;
+
+    /**
+     * The pre-bound native implementations for invocations with zero or more than one argument, as
+     * an array of (ClassTemplate, NativeMethodN) pairs.
+     */
+    private transient Object[] m_aoNativeN;
+
     /**
      * True iff the method has been marked as "transient". This is not part of the persistent method
      * structure; it exists only to support the prototype interpreter implementation.
@@ -3569,6 +3722,16 @@ public class MethodStructure
      */
     private transient int m_nNextUnassignedIndex;
 
+    /**
+     * The number of invocations and backward jumps (used to detect the "hot" methods).
+     */
+    private transient int m_cHotness;
+
+    /**
+     * The JVM code compiled for this method's ops.
+     */
+    private transient volatile CompiledMethod m_compiled;
+
     /**
      * The source code of the method.
      */
@@ -17,9 +17,10 @@ import org.xvm.asm.constants.TypeConstant;
 import org.xvm.asm.constants.TypeInfo;
 
 import org.xvm.runtime.ClassTemplate;
+import org.xvm.runtime.Container;
 import org.xvm.runtime.Frame;
+import org.xvm.runtime.InlineCache;
 import org.xvm.runtime.ObjectHandle;
-import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 
 import org.xvm.runtime.template._native.reflect.xRTType.TypeHandle;
@@ -192,19 +193,17 @@ public abstract class OpCallable extends Op
     protected MethodStructure getChildConstructor(Frame frame, ObjectHandle hParent)
         {
         // suffix "C" indicates the compile-time constants; "R" - the run-time
-        IdentityConstant idParentR   = hParent.getTemplate().getClassConstant();
-        ServiceContext   context     = frame.f_context;
-        MethodStructure  constructor = (MethodStructure) context.getOpInfo(this, Category.Constructor);
+        TypeComposition  clzParent   = hParent.getComposition();
+        InlineCache      cache       = ensureConstructorCache();
+        MethodStructure  constructor = (MethodStructure) cache.get(clzParent);
         if (constructor != null)
             {
-            IdentityConstant idParent = (IdentityConstant) context.getOpInfo(this, Category.TargetClass);
-            if (idParent.equals(idParentR))
-                {
-                // cached constructor fits the parent's class
-                return constructor;
-                }
+            // cached constructor fits the parent's class
+            return constructor;
             }
 
+        IdentityConstant idParentR = hParent.getTemplate().getClassConstant();
+
         constructor = getMethodStructure(frame);
         if (constructor == null)
             {
@@ -238,8 +237,7 @@ public abstract class OpCallable extends Op
                 }
             }
 
-        context.setOpInfo(this, Category.TargetClass, idParentR);
-        context.setOpInfo(this, Category.Constructor, constructor);
+        cache.put(clzParent, constructor);
         return constructor;
         }
 
@@ -253,19 +251,16 @@ public abstract class OpCallable extends Op
     protected MethodStructure getTypeConstructor(Frame frame, TypeHandle hType)
         {
         TypeConstant     typeR       = hType.getDataType();
-        IdentityConstant idTargetR   = typeR.getSingleUnderlyingClass(false);
-        ServiceContext   context     = frame.f_context;
-        MethodStructure  constructor = (MethodStructure) context.getOpInfo(this, Category.Constructor);
+        InlineCache      cache       = ensureConstructorCache();
+        MethodStructure  constructor = (MethodStructure) cache.get(typeR);
         if (constructor != null)
             {
-            IdentityConstant idTarget = (IdentityConstant) context.getOpInfo(this, Category.TargetClass);
-            if (idTarget.equals(idTargetR))
-                {
-                // cached constructor fits the parent's class
-                return constructor;
-                }
+            // cached constructor fits the target's type
+            return constructor;
             }
 
+        IdentityConstant idTargetR = typeR.getSingleUnderlyingClass(false);
+
         constructor = getMethodStructure(frame);
         if (constructor == null)
             {
@@ -288,8 +283,7 @@ public abstract class OpCallable extends Op
             constructor = info.getTopmostMethodStructure(infoTarget);
             }
 
-        context.setOpInfo(this, Category.TargetClass, idTargetR);
-        context.setOpInfo(this, Category.Constructor, constructor);
+        cache.put(typeR, constructor);
         return constructor;
         }
 
@@ -324,12 +318,11 @@ public abstract class OpCallable extends Op
         {
         assert frame.f_function.isConstructor();
 
-        ServiceContext   context     = frame.f_context;
-        MethodStructure  constructor = (MethodStructure) context.getOpInfo(this, Category.Function);
-        IdentityConstant idPrev      = (IdentityConstant) context.getOpInfo(this, Category.TargetClass);
-        IdentityConstant idThis      = frame.getThis().getTemplate().getClassConstant();
+        TypeComposition clzThis     = frame.getThis().getComposition();
+        InlineCache     cache       = ensureConstructorCache();
+        MethodStructure constructor = (MethodStructure) cache.get(clzThis);
 
-        if (constructor != null && idPrev.equals(idThis))
+        if (constructor != null)
             {
             return constructor;
             }
@@ -381,8 +374,7 @@ public abstract class OpCallable extends Op
                 }
             }
 
-        context.setOpInfo(this, Category.Function, constructor);
-        context.setOpInfo(this, Category.TargetClass, idThis);
+        cache.put(clzThis, constructor);
 
         return constructor;
         }
@@ -396,9 +388,11 @@ public abstract class OpCallable extends Op
      */
     protected MethodStructure getMethodStructure(Frame frame)
         {
-        ServiceContext   context    = frame.f_context;
+        Container        container  = frame.f_context.f_container;
+        InlineCache      cache      = ensureFunctionCache();
+        FunctionInfo     info       = (FunctionInfo) cache.get(container);
+        MethodStructure  function   = info == null ? null : info.function();
         MethodConstant   idFunction = (MethodConstant) frame.getConstant(m_nFunctionId);
-        MethodStructure  function   = (MethodStructure) context.getOpInfo(this, Category.Function);
         IdentityConstant idTarget   = idFunction.getNamespace();
 
         switch (idTarget.getFormat())
@@ -428,9 +422,8 @@ public abstract class OpCallable extends Op
                         return null;
                         }
 
-                    context.setOpInfo(this, Category.Function, function);
-                    context.setOpInfo(this, Category.Template,
-                            context.f_container.getTemplate(typeTarget));
+                    cache.put(container, new FunctionInfo(function, null,
+                            container.getTemplate(typeTarget)));
                     }
                 break;
                 }
@@ -442,8 +435,7 @@ public abstract class OpCallable extends Op
                 {
                 GenericTypeResolver resolver   = frame.getGenericsResolver(true);
                 TypeConstant        typeTarget = ((FormalConstant) idTarget).resolve(resolver);
-                TypeConstant        typePrev   = (TypeConstant) context.getOpInfo(this, Category.TargetType);
-                if (function == null || !typeTarget.equals(typePrev))
+                if (function == null || !typeTarget.equals(info.typeTarget()))
                     {
                     function = typeTarget.findCallable(idFunction.getSignature());
                     if (function == null)
@@ -453,13 +445,8 @@ public abstract class OpCallable extends Op
                         return null;
                         }
 
-                    context.setOpInfo(this, Category.Function, function);
-                    context.setOpInfo(this, Category.TargetType, typeTarget);
-                    context.setOpInfo(this, Category.Template,
-                        typeTarget.isSingleDefiningConstant()
-                            ? context.f_container.getTemplate(typeTarget)
-                            : context.f_container.getTemplate(
-                                    function.getContainingClass().getIdentityConstant()));
+                    cache.put(container, new FunctionInfo(function, typeTarget,
+                            getFormalTemplate(container, typeTarget, function)));
                     }
                 break;
                 }
@@ -472,7 +459,7 @@ public abstract class OpCallable extends Op
                     assert !function.isNative();
 
                     // since the function is never native, no need to save the template
-                    context.setOpInfo(this, Category.Function, function);
+                    cache.put(container, new FunctionInfo(function, null, null));
                     }
                 break;
                 }
@@ -490,8 +477,86 @@ public abstract class OpCallable extends Op
      */
     protected ClassTemplate getNativeTemplate(Frame frame, MethodStructure function)
         {
-        assert function == frame.f_context.getOpInfo(this, Category.Function);
-        return (ClassTemplate) frame.f_context.getOpInfo(this, Category.Template);
+        Container        container  = frame.f_context.f_container;
+        FunctionInfo     info       = (FunctionInfo) ensureFunctionCache().get(container);
+        MethodConstant   idFunction = (MethodConstant) frame.getConstant(m_nFunctionId);
+        IdentityConstant idTarget   = idFunction.getNamespace();
+
+        switch (idTarget.getFormat())
+            {
+            case Module:
+            case Package:
+            case Class:
+                {
+                if (info != null && info.function() == function)
+                    {
+                    return info.template();
+                    }
+
+                // the cached info has been replaced by another call with a different function
+                ConstantPool        pool       = frame.poolContext();
+                GenericTypeResolver resolver   = frame.getGenericsResolver(false);
+                TypeConstant        typeTarget = idTarget.getFormalType().resolveGenerics(pool, resolver);
+                return container.getTemplate(typeTarget);
+                }
+
+            case FormalTypeChild:
+            case Property:
+            case TypeParameter:
+            case DynamicFormal:
+                {
+                // the cached info could have been replaced by another service that resolved
+                // a different formal target
+                GenericTypeResolver resolver   = frame.getGenericsResolver(true);
+                TypeConstant        typeTarget = ((FormalConstant) idTarget).resolve(resolver);
+                return info != null && info.function() == function &&
+                        typeTarget.equals(info.typeTarget())
+                    ? info.template()
+                    : getFormalTemplate(container, typeTarget, function);
+                }
+
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+    /**
+     * @return the ClassTemplate that defines a native implementation for the specified function
+     *         that has been resolved for the specified formal target type
+     */
+    private static ClassTemplate getFormalTemplate(Container container, TypeConstant typeTarget,
+                                                   MethodStructure function)
+        {
+        return typeTarget.isSingleDefiningConstant()
+                ? container.getTemplate(typeTarget)
+                : container.getTemplate(function.getContainingClass().getIdentityConstant());
+        }
+
+    /**
+     * @return the inline cache of resolved functions keyed by the Container
+     */
+    private InlineCache ensureFunctionCache()
+        {
+        InlineCache cache = m_cacheFunction;
+        if (cache == null)
+            {
+            m_cacheFunction = cache = new InlineCache();
+            }
+        return cache;
+        }
+
+    /**
+     * @return the inline cache of resolved constructors keyed by the target's TypeComposition
+     *         or TypeConstant
+     */
+    private InlineCache ensureConstructorCache()
+        {
+        InlineCache cache = m_cacheConstructor;
+        if (cache == null)
+            {
+            m_cacheConstructor = cache = new InlineCache();
+            }
+        return cache;
         }
 
     /**
@@ -623,6 +688,20 @@ public abstract class OpCallable extends Op
     protected Argument   m_argReturn;  // optional
     protected Argument[] m_aArgReturn; // optional
 
-    // categories for cached info
-    enum Category {Function, Template, TargetClass, TargetType, Constructor}
+    /**
+     * The run-time cache of resolved functions.
+     */
+    private transient volatile InlineCache m_cacheFunction;
+
+    /**
+     * The run-time cache of resolved constructors.
+     */
+    private transient volatile InlineCache m_cacheConstructor;
+
+    /**
+     * The cached function info: the function, the formal target type it was resolved for (if any)
+     * and the template that provides the native implementation (if any).
+     */
+    private record FunctionInfo(MethodStructure function, TypeConstant typeTarget,
+                                ClassTemplate template) {}
     }
\ No newline at end of file
@@ -14,9 +14,9 @@ import org.xvm.asm.constants.SignatureConstant;
 
 import org.xvm.runtime.CallChain;
 import org.xvm.runtime.Frame;
+import org.xvm.runtime.InlineCache;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.PropertyComposition;
-import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 
 import org.xvm.runtime.template.xException;
@@ -126,20 +126,17 @@ public abstract class OpInvocable extends Op
         }
 
     // helper methods
-     protected CallChain getCallChain(Frame frame, ObjectHandle hTarget)
+    protected CallChain getCallChain(Frame frame, ObjectHandle hTarget)
         {
-        ServiceContext  context   = frame.f_context;
-        CallChain       chain     = (CallChain) context.getOpInfo(this, Category.Chain);
-        TypeComposition clazzPrev = (TypeComposition) context.getOpInfo(this, Category.Composition);
-        TypeComposition clazz     = hTarget.getComposition();
+        InlineCache     cache = ensureInlineCache();
+        TypeComposition clazz = hTarget.getComposition();
+        CallChain       chain = (CallChain) cache.get(clazz);
 
-        if (chain != null && clazz == clazzPrev)
+        if (chain != null)
             {
             return chain;
             }
 
-        context.setOpInfo(this, Category.Composition, clazz);
-
         MethodConstant  idMethod = (MethodConstant) frame.getConstant(m_nMethodId);
         MethodStructure method   = (MethodStructure) idMethod.getComponent();
 
@@ -149,7 +146,7 @@ public abstract class OpInvocable extends Op
             {
             chain = new CallChain(method);
 
-            context.setOpInfo(this, Category.Chain, chain);
+            cache.put(clazz, chain);
             return chain;
             }
 
@@ -192,10 +189,23 @@ public abstract class OpInvocable extends Op
                 "\" on " + hTarget.getType().getValueString()));
             }
 
-        context.setOpInfo(this, Category.Chain, chain);
+        cache.put(clazz, chain);
         return chain;
         }
 
+    /**
+     * @return the inline cache of call chains keyed by the target's TypeComposition
+     */
+    protected InlineCache ensureInlineCache()
+        {
+        InlineCache cache = m_cache;
+        if (cache == null)
+            {
+            m_cache = cache = new InlineCache();
+            }
+        return cache;
+        }
+
     /**
      * Ensure that register for the return value is allocated.
      *
@@ -344,6 +354,8 @@ public abstract class OpInvocable extends Op
     protected Argument       m_argReturn;  // optional
     protected Argument[]     m_aArgReturn; // optional
 
-    // categories for cached info
-    enum Category {Chain, Composition}
+    /**
+     * The run-time cache of call chains.
+     */
+    private transient volatile InlineCache m_cache;
     }
\ No newline at end of file
@@ -8,7 +8,9 @@ import java.io.IOException;
 import org.xvm.asm.constants.StringConstant;
 import org.xvm.asm.constants.TypeConstant;
 
+import org.xvm.runtime.Container;
 import org.xvm.runtime.Frame;
+import org.xvm.runtime.InlineCache;
 import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 
@@ -138,21 +140,25 @@ public abstract class OpVar
      */
     protected TypeComposition getArrayClass(Frame frame, TypeConstant typeList)
         {
-        ServiceContext  context  = frame.f_context;
-        TypeComposition clzArray = (TypeComposition) context.getOpInfo(this, Category.Composition);
-        TypeConstant    typePrev = (TypeConstant)    context.getOpInfo(this, Category.Type);
+        Container   container = frame.f_context.f_container;
+        InlineCache cache     = m_cache;
+        if (cache == null)
+            {
+            m_cache = cache = new InlineCache();
+            }
 
-        if (clzArray == null || !typeList.equals(typePrev))
+        // the composition is container specific
+        ArrayClass info = (ArrayClass) cache.get(container);
+        if (info == null || !typeList.equals(info.typeList()))
             {
             TypeConstant typeEl = typeList.resolveGenericType("Element");
 
-            clzArray = xArray.INSTANCE.ensureParameterizedClass(context.f_container, typeEl);
-
-            context.setOpInfo(this, Category.Composition, clzArray);
-            context.setOpInfo(this, Category.Type, typeList);
+            info = new ArrayClass(typeList,
+                    xArray.INSTANCE.ensureParameterizedClass(container, typeEl));
+            cache.put(container, info);
             }
 
-        return clzArray;
+        return info.clzArray();
         }
 
     /**
@@ -245,6 +251,13 @@ public abstract class OpVar
      */
     protected int m_nType;
 
-    // categories for cached info
-    enum Category {Composition, Type}
+    /**
+     * The run-time cache of array compositions keyed by the Container.
+     */
+    private transient volatile InlineCache m_cache;
+
+    /**
+     * The cached array composition for a sequence type.
+     */
+    private record ArrayClass(TypeConstant typeList, TypeComposition clzArray) {}
     }
\ No newline at end of file
@@ -54,7 +54,9 @@ import org.xvm.compiler.Compiler;
 import org.xvm.runtime.ClassTemplate;
 import org.xvm.runtime.Container;
 import org.xvm.runtime.Frame;
+import org.xvm.runtime.InlineCache;
 import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.SubtypeDisplay;
 import org.xvm.runtime.TypeComposition;
 
 import org.xvm.runtime.template.xBoolean;
@@ -91,7 +93,7 @@ import org.xvm.util.TransientThreadLocal;
  */
 public abstract class TypeConstant
         extends Constant
-        implements GenericTypeResolver
+        implements GenericTypeResolver, InlineCache.Key
     {
     // ----- constructors --------------------------------------------------------------------------
 
@@ -7134,6 +7136,24 @@ public abstract class TypeConstant
         return frame.f_context.f_container.resolveClass(this);
         }
 
+    /**
+     * @return the cached run-time subtype encoding for this type or null if it hasn't been computed
+     */
+    public SubtypeDisplay getSubtypeDisplay()
+        {
+        return m_display;
+        }
+
+    /**
+     * Cache the run-time subtype encoding for this type.
+     *
+     * @param display  the SubtypeDisplay for this type
+     */
+    public void setSubtypeDisplay(SubtypeDisplay display)
+        {
+        m_display = display;
+        }
+
     /**
      * Obtain a run-time handle representing this type.
      *
@@ -7274,6 +7294,21 @@ public abstract class TypeConstant
         }
 
 
+    // ----- InlineCache.Key interface -------------------------------------------------------------
+
+    @Override
+    public InlineCache.Retained getRetainedValues()
+        {
+        return m_retained;
+        }
+
+    @Override
+    public void setRetainedValues(InlineCache.Retained retained)
+        {
+        m_retained = retained;
+        }
+
+
     // ----- Constant methods ----------------------------------------------------------------------
 
     @Override
@@ -7315,6 +7350,7 @@ public abstract class TypeConstant
         m_typeinfo       = null;
         m_mapRelations   = null;
         m_handle         = null;
+        m_display        = null;
         m_typeNormalized = null;
         }
 
@@ -7671,11 +7707,21 @@ public abstract class TypeConstant
      */
     private transient xRTType.TypeHandle m_handle;
 
+    /**
+     * Cached SubtypeDisplay.
+     */
+    private transient SubtypeDisplay m_display;
+
     /**
      * Cached normalized representation.
      */
     private transient TypeConstant m_typeNormalized;
 
+    /**
+     * The values cached by the {@link InlineCache}s that use this type as a key.
+     */
+    private transient volatile InlineCache.Retained m_retained;
+
     /**
      * The cache of recursion pairs.
      */
@@ -196,16 +196,16 @@ public class AssertV
         protected boolean updateResult(Frame frameCaller)
             {
             StringHandle hMsg = (StringHandle) frameCaller.popStack();
-            char[]       ach  = hMsg.getValue();
+            String       sMsg = hMsg.getStringValue();
 
-            if (ach.length > MAX_VAL)
+            if (sMsg.length() > MAX_VAL)
                 {
-                sb.append(ach, 0, MAX_VAL)
+                sb.append(sMsg, 0, MAX_VAL)
                   .append("...");
                 }
             else
                 {
-                sb.append(ach);
+                sb.append(sMsg);
                 }
 
             if (sb.length() > MAX_LEN)
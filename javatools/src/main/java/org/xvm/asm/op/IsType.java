@@ -12,6 +12,7 @@ import org.xvm.asm.constants.TypeConstant;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle;
+import org.xvm.runtime.SubtypeDisplay;
 
 import org.xvm.runtime.template.xBoolean;
 import org.xvm.runtime.template._native.reflect.xRTType.TypeHandle;
@@ -95,6 +96,6 @@ public class IsType
             }
 
         return frame.assignValue(m_nRetValue,
-                xBoolean.makeHandle(hValue.getUnsafeType().isA(typeTest)));
+                xBoolean.makeHandle(SubtypeDisplay.isA(hValue.getUnsafeType(), typeTest)));
         }
     }
@@ -14,6 +14,7 @@ import org.xvm.asm.constants.TypeConstant;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle;
+import org.xvm.runtime.SubtypeDisplay;
 
 import org.xvm.runtime.template._native.reflect.xRTType.TypeHandle;
 
@@ -94,7 +95,7 @@ public class JumpNType
                 }
             }
 
-        return hValue.getUnsafeType().isA(typeTest)
+        return SubtypeDisplay.isA(hValue.getUnsafeType(), typeTest)
                 ? iPC + 1
                 : jump(frame, iPC + m_ofJmp, m_cExits);
         }
@@ -14,6 +14,7 @@ import org.xvm.asm.constants.TypeConstant;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle;
+import org.xvm.runtime.SubtypeDisplay;
 
 import org.xvm.runtime.template.xException;
 
@@ -97,7 +98,7 @@ public class MoveCast
         TypeConstant typeFrom = hValue.getUnsafeType();
         TypeConstant typeTo   = frame.resolveType(m_nToType);
 
-        if (!typeFrom.isA(typeTo))
+        if (!SubtypeDisplay.isA(typeFrom, typeTo))
             {
             return frame.raiseException(xException.typeMismatch(frame, typeFrom.getValueString()));
             }
@@ -11,6 +11,7 @@ import org.xvm.asm.constants.MethodBody.Implementation;
 import org.xvm.asm.constants.PropertyConstant;
 import org.xvm.asm.constants.SignatureConstant;
 
+import org.xvm.runtime.ClassTemplate.NativeGetter;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle;
 
 import org.xvm.runtime.template.xException;
@@ -159,7 +160,7 @@ public class CallChain
         if (isNative())
             {
             return hTarget.getTemplate().
-                invokeNativeN(frame, getTop(), hTarget, Utils.OBJECTS_NONE, iReturn);
+                callNativeN(frame, getTop(), hTarget, Utils.OBJECTS_NONE, iReturn);
             }
 
         ObjectHandle[] ahVar = new ObjectHandle[getMaxVars()];
@@ -175,7 +176,7 @@ public class CallChain
         if (isNative())
             {
             return hTarget.getTemplate().
-                invokeNative1(frame, getTop(), hTarget, hArg, iReturn);
+                callNative1(frame, getTop(), hTarget, hArg, iReturn);
             }
 
         ObjectHandle[] ahVar = new ObjectHandle[Math.max(getMaxVars(), 1)];
@@ -210,8 +211,8 @@ public class CallChain
             {
             ClassTemplate template = hTarget.getTemplate();
             return ahArg.length == 1
-                    ? template.invokeNative1(frame, getTop(), hTarget, ahArg[0], iReturn)
-                    : template.invokeNativeN(frame, getTop(), hTarget, ahArg, iReturn);
+                    ? template.callNative1(frame, getTop(), hTarget, ahArg[0], iReturn)
+                    : template.callNativeN(frame, getTop(), hTarget, ahArg, iReturn);
             }
 
         ObjectHandle[] ahVar = Utils.ensureSize(ahArg, getMaxVars());
@@ -314,7 +315,7 @@ public class CallChain
                 Component       container = method.getParent().getParent();
                 return container instanceof PropertyStructure
                     ? template.invokeNativeGet(frame, container.getName(), hThis, iReturn)
-                    : template.invokeNativeN(frame, method, hThis, Utils.OBJECTS_NONE, iReturn);
+                    : template.callNativeN(frame, method, hThis, Utils.OBJECTS_NONE, iReturn);
                 }
             case Default, Explicit, Delegating:
                 {
@@ -350,7 +351,7 @@ public class CallChain
                     hThis, bodySuper.getPropertyConstant(), hArg);
 
             case Native:
-                return hThis.getTemplate().invokeNative1(frame, bodySuper.getMethodStructure(),
+                return hThis.getTemplate().callNative1(frame, bodySuper.getMethodStructure(),
                     hThis, hArg, Op.A_IGNORE);
 
             case Default, Explicit, Delegating:
@@ -390,8 +391,8 @@ public class CallChain
                 return fReturnTuple
                     ? template.invokeNativeT(frame, methodSuper, hThis, ahArg, iReturn)
                     : ahArg.length == 1
-                        ? template.invokeNative1(frame, methodSuper, hThis, ahArg[0], iReturn)
-                        : template.invokeNativeN(frame, methodSuper, hThis, ahArg, iReturn);
+                        ? template.callNative1(frame, methodSuper, hThis, ahArg[0], iReturn)
+                        : template.callNativeN(frame, methodSuper, hThis, ahArg, iReturn);
                 }
 
             case Default, Explicit, Delegating ->
@@ -558,6 +559,32 @@ public class CallChain
         }
 
 
+    // ----- native support ------------------------------------------------------------------------
+
+    /**
+     * @return the native getter cached by {@link #setNativeGetter} for the specified template,
+     *         or null
+     */
+    public NativeGetter getNativeGetter(ClassTemplate template)
+        {
+        BoundGetter bound = m_getterNative;
+        return bound != null && bound.template() == template ? bound.getter() : null;
+        }
+
+    /**
+     * Cache the native getter resolved for the property this chain represents access to.
+     */
+    public void setNativeGetter(ClassTemplate template, NativeGetter getter)
+        {
+        m_getterNative = new BoundGetter(template, getter);
+        }
+
+    /**
+     * A native getter resolved by a given template.
+     */
+    private record BoundGetter(ClassTemplate template, NativeGetter getter) {}
+
+
     // ----- debugging support ---------------------------------------------------------------------
 
     @Override
@@ -583,4 +610,9 @@ public class CallChain
      * Cached response for "isAtomic()" API.
      */
     private Boolean m_FAtomic;
+
+    /**
+     * Cached native getter (used only by native property chains).
+     */
+    private BoundGetter m_getterNative;
     }
\ No newline at end of file
@@ -536,6 +536,21 @@ public class ClassComposition
         }
 
 
+    // ----- InlineCache.Key interface -------------------------------------------------------------
+
+    @Override
+    public InlineCache.Retained getRetainedValues()
+        {
+        return m_retained;
+        }
+
+    @Override
+    public void setRetainedValues(InlineCache.Retained retained)
+        {
+        m_retained = retained;
+        }
+
+
     // ----- helpers -------------------------------------------------------------------------------
 
     /**
@@ -1029,6 +1044,9 @@ public class ClassComposition
     // cached auto-generated structure initializer
     private MethodStructure m_methodInit;
 
+    // the values cached by the InlineCaches that use this composition as a key
+    private volatile InlineCache.Retained m_retained;
+
     /**
      * Marker for a cached null {@link CallChain}.
      */
@@ -3,8 +3,10 @@ package org.xvm.runtime;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import java.util.function.Function;
@@ -645,7 +647,7 @@ public abstract class ClassTemplate
             switch (method.getReturnCount())
                 {
                 case 0:
-                    switch (invokeNative1(frame, method, hTarget, ahArg[0], Op.A_IGNORE))
+                    switch (callNative1(frame, method, hTarget, ahArg[0], Op.A_IGNORE))
                         {
                         case Op.R_NEXT:
                             return frame.assignValue(iReturn, xTuple.H_VOID);
@@ -663,7 +665,7 @@ public abstract class ClassTemplate
                         }
 
                 case 1:
-                    switch (invokeNative1(frame, method, hTarget, ahArg[0], Op.A_STACK))
+                    switch (callNative1(frame, method, hTarget, ahArg[0], Op.A_STACK))
                         {
                         case Op.R_NEXT:
                             return frame.assignTuple(iReturn, frame.popStack());
@@ -691,7 +693,7 @@ public abstract class ClassTemplate
             return switch (method.getReturnCount())
                 {
                 case 0 ->
-                    switch (invokeNativeN(frame, method, hTarget, ahArg, Op.A_IGNORE))
+                    switch (callNativeN(frame, method, hTarget, ahArg, Op.A_IGNORE))
                         {
                         case Op.R_NEXT      -> frame.assignValue(iReturn, xTuple.H_VOID);
                         case Op.R_EXCEPTION -> Op.R_EXCEPTION;
@@ -699,7 +701,7 @@ public abstract class ClassTemplate
                         };
 
                 case 1 ->
-                    switch (invokeNativeN(frame, method, hTarget, ahArg, Op.A_STACK))
+                    switch (callNativeN(frame, method, hTarget, ahArg, Op.A_STACK))
                         {
                         case Op.R_NEXT      -> frame.assignTuple(iReturn, frame.popStack());
                         case Op.R_EXCEPTION -> Op.R_EXCEPTION;
@@ -733,6 +735,144 @@ public abstract class ClassTemplate
         }
 
 
+    // ----- pre-bound native dispatch -------------------------------------------------------------
+
+    /**
+     * A pre-bound implementation of a native method invoked with exactly one argument.
+     */
+    @FunctionalInterface
+    public interface NativeMethod1
+        {
+        /**
+         * @see #invokeNative1
+         */
+        int invoke(Frame frame, ObjectHandle hTarget, ObjectHandle hArg, int iReturn);
+        }
+
+    /**
+     * A pre-bound implementation of a native method invoked with zero or more than one argument.
+     */
+    @FunctionalInterface
+    public interface NativeMethodN
+        {
+        /**
+         * @see #invokeNativeN
+         */
+        int invoke(Frame frame, ObjectHandle hTarget, ObjectHandle[] ahArg, int iReturn);
+        }
+
+    /**
+     * A pre-bound implementation of a native property getter.
+     */
+    @FunctionalInterface
+    public interface NativeGetter
+        {
+        /**
+         * @see #invokeNativeGet
+         */
+        int get(Frame frame, ObjectHandle hTarget, int iReturn);
+        }
+
+    /**
+     * Mark the specified method as native and bind the specified implementation to it; the
+     * implementation is used whenever the method is invoked with exactly one argument on a handle
+     * of this template.
+     */
+    public void markNativeMethod1(String sName, String[] asParamType, String[] asRetType,
+                                  NativeMethod1 impl)
+        {
+        MethodStructure method = markNativeMethod(sName, asParamType, asRetType);
+        if (method != null)
+            {
+            method.bindNative1(this, impl);
+            }
+        }
+
+    /**
+     * Mark the specified method as native and bind the specified implementation to it; the
+     * implementation is used whenever the method is invoked with zero or more than one argument on
+     * a handle of this template.
+     */
+    public void markNativeMethodN(String sName, String[] asParamType, String[] asRetType,
+                                  NativeMethodN impl)
+        {
+        MethodStructure method = markNativeMethod(sName, asParamType, asRetType);
+        if (method != null)
+            {
+            method.bindNativeN(this, impl);
+            }
+        }
+
+    /**
+     * Mark the specified property and its accessors as native and bind the specified getter to it.
+     */
+    public void markNativeProperty(String sPropName, NativeGetter getter)
+        {
+        markNativeProperty(sPropName);
+        m_mapNativeGetters.put(sPropName, getter);
+        }
+
+    /**
+     * Invoke a native method with exactly one argument, using the implementation pre-bound by
+     * {@link #markNativeMethod1} if there is one;
+     * otherwise fall back to {@link #invokeNative1}.
+     *
+     * @return one of the {@link Op#R_NEXT}, {@link Op#R_CALL}, {@link Op#R_EXCEPTION},
+     *         or {@link Op#R_BLOCK} values
+     */
+    public final int callNative1(Frame frame, MethodStructure method,
+                                 ObjectHandle hTarget, ObjectHandle hArg, int iReturn)
+        {
+        NativeMethod1 impl = method.getNativeMethod1(this);
+        return impl == null
+                ? invokeNative1(frame, method, hTarget, hArg, iReturn)
+                : impl.invoke(frame, hTarget, hArg, iReturn);
+        }
+
+    /**
+     * Invoke a native method with zero or more than one argument, using the implementation
+     * pre-bound by {@link #markNativeMethodN} if there is
+     * one; otherwise fall back to {@link #invokeNativeN}.
+     *
+     * @return one of the {@link Op#R_NEXT}, {@link Op#R_CALL}, {@link Op#R_EXCEPTION},
+     *         or {@link Op#R_BLOCK} values
+     */
+    public final int callNativeN(Frame frame, MethodStructure method,
+                                 ObjectHandle hTarget, ObjectHandle[] ahArg, int iReturn)
+        {
+        NativeMethodN impl = method.getNativeMethodN(this);
+        return impl == null
+                ? invokeNativeN(frame, method, hTarget, ahArg, iReturn)
+                : impl.invoke(frame, hTarget, ahArg, iReturn);
+        }
+
+    /**
+     * Retrieve a native property value, using the getter pre-bound by
+     * {@link #markNativeProperty(String, NativeGetter)} if there is one; otherwise fall back to
+     * {@link #invokeNativeGet}. The resolved getter is cached on the call chain, so the property
+     * name is only looked at once per chain.
+     *
+     * @return one of the {@link Op#R_NEXT}, {@link Op#R_CALL} or {@link Op#R_EXCEPTION} values
+     */
+    public final int callNativeGet(Frame frame, CallChain chain, PropertyConstant idProp,
+                                   ObjectHandle hTarget, int iReturn)
+        {
+        NativeGetter getter = chain.getNativeGetter(this);
+        if (getter == null)
+            {
+            String sPropName = idProp.getName();
+
+            getter = m_mapNativeGetters.get(sPropName);
+            if (getter == null)
+                {
+                getter = (frameCaller, h, i) -> invokeNativeGet(frameCaller, sPropName, h, i);
+                }
+            chain.setNativeGetter(this, getter);
+            }
+        return getter.get(frame, hTarget, iReturn);
+        }
+
+
     // ----- property operations -------------------------------------------------------------------
 
     /**
@@ -822,7 +962,7 @@ public abstract class ClassTemplate
 
         if (chain.isNative())
             {
-            return invokeNativeGet(frame, idProp.getName(), hTarget, iReturn);
+            return callNativeGet(frame, chain, idProp, hTarget, iReturn);
             }
 
         if (clzTarget.isStruct() || chain.isField())
@@ -1166,6 +1306,12 @@ public abstract class ClassTemplate
      */
     public int invokeNativeGet(Frame frame, String sPropName, ObjectHandle hTarget, int iReturn)
         {
+        NativeGetter getter = m_mapNativeGetters.get(sPropName);
+        if (getter != null)
+            {
+            return getter.get(frame, hTarget, iReturn);
+            }
+
         TypeConstant typeTarget = hTarget.getType();
         if (typeTarget.containsGenericParam(sPropName))
             {
@@ -2172,8 +2318,10 @@ public abstract class ClassTemplate
 
     /**
      * Mark the specified method as native.
+     *
+     * @return the native method or null if the method could not be found
      */
-    public void markNativeMethod(String sName, String[] asParamType, String[] asRetType)
+    public MethodStructure markNativeMethod(String sName, String[] asParamType, String[] asRetType)
         {
         TypeConstant[] atypeParam  = getTypeConstants(this, asParamType);
         TypeConstant[] atypeReturn = getTypeConstants(this, asRetType);
@@ -2253,6 +2401,7 @@ public abstract class ClassTemplate
                 method.markNative();
                 }
             }
+        return method;
         }
 
     /**
@@ -2729,4 +2878,9 @@ public abstract class ClassTemplate
      * Cached canonical type composition.
      */
     protected ClassComposition m_clazzCanonical;
+
+    /**
+     * The native property getters bound by {@link #markNativeProperty(String, NativeGetter)}.
+     */
+    private final Map<String, NativeGetter> m_mapNativeGetters = new HashMap<>();
     }
\ No newline at end of file
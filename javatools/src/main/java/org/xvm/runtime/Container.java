@@ -2,12 +2,18 @@ package org.xvm.runtime;
 
 
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.WeakHashMap;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.xvm.asm.ClassStructure;
@@ -46,6 +52,9 @@ import org.xvm.runtime.template.xService;
 import org.xvm.runtime.template.collections.xArray;
 import org.xvm.runtime.template.collections.xArray.Mutability;
 
+import org.xvm.runtime.template._native.io.ChannelBufferPool;
+import org.xvm.runtime.template._native.mgmt.xContainerControl;
+
 import org.xvm.runtime.template.reflect.xModule;
 import org.xvm.runtime.template.reflect.xPackage;
 
@@ -54,7 +63,7 @@ import org.xvm.runtime.template.reflect.xPackage;
  * The base Container functionality.
  */
 public abstract class Container
-        implements LinkerContext
+        implements LinkerContext, InlineCache.Key
     {
     protected Container(Runtime runtime, Container containerParent, ModuleConstant idModule)
         {
@@ -63,6 +72,11 @@ public abstract class Container
         f_heap     = new ConstHeap(this);
         f_idModule = idModule;
 
+        int cLimitIO = runtime.isVirtualIO()
+                ? Integer.parseInt(System.getProperty("xvm.io.limit", "256"))
+                : 0;
+        f_semaphoreIO = cLimitIO > 0 ? new Semaphore(cLimitIO) : null;
+
         // don't register the native container
         if (containerParent != null)
             {
@@ -147,17 +161,12 @@ public abstract class Container
      */
     public void schedule(ServiceContext service)
         {
-        // TODO: add a container level fair scheduling queue and submit the service there. The
-        // container should then follow a similar pattern and push processing of its fair scheduling
-        // queue to its parent container which eventually pushes to the runtime. Thus, there is a
-        // hierarchy of fairness. For now though we just skip over all of this and push the
-        // processing directly to the top level runtime.
-
         f_pendingWorkCount.incrementAndGet();
-        f_runtime.submitService(() ->
+        enqueue(() ->
             {
             try
                 {
+                service.m_nAffinity = f_runtime.getCurrentWorker();
                 service.execute(true);
                 }
             catch (Throwable e)
@@ -170,7 +179,149 @@ public abstract class Container
                 {
                 f_pendingWorkCount.decrementAndGet();
                 }
-            });
+            }, service.m_nAffinity);
+        }
+
+    /**
+     * Add a task to this container's fair scheduling queue.
+     * <p>
+     * The container's queue is processed in "slices": each slice runs at most
+     * {@link #getSchedulingWeight() weight} tasks and then, if there is more work, gets pushed to
+     * the back of the parent container's queue, which in turn eventually pushes to the runtime.
+     * Thus, there is a hierarchy of fairness: a chatty container cannot starve its siblings, while
+     * the number of concurrently processed slices (limited by the runtime's parallelism) still
+     * allows the container's services to run on all the cores.
+     *
+     * @param task       the task to add
+     * @param nAffinity  the index of the preferred worker or -1
+     */
+    protected void enqueue(Runnable task, int nAffinity)
+        {
+        f_queueSchedule.add(task);
+        ensureSlice(nAffinity);
+        }
+
+    /**
+     * Make sure there is a slice scheduled to process this container's queue.
+     *
+     * @param nAffinity  the index of the preferred worker or -1
+     */
+    private void ensureSlice(int nAffinity)
+        {
+        AtomicInteger atomicSlices = f_atomicSlices;
+        int           cMax         = f_runtime.getParallelism();
+        int           cSlices;
+        while ((cSlices = atomicSlices.get()) < cMax)
+            {
+            if (atomicSlices.compareAndSet(cSlices, cSlices + 1))
+                {
+                submitSlice(nAffinity);
+                return;
+                }
+            }
+        // all possible slices are already scheduled; one of them will pick up the task
+        }
+
+    /**
+     * Submit the slice processing task to the parent container or the runtime.
+     *
+     * @param nAffinity  the index of the preferred worker or -1
+     */
+    private void submitSlice(int nAffinity)
+        {
+        Container parent = f_parent;
+        if (parent == null)
+            {
+            f_runtime.submitService(f_taskSlice, nAffinity);
+            }
+        else
+            {
+            parent.enqueue(f_taskSlice, nAffinity);
+            }
+        }
+
+    /**
+     * Process a slice of this container's scheduling queue.
+     */
+    private void runSlice()
+        {
+        Queue<Runnable> queue  = f_queueSchedule;
+        int             cTasks = getSchedulingWeight();
+        for (Runnable task; cTasks-- > 0 && (task = queue.poll()) != null; )
+            {
+            task.run();
+            }
+
+        if (!queue.isEmpty())
+            {
+            // we've used up our share; go to the back of the line
+            submitSlice(-1);
+            return;
+            }
+
+        f_atomicSlices.decrementAndGet();
+
+        // a task could have been added while the slice count was at the limit
+        if (!queue.isEmpty())
+            {
+            ensureSlice(-1);
+            }
+        }
+
+    /**
+     * @return the maximum number of tasks processed by a single scheduling slice of this container
+     */
+    public int getSchedulingWeight()
+        {
+        return m_cSchedulingWeight;
+        }
+
+    /**
+     * Specify the scheduling weight for this container. The containers with a higher weight get
+     * a proportionally larger share of the processing relative to their siblings.
+     * <p>
+     * The weight is set by the container's creator via the "schedulingPriority" property of the
+     * container's {@code Control} (see {@link xContainerControl#toWeight}).
+     *
+     * @param cWeight  the maximum number of tasks processed by a single slice
+     */
+    public void setSchedulingWeight(int cWeight)
+        {
+        if (cWeight <= 0)
+            {
+            throw new IllegalArgumentException("Invalid weight: " + cWeight);
+            }
+        m_cSchedulingWeight = cWeight;
+        }
+
+    /**
+     * @return the maximum time (in nanoseconds) a fiber of any service within this container is
+     *         allowed to run before it gets paused to let other fibers run, unless the service
+     *         specifies its own {@link ServiceContext#getTimeSlice() time slice}; unless
+     *         specified, the time slice is inherited from the parent container
+     */
+    public long getTimeSlice()
+        {
+        long cNanos = m_cTimeSliceNanos;
+        return cNanos != 0 ? cNanos
+             : f_parent == null ? DEFAULT_TIME_SLICE
+             : f_parent.getTimeSlice();
+        }
+
+    /**
+     * Specify the time slice for the services within this container. The time slice is set by the
+     * container's creator via the "timeSlice" property of the container's {@code Control}.
+     *
+     * @param cNanos  the maximum time (in nanoseconds) a fiber is allowed to run without a pause;
+     *                zero indicates that the parent container's time slice should be used
+     */
+    public void setTimeSlice(long cNanos)
+        {
+        if (cNanos < 0)
+            {
+            throw new IllegalArgumentException("Invalid time slice: " + cNanos);
+            }
+        m_cTimeSliceNanos = cNanos;
         }
 
     /**
@@ -193,18 +344,152 @@ public abstract class Container
     public <R> CompletableFuture<R> scheduleIO(Callable<R> task)
         {
         CompletableFuture<R> cf = new CompletableFuture<>();
-        f_runtime.submitIO(() ->
+
+        f_cIOInFlight.getAndIncrement();
+        f_runtime.submitIO(() -> runIO(task, cf, f_semaphoreIO));
+        return cf;
+        }
+
+    /**
+     * Schedule a network IO task. The network IO tasks always run on virtual threads and are not
+     * subject to the container's IO limit, since they could wait for an unbounded time.
+     *
+     * @param task  the task
+     *
+     * @return a CompletableFuture associated with the scheduled task
+     */
+    public <R> CompletableFuture<R> scheduleNetIO(Callable<R> task)
+        {
+        CompletableFuture<R> cf = new CompletableFuture<>();
+
+        f_cIOInFlight.getAndIncrement();
+        f_runtime.submitNetIO(() -> runIO(task, cf, null));
+        return cf;
+        }
+
+    /**
+     * Run an IO task on an IO thread.
+     *
+     * @param task      the task
+     * @param cf        the future to complete with the task result
+     * @param semLimit  the semaphore limiting the IO concurrency, or null
+     */
+    private <R> void runIO(Callable<R> task, CompletableFuture<R> cf, Semaphore semLimit)
+        {
+        boolean fAcquired = false;
+        try
             {
-            try
+            if (semLimit != null)
                 {
-                cf.complete(task.call());
+                // this only blocks a virtual thread
+                semLimit.acquire();
+                fAcquired = true;
                 }
-            catch (Throwable e)
+            cf.complete(task.call());
+            }
+        catch (Throwable e)
+            {
+            cf.completeExceptionally(e);
+            }
+        finally
+            {
+            if (fAcquired)
                 {
-                cf.completeExceptionally(e);
+                semLimit.release();
                 }
-            });
-        return cf;
+            f_cIOInFlight.getAndDecrement();
+            }
+        }
+
+    /**
+     * Metrics: the number of IO tasks scheduled by this container that have not completed yet.
+     *
+     * @return the number of in-flight IO tasks
+     */
+    public long getIOInFlightCount()
+        {
+        return f_cIOInFlight.get();
+        }
+
+    /**
+     * Charge the specified number of memory-mapped bytes to this container's budget.
+     *
+     * @param cb  the number of bytes about to be mapped
+     *
+     * @return true iff the bytes have been charged; false if that would exceed the budget
+     */
+    public boolean reserveMappedMemory(long cb)
+        {
+        AtomicLong atomicMapped = f_cbMapped;
+        long       cbLimit      = m_cbMappedLimit;
+        while (true)
+            {
+            long cbOld = atomicMapped.get();
+            long cbNew = cbOld + cb;
+            if (cbNew > cbLimit)
+                {
+                return false;
+                }
+            if (atomicMapped.compareAndSet(cbOld, cbNew))
+                {
+                return true;
+                }
+            }
+        }
+
+    /**
+     * Return the memory-mapped bytes previously charged by {@link #reserveMappedMemory}.
+     *
+     * @param cb  the number of bytes that have been unmapped
+     */
+    public void releaseMappedMemory(long cb)
+        {
+        f_cbMapped.getAndAdd(-cb);
+        }
+
+    /**
+     * Metrics: the number of memory-mapped bytes currently charged to this container.
+     *
+     * @return the number of mapped bytes
+     */
+    public long getMappedMemory()
+        {
+        return f_cbMapped.get();
+        }
+
+    /**
+     * Specify the maximum number of memory-mapped bytes this container could hold at any time.
+     *
+     * @param cbLimit  the budget in bytes
+     */
+    public void setMappedMemoryLimit(long cbLimit)
+        {
+        if (cbLimit < 0)
+            {
+            throw new IllegalArgumentException("Invalid mapped memory limit: " + cbLimit);
+            }
+        m_cbMappedLimit = cbLimit;
+        }
+
+    /**
+     * @return the pool of the native buffers used by this container's channels
+     */
+    public ChannelBufferPool getChannelBufferPool()
+        {
+        ChannelBufferPool pool = m_poolChannelBuffers;
+        if (pool == null)
+            {
+            synchronized (this)
+                {
+                pool = m_poolChannelBuffers;
+                if (pool == null)
+                    {
+                    m_poolChannelBuffers = pool =
+                            new ChannelBufferPool(CHANNEL_BUFFER_SIZE, DEFAULT_BUFFER_LIMIT);
+                    }
+                }
+            }
+        return pool;
         }
 
     /**
@@ -703,6 +988,21 @@ public abstract class Container
         }
 
 
+    // ----- InlineCache.Key interface -------------------------------------------------------------
+
+    @Override
+    public InlineCache.Retained getRetainedValues()
+        {
+        return m_retained;
+        }
+
+    @Override
+    public void setRetainedValues(InlineCache.Retained retained)
+        {
+        m_retained = retained;
+        }
+
+
     // ----- helper methods ------------------------------------------------------------------------
 
     private NativeContainer getNativeContainer()
@@ -766,6 +1066,92 @@ public abstract class Container
      */
     private final AtomicLong f_pendingWorkCount = new AtomicLong();
 
+    /**
+     * The fair scheduling queue of tasks for this container's services and the slices of the
+     * child containers.
+     */
+    private final Queue<Runnable> f_queueSchedule = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of slices that are currently scheduled to process {@link #f_queueSchedule}.
+     */
+    private final AtomicInteger f_atomicSlices = new AtomicInteger();
+
+    /**
+     * The slice processing task.
+     */
+    private final Runnable f_taskSlice = this::runSlice;
+
+    /**
+     * Metrics: the number of in-flight IO tasks scheduled by this container.
+     */
+    private final AtomicLong f_cIOInFlight = new AtomicLong();
+
+    /**
+     * Metrics: the number of memory-mapped bytes charged to this container.
+     */
+    private final AtomicLong f_cbMapped = new AtomicLong();
+
+    /**
+     * The budget for the memory-mapped bytes (see {@link #setMappedMemoryLimit}).
+     */
+    private volatile long m_cbMappedLimit = DEFAULT_MAPPED_LIMIT;
+
+    /**
+     * The default budget for the memory-mapped bytes; the "xvm.container.mappedLimit" property is
+     * specified in megabytes.
+     */
+    public static final long DEFAULT_MAPPED_LIMIT =
+            Long.parseLong(System.getProperty("xvm.container.mappedLimit", "4096")) << 20;
+
+    /**
+     * The pool of the native channel buffers (see {@link #getChannelBufferPool}).
+     */
+    private volatile ChannelBufferPool m_poolChannelBuffers;
+
+    /**
+     * The size of the native channel buffers ("-Dxvm.io.bufferSize").
+     */
+    public static final int CHANNEL_BUFFER_SIZE =
+            Integer.parseInt(System.getProperty("xvm.io.bufferSize", "16384"));
+
+    /**
+     * The default capacity of the native channel buffer pool; the "xvm.container.bufferLimit"
+     * property is specified in megabytes.
+     */
+    public static final long DEFAULT_BUFFER_LIMIT =
+            Long.parseLong(System.getProperty("xvm.container.bufferLimit", "64")) << 20;
+
+    /**
+     * The limit of concurrently running IO tasks for this container when the IO tasks are executed
+     * on virtual threads ("-Dxvm.io.limit"); null if there is no container-level limit.
+     */
+    private final Semaphore f_semaphoreIO;
+
+    /**
+     * The scheduling weight (see {@link #getSchedulingWeight()}).
+     */
+    private volatile int m_cSchedulingWeight = DEFAULT_SCHEDULING_WEIGHT;
+
+    /**
+     * The default scheduling weight.
+     */
+    public static final int DEFAULT_SCHEDULING_WEIGHT =
+            Integer.parseInt(System.getProperty("xvm.container.weight", "4"));
+
+    /**
+     * The time slice (in nanos) for this container's services; zero means the parent's time slice
+     * (see {@link #getTimeSlice()}).
+     */
+    private volatile long m_cTimeSliceNanos;
+
+    /**
+     * The default time slice (in nanoseconds); the "xvm.container.timeSlice" property is specified
+     * in microseconds.
+     */
+    public static final long DEFAULT_TIME_SLICE = TimeUnit.MICROSECONDS.toNanos(
+            Long.parseLong(System.getProperty("xvm.container.timeSlice", "5000")));
+
     /**
      * Set of services that were started by this container (stored as a Map with no values).
      */
@@ -783,4 +1169,9 @@ public abstract class Container
      * A cache of ClassTemplates loaded by this Container keyed by type.
      */
     protected final Map<TypeConstant, ClassTemplate> f_mapTemplatesByType = new ConcurrentHashMap<>();
+
+    /**
+     * The values cached by the {@link InlineCache}s that use this container as a key.
+     */
+    private volatile InlineCache.Retained m_retained;
     }
\ No newline at end of file
@@ -2133,15 +2133,20 @@ public final class DebugConsole
         List<Frame.StackFrame> listFrames = new ArrayList<>();
         int                    ixFrame    = 0;
 
-        StringBuilder sb = new StringBuilder();
-        for (Container container : m_frame.f_context.getRuntime().containers())
+        Runtime       runtime = m_frame.f_context.getRuntime();
+        StringBuilder sb      = new StringBuilder();
+        sb.append("IO tasks (")
+          .append(runtime.isVirtualIO() ? "virtual" : "platform")
+          .append(" threads): in-flight=")
+          .append(runtime.getIOInFlightCount())
+          .append("; submitted=")
+          .append(runtime.getIOSubmittedCount());
+
+        for (Container container : runtime.containers())
             {
             // for now, let's show all the containers, rather than the current one
-            if (!sb.isEmpty())
-                {
-                sb.append("\n\n");
-                }
-            sb.append("+container ")
+            sb.append("\n\n")
+              .append("+container ")
               .append(container.getModule());
 
             if (container.f_parent != null)
@@ -2150,6 +2155,9 @@ public final class DebugConsole
                   .append(container.f_parent.getModule());
                 }
 
+            sb.append("; pending IO=")
+              .append(container.getIOInFlightCount());
+
             for (ServiceContext ctx : container.getServices())
                 {
                 sb.append("\n    Service \"")
@@ -127,10 +127,30 @@ public abstract class DelegatingComposition
         }
 
 
+    // ----- InlineCache.Key interface -------------------------------------------------------------
+
+    @Override
+    public InlineCache.Retained getRetainedValues()
+        {
+        return m_retained;
+        }
+
+    @Override
+    public void setRetainedValues(InlineCache.Retained retained)
+        {
+        m_retained = retained;
+        }
+
+
     // ----- data fields ---------------------------------------------------------------------------
 
     /**
      * The TypeComposition to delegate to.
      */
     protected final TypeComposition f_clzOrigin;
+
+    /**
+     * The values cached by the {@link InlineCache}s that use this composition as a key.
+     */
+    private volatile InlineCache.Retained m_retained;
     }
\ No newline at end of file
@@ -24,6 +24,8 @@ import org.xvm.runtime.template.xNullable;
 
 import org.xvm.runtime.template._native.reflect.xRTFunction.FunctionHandle;
 
+import org.xvm.util.concurrent.TimingWheel;
+
 
 /**
  * The Fiber represents a single execution thread for a give ServiceContext.
@@ -88,6 +90,7 @@ public class Fiber
 
         m_hTimeout   = hTimeout;
         m_ldtTimeout = ldtTimeout;
+        scheduleWakeUp();
         }
 
     /**
@@ -105,6 +108,36 @@ public class Fiber
     public void clearTimeout()
         {
         m_ldtTimeout = 0L;
+        cancelWakeUp();
+        }
+
+    /**
+     * Make sure the service is woken up when this fiber's timeout expires. For a timeout inherited
+     * from the caller, this is called by {@link ServiceContext#createFiber} once the fiber is
+     * constructed.
+     */
+    void scheduleWakeUp()
+        {
+        cancelWakeUp();
+
+        if (m_ldtTimeout > 0)
+            {
+            m_wakeUp = f_context.scheduleWakeUp(m_ldtTimeout);
+            }
+        }
+
+    /**
+     * Cancel the wake-up for this fiber's timeout (if any); this must be called when the fiber is
+     * terminated.
+     */
+    protected void cancelWakeUp()
+        {
+        TimingWheel.Timeout wakeUp = m_wakeUp;
+        if (wakeUp != null)
+            {
+            m_wakeUp = null;
+            wakeUp.cancel();
+            }
         }
 
     /**
@@ -187,19 +220,52 @@ public class Fiber
 
             case Waiting:
             case Paused:
-                long cNanos = System.nanoTime() - m_nanoStarted;
-                m_nanoStarted = 0;
-                f_context.m_cRuntimeNanos += cNanos;
+                recordRun(cOps);
                 m_frame = f_context.getCurrentFrame();
-                m_cOps += cOps;
                 break;
 
             case Terminating:
+                recordRun(cOps);
                 m_frame = null;
                 break;
             }
         }
 
+    /**
+     * Update the metrics when this fiber stops running; called only from this fiber's service
+     * thread.
+     *
+     * @param cOps  the number of ops this fiber has processed since the last status update
+     */
+    public void recordRun(int cOps)
+        {
+        long nanoStarted = m_nanoStarted;
+        if (nanoStarted != 0)
+            {
+            long cNanos = System.nanoTime() - nanoStarted;
+            m_nanoStarted = 0;
+            m_cCpuNanos  += cNanos;
+            f_context.m_cRuntimeNanos += cNanos;
+            }
+        m_cOps += cOps;
+        }
+
+    /**
+     * @return the total time (in nanoseconds) this fiber has been running
+     */
+    public long getCpuTime()
+        {
+        return m_cCpuNanos;
+        }
+
+    /**
+     * @return the total number of ops this fiber has executed
+     */
+    public long getOpCount()
+        {
+        return m_cOps;
+        }
+
     /**
      * Obtain the current frame for this Fiber.
      */
@@ -688,11 +754,21 @@ public class Fiber
      */
     private long m_ldtTimeout;
 
+    /**
+     * The service wake-up scheduled for the timeout (optional).
+     */
+    private TimingWheel.Timeout m_wakeUp;
+
     /**
      * Metrics: the total number of ops this fiber has executed.
      */
     private long m_cOps;
 
+    /**
+     * Metrics: the total time (in nanos) this fiber has been running.
+     */
+    private long m_cCpuNanos;
+
     /**
      * Currently active AsyncSection.
      */
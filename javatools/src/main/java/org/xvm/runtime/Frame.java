@@ -1,6 +1,9 @@
 package org.xvm.runtime;
 
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -1340,6 +1343,21 @@ public class Frame
         return Op.R_EXCEPTION;
         }
 
+    /**
+     * Log an unexpected Java exception thrown by an op and raise a "Run-time error" exception.
+     *
+     * @param e  the Java exception
+     *
+     * @return R_EXCEPTION
+     */
+    public int raiseUnexpectedException(Throwable e)
+        {
+        StringWriter out = new StringWriter();
+        e.printStackTrace(new PrintWriter(out));
+        Runtime.logRuntimeException(out + getStackTrace());
+        return raiseException("Run-time error: " + e);
+        }
+
     // return R_EXCEPTION
     public int raiseException(ExceptionHandle hException)
         {
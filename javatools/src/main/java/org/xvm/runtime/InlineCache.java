@@ -0,0 +1,287 @@
+package org.xvm.runtime;
+
+
+import java.lang.ref.WeakReference;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A per-op inline cache for run-time information that needs to be calculated by various ops (e.g.
+ * call chains, constructors or array compositions) keyed by an identity of the "receiver" object
+ * (most commonly the target's {@link TypeComposition}).
+ * <p>
+ * The cache starts as monomorphic (a single entry), grows to a polymorphic one (up to
+ * {@link #POLY_LIMIT} entries) and, if more keys are seen, turns into a megamorphic cache backed by
+ * a synchronized weak-keyed map. Since ops are shared by all services (and containers) that load the
+ * corresponding module, an InlineCache is safe to be read and updated by any thread: the entries
+ * are immutable and published via a volatile array, so a racing update could only lose an entry
+ * that would be re-calculated at the next miss.
+ * <p>
+ * The values are held strongly by their keys (see {@link Key}), while the cache itself refers to
+ * both the keys and the values weakly. As a result, a key/value pair behaves as an ephemeron: the
+ * value stays cached for as long as the key is alive, but a value that references its key (e.g. a
+ * function info that references the container it was computed for) does not keep the key alive,
+ * and the ops of a shared module (e.g. "ecstasy.xtc") don't hold on to nested containers. The
+ * entries with a collected key get replaced.
+ */
+public class InlineCache
+    {
+    /**
+     * Find the cached value for the specified key.
+     *
+     * @param oKey  the key (compared by identity)
+     *
+     * @return the cached value or null
+     */
+    public Object get(Object oKey)
+        {
+        Entry[] aEntry = m_aEntry;
+        for (Entry entry : aEntry)
+            {
+            if (entry.get() == oKey)
+                {
+                Object oValue = entry.f_refValue.get();
+                if (oValue != null)
+                    {
+                    if (COLLECT_STATS)
+                        {
+                        s_cHits.increment();
+                        }
+                    return oValue;
+                    }
+                break;
+                }
+            }
+
+        Map<Object, WeakReference<Object>> mapMega = m_mapMega;
+        if (mapMega != null)
+            {
+            WeakReference<Object> refValue = mapMega.get(oKey);
+            Object                oValue   = refValue == null ? null : refValue.get();
+            if (oValue != null)
+                {
+                if (COLLECT_STATS)
+                    {
+                    s_cMegaHits.increment();
+                    }
+                return oValue;
+                }
+            }
+
+        if (COLLECT_STATS)
+            {
+            s_cMisses.increment();
+            }
+        return null;
+        }
+
+    /**
+     * Store the value for the specified key.
+     *
+     * @param key     the key (compared by identity)
+     * @param oValue  the value
+     */
+    public void put(Key key, Object oValue)
+        {
+        assert key != null && oValue != null;
+
+        retain(key, oValue);
+
+        Map<Object, WeakReference<Object>> mapMega = m_mapMega;
+        if (mapMega != null)
+            {
+            mapMega.put(key, new WeakReference<>(oValue));
+            return;
+            }
+
+        Entry[] aOld = m_aEntry;
+        int     cOld = aOld.length;
+        int     iPos = cOld;
+        for (int i = 0; i < cOld; i++)
+            {
+            Entry  entryOld = aOld[i];
+            Object oKeyOld  = entryOld.get();
+            if (oKeyOld == key || oKeyOld == null || entryOld.f_refValue.get() == null)
+                {
+                // replace the stale (or collected) entry in place
+                iPos = i;
+                break;
+                }
+            }
+
+        if (iPos == POLY_LIMIT)
+            {
+            // too many receivers; go megamorphic
+            mapMega = Collections.synchronizedMap(new WeakHashMap<>());
+            mapMega.put(key, new WeakReference<>(oValue));
+            m_mapMega = mapMega;
+            if (COLLECT_STATS)
+                {
+                s_cMegamorphic.increment();
+                }
+            return;
+            }
+
+        Entry[] aNew = new Entry[Math.max(cOld, iPos + 1)];
+        System.arraycopy(aOld, 0, aNew, 0, cOld);
+        aNew[iPos] = new Entry(key, oValue);
+        m_aEntry   = aNew;
+        }
+
+    /**
+     * @return true iff this cache has more than one receiver
+     */
+    public boolean isPolymorphic()
+        {
+        return m_aEntry.length > 1 || m_mapMega != null;
+        }
+
+    /**
+     * @return true iff this cache has exceeded the polymorphic limit
+     */
+    public boolean isMegamorphic()
+        {
+        return m_mapMega != null;
+        }
+
+    /**
+     * @return a human-readable summary of the inline cache statistics (collected only if the
+     *         "xvm.inlineCache.stats" system property is set)
+     */
+    public static String getStatistics()
+        {
+        return "InlineCache: hits=" + s_cHits.sum() + ", megamorphic hits=" + s_cMegaHits.sum() +
+                ", misses=" + s_cMisses.sum() + ", megamorphic sites=" + s_cMegamorphic.sum();
+        }
+
+    /**
+     * @return the total number of monomorphic and polymorphic cache hits
+     */
+    public static long getHitCount()
+        {
+        return s_cHits.sum();
+        }
+
+    /**
+     * @return the total number of cache misses
+     */
+    public static long getMissCount()
+        {
+        return s_cMisses.sum();
+        }
+
+
+    /**
+     * Make the specified key hold the specified value strongly.
+     */
+    private static void retain(Key key, Object oValue)
+        {
+        Retained retained = key.getRetainedValues();
+        if (retained == null)
+            {
+            // a racing update could lose a value, which would be re-calculated at the next miss
+            key.setRetainedValues(retained = new Retained());
+            }
+        retained.add(oValue);
+        }
+
+
+    // ----- inner interface: Key ------------------------------------------------------------------
+
+    /**
+     * An InlineCache key, which holds strongly all the values cached for it by any InlineCache.
+     */
+    public interface Key
+        {
+        /**
+         * @return the values retained by this key, or null if none
+         */
+        Retained getRetainedValues();
+
+        /**
+         * Set the holder of the values retained by this key.
+         *
+         * @param retained  the holder of the retained values
+         */
+        void setRetainedValues(Retained retained);
+        }
+
+
+    // ----- inner class: Retained -----------------------------------------------------------------
+
+    /**
+     * The values retained by a {@link Key}.
+     */
+    public static class Retained
+        {
+        synchronized void add(Object oValue)
+            {
+            f_setValues.add(oValue);
+            }
+
+        private final Set<Object> f_setValues = Collections.newSetFromMap(new IdentityHashMap<>());
+        }
+
+
+    // ----- inner class: Entry --------------------------------------------------------------------
+
+    /**
+     * An immutable cache entry that holds both the key and the value weakly; the value is held
+     * strongly by the key itself.
+     */
+    private static class Entry
+            extends WeakReference<Object>
+        {
+        Entry(Object oKey, Object oValue)
+            {
+            super(oKey);
+
+            f_refValue = new WeakReference<>(oValue);
+            }
+
+        final WeakReference<Object> f_refValue;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * The maximum number of entries for a polymorphic cache.
+     */
+    public static final int POLY_LIMIT = 4;
+
+    /**
+     * True iff the cache statistics should be collected.
+     */
+    private static final boolean COLLECT_STATS = Boolean.getBoolean("xvm.inlineCache.stats");
+
+    /**
+     * Statistics.
+     */
+    private static final LongAdder s_cHits        = new LongAdder();
+    private static final LongAdder s_cMegaHits    = new LongAdder();
+    private static final LongAdder s_cMisses      = new LongAdder();
+    private static final LongAdder s_cMegamorphic = new LongAdder();
+
+    /**
+     * An empty entry array.
+     */
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    /**
+     * The monomorphic or polymorphic entries.
+     */
+    private volatile Entry[] m_aEntry = NO_ENTRIES;
+
+    /**
+     * The megamorphic fallback.
+     */
+    private volatile Map<Object, WeakReference<Object>> m_mapMega;
+    }
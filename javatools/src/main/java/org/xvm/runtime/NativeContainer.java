@@ -30,6 +30,7 @@ import org.xvm.asm.ConstantPool;
 import org.xvm.asm.Constants;
 import org.xvm.asm.FileStructure;
 import org.xvm.asm.InjectionKey;
+import org.xvm.asm.LinkedRepository;
 import org.xvm.asm.MethodStructure;
 import org.xvm.asm.ModuleRepository;
 import org.xvm.asm.ModuleStructure;
@@ -93,10 +94,24 @@ public class NativeContainer
         extends Container
     {
     public NativeContainer(Runtime runtime, ModuleRepository repository)
+        {
+        this(runtime, repository, null);
+        }
+
+    /**
+     * Construct the native container.
+     *
+     * @param runtime     the runtime
+     * @param repository  the module repository
+     * @param snapshot    the snapshot to load the merged system modules from (or to create, if it
+     *                    is missing or out of date); null to always merge the modules
+     */
+    public NativeContainer(Runtime runtime, ModuleRepository repository, SystemSnapshot snapshot)
         {
         super(runtime, null, null);
 
         f_repository = repository;
+        f_snapshot   = snapshot;
 
         ConstantPool pool = loadNativeTemplates();
         try (var ignore = ConstantPool.withPool(pool))
@@ -110,21 +125,27 @@ public class NativeContainer
 
     private ConstantPool loadNativeTemplates()
         {
-        ModuleStructure moduleRoot   = f_repository.loadModule(ECSTASY_MODULE);
-        ModuleStructure moduleTurtle = f_repository.loadModule(TURTLE_MODULE);
-        ModuleStructure moduleNative = f_repository.loadModule(NATIVE_MODULE);
-
-        if (moduleRoot == null || moduleTurtle == null || moduleNative == null)
+        FileStructure fileRoot = loadSnapshot();
+        if (fileRoot == null)
             {
-            throw new IllegalStateException("Native libraries are missing");
-            }
+            ModuleStructure moduleRoot   = f_repository.loadModule(ECSTASY_MODULE);
+            ModuleStructure moduleTurtle = f_repository.loadModule(TURTLE_MODULE);
+            ModuleStructure moduleNative = f_repository.loadModule(NATIVE_MODULE);
+
+            if (moduleRoot == null || moduleTurtle == null || moduleNative == null)
+                {
+                throw new IllegalStateException("Native libraries are missing");
+                }
 
-        // "root" is a merge of "native" module into the "system"
-        FileStructure fileRoot = new FileStructure(moduleRoot, true);
-        fileRoot.merge(moduleTurtle, true, false);
-        fileRoot.merge(moduleNative, true, false);
+            // "root" is a merge of "native" module into the "system"
+            fileRoot = new FileStructure(moduleRoot, true);
+            fileRoot.merge(moduleTurtle, true, false);
+            fileRoot.merge(moduleNative, true, false);
 
-        fileRoot.linkModules(f_repository, true);
+            fileRoot.linkModules(f_repository, true);
+
+            storeSnapshot(fileRoot);
+            }
 
         // obtain the cloned modules that belong to the merged container
         m_moduleSystem = (ModuleStructure) fileRoot.getChild(ECSTASY_MODULE);
@@ -835,6 +856,88 @@ public class NativeContainer
 
     // ----- helpers -------------------------------------------------------------------------------
 
+    /**
+     * Load the merged and linked system modules from the snapshot, if there is a snapshot for the
+     * system modules in the repository.
+     *
+     * @return the "root" FileStructure, or null if it needs to be created by merging the modules
+     */
+    private FileStructure loadSnapshot()
+        {
+        SystemSnapshot snapshot = f_snapshot;
+        String         sKey     = snapshot == null ? null : computeSnapshotKey();
+        if (sKey == null)
+            {
+            return null;
+            }
+
+        FileStructure fileRoot = snapshot.load(sKey);
+        return fileRoot != null && fileRoot.linkModules(f_repository, true) == null
+                ? fileRoot
+                : null;
+        }
+
+    /**
+     * Store the merged and linked system modules into the snapshot (if a snapshot is used).
+     */
+    private void storeSnapshot(FileStructure fileRoot)
+        {
+        SystemSnapshot snapshot = f_snapshot;
+        String         sKey     = snapshot == null ? null : computeSnapshotKey();
+        if (sKey != null)
+            {
+            try
+                {
+                snapshot.store(fileRoot, sKey);
+                }
+            catch (IOException e)
+                {
+                Runtime.logRuntimeException("Failed to create the snapshot " + snapshot.getFile(), e);
+                }
+            }
+        }
+
+    /**
+     * @return the snapshot key for the system modules in the repository, or null if any of them is
+     *         missing
+     */
+    private String computeSnapshotKey()
+        {
+        ModuleStructure moduleRoot   = peekModule(ECSTASY_MODULE);
+        ModuleStructure moduleTurtle = peekModule(TURTLE_MODULE);
+        ModuleStructure moduleNative = peekModule(NATIVE_MODULE);
+
+        return moduleRoot == null || moduleTurtle == null || moduleNative == null
+                ? null
+                : SystemSnapshot.computeKey(moduleRoot, moduleTurtle, moduleNative);
+        }
+
+    /**
+     * Find the specified module without loading it into the repository; loading a module from a
+     * read-through repository creates a copy of it, which is not needed just to look at it.
+     *
+     * @param sModule  the module name
+     *
+     * @return the module or null if it is not in the repository
+     */
+    private ModuleStructure peekModule(String sModule)
+        {
+        if (f_repository instanceof LinkedRepository repoLinked)
+            {
+            for (ModuleRepository repo : repoLinked.asList())
+                {
+                ModuleStructure module = repo.loadModule(sModule);
+                if (module != null)
+                    {
+                    return module;
+                    }
+                }
+            return null;
+            }
+
+        return f_repository.loadModule(sModule);
+        }
+
     /**
      * Register the specified native template.
      */
@@ -969,6 +1072,7 @@ public class NativeContainer
     private ObjectHandle m_hInsecureNetwork;
 
     private final ModuleRepository f_repository;
+    private final SystemSnapshot   f_snapshot;
     private       ModuleStructure  m_moduleSystem;
     private       ModuleStructure  m_moduleTurtle;
     private       ModuleStructure  m_moduleNative;
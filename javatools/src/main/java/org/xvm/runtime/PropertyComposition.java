@@ -332,6 +332,21 @@ public class PropertyComposition
         }
 
 
+    // ----- InlineCache.Key interface -------------------------------------------------------------
+
+    @Override
+    public InlineCache.Retained getRetainedValues()
+        {
+        return m_retained;
+        }
+
+    @Override
+    public void setRetainedValues(InlineCache.Retained retained)
+        {
+        m_retained = retained;
+        }
+
+
     // ----- helpers -------------------------------------------------------------------------------
 
     /**
@@ -395,4 +410,7 @@ public class PropertyComposition
 
     // cached PropertyComposition for the struct class
     private PropertyComposition m_clzStruct;
+
+    // the values cached by the InlineCaches that use this composition as a key
+    private volatile InlineCache.Retained m_retained;
     }
\ No newline at end of file
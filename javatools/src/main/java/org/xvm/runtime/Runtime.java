@@ -1,11 +1,16 @@
 package org.xvm.runtime;
 
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -15,6 +20,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.xvm.asm.ConstantPool;
 
 import org.xvm.util.concurrent.ConcurrentLinkedBlockingQueue;
+import org.xvm.util.concurrent.WorkStealingExecutor;
 
 
 /**
@@ -36,24 +42,35 @@ public class Runtime
             Thread thread = new Thread(groupXVM, r);
             thread.setDaemon(true);
             thread.setName("XvmWorker@" + thread.hashCode());
+            thread.setUncaughtExceptionHandler(Runtime::logUncaughtException);
             return thread;
             };
 
-        // TODO: replace with a fair scheduling based ExecutorService
-        f_executorXVM = new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.SECONDS,
-                new ConcurrentLinkedBlockingQueue<>(), factoryXVM);
+        // the fairness across the containers is provided by the Container's scheduling queues;
+        // the executor itself only balances the load across the workers
+        f_executorXVM = new WorkStealingExecutor(parallelism, factoryXVM);
 
-        ThreadGroup groupIO = new ThreadGroup("IO");
-        ThreadFactory factoryIO = r ->
+        f_fVirtualIO = "virtual".equalsIgnoreCase(System.getProperty("xvm.io", "platform"));
+        if (f_fVirtualIO)
             {
-            Thread thread = new Thread(groupIO, r);
-            thread.setDaemon(true);
-            thread.setName("IOWorker@" + thread.hashCode());
-            return thread;
-            };
-
-        f_executorIO = new ThreadPoolExecutor(parallelism, 1024, 0, TimeUnit.SECONDS,
-                new ConcurrentLinkedBlockingQueue<>(), factoryIO);
+            // every IO task gets its own virtual thread; the concurrency is limited per container
+            f_executorIO = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("IOWorker@", 0).factory());
+            }
+        else
+            {
+            ThreadGroup groupIO = new ThreadGroup("IO");
+            ThreadFactory factoryIO = r ->
+                {
+                Thread thread = new Thread(groupIO, r);
+                thread.setDaemon(true);
+                thread.setName("IOWorker@" + thread.hashCode());
+                return thread;
+                };
+
+            f_executorIO = new ThreadPoolExecutor(parallelism, 1024, 0, TimeUnit.SECONDS,
+                    new ConcurrentLinkedBlockingQueue<>(), factoryIO);
+            }
         }
 
     public void start()
@@ -97,14 +114,32 @@ public class Runtime
         return null;
         }
 
+    /**
+     * @return the number of threads processing the XVM services
+     */
+    public int getParallelism()
+        {
+        return f_executorXVM.getWorkerCount();
+        }
+
+    /**
+     * @return the index of the XVM worker the current thread represents or -1 if the current thread
+     *         is not an XVM worker
+     */
+    public int getCurrentWorker()
+        {
+        return f_executorXVM.getCurrentWorker();
+        }
+
     /**
      * Submit ServiceContext work for eventual processing by the runtime.
      *
-     * @param task the task to process
+     * @param task       the task to process
+     * @param nAffinity  the index of the preferred worker (see {@link #getCurrentWorker()}) or -1
      */
-    protected void submitService(Runnable task)
+    protected void submitService(Runnable task, int nAffinity)
         {
-        f_executorXVM.submit(task);
+        f_executorXVM.execute(task, nAffinity);
         m_lastXvmSubmitNanos = System.nanoTime();
         }
 
@@ -115,7 +150,64 @@ public class Runtime
      */
     protected void submitIO(Runnable task)
         {
-        f_executorIO.submit(task);
+        submitIO(f_executorIO, task);
+        }
+
+    /**
+     * Submit network IO work for eventual processing by the runtime. Unlike the file IO, the
+     * network IO could wait for an unbounded time (e.g. for a peer to send some data), so it is
+     * always executed on virtual threads.
+     *
+     * @param task the task to process
+     */
+    protected void submitNetIO(Runnable task)
+        {
+        submitIO(f_executorNet, task);
+        }
+
+    private void submitIO(ExecutorService executor, Runnable task)
+        {
+        f_cIOSubmitted.getAndIncrement();
+        f_cIOInFlight.getAndIncrement();
+        executor.execute(() ->
+            {
+            try
+                {
+                task.run();
+                }
+            finally
+                {
+                f_cIOInFlight.getAndDecrement();
+                }
+            });
+        }
+
+    /**
+     * @return true iff the IO tasks are executed on virtual threads
+     */
+    public boolean isVirtualIO()
+        {
+        return f_fVirtualIO;
+        }
+
+    /**
+     * Metrics: the number of IO tasks that have been submitted, but not completed yet.
+     *
+     * @return the number of in-flight IO tasks
+     */
+    public long getIOInFlightCount()
+        {
+        return f_cIOInFlight.get();
+        }
+
+    /**
+     * Metrics: the total number of IO tasks submitted to this runtime.
+     *
+     * @return the number of submitted IO tasks
+     */
+    public long getIOSubmittedCount()
+        {
+        return f_cIOSubmitted.get();
         }
 
     /**
@@ -129,6 +221,7 @@ public class Runtime
     public void shutdownXVM()
         {
         f_executorIO .shutdown();
+        f_executorNet.shutdown();
         f_executorXVM.shutdown();
         }
 
@@ -161,18 +254,60 @@ public class Runtime
         return sTag;
         }
 
+    /**
+     * Log an unexpected Java exception along with its stack trace.
+     *
+     * @return an error tag the logged exception
+     */
+    public static String logRuntimeException(String sErr, Throwable e)
+        {
+        StringWriter out = new StringWriter();
+        e.printStackTrace(new PrintWriter(out));
+        return logRuntimeException(sErr + '\n' + out);
+        }
+
+    /**
+     * Log an exception that escaped a task run by one of the runtime's threads (e.g. an XVM worker
+     * or a timing wheel).
+     */
+    public static void logUncaughtException(Thread thread, Throwable e)
+        {
+        logRuntimeException("Unhandled exception on " + thread.getName(), e);
+        }
+
 
     // ----- constants and fields ------------------------------------------------------------------
 
     /**
      * The executor for XVM services.
      */
-    public final ThreadPoolExecutor f_executorXVM;
+    public final WorkStealingExecutor f_executorXVM;
 
     /**
-     * The executor for XVM services.
+     * The executor for IO tasks.
+     */
+    public final ExecutorService f_executorIO;
+
+    /**
+     * The executor for network IO tasks.
+     */
+    public final ExecutorService f_executorNet =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NetWorker@", 0).factory());
+
+    /**
+     * True iff the IO tasks are executed on virtual threads ("-Dxvm.io=virtual").
+     */
+    private final boolean f_fVirtualIO;
+
+    /**
+     * Metrics: the number of in-flight IO tasks.
+     */
+    private final AtomicLong f_cIOInFlight = new AtomicLong();
+
+    /**
+     * Metrics: the total number of submitted IO tasks.
      */
-    public final ThreadPoolExecutor f_executorIO;
+    private final AtomicLong f_cIOSubmitted = new AtomicLong();
 
     /**
      * The set of containers (stored as a Map with no values); used only for debugging.
@@ -4,24 +4,20 @@ package org.xvm.runtime;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.VarHandle;
 
-import java.lang.ref.WeakReference;
-
 import java.util.Arrays;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.TimerTask;
 import java.util.WeakHashMap;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
 
 import java.util.concurrent.atomic.AtomicLong;
 
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import org.xvm.asm.ConstantPool;
@@ -45,6 +41,9 @@ import org.xvm.runtime.ObjectHandle.ExceptionHandle;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle.WrapperException;
 import org.xvm.runtime.ObjectHandle.GenericHandle;
 
+import org.xvm.runtime.jit.CompiledMethod;
+import org.xvm.runtime.jit.OpCompiler;
+
 import org.xvm.runtime.template.xBoolean;
 import org.xvm.runtime.template.xBoolean.BooleanHandle;
 import org.xvm.runtime.template.xException;
@@ -67,6 +66,9 @@ import org.xvm.runtime.template._native.reflect.xRTFunction.NativeFunctionHandle
 
 import org.xvm.runtime.template._native.temporal.xLocalClock;
 
+import org.xvm.util.concurrent.MpscRingBuffer;
+import org.xvm.util.concurrent.TimingWheel;
+
 
 /**
  * The service context.
@@ -247,39 +249,7 @@ public class ServiceContext
         }
 
 
-    // ----- Op support ----------------------------------------------------------------------------
-
-    /**
-     * Retrieve an Op specific info.
-     *
-     * @param op       the op
-     * @param category the category of the cached info (op specific)
-     *
-     * @return the op info for the specified category
-     */
-    public Object getOpInfo(Op op, Enum category)
-        {
-        EnumMap mapByCategory = f_mapOpInfo.get(op);
-        if (mapByCategory == null)
-            {
-            return null;
-            }
-        WeakReference ref = (WeakReference) mapByCategory.get(category);
-        return ref == null ? null : ref.get();
-        }
-
-    /**
-     * Store an Op specific info.
-     *
-     * @param op       the op
-     * @param category the category of the cached info (op specific)
-     * @param info     the info
-     */
-    public void setOpInfo(Op op, Enum category, Object info)
-        {
-        f_mapOpInfo.computeIfAbsent(op, (op_) -> new EnumMap(category.getClass()))
-                   .put(category, new WeakReference(info));
-        }
+    // ----- service-local support -----------------------------------------------------------------
 
     /**
      * @return service-local value represented by the specified ref
@@ -461,24 +431,24 @@ public class ServiceContext
             // we've detected service or lock contention, reschedule
             f_container.schedule(this);
             }
-        else if (!f_setFibers.isEmpty())
-            {
-            // make sure to wake up for the nearest timeout
-            long ldtTimeout = Long.MAX_VALUE;
-            for (Fiber fiber : f_setFibers)
-                {
-                long ldtTimeoutFiber = fiber.getTimeoutStamp();
-                if (ldtTimeoutFiber > 0)
-                    {
-                    ldtTimeout = Math.min(ldtTimeout, ldtTimeoutFiber);
-                    }
-                }
+        }
 
-            if (ldtTimeout != Long.MAX_VALUE)
-                {
-                f_wakeUpScheduler.schedule(ldtTimeout);
-                }
-            }
+    /**
+     * Schedule this service to be woken up after the specified timeout expires. Every fiber that
+     * is subject to a timeout registers its own wake-up, so the service doesn't need to look for
+     * the nearest timeout when releasing the scheduling lock.
+     *
+     * @param ldtTimeout  the timeout timestamp in milliseconds (using System.currentTimeMillis())
+     *
+     * @return the wake-up that could be cancelled if the timeout becomes irrelevant
+     */
+    protected TimingWheel.Timeout scheduleWakeUp(long ldtTimeout)
+        {
+        // Fiber.isTimedOut() uses a strict comparison; add a millisecond to avoid waking up early
+        long cDelay = Math.max(1, ldtTimeout - System.currentTimeMillis() + 1);
+        return xLocalClock.TIMER.schedule(
+                () -> ensureScheduled(true), // don't use the wheel thread - schedule async
+                cDelay, TimeUnit.MILLISECONDS);
         }
 
     /**
@@ -501,7 +471,9 @@ public class ServiceContext
      */
     public boolean isOverwhelmed()
         {
-        return f_queueMsg.size() + f_queueSuspended.size() > QUEUE_THRESHOLD;
+        MpscRingBuffer<Message> queueMsg = f_queueMsg;
+        return queueMsg.isOverflowing() ||
+               queueMsg.size() + f_queueSuspended.size() > QUEUE_THRESHOLD;
         }
 
     /**
@@ -518,11 +490,7 @@ public class ServiceContext
      */
     private void processResponses()
         {
-        Response response;
-        while ((response = f_queueResponse.poll()) != null)
-            {
-            response.run();
-            }
+        f_queueResponse.drain(Response::run);
         }
 
     /**
@@ -537,21 +505,15 @@ public class ServiceContext
         // process all we've got so far
         processResponses();
 
-        // pickup all the messages, but keep them in the "initial" state
-        FiberQueue qFiber = f_queueSuspended;
-
-        Message message;
-        while ((message = f_queueMsg.poll()) != null)
-            {
-            qFiber.add(message.createFrame(this));
-            }
+        // pickup all the messages in one batch, but keep them in the "initial" state
+        f_queueMsg.drain(f_consumerMsg);
 
         // allow initial timeouts to be processed always, since they won't run any natural code
         // TODO: return ?f_queueSuspended.getInitialTimeout();
 
         // a paused frame must be resumed first
         return m_frameCurrent == null
-                ? qFiber.getReady()
+                ? f_queueSuspended.getReady()
                 : m_frameCurrent;
         }
 
@@ -617,20 +579,66 @@ public class ServiceContext
                 throw new IllegalStateException();
             }
 
-        Op[] aOp  = frame.f_aOp;
-        int  cOps = 0;
+        Op[]    aOp         = frame.f_aOp;
+        int     cOps        = 0;
+        long    ldtDeadline = System.nanoTime() + getTimeSlice();
+        int     cOpsCheck   = TIME_CHECK_INTERVAL; // the op count for the next time slice check
+        boolean fJit        = OpCompiler.ENABLED && !isDebuggerActive();
 
     nextOp:
         while (true)
             {
+            if (fJit && iPC >= 0 && frame.f_function != null)
+                {
+                MethodStructure function = frame.f_function;
+                CompiledMethod  compiled = function.getCompiledMethod();
+                if (compiled == null)
+                    {
+                    if (iPC == 0)
+                        {
+                        function.recordHotness();
+                        }
+                    if (OpCompiler.isHot(function))
+                        {
+                        compiled = OpCompiler.ensureCompiled(function, aOp);
+                        }
+                    }
+
+                if (compiled != null && compiled.f_aOp == aOp)
+                    {
+                    long lResult = compiled.execute(frame, aOp, iPC, cOpsCheck - cOps);
+
+                    cOps += CompiledMethod.getOpCount(lResult);
+                    iPC   = CompiledMethod.getResult(lResult);
+                    if (iPC >= 0)
+                        {
+                        // the op budget has been exhausted; check the time slice
+                        if (System.nanoTime() - ldtDeadline > 0)
+                            {
+                            frame.m_iPC = iPC;
+                            fiber.setStatus(FiberStatus.Paused, cOps);
+                            return frame;
+                            }
+                        cOpsCheck = cOps + TIME_CHECK_INTERVAL;
+                        continue; // nextOp
+                        }
+                    iPCLast = frame.m_iPC;
+                    }
+                }
+
             while (iPC >= 0) // main loop
                 {
                 frame.m_iPC = iPC;
 
-                if (++cOps > 1_000_000)
+                if (++cOps >= cOpsCheck)
                     {
-                    fiber.setStatus(FiberStatus.Paused, cOps);
-                    return frame;
+                    if (System.nanoTime() - ldtDeadline > 0)
+                        {
+                        // the time slice has been exhausted
+                        fiber.setStatus(FiberStatus.Paused, cOps);
+                        return frame;
+                        }
+                    cOpsCheck = cOps + TIME_CHECK_INTERVAL;
                     }
 
                 try
@@ -639,15 +647,19 @@ public class ServiceContext
                     }
                 catch (Throwable e)
                     {
-                    e.printStackTrace(System.err);
-                    System.err.println(frame.getStackTrace());
-                    iPC = frame.raiseException("Run-time error: " + e);
+                    iPC = frame.raiseUnexpectedException(e);
                     }
 
                 if (iPC == Op.R_NEXT)
                     {
                     iPC = iPCLast + 1;
                     }
+                else if (iPC >= 0 && iPC <= iPCLast && fJit && frame.f_function != null &&
+                        frame.f_function.recordHotness() == OpCompiler.THRESHOLD)
+                    {
+                    // a backward jump has made the method "hot"; compile it
+                    continue nextOp;
+                    }
                 }
 
             switch (iPC)
@@ -722,6 +734,7 @@ public class ServiceContext
                     if (frame == null)
                         {
                         // all done
+                        fiber.recordRun(cOps);
                         terminateFiber(fiber);
                         return m_frameCurrent = null;
                         }
@@ -868,6 +881,7 @@ public class ServiceContext
     protected Fiber createFiber(Message msg)
         {
         Fiber fiber = new Fiber(this, msg);
+        fiber.scheduleWakeUp();
         f_setFibers.add(fiber);
         return fiber;
         }
@@ -881,6 +895,8 @@ public class ServiceContext
      */
     protected void terminateFiber(Fiber fiber)
         {
+        fiber.cancelWakeUp();
+
         if (fiber == m_fiberSyncOwner)
             {
             // they somehow terminated the fiber without exiting the critical section;
@@ -904,7 +920,8 @@ public class ServiceContext
      */
     public int shutdown(Frame frame)
         {
-        if (m_hService != null)
+        ServiceHandle hService = m_hService;
+        if (hService != null)
             {
             // TODO: fire every registered ShuttingDownNotification
 
@@ -935,6 +952,7 @@ public class ServiceContext
                     // this will respond immediately with an exception from "Fiber.prepareRun()"
                     execute(frameNext);
 
+                    fiber.cancelWakeUp();
                     setFibers.remove(fiber);
                     }
                 }
@@ -942,6 +960,7 @@ public class ServiceContext
             assert setFibers.isEmpty() ||
                    setFibers.size() == 1 && setFibers.contains(fiberThis); // just this fiber left
 
+            hService.onShutdown();
             f_container.terminate(this);
             }
 
@@ -994,6 +1013,47 @@ public class ServiceContext
                 !f_queueMsg.isEmpty() || f_queueSuspended.isReady();
         }
 
+    /**
+     * @return the time (in nanoseconds) since this service has been created
+     */
+    public long getUpTime()
+        {
+        return System.nanoTime() - f_nanoCreated;
+        }
+
+    /**
+     * @return the total time (in nanoseconds) this service's fibers have been running
+     */
+    public long getCpuTime()
+        {
+        return m_cRuntimeNanos;
+        }
+
+    /**
+     * @return the maximum time (in nanoseconds) a fiber of this service is allowed to run before
+     *         it gets paused to let other fibers run
+     */
+    public long getTimeSlice()
+        {
+        long cNanos = m_cTimeSliceNanos;
+        return cNanos == 0 ? f_container.getTimeSlice() : cNanos;
+        }
+
+    /**
+     * Specify the time slice for this service's fibers.
+     *
+     * @param cNanos  the maximum time (in nanoseconds) a fiber is allowed to run without a pause;
+     *                zero indicates that the container's time slice should be used
+     */
+    public void setTimeSlice(long cNanos)
+        {
+        if (cNanos < 0)
+            {
+            throw new IllegalArgumentException("Invalid time slice: " + cNanos);
+            }
+        m_cTimeSliceNanos = cNanos;
+        }
+
     /**
      * @return true iff the service is Idle
      */
@@ -2200,45 +2260,6 @@ public class ServiceContext
             }
         }
 
-    /**
-     * The wake-up scheduler.
-     */
-    protected class WakeUpScheduler
-        {
-        protected void schedule(long ldtWakeUp)
-            {
-            long ldtNow = System.currentTimeMillis();
-            if (f_ldtScheduled > 0)
-                {
-                if (ldtNow <= f_ldtScheduled && f_ldtScheduled <= ldtWakeUp)
-                    {
-                    // the current wake up covers the new one; nothing to do
-                    return;
-                    }
-
-                if (ldtNow < f_ldtScheduled)
-                    {
-                    m_taskCurrent.cancel();
-                    }
-                }
-
-            f_ldtScheduled = ldtWakeUp;
-            m_taskCurrent  = new TimerTask()
-                {
-                public void run()
-                    {
-                    ensureScheduled(true); // don't use this thread - schedule async
-                    }
-                };
-
-            xLocalClock.TIMER.schedule(m_taskCurrent, Math.max(1, ldtWakeUp - ldtNow));
-            }
-
-        private long      f_ldtScheduled; // when
-        private TimerTask m_taskCurrent;  // what
-        }
-
-
     // ----- constants and fields ------------------------------------------------------------------
 
     /**
@@ -2251,6 +2272,11 @@ public class ServiceContext
      */
     public static final int QUEUE_THRESHOLD = 256;
 
+    /**
+     * The number of ops executed by a fiber between the time slice checks.
+     */
+    private static final int TIME_CHECK_INTERVAL = 256;
+
     /**
      * The container's ConstantPool.
      */
@@ -2291,11 +2317,26 @@ public class ServiceContext
      */
     protected long m_cRuntimeNanos;
 
+    /**
+     * Metrics: the timestamp (in nanos) when this service has been created.
+     */
+    private final long f_nanoCreated = System.nanoTime();
+
+    /**
+     * The time slice (in nanos) for this service's fibers; zero means the container's time slice.
+     */
+    private volatile long m_cTimeSliceNanos;
+
     /**
      * Support for Clock adn Timer: the count of pending timer events.
      */
     protected AtomicLong m_atomicNotifications;
 
+    /**
+     * The index of the XVM worker that has last processed this service or -1.
+     */
+    int m_nAffinity = -1;
+
     /**
      * The current frame.
      */
@@ -2304,12 +2345,18 @@ public class ServiceContext
     /**
      * The queue of incoming messages.
      */
-    private final Queue<Message> f_queueMsg = new ConcurrentLinkedQueue<>();
+    private final MpscRingBuffer<Message> f_queueMsg = new MpscRingBuffer<>(QUEUE_THRESHOLD);
+
+    /**
+     * The consumer that turns the incoming messages into the "initial" frames.
+     */
+    private final Consumer<Message> f_consumerMsg =
+            msg -> this.f_queueSuspended.add(msg.createFrame(this));
 
     /**
      * The queue of message responses.
      */
-    private final Queue<Response> f_queueResponse = new ConcurrentLinkedQueue<>();
+    private final MpscRingBuffer<Response> f_queueResponse = new MpscRingBuffer<>(QUEUE_THRESHOLD);
 
     /**
      * The set of active fibers. It can be [read] accessed by outside threads.
@@ -2383,13 +2430,6 @@ public class ServiceContext
             }
         }
 
-    /**
-     * A "service-local" cache for run-time information that needs to be calculated by various ops.
-     * Since only one fiber can access the service context at any time, a simple HashMap is used.
-     * To prevent leaks, the values in the EnumMap are WekRef objects.
-     */
-    private final Map<Op, EnumMap> f_mapOpInfo = new WeakHashMap<>();
-
     /**
      * A "service-local" cache for transient field values.
      */
@@ -2399,9 +2439,4 @@ public class ServiceContext
      * A "service-local" cache for service callbacks.
      */
     private Map<Long, WeakCallback.Callback> m_mapCallbacks;
-
-    /**
-     * A wake-up scheduler to process registered timeouts.
-     */
-    private final WakeUpScheduler f_wakeUpScheduler = new WakeUpScheduler();
     }
\ No newline at end of file
@@ -0,0 +1,322 @@
+package org.xvm.runtime;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.Component.Composition;
+import org.xvm.asm.Component.Contribution;
+import org.xvm.asm.Constant;
+import org.xvm.asm.ConstantPool;
+
+import org.xvm.asm.constants.AccessTypeConstant;
+import org.xvm.asm.constants.IdentityConstant;
+import org.xvm.asm.constants.ImmutableTypeConstant;
+import org.xvm.asm.constants.ParameterizedTypeConstant;
+import org.xvm.asm.constants.ServiceTypeConstant;
+import org.xvm.asm.constants.TerminalTypeConstant;
+import org.xvm.asm.constants.TypeConstant;
+
+
+/**
+ * A precomputed subtype encoding of a type, which allows the run-time type tests (e.g. "IsType",
+ * "JumpType" or "MoveCast" ops) to be answered in a few loads for the most common case: a value
+ * of a class type tested against a non-generic class or interface type.
+ * <p>
+ * The encoding consists of a "display" (the chain of the class identities from the root of the
+ * "extends" hierarchy down to the class itself, indexed by the depth) and a hash set of all the
+ * classes, interfaces and mixins that the class unconditionally extends, implements, delegates or
+ * incorporates.
+ * The same structure serves both sides of the test: for the tested (left) type only its own
+ * identity and depth are used.
+ * <p>
+ * The answer is definitive for a positive match; a negative answer is definitive only if the
+ * tested type is a class (interfaces can be duck-typed and mixins can be annotated) and the value
+ * type is a public class type with a complete display. In all other cases the test falls back to
+ * {@link TypeConstant#isA}.
+ */
+public class SubtypeDisplay
+    {
+    /**
+     * Construct a SubtypeDisplay.
+     */
+    private SubtypeDisplay(IdentityConstant[] aidClass, Set<IdentityConstant> setIds,
+                           ConstantPool pool, boolean fTestable, boolean fClass, boolean fExact)
+        {
+        f_aidClass  = aidClass;
+        f_setIds    = setIds;
+        f_pool      = pool;
+        f_fTestable = fTestable;
+        f_fClass    = fClass;
+        f_fExact    = fExact;
+        f_fEcstasy  = aidClass != null && getIdentity().getModuleConstant().isEcstasyModule();
+        }
+
+    /**
+     * Determine if a value of the specified type is assignable to the test type. This is
+     * semantically identical to {@code typeValue.isA(typeTest)}.
+     *
+     * @param typeValue  the type of the value (R-value)
+     * @param typeTest   the type to test against (L-value)
+     *
+     * @return true iff the value type is assignable to the test type
+     */
+    public static boolean isA(TypeConstant typeValue, TypeConstant typeTest)
+        {
+        SubtypeDisplay displayLeft = of(typeTest);
+        if (displayLeft.f_fTestable)
+            {
+            SubtypeDisplay displayRight = of(typeValue);
+            if (displayRight != NONE && (displayRight.f_pool == displayLeft.f_pool ||
+                    displayLeft.f_fEcstasy || displayLeft.getIdentity().isShared(displayRight.f_pool)))
+                {
+                switch (displayRight.test(displayLeft))
+                    {
+                    case 1:
+                        return true;
+
+                    case 0:
+                        return false;
+                    }
+                }
+            }
+        return typeValue.isA(typeTest);
+        }
+
+    /**
+     * Test this (value) display against the specified testable (left) one.
+     *
+     * @return 1 if the value is known to be assignable, 0 if it is known to be not assignable
+     *         and -1 if the answer is unknown
+     */
+    private int test(SubtypeDisplay displayLeft)
+        {
+        IdentityConstant[] aidLeft = displayLeft.f_aidClass;
+        IdentityConstant[] aidThis = f_aidClass;
+        int                nDepth  = aidLeft.length - 1;
+        IdentityConstant   idLeft  = aidLeft[nDepth];
+
+        if (displayLeft.f_fClass)
+            {
+            // the test type is a class; check the display
+            IdentityConstant idThis;
+            if (nDepth < aidThis.length &&
+                    ((idThis = aidThis[nDepth]) == idLeft || idThis.equals(idLeft)))
+                {
+                return 1;
+                }
+            return f_fExact ? 0 : -1;
+            }
+
+        return f_setIds.contains(idLeft) ? 1 : -1;
+        }
+
+    /**
+     * @return the identity of the class this display is for
+     */
+    private IdentityConstant getIdentity()
+        {
+        return f_aidClass[f_aidClass.length - 1];
+        }
+
+    /**
+     * Obtain the SubtypeDisplay for the specified type.
+     *
+     * @return the display or {@link #NONE} if the type doesn't have a display
+     */
+    public static SubtypeDisplay of(TypeConstant type)
+        {
+        SubtypeDisplay display = type.getSubtypeDisplay();
+        if (display == null)
+            {
+            type.setSubtypeDisplay(display = compute(type));
+            }
+        return display;
+        }
+
+    /**
+     * Compute the SubtypeDisplay for the specified type.
+     */
+    private static SubtypeDisplay compute(TypeConstant type)
+        {
+        ConstantPool pool      = type.getConstantPool();
+        boolean      fTestable = type instanceof TerminalTypeConstant;
+        boolean      fExact    = true;
+
+        // value types could be augmented by the immutability, serviceability and access modifiers;
+        // none of those affect the positive answers
+        while (true)
+            {
+            if (type instanceof ImmutableTypeConstant ||
+                type instanceof ServiceTypeConstant   ||
+                type instanceof ParameterizedTypeConstant)
+                {
+                type = type.getUnderlyingType();
+                }
+            else if (type instanceof AccessTypeConstant typeAccess)
+                {
+                switch (typeAccess.getAccess())
+                    {
+                    case STRUCT:
+                        return NONE;
+
+                    case PROTECTED:
+                    case PRIVATE:
+                        // private members could be duck-typed
+                        fExact = false;
+                        break;
+                    }
+                type = type.getUnderlyingType();
+                }
+            else
+                {
+                break;
+                }
+            }
+
+        if (!(type instanceof TerminalTypeConstant))
+            {
+            return NONE;
+            }
+
+        Constant constId = type.getDefiningConstant();
+        if (constId.getFormat() != Constant.Format.Class ||
+                !(((IdentityConstant) constId).getComponent() instanceof ClassStructure clz))
+            {
+            return NONE;
+            }
+
+        boolean fClass;
+        switch (clz.getFormat())
+            {
+            case INTERFACE:
+            case MIXIN:
+                fClass = false;
+                fExact = false;
+                break;
+
+            default:
+                fClass = true;
+                break;
+            }
+
+        // the class chain; every class implicitly extends Object
+        List<IdentityConstant> listChain = new ArrayList<>();
+        ClassStructure         clzRoot   = clz;
+        while (true)
+            {
+            listChain.add(0, clzRoot.getIdentityConstant());
+
+            ClassStructure clzSuper = clzRoot.getSuper();
+            if (clzSuper == null)
+                {
+                break;
+                }
+            clzRoot = clzSuper;
+            }
+
+        if (clzRoot.findContribution(Composition.Extends) != null)
+            {
+            // the chain could not be fully resolved
+            fExact = false;
+            }
+        if (fClass && !listChain.get(0).equals(pool.clzObject()))
+            {
+            listChain.add(0, pool.clzObject());
+            }
+
+        // the classes, interfaces and mixins; since only the positive answers are based on this
+        // set, it doesn't need to be complete
+        Set<IdentityConstant> setIds = new HashSet<>();
+        setIds.add(clz.getIdentityConstant());
+        collectContributions(clz, setIds);
+
+        return new SubtypeDisplay(listChain.toArray(new IdentityConstant[0]), setIds, pool,
+                fTestable && !clz.isParameterizedDeep(), fClass, fExact);
+        }
+
+    /**
+     * Collect the identities of all the unconditional class, interface and mixin contributions of
+     * the specified class (recursively).
+     */
+    private static void collectContributions(ClassStructure clz, Set<IdentityConstant> setIds)
+        {
+        for (Contribution contrib : clz.getContributionsAsList())
+            {
+            switch (contrib.getComposition())
+                {
+                case Extends:
+                case Implements:
+                case Delegates:
+                case Incorporates:
+                    {
+                    if (contrib.getTypeParams() != null)
+                        {
+                        // conditional incorporation
+                        break;
+                        }
+
+                    TypeConstant typeContrib = contrib.getTypeConstant();
+                    if (typeContrib.isExplicitClassIdentity(true) &&
+                        typeContrib.isSingleUnderlyingClass(false) &&
+                        typeContrib.getSingleUnderlyingClass(false).getComponent()
+                                instanceof ClassStructure clzContrib)
+                        {
+                        if (setIds.add(clzContrib.getIdentityConstant()))
+                            {
+                            collectContributions(clzContrib, setIds);
+                            }
+                        }
+                    break;
+                    }
+                }
+            }
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    /**
+     * A display for types that cannot be encoded.
+     */
+    private static final SubtypeDisplay NONE =
+            new SubtypeDisplay(null, null, null, false, false, false);
+
+    /**
+     * The class identities from the root of the "extends" chain (index 0) to the class itself.
+     */
+    private final IdentityConstant[] f_aidClass;
+
+    /**
+     * All the class, interface and mixin identities the type is unconditionally assignable to.
+     */
+    private final Set<IdentityConstant> f_setIds;
+
+    /**
+     * The ConstantPool of the type.
+     */
+    private final ConstantPool f_pool;
+
+    /**
+     * True iff the type can be used as a test (L-value) type: a non-generic class or interface.
+     */
+    private final boolean f_fTestable;
+
+    /**
+     * True iff the type is a class (rather than an interface or a mixin) type.
+     */
+    private final boolean f_fClass;
+
+    /**
+     * True iff a negative answer for a class test type is definitive.
+     */
+    private final boolean f_fExact;
+
+    /**
+     * True iff the type is defined by the Ecstasy module, which is shared by all pools.
+     */
+    private final boolean f_fEcstasy;
+    }
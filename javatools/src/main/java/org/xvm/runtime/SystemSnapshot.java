@@ -0,0 +1,294 @@
+package org.xvm.runtime;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.Enumeration;
+import java.util.HexFormat;
+
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.xvm.asm.Constants;
+import org.xvm.asm.FileStructure;
+import org.xvm.asm.ModuleStructure;
+import org.xvm.asm.Version;
+
+import org.xvm.asm.constants.LiteralConstant;
+
+
+/**
+ * A snapshot of the "root" FileStructure of the {@link NativeContainer}: the Ecstasy, turtle and
+ * native modules, merged and with all of their synthetic structures already created. Building that
+ * structure from the separate modules (cloning them and re-registering all of their constants) is
+ * the most expensive part of starting the runtime; loading it from a snapshot is much cheaper.
+ * <p>
+ * The snapshot file holds a key that identifies the modules and the build of the runtime that it
+ * was created by, followed by the FileStructure in the usual binary form. A snapshot whose key
+ * does not match the modules in the repository or the running runtime is ignored (and replaced).
+ */
+public class SystemSnapshot
+    {
+    /**
+     * Construct a SystemSnapshot for the specified file.
+     *
+     * @param file  the snapshot file, which may not exist yet
+     */
+    public SystemSnapshot(File file)
+        {
+        f_file = file;
+        }
+
+    /**
+     * @return the snapshot file
+     */
+    public File getFile()
+        {
+        return f_file;
+        }
+
+    /**
+     * Calculate the key for a snapshot of the specified modules. Besides the modules, the key
+     * includes the build of the runtime itself, since the synthesized structures and the binary
+     * form of the snapshot depend on the runtime's code.
+     *
+     * @param aModule  the modules that get merged into the root FileStructure, in the merge order
+     *
+     * @return the key
+     */
+    public static String computeKey(ModuleStructure... aModule)
+        {
+        MessageDigest sha;
+        try
+            {
+            sha = MessageDigest.getInstance("SHA-256");
+            }
+        catch (NoSuchAlgorithmException e)
+            {
+            throw new IllegalStateException(e);
+            }
+
+        StringBuilder sb = new StringBuilder()
+                .append(Constants.VERSION_MAJOR_CUR).append('.').append(Constants.VERSION_MINOR_CUR)
+                .append('\n').append(RUNTIME_BUILD);
+        for (ModuleStructure module : aModule)
+            {
+            Version         ver       = module.getVersion();
+            LiteralConstant constTime = module.getTimestamp();
+            sb.append('\n').append(module.getName())
+              .append(' ').append(ver       == null ? "-" : ver.toString())
+              .append(' ').append(constTime == null ? "-" : constTime.getValue());
+            }
+        return HexFormat.of().formatHex(sha.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+    /**
+     * Load the root FileStructure from the snapshot file. The file is memory-mapped, so reading
+     * the structure does not need any intermediate buffer.
+     *
+     * @param sKey  the key for the modules that are expected to be in the snapshot
+     *
+     * @return the (not yet linked) FileStructure, with its synthetic structures re-created, or
+     *         null if the snapshot does not exist, was created from different modules, or cannot
+     *         be read
+     */
+    public FileStructure load(String sKey)
+        {
+        File file = f_file;
+        if (!file.isFile())
+            {
+            return null;
+            }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buf.remaining() < 4 || buf.getInt() != MAGIC)
+                {
+                return null;
+                }
+
+            byte[] abKey = sKey.getBytes(StandardCharsets.UTF_8);
+            if (buf.remaining() < 2 || (buf.getShort() & 0xFFFF) != abKey.length
+                    || buf.remaining() < abKey.length)
+                {
+                return null;
+                }
+
+            for (byte b : abKey)
+                {
+                if (buf.get() != b)
+                    {
+                    return null;
+                    }
+                }
+
+            FileStructure fileRoot = new FileStructure(new BufferInputStream(buf), false, false);
+            fileRoot.synthesizeModules();
+            return fileRoot;
+            }
+        catch (IOException | RuntimeException e)
+            {
+            return null;
+            }
+        }
+
+    /**
+     * Store the specified root FileStructure as the snapshot. The file is replaced atomically, so
+     * concurrently starting runtimes never see a partially written snapshot.
+     * <p>
+     * Note: writing a FileStructure optimizes its ConstantPool, so this should be called before
+     * the structure is put to use.
+     *
+     * @param fileRoot  the merged and linked root FileStructure
+     * @param sKey      the key for the modules in the structure
+     *
+     * @throws IOException  if the snapshot could not be written
+     */
+    public void store(FileStructure fileRoot, String sKey)
+            throws IOException
+        {
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream(0x100000);
+        DataOutputStream      out      = new DataOutputStream(outBytes);
+        out.writeInt(MAGIC);
+        out.writeUTF(sKey);
+        fileRoot.writeTo((DataOutput) out);
+        out.flush();
+
+        File file    = f_file.getAbsoluteFile();
+        File fileTmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        try
+            {
+            Files.write(fileTmp.toPath(), outBytes.toByteArray());
+            Files.move(fileTmp.toPath(), file.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        finally
+            {
+            fileTmp.delete();
+            }
+        }
+
+
+    /**
+     * Identify the build of the runtime: its implementation version and, if the runtime was loaded
+     * from a jar, a hash of the jar's content. The hash is computed from the names, sizes and
+     * CRCs in the jar's central directory, so none of the entries needs to be read.
+     *
+     * @return a string identifying the runtime build
+     */
+    private static String computeRuntimeBuild()
+        {
+        Class<?> clz      = SystemSnapshot.class;
+        String   sVersion = clz.getPackage().getImplementationVersion();
+        String   sBuild   = sVersion == null ? "-" : sVersion;
+        try
+            {
+            CodeSource source = clz.getProtectionDomain().getCodeSource();
+            File       file   = source == null ? null : new File(source.getLocation().toURI());
+            if (file != null && file.isFile())
+                {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                ByteBuffer    buf = ByteBuffer.allocate(16);
+                try (ZipFile zip = new ZipFile(file))
+                    {
+                    for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements();)
+                        {
+                        ZipEntry entry = e.nextElement();
+                        sha.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+                        sha.update(buf.clear().putLong(entry.getSize()).putLong(entry.getCrc())
+                                      .array());
+                        }
+                    }
+                sBuild += ' ' + HexFormat.of().formatHex(sha.digest());
+                }
+            }
+        catch (Exception ignore)
+            {
+            // the runtime is not in a (readable) jar; the version has to suffice
+            }
+        return sBuild;
+        }
+
+
+    // ----- inner class: BufferInputStream --------------------------------------------------------
+
+    /**
+     * An InputStream over the remaining bytes of a ByteBuffer.
+     */
+    private static class BufferInputStream
+            extends InputStream
+        {
+        BufferInputStream(ByteBuffer buf)
+            {
+            f_buf = buf;
+            }
+
+        @Override
+        public int read()
+            {
+            return f_buf.hasRemaining() ? f_buf.get() & 0xFF : -1;
+            }
+
+        @Override
+        public int read(byte[] ab, int of, int cb)
+            {
+            ByteBuffer buf = f_buf;
+            if (cb == 0)
+                {
+                return 0;
+                }
+
+            int cbRead = Math.min(cb, buf.remaining());
+            if (cbRead == 0)
+                {
+                return -1;
+                }
+
+            buf.get(ab, of, cbRead);
+            return cbRead;
+            }
+
+        @Override
+        public int available()
+            {
+            return f_buf.remaining();
+            }
+
+        private final ByteBuffer f_buf;
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    /**
+     * The first four bytes of a snapshot file ("XSNP").
+     */
+    private static final int MAGIC = 0x58534E50;
+
+    /**
+     * The build of the runtime, which is a part of every snapshot key.
+     */
+    private static final String RUNTIME_BUILD = computeRuntimeBuild();
+
+    /**
+     * The snapshot file.
+     */
+    private final File f_file;
+    }
@@ -21,6 +21,7 @@ import org.xvm.runtime.template.text.xString.StringHandle;
  * @Interval Range<Date>).
  */
 public interface TypeComposition
+        extends InlineCache.Key
     {
     /**
      * @return the container this TypeComposition belongs to
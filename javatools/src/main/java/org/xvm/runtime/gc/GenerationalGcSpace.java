@@ -0,0 +1,925 @@
+package org.xvm.runtime.gc;
+
+
+import org.xvm.util.LongMuterator;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * A generational collector with a nursery and an incrementally collected tenured space.
+ * <p>
+ * Newly allocated objects are appended to the nursery, which is collected as soon as it fills up. A nursery
+ * collection traces only the young objects which are reachable from the roots or from the tenured objects on the
+ * "dirty" cards; the survivors are promoted in place (the addresses never change) and all other young objects are
+ * freed. Any {@link #setField store} of a reference into a tenured object dirties the card covering that object, which
+ * is what allows the nursery collection to avoid scanning the tenured space.
+ * <p>
+ * The tenured space is collected by an incremental "snapshot-at-the-beginning" mark and sweep, where each increment is
+ * performed at the end of a nursery collection and is limited to a fixed amount of work, so the pause times are bounded
+ * by the nursery size rather than by the heap size. While the marking is in progress, the {@link #setField store}
+ * barrier shades the overwritten reference, the newly promoted objects are shaded as well, and the weak referents are
+ * shaded as they are {@link #getField read}.
+ * <p>
+ * Objects are allocated on the java heap but tracked via the {@link GcSpace}.
+ */
+public class GenerationalGcSpace<V>
+        implements GcSpace
+    {
+
+    /**
+     * Construct a {@link GenerationalGcSpace}.
+     *
+     * @param accessor        the accessor of accessing the contents of an object
+     * @param clearedListener a function to invoke with a pointer to a weak-ref once it's been cleared
+     */
+    public GenerationalGcSpace(ObjectManager<V> accessor, LongConsumer clearedListener)
+        {
+        this(accessor, clearedListener, Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+    /**
+     * Construct a {@link GenerationalGcSpace} with limits.
+     *
+     * @param accessor        the accessor of accessing the contents of an object
+     * @param clearedListener a function to invoke with a pointer to a weak-ref once it's been cleared
+     * @param cbLimitSoft     the byte size to try to stay within
+     * @param cbLimitHard     the maximum allowable byte size
+     */
+    public GenerationalGcSpace(ObjectManager<V> accessor,
+                               LongConsumer clearedListener,
+                               long cbLimitSoft,
+                               long cbLimitHard)
+        {
+        f_accessor        = accessor;
+        f_clearedListener = clearedListener;
+        f_cbLimitSoft     = cbLimitSoft;
+        f_cbLimitHard     = cbLimitHard;
+
+        for (int i = 0; i < m_anFreeSlots.length; ++i)
+            {
+            m_anFreeSlots[i] = m_anFreeSlots.length - 1 - i;
+            }
+        m_nTopFree = m_anFreeSlots.length - 1;
+        }
+
+    @Override
+    public long allocate(int cFields)
+            throws OutOfMemoryError
+        {
+        if (m_cNursery == m_anNursery.length || m_cbNursery > NURSERY_BYTES)
+            {
+            collectYoung();
+            }
+
+        if (m_cBytes > f_cbLimitSoft)
+            {
+            gc();
+            if (m_cBytes > f_cbLimitHard)
+                {
+                throw new OutOfMemoryError("hard limit exceeded");
+                }
+            }
+
+        if (m_nTopFree < 0)
+            {
+            grow();
+            }
+
+        V resource = f_accessor.allocate(cFields);
+        setFieldCount(resource, cFields);
+        getAndSetHeaderBit(resource, YOUNG_MASK, true);
+
+        long cb = f_accessor.getByteSize(resource);
+        m_cBytes    += cb;
+        m_cbNursery += cb;
+
+        int slot = m_anFreeSlots[m_nTopFree--];
+        m_aObjects[slot] = resource;
+        m_anNursery[m_cNursery++] = slot;
+        return address(slot);
+        }
+
+    @Override
+    public long allocateWeak(int cFields) throws OutOfMemoryError
+        {
+        if (cFields == 0)
+            {
+            throw new IllegalArgumentException("weak-refs must have at least one field");
+            }
+
+        long address = allocate(cFields);
+        getAndSetHeaderBit(ensure(address), WEAK_MASK, true);
+        return address;
+        }
+
+    @Override
+    public boolean isValid(long address)
+        {
+        if (!isLocal(address))
+            {
+            return false;
+            }
+
+        int slot = slot(address);
+        return slot < m_aObjects.length && m_aObjects[slot] != null;
+        }
+
+    /**
+     * Tests if the address is valid and if no return the storage object.
+     *
+     * @param address the address of the object
+     * @return the object
+     * @throws SegFault if the address is invalid
+     */
+    private V ensure(long address)
+        throws SegFault
+        {
+        if (address == NULL)
+            {
+            throw new NullPointerException();
+            }
+        else if (!isLocal(address))
+            {
+            throw new SegFault();
+            }
+
+        int slot = slot(address);
+        if (slot >= m_aObjects.length)
+            {
+            throw new SegFault();
+            }
+
+        V o = m_aObjects[slot];
+        if (o == null)
+            {
+            throw new SegFault();
+            }
+
+        return o;
+        }
+
+    @Override
+    public long getField(long address, int index) throws SegFault
+        {
+        V    o     = ensure(address);
+        long value = f_accessor.getField(o, index);
+        if (m_fMarking && index == WEAK_REFERENT_FIELD && getHeaderBit(o, WEAK_MASK))
+            {
+            // read barrier: the referent may have been unreachable at the beginning of the marking
+            shade(value);
+            }
+        return value;
+        }
+
+    @Override
+    public void setField(long address, int index, long handle) throws SegFault
+        {
+        V o = ensure(address);
+        if (m_fMarking)
+            {
+            // "snapshot-at-the-beginning" barrier: the overwritten reference must not be lost
+            shade(f_accessor.getField(o, index));
+            }
+
+        f_accessor.setField(o, index, handle);
+
+        if (isLocal(handle) && !getHeaderBit(o, YOUNG_MASK))
+            {
+            // the card barrier: the nursery collection must scan this tenured object
+            m_abCards[slot(address) >>> CARD_SHIFT] = CARD_DIRTY;
+            }
+        }
+
+    @Override
+    public void addRoot(Supplier<? extends LongMuterator> root)
+        {
+        f_setRoots.add(root);
+        }
+
+    @Override
+    public void removeRoot(Supplier<? extends LongMuterator> root)
+        {
+        f_setRoots.remove(root);
+        }
+
+    @Override
+    public long getByteCount()
+        {
+        return m_cBytes;
+        }
+
+    @Override
+    public void gc()
+        {
+        collectYoung();
+
+        if (m_nPhase != PHASE_IDLE)
+            {
+            // the collection in progress may be based on a stale snapshot; complete it and start a new one
+            completeTenured();
+            }
+
+        startMarking();
+        completeTenured();
+        }
+
+    /**
+     * @return the number of nursery collections performed so far
+     */
+    public long getYoungCollectionCount()
+        {
+        return m_cYoungCollections;
+        }
+
+    /**
+     * @return the number of tenured space collections completed so far
+     */
+    public long getTenuredCollectionCount()
+        {
+        return m_cTenuredCollections;
+        }
+
+
+    // ----- nursery collection --------------------------------------------------------------------
+
+    /**
+     * Collect the nursery and perform the next increment of the tenured space collection.
+     */
+    private void collectYoung()
+        {
+        m_cYoungCollections++;
+        m_cWeakYoung = 0;
+
+        // trace the young objects reachable from the roots
+        for (var root : f_setRoots)
+            {
+            for (var liter = root.get(); liter.hasNext(); )
+                {
+                promote(liter.next());
+                }
+            }
+
+        // trace the young objects reachable from the tenured objects on the dirty cards
+        byte[] abCards  = m_abCards;
+        V[]    aObjects = m_aObjects;
+        for (int iCard = 0; iCard < abCards.length; ++iCard)
+            {
+            if (abCards[iCard] == CARD_DIRTY)
+                {
+                abCards[iCard] = CARD_CLEAN;
+                for (int slot = iCard << CARD_SHIFT, slotEnd = Math.min(slot + CARD_SLOTS, aObjects.length);
+                        slot < slotEnd; ++slot)
+                    {
+                    V o = aObjects[slot];
+                    if (o != null && !getHeaderBit(o, YOUNG_MASK))
+                        {
+                        scanYoung(o, slot);
+                        }
+                    }
+                }
+            }
+
+        // scan the promoted objects
+        int[] anStack = m_anYoungStack;
+        while (m_cYoungStack > 0)
+            {
+            int slot = anStack[--m_cYoungStack];
+            scanYoung(aObjects[slot], slot);
+            }
+
+        // clear the weak refs to the young objects that didn't survive
+        for (int i = 0; i < m_cWeakYoung; ++i)
+            {
+            int  nWeak     = m_anWeakYoung[i];
+            V    weak      = aObjects[nWeak];
+            long pReferent = f_accessor.getField(weak, WEAK_REFERENT_FIELD);
+            if (isLocal(pReferent))
+                {
+                V referent = aObjects[slot(pReferent)];
+                if (referent == null || getHeaderBit(referent, YOUNG_MASK))
+                    {
+                    clearWeak(weak, nWeak);
+                    }
+                }
+            }
+
+        // free the remaining young objects
+        int[] anNursery = m_anNursery;
+        for (int i = 0, c = m_cNursery; i < c; ++i)
+            {
+            int slot = anNursery[i];
+            V   o    = aObjects[slot];
+            if (o != null && getHeaderBit(o, YOUNG_MASK))
+                {
+                free(slot, o);
+                }
+            }
+        m_cNursery  = 0;
+        m_cbNursery = 0;
+
+        // perform the next increment of the tenured space collection
+        switch (m_nPhase)
+            {
+            case PHASE_IDLE:
+                if (m_cBytes > m_cbTenuredTrigger)
+                    {
+                    startMarking();
+                    }
+                break;
+
+            case PHASE_MARKING:
+                markStep(MARK_STEP);
+                if (m_cGrey == 0)
+                    {
+                    // the nursery is empty and there is nothing left to mark
+                    finishMarking();
+                    }
+                break;
+
+            case PHASE_SWEEPING:
+                sweepStep(SWEEP_STEP);
+                break;
+            }
+        }
+
+    /**
+     * Promote the specified young object (if it is one) to the tenured space.
+     *
+     * @param address the object address
+     */
+    private void promote(long address)
+        {
+        if (!isLocal(address))
+            {
+            return;
+            }
+
+        int slot = slot(address);
+        V   o    = m_aObjects[slot];
+        if (o == null || !getAndSetHeaderBit(o, YOUNG_MASK, false))
+            {
+            // not a young object or has already been promoted
+            return;
+            }
+
+        // the promoted objects are considered to be live by the tenured space collection, but during the marking they
+        // must also be scanned, since they may be the only holders of references to unmarked tenured objects
+        getAndSetHeaderBit(o, MARKER_MASK, m_fMarkerLive);
+        if (m_fMarking)
+            {
+            pushGrey(slot);
+            }
+
+        if (getHeaderBit(o, WEAK_MASK))
+            {
+            m_bsWeak.set(slot);
+            }
+
+        if (m_cYoungStack == m_anYoungStack.length)
+            {
+            m_anYoungStack = grow(m_anYoungStack);
+            }
+        m_anYoungStack[m_cYoungStack++] = slot;
+        }
+
+    /**
+     * Promote the young objects referenced by the specified tenured object.
+     *
+     * @param o    the tenured object
+     * @param slot the object's slot
+     */
+    private void scanYoung(V o, int slot)
+        {
+        int cFields = getFieldCount(o);
+        int iFirst  = 0;
+        if (getHeaderBit(o, WEAK_MASK))
+            {
+            // the referent is processed after the trace is complete
+            if (m_cWeakYoung == m_anWeakYoung.length)
+                {
+                m_anWeakYoung = grow(m_anWeakYoung);
+                }
+            m_anWeakYoung[m_cWeakYoung++] = slot;
+            iFirst = 1;
+            }
+
+        for (int i = iFirst; i < cFields; ++i)
+            {
+            promote(f_accessor.getField(o, i));
+            }
+        }
+
+
+    // ----- tenured space collection --------------------------------------------------------------
+
+    /**
+     * Complete the tenured space collection in progress (if any) without any further increments.
+     */
+    private void completeTenured()
+        {
+        while (m_nPhase == PHASE_MARKING)
+            {
+            // the marking is finished by the nursery collection once there is nothing left to mark
+            markStep(Integer.MAX_VALUE);
+            collectYoung();
+            }
+
+        sweepStep(Integer.MAX_VALUE);
+        }
+
+    /**
+     * Start marking the tenured space; must be called with an empty nursery.
+     */
+    private void startMarking()
+        {
+        assert m_cNursery == 0 && m_cGrey == 0;
+
+        // flip the meaning of the marker, so all the objects become "unmarked"
+        m_fMarkerLive = !m_fMarkerLive;
+        m_fMarking    = true;
+        m_nPhase      = PHASE_MARKING;
+
+        // take the snapshot of the roots
+        for (var root : f_setRoots)
+            {
+            for (var liter = root.get(); liter.hasNext(); )
+                {
+                shade(liter.next());
+                }
+            }
+        }
+
+    /**
+     * Mark the objects reachable from the grey ones.
+     *
+     * @param cBudget the maximum number of objects to scan
+     */
+    private void markStep(int cBudget)
+        {
+        V[]   aObjects = m_aObjects;
+        int[] anGrey   = m_anGrey;
+        while (m_cGrey > 0 && cBudget-- > 0)
+            {
+            V   o       = aObjects[anGrey[--m_cGrey]];
+            int cFields = getFieldCount(o);
+            for (int i = getHeaderBit(o, WEAK_MASK) ? 1 : 0; i < cFields; ++i)
+                {
+                shade(f_accessor.getField(o, i));
+                }
+            anGrey = m_anGrey; // could have grown
+            }
+        }
+
+    /**
+     * Mark the specified tenured object (if it is one) and schedule it for scanning.
+     *
+     * @param address the object address
+     */
+    private void shade(long address)
+        {
+        if (isLocal(address))
+            {
+            int slot = slot(address);
+            V   o    = m_aObjects[slot];
+            if (o != null && !getHeaderBit(o, YOUNG_MASK) &&
+                    getAndSetHeaderBit(o, MARKER_MASK, m_fMarkerLive) != m_fMarkerLive)
+                {
+                pushGrey(slot);
+                }
+            }
+        }
+
+    /**
+     * Schedule the specified object for the marking scan.
+     *
+     * @param slot the object's slot
+     */
+    private void pushGrey(int slot)
+        {
+        if (m_cGrey == m_anGrey.length)
+            {
+            m_anGrey = grow(m_anGrey);
+            }
+        m_anGrey[m_cGrey++] = slot;
+        }
+
+    /**
+     * Complete the marking: clear the weak refs to the unmarked objects and start sweeping.
+     */
+    private void finishMarking()
+        {
+        V[] aObjects = m_aObjects;
+        for (int nWeak = m_bsWeak.nextSetBit(0); nWeak >= 0; nWeak = m_bsWeak.nextSetBit(nWeak + 1))
+            {
+            V weak = aObjects[nWeak];
+            if (getHeaderBit(weak, MARKER_MASK) == m_fMarkerLive)
+                {
+                long pReferent = f_accessor.getField(weak, WEAK_REFERENT_FIELD);
+                if (isLocal(pReferent))
+                    {
+                    V referent = aObjects[slot(pReferent)];
+                    if (referent == null || getHeaderBit(referent, MARKER_MASK) != m_fMarkerLive)
+                        {
+                        clearWeak(weak, nWeak);
+                        }
+                    }
+                }
+            }
+
+        m_fMarking   = false;
+        m_nPhase     = PHASE_SWEEPING;
+        m_nSweepNext = 0;
+        }
+
+    /**
+     * Free the unmarked tenured objects.
+     *
+     * @param cBudget the maximum number of slots to sweep
+     */
+    private void sweepStep(int cBudget)
+        {
+        if (m_nPhase != PHASE_SWEEPING)
+            {
+            return;
+            }
+
+        V[]     aObjects    = m_aObjects;
+        boolean fMarkerLive = m_fMarkerLive;
+        int     slot        = m_nSweepNext;
+        for (int slotEnd = (int) Math.min(aObjects.length, (long) slot + cBudget); slot < slotEnd; ++slot)
+            {
+            V o = aObjects[slot];
+            if (o != null && !getHeaderBit(o, YOUNG_MASK) && getHeaderBit(o, MARKER_MASK) != fMarkerLive)
+                {
+                free(slot, o);
+                }
+            }
+        m_nSweepNext = slot;
+
+        if (slot == aObjects.length)
+            {
+            m_nPhase = PHASE_IDLE;
+            m_cTenuredCollections++;
+            m_cbTenuredTrigger = Math.max(MIN_TENURED_TRIGGER, m_cBytes * 2);
+            }
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Clear the specified weak-ref and enqueue the notification if necessary.
+     */
+    private void clearWeak(V weak, int nWeak)
+        {
+        f_accessor.setField(weak, WEAK_REFERENT_FIELD, NULL);
+        if (getFieldCount(weak) > WEAK_NOTIFIER_FIELD && f_accessor.getField(weak, WEAK_NOTIFIER_FIELD) != NULL)
+            {
+            f_clearedListener.accept(address(nWeak));
+            }
+        }
+
+    /**
+     * Free the object at the specified slot.
+     */
+    private void free(int slot, V o)
+        {
+        m_aObjects[slot] = null;
+        m_anFreeSlots[++m_nTopFree] = slot;
+        m_cBytes -= f_accessor.getByteSize(o);
+        m_bsWeak.clear(slot);
+        f_accessor.free(o);
+        }
+
+    /**
+     * Expand the size of this space.
+     */
+    private void grow()
+            throws OutOfMemoryError
+        {
+        int[] anFreeSlots = m_anFreeSlots;
+        V[]   aObjects    = m_aObjects;
+
+        int capOld = aObjects.length;
+        int capNew = capOld * 2;
+        if (capNew < 0)
+            {
+            throw new OutOfMemoryError("address space exhausted");
+            }
+
+        @SuppressWarnings("unchecked")
+        V[] aObjectsNew = (V[]) new Object[capNew];
+        System.arraycopy(aObjects, 0, aObjectsNew, 0, capOld);
+
+        int[] anFreeSlotsNew = new int[capNew];
+        System.arraycopy(anFreeSlots, 0, anFreeSlotsNew, 0, m_nTopFree + 1);
+        for (int slot = capNew - 1; slot >= capOld; --slot)
+            {
+            anFreeSlotsNew[++m_nTopFree] = slot;
+            }
+
+        byte[] abCardsNew = new byte[capNew >>> CARD_SHIFT];
+        System.arraycopy(m_abCards, 0, abCardsNew, 0, m_abCards.length);
+
+        m_anFreeSlots = anFreeSlotsNew;
+        m_aObjects    = aObjectsNew;
+        m_abCards     = abCardsNew;
+        }
+
+    /**
+     * @return a copy of the specified array of twice the size
+     */
+    private static int[] grow(int[] an)
+        {
+        int[] anNew = new int[an.length * 2];
+        System.arraycopy(an, 0, anNew, 0, an.length);
+        return anNew;
+        }
+
+    /**
+     * Return the address of a slot.
+     *
+     * @param slot the slot
+     * @return the address
+     */
+    private long address(int slot)
+        {
+        return (((long) slot) << 32) | 1L;
+        }
+
+    /**
+     * Return the slot for a given address.
+     *
+     * @param address the address
+     * @return the slot
+     */
+    private int slot(long address)
+        {
+        return (int) (address >>> 32);
+        }
+
+    /**
+     * Return {@code true} if the address represents a local address.
+     *
+     * @param address the address
+     * @return {@code true} if the address represents a local address
+     */
+    private boolean isLocal(long address)
+        {
+        return (address & 1) == 1;
+        }
+
+    /**
+     * Get a single bit from the header.
+     *
+     * @param o    the object to query
+     * @param mask the header mask to check against
+     * @return the marker
+     */
+    private boolean getHeaderBit(V o, long mask)
+        {
+        return (f_accessor.getHeader(o) & mask) != 0;
+        }
+
+    /**
+     * Get and set the header bit for the given mask.
+     *
+     * @param o     the object
+     * @param mask  the header mask
+     * @param value the updated bit value
+     * @return the old bit value
+     */
+    private boolean getAndSetHeaderBit(V o, long mask, boolean value)
+        {
+        long header = f_accessor.getHeader(o);
+        if (value)
+            {
+            f_accessor.setHeader(o, header | mask);
+            }
+        else
+            {
+            f_accessor.setHeader(o, header & ~mask);
+            }
+
+        return (header & mask) != 0;
+        }
+
+    /**
+     * Return the number of fields contained in the object.
+     *
+     * @param o the object
+     * @return the field count
+     */
+    private int getFieldCount(V o)
+        {
+        return (int) ((f_accessor.getHeader(o) & FIELD_COUNT_MASK) >>> FIELD_COUNT_SHIFT);
+        }
+
+    /**
+     * Set the field count for an object.
+     *
+     * @param o the object
+     * @param cFields the field count
+     */
+    private void setFieldCount(V o, int cFields)
+        {
+        if (cFields < 0 || cFields > (FIELD_COUNT_MASK >> FIELD_COUNT_SHIFT))
+            {
+            throw new IllegalArgumentException();
+            }
+
+        f_accessor.setHeader(o, (f_accessor.getHeader(o) & ~FIELD_COUNT_MASK) | ((long) cFields << FIELD_COUNT_SHIFT));
+        }
+
+    /**
+     * The bit-mask in the header used to mark the object as being reachable.
+     */
+    static final long MARKER_MASK = MarkAndSweepGcSpace.MARKER_MASK;
+
+    /**
+     * The bit-mask in the header used to indicate if the object represents a "weak" ref which requires special
+     * handling.
+     */
+    static final long WEAK_MASK = MarkAndSweepGcSpace.WEAK_MASK;
+
+    /**
+     * The bit-mask in the header encoding the field count.
+     */
+    static final long FIELD_COUNT_MASK = MarkAndSweepGcSpace.FIELD_COUNT_MASK;
+
+    /**
+     * The right shift of the post masked {@link #FIELD_COUNT_MASK} to obtain the mask
+     */
+    static final int FIELD_COUNT_SHIFT = MarkAndSweepGcSpace.FIELD_COUNT_SHIFT;
+
+    /**
+     * The bit-mask in the header used to indicate that the object is in the nursery.
+     */
+    static final long YOUNG_MASK = 0x1000;
+
+    /**
+     * The maximum number of objects in the nursery.
+     */
+    static final int NURSERY_SIZE = 8192;
+
+    /**
+     * The maximum number of bytes in the nursery.
+     */
+    static final long NURSERY_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * The number of grey objects scanned by each marking increment.
+     */
+    static final int MARK_STEP = 2 * NURSERY_SIZE;
+
+    /**
+     * The number of slots swept by each sweeping increment.
+     */
+    static final int SWEEP_STEP = 8 * NURSERY_SIZE;
+
+    /**
+     * The minimum amount of memory that triggers a tenured space collection.
+     */
+    static final long MIN_TENURED_TRIGGER = 16L * 1024 * 1024;
+
+    /**
+     * The number of slots covered by a card is {@code 1 << CARD_SHIFT}.
+     */
+    static final int CARD_SHIFT = 6;
+
+    /**
+     * The number of slots covered by a card.
+     */
+    static final int CARD_SLOTS = 1 << CARD_SHIFT;
+
+    static final byte CARD_CLEAN = 0;
+    static final byte CARD_DIRTY = 1;
+
+    static final int PHASE_IDLE     = 0;
+    static final int PHASE_MARKING  = 1;
+    static final int PHASE_SWEEPING = 2;
+
+    /**
+     * The means by which we access an objects storage.
+     */
+    final ObjectManager<V> f_accessor;
+
+    /**
+     * The listener to notify when weak-refs become clearable
+     */
+    final LongConsumer f_clearedListener;
+
+    /**
+     * The size in bytes we will try to stay below.
+     */
+    final long f_cbLimitSoft;
+
+    /**
+     * The maximum size (in bytes) we can grow to.
+     */
+    final long f_cbLimitHard;
+
+    /**
+     * The amount of memory retained by this {@link GenerationalGcSpace}.
+     */
+    long m_cBytes;
+
+    /**
+     * The index of the top element in {@link #m_anFreeSlots} that represents a free slot in {@link #m_aObjects}.
+     */
+    int m_nTopFree;
+
+    /**
+     * The slots available in {@link #m_aObjects}
+     */
+    int[] m_anFreeSlots = new int[1024];
+
+    /**
+     * References to our objects, based on their {@link #slot(long)} address.
+     */
+    @SuppressWarnings("unchecked")
+    V[] m_aObjects = (V[]) new Object[m_anFreeSlots.length];
+
+    /**
+     * The card table; one entry per {@link #CARD_SLOTS} slots.
+     */
+    byte[] m_abCards = new byte[m_anFreeSlots.length >>> CARD_SHIFT];
+
+    /**
+     * The slots of the objects allocated since the last nursery collection, in the allocation order.
+     */
+    final int[] m_anNursery = new int[NURSERY_SIZE];
+
+    /**
+     * The number of entries in {@link #m_anNursery}.
+     */
+    int m_cNursery;
+
+    /**
+     * The number of bytes allocated since the last nursery collection.
+     */
+    long m_cbNursery;
+
+    /**
+     * The promoted objects to be scanned by the nursery collection.
+     */
+    int[] m_anYoungStack = new int[256];
+    int   m_cYoungStack;
+
+    /**
+     * The weak-refs that may point to the young objects.
+     */
+    int[] m_anWeakYoung = new int[16];
+    int   m_cWeakYoung;
+
+    /**
+     * The slots of the tenured weak-refs.
+     */
+    final BitSet m_bsWeak = new BitSet();
+
+    /**
+     * The current phase of the tenured space collection.
+     */
+    int m_nPhase = PHASE_IDLE;
+
+    /**
+     * True iff the marking is in progress (the barriers are active).
+     */
+    boolean m_fMarking;
+
+    /**
+     * The marker value that indicates a reachable (or newly promoted) tenured object.
+     */
+    boolean m_fMarkerLive;
+
+    /**
+     * The marked objects that have not been scanned yet.
+     */
+    int[] m_anGrey = new int[256];
+    int   m_cGrey;
+
+    /**
+     * The next slot to sweep.
+     */
+    int m_nSweepNext;
+
+    /**
+     * The memory size that triggers the next tenured space collection.
+     */
+    long m_cbTenuredTrigger = MIN_TENURED_TRIGGER;
+
+    /**
+     * Metrics.
+     */
+    long m_cYoungCollections;
+    long m_cTenuredCollections;
+
+    /**
+     * The "gc" roots for this space.
+     */
+    final Set<Supplier<? extends LongMuterator>> f_setRoots = new HashSet<>();
+    }
@@ -0,0 +1,358 @@
+package org.xvm.runtime.gc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An {@link ObjectManager} implementation which stores objects outside the Java heap.
+ * <p>
+ * The objects are carved out of large direct {@link ByteBuffer} slabs; an object with {@code n}
+ * fields occupies exactly {@code n + 1} words (the header followed by the fields), with no
+ * per-object Java header or padding. Freed objects are kept on a free list per word count and are
+ * reused by subsequent allocations of the same size; large objects get a dedicated slab, which is
+ * released as soon as the object is freed.
+ * <p>
+ * The object "handle" is a {@code long} that encodes the slab, the offset within the slab and the
+ * object size, so the storage of the managed objects is neither traced nor copied by the JVM
+ * garbage collector, regardless of how many objects are allocated.
+ * <p>
+ * Unlike the {@link LongArrayObjectManager}, this manager is stateful and not thread-safe; each
+ * {@link GcSpace} needs its own instance.
+ */
+public class OffHeapObjectManager
+        implements ObjectManager<Long>
+    {
+    @Override
+    public Long allocate(int cFields)
+        {
+        if (cFields < 0 || cFields >= MAX_WORDS)
+            {
+            throw new IllegalArgumentException("illegal field count: " + cFields);
+            }
+
+        int  cWords = cFields + 1;
+        long lHandle;
+        if (cWords > SMALL_WORDS)
+            {
+            lHandle = allocateLarge(cWords);
+            }
+        else if ((lHandle = m_alFree[cWords]) == NONE)
+            {
+            lHandle = allocateSmall(cWords);
+            }
+        else
+            {
+            // the header of a free object holds the next free object of the same size
+            m_alFree[cWords] = header(lHandle) & ~INVALIDATION_MASK;
+            }
+
+        ByteBuffer buf = slab(lHandle);
+        for (int of = offset(lHandle), ofEnd = of + (cWords << 3); of < ofEnd; of += 8)
+            {
+            buf.putLong(of, 0L);
+            }
+
+        m_cbUsed += (long) cWords << 3;
+        return lHandle;
+        }
+
+    @Override
+    public void free(Long o)
+        {
+        long lHandle = validate(o);
+        int  cWords  = words(lHandle);
+        if (cWords > SMALL_WORDS)
+            {
+            // allow java gc to release the dedicated slab
+            int iSlab = (int) (lHandle >>> SLAB_SHIFT);
+            m_aSlab[iSlab] = null;
+            m_cbReserved  -= (long) cWords << 3;
+
+            if (m_cFreeSlabs == m_aiFreeSlab.length)
+                {
+                m_aiFreeSlab = Arrays.copyOf(m_aiFreeSlab, m_cFreeSlabs * 2);
+                }
+            m_aiFreeSlab[m_cFreeSlabs++] = iSlab;
+            }
+        else
+            {
+            // mark as invalid in case there are any dangling references, and link it to the free list
+            slab(lHandle).putLong(offset(lHandle), INVALIDATION_MASK | m_alFree[cWords]);
+            m_alFree[cWords] = lHandle;
+            }
+
+        m_cbUsed -= (long) cWords << 3;
+        }
+
+    @Override
+    public long getByteSize(Long o)
+        {
+        return (long) words(validate(o)) << 3;
+        }
+
+    @Override
+    public long getHeader(Long o)
+        {
+        return header(validate(o));
+        }
+
+    @Override
+    public void setHeader(Long o, long header)
+        {
+        long lHandle = validate(o);
+        slab(lHandle).putLong(offset(lHandle), header);
+        }
+
+    @Override
+    public long getField(Long o, int index)
+        {
+        long lHandle = validate(o);
+        Objects.checkIndex(index, words(lHandle) - 1);
+        return slab(lHandle).getLong(offset(lHandle) + ((index + 1) << 3));
+        }
+
+    @Override
+    public void setField(Long o, int index, long address)
+        {
+        long lHandle = validate(o);
+        Objects.checkIndex(index, words(lHandle) - 1);
+        slab(lHandle).putLong(offset(lHandle) + ((index + 1) << 3), address);
+        }
+
+    /**
+     * @return the number of bytes occupied by the live (not freed) objects
+     */
+    public long getUsedByteCount()
+        {
+        return m_cbUsed;
+        }
+
+    /**
+     * @return the number of off-heap bytes reserved by this manager
+     */
+    public long getReservedByteCount()
+        {
+        return m_cbReserved;
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Carve a new object out of the current slab, starting a new slab if necessary.
+     *
+     * @param cWords  the object size in words
+     *
+     * @return the object handle
+     */
+    private long allocateSmall(int cWords)
+        {
+        int cb = cWords << 3;
+        int of = m_ofNext;
+        if (m_iSlabCurrent < 0 || of + cb > SLAB_SIZE)
+            {
+            // the tail of the current slab (smaller than the largest small object) is abandoned
+            m_iSlabCurrent = addSlab(SLAB_SIZE);
+            of             = 0;
+            }
+
+        m_ofNext = of + cb;
+        return handle(m_iSlabCurrent, of, cWords);
+        }
+
+    /**
+     * Allocate a dedicated slab for a large object.
+     *
+     * @param cWords  the object size in words
+     *
+     * @return the object handle
+     */
+    private long allocateLarge(int cWords)
+        {
+        return handle(addSlab(cWords << 3), 0, cWords);
+        }
+
+    /**
+     * Allocate a new slab.
+     *
+     * @param cb  the slab size in bytes
+     *
+     * @return the slab index
+     */
+    private int addSlab(int cb)
+        {
+        int iSlab;
+        if (m_cFreeSlabs > 0)
+            {
+            iSlab = m_aiFreeSlab[--m_cFreeSlabs];
+            }
+        else
+            {
+            iSlab = m_cSlabs;
+            if (iSlab > MAX_SLAB)
+                {
+                throw new OutOfMemoryError("off-heap slab limit exceeded");
+                }
+
+            if (iSlab == m_aSlab.length)
+                {
+                m_aSlab = Arrays.copyOf(m_aSlab, iSlab * 2);
+                }
+            ++m_cSlabs;
+            }
+
+        m_aSlab[iSlab] = ByteBuffer.allocateDirect(cb).order(ByteOrder.nativeOrder());
+        m_cbReserved  += cb;
+        return iSlab;
+        }
+
+    /**
+     * Verify that the object is valid, i.e. not freed.
+     *
+     * @param o the object to validate
+     * @return the valid object handle
+     * @throws SegFault if invalid
+     */
+    protected long validate(Long o)
+        {
+        long lHandle = o;
+        if ((header(lHandle) & INVALIDATION_MASK) != 0)
+            {
+            throw new SegFault();
+            }
+        return lHandle;
+        }
+
+    /**
+     * @return the header word of the specified object, without validating it
+     */
+    private long header(long lHandle)
+        {
+        return slab(lHandle).getLong(offset(lHandle));
+        }
+
+    /**
+     * @return the slab holding the specified object
+     */
+    private ByteBuffer slab(long lHandle)
+        {
+        ByteBuffer buf = m_aSlab[(int) (lHandle >>> SLAB_SHIFT)];
+        if (buf == null)
+            {
+            // a dangling reference to a freed large object
+            throw new SegFault();
+            }
+        return buf;
+        }
+
+    /**
+     * @return the byte offset of the specified object within its slab
+     */
+    private static int offset(long lHandle)
+        {
+        return (int) (lHandle & OFFSET_MASK);
+        }
+
+    /**
+     * @return the size of the specified object in words
+     */
+    private static int words(long lHandle)
+        {
+        return (int) ((lHandle >>> WORDS_SHIFT) & WORDS_MASK);
+        }
+
+    /**
+     * @return the handle for an object of the specified size at the specified location
+     */
+    private static long handle(int iSlab, int of, int cWords)
+        {
+        return ((long) iSlab << SLAB_SHIFT) | ((long) cWords << WORDS_SHIFT) | of;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * The bitmask indicating that an object has been freed and is no longer valid.
+     */
+    private static final long INVALIDATION_MASK = 1L << 63;
+
+    /**
+     * The number of handle bits holding the byte offset within a slab; also the slab size.
+     */
+    private static final int  OFFSET_BITS = 20;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int  SLAB_SIZE   = 1 << OFFSET_BITS;
+
+    /**
+     * The size (in words) of the largest object carved out of a shared slab.
+     */
+    private static final int SMALL_WORDS = 1024;
+
+    /**
+     * The position and the mask of the handle bits holding the object size in words.
+     */
+    private static final int  WORDS_SHIFT = OFFSET_BITS;
+    private static final int  WORDS_BITS  = 24;
+    private static final long WORDS_MASK  = (1L << WORDS_BITS) - 1;
+    private static final int  MAX_WORDS   = (int) WORDS_MASK;
+
+    /**
+     * The position of the handle bits holding the slab index, and the largest slab index.
+     */
+    private static final int SLAB_SHIFT = WORDS_SHIFT + WORDS_BITS;
+    private static final int MAX_SLAB   = (1 << (63 - SLAB_SHIFT)) - 1;
+
+    /**
+     * The free list terminator; a valid handle never has a zero size.
+     */
+    private static final long NONE = 0L;
+
+    /**
+     * The slabs, indexed by the slab index.
+     */
+    private ByteBuffer[] m_aSlab = new ByteBuffer[16];
+
+    /**
+     * The number of slab indexes in use (including the released ones).
+     */
+    private int m_cSlabs;
+
+    /**
+     * The indexes of the released (dedicated) slabs available for reuse.
+     */
+    private int[] m_aiFreeSlab = new int[16];
+
+    /**
+     * The number of entries in {@link #m_aiFreeSlab}.
+     */
+    private int m_cFreeSlabs;
+
+    /**
+     * The index of the slab that new objects are carved from, or -1.
+     */
+    private int m_iSlabCurrent = -1;
+
+    /**
+     * The offset of the unused part of the current slab.
+     */
+    private int m_ofNext;
+
+    /**
+     * The heads of the free lists, indexed by the object size in words.
+     */
+    private final long[] m_alFree = new long[SMALL_WORDS + 1];
+
+    /**
+     * The number of bytes occupied by the live objects.
+     */
+    private long m_cbUsed;
+
+    /**
+     * The number of bytes reserved by all the slabs.
+     */
+    private long m_cbReserved;
+    }
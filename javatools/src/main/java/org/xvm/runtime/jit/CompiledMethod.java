@@ -0,0 +1,81 @@
+package org.xvm.runtime.jit;
+
+
+import org.xvm.asm.Op;
+
+import org.xvm.runtime.Frame;
+
+
+/**
+ * The base class for the JVM code generated by the {@link OpCompiler} for a "hot" op array.
+ * <p>
+ * The compiled code follows exactly the same contract as the interpreter loop in
+ * {@link org.xvm.runtime.ServiceContext#execute}: it uses the same {@link Frame} registers, it
+ * sets the frame's {@code m_iPC} before executing every op and it returns to the interpreter
+ * whenever an op produces any code other than {@link Op#R_NEXT} or a jump within the same op array
+ * (a call, a return, an exception, a yield etc.) or when the op budget is exhausted.
+ */
+public abstract class CompiledMethod
+    {
+    /**
+     * Construct the CompiledMethod.
+     *
+     * @param aOp  the op array this code has been compiled for
+     */
+    protected CompiledMethod(Op[] aOp)
+        {
+        f_aOp = aOp;
+        }
+
+    /**
+     * Execute the ops starting at the specified index.
+     *
+     * @param frame    the current frame
+     * @param aOp      the op array (must be the same as {@link #f_aOp})
+     * @param iPC      the index of the first op to execute
+     * @param cBudget  the maximum number of ops to execute
+     *
+     * @return the number of executed ops and the resulting op index or one of the special "R_*"
+     *         codes combined into a long value; use {@link #getOpCount} and {@link #getResult} to
+     *         extract them; a non-negative result indicates that the budget has been exhausted
+     */
+    public abstract long execute(Frame frame, Op[] aOp, int iPC, int cBudget);
+
+    /**
+     * Process an unexpected Java exception thrown by an op; called by the compiled code.
+     *
+     * @param frame  the current frame
+     * @param e      the exception
+     *
+     * @return {@link Op#R_EXCEPTION}
+     */
+    protected int handleException(Frame frame, Throwable e)
+        {
+        // the same logic as in ServiceContext.execute()
+        return frame.raiseUnexpectedException(e);
+        }
+
+    /**
+     * @return the number of ops executed as reported by {@link #execute}
+     */
+    public static int getOpCount(long lResult)
+        {
+        return (int) (lResult >>> 32);
+        }
+
+    /**
+     * @return the op index or the special "R_*" code as reported by {@link #execute}
+     */
+    public static int getResult(long lResult)
+        {
+        return (int) lResult;
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    /**
+     * The op array this code has been compiled for.
+     */
+    public final Op[] f_aOp;
+    }
@@ -0,0 +1,635 @@
+package org.xvm.runtime.jit;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import java.lang.reflect.Modifier;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xvm.asm.MethodStructure;
+import org.xvm.asm.Op;
+
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.Runtime;
+
+
+/**
+ * The second tier of the op execution: a simple "template" compiler that turns an op array of a
+ * "hot" method into a JVM class.
+ * <p>
+ * The generated code is a loop around a {@code tableswitch} on the op index, where every case
+ * invokes the corresponding op's {@link Op#process} method directly on its concrete class with a
+ * constant op index. As a result, every op gets its own monomorphic call site, which allows the JVM
+ * to inline the ops' logic and optimize the hot loops as a whole, while the semantics of the frame
+ * registers, the calls, the exceptions and the yields stay exactly the same as in the interpreter.
+ * <p>
+ * The compiler is disabled by default and could be enabled by setting the "xvm.jit" system
+ * property to "true"; the "xvm.jit.threshold" property specifies the number of invocations and
+ * backward jumps that makes a method "hot".
+ */
+public class OpCompiler
+    {
+    /**
+     * @return true iff the op array of the specified method should be compiled given its current
+     *         "hotness"
+     */
+    public static boolean isHot(MethodStructure function)
+        {
+        return function.getHotness() >= THRESHOLD;
+        }
+
+    /**
+     * Compile the specified op array of the specified method, unless it has already been compiled.
+     *
+     * @param function  the method
+     * @param aOp       the method's op array
+     *
+     * @return the compiled code; if the ops cannot be compiled, the returned code is not associated
+     *         with any op array
+     */
+    public static CompiledMethod ensureCompiled(MethodStructure function, Op[] aOp)
+        {
+        synchronized (function)
+            {
+            CompiledMethod method = function.getCompiledMethod();
+            if (method == null)
+                {
+                method = compile(aOp);
+                if (method == null)
+                    {
+                    method = UNCOMPILABLE;
+                    s_cFailed.getAndIncrement();
+                    }
+                else
+                    {
+                    s_cCompiled.getAndIncrement();
+                    }
+                function.setCompiledMethod(method);
+                }
+            return method;
+            }
+        }
+
+    /**
+     * @return the number of methods that have been compiled
+     */
+    public static long getCompiledCount()
+        {
+        return s_cCompiled.get();
+        }
+
+    /**
+     * @return the number of methods that were "hot", but could not be compiled
+     */
+    public static long getFailedCount()
+        {
+        return s_cFailed.get();
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Generate and load the code for the specified op array.
+     *
+     * @return the compiled code or null if the ops cannot be compiled
+     */
+    public static CompiledMethod compile(Op[] aOp)
+        {
+        int cOps = aOp.length;
+        if (cOps == 0 || cOps > MAX_OPS)
+            {
+            // too large methods are not going to be optimized by the JVM anyway
+            return null;
+            }
+
+        try
+            {
+            byte[] ab = generate(aOp);
+
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(ab, true);
+            MethodHandle         ctor   = lookup.findConstructor(lookup.lookupClass(),
+                                            MethodType.methodType(void.class, Op[].class));
+            return (CompiledMethod) ctor.invoke(aOp);
+            }
+        catch (Throwable e)
+            {
+            Runtime.logRuntimeException("Failed to compile ops: " + e);
+            return null;
+            }
+        }
+
+    /**
+     * Generate the class file for the specified op array.
+     */
+    private static byte[] generate(Op[] aOp)
+            throws IOException
+        {
+        ClassFile cf       = new ClassFile();
+        int       nThis    = cf.classRef(CLASS_NAME);
+        int       nSuper   = cf.classRef(SUPER_NAME);
+        int       nProcess = cf.methodRef(OP_NAME, "process", PROCESS_DESC);
+        int       nPC      = cf.fieldRef(FRAME_NAME, "m_iPC", "I");
+        int       nHandle  = cf.methodRef(SUPER_NAME, "handleException", HANDLE_DESC);
+        int       nMask    = cf.longConst(0xFFFFFFFFL);
+
+        // locals: 0 - this, 1 - frame, 2 - aOp, 3 - iPC, 4 - cBudget, 5 - cOps, 6 - iPCLast,
+        //         7 - exception
+        int  cOps  = aOp.length;
+        Code code  = new Code();
+
+        code.op(ICONST_0).op(ISTORE).u1(5);
+
+        int ofLoop = code.pos();
+        code.op(ILOAD).u1(3);
+        int fixExit1 = code.branch(IFLT);
+        code.op(ILOAD).u1(5).op(ILOAD).u1(4);
+        int fixExit2 = code.branch(IF_ICMPGE);
+        code.op(IINC).u1(5).u1(1);
+        code.op(ALOAD_1).op(ILOAD).u1(3).op(PUTFIELD).u2(nPC);
+        code.op(ILOAD).u1(3).op(ISTORE).u1(6);
+
+        // the switch
+        int ofTry = code.pos();
+        code.op(ILOAD).u1(3);
+        int ofSwitchOp = code.pos();
+        code.op(TABLESWITCH);
+        while (code.pos() % 4 != 0)
+            {
+            code.u1(0);
+            }
+        int fixDefault = code.pos();
+        code.u4(0).u4(0).u4(cOps - 1);
+        int fixCases = code.pos();
+        for (int i = 0; i < cOps; i++)
+            {
+            code.u4(0);
+            }
+
+        int[] afixAfter = new int[cOps];
+        for (int i = 0; i < cOps; i++)
+            {
+            code.patch4(fixCases + 4 * i, code.pos() - ofSwitchOp);
+
+            Class<?> clz    = aOp[i].getClass();
+            boolean  fExact = Modifier.isPublic(clz.getModifiers()) &&
+                              clz.getEnclosingClass() == null && !clz.isHidden();
+            code.op(ALOAD_2).op(SIPUSH).u2(i).op(AALOAD);
+            if (fExact)
+                {
+                String sName = clz.getName().replace('.', '/');
+                code.op(CHECKCAST).u2(cf.classRef(sName))
+                    .op(ALOAD_1).op(SIPUSH).u2(i)
+                    .op(INVOKEVIRTUAL).u2(cf.methodRef(sName, "process", PROCESS_DESC));
+                }
+            else
+                {
+                code.op(ALOAD_1).op(SIPUSH).u2(i).op(INVOKEVIRTUAL).u2(nProcess);
+                }
+            afixAfter[i] = code.branch(GOTO);
+            }
+
+        // the default (unreachable) case
+        code.patch4(fixDefault, code.pos() - ofSwitchOp);
+        code.op(ALOAD_2).op(ILOAD).u1(3).op(AALOAD)
+            .op(ALOAD_1).op(ILOAD).u1(3).op(INVOKEVIRTUAL).u2(nProcess);
+
+        // after the op: the result is on the stack
+        int ofAfter = code.pos();
+        for (int fix : afixAfter)
+            {
+            code.patchBranch(fix, ofAfter);
+            }
+        code.op(DUP).op(ICONST_M1);
+        int fixNext = code.branch(IF_ICMPEQ);
+        code.op(ISTORE).u1(3);
+        code.patchBranch(code.branch(GOTO), ofLoop);
+
+        code.patchBranch(fixNext, code.pos());
+        code.op(POP).op(ILOAD).u1(6).op(ICONST_1).op(IADD).op(ISTORE).u1(3);
+        code.patchBranch(code.branch(GOTO), ofLoop);
+
+        // the exception handler
+        int ofHandler = code.pos();
+        code.op(ASTORE).u1(7).op(ALOAD_0).op(ALOAD_1).op(ALOAD).u1(7)
+            .op(INVOKEVIRTUAL).u2(nHandle).op(ISTORE).u1(3);
+        code.patchBranch(code.branch(GOTO), ofLoop);
+
+        // the exit
+        int ofExit = code.pos();
+        code.patchBranch(fixExit1, ofExit);
+        code.patchBranch(fixExit2, ofExit);
+        code.op(ILOAD).u1(5).op(I2L).op(BIPUSH).u1(32).op(LSHL)
+            .op(ILOAD).u1(3).op(I2L).op(LDC2_W).u2(nMask).op(LAND)
+            .op(LOR).op(LRETURN);
+
+        // the constructor
+        Code ctor = new Code();
+        ctor.op(ALOAD_0).op(ALOAD_1)
+            .op(INVOKESPECIAL).u2(cf.methodRef(SUPER_NAME, "<init>", "([L" + OP_NAME + ";)V"))
+            .op(RETURN);
+
+        cf.addMethod("<init>", "([L" + OP_NAME + ";)V", ctor, 2, 2, null);
+        cf.addMethod("execute", EXECUTE_DESC, code, 8, 8,
+                new int[] {ofTry, ofAfter, ofHandler, 0});
+        return cf.toByteArray(nThis, nSuper);
+        }
+
+
+    // ----- inner class: Interpreter --------------------------------------------------------------
+
+    /**
+     * The {@link CompiledMethod} contract implemented by a plain Java loop that executes the ops
+     * exactly as the interpreter does. It is used for the op arrays that cannot be compiled and
+     * serves as the reference for the generated code.
+     */
+    public static class Interpreter
+            extends CompiledMethod
+        {
+        /**
+         * Construct the Interpreter.
+         *
+         * @param aOp  the op array (null if this interpreter is used as a marker)
+         */
+        public Interpreter(Op[] aOp)
+            {
+            super(aOp);
+            }
+
+        @Override
+        public long execute(Frame frame, Op[] aOp, int iPC, int cBudget)
+            {
+            int cOps = 0;
+            while (iPC >= 0 && cOps < cBudget)
+                {
+                ++cOps;
+                frame.m_iPC = iPC;
+
+                int iPCLast = iPC;
+                try
+                    {
+                    iPC = aOp[iPC].process(frame, iPC);
+                    }
+                catch (Throwable e)
+                    {
+                    iPC = handleException(frame, e);
+                    }
+
+                if (iPC == Op.R_NEXT)
+                    {
+                    iPC = iPCLast + 1;
+                    }
+                }
+            return ((long) cOps << 32) | (iPC & 0xFFFFFFFFL);
+            }
+        }
+
+
+    // ----- inner class: Code ---------------------------------------------------------------------
+
+    /**
+     * A growable JVM code buffer.
+     */
+    private static class Code
+        {
+        Code op(int nOp)
+            {
+            return u1(nOp);
+            }
+
+        Code u1(int n)
+            {
+            ensure(1);
+            m_ab[m_of++] = (byte) n;
+            return this;
+            }
+
+        Code u2(int n)
+            {
+            return u1(n >>> 8).u1(n);
+            }
+
+        Code u4(int n)
+            {
+            return u2(n >>> 16).u2(n);
+            }
+
+        int pos()
+            {
+            return m_of;
+            }
+
+        /**
+         * Emit a branch op with a yet unknown target.
+         *
+         * @return the position of the branch op to be patched later
+         */
+        int branch(int nOp)
+            {
+            int of = m_of;
+            op(nOp).u2(0);
+            return of;
+            }
+
+        void patchBranch(int ofBranch, int ofTarget)
+            {
+            int nOffset = ofTarget - ofBranch;
+            if (nOffset != (short) nOffset)
+                {
+                throw new IllegalStateException("branch is too long");
+                }
+            m_ab[ofBranch + 1] = (byte) (nOffset >>> 8);
+            m_ab[ofBranch + 2] = (byte) nOffset;
+            }
+
+        void patch4(int of, int n)
+            {
+            m_ab[of    ] = (byte) (n >>> 24);
+            m_ab[of + 1] = (byte) (n >>> 16);
+            m_ab[of + 2] = (byte) (n >>> 8);
+            m_ab[of + 3] = (byte) n;
+            }
+
+        private void ensure(int c)
+            {
+            if (m_of + c > m_ab.length)
+                {
+                byte[] abNew = new byte[m_ab.length * 2];
+                System.arraycopy(m_ab, 0, abNew, 0, m_of);
+                m_ab = abNew;
+                }
+            }
+
+        byte[] toByteArray()
+            {
+            byte[] ab = new byte[m_of];
+            System.arraycopy(m_ab, 0, ab, 0, m_of);
+            return ab;
+            }
+
+        private byte[] m_ab = new byte[256];
+        private int    m_of;
+        }
+
+
+    // ----- inner class: ClassFile ----------------------------------------------------------------
+
+    /**
+     * A minimal class file writer.
+     * <p>
+     * The produced class files use the version 49 (Java 5) format, which doesn't require the
+     * "StackMapTable" attribute, so the JVM uses the type-inferencing verifier instead.
+     */
+    private static class ClassFile
+        {
+        int utf8(String s)
+            {
+            return constant("U" + s, out ->
+                {
+                out.writeByte(1);
+                out.writeUTF(s);
+                });
+            }
+
+        int classRef(String sName)
+            {
+            int nName = utf8(sName);
+            return constant("C" + sName, out ->
+                {
+                out.writeByte(7);
+                out.writeShort(nName);
+                });
+            }
+
+        int nameAndType(String sName, String sDesc)
+            {
+            int nName = utf8(sName);
+            int nDesc = utf8(sDesc);
+            return constant("N" + sName + ' ' + sDesc, out ->
+                {
+                out.writeByte(12);
+                out.writeShort(nName);
+                out.writeShort(nDesc);
+                });
+            }
+
+        int fieldRef(String sOwner, String sName, String sDesc)
+            {
+            return memberRef(9, sOwner, sName, sDesc);
+            }
+
+        int methodRef(String sOwner, String sName, String sDesc)
+            {
+            return memberRef(10, sOwner, sName, sDesc);
+            }
+
+        int longConst(long l)
+            {
+            int n = constant("J" + l, out ->
+                {
+                out.writeByte(5);
+                out.writeLong(l);
+                });
+            // a long constant takes two slots
+            if (n == m_cConst - 1)
+                {
+                m_cConst++;
+                }
+            return n;
+            }
+
+        void addMethod(String sName, String sDesc, Code code, int cStack, int cLocals,
+                       int[] anHandler)
+                throws IOException
+            {
+            int nName  = utf8(sName);
+            int nDesc  = utf8(sDesc);
+            int nCode  = utf8("Code");
+
+            byte[] abCode = code.toByteArray();
+            DataOutputStream out = m_outMethods;
+            out.writeShort(0x0001); // public
+            out.writeShort(nName);
+            out.writeShort(nDesc);
+            out.writeShort(1);      // attribute count
+            out.writeShort(nCode);
+            out.writeInt(12 + abCode.length + (anHandler == null ? 0 : anHandler.length * 2));
+            out.writeShort(cStack);
+            out.writeShort(cLocals);
+            out.writeInt(abCode.length);
+            out.write(abCode);
+            if (anHandler == null)
+                {
+                out.writeShort(0);
+                }
+            else
+                {
+                out.writeShort(anHandler.length / 4);
+                for (int n : anHandler)
+                    {
+                    out.writeShort(n);
+                    }
+                }
+            out.writeShort(0);      // code attribute count
+            m_cMethods++;
+            }
+
+        byte[] toByteArray(int nThis, int nSuper)
+                throws IOException
+            {
+            ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+            DataOutputStream      out      = new DataOutputStream(outBytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);      // minor version
+            out.writeShort(49);     // major version
+            out.writeShort(m_cConst);
+            m_outConst.flush();
+            m_bytesConst.writeTo(out);
+            out.writeShort(0x0031); // public final super
+            out.writeShort(nThis);
+            out.writeShort(nSuper);
+            out.writeShort(0);      // interfaces
+            out.writeShort(0);      // fields
+            out.writeShort(m_cMethods);
+            m_outMethods.flush();
+            m_bytesMethods.writeTo(out);
+            out.writeShort(0);      // attributes
+            out.flush();
+            return outBytes.toByteArray();
+            }
+
+        private int memberRef(int nTag, String sOwner, String sName, String sDesc)
+            {
+            int nClass = classRef(sOwner);
+            int nNT    = nameAndType(sName, sDesc);
+            return constant(nTag + sOwner + '.' + sName + sDesc, out ->
+                {
+                out.writeByte(nTag);
+                out.writeShort(nClass);
+                out.writeShort(nNT);
+                });
+            }
+
+        private int constant(String sKey, ConstantWriter writer)
+            {
+            Integer N = m_mapConst.get(sKey);
+            if (N != null)
+                {
+                return N;
+                }
+
+            try
+                {
+                writer.write(m_outConst);
+                }
+            catch (IOException e)
+                {
+                throw new IllegalStateException(e);
+                }
+
+            int n = m_cConst++;
+            m_mapConst.put(sKey, n);
+            return n;
+            }
+
+        interface ConstantWriter
+            {
+            void write(DataOutputStream out)
+                    throws IOException;
+            }
+
+        private final Map<String, Integer>  m_mapConst     = new HashMap<>();
+        private final ByteArrayOutputStream m_bytesConst   = new ByteArrayOutputStream();
+        private final DataOutputStream      m_outConst     = new DataOutputStream(m_bytesConst);
+        private final ByteArrayOutputStream m_bytesMethods = new ByteArrayOutputStream();
+        private final DataOutputStream      m_outMethods   = new DataOutputStream(m_bytesMethods);
+        private int m_cConst = 1;
+        private int m_cMethods;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * True iff the compilation is enabled.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("xvm.jit");
+
+    /**
+     * The number of invocations and backward jumps that triggers the compilation.
+     */
+    public static final int THRESHOLD = Integer.getInteger("xvm.jit.threshold", 5_000);
+
+    /**
+     * The maximum number of ops in a compiled method. Since the JVM doesn't optimize methods
+     * larger than 8000 bytes, there is no benefit of compiling larger op arrays.
+     */
+    private static final int MAX_OPS = 360;
+
+    /**
+     * The code used to mark the methods that could not be compiled; since it's not associated with
+     * any op array, the interpreter executes those methods' ops itself.
+     */
+    private static final CompiledMethod UNCOMPILABLE = new Interpreter(null);
+
+    private static final String CLASS_NAME   = "org/xvm/runtime/jit/CompiledOps";
+    private static final String SUPER_NAME   = "org/xvm/runtime/jit/CompiledMethod";
+    private static final String OP_NAME      = "org/xvm/asm/Op";
+    private static final String FRAME_NAME   = "org/xvm/runtime/Frame";
+    private static final String PROCESS_DESC = "(L" + FRAME_NAME + ";I)I";
+    private static final String HANDLE_DESC  = "(L" + FRAME_NAME + ";Ljava/lang/Throwable;)I";
+    private static final String EXECUTE_DESC = "(L" + FRAME_NAME + ";[L" + OP_NAME + ";II)J";
+
+    /**
+     * JVM op codes.
+     */
+    private static final int ICONST_M1     = 0x02;
+    private static final int ICONST_0      = 0x03;
+    private static final int ICONST_1      = 0x04;
+    private static final int BIPUSH        = 0x10;
+    private static final int SIPUSH        = 0x11;
+    private static final int LDC2_W        = 0x14;
+    private static final int ILOAD         = 0x15;
+    private static final int ALOAD         = 0x19;
+    private static final int ALOAD_0       = 0x2a;
+    private static final int ALOAD_1       = 0x2b;
+    private static final int ALOAD_2       = 0x2c;
+    private static final int AALOAD        = 0x32;
+    private static final int ISTORE        = 0x36;
+    private static final int ASTORE        = 0x3a;
+    private static final int POP           = 0x57;
+    private static final int DUP           = 0x59;
+    private static final int IADD          = 0x60;
+    private static final int LSHL          = 0x79;
+    private static final int LAND          = 0x7f;
+    private static final int LOR           = 0x81;
+    private static final int IINC          = 0x84;
+    private static final int I2L           = 0x85;
+    private static final int IFLT          = 0x9b;
+    private static final int IF_ICMPEQ     = 0x9f;
+    private static final int IF_ICMPGE     = 0xa2;
+    private static final int GOTO          = 0xa7;
+    private static final int TABLESWITCH   = 0xaa;
+    private static final int LRETURN       = 0xad;
+    private static final int RETURN        = 0xb1;
+    private static final int PUTFIELD      = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int CHECKCAST     = 0xc0;
+
+    /**
+     * Statistics.
+     */
+    private static final AtomicLong s_cCompiled = new AtomicLong();
+    private static final AtomicLong s_cFailed   = new AtomicLong();
+    }
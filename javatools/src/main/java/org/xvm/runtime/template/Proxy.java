@@ -97,7 +97,7 @@ public class Proxy
         hTarget = hProxy.f_hTarget;
 
         return frame.f_context == hProxy.f_context
-            ? hTarget.getTemplate().invokeNative1(frame, method, hTarget, hArg, iReturn)
+            ? hTarget.getTemplate().callNative1(frame, method, hTarget, hArg, iReturn)
             : makeAsyncNativeHandle(hTarget, method).
                 call1(frame, hProxy, new ObjectHandle[]{hArg}, iReturn);
         }
@@ -111,7 +111,7 @@ public class Proxy
         hTarget = hProxy.f_hTarget;
 
         return frame.f_context == hProxy.f_context
-            ? hTarget.getTemplate().invokeNativeN(frame, method, hTarget, ahArg, iReturn)
+            ? hTarget.getTemplate().callNativeN(frame, method, hTarget, ahArg, iReturn)
             : makeAsyncNativeHandle(hTarget, method).call1(frame, hProxy, ahArg, iReturn);
         }
 
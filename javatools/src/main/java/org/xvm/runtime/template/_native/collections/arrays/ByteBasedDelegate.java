@@ -320,6 +320,11 @@ public abstract class ByteBasedDelegate
     public int callEquals(Frame frame, TypeComposition clazz,
                           ObjectHandle hValue1, ObjectHandle hValue2, int iReturn)
         {
+        if (hValue2 instanceof xRTMappedDelegate.MappedHandle)
+            {
+            return xRTMappedDelegate.INSTANCE.callEquals(frame, clazz, hValue1, hValue2, iReturn);
+            }
+
         ByteArrayHandle h1 = (ByteArrayHandle) hValue1;
         ByteArrayHandle h2 = (ByteArrayHandle) hValue2;
 
@@ -330,6 +335,11 @@ public abstract class ByteBasedDelegate
     @Override
     public boolean compareIdentity(ObjectHandle hValue1, ObjectHandle hValue2)
         {
+        if (hValue2 instanceof xRTMappedDelegate.MappedHandle)
+            {
+            return xRTMappedDelegate.INSTANCE.compareIdentity(hValue1, hValue2);
+            }
+
         ByteArrayHandle h1 = (ByteArrayHandle) hValue1;
         ByteArrayHandle h2 = (ByteArrayHandle) hValue2;
 
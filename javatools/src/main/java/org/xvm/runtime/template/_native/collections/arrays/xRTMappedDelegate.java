@@ -0,0 +1,382 @@
+package org.xvm.runtime.template._native.collections.arrays;
+
+
+import java.lang.ref.Cleaner;
+
+import java.nio.ByteBuffer;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.ConstantPool;
+import org.xvm.asm.Op;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.ClassTemplate;
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.ObjectHandle.JavaLong;
+import org.xvm.runtime.TypeComposition;
+
+import org.xvm.runtime.template.xBoolean;
+import org.xvm.runtime.template.xException;
+
+import org.xvm.runtime.template.collections.xArray.Mutability;
+
+import org.xvm.runtime.template.numbers.xUInt8;
+
+
+/**
+ * The native RTMappedDelegate<Byte> implementation: a Byte array whose bytes are not copied into
+ * the Java heap, but stay in a ByteBuffer. It is either a constant array over a read-only (usually
+ * memory-mapped) buffer, or a fixed-size array over a writable native buffer (e.g. a pooled I/O
+ * buffer).
+ * <p>
+ * Any attempt to change a constant array (e.g. insert or delete) works on a heap copy, just like
+ * for any other constant array.
+ */
+public class xRTMappedDelegate
+        extends xRTDelegate
+        implements ByteView
+    {
+    public static xRTMappedDelegate INSTANCE;
+
+    public xRTMappedDelegate(Container container, ClassStructure structure, boolean fInstance)
+        {
+        super(container, structure, false);
+
+        if (fInstance)
+            {
+            INSTANCE = this;
+            }
+        }
+
+    @Override
+    public void initNative()
+        {
+        }
+
+    @Override
+    public TypeConstant getCanonicalType()
+        {
+        ConstantPool pool = pool();
+        return pool.ensureParameterizedTypeConstant(
+                getInceptionClassConstant().getType(),
+                pool.typeByte());
+        }
+
+    @Override
+    public ClassTemplate getTemplate(TypeConstant type)
+        {
+        return this;
+        }
+
+
+    // ----- RTDelegate API ------------------------------------------------------------------------
+
+    @Override
+    protected int getPropertyCapacity(Frame frame, ObjectHandle hTarget, int iReturn)
+        {
+        return getPropertySize(frame, hTarget, iReturn);
+        }
+
+    @Override
+    protected int setPropertyCapacity(Frame frame, ObjectHandle hTarget, long nCapacity)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+
+        return nCapacity == hMapped.m_cSize
+            ? Op.R_NEXT
+            : frame.raiseException(xException.readOnly(frame, hMapped.getMutability()));
+        }
+
+    @Override
+    protected int invokeInsertElement(Frame frame, ObjectHandle hTarget,
+                                      JavaLong hIndex, ObjectHandle hValue, int iReturn)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+        if (hMapped.getMutability() != Mutability.Constant)
+            {
+            return super.invokeInsertElement(frame, hTarget, hIndex, hValue, iReturn);
+            }
+
+        DelegateHandle hCopy = createCopy(hMapped, Mutability.Mutable);
+
+        int iResult = xRTUInt8Delegate.INSTANCE.invokeInsertElement(frame, hCopy, hIndex, hValue, iReturn);
+        hCopy.setMutability(hMapped.getMutability());
+        return iResult;
+        }
+
+    @Override
+    protected int invokeDeleteElement(Frame frame, ObjectHandle hTarget, ObjectHandle hValue, int iReturn)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+        if (hMapped.getMutability() != Mutability.Constant)
+            {
+            return super.invokeDeleteElement(frame, hTarget, hValue, iReturn);
+            }
+
+        long lIndex = ((JavaLong) hValue).getValue();
+
+        if (lIndex < 0 || lIndex >= hMapped.m_cSize)
+            {
+            return frame.raiseException(xException.outOfBounds(frame, lIndex, hMapped.m_cSize));
+            }
+
+        DelegateHandle hCopy = createCopy(hMapped, Mutability.Mutable);
+
+        int iResult = xRTUInt8Delegate.INSTANCE.invokeDeleteElement(frame, hCopy, hValue, iReturn);
+        hCopy.setMutability(hMapped.getMutability());
+        return iResult;
+        }
+
+    @Override
+    public DelegateHandle fill(DelegateHandle hTarget, int cSize, ObjectHandle hValue)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+        ByteBuffer   buffer  = hMapped.m_buffer;
+        if (buffer.isReadOnly())
+            {
+            throw new IllegalStateException("Read-only");
+            }
+
+        byte b = (byte) ((JavaLong) hValue).getValue();
+        for (int i = 0, c = Math.min(cSize, buffer.limit()); i < c; i++)
+            {
+            buffer.put(i, b);
+            }
+        return hMapped;
+        }
+
+    @Override
+    public DelegateHandle deleteRange(DelegateHandle hTarget, long ofStart, long cSize)
+        {
+        if (hTarget.getMutability() != Mutability.Constant)
+            {
+            return super.deleteRange(hTarget, ofStart, cSize);
+            }
+
+        DelegateHandle hCopy = createCopy(hTarget, Mutability.Mutable);
+
+        xRTUInt8Delegate.INSTANCE.deleteRange(hCopy, ofStart, cSize);
+        hCopy.setMutability(hTarget.getMutability());
+        return hCopy;
+        }
+
+    @Override
+    protected DelegateHandle createCopyImpl(DelegateHandle hTarget, Mutability mutability,
+                                            long ofStart, long cSize, boolean fReverse)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+
+        if (ofStart == 0 && cSize == hMapped.m_cSize && mutability == Mutability.Constant
+                && hMapped.getMutability() == Mutability.Constant && !fReverse)
+            {
+            // the bytes cannot change
+            return hMapped;
+            }
+
+        byte[] abValue = getBytes(hMapped, ofStart, cSize, fReverse);
+        return xRTUInt8Delegate.INSTANCE.makeHandle(abValue, cSize, mutability);
+        }
+
+    @Override
+    protected int extractArrayValueImpl(Frame frame, DelegateHandle hTarget, long lIndex, int iReturn)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+
+        return frame.assignValue(iReturn,
+                xUInt8.INSTANCE.makeJavaLong(hMapped.m_buffer.get((int) lIndex) & 0xFF));
+        }
+
+    @Override
+    protected int assignArrayValueImpl(Frame frame, DelegateHandle hTarget, long lIndex,
+                                       ObjectHandle hValue)
+        {
+        MappedHandle hMapped = (MappedHandle) hTarget;
+        ByteBuffer   buffer  = hMapped.m_buffer;
+        if (buffer.isReadOnly())
+            {
+            return frame.raiseException(xException.readOnly(frame, hTarget.getMutability()));
+            }
+
+        // the mutability check has been done by assignArrayValue(); only a fixed-size array gets here
+        buffer.put((int) lIndex, (byte) ((JavaLong) hValue).getValue());
+        return Op.R_NEXT;
+        }
+
+
+    // ----- ByteView implementation ---------------------------------------------------------------
+
+    @Override
+    public byte[] getBytes(DelegateHandle hDelegate, long ofStart, long cBytes, boolean fReverse)
+        {
+        MappedHandle hMapped = (MappedHandle) hDelegate;
+
+        byte[] ab = new byte[(int) cBytes];
+        hMapped.m_buffer.get((int) ofStart, ab);
+        return fReverse ? ByteBasedDelegate.reverseBytes(ab, (int) cBytes) : ab;
+        }
+
+    @Override
+    public byte extractByte(DelegateHandle hDelegate, long of)
+        {
+        return ((MappedHandle) hDelegate).m_buffer.get((int) of);
+        }
+
+    @Override
+    public void assignByte(DelegateHandle hDelegate, long of, byte bValue)
+        {
+        ByteBuffer buffer = ((MappedHandle) hDelegate).m_buffer;
+        if (buffer.isReadOnly())
+            {
+            throw new IllegalStateException("Read-only");
+            }
+        buffer.put((int) of, bValue);
+        }
+
+
+    // ----- ClassTemplate API ---------------------------------------------------------------------
+
+    @Override
+    public int callEquals(Frame frame, TypeComposition clazz,
+                          ObjectHandle hValue1, ObjectHandle hValue2, int iReturn)
+        {
+        return frame.assignValue(iReturn,
+                xBoolean.makeHandle(equalBytes((DelegateHandle) hValue1, (DelegateHandle) hValue2)));
+        }
+
+    @Override
+    public boolean compareIdentity(ObjectHandle hValue1, ObjectHandle hValue2)
+        {
+        DelegateHandle h1 = (DelegateHandle) hValue1;
+        DelegateHandle h2 = (DelegateHandle) hValue2;
+
+        return h1 == h2 ||
+               h1.getMutability() == h2.getMutability() && equalBytes(h1, h2);
+        }
+
+    /**
+     * Compare the content of two byte delegates, at least one of which is a {@link MappedHandle}.
+     */
+    protected static boolean equalBytes(DelegateHandle h1, DelegateHandle h2)
+        {
+        return h1.m_cSize == h2.m_cSize && asBuffer(h1).equals(asBuffer(h2));
+        }
+
+    /**
+     * @return a ByteBuffer view of the content of a mapped or a heap byte delegate
+     */
+    protected static ByteBuffer asBuffer(DelegateHandle hDelegate)
+        {
+        return hDelegate instanceof MappedHandle hMapped
+                ? hMapped.getBuffer()
+                : ByteBuffer.wrap(((ByteBasedDelegate.ByteArrayHandle) hDelegate).m_abValue,
+                                  0, (int) hDelegate.m_cSize);
+        }
+
+
+    // ----- handle --------------------------------------------------------------------------------
+
+    /**
+     * Make a constant delegate for the specified bytes.
+     * <p>
+     * If the buffer is memory-mapped, its size must have been charged to the container via
+     * {@link Container#reserveMappedMemory}; the charge is released when the delegate is collected
+     * (which is also when the buffer gets unmapped).
+     *
+     * @param container  the container the bytes are charged to
+     * @param buffer     the read-only buffer; all its remaining bytes make up the array
+     * @param fCharged   true iff the buffer's size has been charged to the container
+     */
+    public MappedHandle makeHandle(Container container, ByteBuffer buffer, boolean fCharged)
+        {
+        ByteBuffer   bufSlice = buffer.slice();
+        MappedHandle hMapped  = new MappedHandle(getCanonicalClass(), bufSlice, Mutability.Constant);
+        if (fCharged)
+            {
+            long cb = bufSlice.capacity();
+            CLEANER.register(hMapped, () -> container.releaseMappedMemory(cb));
+            }
+        return hMapped;
+        }
+
+    /**
+     * A Byte array delegate backed by a ByteBuffer.
+     */
+    public static class MappedHandle
+            extends DelegateHandle
+        {
+        /**
+         * The bytes; the buffer's position is always zero.
+         */
+        protected ByteBuffer m_buffer;
+
+        /**
+         * Construct a handle for all the remaining bytes of the specified buffer.
+         *
+         * @param clazz       the RTMappedDelegate class
+         * @param buffer      the buffer, which must be writable unless the array is constant
+         * @param mutability  either {@link Mutability#Constant} or {@link Mutability#Fixed}
+         */
+        protected MappedHandle(TypeComposition clazz, ByteBuffer buffer, Mutability mutability)
+            {
+            super(clazz, mutability);
+
+            assert mutability == Mutability.Constant || mutability == Mutability.Fixed && !buffer.isReadOnly();
+
+            m_buffer = buffer;
+            m_cSize  = buffer.remaining();
+            }
+
+        /**
+         * @return a new read-only ByteBuffer view of the bytes, which could be consumed by the
+         *         caller (e.g. passed to a channel or a MessageDigest) without any copying
+         */
+        public ByteBuffer getBuffer()
+            {
+            return m_buffer.asReadOnlyBuffer();
+            }
+
+        /**
+         * Detach this handle from its bytes, so the buffer could be reused; from this point on the
+         * array appears to be empty.
+         */
+        protected void invalidate()
+            {
+            m_buffer = EMPTY_BUFFER;
+            m_cSize  = 0;
+            }
+
+        @Override
+        public int hashCode()
+            {
+            return getMutability() == Mutability.Constant
+                    ? m_buffer.hashCode()
+                    : System.identityHashCode(this);
+            }
+
+        @Override
+        public boolean equals(Object obj)
+            {
+            return obj == this
+                || obj instanceof MappedHandle that
+                    && this.getMutability() == Mutability.Constant
+                    && that.getMutability() == Mutability.Constant
+                    && this.m_buffer.equals(that.m_buffer);
+            }
+
+        /**
+         * The buffer of an invalidated handle.
+         */
+        private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+        }
+
+
+    // ----- constants -----------------------------------------------------------------------------
+
+    /**
+     * The cleaner that returns the mapped bytes to the container's budget.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+    }
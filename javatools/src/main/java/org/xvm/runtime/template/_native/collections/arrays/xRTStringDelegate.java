@@ -210,8 +210,7 @@ public class xRTStringDelegate
         StringArrayHandle h1 = (StringArrayHandle) hValue1;
         StringArrayHandle h2 = (StringArrayHandle) hValue2;
 
-        return frame.assignValue(iReturn,
-                xBoolean.makeHandle(Arrays.equals(h1.m_asValue, h2.m_asValue)));
+        return frame.assignValue(iReturn, xBoolean.makeHandle(h1.equalValues(h2)));
         }
 
     @Override
@@ -225,9 +224,7 @@ public class xRTStringDelegate
             return true;
             }
 
-        return h1.getMutability() == h2.getMutability()
-            && h1.m_cSize == h2.m_cSize
-            && Arrays.equals(h1.m_asValue, h2.m_asValue);
+        return h1.getMutability() == h2.getMutability() && h1.equalValues(h2);
         }
 
 
@@ -361,17 +358,37 @@ public class xRTStringDelegate
             return 0;
             }
 
+        /**
+         * Compare the elements of this array with the elements of the specified array using the
+         * (intrinsic) String comparison; the unused capacity is ignored.
+         *
+         * @param that  the array to compare with
+         *
+         * @return true iff both arrays have the same size and equal elements
+         */
+        public boolean equalValues(StringArrayHandle that)
+            {
+            int c = (int) m_cSize;
+            return c == that.m_cSize && Arrays.equals(this.m_asValue, 0, c, that.m_asValue, 0, c);
+            }
+
         @Override
         public int hashCode()
             {
-            return Arrays.hashCode(m_asValue);
+            // the String hash values are cached by the Strings themselves
+            String[] as   = m_asValue;
+            int      hash = 1;
+            for (int i = 0, c = (int) m_cSize; i < c; i++)
+                {
+                hash = 31 * hash + as[i].hashCode();
+                }
+            return hash;
             }
 
         @Override
         public boolean equals(Object obj)
             {
-            return obj instanceof StringArrayHandle that
-                && Arrays.equals(this.m_asValue, that.m_asValue);
+            return obj instanceof StringArrayHandle that && equalValues(that);
             }
         }
     }
\ No newline at end of file
@@ -15,9 +15,9 @@ import org.xvm.runtime.template.xService;
 import org.xvm.runtime.template.collections.xArray;
 import org.xvm.runtime.template.collections.xArray.ArrayHandle;
 import org.xvm.runtime.template.collections.xArray.Mutability;
+import org.xvm.runtime.template.collections.xByteArray;
 
-import org.xvm.runtime.template._native.collections.arrays.ByteBasedDelegate.ByteArrayHandle;
-import org.xvm.runtime.template._native.collections.arrays.xRTUInt8Delegate;
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate.MappedHandle;
 
 import org.xvm.runtime.template._native.crypto.xRTAlgorithms.DigestHandle;
 
@@ -55,8 +55,7 @@ public class xRTHasher
         switch (method.getName())
             {
             case "digest":
-                return invokeDigest(frame, (DigestHandle) ahArg[0],
-                    (ByteArrayHandle) ((ArrayHandle) ahArg[1]).m_hDelegate, iReturn);
+                return invokeDigest(frame, (DigestHandle) ahArg[0], (ArrayHandle) ahArg[1], iReturn);
             }
 
         return super.invokeNativeN(frame, method, hTarget, ahArg, iReturn);
@@ -65,14 +64,23 @@ public class xRTHasher
     /**
      * Native implementation of "Byte[] digest(Object digest, Byte[] data)".
      */
-    private int invokeDigest(Frame frame, DigestHandle hDigest, ByteArrayHandle haData, int iReturn)
+    private int invokeDigest(Frame frame, DigestHandle hDigest, ArrayHandle haData, int iReturn)
         {
         MessageDigest digest = hDigest.f_digest;
 
-        byte[] abData = xRTUInt8Delegate.getBytes(haData);
-        byte[] abSig = digest.digest(abData);
+        byte[] abSig;
+        if (haData.m_hDelegate instanceof MappedHandle hMapped)
+            {
+            // digest the (potentially huge) mapped bytes without copying them into the heap
+            digest.update(hMapped.getBuffer());
+            abSig = digest.digest();
+            }
+        else
+            {
+            abSig = digest.digest(xByteArray.getBytes(haData));
+            }
 
         return frame.assignValue(iReturn,
                 xArray.makeByteArrayHandle(abSig, Mutability.Constant));
         }
-    }
\ No newline at end of file
+    }
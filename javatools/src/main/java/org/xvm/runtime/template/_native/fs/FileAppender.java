@@ -0,0 +1,534 @@
+package org.xvm.runtime.template._native.fs;
+
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.FileChannel;
+
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Runtime;
+
+import org.xvm.util.concurrent.TimingWheel;
+
+
+/**
+ * The "group commit" append path for the OS files.
+ * <p>
+ * Every appended file has a cached open channel and a queue of pending appends. The appends are
+ * written by a single IO task at a time, which takes all the appends that have been queued (by
+ * any number of fibers) and writes them with one gathering write followed by at most one
+ * {@link FileChannel#force force}, so the cost of the write and the sync is shared by the entire
+ * batch. The appends to the same file are written in the order they were queued, and the future
+ * of an append completes only after its batch has been written (and synced, if required by the
+ * {@link SyncPolicy}). No IO thread is ever held waiting for the sync interval: the drain of a
+ * file that has been synced too recently is resumed on an IO thread by a timer.
+ * <p>
+ * The cached channels are closed when the corresponding files are deleted or moved by the
+ * runtime, and once there are more than {@link #MAX_CHANNELS} of them. Closing a file's channel
+ * happens after all the appends that have been accepted before it are written, and the appends
+ * that arrive after it go to a new channel. The {@link #close} and {@link #closeAll} methods never
+ * block: the pending appends are written by a drain on an IO thread, so an IO thread waiting for
+ * them could starve the very drain it waits for. Instead, they return a future, and the caller
+ * chains the delete or the move onto it.
+ */
+public class FileAppender
+    {
+    /**
+     * Construct a FileAppender.
+     *
+     * @param policy          the sync policy
+     * @param cIntervalNanos  the minimum interval between two syncs of the same file for the
+     *                        {@link SyncPolicy#Interval} policy
+     * @param cMaxChannels    the maximum number of the cached open channels
+     */
+    public FileAppender(SyncPolicy policy, long cIntervalNanos, int cMaxChannels)
+        {
+        f_policy         = policy;
+        f_cIntervalNanos = cIntervalNanos;
+        f_cMaxChannels   = cMaxChannels;
+        }
+
+    /**
+     * Append the specified bytes to the file.
+     *
+     * @param container  the container to schedule the IO for
+     * @param path       the file path
+     * @param ab         the bytes to append
+     *
+     * @return a future that completes when the bytes have been written
+     */
+    public CompletableFuture<Void> append(Container container, Path path, byte[] ab)
+        {
+        Path    key     = path.toAbsolutePath().normalize();
+        Pending pending = new Pending(ByteBuffer.wrap(ab), new CompletableFuture<>());
+        while (true)
+            {
+            Log log = ensureLog(container, key);
+            if (log.offer(pending))
+                {
+                if (log.f_fActive.compareAndSet(false, true))
+                    {
+                    log.scheduleDrain(container);
+                    }
+                return pending.cf();
+                }
+
+            // the log has been closed (and removed) concurrently; use its replacement
+            }
+        }
+
+    /**
+     * Close the cached channel for the specified file (if any), after writing all the appends
+     * that are still pending. Called before the file is deleted or moved, which must not happen
+     * until the returned future completes.
+     *
+     * @param container  the container to schedule the IO for
+     * @param path       the file path
+     *
+     * @return a future that completes when the pending appends have been written and the channel
+     *         has been closed
+     */
+    public CompletableFuture<Void> close(Container container, Path path)
+        {
+        Log log = f_mapLogs.remove(path.toAbsolutePath().normalize());
+        return log == null
+                ? CompletableFuture.completedFuture(null)
+                : log.close(container);
+        }
+
+    /**
+     * Close the cached channels for all the files in the specified directory and its
+     * subdirectories (see {@link #close}).
+     *
+     * @param container  the container to schedule the IO for
+     * @param pathDir    the directory path
+     *
+     * @return a future that completes when all the channels have been closed
+     */
+    public CompletableFuture<Void> closeAll(Container container, Path pathDir)
+        {
+        Path                          key    = pathDir.toAbsolutePath().normalize();
+        List<CompletableFuture<Void>> listCf = new ArrayList<>();
+        for (Path path : f_mapLogs.keySet())
+            {
+            if (path.startsWith(key))
+                {
+                listCf.add(close(container, path));
+                }
+            }
+        return CompletableFuture.allOf(listCf.toArray(new CompletableFuture[0]));
+        }
+
+    /**
+     * Metrics: the number of times the appended files have been synced to the storage device.
+     *
+     * @return the number of syncs
+     */
+    public long getSyncCount()
+        {
+        return f_cSyncs.get();
+        }
+
+    /**
+     * Obtain the log for the specified file, creating it if necessary.
+     */
+    private Log ensureLog(Container container, Path key)
+        {
+        Log log = f_mapLogs.get(key);
+        if (log == null)
+            {
+            Log logNew = new Log(key);
+            log = f_mapLogs.putIfAbsent(key, logNew);
+            if (log == null)
+                {
+                log = logNew;
+                if (f_mapLogs.size() > f_cMaxChannels)
+                    {
+                    evictOne(container, key);
+                    }
+                }
+            }
+        return log;
+        }
+
+    /**
+     * Close a cached channel (other than the specified one) to keep the number of the open
+     * channels under the limit. The channel is closed on an IO thread of the specified container,
+     * since the caller could be a service thread.
+     */
+    private void evictOne(Container container, Path keyKeep)
+        {
+        for (Map.Entry<Path, Log> entry : f_mapLogs.entrySet())
+            {
+            Path key = entry.getKey();
+            Log  log = entry.getValue();
+            if (!key.equals(keyKeep) && log.f_queue.isEmpty() && f_mapLogs.remove(key, log))
+                {
+                // there is no need to wait for the channel to get closed
+                log.close(container);
+                return;
+                }
+            }
+        }
+
+
+    // ----- inner classes -------------------------------------------------------------------------
+
+    /**
+     * A pending append.
+     */
+    private record Pending(ByteBuffer buffer, CompletableFuture<Void> cf) {}
+
+    /**
+     * The appends for a single file.
+     */
+    private class Log
+        {
+        Log(Path path)
+            {
+            f_path        = path;
+            m_ldtLastSync = System.nanoTime() - f_cIntervalNanos;
+            }
+
+        /**
+         * Queue the specified append, unless the log has been closed.
+         *
+         * @return true iff the append has been queued; false if the log is closed
+         */
+        synchronized boolean offer(Pending pending)
+            {
+            if (m_fClosed)
+                {
+                return false;
+                }
+            f_queue.add(pending);
+            return true;
+            }
+
+        /**
+         * Schedule the draining of the log on an IO thread; must only be called by the thread
+         * that has set the "active" flag.
+         *
+         * @param container  the container to schedule the IO for
+         */
+        void scheduleDrain(Container container)
+            {
+            container.scheduleIO(() ->
+                {
+                drain(container);
+                return null;
+                });
+            }
+
+        /**
+         * Write all the pending appends; only one thread at a time can drain the log, which is
+         * the thread that has set the "active" flag.
+         *
+         * @param container  the container to schedule the deferred drain for
+         */
+        void drain(Container container)
+            {
+            while (true)
+                {
+                // all the appends accepted before the log was closed are already in the queue
+                boolean fClosed = m_fClosed;
+
+                if (f_policy == SyncPolicy.Interval && !fClosed)
+                    {
+                    // let the appends that arrive within the sync interval join the batch; the
+                    // log stays active (so no other drain is scheduled) and the drain resumes on
+                    // an IO thread once the interval has passed
+                    long cWait = m_ldtLastSync + f_cIntervalNanos - System.nanoTime();
+                    if (cWait > 0)
+                        {
+                        m_timeoutSync = TIMER.schedule(() -> scheduleDrain(container),
+                                cWait, TimeUnit.NANOSECONDS);
+                        return;
+                        }
+                    }
+
+                List<Pending> listBatch = new ArrayList<>();
+                for (Pending pending; (pending = f_queue.poll()) != null;)
+                    {
+                    listBatch.add(pending);
+                    }
+
+                if (!listBatch.isEmpty())
+                    {
+                    write(listBatch);
+                    }
+
+                if (fClosed)
+                    {
+                    closeChannel();
+                    f_cfClosed.complete(null);
+                    }
+
+                f_fActive.set(false);
+
+                // an append that has been queued after the poll above (or the close) could have
+                // failed to activate the log; take care of it (unless some other thread has already)
+                if (f_queue.isEmpty() && m_fClosed == fClosed
+                        || !f_fActive.compareAndSet(false, true))
+                    {
+                    return;
+                    }
+                }
+            }
+
+        /**
+         * Write the batch of appends.
+         */
+        private void write(List<Pending> listBatch)
+            {
+            int          cBuffers = listBatch.size();
+            ByteBuffer[] aBuffer  = new ByteBuffer[cBuffers];
+            for (int i = 0; i < cBuffers; i++)
+                {
+                aBuffer[i] = listBatch.get(i).buffer();
+                }
+
+            try
+                {
+                FileChannel channel = m_channel;
+                if (channel == null)
+                    {
+                    m_channel = channel = FileChannel.open(f_path, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    }
+
+                ByteBuffer bufferLast = aBuffer[cBuffers - 1];
+                while (bufferLast.hasRemaining())
+                    {
+                    channel.write(aBuffer);
+                    }
+
+                if (f_policy != SyncPolicy.Never)
+                    {
+                    channel.force(false);
+                    m_ldtLastSync = System.nanoTime();
+                    f_cSyncs.getAndIncrement();
+                    }
+                }
+            catch (Throwable e)
+                {
+                // the state of the channel is unknown; the next batch will reopen it
+                closeChannel();
+
+                for (Pending pending : listBatch)
+                    {
+                    pending.cf().completeExceptionally(e);
+                    }
+                return;
+                }
+
+            for (Pending pending : listBatch)
+                {
+                pending.cf().complete(null);
+                }
+            }
+
+        /**
+         * Mark the log as closed, so no more appends are accepted.
+         *
+         * @return true iff the caller has become responsible for draining the log; false if some
+         *         thread is draining it already (in which case that thread is going to close it)
+         */
+        boolean markClosed()
+            {
+            synchronized (this)
+                {
+                m_fClosed = true;
+                }
+
+            if (f_fActive.compareAndSet(false, true))
+                {
+                return true;
+                }
+
+            // the drain could be waiting for the sync interval to pass; take it over, so the
+            // closing doesn't have to wait for the interval
+            TimingWheel.Timeout timeout = m_timeoutSync;
+            return timeout != null && timeout.cancel();
+            }
+
+        /**
+         * Close the log; its remaining appends are written and its channel is closed either by
+         * the drain that is already active or by a new one scheduled on an IO thread.
+         *
+         * @param container  the container to schedule the IO for
+         *
+         * @return the future that completes when the log's channel has been closed
+         */
+        CompletableFuture<Void> close(Container container)
+            {
+            if (markClosed())
+                {
+                scheduleDrain(container);
+                }
+            return f_cfClosed;
+            }
+
+        /**
+         * Close the channel (if open).
+         */
+        private void closeChannel()
+            {
+            FileChannel channel = m_channel;
+            if (channel != null)
+                {
+                m_channel = null;
+                try
+                    {
+                    channel.close();
+                    }
+                catch (IOException ignore) {}
+                }
+            }
+
+        /**
+         * The (absolute and normalized) file path.
+         */
+        private final Path f_path;
+
+        /**
+         * The pending appends.
+         */
+        private final Queue<Pending> f_queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * True while some thread is (or is about to be) draining the log.
+         */
+        private final AtomicBoolean f_fActive = new AtomicBoolean();
+
+        /**
+         * The future that completes when the log has been drained after being closed, and its
+         * channel has been closed.
+         */
+        private final CompletableFuture<Void> f_cfClosed = new CompletableFuture<>();
+
+        /**
+         * The cached channel; only accessed by the draining thread.
+         */
+        private FileChannel m_channel;
+
+        /**
+         * The time of the last sync; only accessed by the draining thread.
+         */
+        private long m_ldtLastSync;
+
+        /**
+         * The timeout that resumes the drain once the sync interval has passed; set by the
+         * draining thread.
+         */
+        private volatile TimingWheel.Timeout m_timeoutSync;
+
+        /**
+         * True iff the log has been removed from the cache and its channel must be closed; only
+         * set while holding the log's monitor, so no appends are accepted after it's been set.
+         */
+        private volatile boolean m_fClosed;
+        }
+
+    /**
+     * The policy of syncing the appended bytes to the storage device ("-Dxvm.fs.appendSync").
+     */
+    public enum SyncPolicy
+        {
+        /**
+         * Sync every batch of appends before completing them.
+         */
+        Always,
+        /**
+         * Sync every batch, but not more often than every {@link #SYNC_INTERVAL_NANOS}; the
+         * appends that arrive within the interval are written and synced as one batch.
+         */
+        Interval,
+        /**
+         * Leave it to the operating system (the default).
+         */
+        Never,
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The default sync policy for the appends.
+     */
+    public static final SyncPolicy SYNC_POLICY =
+            switch (System.getProperty("xvm.fs.appendSync", "never"))
+        {
+        case "always"   -> SyncPolicy.Always;
+        case "interval" -> SyncPolicy.Interval;
+        default         -> SyncPolicy.Never;
+        };
+
+    /**
+     * The default minimum interval between two syncs of the same file for the
+     * {@link SyncPolicy#Interval} policy ("-Dxvm.fs.appendSyncMillis").
+     */
+    public static final long SYNC_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("xvm.fs.appendSyncMillis", 10));
+
+    /**
+     * The default maximum number of the cached open channels ("-Dxvm.fs.appendChannels").
+     */
+    public static final int MAX_CHANNELS = Integer.getInteger("xvm.fs.appendChannels", 64);
+
+    /**
+     * The timer for the deferred syncs of the {@link SyncPolicy#Interval} policy.
+     */
+    private static final TimingWheel TIMER = new TimingWheel("ecstasy:FileAppender",
+            TimeUnit.MILLISECONDS.toNanos(1), Runtime::logUncaughtException).start();
+
+    /**
+     * The FileAppender used by the runtime for all the OS files.
+     */
+    public static final FileAppender INSTANCE =
+            new FileAppender(SYNC_POLICY, SYNC_INTERVAL_NANOS, MAX_CHANNELS);
+
+    /**
+     * The sync policy.
+     */
+    private final SyncPolicy f_policy;
+
+    /**
+     * The minimum interval between two syncs of the same file for the {@link SyncPolicy#Interval}
+     * policy.
+     */
+    private final long f_cIntervalNanos;
+
+    /**
+     * The maximum number of the cached open channels.
+     */
+    private final int f_cMaxChannels;
+
+    /**
+     * The appended files.
+     */
+    private final Map<Path, Log> f_mapLogs = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics: the number of syncs.
+     */
+    private final AtomicLong f_cSyncs = new AtomicLong();
+    }
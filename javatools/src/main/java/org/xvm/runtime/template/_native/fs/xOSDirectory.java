@@ -11,6 +11,9 @@ import java.nio.file.SimpleFileVisitor;
 
 import java.nio.file.attribute.BasicFileAttributes;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.Constants;
 import org.xvm.asm.MethodStructure;
@@ -99,7 +102,9 @@ public class xOSDirectory
                     return frame.assignValue(iReturn, xBoolean.FALSE);
                     }
 
-                try
+                // the appended files are deleted only after their pending appends have been
+                // written and their channels have been closed
+                Callable<Void> task = () ->
                     {
                     Files.walkFileTree(pathDir,
                         new SimpleFileVisitor<>()
@@ -120,12 +125,28 @@ public class xOSDirectory
                                return FileVisitResult.CONTINUE;
                                }
                         });
-                    return frame.assignValue(iReturn, xBoolean.TRUE);
-                    }
-                catch (IOException e)
+                    return null;
+                    };
+
+                Container               container = frame.f_context.f_container;
+                CompletableFuture<Void> cfDelete  =
+                        FileAppender.INSTANCE.closeAll(container, pathDir)
+                                             .thenCompose(v -> container.scheduleIO(task));
+
+                Frame.Continuation continuation = frameCaller ->
                     {
-                    return raisePathException(frame, e, hNode.f_path);
-                    }
+                    try
+                        {
+                        cfDelete.get();
+                        return frameCaller.assignValue(iReturn, xBoolean.TRUE);
+                        }
+                    catch (Throwable e)
+                        {
+                        return raisePathException(frameCaller, e, pathDir);
+                        }
+                    };
+
+                return frame.waitForIO(cfDelete, continuation);
                 }
             }
 
@@ -44,6 +44,8 @@ import org.xvm.runtime.template.collections.xArray.ArrayHandle;
 import org.xvm.runtime.template.collections.xArray.Mutability;
 import org.xvm.runtime.template.collections.xByteArray;
 
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate;
+
 import org.xvm.util.Handy;
 
 
@@ -203,19 +205,23 @@ public class xOSFile
      */
     private int getPropertyContents(Frame frame, NodeHandle hFile, int iReturn)
         {
-        Path path = hFile.f_path;
+        Path      path      = hFile.f_path;
+        Container container = frame.f_context.f_container;
 
-        // TODO how to limit the consumption? Need to ask the container...
-        Callable<byte[]> task = () ->
-                Handy.readFileBytes(path.toFile());
+        Callable<ByteBuffer> task = () ->
+            {
+            ByteBuffer buffer = mapBytes(container, path, 0, path.toFile().length());
+            return buffer == null
+                    ? ByteBuffer.wrap(Handy.readFileBytes(path.toFile()))
+                    : buffer;
+            };
 
-        CompletableFuture<byte[]> cfRead = frame.f_context.f_container.scheduleIO(task);
+        CompletableFuture<ByteBuffer> cfRead = container.scheduleIO(task);
         Frame.Continuation continuation = frameCaller ->
             {
             try
                 {
-                return frameCaller.assignValue(iReturn,
-                    xArray.makeByteArrayHandle(cfRead.get(), Mutability.Constant));
+                return frameCaller.assignValue(iReturn, makeBytesHandle(container, cfRead.get()));
                 }
             catch (Throwable e)
                 {
@@ -273,34 +279,38 @@ public class xOSFile
             return frame.raiseException(xException.outOfBounds(frame, ixTo, cSize));
             }
 
-        // TODO how to limit the consumption? Need to ask the container...
-        int        cCapacity = (int) (ixTo - ixFrom + 1);
-        ByteBuffer buffer    = ByteBuffer.allocate(cCapacity);
+        Container container = frame.f_context.f_container;
+        long      cBytes    = ixTo - ixFrom + 1;
 
-        Callable<Integer> task = () ->
+        Callable<ByteBuffer> task = () ->
             {
+            ByteBuffer buffer = mapBytes(container, path, ixFrom, cBytes);
+            if (buffer != null)
+                {
+                return buffer;
+                }
+
+            buffer = ByteBuffer.allocate((int) cBytes);
             try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
                 {
-                return channel.read(buffer, ixFrom);
+                while (buffer.hasRemaining())
+                    {
+                    if (channel.read(buffer, ixFrom + buffer.position()) < 0)
+                        {
+                        throw new IOException("Read failed");
+                        }
+                    }
                 }
+            return buffer.flip();
             };
 
-        CompletableFuture<Integer> cfRead = frame.f_context.f_container.scheduleIO(task);
+        CompletableFuture<ByteBuffer> cfRead = container.scheduleIO(task);
 
         Frame.Continuation continuation = frameCaller ->
             {
             try
                 {
-                if (cfRead.get() == cCapacity)
-                    {
-                    return frameCaller.assignValue(iReturn,
-                        xArray.makeByteArrayHandle(buffer.array(), Mutability.Constant));
-                    }
-                else
-                    {
-                    return frameCaller.raiseException(
-                            xException.ioException(frameCaller, "Read failed"));
-                    }
+                return frameCaller.assignValue(iReturn, makeBytesHandle(container, cfRead.get()));
                 }
             catch (Throwable e)
                 {
@@ -360,22 +370,16 @@ public class xOSFile
 
     /**
      * Implementation for: "void appendImpl(Byte[] contents)".
+     * <p>
+     * The concurrent appends to the same file are coalesced by the {@link FileAppender}.
      */
     private int invokeAppendImpl(Frame frame, NodeHandle hFile, ArrayHandle hContents)
         {
         Path   path = hFile.f_path;
         byte[] ab   = xByteArray.getBytes(hContents);
 
-        Callable<Void> task = () ->
-            {
-            try (FileOutputStream out = new FileOutputStream(path.toFile(), /*append*/ true))
-                {
-                out.write(ab);
-                return null;
-                }
-            };
-
-        CompletableFuture cfAppend = frame.f_context.f_container.scheduleIO(task);
+        CompletableFuture<Void> cfAppend =
+                FileAppender.INSTANCE.append(frame.f_context.f_container, path, ab);
 
         Frame.Continuation continuation = frameCaller ->
             {
@@ -529,6 +533,53 @@ public class xOSFile
         }
 
 
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Memory-map the specified region of a file if it is large enough and the container's budget
+     * for the mapped memory allows it; called on an IO thread.
+     * <p>
+     * Note, that the mapped bytes are not a snapshot: a concurrent change to the file is visible
+     * through the mapping, and a concurrent truncation makes the truncated part inaccessible (the
+     * access fails with an InternalError or worse); that's why the mapping is disabled unless the
+     * {@link #MAP_THRESHOLD} is explicitly specified.
+     *
+     * @return a read-only buffer holding the bytes, whose size has been charged to the container;
+     *         null if the bytes should be read into the heap instead
+     */
+    private static ByteBuffer mapBytes(Container container, Path path, long of, long cb)
+            throws IOException
+        {
+        if (MAP_THRESHOLD <= 0 || cb < MAP_THRESHOLD || cb > Integer.MAX_VALUE - 1024
+                || !container.reserveMappedMemory(cb))
+            {
+            return null;
+            }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+            {
+            return channel.map(FileChannel.MapMode.READ_ONLY, of, cb);
+            }
+        catch (IOException | RuntimeException e)
+            {
+            container.releaseMappedMemory(cb);
+            throw e;
+            }
+        }
+
+    /**
+     * Make a constant Byte array handle for the bytes produced by {@link #mapBytes} or read into
+     * the heap.
+     */
+    private static ArrayHandle makeBytesHandle(Container container, ByteBuffer buffer)
+        {
+        return buffer.hasArray()
+                ? xArray.makeByteArrayHandle(buffer.array(), Mutability.Constant)
+                : xArray.makeByteArrayHandle(
+                        xRTMappedDelegate.INSTANCE.makeHandle(container, buffer, true));
+        }
+
+
     // ----- constants -----------------------------------------------------------------------------
 
     private enum ReadOption  {NoRead, Read, Exclusive}
@@ -539,5 +590,15 @@ public class xOSFile
     private static final OpenOption[]  WRITE_ONLY = new OpenOption[] {StandardOpenOption.WRITE};
     private static final OpenOption[]  READ_WRITE = new OpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
 
+    /**
+     * The size (in bytes) starting at which the file reads are memory-mapped instead of being
+     * copied into the heap ("-Dxvm.fs.mapThreshold"); zero or negative to never map.
+     * <p>
+     * The mapping is opt-in: a mapped constant array is only as constant as the file under it, so
+     * it should only be enabled for files that are not modified or truncated while being read.
+     */
+    private static final long MAP_THRESHOLD =
+            Long.parseLong(System.getProperty("xvm.fs.mapThreshold", "0"));
+
     private static MethodStructure s_constructor;
     }
\ No newline at end of file
@@ -3,7 +3,6 @@ package org.xvm.runtime.template._native.fs;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.IOException;
 
 import java.nio.file.AccessDeniedException;
 import java.nio.file.FileAlreadyExistsException;
@@ -12,6 +11,9 @@ import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.MethodStructure;
 import org.xvm.asm.Op;
@@ -137,31 +139,43 @@ public class xOSFileStore
                     return frame.raiseException(xException.fileAlreadyExistsException(frame, "Could not overwrite file or directory: " + sDest, hDest));
                     }
 
-                Path pathResult;
-                try
-                    {
-                    pathResult = fMove
-                            ? Files.move(pathSrc, pathDest)
-                            : Files.copy(pathSrc, pathDest);
-                    }
-                catch (NoSuchFileException | FileNotFoundException e)
-                    {
-                    return frame.raiseException(xException.fileNotFoundException(frame, e.getMessage(), hSrc));
-                    }
-                catch (FileAlreadyExistsException e)
+                // the appended files are moved only after their pending appends have been written
+                // and their channels have been closed
+                Container               container = frame.f_context.f_container;
+                CompletableFuture<Path> cfCopy;
+                if (fMove)
                     {
-                    return frame.raiseException(xException.fileAlreadyExistsException(frame, e.getMessage(), hDest));
+                    CompletableFuture<Void> cfClosed = fDir
+                            ? FileAppender.INSTANCE.closeAll(container, pathSrc)
+                            : FileAppender.INSTANCE.close(container, pathSrc);
+                    cfCopy = cfClosed.thenCompose(v ->
+                            container.scheduleIO(() -> Files.move(pathSrc, pathDest)));
                     }
-                catch (SecurityException | AccessDeniedException e)
+                else
                     {
-                    return frame.raiseException(xException.accessDeniedException(frame, e.getMessage(), hDest));
-                    }
-                catch (IOException e)
-                    {
-                    return frame.raiseException(xException.ioException(frame, e.getMessage()));
+                    cfCopy = container.scheduleIO(() -> Files.copy(pathSrc, pathDest));
                     }
 
-                return xOSFileNode.createHandle(frame, hTarget, pathResult, fDir, iReturn);
+                Frame.Continuation continuation = frameCaller ->
+                    {
+                    Path pathResult;
+                    try
+                        {
+                        pathResult = cfCopy.get();
+                        }
+                    catch (ExecutionException e)
+                        {
+                        return raiseCopyException(frameCaller, e.getCause(), hSrc, hDest);
+                        }
+                    catch (Throwable e)
+                        {
+                        return raiseCopyException(frameCaller, e, hSrc, hDest);
+                        }
+
+                    return xOSFileNode.createHandle(frameCaller, hTarget, pathResult, fDir, iReturn);
+                    };
+
+                return frame.waitForIO(cfCopy, continuation);
                 }
             }
 
@@ -169,6 +183,37 @@ public class xOSFileStore
         }
 
 
+    // ----- helper methods ------------------------------------------------------------------------
+
+    /**
+     * Raise the natural exception for a failed copy or move.
+     *
+     * @param frame  the current frame
+     * @param e      the exception thrown by the copy or move
+     * @param hSrc   the source path
+     * @param hDest  the destination path
+     *
+     * @return {@link Op#R_EXCEPTION}
+     */
+    private static int raiseCopyException(Frame frame, Throwable e, ObjectHandle hSrc,
+                                          ObjectHandle hDest)
+        {
+        if (e instanceof NoSuchFileException || e instanceof FileNotFoundException)
+            {
+            return frame.raiseException(xException.fileNotFoundException(frame, e.getMessage(), hSrc));
+            }
+        if (e instanceof FileAlreadyExistsException)
+            {
+            return frame.raiseException(xException.fileAlreadyExistsException(frame, e.getMessage(), hDest));
+            }
+        if (e instanceof SecurityException || e instanceof AccessDeniedException)
+            {
+            return frame.raiseException(xException.accessDeniedException(frame, e.getMessage(), hDest));
+            }
+        return frame.raiseException(xException.ioException(frame, e.getMessage()));
+        }
+
+
     // ----- constants -----------------------------------------------------------------------------
 
     private static final File ROOT = new File("/");
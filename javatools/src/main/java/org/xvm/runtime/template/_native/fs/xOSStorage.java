@@ -13,6 +13,8 @@ import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
 
 import java.util.Map;
+
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.xvm.asm.ClassStructure;
@@ -182,8 +184,25 @@ public class xOSStorage
                     return frame.assignValue(iReturn, xBoolean.FALSE);
                     }
 
-                return frame.assignValue(iReturn,
-                    xBoolean.makeHandle(path.toFile().delete()));
+                // the appended file is deleted only after its pending appends have been written
+                // and its channel has been closed
+                Container                  container = frame.f_context.f_container;
+                CompletableFuture<Boolean> cfDelete  = FileAppender.INSTANCE.close(container, path)
+                        .thenCompose(v -> container.scheduleIO(() -> path.toFile().delete()));
+
+                Frame.Continuation continuation = frameCaller ->
+                    {
+                    try
+                        {
+                        return frameCaller.assignValue(iReturn, xBoolean.makeHandle(cfDelete.get()));
+                        }
+                    catch (Throwable e)
+                        {
+                        return xOSFileNode.raisePathException(frameCaller, e, path);
+                        }
+                    };
+
+                return frame.waitForIO(cfDelete, continuation);
                 }
 
             case "watch":  // (pathStringDir)
@@ -0,0 +1,195 @@
+package org.xvm.runtime.template._native.io;
+
+
+import java.nio.ByteBuffer;
+
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A container-wide pool of same-sized direct {@link ByteBuffer}s used by the native channels.
+ * <p>
+ * The buffers are not allocated one by one; instead, they are carved out of larger direct "slabs",
+ * which are allocated as the demand grows and are never released. The number of buffers that are
+ * in use at any time is limited by the pool's capacity.
+ */
+public class ChannelBufferPool
+    {
+    /**
+     * Construct a pool.
+     *
+     * @param cbBuffer  the size of the pooled buffers
+     * @param cbLimit   the maximum number of buffer bytes that could be in use at any time
+     */
+    public ChannelBufferPool(int cbBuffer, long cbLimit)
+        {
+        if (cbBuffer <= 0 || cbLimit < cbBuffer)
+            {
+            throw new IllegalArgumentException("Invalid buffer size " + cbBuffer + " or limit " + cbLimit);
+            }
+
+        f_cbBuffer     = cbBuffer;
+        f_cMaxBuffers  = (int) Math.min(cbLimit / cbBuffer, Integer.MAX_VALUE);
+        f_cSlabBuffers = Math.max(1, Math.min(SLAB_SIZE / cbBuffer, f_cMaxBuffers));
+        }
+
+    /**
+     * @return the size of the pooled buffers
+     */
+    public int getBufferSize()
+        {
+        return f_cbBuffer;
+        }
+
+    /**
+     * @return the maximum number of buffer bytes that could be in use at any time
+     */
+    public long getCapacityLimit()
+        {
+        return (long) f_cMaxBuffers * f_cbBuffer;
+        }
+
+    /**
+     * Metrics: the number of buffers carved out of the slabs so far.
+     */
+    public int getTotalBuffers()
+        {
+        return m_cTotalBuffers;
+        }
+
+    /**
+     * Metrics: the number of bytes in the slabs.
+     */
+    public long getTotalBytes()
+        {
+        return (long) m_cTotalBuffers * f_cbBuffer;
+        }
+
+    /**
+     * Metrics: the number of buffers that are currently in use.
+     */
+    public int getConsumedBuffers()
+        {
+        return f_atomicConsumed.get();
+        }
+
+    /**
+     * Metrics: the number of buffer bytes that are currently in use.
+     */
+    public long getConsumedBytes()
+        {
+        return (long) f_atomicConsumed.get() * f_cbBuffer;
+        }
+
+    /**
+     * Obtain a buffer.
+     *
+     * @return a cleared buffer, or null if the pool's capacity is exhausted
+     */
+    public ByteBuffer acquire()
+        {
+        AtomicInteger atomicConsumed = f_atomicConsumed;
+        while (true)
+            {
+            int cConsumed = atomicConsumed.get();
+            if (cConsumed >= f_cMaxBuffers)
+                {
+                return null;
+                }
+            if (atomicConsumed.compareAndSet(cConsumed, cConsumed + 1))
+                {
+                break;
+                }
+            }
+
+        ByteBuffer buf = f_queue.poll();
+        if (buf == null)
+            {
+            buf = allocateSlab();
+            }
+        return buf.clear();
+        }
+
+    /**
+     * Return a buffer to the pool; the caller must not use the buffer afterwards.
+     *
+     * @param buf  a buffer previously obtained from {@link #acquire}
+     */
+    public void release(ByteBuffer buf)
+        {
+        assert buf.isDirect() && buf.capacity() == f_cbBuffer;
+
+        f_queue.add(buf);
+        f_atomicConsumed.getAndDecrement();
+        }
+
+    /**
+     * Allocate a new slab, add all but one of its buffers to the queue and return that one.
+     */
+    private synchronized ByteBuffer allocateSlab()
+        {
+        // another thread may have replenished the queue while we were waiting
+        ByteBuffer buf = f_queue.poll();
+        if (buf != null)
+            {
+            return buf;
+            }
+
+        // the consumed count is capped, so the slabs never hold more than the limit
+        int        cbBuffer = f_cbBuffer;
+        int        cBuffers = Math.min(f_cSlabBuffers, f_cMaxBuffers - m_cTotalBuffers);
+        ByteBuffer bufSlab  = ByteBuffer.allocateDirect(cBuffers * cbBuffer);
+        for (int i = 1; i < cBuffers; i++)
+            {
+            f_queue.add(bufSlab.slice(i * cbBuffer, cbBuffer));
+            }
+        m_cTotalBuffers += cBuffers;
+
+        return bufSlab.slice(0, cbBuffer);
+        }
+
+
+    // ----- constants -----------------------------------------------------------------------------
+
+    /**
+     * The preferred size of a slab.
+     */
+    private static final int SLAB_SIZE = 1 << 20;
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    /**
+     * The size of the pooled buffers.
+     */
+    private final int f_cbBuffer;
+
+    /**
+     * The maximum number of buffers that could be in use at any time.
+     */
+    private final int f_cMaxBuffers;
+
+    /**
+     * The number of buffers per slab.
+     */
+    private final int f_cSlabBuffers;
+
+    /**
+     * The idle buffers.
+     */
+    private final Queue<ByteBuffer> f_queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of buffers that are in use.
+     */
+    private final AtomicInteger f_atomicConsumed = new AtomicInteger();
+
+    /**
+     * The number of buffers carved out of the slabs.
+     */
+    private volatile int m_cTotalBuffers;
+    }
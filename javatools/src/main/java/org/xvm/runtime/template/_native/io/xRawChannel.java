@@ -0,0 +1,928 @@
+package org.xvm.runtime.template._native.io;
+
+
+import java.io.IOException;
+
+import java.net.SocketOption;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.Channel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.NetworkChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.Op;
+
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.ObjectHandle.JavaLong;
+import org.xvm.runtime.ServiceContext;
+import org.xvm.runtime.TypeComposition;
+
+import org.xvm.runtime.template.xBoolean;
+import org.xvm.runtime.template.xException;
+import org.xvm.runtime.template.xService;
+
+import org.xvm.runtime.template.collections.xArray;
+import org.xvm.runtime.template.collections.xArray.ArrayHandle;
+import org.xvm.runtime.template.collections.xArray.Mutability;
+import org.xvm.runtime.template.collections.xByteArray;
+
+import org.xvm.runtime.template.numbers.xInt64;
+
+import org.xvm.runtime.template.text.xString.StringHandle;
+
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate;
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate.MappedHandle;
+
+
+/**
+ * Native implementation of the RawChannel service over a blocking NIO {@link Channel}.
+ * <p>
+ * The read and write buffers come from the container's {@link ChannelBufferPool}; they are exposed
+ * to the natural code as fixed-size Byte arrays over the pooled direct buffers (see
+ * {@link BufferHandle}), so the bytes are never copied between the channel and the natural code.
+ * Each buffer is reference counted; when the count drops to zero, the Byte array is invalidated
+ * and the buffer is returned to the pool. A buffer array passed into a different container is
+ * copied, since the pool belongs to the channel's container.
+ * <p>
+ * The reads and writes are done by the IO tasks, so a fiber waiting for data is suspended rather
+ * than blocking a service thread. The network channels use the container's network IO scheduling
+ * (see {@link Container#scheduleNetIO}), since a read from a socket could wait for an unbounded
+ * time. The socket options (e.g. "TCP_NODELAY" or "SO_RCVBUF") are exposed via the "getConfig" and
+ * "setConfig" methods; a boolean option value is represented by a single byte, and an integer one
+ * by four bytes in the big-endian order.
+ */
+public class xRawChannel
+        extends xService
+    {
+    public static xRawChannel INSTANCE;
+
+    public xRawChannel(Container container, ClassStructure structure, boolean fInstance)
+        {
+        super(container, structure, false);
+
+        if (fInstance)
+            {
+            INSTANCE = this;
+            }
+        }
+
+    @Override
+    public void initNative()
+        {
+        markNativeProperty("readable", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xBoolean.makeHandle(getChannel(hTarget).isReadable())));
+        markNativeProperty("eof", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xBoolean.makeHandle(getChannel(hTarget).m_fEOF)));
+        markNativeProperty("writable", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xBoolean.makeHandle(getChannel(hTarget).isWritable())));
+        markNativeProperty("closed", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xBoolean.makeHandle(getChannel(hTarget).m_fClosed)));
+        markNativeProperty("capacityLimit", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getCapacityLimit())));
+        markNativeProperty("fixedBufferSize", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getBufferSize())));
+        markNativeProperty("totalBuffers", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getTotalBuffers())));
+        markNativeProperty("totalBytes", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getTotalBytes())));
+        markNativeProperty("consumedBuffers", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getConsumedBuffers())));
+        markNativeProperty("consumedBytes", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(getPool(hTarget).getConsumedBytes())));
+
+        // the reference counting is thread-safe and doesn't need to be done on the service
+        markNativeMethod1("incRefCount", null, VOID, (frame, hTarget, hArg, iReturn) ->
+            invokeIncRefCount(frame, (ArrayHandle) hArg));
+        markNativeMethod1("decRefCount", null, VOID, (frame, hTarget, hArg, iReturn) ->
+            invokeDecRefCount((ArrayHandle) hArg));
+
+        markServiceMethod1("getConfig", null, null, (frame, hTarget, hArg, iReturn) ->
+            invokeGetConfig(frame, getChannel(hTarget),
+                ((StringHandle) hArg).getStringValue(), iReturn));
+        markServiceMethod1("allocate", null, null, (frame, hTarget, hArg, iReturn) ->
+            invokeAllocate(frame, getChannel(hTarget), iReturn));
+        markServiceMethodN("setConfig", null, VOID, (frame, hTarget, ahArg, iReturn) ->
+            invokeSetConfig(frame, getChannel(hTarget),
+                ((StringHandle) ahArg[0]).getStringValue(), (ArrayHandle) ahArg[1]));
+        markServiceMethodN("take", null, null, (frame, hTarget, ahArg, iReturn) ->
+            invokeTake(frame, getChannel(hTarget), iReturn));
+        markServiceMethodN("submit", null, null, (frame, hTarget, ahArg, iReturn) ->
+            invokeSubmit(frame, getChannel(hTarget), (ArrayHandle) ahArg[0],
+                ((JavaLong) ahArg[1]).getValue(), ((JavaLong) ahArg[2]).getValue(), iReturn));
+        markServiceMethodN("shutdownRead", null, VOID, (frame, hTarget, ahArg, iReturn) ->
+            {
+            getChannel(hTarget).shutdownRead();
+            return Op.R_NEXT;
+            });
+        markServiceMethodN("shutdownWrite", null, VOID, (frame, hTarget, ahArg, iReturn) ->
+            {
+            getChannel(hTarget).shutdownWrite();
+            return Op.R_NEXT;
+            });
+        markServiceMethodN("close", null, VOID, (frame, hTarget, ahArg, iReturn) ->
+            {
+            getChannel(hTarget).close();
+            return Op.R_NEXT;
+            });
+
+        invalidateTypeInfo();
+        }
+
+    /**
+     * @return the RawChannel handle for the specified target
+     */
+    private static RawChannelHandle getChannel(ObjectHandle hTarget)
+        {
+        return (RawChannelHandle) hTarget;
+        }
+
+    /**
+     * @return the buffer pool of the specified RawChannel
+     */
+    private static ChannelBufferPool getPool(ObjectHandle hTarget)
+        {
+        return getChannel(hTarget).f_pool;
+        }
+
+
+    // ----- method implementations ----------------------------------------------------------------
+
+    /**
+     * Implementation of "Byte[]|Int take()".
+     */
+    protected int invokeTake(Frame frame, RawChannelHandle hChannel, int iReturn)
+        {
+        if (hChannel.m_fClosed)
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(TAKE_CLOSED));
+            }
+        if (hChannel.m_fEOF)
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(TAKE_EOF));
+            }
+        if (hChannel.m_fInputShutdown || !(hChannel.f_channel instanceof ReadableByteChannel channel))
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(TAKE_SHUTDOWN));
+            }
+
+        ChannelBufferPool pool = hChannel.f_pool;
+        Callable<ByteBuffer> task = () ->
+            {
+            ByteBuffer buf = pool.acquire();
+            if (buf == null)
+                {
+                return null;
+                }
+
+            try
+                {
+                int cb;
+                do
+                    {
+                    cb = channel.read(buf);
+                    }
+                while (cb == 0);
+
+                if (cb < 0)
+                    {
+                    pool.release(buf);
+                    return EOF_BUFFER;
+                    }
+                return buf.flip();
+                }
+            catch (IOException | RuntimeException e)
+                {
+                pool.release(buf);
+                throw e;
+                }
+            };
+
+        CompletableFuture<ByteBuffer> cfRead = hChannel.schedule(frame.f_context.f_container, task);
+        Frame.Continuation continuation = frameCaller ->
+            {
+            ByteBuffer buf;
+            try
+                {
+                buf = cfRead.get();
+                }
+            catch (Throwable e)
+                {
+                if (e instanceof ExecutionException ee)
+                    {
+                    e = ee.getCause();
+                    }
+                if (hChannel.m_fInputShutdown && !hChannel.m_fClosed)
+                    {
+                    return frameCaller.assignValue(iReturn, xInt64.makeHandle(TAKE_SHUTDOWN));
+                    }
+                return e instanceof ClosedChannelException || hChannel.m_fClosed
+                        ? frameCaller.assignValue(iReturn, xInt64.makeHandle(TAKE_CLOSED))
+                        : frameCaller.raiseException(xException.ioException(frameCaller, e.getMessage()));
+                }
+
+            if (buf == null)
+                {
+                return frameCaller.assignValue(iReturn, xInt64.makeHandle(ERROR_CAPACITY));
+                }
+            if (buf == EOF_BUFFER)
+                {
+                if (hChannel.m_fInputShutdown)
+                    {
+                    return frameCaller.assignValue(iReturn, xInt64.makeHandle(TAKE_SHUTDOWN));
+                    }
+                hChannel.m_fEOF = true;
+                return frameCaller.assignValue(iReturn, xInt64.makeHandle(TAKE_EOF));
+                }
+            return frameCaller.assignValue(iReturn, makeBufferArray(hChannel, buf));
+            };
+
+        return frame.waitForIO(cfRead, continuation);
+        }
+
+    /**
+     * Implementation of "Int submit(Byte[] buffer, Int start, Int end)".
+     */
+    protected int invokeSubmit(Frame frame, RawChannelHandle hChannel, ArrayHandle hBytes,
+                               long ofStart, long ofEnd, int iReturn)
+        {
+        if (hChannel.m_fClosed)
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(SUBMIT_CLOSED));
+            }
+        if (!hChannel.isWritable())
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(SUBMIT_PARENT_CLOSED));
+            }
+        if (hChannel.m_exWrite != null)
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(ERROR_IO));
+            }
+
+        long cSize = hBytes.m_hDelegate.m_cSize;
+        if (ofStart < 0 || ofStart > ofEnd || ofEnd > cSize)
+            {
+            return frame.raiseException(xException.outOfBounds(frame,
+                    "start=" + ofStart + ", end=" + ofEnd + ", size=" + cSize));
+            }
+
+        int          of      = (int) ofStart;
+        int          cb      = (int) (ofEnd - ofStart);
+        ByteBuffer   buf;
+        BufferHandle hBuffer = null;
+        if (hBytes.m_hDelegate instanceof BufferHandle hBuf && hBuf.addRef())
+            {
+            // the pending write holds its own reference to the buffer
+            hBuffer = hBuf;
+            buf     = hBuf.getBuffer().slice(of, cb);
+            }
+        else
+            {
+            buf = ByteBuffer.wrap(xByteArray.getBytes(hBytes), of, cb);
+            }
+
+        hChannel.submit(frame.f_context.f_container, buf, hBuffer);
+        return frame.assignValue(iReturn, xInt64.makeHandle(0));
+        }
+
+    /**
+     * Implementation of "Byte[]|Int allocate(Boolean internal)".
+     */
+    protected int invokeAllocate(Frame frame, RawChannelHandle hChannel, int iReturn)
+        {
+        if (hChannel.m_fClosed)
+            {
+            return frame.assignValue(iReturn, xInt64.makeHandle(ALLOCATE_CLOSED));
+            }
+
+        ChannelBufferPool pool = hChannel.f_pool;
+        ByteBuffer        buf  = pool.acquire();
+        return buf == null
+                ? frame.assignValue(iReturn, xInt64.makeHandle(ALLOCATE_CAPACITY))
+                : frame.assignValue(iReturn, makeBufferArray(hChannel, buf));
+        }
+
+    /**
+     * Implementation of "Byte[] getConfig(String property)".
+     */
+    protected int invokeGetConfig(Frame frame, RawChannelHandle hChannel, String sProp, int iReturn)
+        {
+        SocketOption<?> option = findOption(hChannel, sProp);
+        if (option == null)
+            {
+            return frame.raiseException(xException.unsupported(frame, "Unknown property: " + sProp));
+            }
+
+        try
+            {
+            Object oValue = ((NetworkChannel) hChannel.f_channel).getOption(option);
+            byte[] abValue;
+            if (oValue instanceof Boolean fValue)
+                {
+                abValue = new byte[] {(byte) (fValue ? 1 : 0)};
+                }
+            else if (oValue instanceof Integer nValue)
+                {
+                abValue = ByteBuffer.allocate(4).putInt(nValue).array();
+                }
+            else
+                {
+                return frame.raiseException(xException.unsupported(frame,
+                        "Unsupported property type: " + sProp));
+                }
+            return frame.assignValue(iReturn, xArray.makeByteArrayHandle(abValue, Mutability.Constant));
+            }
+        catch (IOException | RuntimeException e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            }
+        }
+
+    /**
+     * Implementation of "void setConfig(String property, Byte[] config)".
+     */
+    @SuppressWarnings("unchecked")
+    protected int invokeSetConfig(Frame frame, RawChannelHandle hChannel, String sProp,
+                                  ArrayHandle hValue)
+        {
+        SocketOption<?> option = findOption(hChannel, sProp);
+        if (option == null)
+            {
+            return frame.raiseException(xException.unsupported(frame, "Unknown property: " + sProp));
+            }
+
+        byte[]         abValue = xByteArray.getBytes(hValue);
+        NetworkChannel channel = (NetworkChannel) hChannel.f_channel;
+        try
+            {
+            if (option.type() == Boolean.class && abValue.length == 1)
+                {
+                channel.setOption((SocketOption<Boolean>) option, abValue[0] != 0);
+                }
+            else if (option.type() == Integer.class && abValue.length == 4)
+                {
+                channel.setOption((SocketOption<Integer>) option, ByteBuffer.wrap(abValue).getInt());
+                }
+            else
+                {
+                return frame.raiseException(xException.illegalArgument(frame,
+                        "Invalid value for property: " + sProp));
+                }
+            return Op.R_NEXT;
+            }
+        catch (IOException | RuntimeException e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            }
+        }
+
+    /**
+     * Find a socket option supported by the channel by its name (e.g. "TCP_NODELAY").
+     *
+     * @return the option or null if the channel is not a network channel or does not support an
+     *         option with the specified name
+     */
+    private static SocketOption<?> findOption(RawChannelHandle hChannel, String sName)
+        {
+        if (hChannel.f_channel instanceof NetworkChannel channel)
+            {
+            for (SocketOption<?> option : channel.supportedOptions())
+                {
+                if (option.name().equals(sName))
+                    {
+                    return option;
+                    }
+                }
+            }
+        return null;
+        }
+
+    /**
+     * Implementation of "void incRefCount(Byte[] buffer)".
+     */
+    protected int invokeIncRefCount(Frame frame, ArrayHandle hBytes)
+        {
+        if (hBytes.m_hDelegate instanceof BufferHandle hBuf && !hBuf.addRef())
+            {
+            return frame.raiseException(xException.illegalState(frame, "Buffer has been released"));
+            }
+        return Op.R_NEXT;
+        }
+
+    /**
+     * Implementation of "void decRefCount(Byte[] buffer)".
+     */
+    protected int invokeDecRefCount(ArrayHandle hBytes)
+        {
+        if (hBytes.m_hDelegate instanceof BufferHandle hBuf)
+            {
+            hBuf.release();
+            }
+        return Op.R_NEXT;
+        }
+
+    /**
+     * Make a new Byte array for the specified pooled buffer.
+     *
+     * @param hChannel  the channel whose pool the buffer came from
+     * @param buf       the buffer; its remaining bytes make up the array
+     */
+    protected ArrayHandle makeBufferArray(RawChannelHandle hChannel, ByteBuffer buf)
+        {
+        return xArray.makeByteArrayHandle(new BufferHandle(
+                xRTMappedDelegate.INSTANCE.getCanonicalClass(), hChannel.f_context.f_container,
+                hChannel.f_pool, buf));
+        }
+
+
+    // ----- ObjectHandle --------------------------------------------------------------------------
+
+    /**
+     * Create a RawChannel service for the specified NIO channel.
+     *
+     * @param container  the container that the channel belongs to
+     * @param channel    a blocking channel; it will be closed when the RawChannel is closed
+     * @param sName      the service name
+     *
+     * @return the service handle
+     */
+    public RawChannelHandle createHandle(Container container, Channel channel, String sName)
+        {
+        if (channel instanceof SelectableChannel channelSel && !channelSel.isBlocking())
+            {
+            throw new IllegalArgumentException("Non-blocking channel: " + channel);
+            }
+
+        ServiceContext   context  = container.createServiceContext(sName);
+        RawChannelHandle hChannel = new RawChannelHandle(getCanonicalClass(container), context,
+                                        channel, container.getChannelBufferPool());
+        context.setService(hChannel);
+        return hChannel;
+        }
+
+    /**
+     * The RawChannel service handle.
+     */
+    public static class RawChannelHandle
+            extends ServiceHandle
+        {
+        protected RawChannelHandle(TypeComposition clazz, ServiceContext context,
+                                   Channel channel, ChannelBufferPool pool)
+            {
+            super(clazz, context);
+
+            f_channel = channel;
+            f_pool    = pool;
+            f_fNet    = channel instanceof NetworkChannel;
+            }
+
+        /**
+         * @return true iff data could be read from the channel
+         */
+        public boolean isReadable()
+            {
+            return !m_fClosed && !m_fEOF && !m_fInputShutdown
+                    && f_channel instanceof ReadableByteChannel;
+            }
+
+        /**
+         * @return true iff data could be written to the channel
+         */
+        public boolean isWritable()
+            {
+            return !m_fClosed && !m_fOutputShutdown && m_exWrite == null
+                    && f_channel instanceof WritableByteChannel;
+            }
+
+        /**
+         * Schedule an IO task for this channel.
+         *
+         * @param container  the container to schedule the IO on
+         * @param task       the task
+         *
+         * @return a CompletableFuture associated with the scheduled task
+         */
+        protected <R> CompletableFuture<R> schedule(Container container, Callable<R> task)
+            {
+            return f_fNet
+                    ? container.scheduleNetIO(task)
+                    : container.scheduleIO(task);
+            }
+
+        /**
+         * Queue up a write; the writes are done in order by a single IO task at a time, which
+         * gathers all the queued buffers into as few channel writes as possible.
+         *
+         * @param container  the container to schedule the IO on
+         * @param buf        the bytes to write
+         * @param hBuffer    the pooled buffer holding the bytes, to be released after the write,
+         *                   or null
+         */
+        protected void submit(Container container, ByteBuffer buf, BufferHandle hBuffer)
+            {
+            f_queueWrite.add(new PendingWrite(buf, hBuffer));
+            scheduleWrites(container);
+            }
+
+        /**
+         * Stop reading from the channel; a socket's input is shut down right away.
+         */
+        protected void shutdownRead()
+            {
+            if (!m_fInputShutdown && !m_fClosed)
+                {
+                m_fInputShutdown = true;
+
+                if (f_channel instanceof SocketChannel channel)
+                    {
+                    try
+                        {
+                        channel.shutdownInput();
+                        }
+                    catch (IOException ignore) {}
+                    }
+                }
+            }
+
+        /**
+         * Stop writing to the channel; a socket's output is shut down once all the pending writes
+         * are done.
+         */
+        protected void shutdownWrite()
+            {
+            if (!m_fOutputShutdown && !m_fClosed)
+                {
+                m_fOutputShutdown = true;
+
+                if (f_queueWrite.isEmpty() && !f_atomicWriting.get())
+                    {
+                    shutdownOutput();
+                    }
+                else
+                    {
+                    scheduleWrites(f_context.f_container);
+                    }
+                }
+            }
+
+        /**
+         * Close the channel once all the pending writes are done.
+         */
+        protected void close()
+            {
+            if (!m_fClosed)
+                {
+                m_fClosed = true;
+
+                if (f_queueWrite.isEmpty() && !f_atomicWriting.get())
+                    {
+                    closeChannel();
+                    }
+                else
+                    {
+                    scheduleWrites(f_context.f_container);
+                    }
+                }
+            }
+
+        private void scheduleWrites(Container container)
+            {
+            if (f_atomicWriting.compareAndSet(false, true))
+                {
+                schedule(container, this::writePending);
+                }
+            }
+
+        /**
+         * The write task; called on an IO thread.
+         */
+        private Void writePending()
+            {
+            do
+                {
+                try
+                    {
+                    List<PendingWrite> listWrite;
+                    while (!(listWrite = pollWrites()).isEmpty())
+                        {
+                        write(listWrite);
+                        }
+                    }
+                finally
+                    {
+                    f_atomicWriting.set(false);
+                    }
+                }
+            // a write could have been queued after the last poll
+            while (!f_queueWrite.isEmpty() && f_atomicWriting.compareAndSet(false, true));
+
+            if (m_fClosed)
+                {
+                closeChannel();
+                }
+            else if (m_fOutputShutdown)
+                {
+                shutdownOutput();
+                }
+            return null;
+            }
+
+        private List<PendingWrite> pollWrites()
+            {
+            List<PendingWrite> listWrite = new ArrayList<>();
+            for (PendingWrite write; listWrite.size() < MAX_GATHER
+                    && (write = f_queueWrite.poll()) != null; )
+                {
+                listWrite.add(write);
+                }
+            return listWrite;
+            }
+
+        private void write(List<PendingWrite> listWrite)
+            {
+            try
+                {
+                if (m_exWrite == null)
+                    {
+                    WritableByteChannel channel = (WritableByteChannel) f_channel;
+                    if (channel instanceof GatheringByteChannel channelGather)
+                        {
+                        ByteBuffer[] abuf = new ByteBuffer[listWrite.size()];
+                        for (int i = 0, c = abuf.length; i < c; i++)
+                            {
+                            abuf[i] = listWrite.get(i).buf();
+                            }
+
+                        for (int i = 0, c = abuf.length; i < c; )
+                            {
+                            channelGather.write(abuf, i, c - i);
+                            while (i < c && !abuf[i].hasRemaining())
+                                {
+                                i++;
+                                }
+                            }
+                        }
+                    else
+                        {
+                        for (PendingWrite write : listWrite)
+                            {
+                            ByteBuffer buf = write.buf();
+                            while (buf.hasRemaining())
+                                {
+                                channel.write(buf);
+                                }
+                            }
+                        }
+                    }
+                }
+            catch (IOException | RuntimeException e)
+                {
+                m_exWrite = e;
+                }
+            finally
+                {
+                for (PendingWrite write : listWrite)
+                    {
+                    if (write.hBuffer() != null)
+                        {
+                        write.hBuffer().release();
+                        }
+                    }
+                }
+            }
+
+        private void shutdownOutput()
+            {
+            if (f_channel instanceof SocketChannel channel)
+                {
+                try
+                    {
+                    channel.shutdownOutput();
+                    }
+                catch (IOException ignore) {}
+                }
+            }
+
+        private void closeChannel()
+            {
+            try
+                {
+                f_channel.close();
+                }
+            catch (IOException ignore) {}
+            }
+
+        @Override
+        public String toString()
+            {
+            return super.toString() + " " + f_channel;
+            }
+
+        /**
+         * The underlying channel.
+         */
+        protected final Channel f_channel;
+
+        /**
+         * The pool of the buffers.
+         */
+        protected final ChannelBufferPool f_pool;
+
+        /**
+         * True iff the channel is a network channel.
+         */
+        protected final boolean f_fNet;
+
+        /**
+         * The queue of the pending writes.
+         */
+        private final Queue<PendingWrite> f_queueWrite = new ConcurrentLinkedQueue<>();
+
+        /**
+         * True while the write task is scheduled or running.
+         */
+        private final AtomicBoolean f_atomicWriting = new AtomicBoolean();
+
+        /**
+         * True iff the channel reached its end.
+         */
+        protected volatile boolean m_fEOF;
+
+        /**
+         * True iff the RawChannel has been closed.
+         */
+        protected volatile boolean m_fClosed;
+
+        /**
+         * True iff the "shutdownRead" method has been called.
+         */
+        protected volatile boolean m_fInputShutdown;
+
+        /**
+         * True iff the "shutdownWrite" method has been called.
+         */
+        protected volatile boolean m_fOutputShutdown;
+
+        /**
+         * The exception that failed a write, if any; no further writes are attempted.
+         */
+        protected volatile Exception m_exWrite;
+        }
+
+    /**
+     * A write waiting in the queue.
+     */
+    private record PendingWrite(ByteBuffer buf, BufferHandle hBuffer) {}
+
+    /**
+     * A fixed-size Byte array delegate over a pooled buffer.
+     */
+    public static class BufferHandle
+            extends MappedHandle
+        {
+        protected BufferHandle(TypeComposition clazz, Container container,
+                               ChannelBufferPool pool, ByteBuffer buf)
+            {
+            super(clazz, buf, Mutability.Fixed);
+
+            f_container = container;
+            f_pool      = pool;
+            f_bufPool   = buf;
+            }
+
+        /**
+         * Add a reference to the buffer.
+         *
+         * @return false iff the buffer has already been released
+         */
+        public boolean addRef()
+            {
+            AtomicInteger atomicRefs = f_atomicRefs;
+            while (true)
+                {
+                int cRefs = atomicRefs.get();
+                if (cRefs <= 0)
+                    {
+                    return false;
+                    }
+                if (atomicRefs.compareAndSet(cRefs, cRefs + 1))
+                    {
+                    return true;
+                    }
+                }
+            }
+
+        /**
+         * Remove a reference to the buffer; the last one invalidates this array and returns the
+         * buffer to the pool.
+         */
+        public void release()
+            {
+            AtomicInteger atomicRefs = f_atomicRefs;
+            while (true)
+                {
+                int cRefs = atomicRefs.get();
+                if (cRefs <= 0)
+                    {
+                    // already released
+                    return;
+                    }
+                if (atomicRefs.compareAndSet(cRefs, cRefs - 1))
+                    {
+                    if (cRefs == 1)
+                        {
+                        invalidate();
+                        f_pool.release(f_bufPool);
+                        }
+                    return;
+                    }
+                }
+            }
+
+        @Override
+        public boolean isPassThrough(Container container)
+            {
+            // the buffers are passed between the services of the owning container by the reference
+            // counting protocol; any other container gets a copy (see xArray.createProxyHandle)
+            return container == null || container == f_container;
+            }
+
+        /**
+         * The container that owns the pool.
+         */
+        private final Container f_container;
+
+        /**
+         * The pool to return the buffer to.
+         */
+        private final ChannelBufferPool f_pool;
+
+        /**
+         * The pooled buffer.
+         */
+        private final ByteBuffer f_bufPool;
+
+        /**
+         * The reference count.
+         */
+        private final AtomicInteger f_atomicRefs = new AtomicInteger(1);
+        }
+
+
+    // ----- constants -----------------------------------------------------------------------------
+
+    /**
+     * The status codes returned by "take()".
+     */
+    private static final int TAKE_EOF      = -1;
+    private static final int TAKE_SHUTDOWN = -2;
+    private static final int TAKE_CLOSED   = -3;
+
+    /**
+     * The status codes returned by "submit()".
+     */
+    private static final int SUBMIT_CLOSED        = -1;
+    private static final int SUBMIT_PARENT_CLOSED = -2;
+
+    /**
+     * The status codes returned by "allocate()".
+     */
+    private static final int ALLOCATE_CAPACITY = -1;
+    private static final int ALLOCATE_CLOSED   = -2;
+
+    /**
+     * The channel specific error codes: an I/O failure and an exhausted buffer pool.
+     */
+    private static final int ERROR_IO       = 1;
+    private static final int ERROR_CAPACITY = 2;
+
+    /**
+     * The maximum number of buffers gathered into a single write.
+     */
+    private static final int MAX_GATHER = 64;
+
+    /**
+     * The marker returned by a read task that reached the end of the channel.
+     */
+    private static final ByteBuffer EOF_BUFFER = ByteBuffer.allocate(0);
+    }
@@ -18,12 +18,17 @@ import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 
+import org.xvm.runtime.template.xException;
 import org.xvm.runtime.template.xNullable;
 import org.xvm.runtime.template.xService.ServiceHandle;
 
 import org.xvm.runtime.template.collections.xTuple;
 import org.xvm.runtime.template.collections.xTuple.TupleHandle;
 
+import org.xvm.runtime.template.numbers.BaseDecFP.DecimalHandle;
+import org.xvm.runtime.template.numbers.xDec64;
+import org.xvm.runtime.template.numbers.xInt64;
+
 import org.xvm.runtime.template.text.xString.StringHandle;
 
 import org.xvm.runtime.template._native.xRTServiceControl;
@@ -31,6 +36,8 @@ import org.xvm.runtime.template._native.xRTServiceControl;
 import org.xvm.runtime.template._native.reflect.xRTFunction;
 import org.xvm.runtime.template._native.reflect.xRTFunction.FunctionHandle;
 
+import org.xvm.type.Decimal;
+
 
 /**
  * Native implementation of _native.mgmt.ContainerControl class.
@@ -58,8 +65,12 @@ public class xContainerControl
 
         m_clzControl = ensureClass(f_container, getCanonicalType(), typeMask);
 
+        initDurationClasses();
+
         markNativeProperty("mainService");
         markNativeProperty("innerTypeSystem");
+        markNativeProperty("schedulingPriority");
+        markNativeProperty("pendingIO");
 
         markNativeMethod("invoke", null, null);
         markNativeMethod("kill",   VOID, VOID);
@@ -81,11 +92,61 @@ public class xContainerControl
 
             case "innerTypeSystem":
                 return getPropertyTypeSystem(frame, container, iReturn);
+
+            case "schedulingPriority":
+                return frame.assignValue(iReturn,
+                        xDec64.INSTANCE.makeHandle(toPriority(container.getSchedulingWeight())));
+
+            case "timeSlice":
+                return frame.assignValue(iReturn, makeDuration(container.getTimeSlice()));
+
+            case "pendingIO":
+                return frame.assignValue(iReturn,
+                        xInt64.makeHandle(container.getIOInFlightCount()));
             }
 
         return super.invokeNativeGet(frame, sPropName, hTarget, iReturn);
         }
 
+    @Override
+    public int invokeNativeSet(Frame frame, ObjectHandle hTarget, String sPropName,
+                               ObjectHandle hValue)
+        {
+        Container container = ((ControlHandle) hTarget).f_container;
+        switch (sPropName)
+            {
+            case "schedulingPriority":
+                {
+                Decimal dec = ((DecimalHandle) hValue).getValue();
+                double  dPriority;
+                if (!dec.isFinite() ||
+                        (dPriority = dec.toBigDecimal().doubleValue()) < 0 || dPriority > 1)
+                    {
+                    return frame.raiseException(xException.illegalArgument(frame,
+                            "Invalid scheduling priority: " + dec));
+                    }
+                container.setSchedulingWeight(toWeight(dPriority));
+                return Op.R_NEXT;
+                }
+
+            case "timeSlice":
+                {
+                // the time slice of a container applies to all its services (and the nested
+                // containers) that don't specify their own
+                long cNanos = getDurationNanos(hValue);
+                if (cNanos < 0)
+                    {
+                    return frame.raiseException(xException.illegalArgument(frame,
+                            "Invalid time slice: " + hValue));
+                    }
+                container.setTimeSlice(cNanos);
+                return Op.R_NEXT;
+                }
+            }
+
+        return super.invokeNativeSet(frame, hTarget, sPropName, hValue);
+        }
+
     @Override
     public int invokeNativeN(Frame frame, MethodStructure method, ObjectHandle hTarget,
                              ObjectHandle[] ahArg, int iReturn)
@@ -188,6 +249,35 @@ public class xContainerControl
         }
 
 
+    /**
+     * The scheduling priority is the probability that a backlogged container runs before a
+     * backlogged sibling with the default priority, which is the ratio of their scheduling weights.
+     *
+     * @param cWeight  the container's scheduling weight
+     *
+     * @return the corresponding priority in the range [0..1]; 0.5 for the default weight
+     */
+    public static double toPriority(int cWeight)
+        {
+        return (double) cWeight / (cWeight + Container.DEFAULT_SCHEDULING_WEIGHT);
+        }
+
+    /**
+     * @param dPriority  the scheduling priority in the range [0..1]
+     *
+     * @return the corresponding scheduling weight (see {@link #toPriority}); even the lowest
+     *         priority container gets some share of the processing
+     */
+    public static int toWeight(double dPriority)
+        {
+        int cDefault = Container.DEFAULT_SCHEDULING_WEIGHT;
+        return dPriority >= 1
+                ? MAX_SCHEDULING_WEIGHT
+                : (int) Math.max(1, Math.min(MAX_SCHEDULING_WEIGHT,
+                        Math.round(cDefault * dPriority / (1 - dPriority))));
+        }
+
+
     // ----- ObjectHandle --------------------------------------------------------------------------
 
     public ObjectHandle makeHandle(Container container)
@@ -217,5 +307,10 @@ public class xContainerControl
         protected final Container f_container;
         }
 
+    /**
+     * The scheduling weight of the highest priority container.
+     */
+    private static final int MAX_SCHEDULING_WEIGHT = Container.DEFAULT_SCHEDULING_WEIGHT << 6;
+
     private TypeComposition m_clzControl;
     }
\ No newline at end of file
@@ -29,13 +29,11 @@ import org.xvm.runtime.template.xService;
 
 import org.xvm.runtime.template.collections.xArray;
 import org.xvm.runtime.template.collections.xArray.ArrayHandle;
+import org.xvm.runtime.template.collections.xByteArray;
 
 import org.xvm.runtime.template.text.xString;
 import org.xvm.runtime.template.text.xString.StringHandle;
 
-import org.xvm.runtime.template._native.collections.arrays.ByteBasedDelegate.ByteArrayHandle;
-import org.xvm.runtime.template._native.collections.arrays.xRTUInt8Delegate;
-
 import org.xvm.runtime.template._native.reflect.xRTComponentTemplate.ComponentTemplateHandle;
 import org.xvm.runtime.template._native.reflect.xRTFileTemplate;
 import org.xvm.runtime.template._native.reflect.xRTType;
@@ -107,7 +105,7 @@ public class xContainerLinker
                 try
                     {
                     ArrayHandle   hContents  = (ArrayHandle) hArg;
-                    byte[]        abContents = xRTUInt8Delegate.getBytes((ByteArrayHandle) hContents.m_hDelegate);
+                    byte[]        abContents = xByteArray.getBytes(hContents);
                     FileStructure struct = new FileStructure(new ByteArrayInputStream(abContents));
 
                     return frame.assignValue(iReturn, xRTFileTemplate.makeHandle(frame.f_context.f_container, struct));
@@ -1,9 +1,25 @@
 package org.xvm.runtime.template._native.net;
 
 
+import java.io.IOException;
+
+import java.net.BindException;
+import java.net.ConnectException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
+import java.net.NoRouteToHostException;
 import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.net.UnknownHostException;
+
+import java.nio.channels.Channel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.MethodStructure;
@@ -23,12 +39,20 @@ import org.xvm.runtime.template.xBoolean.BooleanHandle;
 import org.xvm.runtime.template.xException;
 import org.xvm.runtime.template.xService;
 
+import org.xvm.runtime.template._native.io.xRawChannel;
+import org.xvm.runtime.template._native.io.xRawChannel.RawChannelHandle;
+
+import org.xvm.runtime.template._native.net.xRTServerSocket.ServerSocketHandle;
+
 import org.xvm.runtime.template._native.reflect.xRTFunction;
 
 import org.xvm.runtime.template.collections.xArray;
 import org.xvm.runtime.template.collections.xArray.ArrayHandle;
+import org.xvm.runtime.template.collections.xArray.Mutability;
 import org.xvm.runtime.template.collections.xByteArray;
 
+import org.xvm.runtime.template.numbers.xUInt16;
+
 import org.xvm.runtime.template.text.xString;
 
 /**
@@ -201,7 +225,6 @@ public class xRTNetwork
 
             case "nativeConnect":   // conditional Socket nativeConnect(Byte[] remoteAddressBytes,
                                     // UInt16 remotePort, Byte[] localAddressBytes, UInt16 localPort)
-                // TODO conditional ServerSocket nativeListen(Byte[] localAddressBytes, UInt16 localPort)
                 {
                 byte[] abRemoteIP  = xByteArray.getBytes((ArrayHandle) ahArg[0]);
                 int    nRemotePort = (int) ((JavaLong) ahArg[1]).getValue();
@@ -209,12 +232,16 @@ public class xRTNetwork
                 int    nLocalPort  = (int) ((JavaLong) ahArg[3]).getValue();
                 try
                     {
-                    // TODO
-                    return frame.assignValue(aiReturn[0], xBoolean.FALSE);
+                    InetSocketAddress addrRemote = new InetSocketAddress(
+                            InetAddress.getByAddress(abRemoteIP), nRemotePort);
+                    InetSocketAddress addrLocal  = abLocalIP.length == 0
+                            ? null
+                            : new InetSocketAddress(InetAddress.getByAddress(abLocalIP), nLocalPort);
+                    return invokeConnect(frame, addrRemote, addrLocal, aiReturn);
                     }
-                catch (Exception e)
+                catch (UnknownHostException e)
                     {
-                    return frame.raiseException(xException.makeHandle(frame, e.getMessage()));
+                    return frame.raiseException(xException.illegalArgument(frame, e.getMessage()));
                     }
                 }
 
@@ -224,12 +251,13 @@ public class xRTNetwork
                 int    nLocalPort = (int) ((JavaLong) ahArg[1]).getValue();
                 try
                     {
-                    // TODO
-                    return frame.assignValue(aiReturn[0], xBoolean.FALSE);
+                    return invokeListen(frame, ahArg[0],
+                            new InetSocketAddress(InetAddress.getByAddress(abLocalIP), nLocalPort),
+                            aiReturn);
                     }
-                catch (Exception e)
+                catch (UnknownHostException e)
                     {
-                    return frame.raiseException(xException.makeHandle(frame, e.getMessage()));
+                    return frame.raiseException(xException.illegalArgument(frame, e.getMessage()));
                     }
                 }
 
@@ -281,6 +309,190 @@ public class xRTNetwork
         }
 
 
+    /**
+     * Implementation of "conditional Socket nativeConnect(...)" method. The connection is
+     * established by a network IO task, so the calling fiber is suspended until it completes.
+     *
+     * @param addrLocal  the local address to bind the socket to, or null
+     */
+    protected int invokeConnect(Frame frame, InetSocketAddress addrRemote,
+                                InetSocketAddress addrLocal, int[] aiReturn)
+        {
+        Callable<SocketChannel> task = () ->
+            {
+            SocketChannel channel = SocketChannel.open();
+            try
+                {
+                if (addrLocal != null)
+                    {
+                    channel.bind(addrLocal);
+                    }
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.connect(addrRemote);
+                return channel;
+                }
+            catch (IOException | RuntimeException e)
+                {
+                channel.close();
+                throw e;
+                }
+            };
+
+        CompletableFuture<SocketChannel> cfConnect = frame.f_context.f_container.scheduleNetIO(task);
+        Frame.Continuation continuation = frameCaller ->
+            {
+            SocketChannel channel;
+            try
+                {
+                channel = cfConnect.get();
+                }
+            catch (Throwable e)
+                {
+                if (e instanceof ExecutionException ee)
+                    {
+                    e = ee.getCause();
+                    }
+                return e instanceof ConnectException || e instanceof NoRouteToHostException
+                        ? frameCaller.assignValue(aiReturn[0], xBoolean.FALSE)
+                        : frameCaller.raiseException(xException.ioException(frameCaller, e.getMessage()));
+                }
+
+            return createSocket(frameCaller, channel, frameSocket ->
+                    frameSocket.assignValues(aiReturn, xBoolean.TRUE, frameSocket.popStack()));
+            };
+
+        return frame.waitForIO(cfConnect, continuation);
+        }
+
+    /**
+     * Implementation of "conditional ServerSocket nativeListen(...)" method.
+     *
+     * @param hAddress   the local address bytes
+     * @param addrLocal  the local address to listen on
+     */
+    protected int invokeListen(Frame frame, ObjectHandle hAddress, InetSocketAddress addrLocal,
+                               int[] aiReturn)
+        {
+        ServerSocketChannel channel;
+        try
+            {
+            channel = ServerSocketChannel.open();
+            try
+                {
+                channel.bind(addrLocal, xRTServerSocket.BACKLOG);
+                }
+            catch (IOException | RuntimeException e)
+                {
+                channel.close();
+                throw e;
+                }
+            }
+        catch (BindException e)
+            {
+            return frame.assignValue(aiReturn[0], xBoolean.FALSE);
+            }
+        catch (IOException e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            }
+
+        ClassTemplate    template = xRTServerSocket.INSTANCE;
+        ClassComposition clz      = template.getCanonicalClass();
+        MethodStructure  ctor     = template.getStructure().findMethod("construct", 2);
+        ObjectHandle[]   ahParams = new ObjectHandle[ctor.getMaxVars()];
+        ahParams[0] = hAddress;
+        ahParams[1] = xUInt16.INSTANCE.makeJavaLong(channel.socket().getLocalPort());
+
+        Frame.Continuation continuation = frameCaller ->
+            {
+            ServerSocketHandle hServer = (ServerSocketHandle) frameCaller.popStack();
+            hServer.setChannel(channel);
+            return frameCaller.assignValues(aiReturn, xBoolean.TRUE, hServer);
+            };
+
+        return finishConstruct(frame,
+                template.construct(frame, ctor, clz, null, ahParams, Op.A_STACK), continuation, channel);
+        }
+
+    /**
+     * Create an RTSocket service for the specified connected channel.
+     *
+     * @param frame         the current frame
+     * @param channel       the connected channel
+     * @param continuation  the continuation to call with the socket handle on the frame's stack
+     *
+     * @return one of Op.R_NEXT, Op.R_CALL or Op.R_EXCEPTION values
+     */
+    public int createSocket(Frame frame, SocketChannel channel, Frame.Continuation continuation)
+        {
+        InetSocketAddress addrLocal;
+        InetSocketAddress addrRemote;
+        try
+            {
+            addrLocal  = (InetSocketAddress) channel.getLocalAddress();
+            addrRemote = (InetSocketAddress) channel.getRemoteAddress();
+            }
+        catch (IOException e)
+            {
+            closeQuietly(channel);
+            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            }
+
+        RawChannelHandle hChannel = xRawChannel.INSTANCE.createHandle(
+                frame.f_context.f_container, channel, "Socket");
+
+        ClassTemplate    template = f_container.getTemplate("_native.net.RTSocket");
+        ClassComposition clz      = template.getCanonicalClass();
+        MethodStructure  ctor     = template.getStructure().findMethod("construct", 5);
+        ObjectHandle[]   ahParams = new ObjectHandle[ctor.getMaxVars()];
+        ahParams[0] = xArray.makeByteArrayHandle(addrLocal.getAddress().getAddress(), Mutability.Constant);
+        ahParams[1] = xUInt16.INSTANCE.makeJavaLong(addrLocal.getPort());
+        ahParams[2] = xArray.makeByteArrayHandle(addrRemote.getAddress().getAddress(), Mutability.Constant);
+        ahParams[3] = xUInt16.INSTANCE.makeJavaLong(addrRemote.getPort());
+        ahParams[4] = hChannel;
+
+        return finishConstruct(frame,
+                template.construct(frame, ctor, clz, null, ahParams, Op.A_STACK), continuation, channel);
+        }
+
+    /**
+     * Proceed with the result of a service construction.
+     *
+     * @param iResult       the result of the "construct" call
+     * @param continuation  the continuation to call with the service handle on the frame's stack
+     * @param channel       the channel to close if the construction fails
+     */
+    private static int finishConstruct(Frame frame, int iResult, Frame.Continuation continuation,
+                                       Channel channel)
+        {
+        switch (iResult)
+            {
+            case Op.R_NEXT:
+                return continuation.proceed(frame);
+
+            case Op.R_EXCEPTION:
+                closeQuietly(channel);
+                return Op.R_EXCEPTION;
+
+            case Op.R_CALL:
+                frame.m_frameNext.addContinuation(continuation);
+                return Op.R_CALL;
+
+            default:
+                throw new IllegalStateException();
+            }
+        }
+
+    private static void closeQuietly(Channel channel)
+        {
+        try
+            {
+            channel.close();
+            }
+        catch (IOException ignore) {}
+        }
+
+
     // ----- constants and fields ------------------------------------------------------------------
 
     /**
@@ -0,0 +1,191 @@
+package org.xvm.runtime.template._native.net;
+
+
+import java.io.IOException;
+
+import java.net.StandardSocketOptions;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.Constants;
+import org.xvm.asm.Op;
+
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.ServiceContext;
+import org.xvm.runtime.TypeComposition;
+
+import org.xvm.runtime.template.xException;
+import org.xvm.runtime.template.xService;
+
+
+/**
+ * Native implementation of the RTServerSocket service over a blocking NIO
+ * {@link ServerSocketChannel}.
+ * <p>
+ * The connections are only accepted when the natural code asks for them; until then, they are
+ * kept in the operating system's accept queue (see {@link #BACKLOG}), which throttles the clients
+ * of a server that cannot keep up with them.
+ */
+public class xRTServerSocket
+        extends xService
+    {
+    public static xRTServerSocket INSTANCE;
+
+    public xRTServerSocket(Container container, ClassStructure structure, boolean fInstance)
+        {
+        super(container, structure, false);
+
+        if (fInstance)
+            {
+            INSTANCE = this;
+            }
+        }
+
+    @Override
+    public void initNative()
+        {
+        // Socket accept()
+        markServiceMethodN("accept", null, null, (frame, hTarget, ahArg, iReturn) ->
+            invokeAccept(frame, (ServerSocketHandle) hTarget, iReturn));
+
+        // void close(Exception? cause = Null); it's not done on the service, so it can interrupt
+        // a pending accept
+        markNativeMethod1("close", null, VOID, (frame, hTarget, hArg, iReturn) ->
+            {
+            ((ServerSocketHandle) hTarget).close();
+            return Op.R_NEXT;
+            });
+
+        invalidateTypeInfo();
+        }
+
+    @Override
+    protected ServiceHandle createStructHandle(TypeComposition clazz, ServiceContext context)
+        {
+        return new ServerSocketHandle(clazz.ensureAccess(Constants.Access.STRUCT), context);
+        }
+
+
+    // ----- method implementations ----------------------------------------------------------------
+
+    /**
+     * Implementation of "Socket accept()".
+     */
+    protected int invokeAccept(Frame frame, ServerSocketHandle hServer, int iReturn)
+        {
+        ServerSocketChannel channelServer = hServer.getChannel();
+        if (channelServer == null || !channelServer.isOpen())
+            {
+            return frame.raiseException(xException.ioException(frame, "ServerSocket is closed"));
+            }
+
+        Callable<SocketChannel> task = () ->
+            {
+            SocketChannel channel = channelServer.accept();
+            try
+                {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                }
+            catch (IOException e)
+                {
+                channel.close();
+                throw e;
+                }
+            return channel;
+            };
+
+        CompletableFuture<SocketChannel> cfAccept = frame.f_context.f_container.scheduleNetIO(task);
+        Frame.Continuation continuation = frameCaller ->
+            {
+            SocketChannel channel;
+            try
+                {
+                channel = cfAccept.get();
+                }
+            catch (Throwable e)
+                {
+                if (e instanceof ExecutionException ee)
+                    {
+                    e = ee.getCause();
+                    }
+                return frameCaller.raiseException(xException.ioException(frameCaller,
+                        e instanceof ClosedChannelException ? "ServerSocket is closed" : e.getMessage()));
+                }
+
+            return xRTNetwork.INSTANCE.createSocket(frameCaller, channel,
+                    frameSocket -> frameSocket.assignValue(iReturn, frameSocket.popStack()));
+            };
+
+        return frame.waitForIO(cfAccept, continuation);
+        }
+
+
+    // ----- ObjectHandle --------------------------------------------------------------------------
+
+    /**
+     * The RTServerSocket service handle.
+     */
+    public static class ServerSocketHandle
+            extends ServiceHandle
+        {
+        protected ServerSocketHandle(TypeComposition clazz, ServiceContext context)
+            {
+            super(clazz, context);
+            }
+
+        /**
+         * @return the underlying channel
+         */
+        public ServerSocketChannel getChannel()
+            {
+            return (ServerSocketChannel) f_aoNative[0];
+            }
+
+        /**
+         * Set the underlying channel; called once the service has been constructed.
+         */
+        protected void setChannel(ServerSocketChannel channel)
+            {
+            f_aoNative[0] = channel;
+            }
+
+        /**
+         * Close the underlying channel, which also fails any pending "accept" calls.
+         */
+        protected void close()
+            {
+            ServerSocketChannel channel = getChannel();
+            if (channel != null)
+                {
+                try
+                    {
+                    channel.close();
+                    }
+                catch (IOException ignore) {}
+                }
+            }
+
+        /**
+         * The underlying native state needs to be kept in an array, so cloning the handle would
+         * not splinter the state.
+         */
+        private final Object[] f_aoNative = new Object[1];
+        }
+
+
+    // ----- constants -----------------------------------------------------------------------------
+
+    /**
+     * The maximum length of the accept queue of a server socket ("-Dxvm.net.backlog").
+     */
+    public static final int BACKLOG = Integer.parseInt(System.getProperty("xvm.net.backlog", "1024"));
+    }
@@ -606,13 +606,13 @@ public class xRTFunction
             return f_method == null
                 ? f_chain.isNative()
                     ? ahVar.length == 1
-                        ? hTarget.getTemplate().invokeNative1(frame, f_chain.getTop(), hTarget, ahVar[0], iReturn)
-                        : hTarget.getTemplate().invokeNativeN(frame, f_chain.getTop(), hTarget, ahVar, iReturn)
+                        ? hTarget.getTemplate().callNative1(frame, f_chain.getTop(), hTarget, ahVar[0], iReturn)
+                        : hTarget.getTemplate().callNativeN(frame, f_chain.getTop(), hTarget, ahVar, iReturn)
                     : frame.invoke1(f_chain, f_nDepth, hTarget, ahVar, iReturn)
                 : f_method.isNative()
                     ? ahVar.length == 1
-                        ? hTarget.getTemplate().invokeNative1(frame, f_method, hTarget, ahVar[0], iReturn)
-                        : hTarget.getTemplate().invokeNativeN(frame, f_method, hTarget, ahVar, iReturn)
+                        ? hTarget.getTemplate().callNative1(frame, f_method, hTarget, ahVar[0], iReturn)
+                        : hTarget.getTemplate().callNativeN(frame, f_method, hTarget, ahVar, iReturn)
                     : frame.call1(f_method, hTarget, ahVar, iReturn);
             }
 
@@ -1,8 +1,7 @@
 package org.xvm.runtime.template._native.temporal;
 
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.ConstantPool;
@@ -15,6 +14,7 @@ import org.xvm.runtime.Container;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ObjectHandle.GenericHandle;
+import org.xvm.runtime.Runtime;
 import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 import org.xvm.runtime.Utils;
@@ -34,6 +34,8 @@ import org.xvm.runtime.template.numbers.xInt128;
 import org.xvm.runtime.template._native.reflect.xRTFunction.FunctionHandle;
 import org.xvm.runtime.template._native.reflect.xRTFunction.NativeFunctionHandle;
 
+import org.xvm.util.concurrent.TimingWheel;
+
 
 /**
  * Native implementation of a simple wall clock using Java's millisecond-resolution "System" clock.
@@ -105,7 +107,7 @@ public class xLocalClock
                 Alarm alarm = new Alarm(new WeakCallback(frame, hAlarm));
                 try
                     {
-                    TIMER.schedule(alarm, cDelay);
+                    alarm.start(cDelay);
                     }
                 catch (Exception e)
                     {
@@ -209,7 +211,7 @@ public class xLocalClock
         }
 
     protected static class Alarm
-            extends TimerTask
+            implements Runnable
         {
         /**
          * Construct an alarm.
@@ -235,25 +237,51 @@ public class xLocalClock
                 }
             }
 
-        @Override
+        /**
+         * Schedule the alarm.
+         *
+         * @param cDelay  the delay in milliseconds
+         */
+        protected void start(long cDelay)
+            {
+            m_timeout = TIMER.schedule(this, cDelay, TimeUnit.MILLISECONDS);
+            }
+
+        /**
+         * Cancel the alarm unless it has already triggered.
+         *
+         * @return true iff the alarm has been cancelled
+         */
         public boolean cancel()
             {
-            boolean        fCancelled = super.cancel();
-            ServiceContext context    = f_refCallback.get();
+            TimingWheel.Timeout timeout = m_timeout;
+            if (timeout != null && !timeout.cancel())
+                {
+                // already triggered or cancelled
+                return false;
+                }
+
+            ServiceContext context = f_refCallback.get();
             if (context != null)
                 {
                 context.unregisterNotification();
                 }
-            return fCancelled;
+            return true;
             }
 
         private final WeakCallback f_refCallback;
+
+        private volatile TimingWheel.Timeout m_timeout;
         }
 
 
     // ----- constants and fields ------------------------------------------------------------------
 
-    public static Timer TIMER = new Timer("ecstasy:LocalClock", true);
+    /**
+     * The timing wheel shared by all clocks, timers and service wake-ups.
+     */
+    public static final TimingWheel TIMER = new TimingWheel("ecstasy:LocalClock",
+            TimeUnit.MILLISECONDS.toNanos(1), Runtime::logUncaughtException).start();
 
     /**
      * Cached Time class.
@@ -1,7 +1,7 @@
 package org.xvm.runtime.template._native.temporal;
 
 
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.MethodStructure;
@@ -30,6 +30,8 @@ import org.xvm.runtime.template._native.reflect.xRTFunction.NativeFunctionHandle
 
 import org.xvm.util.ListSet;
 
+import org.xvm.util.concurrent.TimingWheel;
+
 
 /**
  * Native implementation of a simple timer (stop-watch) using Java's nanosecond-resolution "System"
@@ -233,7 +235,7 @@ public class xNanosTimer
          */
         public FunctionHandle schedule(GenericHandle hDuration, WeakCallback refAlarm)
             {
-            // note: the Java Timer uses millisecond scheduling, but we're given scheduling
+            // note: the timing wheel has a millisecond resolution, but we're given scheduling
             // instructions in picoseconds
             LongLongHandle llPicos = (LongLongHandle) hDuration.getField(null, "picoseconds");
             long           cNanos  = Math.max(0, llPicos.getValue().divUnsigned(PICOS_PER_NANO).getLowValue());
@@ -364,8 +366,7 @@ public class xNanosTimer
                 try
                     {
                     f_refCallback.get().registerNotification();
-                    xLocalClock.TIMER.schedule(
-                        m_trigger, Math.max(1, (f_cNanosDelay - m_cNanosBurnt) / NANOS_PER_MILLI));
+                    m_trigger.schedule(Math.max(1, f_cNanosDelay - m_cNanosBurnt));
                     }
                 catch (Throwable e)
                     {
@@ -493,29 +494,42 @@ public class xNanosTimer
                 }
 
             /**
-             * A TimerTask that is scheduled on the Java timer and used to trigger the alarm.
+             * A task that is scheduled on the timing wheel and used to trigger the alarm.
              */
             protected static class Trigger
-                    extends TimerTask
+                    implements Runnable
                 {
                 protected Trigger(Alarm alarm)
                     {
                     m_alarm = alarm;
                     }
 
+                /**
+                 * Schedule the trigger.
+                 *
+                 * @param cNanosDelay  the delay in nanoseconds
+                 */
+                protected void schedule(long cNanosDelay)
+                    {
+                    m_timeout = xLocalClock.TIMER.schedule(this, cNanosDelay, TimeUnit.NANOSECONDS);
+                    }
+
                 @Override
                 public void run()
                     {
                     Alarm alarm = m_alarm;
-                    m_alarm = null;
-                    alarm.run();
+                    if (alarm != null)
+                        {
+                        m_alarm = null;
+                        alarm.run();
+                        }
                     }
 
-                @Override
                 public boolean cancel()
                     {
-                    boolean fCancelled = super.cancel();
-                    Alarm   alarm      = m_alarm;
+                    TimingWheel.Timeout timeout    = m_timeout;
+                    boolean             fCancelled = timeout != null && timeout.cancel();
+                    Alarm               alarm      = m_alarm;
                     if (alarm != null)
                         {
                         alarm.unregister();
@@ -524,7 +538,8 @@ public class xNanosTimer
                     return fCancelled;
                     }
 
-                private Alarm m_alarm;
+                private Alarm                        m_alarm;
+                private volatile TimingWheel.Timeout m_timeout;
                 }
 
             private final    WeakCallback f_refCallback;
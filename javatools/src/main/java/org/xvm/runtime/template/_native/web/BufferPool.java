@@ -0,0 +1,98 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.nio.ByteBuffer;
+
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A pool of same-sized direct {@link ByteBuffer}s.
+ * <p>
+ * Direct buffers are expensive to allocate and are only released by the JVM garbage collector, so
+ * the HTTP connections borrow them from a pool; the pool retains up to a fixed number of the
+ * returned buffers and drops the rest.
+ */
+public class BufferPool
+    {
+    /**
+     * Construct a pool.
+     *
+     * @param cbBuffer      the size of the pooled buffers
+     * @param cMaxRetained  the maximum number of idle buffers to retain
+     */
+    public BufferPool(int cbBuffer, int cMaxRetained)
+        {
+        f_cbBuffer     = cbBuffer;
+        f_cMaxRetained = cMaxRetained;
+        }
+
+    /**
+     * @return the size of the pooled buffers
+     */
+    public int getBufferSize()
+        {
+        return f_cbBuffer;
+        }
+
+    /**
+     * @return a cleared buffer
+     */
+    public ByteBuffer acquire()
+        {
+        ByteBuffer buf = f_queue.poll();
+        if (buf == null)
+            {
+            return ByteBuffer.allocateDirect(f_cbBuffer);
+            }
+
+        f_atomicRetained.decrementAndGet();
+        return buf.clear();
+        }
+
+    /**
+     * Return a buffer to the pool; the caller must not use the buffer afterwards.
+     *
+     * @param buf  a buffer previously obtained from {@link #acquire}
+     */
+    public void release(ByteBuffer buf)
+        {
+        assert buf.isDirect() && buf.capacity() == f_cbBuffer;
+
+        if (f_atomicRetained.incrementAndGet() <= f_cMaxRetained)
+            {
+            f_queue.add(buf);
+            }
+        else
+            {
+            f_atomicRetained.decrementAndGet();
+            }
+        }
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    /**
+     * The size of the pooled buffers.
+     */
+    private final int f_cbBuffer;
+
+    /**
+     * The maximum number of idle buffers to retain.
+     */
+    private final int f_cMaxRetained;
+
+    /**
+     * The idle buffers.
+     */
+    private final Queue<ByteBuffer> f_queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of idle buffers.
+     */
+    private final AtomicInteger f_atomicRetained = new AtomicInteger();
+    }
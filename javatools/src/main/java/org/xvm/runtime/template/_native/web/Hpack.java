@@ -0,0 +1,852 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.ByteArrayOutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * The HPACK header compression used by HTTP/2 (RFC 7541).
+ * <p>
+ * A {@link Decoder} and an {@link Encoder} each maintain their own dynamic table, which mirrors
+ * the table of the peer's encoder and decoder respectively; as a result, every header block must
+ * be processed, in the order the blocks are sent on the connection. The header names and values
+ * are treated as ISO-8859-1 strings, so the string length is the same as the octet length.
+ */
+public class Hpack
+    {
+    /**
+     * The default maximum size of a dynamic table.
+     */
+    public static final int DEFAULT_TABLE_SIZE = 4096;
+
+
+    // ----- Decoder -------------------------------------------------------------------------------
+
+    /**
+     * The header block decoder. A decoder is not thread safe.
+     */
+    public static class Decoder
+        {
+        /**
+         * Construct a decoder.
+         *
+         * @param cbMaxTable  the maximum table size the peer's encoder is allowed to use (the
+         *                    SETTINGS_HEADER_TABLE_SIZE value sent to the peer)
+         */
+        public Decoder(int cbMaxTable)
+            {
+            f_cbLimit = cbMaxTable;
+            f_table   = new Table(cbMaxTable);
+            }
+
+        /**
+         * Decode a complete header block.
+         *
+         * @param ab        the header block
+         * @param consumer  the consumer for the decoded fields, in the order they are encoded
+         *
+         * @throws CompressionException if the header block is malformed
+         */
+        public void decode(byte[] ab, FieldConsumer consumer)
+                throws CompressionException
+            {
+            m_ab = ab;
+            m_of = 0;
+
+            boolean fField = false;
+            try
+                {
+                while (m_of < ab.length)
+                    {
+                    int b = ab[m_of] & 0xFF;
+                    if ((b & 0x80) != 0)
+                        {
+                        // indexed field
+                        Table.Entry entry = lookup(readInt(7));
+                        consumer.accept(entry.sName(), entry.sValue());
+                        }
+                    else if ((b & 0x40) != 0)
+                        {
+                        // literal with incremental indexing
+                        String sName  = readName(6);
+                        String sValue = readString();
+                        f_table.add(sName, sValue);
+                        consumer.accept(sName, sValue);
+                        }
+                    else if ((b & 0x20) != 0)
+                        {
+                        // dynamic table size update
+                        if (fField)
+                            {
+                            throw new CompressionException("Misplaced table size update");
+                            }
+                        int cbMax = readInt(5);
+                        if (cbMax > f_cbLimit)
+                            {
+                            throw new CompressionException("Table size exceeds the limit: " + cbMax);
+                            }
+                        f_table.setMaxSize(cbMax);
+                        continue;
+                        }
+                    else
+                        {
+                        // literal without indexing (0000) or never indexed (0001)
+                        String sName  = readName(4);
+                        String sValue = readString();
+                        consumer.accept(sName, sValue);
+                        }
+                    fField = true;
+                    }
+                }
+            finally
+                {
+                m_ab = null;
+                }
+            }
+
+        /**
+         * @return the current size of the dynamic table
+         */
+        public int getTableSize()
+            {
+            return f_table.getSize();
+            }
+
+        /**
+         * @return the entry at the specified (static or dynamic) index
+         */
+        private Table.Entry lookup(int nIndex)
+                throws CompressionException
+            {
+            if (nIndex <= 0)
+                {
+                throw new CompressionException("Invalid index: " + nIndex);
+                }
+            if (nIndex <= STATIC_TABLE.length)
+                {
+                return STATIC_TABLE[nIndex - 1];
+                }
+
+            Table.Entry entry = f_table.get(nIndex - STATIC_TABLE.length);
+            if (entry == null)
+                {
+                throw new CompressionException("Invalid index: " + nIndex);
+                }
+            return entry;
+            }
+
+        /**
+         * Read the name of a literal field: either an index or a string literal.
+         */
+        private String readName(int cPrefixBits)
+                throws CompressionException
+            {
+            int nIndex = readInt(cPrefixBits);
+            return nIndex == 0 ? readString() : lookup(nIndex).sName();
+            }
+
+        /**
+         * Read an integer with the specified prefix length (RFC 7541 section 5.1).
+         */
+        private int readInt(int cPrefixBits)
+                throws CompressionException
+            {
+            byte[] ab    = m_ab;
+            int    nMask = (1 << cPrefixBits) - 1;
+            int    n     = ab[m_of++] & nMask;
+            if (n < nMask)
+                {
+                return n;
+                }
+
+            for (int cShift = 0; ; cShift += 7)
+                {
+                if (m_of >= ab.length || cShift > 21)
+                    {
+                    throw new CompressionException("Malformed integer");
+                    }
+                int b = ab[m_of++] & 0xFF;
+                n += (b & 0x7F) << cShift;
+                if ((b & 0x80) == 0)
+                    {
+                    return n;
+                    }
+                }
+            }
+
+        /**
+         * Read a string literal (RFC 7541 section 5.2).
+         */
+        private String readString()
+                throws CompressionException
+            {
+            byte[] ab = m_ab;
+            if (m_of >= ab.length)
+                {
+                throw new CompressionException("Truncated string");
+                }
+
+            boolean fHuffman = (ab[m_of] & 0x80) != 0;
+            int     cb       = readInt(7);
+            int     of       = m_of;
+            if (cb > ab.length - of)
+                {
+                throw new CompressionException("Truncated string");
+                }
+
+            m_of = of + cb;
+            return fHuffman
+                    ? huffmanDecode(ab, of, cb)
+                    : new String(ab, of, cb, StandardCharsets.ISO_8859_1);
+            }
+
+        /**
+         * The maximum table size the peer is allowed to use.
+         */
+        private final int f_cbLimit;
+
+        /**
+         * The dynamic table.
+         */
+        private final Table f_table;
+
+        /**
+         * The header block being decoded.
+         */
+        private byte[] m_ab;
+
+        /**
+         * The current offset in the header block.
+         */
+        private int m_of;
+        }
+
+    /**
+     * The consumer of the decoded header fields.
+     */
+    @FunctionalInterface
+    public interface FieldConsumer
+        {
+        void accept(String sName, String sValue)
+                throws CompressionException;
+        }
+
+    /**
+     * Indicates a malformed header block; the HTTP/2 connection cannot be used any longer.
+     */
+    public static class CompressionException
+            extends Exception
+        {
+        public CompressionException(String sMessage)
+            {
+            super(sMessage);
+            }
+
+        private static final long serialVersionUID = 1L;
+        }
+
+
+    // ----- Encoder -------------------------------------------------------------------------------
+
+    /**
+     * The header block encoder. The field names must be in lower case.
+     * <p>
+     * The fields that match a static or dynamic table entry are encoded as indexed fields; the
+     * others are added to the dynamic table, unless their values are expected to change with every
+     * message (e.g. "date") or are sensitive (e.g. "set-cookie"). The string literals are Huffman
+     * coded when that makes them shorter.
+     */
+    public static class Encoder
+        {
+        /**
+         * Construct an encoder that uses a dynamic table of the default size.
+         */
+        public Encoder()
+            {
+            f_table = new Table(DEFAULT_TABLE_SIZE);
+            }
+
+        /**
+         * Change the maximum size of the dynamic table as allowed by the peer (its
+         * SETTINGS_HEADER_TABLE_SIZE value). This method could be called on any thread.
+         */
+        public synchronized void setMaxTableSize(int cbMax)
+            {
+            cbMax = Math.min(cbMax, DEFAULT_TABLE_SIZE);
+            if (cbMax != f_table.getMaxSize() || m_cbUpdate >= 0)
+                {
+                // the smallest size must be signalled as well, so the peer evicts the entries
+                m_cbMinUpdate = Math.min(m_cbMinUpdate, cbMax);
+                m_cbUpdate    = cbMax;
+                }
+            }
+
+        /**
+         * Encode a header field and append it to the header block.
+         *
+         * @param out     the header block
+         * @param sName   the field name (lower case)
+         * @param sValue  the field value
+         */
+        public synchronized void encode(ByteArrayOutputStream out, String sName, String sValue)
+            {
+            int cbUpdate = m_cbUpdate;
+            if (cbUpdate >= 0)
+                {
+                // the size update is emitted at the start of the next header block
+                int cbMin = m_cbMinUpdate;
+                if (cbMin < cbUpdate)
+                    {
+                    writeInt(out, 0x20, 5, cbMin);
+                    }
+                writeInt(out, 0x20, 5, cbUpdate);
+                f_table.setMaxSize(cbUpdate);
+                m_cbUpdate    = -1;
+                m_cbMinUpdate = Integer.MAX_VALUE;
+                }
+
+            Integer NIndex = STATIC_INDEX.get(sName + '\0' + sValue);
+            if (NIndex != null)
+                {
+                writeInt(out, 0x80, 7, NIndex);
+                return;
+                }
+
+            Table table  = f_table;
+            int   nFound = table.find(sName, sValue);
+            if (nFound > 0)
+                {
+                writeInt(out, 0x80, 7, STATIC_TABLE.length + nFound);
+                return;
+                }
+
+            int nName = 0;
+            NIndex = STATIC_NAMES.get(sName);
+            if (NIndex == null)
+                {
+                if (nFound < 0)
+                    {
+                    nName = STATIC_TABLE.length - nFound;
+                    }
+                }
+            else
+                {
+                nName = NIndex;
+                }
+
+            if (SENSITIVE.contains(sName))
+                {
+                writeInt(out, 0x10, 4, nName);
+                }
+            else if (VOLATILE.contains(sName) || Table.sizeOf(sName, sValue) > table.getMaxSize())
+                {
+                writeInt(out, 0x00, 4, nName);
+                }
+            else
+                {
+                writeInt(out, 0x40, 6, nName);
+                table.add(sName, sValue);
+                }
+
+            if (nName == 0)
+                {
+                writeString(out, sName);
+                }
+            writeString(out, sValue);
+            }
+
+        /**
+         * Write an integer with the specified prefix length (RFC 7541 section 5.1).
+         *
+         * @param nFlags       the bits that precede the prefix in the first octet
+         * @param cPrefixBits  the prefix length
+         * @param n            the (non-negative) value
+         */
+        static void writeInt(ByteArrayOutputStream out, int nFlags, int cPrefixBits, int n)
+            {
+            int nMask = (1 << cPrefixBits) - 1;
+            if (n < nMask)
+                {
+                out.write(nFlags | n);
+                return;
+                }
+
+            out.write(nFlags | nMask);
+            n -= nMask;
+            while (n >= 0x80)
+                {
+                out.write((n & 0x7F) | 0x80);
+                n >>>= 7;
+                }
+            out.write(n);
+            }
+
+        /**
+         * Write a string literal (RFC 7541 section 5.2).
+         */
+        static void writeString(ByteArrayOutputStream out, String s)
+            {
+            byte[] ab        = s.getBytes(StandardCharsets.ISO_8859_1);
+            int    cbHuffman = huffmanLength(ab);
+            if (cbHuffman < ab.length)
+                {
+                writeInt(out, 0x80, 7, cbHuffman);
+                huffmanEncode(out, ab);
+                }
+            else
+                {
+                writeInt(out, 0x00, 7, ab.length);
+                out.writeBytes(ab);
+                }
+            }
+
+        /**
+         * The dynamic table.
+         */
+        private final Table f_table;
+
+        /**
+         * The pending table size update; -1 if none.
+         */
+        private int m_cbUpdate = -1;
+
+        /**
+         * The smallest table size since the last update was emitted.
+         */
+        private int m_cbMinUpdate = Integer.MAX_VALUE;
+        }
+
+
+    // ----- Table ---------------------------------------------------------------------------------
+
+    /**
+     * A dynamic table (RFC 7541 section 2.3.2).
+     */
+    static class Table
+        {
+        /**
+         * A table entry.
+         */
+        record Entry(String sName, String sValue) {}
+
+        Table(int cbMax)
+            {
+            m_cbMax = cbMax;
+            }
+
+        /**
+         * @return the size of an entry with the specified name and value
+         */
+        static int sizeOf(String sName, String sValue)
+            {
+            return sName.length() + sValue.length() + 32;
+            }
+
+        /**
+         * @return the sum of the entry sizes
+         */
+        int getSize()
+            {
+            return m_cbSize;
+            }
+
+        /**
+         * @return the maximum size
+         */
+        int getMaxSize()
+            {
+            return m_cbMax;
+            }
+
+        /**
+         * Change the maximum size, evicting the entries as necessary.
+         */
+        void setMaxSize(int cbMax)
+            {
+            m_cbMax = cbMax;
+            evict(0);
+            }
+
+        /**
+         * Add a new entry, evicting the oldest entries as necessary; an entry larger than the
+         * maximum size empties the table.
+         */
+        void add(String sName, String sValue)
+            {
+            int cb = sizeOf(sName, sValue);
+            evict(cb);
+            if (cb <= m_cbMax)
+                {
+                f_listEntries.add(new Entry(sName, sValue));
+                m_cbSize += cb;
+                }
+            }
+
+        /**
+         * @param nIndex  the one-based index, where one is the most recently added entry
+         *
+         * @return the entry or null if the index is out of range
+         */
+        Entry get(int nIndex)
+            {
+            List<Entry> list = f_listEntries;
+            return nIndex <= list.size() ? list.get(list.size() - nIndex) : null;
+            }
+
+        /**
+         * Find an entry.
+         *
+         * @return a positive index of an entry with the specified name and value, a negative index
+         *         of an entry with the specified name, or zero if there is no such entry
+         */
+        int find(String sName, String sValue)
+            {
+            List<Entry> list  = f_listEntries;
+            int         nName = 0;
+            for (int i = list.size() - 1; i >= 0; i--)
+                {
+                Entry entry = list.get(i);
+                if (entry.sName().equals(sName))
+                    {
+                    if (entry.sValue().equals(sValue))
+                        {
+                        return list.size() - i;
+                        }
+                    if (nName == 0)
+                        {
+                        nName = i - list.size();
+                        }
+                    }
+                }
+            return nName;
+            }
+
+        /**
+         * Evict the oldest entries until the specified number of bytes could be added.
+         */
+        private void evict(int cbAdd)
+            {
+            List<Entry> list   = f_listEntries;
+            int         cEvict = 0;
+            int         cbSize = m_cbSize;
+            while (cbSize + cbAdd > m_cbMax && cEvict < list.size())
+                {
+                Entry entry = list.get(cEvict++);
+                cbSize -= sizeOf(entry.sName(), entry.sValue());
+                }
+            if (cEvict > 0)
+                {
+                list.subList(0, cEvict).clear();
+                m_cbSize = cbSize;
+                }
+            }
+
+        /**
+         * The entries, the oldest first.
+         */
+        private final List<Entry> f_listEntries = new ArrayList<>();
+
+        /**
+         * The sum of the entry sizes.
+         */
+        private int m_cbSize;
+
+        /**
+         * The maximum size.
+         */
+        private int m_cbMax;
+        }
+
+
+    // ----- Huffman code --------------------------------------------------------------------------
+
+    /**
+     * Decode a Huffman coded string literal (RFC 7541 section 5.2).
+     */
+    static String huffmanDecode(byte[] ab, int of, int cb)
+            throws CompressionException
+        {
+        int[]         anTree = HUFFMAN_TREE;
+        StringBuilder sb     = new StringBuilder(cb * 8 / 5);
+        int           nNode  = 0;
+        int           cBits  = 0;     // the bits consumed since the last symbol
+        boolean       fOnes  = true;  // true iff all those bits are ones
+        for (int ofEnd = of + cb; of < ofEnd; of++)
+            {
+            int b = ab[of];
+            for (int iBit = 7; iBit >= 0; iBit--)
+                {
+                int nBit  = (b >>> iBit) & 1;
+                int nNext = anTree[nNode * 2 + nBit];
+                if (nNext < 0)
+                    {
+                    int nSymbol = ~nNext;
+                    if (nSymbol == EOS)
+                        {
+                        throw new CompressionException("Huffman coded EOS");
+                        }
+                    sb.append((char) nSymbol);
+                    nNode = 0;
+                    cBits = 0;
+                    fOnes = true;
+                    }
+                else
+                    {
+                    nNode  = nNext;
+                    cBits++;
+                    fOnes &= nBit == 1;
+                    }
+                }
+            }
+
+        if (cBits > 7 || !fOnes)
+            {
+            throw new CompressionException("Invalid Huffman padding");
+            }
+        return sb.toString();
+        }
+
+    /**
+     * @return the length of the Huffman coded representation of the specified bytes
+     */
+    static int huffmanLength(byte[] ab)
+        {
+        byte[] acBits = HUFFMAN_LENGTHS;
+        long   cBits  = 0;
+        for (byte b : ab)
+            {
+            cBits += acBits[b & 0xFF];
+            }
+        return (int) ((cBits + 7) >>> 3);
+        }
+
+    /**
+     * Write the Huffman coded representation of the specified bytes.
+     */
+    static void huffmanEncode(ByteArrayOutputStream out, byte[] ab)
+        {
+        int[]  anCode = HUFFMAN_CODES;
+        byte[] acBits = HUFFMAN_LENGTHS;
+        long   lBits  = 0;
+        int    cBits  = 0;
+        for (byte b : ab)
+            {
+            int nSymbol = b & 0xFF;
+            lBits  = (lBits << acBits[nSymbol]) | anCode[nSymbol];
+            cBits += acBits[nSymbol];
+            while (cBits >= 8)
+                {
+                cBits -= 8;
+                out.write((int) (lBits >>> cBits));
+                }
+            }
+
+        if (cBits > 0)
+            {
+            // pad with the most significant bits of the EOS code (all ones)
+            int cPad = 8 - cBits;
+            out.write((int) ((lBits << cPad) | ((1 << cPad) - 1)));
+            }
+        }
+
+
+    // ----- constants -----------------------------------------------------------------------------
+
+    /**
+     * The static table (RFC 7541 appendix A).
+     */
+    static final Table.Entry[] STATIC_TABLE =
+        {
+        new Table.Entry(":authority", ""),
+        new Table.Entry(":method", "GET"),
+        new Table.Entry(":method", "POST"),
+        new Table.Entry(":path", "/"),
+        new Table.Entry(":path", "/index.html"),
+        new Table.Entry(":scheme", "http"),
+        new Table.Entry(":scheme", "https"),
+        new Table.Entry(":status", "200"),
+        new Table.Entry(":status", "204"),
+        new Table.Entry(":status", "206"),
+        new Table.Entry(":status", "304"),
+        new Table.Entry(":status", "400"),
+        new Table.Entry(":status", "404"),
+        new Table.Entry(":status", "500"),
+        new Table.Entry("accept-charset", ""),
+        new Table.Entry("accept-encoding", "gzip, deflate"),
+        new Table.Entry("accept-language", ""),
+        new Table.Entry("accept-ranges", ""),
+        new Table.Entry("accept", ""),
+        new Table.Entry("access-control-allow-origin", ""),
+        new Table.Entry("age", ""),
+        new Table.Entry("allow", ""),
+        new Table.Entry("authorization", ""),
+        new Table.Entry("cache-control", ""),
+        new Table.Entry("content-disposition", ""),
+        new Table.Entry("content-encoding", ""),
+        new Table.Entry("content-language", ""),
+        new Table.Entry("content-length", ""),
+        new Table.Entry("content-location", ""),
+        new Table.Entry("content-range", ""),
+        new Table.Entry("content-type", ""),
+        new Table.Entry("cookie", ""),
+        new Table.Entry("date", ""),
+        new Table.Entry("etag", ""),
+        new Table.Entry("expect", ""),
+        new Table.Entry("expires", ""),
+        new Table.Entry("from", ""),
+        new Table.Entry("host", ""),
+        new Table.Entry("if-match", ""),
+        new Table.Entry("if-modified-since", ""),
+        new Table.Entry("if-none-match", ""),
+        new Table.Entry("if-range", ""),
+        new Table.Entry("if-unmodified-since", ""),
+        new Table.Entry("last-modified", ""),
+        new Table.Entry("link", ""),
+        new Table.Entry("location", ""),
+        new Table.Entry("max-forwards", ""),
+        new Table.Entry("proxy-authenticate", ""),
+        new Table.Entry("proxy-authorization", ""),
+        new Table.Entry("range", ""),
+        new Table.Entry("referer", ""),
+        new Table.Entry("refresh", ""),
+        new Table.Entry("retry-after", ""),
+        new Table.Entry("server", ""),
+        new Table.Entry("set-cookie", ""),
+        new Table.Entry("strict-transport-security", ""),
+        new Table.Entry("transfer-encoding", ""),
+        new Table.Entry("user-agent", ""),
+        new Table.Entry("vary", ""),
+        new Table.Entry("via", ""),
+        new Table.Entry("www-authenticate", ""),
+        };
+
+    /**
+     * The static table index keyed by "name\0value".
+     */
+    private static final Map<String, Integer> STATIC_INDEX = new HashMap<>();
+
+    /**
+     * The static table index of the first entry with a given name.
+     */
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<>();
+
+    /**
+     * The fields that are never indexed, including by any intermediaries.
+     */
+    private static final Set<String> SENSITIVE =
+            Set.of("authorization", "cookie", "proxy-authorization", "set-cookie");
+
+    /**
+     * The fields whose values are unlikely to repeat, so they are not worth indexing.
+     */
+    private static final Set<String> VOLATILE =
+            Set.of("age", "content-length", "content-range", "date", "etag", "expires",
+                   "last-modified", "location");
+
+    /**
+     * The EOS symbol.
+     */
+    private static final int EOS = 256;
+
+    /**
+     * The Huffman code lengths of the symbols (RFC 7541 appendix B). The code is canonical, so the
+     * codes themselves are computed from the lengths.
+     */
+    private static final byte[] HUFFMAN_LENGTHS =
+        {
+        13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+        28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+         6, 10, 10, 12, 13,  6,  8, 11, 10, 10,  8, 11,  8,  6,  6,  6,
+         5,  5,  5,  6,  6,  6,  6,  6,  6,  6,  7,  8, 15,  6, 12, 10,
+        13,  6,  7,  7,  7,  7,  7,  7,  7,  7,  7,  7,  7,  7,  7,  7,
+         7,  7,  7,  7,  7,  7,  7,  7,  8,  7,  8, 13, 19, 13, 14,  6,
+        15,  5,  6,  5,  6,  5,  6,  6,  6,  5,  7,  7,  6,  6,  6,  5,
+         6,  7,  6,  5,  5,  6,  7,  7,  7,  7,  7, 15, 11, 14, 13, 28,
+        20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+        24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+        22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+        21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+        26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+        19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+        20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+        26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+        30,
+        };
+
+    /**
+     * The Huffman codes of the symbols (right-aligned).
+     */
+    private static final int[] HUFFMAN_CODES = new int[EOS + 1];
+
+    /**
+     * The Huffman decoding tree: the two children of the node N are at [2*N] (for a zero bit) and
+     * [2*N+1] (for a one bit); a leaf is represented by the complement of its symbol.
+     */
+    private static final int[] HUFFMAN_TREE = new int[EOS * 2];
+
+    static
+        {
+        for (int i = 0, c = STATIC_TABLE.length; i < c; i++)
+            {
+            Table.Entry entry = STATIC_TABLE[i];
+            STATIC_INDEX.putIfAbsent(entry.sName() + '\0' + entry.sValue(), i + 1);
+            STATIC_NAMES.putIfAbsent(entry.sName(), i + 1);
+            }
+
+        // assign the canonical codes: ordered by the length, then by the symbol
+        Integer[] aSymbol = new Integer[EOS + 1];
+        for (int i = 0; i <= EOS; i++)
+            {
+            aSymbol[i] = i;
+            }
+        Arrays.sort(aSymbol, (n1, n2) -> HUFFMAN_LENGTHS[n1] == HUFFMAN_LENGTHS[n2]
+                ? n1 - n2
+                : HUFFMAN_LENGTHS[n1] - HUFFMAN_LENGTHS[n2]);
+
+        int nCode = 0;
+        int cBits = HUFFMAN_LENGTHS[aSymbol[0]];
+        for (int i = 0; i <= EOS; i++)
+            {
+            int nSymbol = aSymbol[i];
+            if (i > 0)
+                {
+                nCode = (nCode + 1) << (HUFFMAN_LENGTHS[nSymbol] - cBits);
+                cBits = HUFFMAN_LENGTHS[nSymbol];
+                }
+            HUFFMAN_CODES[nSymbol] = nCode;
+            }
+
+        // build the decoding tree; the node zero is the root
+        int cNodes = 1;
+        for (int nSymbol = 0; nSymbol <= EOS; nSymbol++)
+            {
+            int nCodeSym = HUFFMAN_CODES[nSymbol];
+            int nNode    = 0;
+            for (int iBit = HUFFMAN_LENGTHS[nSymbol] - 1; iBit >= 0; iBit--)
+                {
+                int iChild = nNode * 2 + ((nCodeSym >>> iBit) & 1);
+                if (iBit == 0)
+                    {
+                    HUFFMAN_TREE[iChild] = ~nSymbol;
+                    }
+                else
+                    {
+                    if (HUFFMAN_TREE[iChild] == 0)
+                        {
+                        HUFFMAN_TREE[iChild] = cNodes++;
+                        }
+                    nNode = HUFFMAN_TREE[iChild];
+                    }
+                }
+            }
+        }
+    }
@@ -0,0 +1,1078 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.xvm.runtime.Runtime;
+
+
+/**
+ * An HTTP/1.x connection accepted by the {@link HttpEngine}.
+ * <p>
+ * The connection is served by a virtual "reader" thread, which parses the requests one after
+ * another and hands them to the engine's handler without waiting for the responses, so the
+ * pipelined requests are processed concurrently (up to {@link #MAX_PIPELINED} of them). The
+ * responses could arrive in any order and on any thread; they are queued and written strictly in
+ * the request order by a short-lived virtual "writer" thread, so the threads that produce the
+ * responses never block on the network.
+ * <p>
+ * A request body larger than {@link #MAX_INLINE_BODY} (or one that uses the "chunked" transfer
+ * coding) is not read before the request is dispatched; instead, the reader streams it to the
+ * {@link RequestBody} after the dispatch. Similarly, the writer sends the portions of a streamed
+ * {@link ResponseBody} as they arrive, and is restarted whenever it runs out of them.
+ * <p>
+ * An idle connection (no requests in progress) is closed after the engine's idle timeout.
+ */
+public class Http1Connection
+        extends HttpConnection
+    {
+    Http1Connection(HttpEngine engine, Transport transport, ByteBuffer bufRead)
+        {
+        super(engine, transport, bufRead);
+        }
+
+    @Override
+    public String getProtocol()
+        {
+        return "HTTP/1.1";
+        }
+
+    @Override
+    public void abort()
+        {
+        f_transport.abort();
+
+        // the reader or the writer might be waiting for a body producer or consumer rather than
+        // for the network
+        HttpExchange[] aExchange;
+        synchronized (this)
+            {
+            aExchange = f_dequeExchanges.toArray(NO_EXCHANGES);
+            }
+        for (HttpExchange exchange : aExchange)
+            {
+            exchange.abandon();
+            }
+        }
+
+    /**
+     * The reader thread's body.
+     */
+    @Override
+    public void run()
+        {
+        boolean fAbort = true;
+        try
+            {
+            while (readRequest())
+                {
+                }
+            fAbort = false;
+            }
+        catch (IOException e)
+            {
+            // the connection has been reset, timed out or closed
+            }
+        catch (RuntimeException e)
+            {
+            // a failure to process a request that has not been dispatched yet; respond to it
+            // (after the responses to all the preceding requests) and close the connection
+            Runtime.logRuntimeException("HTTP request processing failure", e);
+            reject(500, "Internal Server Error");
+            fAbort = false;
+            }
+        finally
+            {
+            f_engine.getReadBufferPool().release(f_bufRead);
+
+            boolean            fClose;
+            List<HttpExchange> listDropped = null;
+            synchronized (this)
+                {
+                m_fClosing = true;
+                fClose     = !m_fClosed && (fAbort || f_dequeExchanges.isEmpty() && !m_fWriting);
+                if (fAbort)
+                    {
+                    listDropped = drainExchanges();
+                    }
+                if (fClose)
+                    {
+                    m_fClosed = true;
+                    }
+                }
+            abandon(listDropped);
+
+            if (fClose)
+                {
+                closeTransport(fAbort);
+                }
+
+            boolean fRelease;
+            synchronized (this)
+                {
+                m_fReaderDone = true;
+                fRelease      = isQuiescent();
+                }
+            if (fRelease)
+                {
+                f_transport.release();
+                }
+            }
+        }
+
+
+    // ----- request processing --------------------------------------------------------------------
+
+    /**
+     * Read and dispatch the next request.
+     *
+     * @return true iff the connection should be used for subsequent requests
+     */
+    private boolean readRequest()
+            throws IOException
+        {
+        synchronized (this)
+            {
+            while (f_dequeExchanges.size() >= MAX_PIPELINED && !m_fClosed)
+                {
+                waitForWriter();
+                }
+            if (m_fClosing)
+                {
+                return false;
+                }
+            }
+
+        // RFC 9112: a server SHOULD ignore at least one empty line received prior to the request
+        ByteBuffer buf = f_bufRead;
+        while (true)
+            {
+            if (buf.position() == 0)
+                {
+                if (fill() < 0)
+                    {
+                    return false;
+                    }
+                }
+            else if (buf.get(0) == '\r' || buf.get(0) == '\n')
+                {
+                consume(1);
+                }
+            else
+                {
+                break;
+                }
+            }
+
+        int ofEnd;
+        int ofScan = 0;
+        while ((ofEnd = findEndOfHead(ofScan)) < 0)
+            {
+            ofScan = Math.max(0, buf.position() - 3);
+            if (!buf.hasRemaining())
+                {
+                return reject(431, "Request Header Fields Too Large");
+                }
+            if (fill() < 0)
+                {
+                return false;
+                }
+            }
+
+        byte[] abHead = new byte[ofEnd];
+        buf.get(0, abHead);
+        consume(ofEnd);
+
+        String[] asLine = new String(abHead, StandardCharsets.ISO_8859_1).split("\r?\n");
+
+        // the request line: method SP request-target SP HTTP-version
+        String sLine = asLine[0];
+        int    of1   = sLine.indexOf(' ');
+        int    of2   = sLine.lastIndexOf(' ');
+        if (of1 <= 0 || of2 <= of1 + 1)
+            {
+            return reject(400, "Malformed request line");
+            }
+
+        String sMethod   = sLine.substring(0, of1);
+        String sURI      = sLine.substring(of1 + 1, of2);
+        String sProtocol = sLine.substring(of2 + 1);
+        if (!sProtocol.startsWith("HTTP/1."))
+            {
+            return sProtocol.startsWith("HTTP/")
+                    ? reject(505, "HTTP Version Not Supported")
+                    : reject(400, "Malformed request line");
+            }
+
+        HttpHeaders headers = new HttpHeaders();
+        for (int i = 1, c = asLine.length; i < c; i++)
+            {
+            String sHeader = asLine[i];
+            int    ofColon = sHeader.indexOf(':');
+            if (ofColon <= 0 || sHeader.charAt(0) == ' ' || sHeader.charAt(0) == '\t'
+                    || sHeader.charAt(ofColon - 1) == ' ')
+                {
+                return reject(400, "Malformed header");
+                }
+            headers.add(sHeader.substring(0, ofColon), sHeader.substring(ofColon + 1).trim());
+            }
+
+        boolean fKeepAlive = sProtocol.equals("HTTP/1.0")
+                ? headers.containsToken("Connection", "keep-alive")
+                : !headers.containsToken("Connection", "close");
+
+        // the body size; -1 for the "chunked" transfer coding
+        long cbBody = 0;
+        try
+            {
+            if (headers.contains("Transfer-Encoding"))
+                {
+                List<String> listTE  = headers.get("Transfer-Encoding");
+                String       sCodes  = listTE.get(listTE.size() - 1);
+                String       sLast   = sCodes.substring(sCodes.lastIndexOf(',') + 1).trim();
+                if (!sLast.equalsIgnoreCase("chunked"))
+                    {
+                    return reject(400, "Unsupported transfer coding");
+                    }
+
+                // RFC 9112: a message with both must be treated as an error after being handled
+                fKeepAlive &= !headers.contains("Content-Length");
+                cbBody      = -1;
+                }
+            else if (headers.contains("Content-Length"))
+                {
+                cbBody = -1;
+                for (String sValue : headers.get("Content-Length"))
+                    {
+                    long cbValue = Long.parseLong(sValue.trim());
+                    if (cbValue < 0 || cbBody >= 0 && cbBody != cbValue)
+                        {
+                        return reject(400, "Invalid Content-Length");
+                        }
+                    cbBody = cbValue;
+                    }
+                }
+            }
+        catch (NumberFormatException e)
+            {
+            return reject(400, "Malformed body framing");
+            }
+
+        if (cbBody != 0)
+            {
+            sendContinue(headers, sProtocol);
+            }
+
+        boolean     fStream = cbBody < 0 || cbBody > MAX_INLINE_BODY;
+        RequestBody body    = fStream
+                ? new RequestBody(cbBody)
+                : new RequestBody(readFixed((int) cbBody));
+
+        HttpExchange exchange = new HttpExchange(this, sMethod, sURI, sProtocol, headers, body,
+                fKeepAlive);
+        synchronized (this)
+            {
+            if (m_fClosed)
+                {
+                return false;
+                }
+            f_dequeExchanges.addLast(exchange);
+            if (!fKeepAlive)
+                {
+                m_fClosing = true;
+                }
+            }
+
+        f_engine.dispatch(exchange);
+        if (fStream)
+            {
+            try
+                {
+                if (cbBody < 0)
+                    {
+                    streamChunked(body);
+                    }
+                else
+                    {
+                    streamFixed(body, cbBody);
+                    }
+                body.end();
+                }
+            catch (IOException e)
+                {
+                body.fail(e);
+                throw e;
+                }
+            catch (ProtocolException | NumberFormatException e)
+                {
+                // the request has already been dispatched, so there is no way to reject it;
+                // let the handler know and stop reading
+                body.fail(new IOException("Malformed request body: " + e.getMessage()));
+                return false;
+                }
+            catch (RuntimeException e)
+                {
+                Runtime.logRuntimeException("HTTP request body processing failure", e);
+                body.fail(new IOException("Request body processing failure: " + e));
+                return false;
+                }
+            }
+        return fKeepAlive;
+        }
+
+    /**
+     * Respond to a malformed request and stop reading from the connection.
+     *
+     * @return false
+     */
+    private boolean reject(int nStatus, String sReason)
+        {
+        HttpExchange exchange = new HttpExchange(this, "", "", "HTTP/1.1", new HttpHeaders(),
+                new RequestBody(HttpExchange.NO_BYTES), false);
+        synchronized (this)
+            {
+            if (m_fClosed)
+                {
+                return false;
+                }
+            f_dequeExchanges.addLast(exchange);
+            m_fClosing = true;
+            }
+        exchange.sendResponse(nStatus, sReason.getBytes(StandardCharsets.ISO_8859_1));
+        return false;
+        }
+
+    /**
+     * Send the "100 Continue" interim response if the client asked for it, after all the responses
+     * to the preceding requests have been written.
+     */
+    private void sendContinue(HttpHeaders headers, String sProtocol)
+            throws IOException
+        {
+        if (headers.containsToken("Expect", "100-continue") && !sProtocol.equals("HTTP/1.0")
+                && f_bufRead.position() == 0)
+            {
+            synchronized (this)
+                {
+                while ((!f_dequeExchanges.isEmpty() || m_fWriting) && !m_fClosed)
+                    {
+                    waitForWriter();
+                    }
+                if (m_fClosed)
+                    {
+                    throw new EOFException();
+                    }
+                }
+            f_transport.write(ByteBuffer.wrap(CONTINUE));
+            }
+        }
+
+    /**
+     * Read a body of the specified length.
+     */
+    private byte[] readFixed(int cb)
+            throws IOException
+        {
+        if (cb == 0)
+            {
+            return HttpExchange.NO_BYTES;
+            }
+
+        byte[]     ab  = new byte[cb];
+        ByteBuffer buf = f_bufRead;
+        for (int of = 0; of < cb; )
+            {
+            if (buf.position() == 0 && fill() < 0)
+                {
+                throw new EOFException();
+                }
+
+            int cbCopy = Math.min(buf.position(), cb - of);
+            buf.get(0, ab, of, cbCopy);
+            consume(cbCopy);
+            of += cbCopy;
+            }
+        return ab;
+        }
+
+    /**
+     * Stream a body of the specified length.
+     */
+    private void streamFixed(RequestBody body, long cb)
+            throws IOException
+        {
+        ByteBuffer buf = f_bufRead;
+        while (cb > 0)
+            {
+            if (buf.position() == 0 && fill() < 0)
+                {
+                throw new EOFException();
+                }
+            cb -= transfer(body, (int) Math.min(buf.position(), cb));
+            }
+        }
+
+    /**
+     * Stream a body that uses the "chunked" transfer coding; the trailer fields are discarded.
+     */
+    private void streamChunked(RequestBody body)
+            throws IOException, ProtocolException
+        {
+        ByteBuffer buf = f_bufRead;
+        while (true)
+            {
+            String sSize = readLine();
+            int    ofExt = sSize.indexOf(';');
+            long   cb    = Long.parseLong((ofExt < 0 ? sSize : sSize.substring(0, ofExt)).trim(), 16);
+            if (cb < 0)
+                {
+                throw new ProtocolException(400, "Malformed chunk");
+                }
+            if (cb == 0)
+                {
+                break;
+                }
+
+            while (cb > 0)
+                {
+                if (buf.position() == 0 && fill() < 0)
+                    {
+                    throw new EOFException();
+                    }
+                cb -= transfer(body, (int) Math.min(buf.position(), cb));
+                }
+
+            if (!readLine().isEmpty())
+                {
+                throw new ProtocolException(400, "Malformed chunk");
+                }
+            }
+
+        while (!readLine().isEmpty())
+            {
+            // skip the trailer fields
+            }
+        }
+
+    /**
+     * Move the specified number of bytes from the read buffer to the body, waiting for the body's
+     * consumer if it has fallen behind.
+     *
+     * @return the number of bytes moved
+     */
+    private int transfer(RequestBody body, int cb)
+            throws InterruptedIOException
+        {
+        if (body.isDiscarded())
+            {
+            consume(cb);
+            return cb;
+            }
+
+        byte[] ab = new byte[cb];
+        f_bufRead.get(0, ab);
+        consume(cb);
+
+        CompletableFuture<Void> cf = body.write(ab);
+        if (!cf.isDone())
+            {
+            try
+                {
+                cf.get();
+                }
+            catch (InterruptedException e)
+                {
+                throw new InterruptedIOException();
+                }
+            catch (ExecutionException e)
+                {
+                // the future never completes exceptionally
+                }
+            }
+        return cb;
+        }
+
+    /**
+     * Read a line terminated by LF (or CRLF).
+     *
+     * @return the line without the terminator
+     */
+    private String readLine()
+            throws IOException, ProtocolException
+        {
+        ByteBuffer buf    = f_bufRead;
+        int        ofScan = 0;
+        while (true)
+            {
+            for (int of = ofScan, ofEnd = buf.position(); of < ofEnd; of++)
+                {
+                if (buf.get(of) == '\n')
+                    {
+                    int cch = of > 0 && buf.get(of - 1) == '\r' ? of - 1 : of;
+
+                    byte[] ab = new byte[cch];
+                    buf.get(0, ab);
+                    consume(of + 1);
+                    return new String(ab, StandardCharsets.ISO_8859_1);
+                    }
+                }
+
+            ofScan = buf.position();
+            if (!buf.hasRemaining())
+                {
+                throw new ProtocolException(400, "Line too long");
+                }
+            if (fill() < 0)
+                {
+                throw new EOFException();
+                }
+            }
+        }
+
+    /**
+     * Find the end of the request head (an empty line) in the read buffer.
+     *
+     * @param ofScan  the offset to start the scan at
+     *
+     * @return the offset immediately following the empty line, or -1 if not found
+     */
+    private int findEndOfHead(int ofScan)
+        {
+        ByteBuffer buf = f_bufRead;
+        for (int of = ofScan, ofEnd = buf.position(); of < ofEnd; of++)
+            {
+            if (buf.get(of) == '\n')
+                {
+                if (of + 1 < ofEnd && buf.get(of + 1) == '\n')
+                    {
+                    return of + 2;
+                    }
+                if (of + 2 < ofEnd && buf.get(of + 1) == '\r' && buf.get(of + 2) == '\n')
+                    {
+                    return of + 3;
+                    }
+                }
+            }
+        return -1;
+        }
+
+    @Override
+    protected boolean isIdle()
+        {
+        return f_dequeExchanges.isEmpty();
+        }
+
+    /**
+     * Wait for the writer to make progress; must be called while holding this connection's monitor.
+     */
+    private void waitForWriter()
+            throws InterruptedIOException
+        {
+        try
+            {
+            wait();
+            }
+        catch (InterruptedException e)
+            {
+            throw new InterruptedIOException();
+            }
+        }
+
+
+    // ----- response processing -------------------------------------------------------------------
+
+    @Override
+    void onResponse(HttpExchange exchange)
+        {
+        synchronized (this)
+            {
+            if (m_fClosed || m_fWriting || f_dequeExchanges.peekFirst() != exchange)
+                {
+                // the connection is gone, or the writer is going to pick the response up
+                return;
+                }
+            m_fWriting = true;
+            }
+        f_engine.startThread(this::writeResponses);
+        }
+
+    /**
+     * The writer thread's body: write all the ready responses (and all the ready portions of the
+     * streamed response bodies) in the request order.
+     */
+    private void writeResponses()
+        {
+        boolean fRelease;
+        do
+            {
+            boolean fClose = false;
+            boolean fAbort = false;
+            while (true)
+                {
+                HttpExchange exchange;
+                synchronized (this)
+                    {
+                    exchange = m_fClosed ? null : f_dequeExchanges.peekFirst();
+                    if (exchange == null || !exchange.isWritable())
+                        {
+                        if (exchange == null && m_fClosing && !m_fClosed)
+                            {
+                            // the last response has been written
+                            m_fClosed = fClose = true;
+                            }
+                        break;
+                        }
+                    }
+
+                boolean fDone;
+                try
+                    {
+                    fDone = writeResponse(exchange);
+                    }
+                catch (IOException e)
+                    {
+                    List<HttpExchange> listDropped;
+                    synchronized (this)
+                        {
+                        fAbort      = !m_fClosed;
+                        m_fClosed   = true;
+                        listDropped = drainExchanges();
+                        }
+                    abandon(listDropped);
+                    break;
+                    }
+
+                if (!fDone)
+                    {
+                    // the rest of the streamed body has not been produced yet
+                    break;
+                    }
+
+                // the rest of the request body (if any) is of no use any longer
+                exchange.getRequestBody().discard();
+
+                boolean            fKeepAlive  = exchange.isKeepAlive();
+                List<HttpExchange> listDropped = null;
+                synchronized (this)
+                    {
+                    f_dequeExchanges.pollFirst();
+                    if (!fKeepAlive)
+                        {
+                        // any pipelined requests that follow are abandoned
+                        m_fClosing  = true;
+                        listDropped = drainExchanges();
+                        }
+                    else if (m_fReading && f_dequeExchanges.isEmpty())
+                        {
+                        armIdleTimeout();
+                        }
+                    notifyAll();
+                    }
+                abandon(listDropped);
+                }
+
+            if (fClose || fAbort)
+                {
+                closeTransport(fAbort);
+                }
+
+            synchronized (this)
+                {
+                // a response may have arrived after the check above, while the "writing"
+                // status still discouraged anyone else from starting a writer
+                HttpExchange exchange = f_dequeExchanges.peekFirst();
+                if (!m_fClosed && (exchange == null ? m_fClosing : exchange.isWritable()))
+                    {
+                    fRelease = false;
+                    continue;
+                    }
+
+                m_fWriting = false;
+                fRelease   = isQuiescent();
+                notifyAll();
+                }
+            break;
+            }
+        while (true);
+
+        if (fRelease)
+            {
+            f_transport.release();
+            }
+        }
+
+    /**
+     * Encode and write the response (or as much of it as is ready).
+     *
+     * @return true iff the response has been written in full
+     */
+    private boolean writeResponse(HttpExchange exchange)
+            throws IOException
+        {
+        ResponseBody body = exchange.getResponseStream();
+        if (body != null)
+            {
+            return writeStreamed(exchange, body);
+            }
+
+        int     nStatus = exchange.getResponseCode();
+        byte[]  abBody  = exchange.getResponseBody();
+        boolean fBody   = isBodyAllowed(nStatus);
+
+        byte[] abHead = formatHead(exchange, fBody ? "Content-Length: " + abBody.length : null,
+                                   exchange.isKeepAlive());
+        if (!fBody || exchange.getRequestMethod().equals("HEAD"))
+            {
+            abBody = HttpExchange.NO_BYTES;
+            }
+
+        BufferPool pool = f_engine.getReadBufferPool();
+        if (abHead.length + abBody.length <= pool.getBufferSize())
+            {
+            // a small response is written out in one go from a direct buffer
+            ByteBuffer buf = pool.acquire();
+            try
+                {
+                write(buf.put(abHead).put(abBody).flip());
+                }
+            finally
+                {
+                pool.release(buf);
+                }
+            }
+        else
+            {
+            write(ByteBuffer.wrap(abHead), ByteBuffer.wrap(abBody));
+            }
+        return true;
+        }
+
+    /**
+     * Write the head of a response with a streamed body (unless already written) and all the
+     * portions of the body that are ready.
+     *
+     * @return true iff the response has been written in full
+     */
+    private boolean writeStreamed(HttpExchange exchange, ResponseBody body)
+            throws IOException
+        {
+        int     nStatus = exchange.getResponseCode();
+        boolean fBody   = isBodyAllowed(nStatus);
+        if (!body.m_fHeadWritten)
+            {
+            String sFraming = null;
+            if (fBody)
+                {
+                String sLength = exchange.getResponseHeaders().getFirst("Content-Length");
+                if (sLength != null)
+                    {
+                    try
+                        {
+                        body.m_cbRemaining = Long.parseLong(sLength.trim());
+                        }
+                    catch (NumberFormatException ignore) {}
+                    }
+
+                if (body.m_cbRemaining >= 0)
+                    {
+                    sFraming = "Content-Length: " + body.m_cbRemaining;
+                    }
+                else if (exchange.getProtocol().equals("HTTP/1.0"))
+                    {
+                    body.m_fCloseDelimited = true;
+                    }
+                else
+                    {
+                    body.m_fChunked = true;
+                    sFraming        = "Transfer-Encoding: chunked";
+                    }
+                }
+
+            write(ByteBuffer.wrap(formatHead(exchange, sFraming, exchange.isKeepAlive())));
+            body.m_fHeadWritten = true;
+            }
+
+        fBody &= !exchange.getRequestMethod().equals("HEAD");
+        for (byte[] ab; (ab = body.poll()) != null; )
+            {
+            if (!fBody)
+                {
+                continue;
+                }
+
+            if (body.m_fChunked)
+                {
+                byte[] abSize = (Integer.toHexString(ab.length) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+                write(ByteBuffer.wrap(abSize), ByteBuffer.wrap(ab), ByteBuffer.wrap(CRLF));
+                }
+            else
+                {
+                if (body.m_cbRemaining >= 0)
+                    {
+                    if (ab.length > body.m_cbRemaining)
+                        {
+                        throw new IOException("The response body exceeds its Content-Length");
+                        }
+                    body.m_cbRemaining -= ab.length;
+                    }
+                write(ByteBuffer.wrap(ab));
+                }
+            }
+
+        if (body.isAborted())
+            {
+            throw new IOException("The response body has been aborted");
+            }
+        if (!body.isEnded())
+            {
+            return false;
+            }
+
+        if (fBody)
+            {
+            if (body.m_fChunked)
+                {
+                write(ByteBuffer.wrap(LAST_CHUNK));
+                }
+            else if (body.m_cbRemaining > 0)
+                {
+                throw new IOException("The response body is shorter than its Content-Length");
+                }
+            }
+        return true;
+        }
+
+    /**
+     * Format the response head.
+     *
+     * @param exchange    the exchange
+     * @param sFraming    the framing header or null if none
+     * @param fKeepAlive  true iff the connection is going to be kept alive
+     */
+    private byte[] formatHead(HttpExchange exchange, String sFraming, boolean fKeepAlive)
+        {
+        int nStatus = exchange.getResponseCode();
+
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("HTTP/1.1 ").append(nStatus).append(' ').append(getReasonPhrase(nStatus)).append("\r\n");
+
+        HttpHeaders headers = exchange.getResponseHeaders();
+        for (Map.Entry<String, List<String>> entry : headers.entries())
+            {
+            String sName = entry.getKey();
+            if (sName.equals("Content-length") || sName.equals("Transfer-encoding")
+                    || sName.equals("Connection"))
+                {
+                // the framing and the connection management are controlled by the engine
+                continue;
+                }
+            for (String sValue : entry.getValue())
+                {
+                sb.append(sName).append(": ").append(sValue).append("\r\n");
+                }
+            }
+        if (!headers.contains("Date"))
+            {
+            sb.append("Date: ").append(currentDate()).append("\r\n");
+            }
+        if (sFraming != null)
+            {
+            sb.append(sFraming).append("\r\n");
+            }
+        if (!fKeepAlive)
+            {
+            sb.append("Connection: close\r\n");
+            }
+        sb.append("\r\n");
+
+        return sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+    /**
+     * Remove all the exchanges from the queue; must be called while holding this connection's
+     * monitor.
+     *
+     * @return the removed exchanges (null if none)
+     */
+    private List<HttpExchange> drainExchanges()
+        {
+        if (f_dequeExchanges.isEmpty())
+            {
+            return null;
+            }
+
+        List<HttpExchange> list = new ArrayList<>(f_dequeExchanges);
+        f_dequeExchanges.clear();
+        return list;
+        }
+
+    /**
+     * Let the specified exchanges know that they have been dropped.
+     */
+    private static void abandon(List<HttpExchange> listExchanges)
+        {
+        if (listExchanges != null)
+            {
+            for (HttpExchange exchange : listExchanges)
+                {
+                exchange.abandon();
+                }
+            }
+        }
+
+    /**
+     * @return true iff neither reader nor writer are using the connection any longer; must be
+     *         called while holding this connection's monitor
+     */
+    private boolean isQuiescent()
+        {
+        return m_fReaderDone && !m_fWriting && m_fClosed;
+        }
+
+    /**
+     * Close the transport; called exactly once by the thread that moved the connection into the
+     * "closed" state.
+     */
+    private void closeTransport(boolean fAbort)
+        {
+        synchronized (this)
+            {
+            disarmIdleTimeout();
+            }
+
+        if (fAbort)
+            {
+            f_transport.abort();
+            }
+        else
+            {
+            f_transport.close();
+            }
+        f_engine.onClosed(this);
+        }
+
+    /**
+     * @return the reason phrase for the specified status code
+     */
+    protected static String getReasonPhrase(int nStatus)
+        {
+        return switch (nStatus)
+            {
+            case 100 -> "Continue";
+            case 101 -> "Switching Protocols";
+            case 200 -> "OK";
+            case 201 -> "Created";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 206 -> "Partial Content";
+            case 301 -> "Moved Permanently";
+            case 302 -> "Found";
+            case 303 -> "See Other";
+            case 304 -> "Not Modified";
+            case 307 -> "Temporary Redirect";
+            case 308 -> "Permanent Redirect";
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 408 -> "Request Timeout";
+            case 409 -> "Conflict";
+            case 411 -> "Length Required";
+            case 413 -> "Content Too Large";
+            case 415 -> "Unsupported Media Type";
+            case 431 -> "Request Header Fields Too Large";
+            case 500 -> "Internal Server Error";
+            case 501 -> "Not Implemented";
+            case 502 -> "Bad Gateway";
+            case 503 -> "Service Unavailable";
+            case 505 -> "HTTP Version Not Supported";
+            default  -> "";
+            };
+        }
+
+
+    // ----- ProtocolException ---------------------------------------------------------------------
+
+    /**
+     * Indicates a malformed request that should be rejected with the specified status.
+     */
+    private static class ProtocolException
+            extends Exception
+        {
+        ProtocolException(int nStatus, String sMessage)
+            {
+            super(sMessage);
+            f_nStatus = nStatus;
+            }
+
+        private static final long serialVersionUID = 1L;
+
+        final int f_nStatus;
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The maximum number of requests in progress (dispatched, but not yet responded to) per
+     * connection; the connection stops reading when the limit is reached.
+     */
+    public static final int MAX_PIPELINED = 16;
+
+    /**
+     * The maximum size of a request body that is read in full before the request is dispatched;
+     * a larger body is streamed.
+     */
+    public static final int MAX_INLINE_BODY = 64 * 1024;
+
+    private static final byte[] CONTINUE =
+            "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final HttpExchange[] NO_EXCHANGES = new HttpExchange[0];
+
+    /**
+     * The requests in progress, in the order of their arrival.
+     */
+    private final Deque<HttpExchange> f_dequeExchanges = new ArrayDeque<>();
+
+    /**
+     * True iff the reader has terminated.
+     */
+    private boolean m_fReaderDone;
+
+    /**
+     * True iff the writer is running.
+     */
+    private boolean m_fWriting;
+
+    /**
+     * True iff no more requests are going to be read; the connection closes as soon as the
+     * requests in progress are responded to.
+     */
+    private boolean m_fClosing;
+
+    /**
+     * True iff the connection has been closed (or is being closed).
+     */
+    private boolean m_fClosed;
+    }
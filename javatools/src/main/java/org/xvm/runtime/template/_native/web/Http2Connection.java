@@ -0,0 +1,1737 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.xvm.runtime.Runtime;
+
+
+/**
+ * An HTTP/2 connection (RFC 9113) accepted by the {@link HttpEngine}.
+ * <p>
+ * The reader thread reads the frames, decodes the header blocks and dispatches every request
+ * (stream) as soon as its header block has arrived, so any number of requests (up to
+ * {@link #MAX_STREAMS} at a time) are processed concurrently over the single connection. The
+ * request bodies are always streamed; the flow control credit for a stream is only returned to the
+ * client once the stream's {@link RequestBody} consumer has caught up, so a slow consumer throttles
+ * its own stream without holding up the others.
+ * <p>
+ * All the frames are written by a short-lived virtual "writer" thread, which is started whenever
+ * there is something to write: the control frames first, then the responses, interleaving the DATA
+ * frames of the concurrent streams in a round-robin fashion within the limits of the flow control
+ * windows granted by the client. The server push, the stream priorities and the "Upgrade: h2c"
+ * mechanism are not supported.
+ * <p>
+ * An idle connection (no streams in progress) is closed after the engine's idle timeout.
+ */
+public class Http2Connection
+        extends HttpConnection
+    {
+    Http2Connection(HttpEngine engine, Transport transport, ByteBuffer bufRead)
+        {
+        super(engine, transport, bufRead);
+        }
+
+    @Override
+    public String getProtocol()
+        {
+        return "HTTP/2";
+        }
+
+    @Override
+    public void abort()
+        {
+        f_transport.abort();
+
+        // the writer might be waiting for a body producer rather than for the network
+        Stream[] aStream;
+        synchronized (this)
+            {
+            aStream = f_mapStreams.values().toArray(NO_STREAMS);
+            }
+        for (Stream stream : aStream)
+            {
+            stream.f_exchange.abandon();
+            }
+        }
+
+    /**
+     * The reader thread's body.
+     */
+    @Override
+    public void run()
+        {
+        boolean fAbort = true;
+        try
+            {
+            try
+                {
+                readPreface();
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream(24);
+                writeSetting(out, SETTINGS_MAX_CONCURRENT_STREAMS, MAX_STREAMS);
+                writeSetting(out, SETTINGS_INITIAL_WINDOW_SIZE, STREAM_WINDOW);
+                writeSetting(out, SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE);
+                sendControl(frame(SETTINGS, 0, 0, out.toByteArray()));
+                sendControl(frame(WINDOW_UPDATE, 0, 0, intBytes(CONNECTION_WINDOW - DEFAULT_WINDOW)));
+
+                while (true)
+                    {
+                    readFrame();
+                    }
+                }
+            catch (Http2Exception e)
+                {
+                // the GOAWAY is sent by the writer, which then closes the connection
+                goAway(e.f_nError, e.getMessage());
+                fAbort = false;
+                }
+            }
+        catch (IOException e)
+            {
+            // the connection has been reset, timed out or closed
+            }
+        catch (RuntimeException e)
+            {
+            // a failure to process a frame leaves the connection state (e.g. the HPACK context)
+            // undefined; reset the streams in progress and let the writer close the connection
+            Runtime.logRuntimeException("HTTP/2 frame processing failure", e);
+
+            Integer[] anId;
+            synchronized (this)
+                {
+                anId = f_mapStreams.keySet().toArray(new Integer[0]);
+                }
+            for (int nId : anId)
+                {
+                resetStream(nId, INTERNAL_ERROR);
+                }
+            goAway(INTERNAL_ERROR, "Internal error");
+            fAbort = false;
+            }
+        finally
+            {
+            f_engine.getReadBufferPool().release(f_bufRead);
+
+            boolean      fClose      = false;
+            List<Stream> listDropped = null;
+            synchronized (this)
+                {
+                m_fClosing = true;
+                if (fAbort && !m_fClosed)
+                    {
+                    m_fClosed   = fClose = true;
+                    listDropped = drainStreams();
+                    }
+                }
+            abandon(listDropped);
+
+            if (fClose)
+                {
+                closeTransport(true);
+                }
+
+            boolean fRelease;
+            synchronized (this)
+                {
+                m_fReaderDone = true;
+                fRelease      = isQuiescent();
+                }
+            if (fRelease)
+                {
+                f_transport.release();
+                }
+            }
+        }
+
+
+    // ----- frame processing ----------------------------------------------------------------------
+
+    /**
+     * Read and verify the client connection preface (the SETTINGS frame that follows it is
+     * processed as any other frame).
+     */
+    private void readPreface()
+            throws IOException, Http2Exception
+        {
+        byte[] abPreface = PREFACE;
+        ensure(abPreface.length);
+        for (int i = 0, c = abPreface.length; i < c; i++)
+            {
+            if (f_bufRead.get(i) != abPreface[i])
+                {
+                throw new Http2Exception(PROTOCOL_ERROR, "Invalid connection preface");
+                }
+            }
+        consume(abPreface.length);
+        }
+
+    /**
+     * Read and process the next frame.
+     */
+    private void readFrame()
+            throws IOException, Http2Exception
+        {
+        ByteBuffer buf = f_bufRead;
+        ensure(FRAME_HEADER_SIZE);
+
+        int cb     = (buf.get(0) & 0xFF) << 16 | (buf.get(1) & 0xFF) << 8 | buf.get(2) & 0xFF;
+        int nType  = buf.get(3) & 0xFF;
+        int nFlags = buf.get(4) & 0xFF;
+        int nId    = buf.getInt(5) & 0x7FFFFFFF;
+        consume(FRAME_HEADER_SIZE);
+
+        if (cb > MAX_FRAME_SIZE)
+            {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Frame too large: " + cb);
+            }
+
+        byte[] ab = readBytes(cb);
+
+        if (m_nContinuation != 0 && (nType != CONTINUATION || nId != m_nContinuation))
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "CONTINUATION expected");
+            }
+        if (!m_fSettings && nType != SETTINGS)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS expected");
+            }
+
+        switch (nType)
+            {
+            case DATA          -> onData(nId, nFlags, ab);
+            case HEADERS       -> onHeaders(nId, nFlags, ab);
+            case PRIORITY      -> onPriority(nId, ab);
+            case RST_STREAM    -> onResetStream(nId, ab);
+            case SETTINGS      -> onSettings(nId, nFlags, ab);
+            case PUSH_PROMISE  -> throw new Http2Exception(PROTOCOL_ERROR, "PUSH_PROMISE from a client");
+            case PING          -> onPing(nId, nFlags, ab);
+            case GOAWAY        -> onGoAway(nId);
+            case WINDOW_UPDATE -> onWindowUpdate(nId, ab);
+            case CONTINUATION  -> onContinuation(nId, nFlags, ab);
+            default            -> {} // the unknown frame types must be ignored
+            }
+        }
+
+    /**
+     * Process a DATA frame.
+     */
+    private void onData(int nId, int nFlags, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId == 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "DATA on stream 0");
+            }
+
+        int    cbFrame = ab.length;
+        byte[] abData  = unpad(ab, nFlags, 0);
+
+        // the connection level window only protects the buffers of this connection, which don't
+        // exist, so the credit is returned right away; the stream level windows do the throttling
+        Stream stream;
+        synchronized (this)
+            {
+            if ((m_cbRecvWindow -= cbFrame) < 0)
+                {
+                throw new Http2Exception(FLOW_CONTROL_ERROR, "Connection window exceeded");
+                }
+            if ((m_cbUnacked += cbFrame) >= CONNECTION_WINDOW / 2)
+                {
+                sendControl(frame(WINDOW_UPDATE, 0, 0, intBytes(m_cbUnacked)));
+                m_cbRecvWindow += m_cbUnacked;
+                m_cbUnacked     = 0;
+                }
+
+            stream = f_mapStreams.get(nId);
+            if (stream == null || stream.m_fRemoteClosed)
+                {
+                if (nId > m_nLastStreamId)
+                    {
+                    throw new Http2Exception(PROTOCOL_ERROR, "DATA on an idle stream");
+                    }
+                if (stream != null)
+                    {
+                    throw new Http2Exception(STREAM_CLOSED, "DATA on a half-closed stream");
+                    }
+                // the stream has been reset or completed by the server; ignore the frame
+                return;
+                }
+
+            if ((stream.m_cbRecvWindow -= cbFrame) < 0)
+                {
+                stream = null;
+                }
+            }
+
+        if (stream == null)
+            {
+            resetStream(nId, FLOW_CONTROL_ERROR);
+            return;
+            }
+
+        RequestBody body      = stream.f_exchange.getRequestBody();
+        int         cbCredit  = cbFrame - abData.length;
+        if (abData.length > 0)
+            {
+            if (body.isDiscarded())
+                {
+                cbCredit += abData.length;
+                }
+            else
+                {
+                CompletableFuture<Void> cf = body.write(abData);
+                if (cf.isDone() && stream.m_cfResume == null)
+                    {
+                    cbCredit += abData.length;
+                    }
+                else
+                    {
+                    withhold(stream, cf, abData.length);
+                    }
+                }
+            }
+
+        if ((nFlags & FLAG_END_STREAM) != 0)
+            {
+            synchronized (this)
+                {
+                stream.m_fRemoteClosed = true;
+                }
+            body.end();
+            }
+        else if (cbCredit > 0)
+            {
+            credit(stream, cbCredit);
+            }
+        }
+
+    /**
+     * Process a HEADERS frame.
+     */
+    private void onHeaders(int nId, int nFlags, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId == 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "HEADERS on stream 0");
+            }
+
+        byte[] abFragment = unpad(ab, nFlags, (nFlags & FLAG_PRIORITY) == 0 ? 0 : 5);
+        if ((nFlags & FLAG_END_HEADERS) != 0)
+            {
+            onHeaderBlock(nId, nFlags, abFragment);
+            }
+        else
+            {
+            m_nContinuation  = nId;
+            m_nHeadersFlags  = nFlags;
+            m_outHeaderBlock = new ByteArrayOutputStream(abFragment.length * 2);
+            m_outHeaderBlock.writeBytes(abFragment);
+            }
+        }
+
+    /**
+     * Process a CONTINUATION frame.
+     */
+    private void onContinuation(int nId, int nFlags, byte[] ab)
+            throws Http2Exception
+        {
+        if (m_nContinuation == 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "Unexpected CONTINUATION");
+            }
+
+        ByteArrayOutputStream out = m_outHeaderBlock;
+        out.writeBytes(ab);
+        if (out.size() > MAX_HEADER_BLOCK_SIZE)
+            {
+            throw new Http2Exception(ENHANCE_YOUR_CALM, "Header block too large");
+            }
+
+        if ((nFlags & FLAG_END_HEADERS) != 0)
+            {
+            m_nContinuation  = 0;
+            m_outHeaderBlock = null;
+            onHeaderBlock(nId, m_nHeadersFlags, out.toByteArray());
+            }
+        }
+
+    /**
+     * Process a complete header block: either start a new stream, or end an existing one (the
+     * trailer fields are discarded).
+     */
+    private void onHeaderBlock(int nId, int nFlags, byte[] abBlock)
+            throws Http2Exception
+        {
+        // the block must be decoded even if it's going to be ignored, to keep the dynamic table
+        // in sync with the client's encoder
+        RequestHead head = new RequestHead();
+        try
+            {
+            f_decoder.decode(abBlock, head);
+            }
+        catch (Hpack.CompressionException e)
+            {
+            throw new Http2Exception(COMPRESSION_ERROR, e.getMessage());
+            }
+
+        boolean fEndStream = (nFlags & FLAG_END_STREAM) != 0;
+        if (nId <= m_nLastStreamId)
+            {
+            Stream stream;
+            synchronized (this)
+                {
+                stream = f_mapStreams.get(nId);
+                if (stream != null && stream.m_fRemoteClosed)
+                    {
+                    throw new Http2Exception(STREAM_CLOSED, "HEADERS on a half-closed stream");
+                    }
+                }
+
+            if (stream != null)
+                {
+                if (fEndStream)
+                    {
+                    synchronized (this)
+                        {
+                        stream.m_fRemoteClosed = true;
+                        }
+                    stream.f_exchange.getRequestBody().end();
+                    }
+                else
+                    {
+                    resetStream(nId, PROTOCOL_ERROR);
+                    }
+                }
+            return;
+            }
+
+        if ((nId & 1) == 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "Invalid stream id: " + nId);
+            }
+        m_nLastStreamId = nId;
+
+        if (head.m_fMalformed || head.m_sMethod == null
+                || head.m_sPath == null && !head.m_sMethod.equals("CONNECT"))
+            {
+            resetStream(nId, PROTOCOL_ERROR);
+            return;
+            }
+
+        HttpHeaders headers = head.f_headers;
+        if (head.m_sCookie != null)
+            {
+            headers.add("Cookie", head.m_sCookie);
+            }
+        if (head.m_sAuthority != null && !headers.contains("Host"))
+            {
+            headers.add("Host", head.m_sAuthority);
+            }
+
+        long cbBody = fEndStream ? 0 : -1;
+        if (!fEndStream && headers.contains("Content-Length"))
+            {
+            try
+                {
+                cbBody = Long.parseLong(headers.getFirst("Content-Length").trim());
+                }
+            catch (NumberFormatException e)
+                {
+                resetStream(nId, PROTOCOL_ERROR);
+                return;
+                }
+            }
+
+        RequestBody  body     = cbBody == 0
+                ? new RequestBody(HttpExchange.NO_BYTES)
+                : new RequestBody(cbBody);
+        HttpExchange exchange = new HttpExchange(this, nId, head.m_sMethod,
+                head.m_sPath == null ? head.m_sAuthority : head.m_sPath, getProtocol(), headers,
+                body, true);
+        Stream       stream   = new Stream(nId, exchange);
+        synchronized (this)
+            {
+            if (m_fClosing)
+                {
+                // no new streams after a GOAWAY
+                return;
+                }
+            if (f_mapStreams.size() >= MAX_STREAMS)
+                {
+                stream = null;
+                }
+            else
+                {
+                stream.m_cbSendWindow  = m_cbInitialWindow;
+                stream.m_fRemoteClosed = fEndStream;
+                f_mapStreams.put(nId, stream);
+                }
+            }
+
+        if (stream == null)
+            {
+            resetStream(nId, REFUSED_STREAM);
+            }
+        else if (head.m_cbSize > MAX_HEADER_LIST_SIZE)
+            {
+            exchange.sendResponse(431, null);
+            }
+        else
+            {
+            f_engine.dispatch(exchange);
+            }
+        }
+
+    /**
+     * Process a PRIORITY frame; the priorities are ignored.
+     */
+    private void onPriority(int nId, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId == 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "PRIORITY on stream 0");
+            }
+        if (ab.length != 5)
+            {
+            resetStream(nId, FRAME_SIZE_ERROR);
+            }
+        }
+
+    /**
+     * Process an RST_STREAM frame.
+     */
+    private void onResetStream(int nId, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId == 0 || nId > m_nLastStreamId)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "RST_STREAM on an idle stream");
+            }
+        if (ab.length != 4)
+            {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid RST_STREAM");
+            }
+
+        Stream stream;
+        synchronized (this)
+            {
+            stream = f_mapStreams.remove(nId);
+            if (stream != null)
+                {
+                stream.m_fDone = true;
+                }
+            }
+        if (stream != null)
+            {
+            stream.f_exchange.abandon();
+            }
+        }
+
+    /**
+     * Process a SETTINGS frame.
+     */
+    private void onSettings(int nId, int nFlags, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId != 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS on a stream");
+            }
+        if ((nFlags & FLAG_ACK) != 0)
+            {
+            if (ab.length != 0)
+                {
+                throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS ACK");
+                }
+            return;
+            }
+        if (ab.length % 6 != 0)
+            {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid SETTINGS");
+            }
+
+        ByteBuffer buf = ByteBuffer.wrap(ab);
+        synchronized (this)
+            {
+            while (buf.hasRemaining())
+                {
+                int nSetting = buf.getShort() & 0xFFFF;
+                int nValue   = buf.getInt();
+                switch (nSetting)
+                    {
+                    case SETTINGS_HEADER_TABLE_SIZE:
+                        f_encoder.setMaxTableSize(nValue < 0 ? Integer.MAX_VALUE : nValue);
+                        break;
+
+                    case SETTINGS_ENABLE_PUSH:
+                        if (nValue != 0 && nValue != 1)
+                            {
+                            throw new Http2Exception(PROTOCOL_ERROR, "Invalid ENABLE_PUSH");
+                            }
+                        break;
+
+                    case SETTINGS_INITIAL_WINDOW_SIZE:
+                        {
+                        if (nValue < 0)
+                            {
+                            throw new Http2Exception(FLOW_CONTROL_ERROR, "Invalid INITIAL_WINDOW_SIZE");
+                            }
+                        // the change applies to all the streams (RFC 9113 section 6.9.2)
+                        int nDelta = nValue - m_cbInitialWindow;
+                        for (Stream stream : f_mapStreams.values())
+                            {
+                            if ((stream.m_cbSendWindow += nDelta) > MAX_WINDOW)
+                                {
+                                throw new Http2Exception(FLOW_CONTROL_ERROR, "Window overflow");
+                                }
+                            }
+                        m_cbInitialWindow = nValue;
+                        break;
+                        }
+
+                    case SETTINGS_MAX_FRAME_SIZE:
+                        if (nValue < MAX_FRAME_SIZE || nValue > MAX_FRAME_SIZE_LIMIT)
+                            {
+                            throw new Http2Exception(PROTOCOL_ERROR, "Invalid MAX_FRAME_SIZE");
+                            }
+                        m_cbMaxFrame = Math.min(nValue, MAX_FRAME_SIZE_OUT);
+                        break;
+
+                    default:
+                        // the unknown or unused settings are ignored
+                        break;
+                    }
+                }
+
+            m_fSettings = true;
+            sendControl(frame(SETTINGS, FLAG_ACK, 0, NO_BYTES));
+            }
+        }
+
+    /**
+     * Process a PING frame.
+     */
+    private void onPing(int nId, int nFlags, byte[] ab)
+            throws Http2Exception
+        {
+        if (nId != 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "PING on a stream");
+            }
+        if (ab.length != 8)
+            {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid PING");
+            }
+        if ((nFlags & FLAG_ACK) == 0)
+            {
+            sendControl(frame(PING, FLAG_ACK, 0, ab));
+            }
+        }
+
+    /**
+     * Process a GOAWAY frame: no new streams are going to be accepted, and the connection is
+     * closed as soon as the streams in progress complete.
+     */
+    private void onGoAway(int nId)
+            throws Http2Exception
+        {
+        if (nId != 0)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "GOAWAY on a stream");
+            }
+
+        synchronized (this)
+            {
+            m_fClosing = true;
+            }
+        signalWriter();
+        }
+
+    /**
+     * Process a WINDOW_UPDATE frame.
+     */
+    private void onWindowUpdate(int nId, byte[] ab)
+            throws Http2Exception
+        {
+        if (ab.length != 4)
+            {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE");
+            }
+
+        int cbIncrement = ByteBuffer.wrap(ab).getInt() & 0x7FFFFFFF;
+        if (nId == 0)
+            {
+            if (cbIncrement == 0)
+                {
+                throw new Http2Exception(PROTOCOL_ERROR, "Zero WINDOW_UPDATE");
+                }
+            synchronized (this)
+                {
+                if ((m_cbSendWindow += cbIncrement) > MAX_WINDOW)
+                    {
+                    throw new Http2Exception(FLOW_CONTROL_ERROR, "Window overflow");
+                    }
+                }
+            }
+        else
+            {
+            if (nId > m_nLastStreamId)
+                {
+                throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE on an idle stream");
+                }
+
+            int nError = 0;
+            synchronized (this)
+                {
+                Stream stream = f_mapStreams.get(nId);
+                if (stream != null)
+                    {
+                    if (cbIncrement == 0)
+                        {
+                        nError = PROTOCOL_ERROR;
+                        }
+                    else if ((stream.m_cbSendWindow += cbIncrement) > MAX_WINDOW)
+                        {
+                        nError = FLOW_CONTROL_ERROR;
+                        }
+                    }
+                }
+            if (nError != 0)
+                {
+                resetStream(nId, nError);
+                return;
+                }
+            }
+        signalWriter();
+        }
+
+    /**
+     * Strip the padding (and the specified number of other leading bytes) from a frame payload.
+     *
+     * @return the payload without the padding
+     */
+    private static byte[] unpad(byte[] ab, int nFlags, int cbSkip)
+            throws Http2Exception
+        {
+        int of    = cbSkip;
+        int ofEnd = ab.length;
+        if ((nFlags & FLAG_PADDED) != 0)
+            {
+            if (ab.length == 0)
+                {
+                throw new Http2Exception(PROTOCOL_ERROR, "Invalid padding");
+                }
+            of    += 1;
+            ofEnd -= ab[0] & 0xFF;
+            }
+        if (of > ofEnd)
+            {
+            throw new Http2Exception(PROTOCOL_ERROR, "Invalid padding");
+            }
+        return of == 0 && ofEnd == ab.length ? ab : Arrays.copyOfRange(ab, of, ofEnd);
+        }
+
+
+    // ----- flow control --------------------------------------------------------------------------
+
+    /**
+     * Withhold the credit for the bytes handed to a body whose consumer has fallen behind, until
+     * the specified future completes.
+     */
+    private void withhold(Stream stream, CompletableFuture<Void> cfResume, int cb)
+        {
+        boolean fRegister;
+        synchronized (this)
+            {
+            stream.m_cbWithheld += cb;
+            fRegister = stream.m_cfResume != cfResume;
+            if (fRegister)
+                {
+                stream.m_cfResume = cfResume;
+                }
+            }
+
+        if (fRegister)
+            {
+            cfResume.thenRun(() ->
+                {
+                int cbRelease = 0;
+                synchronized (this)
+                    {
+                    if (stream.m_cfResume == cfResume)
+                        {
+                        cbRelease           = stream.m_cbWithheld;
+                        stream.m_cbWithheld = 0;
+                        stream.m_cfResume   = null;
+                        }
+                    }
+                if (cbRelease > 0)
+                    {
+                    credit(stream, cbRelease);
+                    }
+                });
+            }
+        }
+
+    /**
+     * Return the specified credit to the client; the WINDOW_UPDATE frames are batched.
+     */
+    private void credit(Stream stream, int cb)
+        {
+        synchronized (this)
+            {
+            if (stream.m_fRemoteClosed || stream.m_fDone)
+                {
+                return;
+                }
+
+            if ((stream.m_cbUnacked += cb) >= STREAM_WINDOW / 2)
+                {
+                sendControl(frame(WINDOW_UPDATE, 0, stream.f_nId, intBytes(stream.m_cbUnacked)));
+                stream.m_cbRecvWindow += stream.m_cbUnacked;
+                stream.m_cbUnacked     = 0;
+                }
+            }
+        }
+
+
+    // ----- reading helpers -----------------------------------------------------------------------
+
+    /**
+     * Make sure that the read buffer holds at least the specified number of bytes.
+     */
+    private void ensure(int cb)
+            throws IOException
+        {
+        while (f_bufRead.position() < cb)
+            {
+            if (fill() < 0)
+                {
+                throw new EOFException();
+                }
+            }
+        }
+
+    /**
+     * Read the specified number of bytes.
+     */
+    private byte[] readBytes(int cb)
+            throws IOException
+        {
+        if (cb == 0)
+            {
+            return NO_BYTES;
+            }
+
+        byte[]     ab  = new byte[cb];
+        ByteBuffer buf = f_bufRead;
+        for (int of = 0; of < cb; )
+            {
+            if (buf.position() == 0 && fill() < 0)
+                {
+                throw new EOFException();
+                }
+
+            int cbCopy = Math.min(buf.position(), cb - of);
+            buf.get(0, ab, of, cbCopy);
+            consume(cbCopy);
+            of += cbCopy;
+            }
+        return ab;
+        }
+
+    @Override
+    protected boolean isIdle()
+        {
+        return f_mapStreams.isEmpty();
+        }
+
+
+    // ----- writing -------------------------------------------------------------------------------
+
+    @Override
+    void onResponse(HttpExchange exchange)
+        {
+        signalWriter();
+        }
+
+    /**
+     * Queue a control frame; the control frames are written before any stream frames. Could be
+     * called while holding this connection's monitor.
+     */
+    private void sendControl(byte[] abFrame)
+        {
+        synchronized (this)
+            {
+            f_dequeControl.addLast(abFrame);
+            }
+        signalWriter();
+        }
+
+    /**
+     * Reset the specified stream (if it's still in progress) and let the client know.
+     */
+    private void resetStream(int nId, int nError)
+        {
+        Stream stream;
+        synchronized (this)
+            {
+            stream = f_mapStreams.remove(nId);
+            if (stream != null)
+                {
+                stream.m_fDone = true;
+                }
+            sendControl(frame(RST_STREAM, 0, nId, intBytes(nError)));
+            }
+        if (stream != null)
+            {
+            stream.f_exchange.abandon();
+            }
+        }
+
+    /**
+     * Abandon all the streams and queue a GOAWAY frame; the writer closes the connection after
+     * writing it.
+     */
+    private void goAway(int nError, String sReason)
+        {
+        List<Stream> listDropped;
+        synchronized (this)
+            {
+            m_fClosing  = true;
+            listDropped = drainStreams();
+
+            byte[] abReason = sReason == null ? NO_BYTES : sReason.getBytes(StandardCharsets.UTF_8);
+            sendControl(frame(GOAWAY, 0, 0, ByteBuffer.allocate(8 + abReason.length)
+                    .putInt(m_nLastStreamId).putInt(nError).put(abReason).array()));
+            }
+        abandon(listDropped);
+        }
+
+    /**
+     * Make sure the writer is going to look for something to write.
+     */
+    private void signalWriter()
+        {
+        synchronized (this)
+            {
+            m_fSignal = true;
+            if (m_fWriting || m_fClosed)
+                {
+                return;
+                }
+            m_fWriting = true;
+            }
+        f_engine.startThread(this::writeFrames);
+        }
+
+    /**
+     * The writer thread's body: write all the queued control frames and as many stream frames as
+     * the flow control permits, until there is nothing left to do.
+     */
+    private void writeFrames()
+        {
+        boolean fClose = false;
+        boolean fAbort = false;
+        boolean fRelease;
+        try
+            {
+            while (true)
+                {
+                List<ByteBuffer> listOut = new ArrayList<>();
+                Stream[]         aStream;
+                synchronized (this)
+                    {
+                    m_fSignal = false;
+                    if (m_fClosed)
+                        {
+                        break;
+                        }
+                    for (byte[] ab; (ab = f_dequeControl.pollFirst()) != null; )
+                        {
+                        listOut.add(ByteBuffer.wrap(ab));
+                        }
+                    aStream = f_mapStreams.values().toArray(NO_STREAMS);
+                    }
+
+                // one frame per stream per pass, so the streams progress at the same pace
+                for (Stream stream : aStream)
+                    {
+                    collectFrames(stream, listOut);
+                    }
+
+                if (!listOut.isEmpty())
+                    {
+                    write(listOut.toArray(NO_BUFFERS));
+                    continue;
+                    }
+
+                synchronized (this)
+                    {
+                    if (m_fSignal)
+                        {
+                        continue;
+                        }
+                    if (m_fClosing && f_mapStreams.isEmpty() && f_dequeControl.isEmpty()
+                            && !m_fClosed)
+                        {
+                        m_fClosed = fClose = true;
+                        }
+                    }
+                break;
+                }
+            }
+        catch (IOException e)
+            {
+            List<Stream> listDropped;
+            synchronized (this)
+                {
+                fAbort      = !m_fClosed;
+                m_fClosed   = true;
+                listDropped = drainStreams();
+                }
+            abandon(listDropped);
+            }
+
+        if (fClose || fAbort)
+            {
+            closeTransport(fAbort);
+            }
+
+        boolean fRestart;
+        synchronized (this)
+            {
+            // a signal could have arrived after the last check
+            fRestart   = m_fSignal && !m_fClosed;
+            m_fWriting = fRestart;
+            fRelease   = isQuiescent();
+            }
+
+        if (fRestart)
+            {
+            f_engine.startThread(this::writeFrames);
+            }
+        else if (fRelease)
+            {
+            f_transport.release();
+            }
+        }
+
+    /**
+     * Collect the next frame(s) for the specified stream: the response HEADERS, or the next DATA
+     * frame if the flow control windows allow it.
+     */
+    private void collectFrames(Stream stream, List<ByteBuffer> listOut)
+        {
+        HttpExchange exchange = stream.f_exchange;
+        if (stream.m_fDone || !exchange.isResponded())
+            {
+            return;
+            }
+
+        int          nStatus = exchange.getResponseCode();
+        ResponseBody body    = exchange.getResponseStream();
+        byte[]       abBody  = body == null ? exchange.getResponseBody() : null;
+        boolean      fBody   = isBodyAllowed(nStatus) && !exchange.getRequestMethod().equals("HEAD");
+
+        if (!stream.m_fHeadersSent)
+            {
+            boolean fEnd = body == null && (!fBody || abBody.length == 0);
+            collectHeaders(stream, nStatus, abBody, fEnd, listOut);
+            stream.m_fHeadersSent = true;
+            if (fEnd)
+                {
+                finish(stream);
+                }
+            return;
+            }
+
+        if (body == null)
+            {
+            // the rest of a fixed body
+            int cbRemain = abBody.length - stream.m_ofData;
+            int cb       = reserve(stream, cbRemain);
+            if (cb > 0)
+                {
+                boolean fEnd = cb == cbRemain;
+                collectData(stream, abBody, stream.m_ofData, cb, fEnd, listOut);
+                stream.m_ofData += cb;
+                if (fEnd)
+                    {
+                    finish(stream);
+                    }
+                }
+            return;
+            }
+
+        byte[] ab = stream.m_abData;
+        if (ab == null)
+            {
+            while ((ab = body.poll()) != null && !fBody)
+                {
+                // a body of a response to a HEAD request is dropped
+                }
+
+            if (ab == null)
+                {
+                if (body.isAborted())
+                    {
+                    resetStream(stream.f_nId, INTERNAL_ERROR);
+                    }
+                else if (body.isEnded())
+                    {
+                    collectData(stream, NO_BYTES, 0, 0, true, listOut);
+                    finish(stream);
+                    }
+                return;
+                }
+            stream.m_abData = ab;
+            stream.m_ofData = 0;
+            }
+
+        int cb = reserve(stream, ab.length - stream.m_ofData);
+        if (cb > 0)
+            {
+            collectData(stream, ab, stream.m_ofData, cb, false, listOut);
+            if ((stream.m_ofData += cb) == ab.length)
+                {
+                stream.m_abData = null;
+                }
+            }
+        }
+
+    /**
+     * Encode the response head and collect the HEADERS (and CONTINUATION) frames.
+     */
+    private void collectHeaders(Stream stream, int nStatus, byte[] abBody, boolean fEnd,
+                                List<ByteBuffer> listOut)
+        {
+        HttpExchange          exchange = stream.f_exchange;
+        HttpHeaders           headers  = exchange.getResponseHeaders();
+        Hpack.Encoder         encoder  = f_encoder;
+        ByteArrayOutputStream out      = new ByteArrayOutputStream(256);
+
+        encoder.encode(out, ":status", String.valueOf(nStatus));
+        for (Map.Entry<String, List<String>> entry : headers.entries())
+            {
+            String sName = entry.getKey().toLowerCase(Locale.ROOT);
+            if (CONNECTION_HEADERS.contains(sName)
+                    || abBody != null && sName.equals("content-length"))
+                {
+                // the framing and the connection management are controlled by the engine
+                continue;
+                }
+            for (String sValue : entry.getValue())
+                {
+                encoder.encode(out, sName, sValue);
+                }
+            }
+        if (!headers.contains("Date"))
+            {
+            encoder.encode(out, "date", currentDate());
+            }
+        if (abBody != null && isBodyAllowed(nStatus))
+            {
+            encoder.encode(out, "content-length", String.valueOf(abBody.length));
+            }
+
+        byte[] abBlock = out.toByteArray();
+        int    cbMax   = m_cbMaxFrame;
+        int    nType   = HEADERS;
+        int    of      = 0;
+        do
+            {
+            int cb     = Math.min(cbMax, abBlock.length - of);
+            int nFlags = of + cb == abBlock.length ? FLAG_END_HEADERS : 0;
+            if (nType == HEADERS && fEnd)
+                {
+                nFlags |= FLAG_END_STREAM;
+                }
+            listOut.add(header(cb, nType, nFlags, stream.f_nId));
+            listOut.add(ByteBuffer.wrap(abBlock, of, cb));
+            nType = CONTINUATION;
+            of   += cb;
+            }
+        while (of < abBlock.length);
+        }
+
+    /**
+     * Collect a DATA frame.
+     */
+    private static void collectData(Stream stream, byte[] ab, int of, int cb, boolean fEnd,
+                                    List<ByteBuffer> listOut)
+        {
+        listOut.add(header(cb, DATA, fEnd ? FLAG_END_STREAM : 0, stream.f_nId));
+        if (cb > 0)
+            {
+            listOut.add(ByteBuffer.wrap(ab, of, cb));
+            }
+        }
+
+    /**
+     * Take the send credit for up to the specified number of bytes of the stream's data.
+     *
+     * @return the number of bytes that could be sent now (zero if blocked by the flow control)
+     */
+    private int reserve(Stream stream, int cb)
+        {
+        synchronized (this)
+            {
+            cb = Math.min(Math.min(cb, m_cbMaxFrame),
+                          (int) Math.min(m_cbSendWindow, stream.m_cbSendWindow));
+            if (cb > 0)
+                {
+                m_cbSendWindow        -= cb;
+                stream.m_cbSendWindow -= cb;
+                }
+            return Math.max(cb, 0);
+            }
+        }
+
+    /**
+     * Complete the specified stream after its last frame has been collected.
+     */
+    private void finish(Stream stream)
+        {
+        boolean fReset;
+        synchronized (this)
+            {
+            stream.m_fDone = true;
+            f_mapStreams.remove(stream.f_nId);
+            fReset = !stream.m_fRemoteClosed;
+            if (fReset)
+                {
+                // RFC 9113 section 8.1: the client doesn't need to send the rest of the request
+                f_dequeControl.addLast(frame(RST_STREAM, 0, stream.f_nId, intBytes(NO_ERROR)));
+                }
+            if (m_fReading && f_mapStreams.isEmpty())
+                {
+                armIdleTimeout();
+                }
+            }
+
+        // the rest of the request body (if any) is of no use any longer
+        stream.f_exchange.getRequestBody().discard();
+        }
+
+    /**
+     * Remove all the streams; must be called while holding this connection's monitor.
+     *
+     * @return the removed streams (null if none)
+     */
+    private List<Stream> drainStreams()
+        {
+        if (f_mapStreams.isEmpty())
+            {
+            return null;
+            }
+
+        List<Stream> list = new ArrayList<>(f_mapStreams.values());
+        for (Stream stream : list)
+            {
+            stream.m_fDone = true;
+            }
+        f_mapStreams.clear();
+        return list;
+        }
+
+    /**
+     * Let the exchanges of the specified streams know that they have been dropped.
+     */
+    private static void abandon(List<Stream> listStreams)
+        {
+        if (listStreams != null)
+            {
+            for (Stream stream : listStreams)
+                {
+                stream.f_exchange.abandon();
+                }
+            }
+        }
+
+    /**
+     * @return true iff neither reader nor writer are using the connection any longer; must be
+     *         called while holding this connection's monitor
+     */
+    private boolean isQuiescent()
+        {
+        return m_fReaderDone && !m_fWriting && m_fClosed;
+        }
+
+    /**
+     * Close the transport; called exactly once by the thread that moved the connection into the
+     * "closed" state.
+     */
+    private void closeTransport(boolean fAbort)
+        {
+        synchronized (this)
+            {
+            disarmIdleTimeout();
+            }
+
+        if (fAbort)
+            {
+            f_transport.abort();
+            }
+        else
+            {
+            f_transport.close();
+            }
+        f_engine.onClosed(this);
+        }
+
+
+    // ----- frame encoding ------------------------------------------------------------------------
+
+    /**
+     * @return a frame header
+     */
+    private static ByteBuffer header(int cb, int nType, int nFlags, int nId)
+        {
+        return ByteBuffer.allocate(FRAME_HEADER_SIZE)
+                .put((byte) (cb >>> 16)).put((byte) (cb >>> 8)).put((byte) cb)
+                .put((byte) nType).put((byte) nFlags).putInt(nId)
+                .flip();
+        }
+
+    /**
+     * @return a complete frame
+     */
+    static byte[] frame(int nType, int nFlags, int nId, byte[] abPayload)
+        {
+        byte[] ab = new byte[FRAME_HEADER_SIZE + abPayload.length];
+        header(abPayload.length, nType, nFlags, nId).get(ab, 0, FRAME_HEADER_SIZE);
+        System.arraycopy(abPayload, 0, ab, FRAME_HEADER_SIZE, abPayload.length);
+        return ab;
+        }
+
+    /**
+     * Append a setting to a SETTINGS frame payload.
+     */
+    static void writeSetting(ByteArrayOutputStream out, int nSetting, int nValue)
+        {
+        out.writeBytes(ByteBuffer.allocate(6).putShort((short) nSetting).putInt(nValue).array());
+        }
+
+    /**
+     * @return the big-endian representation of the specified value
+     */
+    private static byte[] intBytes(int n)
+        {
+        return ByteBuffer.allocate(4).putInt(n).array();
+        }
+
+
+    // ----- RequestHead ---------------------------------------------------------------------------
+
+    /**
+     * The collector of the decoded request header fields (RFC 9113 section 8.3).
+     */
+    private static class RequestHead
+            implements Hpack.FieldConsumer
+        {
+        @Override
+        public void accept(String sName, String sValue)
+            {
+            m_cbSize += sName.length() + sValue.length() + 32;
+
+            if (sName.startsWith(":"))
+                {
+                if (m_fRegular)
+                    {
+                    m_fMalformed = true;
+                    return;
+                    }
+                switch (sName)
+                    {
+                    case ":method"    -> m_sMethod    = checkPseudo(m_sMethod, sValue);
+                    case ":scheme"    -> m_sScheme    = checkPseudo(m_sScheme, sValue);
+                    case ":authority" -> m_sAuthority = checkPseudo(m_sAuthority, sValue);
+                    case ":path"      -> m_sPath      = checkPseudo(m_sPath, sValue);
+                    default           -> m_fMalformed = true;
+                    }
+                return;
+                }
+
+            m_fRegular = true;
+            if (!sName.equals(sName.toLowerCase(Locale.ROOT)) || CONNECTION_HEADERS.contains(sName)
+                    && !(sName.equals("te") && sValue.equals("trailers")))
+                {
+                m_fMalformed = true;
+                return;
+                }
+
+            if (sName.equals("cookie"))
+                {
+                // RFC 9113 section 8.2.3: the cookie crumbs are concatenated
+                m_sCookie = m_sCookie == null ? sValue : m_sCookie + "; " + sValue;
+                }
+            else
+                {
+                f_headers.add(sName, sValue);
+                }
+            }
+
+        /**
+         * @return the value of a pseudo-header field that must not repeat
+         */
+        private String checkPseudo(String sOld, String sNew)
+            {
+            if (sOld != null || sNew.isEmpty())
+                {
+                m_fMalformed = true;
+                }
+            return sNew;
+            }
+
+        final HttpHeaders f_headers = new HttpHeaders();
+
+        String  m_sMethod;
+        String  m_sScheme;
+        String  m_sAuthority;
+        String  m_sPath;
+        String  m_sCookie;
+        boolean m_fRegular;
+        boolean m_fMalformed;
+        long    m_cbSize;
+        }
+
+
+    // ----- Stream --------------------------------------------------------------------------------
+
+    /**
+     * The state of a stream in progress. All the fields, except for the ones used by the writer
+     * only, are guarded by the connection's monitor.
+     */
+    private static class Stream
+        {
+        Stream(int nId, HttpExchange exchange)
+            {
+            f_nId      = nId;
+            f_exchange = exchange;
+            }
+
+        @Override
+        public String toString()
+            {
+            return "Stream(" + f_nId + ", " + f_exchange + ')';
+            }
+
+        /**
+         * The stream id.
+         */
+        final int f_nId;
+
+        /**
+         * The exchange.
+         */
+        final HttpExchange f_exchange;
+
+        /**
+         * The number of bytes the server could send.
+         */
+        long m_cbSendWindow;
+
+        /**
+         * The number of bytes the client could send.
+         */
+        long m_cbRecvWindow = STREAM_WINDOW;
+
+        /**
+         * The credit that is going to be returned with the next WINDOW_UPDATE.
+         */
+        int m_cbUnacked;
+
+        /**
+         * The credit withheld until the body consumer catches up.
+         */
+        int m_cbWithheld;
+
+        /**
+         * The future that completes when the body consumer catches up; null if it hasn't fallen
+         * behind.
+         */
+        CompletableFuture<Void> m_cfResume;
+
+        /**
+         * True iff the client has ended the stream.
+         */
+        boolean m_fRemoteClosed;
+
+        /**
+         * True iff the stream has been completed or reset.
+         */
+        boolean m_fDone;
+
+        // the state used by the writer only
+
+        /**
+         * True iff the response HEADERS have been sent.
+         */
+        boolean m_fHeadersSent;
+
+        /**
+         * The portion of a streamed body being sent; null if none.
+         */
+        byte[] m_abData;
+
+        /**
+         * The offset of the next byte to send in the fixed body or in the current portion of the
+         * streamed body.
+         */
+        int m_ofData;
+        }
+
+
+    // ----- Http2Exception ------------------------------------------------------------------------
+
+    /**
+     * Indicates a connection error (RFC 9113 section 5.4.1).
+     */
+    private static class Http2Exception
+            extends Exception
+        {
+        Http2Exception(int nError, String sMessage)
+            {
+            super(sMessage);
+            f_nError = nError;
+            }
+
+        private static final long serialVersionUID = 1L;
+
+        final int f_nError;
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The client connection preface.
+     */
+    static final byte[] PREFACE =
+            "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    // the frame types
+    static final int DATA          = 0x0;
+    static final int HEADERS       = 0x1;
+    static final int PRIORITY      = 0x2;
+    static final int RST_STREAM    = 0x3;
+    static final int SETTINGS      = 0x4;
+    static final int PUSH_PROMISE  = 0x5;
+    static final int PING          = 0x6;
+    static final int GOAWAY        = 0x7;
+    static final int WINDOW_UPDATE = 0x8;
+    static final int CONTINUATION  = 0x9;
+
+    // the frame flags
+    static final int FLAG_ACK         = 0x01;
+    static final int FLAG_END_STREAM  = 0x01;
+    static final int FLAG_END_HEADERS = 0x04;
+    static final int FLAG_PADDED      = 0x08;
+    static final int FLAG_PRIORITY    = 0x20;
+
+    // the settings
+    static final int SETTINGS_HEADER_TABLE_SIZE      = 0x1;
+    static final int SETTINGS_ENABLE_PUSH            = 0x2;
+    static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    static final int SETTINGS_INITIAL_WINDOW_SIZE    = 0x4;
+    static final int SETTINGS_MAX_FRAME_SIZE         = 0x5;
+    static final int SETTINGS_MAX_HEADER_LIST_SIZE   = 0x6;
+
+    // the error codes
+    static final int NO_ERROR           = 0x0;
+    static final int PROTOCOL_ERROR     = 0x1;
+    static final int INTERNAL_ERROR     = 0x2;
+    static final int FLOW_CONTROL_ERROR = 0x3;
+    static final int STREAM_CLOSED      = 0x5;
+    static final int FRAME_SIZE_ERROR   = 0x6;
+    static final int REFUSED_STREAM     = 0x7;
+    static final int COMPRESSION_ERROR  = 0x9;
+    static final int ENHANCE_YOUR_CALM  = 0xB;
+
+    /**
+     * The maximum number of concurrent streams per connection.
+     */
+    public static final int MAX_STREAMS = 100;
+
+    /**
+     * The flow control window of a stream: the number of bytes the client could send ahead of the
+     * stream's body consumer.
+     */
+    public static final int STREAM_WINDOW = RequestBody.MAX_QUEUED;
+
+    /**
+     * The flow control window of a connection.
+     */
+    public static final int CONNECTION_WINDOW = 16 * 1024 * 1024;
+
+    /**
+     * The maximum size of the (uncompressed) request header list.
+     */
+    public static final int MAX_HEADER_LIST_SIZE = 64 * 1024;
+
+    /**
+     * The maximum size of an encoded header block.
+     */
+    private static final int MAX_HEADER_BLOCK_SIZE = MAX_HEADER_LIST_SIZE;
+
+    /**
+     * The size of a frame header.
+     */
+    private static final int FRAME_HEADER_SIZE = 9;
+
+    /**
+     * The initial (default) window size.
+     */
+    private static final int DEFAULT_WINDOW = 65_535;
+
+    /**
+     * The maximum window size.
+     */
+    private static final long MAX_WINDOW = Integer.MAX_VALUE;
+
+    /**
+     * The maximum size of the frames received (the default value, which is never changed).
+     */
+    private static final int MAX_FRAME_SIZE = 16_384;
+
+    /**
+     * The largest value of the MAX_FRAME_SIZE setting permitted by the protocol.
+     */
+    private static final int MAX_FRAME_SIZE_LIMIT = 16_777_215;
+
+    /**
+     * The maximum size of the frames sent, regardless of the client's setting.
+     */
+    private static final int MAX_FRAME_SIZE_OUT = 64 * 1024;
+
+    /**
+     * The header fields that are specific to an HTTP/1.x connection and must not be used with
+     * HTTP/2 (RFC 9113 section 8.2.2).
+     */
+    private static final Set<String> CONNECTION_HEADERS =
+            Set.of("connection", "keep-alive", "proxy-connection", "te", "transfer-encoding",
+                   "upgrade");
+
+    private static final byte[]       NO_BYTES    = new byte[0];
+    private static final Stream[]     NO_STREAMS  = new Stream[0];
+    private static final ByteBuffer[] NO_BUFFERS  = new ByteBuffer[0];
+
+    /**
+     * The HPACK decoder for the request header blocks; used by the reader only.
+     */
+    private final Hpack.Decoder f_decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+    /**
+     * The HPACK encoder for the response header blocks; used by the writer only (except for the
+     * table size changes).
+     */
+    private final Hpack.Encoder f_encoder = new Hpack.Encoder();
+
+    /**
+     * The streams in progress, in the order of their arrival.
+     */
+    private final Map<Integer, Stream> f_mapStreams = new LinkedHashMap<>();
+
+    /**
+     * The control frames to write.
+     */
+    private final Deque<byte[]> f_dequeControl = new ArrayDeque<>();
+
+    /**
+     * The highest stream id the client has opened; used by the reader only.
+     */
+    private int m_nLastStreamId;
+
+    /**
+     * The stream the expected CONTINUATION frames belong to; zero if none.
+     */
+    private int m_nContinuation;
+
+    /**
+     * The flags of the HEADERS frame that the CONTINUATION frames follow.
+     */
+    private int m_nHeadersFlags;
+
+    /**
+     * The header block being accumulated from the CONTINUATION frames.
+     */
+    private ByteArrayOutputStream m_outHeaderBlock;
+
+    /**
+     * True iff the client's SETTINGS have been received.
+     */
+    private boolean m_fSettings;
+
+    /**
+     * The client's SETTINGS_INITIAL_WINDOW_SIZE.
+     */
+    private int m_cbInitialWindow = DEFAULT_WINDOW;
+
+    /**
+     * The maximum size of the frames sent (limited by the client's SETTINGS_MAX_FRAME_SIZE).
+     */
+    private int m_cbMaxFrame = MAX_FRAME_SIZE;
+
+    /**
+     * The number of bytes the server could send on the connection.
+     */
+    private long m_cbSendWindow = DEFAULT_WINDOW;
+
+    /**
+     * The number of bytes the client could send on the connection.
+     */
+    private long m_cbRecvWindow = CONNECTION_WINDOW;
+
+    /**
+     * The connection level credit that is going to be returned with the next WINDOW_UPDATE.
+     */
+    private int m_cbUnacked;
+
+    /**
+     * True iff the reader has terminated.
+     */
+    private boolean m_fReaderDone;
+
+    /**
+     * True iff the writer is running.
+     */
+    private boolean m_fWriting;
+
+    /**
+     * True iff there may be something new to write since the writer last looked.
+     */
+    private boolean m_fSignal;
+
+    /**
+     * True iff no more streams are going to be accepted; the connection closes as soon as the
+     * streams in progress complete.
+     */
+    private boolean m_fClosing;
+
+    /**
+     * True iff the connection has been closed (or is being closed).
+     */
+    private boolean m_fClosed;
+    }
@@ -0,0 +1,252 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import java.time.format.DateTimeFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.xvm.util.concurrent.TimingWheel;
+
+
+/**
+ * A connection accepted by the {@link HttpEngine}.
+ * <p>
+ * The connection is served by a virtual "reader" thread (the {@link #run} method), which reads the
+ * requests and hands them to the engine's handler as {@link HttpExchange}s; the responses could
+ * arrive on any thread and are written out by the protocol specific subclasses:
+ * {@link Http1Connection} for HTTP/1.x and {@link Http2Connection} for HTTP/2.
+ */
+public abstract class HttpConnection
+        implements Runnable
+    {
+    /**
+     * Construct a connection.
+     *
+     * @param engine     the engine that accepted the connection
+     * @param transport  the transport
+     * @param bufRead    the (pooled) read buffer, in the "fill" mode; it may already contain the
+     *                   bytes that the engine has read to choose the protocol
+     */
+    protected HttpConnection(HttpEngine engine, Transport transport, ByteBuffer bufRead)
+        {
+        f_engine    = engine;
+        f_transport = transport;
+        f_bufRead   = bufRead;
+        f_nId       = s_cConnections.getAndIncrement();
+        }
+
+    /**
+     * @return the connection id; the ids are assigned sequentially (modulo 2^32) in the order the
+     *         connections are accepted
+     */
+    public int getId()
+        {
+        return f_nId;
+        }
+
+    /**
+     * @return the connection transport
+     */
+    public Transport getTransport()
+        {
+        return f_transport;
+        }
+
+    /**
+     * @return the protocol string reported by the exchanges on this connection, e.g. "HTTP/2"
+     */
+    public abstract String getProtocol();
+
+    /**
+     * Close the connection right away; the requests in progress are abandoned.
+     */
+    public abstract void abort();
+
+    /**
+     * Called by the {@link HttpExchange} (or its {@link ResponseBody}) when there is something new
+     * to write for it.
+     */
+    abstract void onResponse(HttpExchange exchange);
+
+    /**
+     * @return true iff there are no requests in progress, so the connection should be closed if it
+     *         stays idle for too long; called while holding this connection's monitor
+     */
+    protected abstract boolean isIdle();
+
+    @Override
+    public String toString()
+        {
+        return getClass().getSimpleName() + "(" + f_transport.getRemoteAddress() + ")";
+        }
+
+
+    // ----- reading -------------------------------------------------------------------------------
+
+    /**
+     * Read more bytes into the read buffer. If there are no requests in progress, the connection
+     * is closed if no bytes arrive within the idle timeout.
+     *
+     * @return the number of bytes read or -1 if the peer has closed the connection
+     */
+    protected int fill()
+            throws IOException
+        {
+        synchronized (this)
+            {
+            m_fReading = true;
+            if (isIdle())
+                {
+                armIdleTimeout();
+                }
+            }
+
+        try
+            {
+            return f_transport.read(f_bufRead);
+            }
+        finally
+            {
+            synchronized (this)
+                {
+                m_fReading = false;
+                disarmIdleTimeout();
+                }
+            }
+        }
+
+    /**
+     * Discard the specified number of bytes at the start of the read buffer.
+     */
+    protected void consume(int cb)
+        {
+        ByteBuffer buf = f_bufRead;
+        buf.flip();
+        buf.position(cb);
+        buf.compact();
+        }
+
+    /**
+     * Arm the idle timeout unless already armed; must be called while holding this connection's
+     * monitor.
+     */
+    protected void armIdleTimeout()
+        {
+        if (m_timeoutIdle == null)
+            {
+            m_timeoutIdle = HttpEngine.TIMER.schedule(f_transport::abort,
+                    f_engine.getIdleTimeout(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+    /**
+     * Cancel the idle timeout (if armed); must be called while holding this connection's monitor.
+     */
+    protected void disarmIdleTimeout()
+        {
+        TimingWheel.Timeout timeout = m_timeoutIdle;
+        if (timeout != null)
+            {
+            timeout.cancel();
+            m_timeoutIdle = null;
+            }
+        }
+
+
+    // ----- writing -------------------------------------------------------------------------------
+
+    /**
+     * Write the specified buffers out, aborting the connection if it takes too long.
+     */
+    protected void write(ByteBuffer... abuf)
+            throws IOException
+        {
+        TimingWheel.Timeout timeout = HttpEngine.TIMER.schedule(f_transport::abort,
+                f_engine.getIdleTimeout(), TimeUnit.MILLISECONDS);
+        try
+            {
+            f_transport.write(abuf);
+            }
+        finally
+            {
+            timeout.cancel();
+            }
+        }
+
+    /**
+     * @return true iff a response with the specified status could have a body
+     */
+    protected static boolean isBodyAllowed(int nStatus)
+        {
+        return !(nStatus < 200 || nStatus == 204 || nStatus == 304);
+        }
+
+    /**
+     * @return the current date in the IMF-fixdate format
+     */
+    protected static String currentDate()
+        {
+        long     lSecond = System.currentTimeMillis() / 1000;
+        Object[] aoDate  = s_aoDate;
+        if (aoDate != null && (Long) aoDate[0] == lSecond)
+            {
+            return (String) aoDate[1];
+            }
+
+        String sDate = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+        s_aoDate = new Object[] {lSecond, sDate};
+        return sDate;
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The number of connections accepted so far (by all engines).
+     */
+    private static final AtomicInteger s_cConnections = new AtomicInteger();
+
+    /**
+     * The cached (second, formatted date) pair.
+     */
+    private static volatile Object[] s_aoDate;
+
+    /**
+     * The engine that accepted this connection.
+     */
+    protected final HttpEngine f_engine;
+
+    /**
+     * The connection id.
+     */
+    private final int f_nId;
+
+    /**
+     * The transport.
+     */
+    protected final Transport f_transport;
+
+    /**
+     * The buffer for the incoming bytes, in the "fill" mode; used by the reader only.
+     */
+    protected final ByteBuffer f_bufRead;
+
+    /**
+     * True iff the reader is blocked waiting for more bytes.
+     */
+    protected boolean m_fReading;
+
+    /**
+     * The pending idle timeout.
+     */
+    private TimingWheel.Timeout m_timeoutIdle;
+    }
@@ -0,0 +1,469 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+import org.xvm.runtime.Runtime;
+
+import org.xvm.util.concurrent.TimingWheel;
+
+
+/**
+ * A native HTTP/1.1 and HTTP/2 server engine.
+ * <p>
+ * Every accepted connection is served by its own virtual thread that uses the socket channel in
+ * blocking mode; a connection that waits for a request or a response doesn't hold a platform
+ * thread, so the number of concurrent connections is only limited by the available memory and the
+ * file descriptors. The read buffers are pooled direct buffers, and so are the TLS record buffers
+ * for a secure engine. The connections are kept alive and the pipelined requests are processed
+ * concurrently; see {@link Http1Connection} for details.
+ * <p>
+ * A secure engine offers HTTP/2 ("h2") via the TLS application layer protocol negotiation (ALPN);
+ * a plain engine recognizes the HTTP/2 connection preface sent by a client that has a prior
+ * knowledge of the HTTP/2 support ("h2c"). The HTTP/2 requests are multiplexed over a single
+ * connection; see {@link Http2Connection} for details.
+ */
+public class HttpEngine
+    {
+    /**
+     * The request handler.
+     */
+    @FunctionalInterface
+    public interface Handler
+        {
+        /**
+         * Handle the request. This method is called on the connection's thread, so it should not
+         * block; the response could be sent later on any thread.
+         */
+        void handle(HttpExchange exchange)
+                throws IOException;
+        }
+
+    /**
+     * Construct an engine with the default idle timeout.
+     *
+     * @param addr     the address to bind to
+     * @param ctxSSL   the TLS context for a secure engine; null for a plain one
+     * @param handler  the request handler
+     */
+    public HttpEngine(InetSocketAddress addr, SSLContext ctxSSL, Handler handler)
+            throws IOException
+        {
+        this(addr, ctxSSL, handler, IDLE_TIMEOUT);
+        }
+
+    /**
+     * Construct an engine.
+     *
+     * @param addr          the address to bind to
+     * @param ctxSSL        the TLS context for a secure engine; null for a plain one
+     * @param handler       the request handler
+     * @param cIdleMillis   the time (in milliseconds) after which an idle connection is closed
+     */
+    public HttpEngine(InetSocketAddress addr, SSLContext ctxSSL, Handler handler, long cIdleMillis)
+            throws IOException
+        {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try
+            {
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, Boolean.TRUE);
+            channel.bind(addr, BACKLOG);
+            }
+        catch (IOException e)
+            {
+            channel.close();
+            throw e;
+            }
+
+        int cbRead = READ_BUFFER_SIZE;
+        if (ctxSSL == null)
+            {
+            f_poolNet = null;
+            }
+        else
+            {
+            SSLSession session = ctxSSL.createSSLEngine().getSession();
+            f_poolNet = new BufferPool(session.getPacketBufferSize(), MAX_POOLED);
+            cbRead    = Math.max(cbRead, session.getApplicationBufferSize());
+            }
+
+        f_channel     = channel;
+        f_addr        = (InetSocketAddress) channel.getLocalAddress();
+        f_ctxSSL      = ctxSSL;
+        f_handler     = handler;
+        f_cIdleMillis = cIdleMillis;
+        f_poolRead    = new BufferPool(cbRead, MAX_POOLED);
+        f_factory     = Thread.ofVirtual().name("HttpConnection@" + f_addr.getPort() + "-", 0).factory();
+        }
+
+    /**
+     * Start accepting connections.
+     */
+    public synchronized void start()
+        {
+        if (m_threadAccept == null)
+            {
+            m_threadAccept = Thread.ofVirtual().name("HttpAcceptor@" + f_addr.getPort())
+                                               .start(this::accept);
+            }
+        }
+
+    /**
+     * @return true iff the engine has been started
+     */
+    public synchronized boolean isStarted()
+        {
+        return m_threadAccept != null;
+        }
+
+    /**
+     * @return true iff this engine serves TLS connections
+     */
+    public boolean isSecure()
+        {
+        return f_ctxSSL != null;
+        }
+
+    /**
+     * @return the address this engine is bound to
+     */
+    public InetSocketAddress getAddress()
+        {
+        return f_addr;
+        }
+
+    /**
+     * @return the number of open connections
+     */
+    public int getConnectionCount()
+        {
+        return f_setConnections.size();
+        }
+
+    /**
+     * Stop accepting connections and close all the open ones.
+     */
+    public void close()
+        {
+        try
+            {
+            f_channel.close();
+            }
+        catch (IOException ignore) {}
+
+        for (HttpConnection connection : f_setConnections)
+            {
+            connection.abort();
+            }
+        }
+
+    @Override
+    public String toString()
+        {
+        return "HttpEngine(" + (isSecure() ? "https://" : "http://") + f_addr + ")";
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * The acceptor thread's body.
+     */
+    private void accept()
+        {
+        ServerSocketChannel channelServer = f_channel;
+        while (channelServer.isOpen())
+            {
+            SocketChannel channel;
+            try
+                {
+                channel = channelServer.accept();
+                }
+            catch (ClosedChannelException e)
+                {
+                return;
+                }
+            catch (IOException e)
+                {
+                // most likely out of file descriptors; give the existing connections a chance
+                // to go away
+                try
+                    {
+                    Thread.sleep(ACCEPT_BACKOFF);
+                    }
+                catch (InterruptedException ignore) {}
+                continue;
+                }
+
+            try
+                {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, Boolean.TRUE);
+
+                Transport transport = f_ctxSSL == null
+                        ? new Transport.Plain(channel)
+                        : new TlsTransport(channel, createSSLEngine(), f_poolNet);
+
+                startThread(() -> serve(transport));
+                }
+            catch (IOException | RuntimeException e)
+                {
+                try
+                    {
+                    channel.close();
+                    }
+                catch (IOException ignore) {}
+                }
+            }
+        }
+
+    /**
+     * @return a new server-side TLS engine that offers HTTP/2 and HTTP/1.1 via ALPN
+     */
+    private SSLEngine createSSLEngine()
+        {
+        SSLEngine     engine = f_ctxSSL.createSSLEngine();
+        SSLParameters params = engine.getSSLParameters();
+        params.setApplicationProtocols(ALPN_PROTOCOLS);
+        engine.setSSLParameters(params);
+        return engine;
+        }
+
+    /**
+     * The connection thread's body: choose the protocol and serve the connection.
+     */
+    private void serve(Transport transport)
+        {
+        ByteBuffer     buf = f_poolRead.acquire();
+        HttpConnection connection;
+
+        TimingWheel.Timeout timeout = TIMER.schedule(transport::abort, f_cIdleMillis,
+                                                     TimeUnit.MILLISECONDS);
+        try
+            {
+            connection = isHttp2(transport, buf)
+                    ? new Http2Connection(this, transport, buf)
+                    : new Http1Connection(this, transport, buf);
+            }
+        catch (IOException | RuntimeException e)
+            {
+            f_poolRead.release(buf);
+            transport.abort();
+            transport.release();
+            return;
+            }
+        finally
+            {
+            timeout.cancel();
+            }
+
+        f_setConnections.add(connection);
+        if (!f_channel.isOpen())
+            {
+            // the engine has been closed concurrently
+            connection.abort();
+            }
+        connection.run();
+        }
+
+    /**
+     * Determine whether the client speaks HTTP/2: either it has been negotiated by the TLS
+     * handshake, or the bytes received on a plain connection start with the HTTP/2 connection
+     * preface. The bytes that have been read are left in the buffer.
+     *
+     * @return true iff the connection should be served using HTTP/2
+     *
+     * @throws IOException if the connection has been closed before any request has arrived
+     */
+    private boolean isHttp2(Transport transport, ByteBuffer buf)
+            throws IOException
+        {
+        byte[] abPreface = Http2Connection.PREFACE;
+        while (true)
+            {
+            if (transport.read(buf) < 0)
+                {
+                throw new EOFException();
+                }
+
+            if (isSecure())
+                {
+                // the application data only arrive after the handshake has completed
+                return "h2".equals(transport.getApplicationProtocol());
+                }
+
+            int cb = Math.min(buf.position(), abPreface.length);
+            for (int i = 0; i < cb; i++)
+                {
+                if (buf.get(i) != abPreface[i])
+                    {
+                    return false;
+                    }
+                }
+            if (cb == abPreface.length)
+                {
+                return true;
+                }
+            }
+        }
+
+    /**
+     * Hand the request to the handler.
+     */
+    void dispatch(HttpExchange exchange)
+        {
+        try
+            {
+            f_handler.handle(exchange);
+            }
+        catch (Throwable e)
+            {
+            Runtime.logRuntimeException("HTTP request handler failure", e);
+            if (!exchange.isResponded())
+                {
+                exchange.sendResponse(500, null);
+                }
+            }
+        }
+
+    /**
+     * Start a new virtual thread.
+     */
+    void startThread(Runnable task)
+        {
+        f_factory.newThread(task).start();
+        }
+
+    /**
+     * Called by the connection when it has been closed.
+     */
+    void onClosed(HttpConnection connection)
+        {
+        f_setConnections.remove(connection);
+        }
+
+    /**
+     * @return the pool of the buffers for the incoming (application) bytes
+     */
+    BufferPool getReadBufferPool()
+        {
+        return f_poolRead;
+        }
+
+    /**
+     * @return the idle timeout in milliseconds
+     */
+    long getIdleTimeout()
+        {
+        return f_cIdleMillis;
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The timer for the idle and write timeouts of all the connections.
+     */
+    static final TimingWheel TIMER = new TimingWheel("ecstasy:HttpEngine",
+            TimeUnit.MILLISECONDS.toNanos(10), Runtime::logUncaughtException).start();
+
+    /**
+     * The protocols offered by a secure engine, in the order of preference.
+     */
+    private static final String[] ALPN_PROTOCOLS = {"h2", "http/1.1"};
+
+    /**
+     * The default idle timeout (the same as the one used by the JDK's HttpServer).
+     */
+    public static final long IDLE_TIMEOUT = 30_000;
+
+    /**
+     * The size of the read buffers; it also limits the size of the request head.
+     */
+    public static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /**
+     * The maximum number of idle buffers retained by each pool.
+     */
+    private static final int MAX_POOLED = 1024;
+
+    /**
+     * The maximum number of pending connections.
+     */
+    private static final int BACKLOG = 1024;
+
+    /**
+     * The pause (in milliseconds) after a failure to accept a connection.
+     */
+    private static final long ACCEPT_BACKOFF = 100;
+
+    /**
+     * The server channel.
+     */
+    private final ServerSocketChannel f_channel;
+
+    /**
+     * The address the server channel is bound to.
+     */
+    private final InetSocketAddress f_addr;
+
+    /**
+     * The TLS context or null.
+     */
+    private final SSLContext f_ctxSSL;
+
+    /**
+     * The request handler.
+     */
+    private final Handler f_handler;
+
+    /**
+     * The idle timeout in milliseconds.
+     */
+    private final long f_cIdleMillis;
+
+    /**
+     * The pool of the buffers for the incoming application bytes.
+     */
+    private final BufferPool f_poolRead;
+
+    /**
+     * The pool of the buffers for the TLS records; null for a plain engine.
+     */
+    private final BufferPool f_poolNet;
+
+    /**
+     * The factory for the connection threads.
+     */
+    private final ThreadFactory f_factory;
+
+    /**
+     * The open connections.
+     */
+    private final Set<HttpConnection> f_setConnections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The acceptor thread; null until the engine is started.
+     */
+    private Thread m_threadAccept;
+    }
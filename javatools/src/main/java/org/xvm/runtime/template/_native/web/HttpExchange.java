@@ -0,0 +1,354 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+
+import javax.net.ssl.SSLSession;
+
+
+/**
+ * A single HTTP request received by the {@link HttpEngine} and the response to it.
+ * <p>
+ * The request head is fully parsed before the exchange is handed to the {@link HttpEngine.Handler};
+ * a small HTTP/1.x request body is read in full as well, while a large one (and any HTTP/2 one)
+ * is streamed (see {@link RequestBody}). The response is either sent by a single
+ * {@link #sendResponse} call, or started by {@link #startResponse} and then streamed (see
+ * {@link ResponseBody}); neither call blocks, and either could be made on any thread.
+ */
+public class HttpExchange
+    {
+    HttpExchange(HttpConnection connection, String sMethod, String sURI, String sProtocol,
+                 HttpHeaders headers, RequestBody body, boolean fKeepAlive)
+        {
+        this(connection, 0, sMethod, sURI, sProtocol, headers, body, fKeepAlive);
+        }
+
+    HttpExchange(HttpConnection connection, int nStreamId, String sMethod, String sURI,
+                 String sProtocol, HttpHeaders headers, RequestBody body, boolean fKeepAlive)
+        {
+        f_connection     = connection;
+        f_nStreamId      = nStreamId;
+        f_sMethod        = sMethod;
+        f_sURI           = sURI;
+        f_sProtocol      = sProtocol;
+        f_headersRequest = headers;
+        f_bodyRequest    = body;
+        f_fKeepAlive     = fKeepAlive;
+        }
+
+    /**
+     * @return the request method, e.g. "GET"
+     */
+    public String getRequestMethod()
+        {
+        return f_sMethod;
+        }
+
+    /**
+     * @return the request target as it was sent by the client
+     */
+    public String getRequestURI()
+        {
+        return f_sURI;
+        }
+
+    /**
+     * @return the request protocol, e.g. "HTTP/1.1"
+     */
+    public String getProtocol()
+        {
+        return f_sProtocol;
+        }
+
+    /**
+     * @return the request headers
+     */
+    public HttpHeaders getRequestHeaders()
+        {
+        return f_headersRequest;
+        }
+
+    /**
+     * @return the request body (an empty one if there is no body)
+     */
+    public RequestBody getRequestBody()
+        {
+        return f_bodyRequest;
+        }
+
+    /**
+     * @return the headers to send with the response; must not be modified after the
+     *         {@link #sendResponse} or {@link #startResponse} call
+     */
+    public HttpHeaders getResponseHeaders()
+        {
+        return f_headersResponse;
+        }
+
+    /**
+     * @return true iff the request has been received over a TLS connection
+     */
+    public boolean isSecure()
+        {
+        return f_connection.getTransport().getSession() != null;
+        }
+
+    /**
+     * @return the TLS session or null if the request has been received over a plain connection
+     */
+    public SSLSession getSSLSession()
+        {
+        return f_connection.getTransport().getSession();
+        }
+
+    /**
+     * @return the id of the connection the request has been received on; all requests received
+     *         on the same connection report the same id
+     */
+    public int getConnectionId()
+        {
+        return f_connection.getId();
+        }
+
+    /**
+     * @return the HTTP/2 stream id of the request; zero for an HTTP/1.x request
+     */
+    public int getStreamId()
+        {
+        return f_nStreamId;
+        }
+
+    /**
+     * @return the address the request has been received at
+     */
+    public InetSocketAddress getLocalAddress()
+        {
+        return f_connection.getTransport().getLocalAddress();
+        }
+
+    /**
+     * @return the address the request has been received from
+     */
+    public InetSocketAddress getRemoteAddress()
+        {
+        return f_connection.getTransport().getRemoteAddress();
+        }
+
+    /**
+     * Send the response. The response is written asynchronously (for HTTP/1.x, after the responses
+     * to all the preceding requests on the same connection have been written); if the connection
+     * has been closed in the meantime, the response is silently discarded.
+     *
+     * @param nStatus  the status code
+     * @param abBody   the response body (null or empty for none)
+     *
+     * @throws IllegalStateException if the response has already been sent
+     */
+    public void sendResponse(int nStatus, byte[] abBody)
+        {
+        synchronized (this)
+            {
+            checkNotResponded();
+            m_nStatus    = nStatus;
+            m_abResponse = abBody == null ? NO_BYTES : abBody;
+            if (m_fAbandoned)
+                {
+                return;
+                }
+            }
+        f_connection.onResponse(this);
+        }
+
+    /**
+     * Start a response with a streamed body. For HTTP/1.1, unless the response headers contain a
+     * Content-Length, the body is sent using the "chunked" transfer coding (or, for an HTTP/1.0
+     * request, delimited by closing the connection); for HTTP/2, it is sent as a sequence of DATA
+     * frames.
+     *
+     * @param nStatus  the status code
+     *
+     * @return the body to write to
+     *
+     * @throws IllegalStateException if the response has already been sent
+     */
+    public ResponseBody startResponse(int nStatus)
+        {
+        ResponseBody body;
+        synchronized (this)
+            {
+            checkNotResponded();
+            m_nStatus      = nStatus;
+            m_bodyResponse = body = new ResponseBody(f_connection, this);
+            if (m_fAbandoned)
+                {
+                body.fail(new IOException(CLOSED));
+                return body;
+                }
+            }
+        f_connection.onResponse(this);
+        return body;
+        }
+
+    /**
+     * @return true iff the response has been sent
+     */
+    public synchronized boolean isResponded()
+        {
+        return m_abResponse != null || m_bodyResponse != null;
+        }
+
+    /**
+     * @return the response status code
+     */
+    public synchronized int getResponseCode()
+        {
+        return m_nStatus;
+        }
+
+    /**
+     * @return the response body or null if the response has not been sent yet, or if the body is
+     *         streamed
+     */
+    synchronized byte[] getResponseBody()
+        {
+        return m_abResponse;
+        }
+
+    /**
+     * @return the streamed response body or null if the response has not been started yet, or if
+     *         the body is not streamed
+     */
+    synchronized ResponseBody getResponseStream()
+        {
+        return m_bodyResponse;
+        }
+
+    /**
+     * @return true iff the connection's writer has something to write for this exchange
+     */
+    synchronized boolean isWritable()
+        {
+        ResponseBody body = m_bodyResponse;
+        return body == null ? m_abResponse != null : body.isReady();
+        }
+
+    /**
+     * @return true iff the connection could be used for subsequent requests after this one
+     */
+    boolean isKeepAlive()
+        {
+        ResponseBody body = getResponseStream();
+        return f_fKeepAlive && !f_headersResponse.containsToken("Connection", "close")
+                && (body == null || !body.m_fCloseDelimited);
+        }
+
+    /**
+     * Called by the connection when the exchange is dropped before its response has been sent in
+     * full: neither the rest of the request body nor the response could be transferred any longer.
+     */
+    void abandon()
+        {
+        ResponseBody body;
+        synchronized (this)
+            {
+            m_fAbandoned = true;
+            body         = m_bodyResponse;
+            }
+
+        IOException e = new IOException(CLOSED);
+        f_bodyRequest.fail(e);
+        if (body != null)
+            {
+            body.fail(e);
+            }
+        }
+
+    private void checkNotResponded()
+        {
+        if (isResponded())
+            {
+            throw new IllegalStateException("The response has already been sent");
+            }
+        }
+
+    @Override
+    public String toString()
+        {
+        return f_sMethod + ' ' + f_sURI + ' ' + f_sProtocol;
+        }
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    static final byte[] NO_BYTES = new byte[0];
+
+    private static final String CLOSED = "The connection has been closed";
+
+    /**
+     * The connection that the request has been received on.
+     */
+    private final HttpConnection f_connection;
+
+    /**
+     * The HTTP/2 stream id or zero.
+     */
+    private final int f_nStreamId;
+
+    /**
+     * The request method.
+     */
+    private final String f_sMethod;
+
+    /**
+     * The request target.
+     */
+    private final String f_sURI;
+
+    /**
+     * The request protocol.
+     */
+    private final String f_sProtocol;
+
+    /**
+     * The request headers.
+     */
+    private final HttpHeaders f_headersRequest;
+
+    /**
+     * The request body.
+     */
+    private final RequestBody f_bodyRequest;
+
+    /**
+     * True iff the request allows the connection to be kept alive.
+     */
+    private final boolean f_fKeepAlive;
+
+    /**
+     * The response headers.
+     */
+    private final HttpHeaders f_headersResponse = new HttpHeaders();
+
+    /**
+     * The response status.
+     */
+    private int m_nStatus;
+
+    /**
+     * The response body; null until the response is sent, or if the response body is streamed.
+     */
+    private byte[] m_abResponse;
+
+    /**
+     * The streamed response body; null until the response is started, or if the response body is
+     * not streamed.
+     */
+    private ResponseBody m_bodyResponse;
+
+    /**
+     * True iff the connection has dropped this exchange.
+     */
+    private boolean m_fAbandoned;
+    }
@@ -0,0 +1,153 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * An ordered, case-insensitive multi-map of HTTP header names to their values.
+ * <p>
+ * The names are normalized the same way as by the JDK's {@code com.sun.net.httpserver.Headers}
+ * (the first character in upper case, all the others in lower case), so the names reported to the
+ * natural code don't change with the HTTP engine.
+ */
+public class HttpHeaders
+    {
+    /**
+     * Add a value for the specified header.
+     */
+    public void add(String sName, String sValue)
+        {
+        f_mapHeaders.computeIfAbsent(normalize(sName), k -> new ArrayList<>(1)).add(sValue);
+        }
+
+    /**
+     * Replace all the values of the specified header with the specified value.
+     */
+    public void set(String sName, String sValue)
+        {
+        List<String> listValues = new ArrayList<>(1);
+        listValues.add(sValue);
+        f_mapHeaders.put(normalize(sName), listValues);
+        }
+
+    /**
+     * @return the values of the specified header or null if the header is not present
+     */
+    public List<String> get(String sName)
+        {
+        List<String> listValues = f_mapHeaders.get(normalize(sName));
+        return listValues == null ? null : Collections.unmodifiableList(listValues);
+        }
+
+    /**
+     * @return the first value of the specified header or null if the header is not present
+     */
+    public String getFirst(String sName)
+        {
+        List<String> listValues = f_mapHeaders.get(normalize(sName));
+        return listValues == null ? null : listValues.get(0);
+        }
+
+    /**
+     * @return true iff the specified header is present
+     */
+    public boolean contains(String sName)
+        {
+        return f_mapHeaders.containsKey(normalize(sName));
+        }
+
+    /**
+     * Check whether any value of the specified comma-separated list header (e.g. "Connection")
+     * contains the specified token, ignoring the case.
+     */
+    public boolean containsToken(String sName, String sToken)
+        {
+        List<String> listValues = f_mapHeaders.get(normalize(sName));
+        if (listValues != null)
+            {
+            for (String sValue : listValues)
+                {
+                for (String sPart : sValue.split(","))
+                    {
+                    if (sPart.trim().equalsIgnoreCase(sToken))
+                        {
+                        return true;
+                        }
+                    }
+                }
+            }
+        return false;
+        }
+
+    /**
+     * @return the (normalized) names of the present headers in the order of their appearance
+     */
+    public Set<String> names()
+        {
+        return Collections.unmodifiableSet(f_mapHeaders.keySet());
+        }
+
+    /**
+     * @return the header entries in the order of their appearance
+     */
+    public Set<Map.Entry<String, List<String>>> entries()
+        {
+        return Collections.unmodifiableMap(f_mapHeaders).entrySet();
+        }
+
+    /**
+     * @return true iff there are no headers
+     */
+    public boolean isEmpty()
+        {
+        return f_mapHeaders.isEmpty();
+        }
+
+    @Override
+    public String toString()
+        {
+        return f_mapHeaders.toString();
+        }
+
+    /**
+     * Normalize the header name: the first character in upper case, all others in lower case.
+     */
+    protected static String normalize(String sName)
+        {
+        int cch = sName.length();
+        if (cch == 0)
+            {
+            return sName;
+            }
+
+        char[] ach     = sName.toCharArray();
+        char   chFirst = ach[0];
+        if (chFirst >= 'a' && chFirst <= 'z')
+            {
+            ach[0] = (char) (chFirst - ('a' - 'A'));
+            }
+        for (int i = 1; i < cch; i++)
+            {
+            char ch = ach[i];
+            if (ch >= 'A' && ch <= 'Z')
+                {
+                ach[i] = (char) (ch + ('a' - 'A'));
+                }
+            }
+        return new String(ach);
+        }
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    /**
+     * The headers keyed by the normalized name.
+     */
+    private final Map<String, List<String>> f_mapHeaders = new LinkedHashMap<>();
+    }
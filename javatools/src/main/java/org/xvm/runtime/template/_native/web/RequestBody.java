@@ -0,0 +1,357 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+
+/**
+ * The body of a request received by the {@link HttpEngine}.
+ * <p>
+ * A small body is read in full before the request is dispatched. A large (or chunked) body is
+ * streamed instead: the connection's reader thread {@link #write writes} the body in portions as
+ * they arrive, and a consumer {@link #read reads} them. The consumer never blocks; every read
+ * returns a future. The HTTP/1.x reader does block (by waiting on a future, so the virtual thread
+ * doesn't pin its carrier) when the consumer falls behind by more than {@link #MAX_QUEUED} bytes,
+ * which lets the TCP flow control throttle the client; the HTTP/2 reader withholds the stream's
+ * flow control credit instead.
+ */
+public class RequestBody
+    {
+    /**
+     * Construct a body that has been read in full.
+     *
+     * @param ab  the body bytes
+     */
+    RequestBody(byte[] ab)
+        {
+        f_cbKnown = ab.length;
+        if (ab.length > 0)
+            {
+            f_dequeChunks.add(ab);
+            }
+        m_fEnded = true;
+        }
+
+    /**
+     * Construct a body that is going to be streamed.
+     *
+     * @param cbKnown  the body size or -1 if the size is not known
+     */
+    RequestBody(long cbKnown)
+        {
+        f_cbKnown = cbKnown;
+        }
+
+    /**
+     * @return the body size or -1 if the size is not known
+     */
+    public long getKnownSize()
+        {
+        return f_cbKnown;
+        }
+
+    /**
+     * Read the next portion of the body. Only one read could be outstanding at any time.
+     *
+     * @return a future for the next portion of the body; the future's value is null if the end of
+     *         the body has been reached, and it completes exceptionally with an IOException if the
+     *         body could not be read in full
+     */
+    public CompletableFuture<byte[]> read()
+        {
+        CompletableFuture<Void> cfResume;
+        byte[]                  ab;
+        synchronized (this)
+            {
+            if (m_cfPending != null)
+                {
+                throw new IllegalStateException("A read is already outstanding");
+                }
+
+            ab = f_dequeChunks.pollFirst();
+            if (ab == null)
+                {
+                if (m_exFailure != null)
+                    {
+                    return CompletableFuture.failedFuture(m_exFailure);
+                    }
+                if (m_fEnded)
+                    {
+                    return CompletableFuture.completedFuture(null);
+                    }
+                return m_cfPending = new CompletableFuture<>();
+                }
+
+            m_cbQueued -= ab.length;
+            cfResume    = takeResume();
+            }
+
+        if (cfResume != null)
+            {
+            cfResume.complete(null);
+            }
+        return CompletableFuture.completedFuture(ab);
+        }
+
+    /**
+     * Read the rest of the body.
+     *
+     * @return a future for the rest of the body (never null); it completes exceptionally with an
+     *         IOException if the body could not be read in full
+     */
+    public CompletableFuture<byte[]> readAll()
+        {
+        synchronized (this)
+            {
+            if (m_fEnded && m_exFailure == null && f_dequeChunks.size() <= 1 && m_cfPending == null)
+                {
+                // the body has been read in full before the dispatch; avoid any copying
+                byte[] ab = f_dequeChunks.pollFirst();
+                return CompletableFuture.completedFuture(ab == null ? HttpExchange.NO_BYTES : ab);
+                }
+            }
+
+        CompletableFuture<byte[]> cfAll = new CompletableFuture<>();
+        collect(new ByteArrayOutputStream(), cfAll);
+        return cfAll;
+        }
+
+    /**
+     * Indicate that the consumer is not interested in the rest of the body. The remaining bytes
+     * are read and dropped by the connection, so it could be used for the subsequent requests;
+     * any subsequent (or outstanding) read fails.
+     */
+    public void discard()
+        {
+        fail(new IOException("The request body has been discarded"));
+        }
+
+    @Override
+    public String toString()
+        {
+        return "RequestBody(" + (f_cbKnown < 0 ? "chunked" : f_cbKnown + " bytes") + ')';
+        }
+
+
+    // ----- producer side -------------------------------------------------------------------------
+
+    /**
+     * Add the next portion of the body.
+     *
+     * @param ab  the bytes; must not be modified by the caller afterwards
+     *
+     * @return a future that completes when the consumer is ready for more bytes
+     */
+    CompletableFuture<Void> write(byte[] ab)
+        {
+        CompletableFuture<byte[]> cfPending;
+        synchronized (this)
+            {
+            if (m_exFailure != null)
+                {
+                // nobody is interested
+                return READY;
+                }
+
+            cfPending = m_cfPending;
+            if (cfPending == null)
+                {
+                f_dequeChunks.addLast(ab);
+                m_cbQueued += ab.length;
+                if (m_cbQueued > MAX_QUEUED)
+                    {
+                    // an HTTP/2 producer doesn't wait, so the resume future could be outstanding
+                    CompletableFuture<Void> cfResume = m_cfResume;
+                    return cfResume == null ? m_cfResume = new CompletableFuture<>() : cfResume;
+                    }
+                return READY;
+                }
+            m_cfPending = null;
+            }
+
+        // complete the outstanding read outside the monitor, since the consumer's continuation
+        // could run on this thread
+        cfPending.complete(ab);
+        return READY;
+        }
+
+    /**
+     * Indicate that the entire body has been written.
+     */
+    void end()
+        {
+        CompletableFuture<byte[]> cfPending;
+        synchronized (this)
+            {
+            m_fEnded    = true;
+            cfPending   = m_cfPending;
+            m_cfPending = null;
+            }
+
+        if (cfPending != null)
+            {
+            cfPending.complete(null);
+            }
+        }
+
+    /**
+     * Indicate that the body cannot be read in full.
+     *
+     * @param e  the reason
+     */
+    void fail(IOException e)
+        {
+        CompletableFuture<byte[]> cfPending;
+        CompletableFuture<Void>   cfResume;
+        synchronized (this)
+            {
+            if (m_exFailure != null || m_fEnded && f_dequeChunks.isEmpty())
+                {
+                return;
+                }
+
+            m_exFailure = e;
+            cfPending   = m_cfPending;
+            m_cfPending = null;
+            cfResume    = takeResume();
+            f_dequeChunks.clear();
+            m_cbQueued = 0;
+            }
+
+        if (cfPending != null)
+            {
+            cfPending.completeExceptionally(e);
+            }
+        if (cfResume != null)
+            {
+            cfResume.complete(null);
+            }
+        }
+
+    /**
+     * @return true iff the consumer has lost interest in the rest of the body
+     */
+    synchronized boolean isDiscarded()
+        {
+        return m_exFailure != null;
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Collect the rest of the body into the specified stream.
+     */
+    private void collect(ByteArrayOutputStream out, CompletableFuture<byte[]> cfAll)
+        {
+        while (true)
+            {
+            CompletableFuture<byte[]> cf = read();
+            if (!cf.isDone())
+                {
+                cf.whenComplete((ab, e) ->
+                    {
+                    if (e != null)
+                        {
+                        cfAll.completeExceptionally(e);
+                        }
+                    else if (ab == null)
+                        {
+                        cfAll.complete(out.toByteArray());
+                        }
+                    else
+                        {
+                        out.writeBytes(ab);
+                        collect(out, cfAll);
+                        }
+                    });
+                return;
+                }
+
+            byte[] ab;
+            try
+                {
+                ab = cf.join();
+                }
+            catch (CompletionException e)
+                {
+                cfAll.completeExceptionally(e.getCause());
+                return;
+                }
+
+            if (ab == null)
+                {
+                cfAll.complete(out.toByteArray());
+                return;
+                }
+            out.writeBytes(ab);
+            }
+        }
+
+    /**
+     * @return the future the producer waits on if the queue has drained enough; must be called
+     *         while holding this body's monitor
+     */
+    private CompletableFuture<Void> takeResume()
+        {
+        CompletableFuture<Void> cfResume = m_cfResume;
+        if (cfResume != null && (m_cbQueued <= MAX_QUEUED / 2 || m_exFailure != null))
+            {
+            m_cfResume = null;
+            return cfResume;
+            }
+        return null;
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The maximum number of bytes that the producer could get ahead of the consumer.
+     */
+    public static final int MAX_QUEUED = 256 * 1024;
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    /**
+     * The body size or -1 if not known.
+     */
+    private final long f_cbKnown;
+
+    /**
+     * The portions of the body that have been written, but not yet read.
+     */
+    private final Deque<byte[]> f_dequeChunks = new ArrayDeque<>();
+
+    /**
+     * The number of bytes in the queue.
+     */
+    private long m_cbQueued;
+
+    /**
+     * True iff the entire body has been written.
+     */
+    private boolean m_fEnded;
+
+    /**
+     * The reason the body cannot be read in full; null while it still can.
+     */
+    private IOException m_exFailure;
+
+    /**
+     * The outstanding read, if any.
+     */
+    private CompletableFuture<byte[]> m_cfPending;
+
+    /**
+     * The future the producer waits on, if any.
+     */
+    private CompletableFuture<Void> m_cfResume;
+    }
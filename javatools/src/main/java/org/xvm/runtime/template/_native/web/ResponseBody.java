@@ -0,0 +1,271 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.IOException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * The body of a response that is streamed by the {@link HttpEngine}.
+ * <p>
+ * A producer {@link #write writes} the body in portions (on any thread) and then {@link #end ends}
+ * it; the connection's writer sends the portions out as they arrive, using the "chunked" transfer
+ * coding unless the response carries a Content-Length. The producer never blocks; every write
+ * returns a future that completes once the writer is no more than {@link #MAX_QUEUED} bytes behind.
+ */
+public class ResponseBody
+    {
+    ResponseBody(HttpConnection connection, HttpExchange exchange)
+        {
+        f_connection = connection;
+        f_exchange   = exchange;
+        }
+
+    /**
+     * Add the next portion of the body.
+     *
+     * @param ab  the bytes; must not be modified by the caller afterwards
+     *
+     * @return a future that completes when the writer is ready for more bytes; it completes
+     *         exceptionally with an IOException if the response cannot be sent
+     *
+     * @throws IllegalStateException if the body has already been ended
+     */
+    public CompletableFuture<Void> write(byte[] ab)
+        {
+        CompletableFuture<Void> cf;
+        synchronized (this)
+            {
+            if (m_fEnded)
+                {
+                throw new IllegalStateException("The response body has already been ended");
+                }
+            if (m_exFailure != null)
+                {
+                return CompletableFuture.failedFuture(m_exFailure);
+                }
+            if (ab.length == 0)
+                {
+                return READY;
+                }
+
+            f_dequeChunks.addLast(ab);
+            m_cbQueued += ab.length;
+            if (m_cbQueued > MAX_QUEUED)
+                {
+                cf = m_cfDrained;
+                if (cf == null)
+                    {
+                    m_cfDrained = cf = new CompletableFuture<>();
+                    }
+                }
+            else
+                {
+                cf = READY;
+                }
+            }
+
+        f_connection.onResponse(f_exchange);
+        return cf;
+        }
+
+    /**
+     * Indicate that the entire body has been written.
+     */
+    public void end()
+        {
+        synchronized (this)
+            {
+            if (m_fEnded)
+                {
+                return;
+                }
+            m_fEnded = true;
+            }
+        f_connection.onResponse(f_exchange);
+        }
+
+    /**
+     * Indicate that the body cannot be produced in full; since the response has already been
+     * (at least partially) sent, the connection is closed without completing it.
+     */
+    public void abort()
+        {
+        synchronized (this)
+            {
+            if (m_fEnded)
+                {
+                return;
+                }
+            m_fEnded = m_fAborted = true;
+            f_dequeChunks.clear();
+            m_cbQueued = 0;
+            }
+        f_connection.onResponse(f_exchange);
+        }
+
+    @Override
+    public String toString()
+        {
+        return "ResponseBody(" + f_exchange + ')';
+        }
+
+
+    // ----- writer side ---------------------------------------------------------------------------
+
+    /**
+     * @return the next portion of the body or null if there is none at the moment
+     */
+    byte[] poll()
+        {
+        CompletableFuture<Void> cfDrained = null;
+        byte[]                  ab;
+        synchronized (this)
+            {
+            ab = f_dequeChunks.pollFirst();
+            if (ab != null)
+                {
+                m_cbQueued -= ab.length;
+                if (m_cbQueued <= MAX_QUEUED / 2)
+                    {
+                    cfDrained   = m_cfDrained;
+                    m_cfDrained = null;
+                    }
+                }
+            }
+
+        if (cfDrained != null)
+            {
+            cfDrained.complete(null);
+            }
+        return ab;
+        }
+
+    /**
+     * @return true iff the writer has something to do
+     */
+    synchronized boolean isReady()
+        {
+        return m_fEnded || !f_dequeChunks.isEmpty();
+        }
+
+    /**
+     * @return true iff the body has been ended and all of it has been polled
+     */
+    synchronized boolean isEnded()
+        {
+        return m_fEnded && f_dequeChunks.isEmpty();
+        }
+
+    /**
+     * @return true iff the producer has aborted the body
+     */
+    synchronized boolean isAborted()
+        {
+        return m_fAborted;
+        }
+
+    /**
+     * Indicate that the response cannot be sent.
+     *
+     * @param e  the reason
+     */
+    void fail(IOException e)
+        {
+        CompletableFuture<Void> cfDrained;
+        synchronized (this)
+            {
+            if (m_exFailure != null)
+                {
+                return;
+                }
+            m_exFailure = e;
+            f_dequeChunks.clear();
+            m_cbQueued  = 0;
+            cfDrained   = m_cfDrained;
+            m_cfDrained = null;
+            }
+
+        if (cfDrained != null)
+            {
+            cfDrained.completeExceptionally(e);
+            }
+        }
+
+
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The maximum number of bytes that the producer could get ahead of the writer without being
+     * asked to wait.
+     */
+    public static final int MAX_QUEUED = 256 * 1024;
+
+    private static final CompletableFuture<Void> READY = CompletableFuture.completedFuture(null);
+
+    /**
+     * The connection that writes the body.
+     */
+    private final HttpConnection f_connection;
+
+    /**
+     * The exchange this body belongs to.
+     */
+    private final HttpExchange f_exchange;
+
+    /**
+     * The portions of the body that have been written, but not yet polled.
+     */
+    private final Deque<byte[]> f_dequeChunks = new ArrayDeque<>();
+
+    /**
+     * The number of bytes in the queue.
+     */
+    private long m_cbQueued;
+
+    /**
+     * True iff the producer has ended (or aborted) the body.
+     */
+    private boolean m_fEnded;
+
+    /**
+     * True iff the producer has aborted the body.
+     */
+    private boolean m_fAborted;
+
+    /**
+     * The reason the response cannot be sent; null while it still can.
+     */
+    private IOException m_exFailure;
+
+    /**
+     * The future the producer waits on, if any.
+     */
+    private CompletableFuture<Void> m_cfDrained;
+
+    // the framing state used by the connection's writer only
+
+    /**
+     * True iff the response head has been written.
+     */
+    boolean m_fHeadWritten;
+
+    /**
+     * True iff the body is sent using the "chunked" transfer coding.
+     */
+    boolean m_fChunked;
+
+    /**
+     * True iff the end of the body is indicated by closing the connection.
+     */
+    boolean m_fCloseDelimited;
+
+    /**
+     * The number of bytes still expected according to the Content-Length; -1 if not applicable.
+     */
+    long m_cbRemaining = -1;
+    }
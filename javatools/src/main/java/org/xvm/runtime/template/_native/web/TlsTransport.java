@@ -0,0 +1,365 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+
+/**
+ * The transport for a TLS connection, driven by an {@link SSLEngine}.
+ * <p>
+ * The handshake is performed lazily by the reading thread: the handshake messages are unwrapped by
+ * the same {@link #read} calls that unwrap the application data, and all the delegated tasks are
+ * run inline. As a result, the {@link javax.net.ssl.X509ExtendedKeyManager} sees all the callbacks
+ * for a given handshake on the same thread.
+ */
+public class TlsTransport
+        extends Transport
+    {
+    /**
+     * Construct the transport.
+     *
+     * @param channel  the underlying channel
+     * @param engine   the server-side engine
+     * @param poolNet  the pool of buffers for the TLS records
+     */
+    public TlsTransport(SocketChannel channel, SSLEngine engine, BufferPool poolNet)
+            throws SSLException
+        {
+        super(channel);
+
+        engine.setUseClientMode(false);
+        engine.beginHandshake();
+
+        f_engine    = engine;
+        f_poolNet   = poolNet;
+        m_bufNetIn  = poolNet.acquire();
+        m_bufNetOut = poolNet.acquire();
+        }
+
+    @Override
+    public int read(ByteBuffer buf)
+            throws IOException
+        {
+        ByteBuffer bufSpill = m_bufSpill;
+        if (bufSpill != null && bufSpill.hasRemaining())
+            {
+            return transfer(bufSpill, buf);
+            }
+
+        // the network buffer is always kept in the "fill" mode
+        ByteBuffer bufNetIn   = m_bufNetIn;
+        int        cbStart    = buf.position();
+        boolean    fNeedBytes = bufNetIn.position() == 0;
+        while (true)
+            {
+            processHandshake();
+
+            if (fNeedBytes)
+                {
+                if (!bufNetIn.hasRemaining())
+                    {
+                    m_bufNetIn = bufNetIn = enlarge(bufNetIn, f_engine.getSession().getPacketBufferSize());
+                    }
+
+                if (f_channel.read(bufNetIn) < 0)
+                    {
+                    // the peer has closed the connection without sending the "close_notify"
+                    try
+                        {
+                        f_engine.closeInbound();
+                        }
+                    catch (SSLException ignore) {}
+                    return -1;
+                    }
+                }
+
+            bufNetIn.flip();
+            SSLEngineResult result;
+            try
+                {
+                result = f_engine.unwrap(bufNetIn, buf);
+                }
+            finally
+                {
+                bufNetIn.compact();
+                }
+
+            int cbRead = buf.position() - cbStart;
+            switch (result.getStatus())
+                {
+                case OK:
+                    if (cbRead > 0)
+                        {
+                        return cbRead;
+                        }
+                    // a handshake or a session management message
+                    fNeedBytes = bufNetIn.position() == 0;
+                    break;
+
+                case BUFFER_UNDERFLOW:
+                    fNeedBytes = true;
+                    break;
+
+                case BUFFER_OVERFLOW:
+                    {
+                    // the record doesn't fit into the remaining space; unwrap it into the spill
+                    // buffer and take as much as fits
+                    int cbApp = f_engine.getSession().getApplicationBufferSize();
+                    if (bufSpill == null || bufSpill.capacity() < cbApp)
+                        {
+                        m_bufSpill = bufSpill = ByteBuffer.allocate(cbApp);
+                        }
+                    bufSpill.clear();
+
+                    bufNetIn.flip();
+                    try
+                        {
+                        result = f_engine.unwrap(bufNetIn, bufSpill);
+                        }
+                    finally
+                        {
+                        bufNetIn.compact();
+                        bufSpill.flip();
+                        }
+
+                    if (result.getStatus() != Status.OK)
+                        {
+                        throw new SSLException("unexpected unwrap status: " + result.getStatus());
+                        }
+                    if (bufSpill.hasRemaining())
+                        {
+                        return transfer(bufSpill, buf);
+                        }
+                    fNeedBytes = bufNetIn.position() == 0;
+                    break;
+                    }
+
+                case CLOSED:
+                    // the peer has sent the "close_notify"; respond to it
+                    processHandshake();
+                    return -1;
+                }
+            }
+        }
+
+    @Override
+    public void write(ByteBuffer... abuf)
+            throws IOException
+        {
+        synchronized (f_lockWrite)
+            {
+            do
+                {
+                if (wrap(abuf) == Status.CLOSED)
+                    {
+                    throw new SSLException("The TLS session has been closed");
+                    }
+                }
+            while (hasRemaining(abuf));
+            }
+        }
+
+    @Override
+    public SSLSession getSession()
+        {
+        return f_engine.getSession();
+        }
+
+    @Override
+    public String getApplicationProtocol()
+        {
+        String sProtocol = f_engine.getApplicationProtocol();
+        return sProtocol == null || sProtocol.isEmpty() ? null : sProtocol;
+        }
+
+    @Override
+    public void close()
+        {
+        synchronized (f_lockWrite)
+            {
+            try
+                {
+                f_engine.closeOutbound();
+                wrap(NO_BUFFERS);
+                }
+            catch (IOException | RuntimeException ignore) {}
+            }
+        abort();
+        }
+
+    @Override
+    public void release()
+        {
+        ByteBuffer bufNetIn  = m_bufNetIn;
+        ByteBuffer bufNetOut = m_bufNetOut;
+        if (bufNetIn != null)
+            {
+            m_bufNetIn  = null;
+            m_bufNetOut = null;
+
+            BufferPool pool = f_poolNet;
+            if (bufNetIn.capacity() == pool.getBufferSize())
+                {
+                pool.release(bufNetIn);
+                }
+            if (bufNetOut.capacity() == pool.getBufferSize())
+                {
+                pool.release(bufNetOut);
+                }
+            }
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Perform the handshake steps that don't require any incoming data.
+     */
+    private void processHandshake()
+            throws IOException
+        {
+        while (true)
+            {
+            switch (f_engine.getHandshakeStatus())
+                {
+                case NEED_TASK:
+                    runDelegatedTasks();
+                    break;
+
+                case NEED_WRAP:
+                    synchronized (f_lockWrite)
+                        {
+                        if (wrap(NO_BUFFERS) == Status.CLOSED && f_engine.isOutboundDone())
+                            {
+                            return;
+                            }
+                        }
+                    break;
+
+                default:
+                    return;
+                }
+            }
+        }
+
+    /**
+     * Wrap the application data (if any) into a single TLS record and write it out. Must be
+     * called while holding the write lock.
+     *
+     * @return the wrap status
+     */
+    private Status wrap(ByteBuffer[] abuf)
+            throws IOException
+        {
+        while (true)
+            {
+            ByteBuffer bufNetOut = m_bufNetOut;
+            bufNetOut.clear();
+
+            SSLEngineResult result = f_engine.wrap(abuf, bufNetOut);
+            if (result.getStatus() == Status.BUFFER_OVERFLOW)
+                {
+                m_bufNetOut = enlarge(bufNetOut, f_engine.getSession().getPacketBufferSize());
+                continue;
+                }
+
+            bufNetOut.flip();
+            writeFully(bufNetOut);
+
+            if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK)
+                {
+                runDelegatedTasks();
+                }
+            return result.getStatus();
+            }
+        }
+
+    private void runDelegatedTasks()
+        {
+        for (Runnable task; (task = f_engine.getDelegatedTask()) != null; )
+            {
+            task.run();
+            }
+        }
+
+    /**
+     * @return a larger buffer with the same content (in the "fill" mode)
+     */
+    private static ByteBuffer enlarge(ByteBuffer buf, int cbMin)
+        {
+        ByteBuffer bufNew = ByteBuffer.allocateDirect(Math.max(cbMin, buf.capacity() * 2));
+        buf.flip();
+        return bufNew.put(buf);
+        }
+
+    /**
+     * Move as many bytes as possible from one buffer to another.
+     *
+     * @return the number of bytes moved
+     */
+    private static int transfer(ByteBuffer bufFrom, ByteBuffer bufTo)
+        {
+        int cb = Math.min(bufFrom.remaining(), bufTo.remaining());
+        bufTo.put(bufTo.position(), bufFrom, bufFrom.position(), cb);
+        bufTo.position(bufTo.position() + cb);
+        bufFrom.position(bufFrom.position() + cb);
+        return cb;
+        }
+
+    private static boolean hasRemaining(ByteBuffer[] abuf)
+        {
+        for (ByteBuffer buf : abuf)
+            {
+            if (buf.hasRemaining())
+                {
+                return true;
+                }
+            }
+        return false;
+        }
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    private static final ByteBuffer[] NO_BUFFERS = new ByteBuffer[0];
+
+    /**
+     * The TLS engine.
+     */
+    private final SSLEngine f_engine;
+
+    /**
+     * The pool of the network buffers.
+     */
+    private final BufferPool f_poolNet;
+
+    /**
+     * The lock that serializes the wraps and the writes.
+     */
+    private final Object f_lockWrite = new Object();
+
+    /**
+     * The buffer for the incoming TLS records, in the "fill" mode.
+     */
+    private ByteBuffer m_bufNetIn;
+
+    /**
+     * The buffer for the outgoing TLS records.
+     */
+    private ByteBuffer m_bufNetOut;
+
+    /**
+     * The application data that has been unwrapped, but not yet read, in the "drain" mode.
+     */
+    private ByteBuffer m_bufSpill;
+    }
@@ -0,0 +1,179 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.IOException;
+
+import java.net.InetSocketAddress;
+
+import java.nio.ByteBuffer;
+
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLSession;
+
+
+/**
+ * The byte transport of an HTTP connection: either the plain socket channel or a TLS session on
+ * top of it.
+ * <p>
+ * The channel is used in blocking mode by a virtual thread, so a blocked read or write does not
+ * tie up a platform thread. The reads are performed by the connection's reading thread only; the
+ * writes may come from any thread, but never concurrently.
+ */
+public abstract class Transport
+    {
+    protected Transport(SocketChannel channel)
+        {
+        f_channel = channel;
+        }
+
+    /**
+     * Read the (application) bytes into the specified buffer, blocking if none are available.
+     *
+     * @return the number of bytes read, or -1 if the peer has closed the connection
+     */
+    public abstract int read(ByteBuffer buf)
+            throws IOException;
+
+    /**
+     * Write all the remaining (application) bytes of the specified buffers.
+     */
+    public abstract void write(ByteBuffer... abuf)
+            throws IOException;
+
+    /**
+     * @return the TLS session or null for a plain connection
+     */
+    public SSLSession getSession()
+        {
+        return null;
+        }
+
+    /**
+     * @return the application protocol negotiated by the TLS handshake (via ALPN), e.g. "h2"; null
+     *         for a plain connection or if no protocol has been negotiated
+     */
+    public String getApplicationProtocol()
+        {
+        return null;
+        }
+
+    /**
+     * @return the local address of the connection
+     */
+    public InetSocketAddress getLocalAddress()
+        {
+        try
+            {
+            return (InetSocketAddress) f_channel.getLocalAddress();
+            }
+        catch (IOException e)
+            {
+            return null;
+            }
+        }
+
+    /**
+     * @return the remote address of the connection
+     */
+    public InetSocketAddress getRemoteAddress()
+        {
+        try
+            {
+            return (InetSocketAddress) f_channel.getRemoteAddress();
+            }
+        catch (IOException e)
+            {
+            return null;
+            }
+        }
+
+    /**
+     * Gracefully close the connection after all the writes have completed. This method could be
+     * called on any thread, but not concurrently with {@link #write}.
+     */
+    public void close()
+        {
+        abort();
+        }
+
+    /**
+     * Close the underlying channel right away; any thread blocked in {@link #read} or
+     * {@link #write} receives an exception. This method could be called on any thread at any time.
+     */
+    public void abort()
+        {
+        try
+            {
+            f_channel.close();
+            }
+        catch (IOException ignore) {}
+        }
+
+    /**
+     * Release the resources held by this transport; called once, after neither reads nor writes
+     * are in progress.
+     */
+    public void release()
+        {
+        }
+
+    /**
+     * Write all the remaining bytes of the specified buffers to the channel.
+     */
+    protected void writeFully(ByteBuffer... abuf)
+            throws IOException
+        {
+        SocketChannel channel = f_channel;
+        for (ByteBuffer buf : abuf)
+            {
+            while (buf.hasRemaining())
+                {
+                channel.write(abuf);
+                }
+            }
+        }
+
+    @Override
+    public String toString()
+        {
+        return getClass().getSimpleName() + "(" + getRemoteAddress() + ")";
+        }
+
+
+    // ----- Plain ---------------------------------------------------------------------------------
+
+    /**
+     * The transport for a plain (non-TLS) connection.
+     */
+    public static class Plain
+            extends Transport
+        {
+        public Plain(SocketChannel channel)
+            {
+            super(channel);
+            }
+
+        @Override
+        public int read(ByteBuffer buf)
+                throws IOException
+            {
+            return f_channel.read(buf);
+            }
+
+        @Override
+        public void write(ByteBuffer... abuf)
+                throws IOException
+            {
+            writeFully(abuf);
+            }
+        }
+
+
+    // ----- data fields ---------------------------------------------------------------------------
+
+    /**
+     * The underlying channel.
+     */
+    protected final SocketChannel f_channel;
+    }
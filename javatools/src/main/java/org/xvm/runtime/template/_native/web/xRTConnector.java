@@ -1,33 +1,43 @@
 package org.xvm.runtime.template._native.web;
 
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.lang.ref.Cleaner;
 
-import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
-import java.net.HttpURLConnection;
+import java.net.Socket;
 import java.net.URI;
-import java.net.URL;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.nio.ByteBuffer;
 
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 
 import java.security.cert.X509Certificate;
 
+import java.time.Duration;
+
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 
-import javax.net.ssl.HostnameVerifier;
-import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.SSLEngine;
 import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.ConstantPool;
@@ -50,22 +60,25 @@ import org.xvm.runtime.template.xService;
 import org.xvm.runtime.template.collections.xArray;
 import org.xvm.runtime.template.collections.xArray.ArrayHandle;
 import org.xvm.runtime.template.collections.xArray.Mutability;
+import org.xvm.runtime.template.collections.xByteArray;
 
 import org.xvm.runtime.template.numbers.xInt64;
 
 import org.xvm.runtime.template.text.xString;
 import org.xvm.runtime.template.text.xString.StringHandle;
 
-import org.xvm.runtime.template._native.collections.arrays.ByteBasedDelegate;
-import org.xvm.runtime.template._native.collections.arrays.ByteBasedDelegate.ByteArrayHandle;
 import org.xvm.runtime.template._native.collections.arrays.xRTStringDelegate.StringArrayHandle;
 
 import org.xvm.util.ListMap;
-import org.xvm.util.TransientThreadLocal;
 
 
 /**
  * Native implementation of the RTConnector.x service.
+ * <p>
+ * Every Connector owns a {@link HttpClient}, which pools the connections and multiplexes the
+ * concurrent requests to the same "https" origin over a single HTTP/2 connection (negotiated via
+ * ALPN, falling back to HTTP/1.1). The requests are sent asynchronously: the calling fiber is
+ * suspended until the response arrives, rather than blocking the service's thread.
  */
 public class xRTConnector
         extends xService
@@ -85,17 +98,22 @@ public class xRTConnector
             }
         }
 
-    private static SSLSocketFactory createSocketFactory()
+    /**
+     * @return an SSLContext that trusts any server certificate and doesn't verify the host name
+     */
+    private static SSLContext createSSLContext()
             throws GeneralSecurityException
         {
+        // an "extended" trust manager, since the plain one would get wrapped by the JDK into a
+        // manager that performs the host name verification
         TrustManager[] aTrustMgr = new TrustManager[]
             {
-            new X509TrustManager()
+            new X509ExtendedTrustManager()
                 {
                 @Override
                 public X509Certificate[] getAcceptedIssuers()
                     {
-                    return null;
+                    return new X509Certificate[0];
                     }
                 @Override
                 public void checkClientTrusted(X509Certificate[] chain, String authType)
@@ -105,21 +123,48 @@ public class xRTConnector
                 public void checkServerTrusted(X509Certificate[] chain, String authType)
                     {
                     }
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain, String authType,
+                                               Socket socket)
+                    {
+                    }
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain, String authType,
+                                               Socket socket)
+                    {
+                    }
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain, String authType,
+                                               SSLEngine engine)
+                    {
+                    }
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain, String authType,
+                                               SSLEngine engine)
+                    {
+                    }
                 }
             };
 
         SSLContext context = SSLContext.getInstance("TLS");
         context.init(null, aTrustMgr, new SecureRandom());
-        return context.getSocketFactory();
+        return context;
         }
 
-    private static synchronized void ensureGlobalHandler()
+    /**
+     * @return a new HttpClient for a Connector that runs its tasks on the specified executor
+     */
+    private static HttpClient createClient(ExecutorService executor)
+            throws GeneralSecurityException
         {
-        if (s_handlerGlobal == null)
-            {
-            // set up the global handler (horrible design in Java, but nothing we can do)
-            CookieHandler.setDefault(s_handlerGlobal = new GlobalCookieHandler());
-            }
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                .connectTimeout(Duration.ofMillis(TIMEOUT_MILLIS))
+                .sslContext(createSSLContext())
+                .executor(executor)
+                .build();
         }
 
     @Override
@@ -156,20 +201,17 @@ public class xRTConnector
         {
         ServiceContext  context    = f_container.createServiceContext("Connector");
         ConnectorHandle hConnector = new ConnectorHandle(getCanonicalClass(f_container), context);
-
+        ExecutorService executor   = Executors.newVirtualThreadPerTaskExecutor();
         try
             {
-            CookieHandler    handler  = createCookieHandler();
-            SSLSocketFactory factory  = createSocketFactory();
-            HostnameVerifier verifier = (sHostName, session) -> true;
-
-            hConnector.configure(handler, factory, verifier);
+            hConnector.configure(createClient(executor), executor);
 
             context.setService(hConnector);
             return hConnector;
             }
         catch (GeneralSecurityException e)
             {
+            executor.shutdown();
             f_container.terminate(context);
             return new DeferredCallHandle(xException.makeHandle(frame, e.getMessage()));
             }
@@ -218,7 +260,6 @@ public class xRTConnector
         {
         StringArrayHandle haNames  = (StringArrayHandle) hHeaderNames.m_hDelegate;
         StringArrayHandle haValues = (StringArrayHandle) hHeaderValues.m_hDelegate;
-        ByteArrayHandle   haBytes  = (ByteArrayHandle)   hBytes.m_hDelegate;
 
         int                 cHeaders   = (int) haNames.m_cSize;
         Map<String, String> mapHeaders = new ListMap<>(cHeaders);
@@ -229,155 +270,199 @@ public class xRTConnector
 
         String sMethod = hMethod.getStringValue();
 
-        int cTimeoutMillis = 5_000_000;   // TODO: how to configure?
-        int cMaxSize       = 8*1024*1024;
-
-        try (var ignore = s_handlerGlobal.withHandler(hConn.m_cookieHandler))
+        CompletableFuture<HttpResponse<byte[]>> cfResponse;
+        try
             {
-            URL               url  = new URI(hUrl.getStringValue()).toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-
-            conn.setRequestMethod(hMethod.getStringValue());
-            conn.setConnectTimeout(cTimeoutMillis);
-            conn.setReadTimeout(cTimeoutMillis);
-            conn.setInstanceFollowRedirects(false);
+            URI                 uri     = new URI(hUrl.getStringValue());
+            HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                    .timeout(Duration.ofMillis(TIMEOUT_MILLIS));
 
-            if (conn instanceof HttpsURLConnection connTls)
+            if (!"https".equalsIgnoreCase(uri.getScheme()))
                 {
-                connTls.setHostnameVerifier(hConn.m_verifier);
-                connTls.setSSLSocketFactory(hConn.m_sslFactory);
+                // don't attempt the "Upgrade: h2c" dance, which few servers support
+                builder.version(HttpClient.Version.HTTP_1_1);
                 }
 
             for (Map.Entry<String, String> entry : mapHeaders.entrySet())
                 {
-                conn.addRequestProperty(entry.getKey(), entry.getValue());
+                String sName = entry.getKey();
+                if (!RESTRICTED_HEADERS.contains(sName.toLowerCase()))
+                    {
+                    builder.header(sName, entry.getValue());
+                    }
                 }
 
             if ("PUT".equals(sMethod) || "POST".equals(sMethod))
                 {
-                byte[] abData = ((ByteBasedDelegate) haBytes.getTemplate()).
-                                            getBytes(haBytes, 0, haBytes.m_cSize, false);
-
-                conn.setDoOutput(true);
-                conn.setDoInput(true);
+                byte[] abData = xByteArray.getBytes(hBytes);
 
-                OutputStream os = conn.getOutputStream();
-                os.write(abData);
-                os.flush();
+                builder.method(sMethod, HttpRequest.BodyPublishers.ofByteArray(abData));
                 }
-
-            // process the response
-            int nResponseStatus = conn.getResponseCode();
-
-            Map<String, List<String>> mapResponseHeaders = conn.getHeaderFields();
-
-            int          cResponseHeaders   = mapResponseHeaders.size();
-            List<String> listResponseNames  = new ArrayList<>(cResponseHeaders);
-            List<String> listResponseValues = new ArrayList<>(cResponseHeaders);
-            int          nContentLength     = 0;
-
-            Iterator<Map.Entry<String, List<String>>> it = mapResponseHeaders.entrySet().iterator();
-            for (int i = 0; i < cResponseHeaders; i++)
+            else
                 {
-                Map.Entry<String, List<String>> entry = it.next();
-
-                String sName = entry.getKey();
-                if (sName == null)
-                    {
-                    // this appears to be the HttpStatus entry
-                    continue;
-                    }
+                builder.method(sMethod, HttpRequest.BodyPublishers.noBody());
+                }
 
-                List<String> listValue = entry.getValue();
-                for (int j = 0, c = listValue.size(); j < c; j++)
-                    {
-                    String sValue = listValue.get(j);
-                    assert sValue != null;
+            cfResponse = hConn.m_client.sendAsync(builder.build(),
+                    info -> new LimitedBodySubscriber(MAX_BODY_SIZE));
+            }
+        catch (Exception e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            }
 
-                    listResponseNames.add(sName);
-                    listResponseValues.add(sValue);
+        return frame.waitForIO(cfResponse,
+                frameCaller -> assignResponse(frameCaller, cfResponse, aiReturn));
+        }
 
-                    if ("Content-Length".equalsIgnoreCase(sName))
-                        {
-                        nContentLength = Integer.parseInt(sValue);
-                        }
-                    }
-                }
+    /**
+     * Assign the results of the "sendRequest" method.
+     */
+    private int assignResponse(Frame frame, CompletableFuture<HttpResponse<byte[]>> cfResponse,
+                               int[] aiReturn)
+        {
+        HttpResponse<byte[]> response;
+        try
+            {
+            response = cfResponse.join();
+            }
+        catch (CompletionException e)
+            {
+            Throwable eCause = e.getCause();
+            return frame.raiseException(xException.ioException(frame,
+                    eCause.getMessage() == null ? eCause.toString() : eCause.getMessage()));
+            }
 
-            String[] asResponseNames  = listResponseNames.toArray(Utils.NO_NAMES);
-            String[] asResponseValues = listResponseValues.toArray(Utils.NO_NAMES);
+        Map<String, List<String>> mapResponseHeaders = response.headers().map();
 
-            byte[] abResponse = null;
-            if (nContentLength > 0)
+        int          cResponseHeaders   = mapResponseHeaders.size();
+        List<String> listResponseNames  = new ArrayList<>(cResponseHeaders);
+        List<String> listResponseValues = new ArrayList<>(cResponseHeaders);
+        for (Map.Entry<String, List<String>> entry : mapResponseHeaders.entrySet())
+            {
+            String sName = entry.getKey();
+            if (sName.startsWith(":"))
                 {
-                if (nContentLength > cMaxSize)
-                    {
-                    nResponseStatus = 206; // "Partial Content"
-                    nContentLength  = cMaxSize;
-                    }
-                InputStream in = nResponseStatus >= 400
-                        ? conn.getErrorStream()
-                        : conn.getInputStream();
-                byte[] ab = new byte[nContentLength];
-
-                in.read(ab, 0, nContentLength);
-                abResponse = ab;
+                // an HTTP/2 pseudo-header
+                continue;
                 }
 
-            ObjectHandle hResponseBytes = abResponse == null
-                    ? xArray.ensureEmptyByteArray()
-                    : xArray.makeByteArrayHandle(abResponse, Mutability.Constant);
-
-            return frame.assignValues(aiReturn,
-                    xInt64.makeHandle(nResponseStatus),
-                    xString.makeArrayHandle(asResponseNames),
-                    xString.makeArrayHandle(asResponseValues),
-                    hResponseBytes
-                    );
+            for (String sValue : entry.getValue())
+                {
+                listResponseNames.add(sName);
+                listResponseValues.add(sValue);
+                }
             }
-        catch (Exception e)
+
+        int    nResponseStatus = response.statusCode();
+        byte[] abResponse      = response.body();
+        if (abResponse.length > MAX_BODY_SIZE)
             {
-            return frame.raiseException(xException.ioException(frame, e.getMessage()));
+            nResponseStatus = 206; // "Partial Content"
+            abResponse      = Arrays.copyOf(abResponse, MAX_BODY_SIZE);
             }
-        }
-
 
-    // ----- ObjectHandles -------------------------------------------------------------------------
+        ObjectHandle hResponseBytes = abResponse.length == 0
+                ? xArray.ensureEmptyByteArray()
+                : xArray.makeByteArrayHandle(abResponse, Mutability.Constant);
 
-    private CookieHandler createCookieHandler()
-        {
-        ensureGlobalHandler();
-        return new CookieManager(null, CookiePolicy.ACCEPT_ALL);
+        return frame.assignValues(aiReturn,
+                xInt64.makeHandle(nResponseStatus),
+                xString.makeArrayHandle(listResponseNames.toArray(Utils.NO_NAMES)),
+                xString.makeArrayHandle(listResponseValues.toArray(Utils.NO_NAMES)),
+                hResponseBytes
+                );
         }
 
+
+    // ----- LimitedBodySubscriber -----------------------------------------------------------------
+
     /**
-     * Global CookieHandler.
+     * A response body subscriber that collects up to the specified number of bytes, plus one
+     * extra byte to indicate that the body has been truncated; the rest of the body is dropped.
      */
-    static class GlobalCookieHandler
-            extends CookieHandler
+    protected static class LimitedBodySubscriber
+            implements HttpResponse.BodySubscriber<byte[]>
         {
-        private final TransientThreadLocal<CookieHandler> f_tloHandler = new TransientThreadLocal<>();
+        protected LimitedBodySubscriber(int cbMax)
+            {
+            f_cbMax = cbMax;
+            }
+
+        @Override
+        public CompletionStage<byte[]> getBody()
+            {
+            return f_cfBody;
+            }
 
-        public AutoCloseable withHandler(CookieHandler handler)
+        @Override
+        public void onSubscribe(Flow.Subscription subscription)
+            {
+            subscription.request(Long.MAX_VALUE);
+            }
+
+        @Override
+        public void onNext(List<ByteBuffer> listBuf)
             {
-            return f_tloHandler.push(handler);
+            if (f_cfBody.isDone())
+                {
+                return;
+                }
+
+            for (ByteBuffer buf : listBuf)
+                {
+                int cb = Math.min(buf.remaining(), f_cbMax + 1 - m_cb);
+                if (m_cb + cb > m_ab.length)
+                    {
+                    m_ab = Arrays.copyOf(m_ab, Math.min(Math.max(m_ab.length * 2, m_cb + cb), f_cbMax + 1));
+                    }
+                buf.get(m_ab, m_cb, cb);
+                m_cb += cb;
+
+                if (m_cb > f_cbMax)
+                    {
+                    // cancelling the subscription would fail the response (and reset an HTTP/2
+                    // stream), so the rest of the body is read and dropped instead
+                    onComplete();
+                    return;
+                    }
+                }
             }
 
         @Override
-        public Map<String, List<String>> get(URI uri, Map<String, List<String>> requestHeaders)
-                throws IOException
+        public void onError(Throwable e)
             {
-            return f_tloHandler.get().get(uri, requestHeaders);
+            f_cfBody.completeExceptionally(e);
             }
 
         @Override
-        public void put(URI uri, Map<String, List<String>> responseHeaders)
-                throws IOException
+        public void onComplete()
             {
-            f_tloHandler.get().put(uri, responseHeaders);
+            // no-op if the body has already been truncated
+            f_cfBody.complete(m_cb == m_ab.length ? m_ab : Arrays.copyOf(m_ab, m_cb));
             }
+
+        /**
+         * The maximum number of bytes to collect.
+         */
+        private final int f_cbMax;
+        /**
+         * The future for the body.
+         */
+        private final CompletableFuture<byte[]> f_cfBody = new CompletableFuture<>();
+        /**
+         * The bytes collected so far.
+         */
+        private byte[] m_ab = new byte[1024];
+        /**
+         * The number of bytes collected so far.
+         */
+        private int m_cb;
         }
 
+
+    // ----- ObjectHandles -------------------------------------------------------------------------
+
     /**
      * A {@link ServiceHandle} for the RTConnector service.
      */
@@ -385,29 +470,41 @@ public class xRTConnector
             extends ServiceHandle
         {
         /**
-         * The {@link CookieHandler} used by this Connector.
-         */
-        protected CookieHandler m_cookieHandler;
-        /**
-         * The {@link SSLSocketFactory} used for HTTPS.
+         * The {@link HttpClient} used by this Connector; it holds the Connector's cookies and the
+         * pooled connections.
          */
-        protected SSLSocketFactory m_sslFactory;
+        protected HttpClient m_client;
+
         /**
-         * The {@link HostnameVerifier}.
+         * The action that shuts down the HttpClient and its executor; it runs when the Connector
+         * service is shut down or, at the latest, when this handle becomes unreachable.
          */
-        protected HostnameVerifier m_verifier;
+        private Cleaner.Cleanable m_cleanable;
 
         protected ConnectorHandle(TypeComposition clazz, ServiceContext context)
             {
             super(clazz, context);
             }
 
-        protected void configure(CookieHandler cookieHandler, SSLSocketFactory sslFactory,
-                                 HostnameVerifier hostVerifier)
+        /**
+         * Configure this Connector to use the specified HttpClient, which runs its tasks on the
+         * specified executor; both are owned by this Connector.
+         */
+        protected void configure(HttpClient client, ExecutorService executor)
             {
-            m_cookieHandler = cookieHandler;
-            m_sslFactory    = sslFactory;
-            m_verifier      = hostVerifier;
+            m_client    = client;
+            m_cleanable = CLEANER.register(this, () ->
+                {
+                // the HttpClient doesn't shut down an executor it was given
+                client.shutdownNow();
+                executor.shutdownNow();
+                });
+            }
+
+        @Override
+        public void onShutdown()
+            {
+            m_cleanable.clean();
             }
 
         @Override
@@ -418,12 +515,29 @@ public class xRTConnector
         }
 
 
-    // ----- data fields ---------------------------------------------------------------------------
+    // ----- constants and data fields -------------------------------------------------------------
+
+    /**
+     * The connect and request timeout.
+     */
+    private static final long TIMEOUT_MILLIS = 5_000_000; // TODO: how to configure?
 
     /**
-     * Global handler.
+     * The maximum size of a response body; a larger body is truncated.
      */
-    private static GlobalCookieHandler s_handlerGlobal;
+    private static final int MAX_BODY_SIZE = 8*1024*1024;
+
+    /**
+     * The headers that are controlled by the HttpClient and cannot be set by the caller.
+     */
+    private static final Set<String> RESTRICTED_HEADERS =
+            Set.of("connection", "content-length", "expect", "host", "upgrade");
+
+    /**
+     * The cleaner that shuts down the HttpClients of unreachable Connectors.
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
     /**
      * Cached agent string.
      */
@@ -432,4 +546,4 @@ public class xRTConnector
      * Cached canonical type.
      */
     private TypeConstant m_typeCanonical;
-    }
\ No newline at end of file
+    }
@@ -1,16 +1,6 @@
 package org.xvm.runtime.template._native.web;
 
-import com.sun.net.httpserver.Headers;
-import com.sun.net.httpserver.HttpExchange;
-import com.sun.net.httpserver.HttpHandler;
-import com.sun.net.httpserver.HttpServer;
-import com.sun.net.httpserver.HttpsConfigurator;
-import com.sun.net.httpserver.HttpsExchange;
-import com.sun.net.httpserver.HttpsParameters;
-import com.sun.net.httpserver.HttpsServer;
-
 import java.io.IOException;
-import java.io.OutputStream;
 
 import java.net.InetSocketAddress;
 import java.net.Socket;
@@ -28,11 +18,9 @@ import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
 
 import javax.net.ssl.ExtendedSSLSession;
 import javax.net.ssl.KeyManager;
@@ -70,11 +58,13 @@ import org.xvm.runtime.template.collections.xArray.ArrayHandle;
 import org.xvm.runtime.template.collections.xArray.Mutability;
 import org.xvm.runtime.template.collections.xByteArray;
 
+import org.xvm.runtime.template.numbers.xInt64;
 import org.xvm.runtime.template.numbers.xUInt16;
 
 import org.xvm.runtime.template.text.xString;
 import org.xvm.runtime.template.text.xString.StringHandle;
 
+import org.xvm.runtime.template._native.collections.arrays.xRTDelegate.GenericArrayDelegate;
 import org.xvm.runtime.template._native.collections.arrays.xRTStringDelegate.StringArrayHandle;
 
 import org.xvm.runtime.template._native.crypto.xRTKeyStore.KeyStoreHandle;
@@ -84,7 +74,7 @@ import org.xvm.runtime.template._native.reflect.xRTFunction.FunctionHandle;
 
 
 /**
- * Native implementation of the RTServer.x service that uses native Java {@link HttpServer}.
+ * Native implementation of the RTServer.x service that uses the native {@link HttpEngine}.
  */
 public class xRTServer
         extends xService
@@ -107,8 +97,12 @@ public class xRTServer
         markNativeMethod("bindImpl"        , null, VOID);
         markNativeMethod("addRouteImpl"    , null, VOID);
         markNativeMethod("removeRouteImpl" , null, VOID);
+        markNativeMethod("shardCountImpl"  , null, null);
         markNativeMethod("replaceRouteImpl", null, BOOLEAN);
         markNativeMethod("respond"         , null, VOID);
+        markNativeMethod("respondStreaming", null, VOID);
+        markNativeMethod("writeBodyChunk"  , null, VOID);
+        markNativeMethod("endBody"         , null, VOID);
         markNativeMethod("close"           , null, VOID);
 
         markNativeMethod("getReceivedAtAddress",   null, null);
@@ -118,6 +112,7 @@ public class xRTServer
         markNativeMethod("getHeaderNames",         null, null);
         markNativeMethod("getHeaderValuesForName", null, null);
         markNativeMethod("getBodyBytes",           null, null);
+        markNativeMethod("readBodyChunk",          null, null);
         markNativeMethod("containsNestedBodies",   null, null);
 
         invalidateTypeInfo();
@@ -204,6 +199,9 @@ public class xRTServer
             case "bindImpl":
                 return invokeBind(frame, (HttpServerHandle) hTarget, ahArg);
 
+            case "shardCountImpl":
+                return invokeShardCount(frame, (HttpServerHandle) hTarget, iReturn);
+
             case "addRouteImpl":
                 return invokeAddRoute(frame, (HttpServerHandle) hTarget, ahArg);
 
@@ -218,6 +216,17 @@ public class xRTServer
                         : xRTFunction.makeAsyncNativeHandle(method).
                                 call1(frame, hService, ahArg, iReturn);
                 }
+
+            case "respondStreaming":
+                return invokeRespondStreaming(frame, ahArg);
+
+            case "writeBodyChunk":
+                return invokeWriteBodyChunk(frame, (HttpContextHandle) ahArg[0],
+                        (ArrayHandle) ahArg[1]);
+
+            case "endBody":
+                return invokeEndBody(frame, (HttpContextHandle) ahArg[0],
+                        (BooleanHandle) ahArg[1]);
             }
 
         return super.invokeNativeN(frame, method, hTarget, ahArg, iReturn);
@@ -244,6 +253,9 @@ public class xRTServer
 
             case "getBodyBytes":
                 return invokeGetBody(frame, (HttpContextHandle) ahArg[0], aiReturn);
+
+            case "readBodyChunk":
+                return invokeReadBodyChunk(frame, (HttpContextHandle) ahArg[0], aiReturn);
             }
 
         return super.invokeNativeNN(frame, method, hTarget, ahArg, aiReturn);
@@ -274,44 +286,25 @@ public class xRTServer
             configureHttpsServer(hServer, new InetSocketAddress(sBindAddr, nHttpsPort));
             configureBinding(hServer, hBinding);
 
-            HttpServer  httpServer  = hServer.getHttpServer();
-            HttpsServer httpsServer = hServer.getHttpsServer();
-
-            // at the moment we only support a single "binding"; set up the thread pool
-            String        sName   = "HttpHandler";
-            ThreadGroup   group   = new ThreadGroup(sName);
-            ThreadFactory factory = r ->
-                {
-                Thread thread = new Thread(group, r);
-                thread.setDaemon(true);
-                thread.setName(sName + "@" + thread.hashCode());
-                return thread;
-                };
-
-            // We don't actually rely on any scaling here; all requests go to a single natural
-            // Handler service instance that needs to demultiplex it as quick as possible
-            // (see HttpHandler.x in xenia.xtclang.org module).
-            // If necessary, we can change the start() method to take an array of handlers and
-            // demultiplex it earlier by the native code
-            Executor executor = Executors.newCachedThreadPool(factory);
-
-            httpServer.setExecutor(executor);
-            httpServer.start();
-
-            httpsServer.setExecutor(executor);
-            httpsServer.start();
+            // the requests for each route are spread across that route's handler shards (see
+            // RouteInfo); each shard calls its own natural Handler service, if the route's handler
+            // is able to create them (see HttpHandler.createShard() in xenia.xtclang.org module)
+            hServer.getHttpServer().start();
+            hServer.getHttpsServer().start();
 
             // prevent the container from being terminated
             hServer.f_context.f_container.getServiceContext().registerNotification();
 
-            Router router = hServer.getRouter();
-            httpServer .createContext("/", router);
-            httpsServer.createContext("/", router);
-
             return Op.R_NEXT;
             }
         catch (Exception e)
             {
+            HttpEngine httpServer = hServer.getHttpServer();
+            if (httpServer != null)
+                {
+                httpServer.close();
+                hServer.setHttpServer(null);
+                }
             frame.f_context.f_container.terminate(hServer.f_context);
             return frame.raiseException(
                     xException.ioException(frame, Runtime.logRuntimeException(e.getMessage())));
@@ -321,40 +314,18 @@ public class xRTServer
     private void configureHttpServer(HttpServerHandle hServer, InetSocketAddress addr)
             throws IOException
         {
-        hServer.setHttpServer(HttpServer.create(addr, 0));
+        hServer.setHttpServer(new HttpEngine(addr, null, hServer.getRouter()));
         }
 
     private void configureHttpsServer(HttpServerHandle hServer, InetSocketAddress addr)
             throws IOException, GeneralSecurityException
         {
-        HttpsServer httpsServer = HttpsServer.create(addr, 0);
-        SSLContext  ctxSSL      = SSLContext.getInstance("TLS");
+        SSLContext ctxSSL = SSLContext.getInstance("TLS");
 
         KeyManager[] aKeyManagers = new KeyManager[] {new SimpleKeyManager(hServer)};
         ctxSSL.init(aKeyManagers, null, null);
 
-        httpsServer.setHttpsConfigurator(new HttpsConfigurator(ctxSSL)
-            {
-            @Override
-            public void configure(HttpsParameters params)
-                {
-                try
-                    {
-                    SSLContext ctxSSL = getSSLContext();
-                    SSLEngine  engine = ctxSSL.createSSLEngine();
-
-                    params.setNeedClientAuth(true);
-                    params.setCipherSuites(engine.getEnabledCipherSuites());
-                    params.setProtocols(engine.getEnabledProtocols());
-                    params.setSSLParameters(ctxSSL.getSupportedSSLParameters());
-                    }
-                catch (Exception ex)
-                    {
-                    throw new RuntimeException("failed to initialize the SSL context", ex);
-                    }
-                }
-            });
-        hServer.setHttpsServer(httpsServer);
+        hServer.setHttpsServer(new HttpEngine(addr, ctxSSL, hServer.getRouter()));
         }
 
     private void configureBinding(HttpServerHandle hServer, ObjectHandle hBinding) {
@@ -362,13 +333,23 @@ public class xRTServer
     }
 
     /**
-     * Implementation of "void addRouteImpl(String hostName, HandlerWrapper wrapper,
+     * Implementation of "Int shardCountImpl()" method.
+     */
+    private int invokeShardCount(Frame frame, HttpServerHandle hServer, int iResult)
+        {
+        // there is no benefit in having more shards than the runtime could run concurrently
+        int cShards = hServer.f_context.getRuntime().getParallelism();
+        return frame.assignValue(iResult, xInt64.makeHandle(Math.min(cShards, MAX_SHARDS)));
+        }
+
+    /**
+     * Implementation of "void addRouteImpl(String hostName, HandlerWrapper[] wrappers,
      *                    KeyStore keystore, String? tlsKey=Null)" method.
      */
     private int invokeAddRoute(Frame frame, HttpServerHandle hServer, ObjectHandle[] ahArg)
         {
         StringHandle   hHostName = (StringHandle) ahArg[0];
-        ServiceHandle  hWrapper  = (ServiceHandle) ahArg[1];
+        ArrayHandle    hWrappers = (ArrayHandle) ahArg[1];
         KeyStoreHandle hKeystore = ahArg[2] instanceof KeyStoreHandle hK ? hK : null;
         String         sTlsKey   = ahArg[3] instanceof StringHandle hS ? hS.getStringValue() : null;
         Router         router    = hServer.getRouter();
@@ -399,18 +380,19 @@ public class xRTServer
                 }
             }
 
-        RequestHandler handler = createRequestHandler(frame, hWrapper, hServer);
-        router.mapRoutes.put(hHostName.getStringValue(), new RouteInfo(handler, hKeystore, sTlsKey));
+        RequestHandler[] aHandler = createRequestHandlers(frame, hWrappers, hServer);
+        router.mapRoutes.put(hHostName.getStringValue(), new RouteInfo(aHandler, hKeystore, sTlsKey));
         return Op.R_NEXT;
         }
 
     /**
-     * Implementation of "Boolean replaceRouteImpl(String hostName, HandlerWrapper wrapper)" method.
+     * Implementation of "Boolean replaceRouteImpl(String hostName, HandlerWrapper[] wrappers)"
+     * method.
      */
     private int invokeReplaceRoute(Frame frame, HttpServerHandle hServer, ObjectHandle[] ahArg, int iResult)
         {
         StringHandle   hHostName = (StringHandle) ahArg[0];
-        ServiceHandle  hWrapper  = (ServiceHandle) ahArg[1];
+        ArrayHandle    hWrappers = (ArrayHandle) ahArg[1];
         Router         router    = hServer.getRouter();
         String         sHostName = hHostName.getStringValue();
         RouteInfo      info      = router.mapRoutes.get(sHostName);
@@ -420,11 +402,29 @@ public class xRTServer
             return frame.assignValue(iResult, xBoolean.FALSE);
             }
 
-        RequestHandler handler = createRequestHandler(frame, hWrapper, hServer);
-        router.mapRoutes.put(sHostName, new RouteInfo(handler, info.hKeyStore, info.sTlsKey));
+        RequestHandler[] aHandler = createRequestHandlers(frame, hWrappers, hServer);
+        router.mapRoutes.put(sHostName, new RouteInfo(aHandler, info.hKeyStore, info.sTlsKey));
         return frame.assignValue(iResult, xBoolean.TRUE);
         }
 
+    /**
+     * Create a RequestHandler for each of the HandlerWrapper services in the specified array.
+     */
+    private RequestHandler[] createRequestHandlers(Frame frame, ArrayHandle hWrappers,
+                                                   HttpServerHandle hServer)
+        {
+        GenericArrayDelegate haWrappers = (GenericArrayDelegate) hWrappers.m_hDelegate;
+        int                  cWrappers  = (int) haWrappers.m_cSize;
+        assert cWrappers > 0;
+
+        RequestHandler[] aHandler = new RequestHandler[cWrappers];
+        for (int i = 0; i < cWrappers; i++)
+            {
+            aHandler[i] = createRequestHandler(frame, (ServiceHandle) haWrappers.get(i), hServer);
+            }
+        return aHandler;
+        }
+
     private RequestHandler createRequestHandler(Frame frame, ServiceHandle hWrapper, HttpServerHandle hServer)
         {
         ClassStructure  clzHandler = hWrapper.getTemplate().getStructure();
@@ -502,10 +502,10 @@ public class xRTServer
      */
     private int invokeGetHeaderNames(Frame frame, HttpContextHandle hCtx, int iResult)
         {
-        Headers headers = hCtx.f_exchange.getRequestHeaders();
+        HttpHeaders headers = hCtx.f_exchange.getRequestHeaders();
 
         return frame.assignValue(iResult,
-                xString.makeArrayHandle(headers.keySet().toArray(Utils.NO_NAMES)));
+                xString.makeArrayHandle(headers.names().toArray(Utils.NO_NAMES)));
         }
 
     /**
@@ -515,8 +515,8 @@ public class xRTServer
     private int invokeGetHeaderValues(Frame frame, HttpContextHandle hCtx,
                                       StringHandle hName, int[] aiResult)
         {
-        Headers headers = hCtx.f_exchange.getRequestHeaders();
-        String  sName   = hName.getStringValue();
+        HttpHeaders headers = hCtx.f_exchange.getRequestHeaders();
+        String      sName   = hName.getStringValue();
 
         List<String> listValues = headers.get(sName);
         if (listValues == null)
@@ -533,19 +533,31 @@ public class xRTServer
      */
     private int invokeGetBody(Frame frame, HttpContextHandle hCtx, int[] aiResult)
         {
+        CompletableFuture<byte[]> cfBody = hCtx.f_exchange.getRequestBody().readAll();
+
+        return cfBody.isDone()
+            ? assignBody(frame, cfBody, aiResult)
+            : frame.waitForIO(cfBody, frameCaller -> assignBody(frameCaller, cfBody, aiResult));
+        }
+
+    /**
+     * Implementation of "conditional Byte[] readBodyChunk(RequestContext context)" method.
+     */
+    private int invokeReadBodyChunk(Frame frame, HttpContextHandle hCtx, int[] aiResult)
+        {
+        CompletableFuture<byte[]> cfChunk;
         try
             {
-            byte[] ab = hCtx.f_exchange.getRequestBody().readAllBytes();
-
-            return ab.length == 0
-                ? frame.assignValue(aiResult[0], xBoolean.FALSE)
-                : frame.assignValues(aiResult, xBoolean.TRUE,
-                    xByteArray.makeByteArrayHandle(ab, Mutability.Constant));
+            cfChunk = hCtx.f_exchange.getRequestBody().read();
             }
-        catch (IOException e)
+        catch (IllegalStateException e)
             {
-            return frame.assignValue(aiResult[0], xBoolean.FALSE);
+            return frame.raiseException(xException.illegalState(frame, e.getMessage()));
             }
+
+        return cfChunk.isDone()
+            ? assignBody(frame, cfChunk, aiResult)
+            : frame.waitForIO(cfChunk, frameCaller -> assignBody(frameCaller, cfChunk, aiResult));
         }
 
     /**
@@ -563,26 +575,19 @@ public class xRTServer
      */
     private int invokeClose(HttpServerHandle hServer)
         {
-        HttpServer httpServer  = hServer.getHttpServer();
-        HttpServer httpsServer = hServer.getHttpsServer();
+        HttpEngine httpServer  = hServer.getHttpServer();
+        HttpEngine httpsServer = hServer.getHttpsServer();
         if (httpServer != null)
             {
-            if (httpServer.getExecutor() == null)
+            boolean fStarted = httpServer.isStarted();
+
+            httpServer.close();
+            if (httpsServer != null)
                 {
-                // we need to compensate for a bug in com.sun.net.httpserver.HttpServer that doesn't
-                // properly close the server socket that hasn't been established
-                httpServer.start();
-                httpServer.stop(0);
-                httpsServer.start();
-                httpsServer.stop(0);
+                httpsServer.close();
                 }
-            else
+            if (fStarted)
                 {
-                httpServer.removeContext("/");
-                httpServer.stop(0);
-                httpsServer.removeContext("/");
-                httpsServer.stop(0);
-                ((ExecutorService) httpServer.getExecutor()).shutdown();
                 hServer.f_context.f_container.getServiceContext().unregisterNotification();
                 }
             hServer.getRouter().mapRoutes.clear();
@@ -599,41 +604,95 @@ public class xRTServer
      */
     private int invokeRespond(Frame frame, ObjectHandle[] ahArg)
         {
-        HttpExchange      exchange      = ((HttpContextHandle) ahArg[0]).f_exchange;
-        long              nStatus       = ((JavaLong) ahArg[1]).getValue();
-        StringArrayHandle hHeaderNames  = (StringArrayHandle) ((ArrayHandle) ahArg[2]).m_hDelegate;
-        StringArrayHandle hHeaderValues = (StringArrayHandle) ((ArrayHandle) ahArg[3]).m_hDelegate;
-        ArrayHandle       hBody         = (ArrayHandle) ahArg[4];
-        byte[]            abBody        = xByteArray.getBytes(hBody);
-        int               cbBody        = abBody.length;
+        HttpExchange exchange = ((HttpContextHandle) ahArg[0]).f_exchange;
+        long         nStatus  = ((JavaLong) ahArg[1]).getValue();
+        ArrayHandle  hBody    = (ArrayHandle) ahArg[4];
+        byte[]       abBody   = xByteArray.getBytes(hBody);
+
+        addHeaders(exchange, (ArrayHandle) ahArg[2], (ArrayHandle) ahArg[3]);
 
         try
             {
-            Headers headers = exchange.getResponseHeaders();
-            for (long i = 0, c = hHeaderNames.m_cSize; i < c; i++)
-                {
-                headers.add(hHeaderNames.get(i), hHeaderValues.get(i));
-                }
+            // the response is written asynchronously; a failure to write it means that the
+            // client is gone, and there is no one to report it to
+            exchange.sendResponse((int) nStatus, abBody);
+            }
+        catch (IllegalStateException e)
+            {
+            return frame.raiseException(xException.illegalState(frame, e.getMessage()));
+            }
+        return Op.R_NEXT;
+        }
+
+    /**
+     * Implementation of "respondStreaming(
+     *   RequestContext ctx, Int status, String[] headerNames, String[] headerValues)" method.
+     */
+    private int invokeRespondStreaming(Frame frame, ObjectHandle[] ahArg)
+        {
+        HttpExchange exchange = ((HttpContextHandle) ahArg[0]).f_exchange;
+        long         nStatus  = ((JavaLong) ahArg[1]).getValue();
+
+        addHeaders(exchange, (ArrayHandle) ahArg[2], (ArrayHandle) ahArg[3]);
+
+        try
+            {
+            exchange.startResponse((int) nStatus);
+            }
+        catch (IllegalStateException e)
+            {
+            return frame.raiseException(xException.illegalState(frame, e.getMessage()));
+            }
+        return Op.R_NEXT;
+        }
+
+    /**
+     * Implementation of "writeBodyChunk(RequestContext ctx, Byte[] chunk)" method.
+     */
+    private int invokeWriteBodyChunk(Frame frame, HttpContextHandle hCtx, ArrayHandle hChunk)
+        {
+        ResponseBody body = hCtx.f_exchange.getResponseStream();
+        if (body == null)
+            {
+            return frame.raiseException(
+                    xException.illegalState(frame, "The streaming response has not been started"));
+            }
 
-            exchange.sendResponseHeaders((int) nStatus, cbBody > 0 ? cbBody : -1);
+        CompletableFuture<Void> cfWrite;
+        try
+            {
+            cfWrite = body.write(xByteArray.getBytes(hChunk));
+            }
+        catch (IllegalStateException e)
+            {
+            return frame.raiseException(xException.illegalState(frame, e.getMessage()));
             }
-        catch (IOException e)
+
+        // the future completes when the connection is ready to take more bytes
+        return cfWrite.isDone()
+            ? checkWrite(frame, cfWrite)
+            : frame.waitForIO(cfWrite, frameCaller -> checkWrite(frameCaller, cfWrite));
+        }
+
+    /**
+     * Implementation of "endBody(RequestContext ctx, Boolean complete)" method.
+     */
+    private int invokeEndBody(Frame frame, HttpContextHandle hCtx, BooleanHandle hComplete)
+        {
+        ResponseBody body = hCtx.f_exchange.getResponseStream();
+        if (body == null)
             {
             return frame.raiseException(
-                    xException.ioException(frame, Runtime.logRuntimeException(e.getMessage())));
+                    xException.illegalState(frame, "The streaming response has not been started"));
             }
 
-        if (cbBody > 0)
+        if (hComplete.get())
             {
-            try (OutputStream out = exchange.getResponseBody())
-                {
-                out.write(abBody);
-                }
-            catch (Throwable e)
-                {
-                return frame.raiseException(
-                    xException.ioException(frame, Runtime.logRuntimeException(e.getMessage())));
-                }
+            body.end();
+            }
+        else
+            {
+            body.abort();
             }
         return Op.R_NEXT;
         }
@@ -641,6 +700,58 @@ public class xRTServer
 
     // ----- helper methods ------------------------------------------------------------------------
 
+    /**
+     * Add the specified response headers to the exchange.
+     */
+    private static void addHeaders(HttpExchange exchange, ArrayHandle hNames, ArrayHandle hValues)
+        {
+        StringArrayHandle hHeaderNames  = (StringArrayHandle) hNames.m_hDelegate;
+        StringArrayHandle hHeaderValues = (StringArrayHandle) hValues.m_hDelegate;
+
+        HttpHeaders headers = exchange.getResponseHeaders();
+        for (long i = 0, c = hHeaderNames.m_cSize; i < c; i++)
+            {
+            headers.add(hHeaderNames.get(i), hHeaderValues.get(i));
+            }
+        }
+
+    /**
+     * Assign the result of a completed body read to the "conditional Byte[]" return values.
+     */
+    private static int assignBody(Frame frame, CompletableFuture<byte[]> cfBody, int[] aiResult)
+        {
+        byte[] ab;
+        try
+            {
+            ab = cfBody.join();
+            }
+        catch (CompletionException e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getCause().getMessage()));
+            }
+
+        return ab == null || ab.length == 0
+            ? frame.assignValue(aiResult[0], xBoolean.FALSE)
+            : frame.assignValues(aiResult, xBoolean.TRUE,
+                xByteArray.makeByteArrayHandle(ab, Mutability.Constant));
+        }
+
+    /**
+     * Raise an IOException if the completed body write has failed.
+     */
+    private static int checkWrite(Frame frame, CompletableFuture<Void> cfWrite)
+        {
+        try
+            {
+            cfWrite.join();
+            return Op.R_NEXT;
+            }
+        catch (CompletionException e)
+            {
+            return frame.raiseException(xException.ioException(frame, e.getCause().getMessage()));
+            }
+        }
+
     protected static String getHostName(HttpExchange exchange)
         {
         String sHost = exchange.getRequestHeaders().getFirst("Host");
@@ -666,18 +777,17 @@ public class xRTServer
         int ofPort = sHost.lastIndexOf(':');
         return ofPort >= 0
             ? Integer.valueOf(sHost.substring(ofPort + 1))
-            : exchange instanceof HttpsExchange ? 443 : 80;
+            : exchange.isSecure() ? 443 : 80;
         }
 
 
     // ----- helper classes ------------------------------------------------------------------------
 
     /**
-     * The {@link HttpHandler} that handles all request from the Java {@link HttpServer} and calls
-     * the natural HttpServer.Handler "handle()" method.
+     * The handler for all requests from the {@link HttpEngine} for a given route that calls the
+     * natural HttpServer.Handler "handle()" method.
      */
     protected static class RequestHandler
-            implements HttpHandler
         {
         public RequestHandler(ServiceContext context, FunctionHandle hFunction, HttpServerHandle hServer)
             {
@@ -686,7 +796,6 @@ public class xRTServer
             f_hServer   = hServer;
             }
 
-        @Override
         public void handle(HttpExchange exchange)
             {
             try (var ignore = ConstantPool.withPool(f_context.f_pool))
@@ -714,22 +823,18 @@ public class xRTServer
             {
             ObjectHandle      hBinding  = f_hServer.getBinding();
             HttpContextHandle hContext  = new HttpContextHandle(exchange);
-            StringHandle      hURI      = xString.makeHandle(exchange.getRequestURI().toASCIIString());
+            StringHandle      hURI      = xString.makeHandle(exchange.getRequestURI());
             StringHandle      hMethod   = xString.makeHandle(exchange.getRequestMethod());
-            BooleanHandle     hTls      = xBoolean.makeHandle(exchange instanceof HttpsExchange);
+            BooleanHandle     hTls      = xBoolean.makeHandle(exchange.isSecure());
             return new ObjectHandle[]{hBinding, hContext, hURI, hMethod, hTls};
             }
 
         private void sendError(HttpExchange exchange, Throwable t)
             {
             t.printStackTrace();
-            try
+            if (!exchange.isResponded())
                 {
-                exchange.sendResponseHeaders(500, -1);
-                }
-            catch (IOException e)
-                {
-                e.printStackTrace();
+                exchange.sendResponse(500, null);
                 }
             }
 
@@ -869,13 +974,12 @@ public class xRTServer
     // ---- Router ---------------------------------------------------------------------------------
 
     protected static class Router
-            implements HttpHandler
+            implements HttpEngine.Handler
         {
         private ObjectHandle m_hBinding;
 
         @Override
         public void handle(HttpExchange exchange)
-                throws IOException
             {
             String    sHost = getHostName(exchange);
             RouteInfo route = mapRoutes.get(sHost);
@@ -883,11 +987,11 @@ public class xRTServer
                 {
                 System.err.println("*** Request for unknown host: " + sHost
                         + exchange.getRequestURI());
-                exchange.sendResponseHeaders(444, -1); // HttpStatus.NoResponse
+                exchange.sendResponse(444, null); // HttpStatus.NoResponse
                 }
             else
                 {
-                route.handler.handle(exchange);
+                route.select(exchange).handle(exchange);
                 }
             }
 
@@ -904,7 +1008,29 @@ public class xRTServer
         public final Map<String, RouteInfo> mapRoutes = new ConcurrentHashMap<>();
         }
 
-    protected record RouteInfo(RequestHandler handler, KeyStoreHandle hKeyStore, String sTlsKey) {}
+    /**
+     * The route information.
+     *
+     * @param aHandler   the handler shards; each of them dispatches requests on its own service
+     *                   context
+     * @param hKeyStore  the key store for the TLS connections (optional)
+     * @param sTlsKey    the name of the TLS key in the key store (optional)
+     */
+    protected record RouteInfo(RequestHandler[] aHandler, KeyStoreHandle hKeyStore, String sTlsKey)
+        {
+        /**
+         * Choose the handler shard for the specified request. All requests received on the same
+         * connection go to the same shard, which preserves their relative dispatch order, while
+         * the connections are spread evenly across the shards.
+         */
+        public RequestHandler select(HttpExchange exchange)
+            {
+            RequestHandler[] aHandler = this.aHandler;
+            return aHandler.length == 1
+                    ? aHandler[0]
+                    : aHandler[Math.floorMod(exchange.getConnectionId(), aHandler.length)];
+            }
+        }
 
 
     // ----- ObjectHandles -------------------------------------------------------------------------
@@ -960,27 +1086,27 @@ public class xRTServer
             }
 
         /**
-         * @return underlying {@link HttpServer}.
+         * @return the underlying plain {@link HttpEngine}
          */
-        protected HttpServer getHttpServer()
+        protected HttpEngine getHttpServer()
             {
-            return (HttpServer) f_aoNative[1];
+            return (HttpEngine) f_aoNative[1];
             }
 
-        protected void setHttpServer(HttpServer httpServer)
+        protected void setHttpServer(HttpEngine httpServer)
             {
             f_aoNative[1] = httpServer;
             }
 
         /**
-         * @return the underlying {@link HttpsServer}
+         * @return the underlying secure {@link HttpEngine}
          */
-        protected HttpsServer getHttpsServer()
+        protected HttpEngine getHttpsServer()
             {
-            return (HttpsServer) f_aoNative[2];
+            return (HttpEngine) f_aoNative[2];
             }
 
-        protected void setHttpsServer(HttpsServer httpsServer)
+        protected void setHttpsServer(HttpEngine httpsServer)
             {
             f_aoNative[2] = httpsServer;
             }
@@ -1046,6 +1172,11 @@ public class xRTServer
 
     // ----- data fields and constants -------------------------------------------------------------
 
+    /**
+     * The maximum number of handler shards per route.
+     */
+    private static final int MAX_SHARDS = 64;
+
     /**
      * Cached canonical type.
      */
@@ -1,6 +1,9 @@
 package org.xvm.runtime.template._native;
 
 
+import java.util.Arrays;
+import java.util.Set;
+
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.MethodStructure;
 import org.xvm.asm.Op;
@@ -9,17 +12,26 @@ import org.xvm.asm.constants.TypeConstant;
 
 import org.xvm.runtime.ClassTemplate;
 import org.xvm.runtime.Container;
+import org.xvm.runtime.Fiber;
 import org.xvm.runtime.Frame;
 import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.ObjectHandle.GenericHandle;
 import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 import org.xvm.runtime.Utils;
 
 import org.xvm.runtime.template.xBoolean;
 import org.xvm.runtime.template.xEnum;
+import org.xvm.runtime.template.xException;
 
 import org.xvm.runtime.template.xService.ServiceHandle;
 
+import org.xvm.runtime.template.collections.xArray;
+
+import org.xvm.runtime.template.numbers.LongLong;
+import org.xvm.runtime.template.numbers.BaseInt128.LongLongHandle;
+import org.xvm.runtime.template.numbers.xInt128;
+
 import org.xvm.runtime.template._native.reflect.xRTFunction;
 
 
@@ -57,10 +69,14 @@ public class xRTServiceControl
 
         SERVICE_STATUS = (xEnum) f_container.getTemplate("Service.ServiceStatus");
 
+        initDurationClasses();
+
         markNativeProperty("statusIndicator");
         markNativeProperty("upTime");
         markNativeProperty("cpuTime");
         markNativeProperty("contended");
+        markNativeProperty("timeSlice");
+        markNativeProperty("fiberCpuTimes");
 
         markNativeMethod("gc", VOID, VOID);
         markNativeMethod("shutdown", VOID, VOID);
@@ -69,6 +85,16 @@ public class xRTServiceControl
         typeInception.invalidateTypeInfo();
         }
 
+    /**
+     * Initialize the compositions used by {@link #makeDuration}.
+     */
+    protected void initDurationClasses()
+        {
+        m_clzDuration      = f_container.getTemplate("temporal.Duration").getCanonicalClass();
+        m_clzDurationArray = f_container.ensureClassComposition(
+                pool().ensureArrayType(m_clzDuration.getType()), xArray.INSTANCE);
+        }
+
     @Override
     public int invokeNativeN(Frame frame, MethodStructure method, ObjectHandle hTarget,
                              ObjectHandle[] ahArg, int iReturn)
@@ -115,11 +141,98 @@ public class xRTServiceControl
                         hControl.getContext().getStatus().name());
                 return Utils.assignInitializedEnum(frame, hStatus, iReturn);
                 }
+
+            case "upTime":
+                return frame.assignValue(iReturn, makeDuration(hControl.getContext().getUpTime()));
+
+            case "cpuTime":
+                return frame.assignValue(iReturn, makeDuration(hControl.getContext().getCpuTime()));
+
+            case "timeSlice":
+                return frame.assignValue(iReturn, makeDuration(hControl.getContext().getTimeSlice()));
+
+            case "fiberCpuTimes":
+                {
+                Set<Fiber>     setFibers = hControl.getContext().getFibers();
+                ObjectHandle[] ahTime    = new ObjectHandle[setFibers.size()];
+                int            cTimes    = 0;
+                for (Fiber fiber : setFibers)
+                    {
+                    if (cTimes == ahTime.length)
+                        {
+                        // the set has grown concurrently
+                        break;
+                        }
+                    ahTime[cTimes++] = makeDuration(fiber.getCpuTime());
+                    }
+                if (cTimes < ahTime.length)
+                    {
+                    ahTime = Arrays.copyOf(ahTime, cTimes);
+                    }
+                return frame.assignValue(iReturn,
+                        xArray.createImmutableArray(m_clzDurationArray, ahTime));
+                }
             }
 
         return super.invokeNativeGet(frame, sPropName, hTarget, iReturn);
         }
 
+    @Override
+    public int invokeNativeSet(Frame frame, ObjectHandle hTarget, String sPropName,
+                               ObjectHandle hValue)
+        {
+        ControlHandle hControl = (ControlHandle) hTarget;
+
+        switch (sPropName)
+            {
+            case "timeSlice":
+                {
+                long cNanos = getDurationNanos(hValue);
+                if (cNanos < 0)
+                    {
+                    return frame.raiseException(xException.illegalArgument(frame,
+                            "Invalid time slice: " + hValue));
+                    }
+                hControl.getContext().setTimeSlice(cNanos);
+                return Op.R_NEXT;
+                }
+            }
+
+        return super.invokeNativeSet(frame, hTarget, sPropName, hValue);
+        }
+
+    /**
+     * Create a Duration handle.
+     *
+     * @param cNanos  the duration in nanoseconds
+     *
+     * @return the Duration handle
+     */
+    protected GenericHandle makeDuration(long cNanos)
+        {
+        GenericHandle hDuration = new GenericHandle(m_clzDuration);
+        LongLong      llPicos   = new LongLong(cNanos).mul(PICOS_PER_NANO);
+
+        hDuration.setField(null, "picoseconds", xInt128.INSTANCE.makeHandle(llPicos));
+        hDuration.makeImmutable();
+        return hDuration;
+        }
+
+
+    /**
+     * Extract the value of a Duration handle.
+     *
+     * @param hDuration  the Duration handle
+     *
+     * @return the duration in nanoseconds
+     */
+    protected static long getDurationNanos(ObjectHandle hDuration)
+        {
+        LongLongHandle hPicos = (LongLongHandle)
+                ((GenericHandle) hDuration).getField(null, "picoseconds");
+        return hPicos.getValue().div(PICOS_PER_NANO).getLowValue();
+        }
+
 
     // ----- ObjectHandle --------------------------------------------------------------------------
 
@@ -160,5 +273,12 @@ public class xRTServiceControl
      */
     protected static xEnum SERVICE_STATUS;
 
+    /**
+     * The number of picoseconds in a nanosecond.
+     */
+    private static final LongLong PICOS_PER_NANO = new LongLong(1000);
+
     private TypeComposition m_clzControl;
+    private TypeComposition m_clzDuration;
+    private TypeComposition m_clzDurationArray;
     }
\ No newline at end of file
@@ -25,6 +25,7 @@ import org.xvm.runtime.ObjectHandle;
 import org.xvm.runtime.ObjectHandle.ExceptionHandle;
 import org.xvm.runtime.ObjectHandle.GenericHandle;
 import org.xvm.runtime.ObjectHandle.JavaLong;
+import org.xvm.runtime.ServiceContext;
 import org.xvm.runtime.TypeComposition;
 import org.xvm.runtime.ClassTemplate;
 import org.xvm.runtime.Utils;
@@ -48,6 +49,7 @@ import org.xvm.runtime.template._native.collections.arrays.xRTUInt8Delegate;
 import org.xvm.runtime.template._native.collections.arrays.xRTCharDelegate;
 import org.xvm.runtime.template._native.collections.arrays.xRTDelegate;
 import org.xvm.runtime.template._native.collections.arrays.xRTDelegate.DelegateHandle;
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate.MappedHandle;
 import org.xvm.runtime.template._native.collections.arrays.xRTViewToBit;
 
 import org.xvm.runtime.template._native.reflect.xRTFunction.FunctionHandle;
@@ -158,10 +160,15 @@ public class xArray
         markNativeProperty("delegate");
         markNativeProperty("mutability");
 
+        // the array specializations share the structure, but not the bindings; the corresponding
+        // cases in invokeNative1() cover them
         markNativeMethod("clear",      VOID, THIS);
-        markNativeMethod("getElement", INT,  ELEMENT_TYPE);
-        markNativeMethod("setElement", null, VOID);
-        markNativeMethod("elementAt",  INT,  null);
+        markNativeMethod1("getElement", INT,  ELEMENT_TYPE, (frame, hTarget, hArg, iReturn) ->
+            extractArrayValue(frame, hTarget, ((JavaLong) hArg).getValue(), iReturn));
+        markNativeMethodN("setElement", null, VOID, (frame, hTarget, ahArg, iReturn) ->
+            assignArrayValue(frame, hTarget, ((JavaLong) ahArg[0]).getValue(), ahArg[1]));
+        markNativeMethod1("elementAt", INT,  null, (frame, hTarget, hArg, iReturn) ->
+            makeRef(frame, hTarget, ((JavaLong) hArg).getValue(), false, iReturn));
         markNativeMethod("slice",      null, THIS);
         markNativeMethod("deleteAll",  null, THIS);
 
@@ -259,6 +266,20 @@ public class xArray
             }
         }
 
+    @Override
+    public int createProxyHandle(Frame frame, ServiceContext ctxTarget, ObjectHandle hTarget,
+                                 TypeConstant typeProxy)
+        {
+        if (hTarget instanceof ArrayHandle hArray && hArray.isMutable() &&
+                hArray.m_hDelegate instanceof MappedHandle)
+            {
+            // a native buffer that cannot be shared with the target container is passed as a copy
+            return frame.assignValue(Op.A_STACK,
+                    makeByteArrayHandle(xByteArray.getBytes(hArray), hArray.m_mutability));
+            }
+        return super.createProxyHandle(frame, ctxTarget, hTarget, typeProxy);
+        }
+
     @Override
     public int construct(Frame frame, MethodStructure constructor, TypeComposition clzArray,
                          ObjectHandle hParent, ObjectHandle[] ahVar, int iReturn)
@@ -979,6 +1000,14 @@ public class xArray
         return new ArrayHandle(BYTE_ARRAY_CLZ, hDelegate, mutability);
         }
 
+    /**
+     * @return a Byte array handle for the specified delegate
+     */
+    public static ArrayHandle makeByteArrayHandle(DelegateHandle hDelegate)
+        {
+        return new ArrayHandle(BYTE_ARRAY_CLZ, hDelegate, hDelegate.getMutability());
+        }
+
     /**
      * @return the handle for an empty immutable array of Bytes.
      */
@@ -1082,6 +1111,15 @@ public class xArray
             return m_hDelegate.makeImmutable();
             }
 
+        @Override
+        public boolean isPassThrough(Container container)
+            {
+            // a mutable array can only be passed if its storage allows that (e.g. a native buffer)
+            return isMutable()
+                    ? m_hDelegate.isPassThrough(container)
+                    : super.isPassThrough(container);
+            }
+
         @Override
         public boolean isShared(ConstantPool poolThat, Map<ObjectHandle, Boolean> mapVisited)
             {
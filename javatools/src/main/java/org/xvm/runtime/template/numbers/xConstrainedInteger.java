@@ -64,28 +64,46 @@ public abstract class xConstrainedInteger
 
         markNativeProperty("leadingZeroCount");
 
-        markNativeMethod("rotateLeft"   , INT , THIS);
-        markNativeMethod("rotateRight"  , INT , THIS);
+        markNativeMethod1("rotateLeft"  , INT , THIS, this::invokeRotateL);
+        markNativeMethod1("rotateRight" , INT , THIS, this::invokeRotateR);
         markNativeMethod("retainLSBits" , INT , THIS);
         markNativeMethod("retainMSBits" , INT , THIS);
         markNativeMethod("reverseBits"  , VOID, THIS);
         markNativeMethod("reverseBytes" , VOID, THIS);
-        markNativeMethod("stepsTo"      , THIS, INT );
+        markNativeMethod1("stepsTo"     , THIS, INT , (frame, hTarget, hArg, iReturn) ->
+            // the return value must be an Int!
+            xInt64.INSTANCE.invokeSub(frame, hArg, hTarget, iReturn));
 
         // @Op methods
-        markNativeMethod("add"          , THIS, THIS);
-        markNativeMethod("sub"          , THIS, THIS);
-        markNativeMethod("mul"          , THIS, THIS);
-        markNativeMethod("div"          , THIS, THIS);
-        markNativeMethod("mod"          , THIS, THIS);
-        markNativeMethod("neg"          , VOID, THIS);
-        markNativeMethod("and"          , THIS, THIS);
-        markNativeMethod("or"           , THIS, THIS);
-        markNativeMethod("xor"          , THIS, THIS);
+        markNativeMethod1("add"         , THIS, THIS, this::invokeAdd);
+        markNativeMethod1("sub"         , THIS, THIS, this::invokeSub);
+        markNativeMethod1("mul"         , THIS, THIS, this::invokeMul);
+        markNativeMethod1("div"         , THIS, THIS, this::invokeDiv);
+        markNativeMethod1("mod"         , THIS, THIS, this::invokeMod);
+        markNativeMethodN("neg"         , VOID, THIS, (frame, hTarget, ahArg, iReturn) ->
+            invokeNeg(frame, hTarget, iReturn));
+        markNativeMethod1("and"         , THIS, THIS, this::invokeAnd);
+        markNativeMethod1("or"          , THIS, THIS, this::invokeOr);
+        markNativeMethod1("xor"         , THIS, THIS, this::invokeXor);
         markNativeMethod("not"          , VOID, THIS);
-        markNativeMethod("shiftAllRight", INT, THIS);
+        markNativeMethod1("shiftAllRight", INT , THIS, this::invokeShrAll);
 
         invalidateTypeInfo();
+
+        // pre-allocate the canonical handles for small values; UInt64 uses -1 as the max value
+        long lLow  = Math.max(SMALL_CACHE_LOW, f_fSigned ? f_cMinValue : 0);
+        long lHigh = f_cMaxValue < 0 ? SMALL_CACHE_HIGH : Math.min(SMALL_CACHE_HIGH, f_cMaxValue);
+        if (lLow <= lHigh)
+            {
+            TypeComposition clz     = getCanonicalClass();
+            JavaLong[]      ahCache = new JavaLong[(int) (lHigh - lLow + 1)];
+            for (int i = 0, c = ahCache.length; i < c; i++)
+                {
+                ahCache[i] = new JavaLong(clz, lLow + i);
+                }
+            m_lCacheLow = lLow;
+            m_ahCache   = ahCache;
+            }
         }
 
     /**
@@ -104,7 +122,7 @@ public abstract class xConstrainedInteger
         {
         if (constant instanceof IntConstant constInt)
             {
-            return frame.pushStack(new JavaLong(getCanonicalClass(), constInt.getValue().getLong()));
+            return frame.pushStack(makeCanonicalHandle(constInt.getValue().getLong()));
             }
 
         return super.createConstHandle(frame, constant);
@@ -244,32 +262,9 @@ public abstract class xConstrainedInteger
     public int invokeNative1(Frame frame, MethodStructure method, ObjectHandle hTarget,
                              ObjectHandle hArg, int iReturn)
         {
+        // the arithmetic and bitwise operations are pre-bound by initNative()
         switch (method.getName())
             {
-            case "add":
-                return invokeAdd(frame, hTarget, hArg, iReturn);
-
-            case "sub":
-                return invokeSub(frame, hTarget, hArg, iReturn);
-
-            case "mul":
-                return invokeMul(frame, hTarget, hArg, iReturn);
-
-            case "div":
-                return invokeDiv(frame, hTarget, hArg, iReturn);
-
-            case "mod":
-                return invokeMod(frame, hTarget, hArg, iReturn);
-
-            case "and":
-                return invokeAnd(frame, hTarget, hArg, iReturn);
-
-            case "or":
-                return invokeOr(frame, hTarget, hArg, iReturn);
-
-            case "xor":
-                return invokeXor(frame, hTarget, hArg, iReturn);
-
             case "not":
                 return invokeCompl(frame, hTarget, iReturn);
 
@@ -279,19 +274,6 @@ public abstract class xConstrainedInteger
             case "shiftRight":
                 return invokeShr(frame, hTarget, hArg, iReturn);
 
-            case "shiftAllRight":
-                return invokeShrAll(frame, hTarget, hArg, iReturn);
-
-            case "rotateLeft":
-                return invokeRotateL(frame, hTarget, hArg, iReturn);
-
-            case "rotateRight":
-                return invokeRotateR(frame, hTarget, hArg, iReturn);
-
-            case "stepsTo":
-                // the return value must be an Int!
-                return xInt64.INSTANCE.invokeSub(frame, hArg, hTarget, iReturn);
-
             case "toInt8":
             case "toInt16":
             case "toInt32":
@@ -418,9 +400,6 @@ public abstract class xConstrainedInteger
                 // default argument: checkBounds = False;
                 return invokeNative1(frame, method, hTarget, xBoolean.FALSE, iReturn);
 
-            case "neg":
-                return invokeNeg(frame, hTarget, iReturn);
-
             case "reverseBits":
             case "reverseBytes":
                 throw new UnsupportedOperationException("subclass implementation required for " + method.getName());
@@ -711,6 +690,28 @@ public abstract class xConstrainedInteger
                 lValue -= (f_lValueMask + 1);
                 }
             }
+        return makeCanonicalHandle(lValue);
+        }
+
+    /**
+     * Create a JavaLong handle for the specified (already normalized) value, using the cached
+     * handle for the small values.
+     *
+     * @param lValue  the underlying long value
+     *
+     * @return the corresponding handle
+     */
+    protected JavaLong makeCanonicalHandle(long lValue)
+        {
+        JavaLong[] ahCache = m_ahCache;
+        if (ahCache != null)
+            {
+            long ix = lValue - m_lCacheLow;
+            if (ix >= 0 && ix < ahCache.length)
+                {
+                return ahCache[(int) ix];
+                }
+            }
         return new JavaLong(getCanonicalClass(), lValue);
         }
 
@@ -886,4 +887,18 @@ public abstract class xConstrainedInteger
 
     protected final boolean f_fChecked;
     protected final boolean f_fSigned;
+
+    /**
+     * The range of values with canonical (pre-allocated) handles; configurable via
+     * "xvm.intCache.low" and "xvm.intCache.high" system properties.
+     */
+    public static final long SMALL_CACHE_LOW  = Long.getLong("xvm.intCache.low",  -128L);
+    public static final long SMALL_CACHE_HIGH = Long.getLong("xvm.intCache.high", 1023L);
+
+    /**
+     * The cache of canonical handles for small values (see {@link #SMALL_CACHE_LOW} and
+     * {@link #SMALL_CACHE_HIGH}); the first element holds the value {@link #m_lCacheLow}.
+     */
+    private JavaLong[] m_ahCache;
+    private long       m_lCacheLow;
     }
\ No newline at end of file
@@ -102,13 +102,13 @@ public class xChar
 
         if (hArg instanceof StringHandle hText)
             {
-            char[] ach = hText.getValue();
-            if (ach.length != 1)
+            int cch = hText.length();
+            if (cch != 1)
                 {
-                return frame.raiseException("illegal argument: String has length=" + ach.length);
+                return frame.raiseException("illegal argument: String has length=" + cch);
                 }
 
-            return constructHandle(frame, ach[0], iReturn);
+            return constructHandle(frame, hText.charAt(0), iReturn);
             }
 
         byte[] ab = xByteArray.getBytes((ArrayHandle) hArg);
@@ -1,7 +1,6 @@
 package org.xvm.runtime.template.text;
 
 
-import java.util.Arrays;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.Constant;
@@ -66,14 +65,16 @@ public class xString
                 pool.ensureEcstasyClassConstant("Appender"), null,
                 pool.typeChar());
 
-        EMPTY_STRING     = new StringHandle(getCanonicalClass(), new char[0]);
-        EMPTY_ARRAY      = makeHandle(new char[] {'[', ']'});
-        ZERO             = makeHandle(new char[] {'0'});
-        ONE              = makeHandle(new char[] {'1'});
+        EMPTY_STRING     = new StringHandle(getCanonicalClass(), "");
+        EMPTY_ARRAY      = makeHandle("[]");
+        ZERO             = makeHandle("0");
+        ONE              = makeHandle("1");
         METHOD_APPEND_TO = getStructure().findMethod("appendTo", 1, typeArg);
 
-        markNativeProperty("size");
-        markNativeProperty("chars");
+        markNativeProperty("size", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, xInt64.makeHandle(((StringHandle) hTarget).length())));
+        markNativeProperty("chars", (frame, hTarget, iReturn) ->
+            frame.assignValue(iReturn, ((StringHandle) hTarget).ensureCharArray()));
 
         markNativeMethod("construct", new String[]{"collections.Array<text.Char>"}, VOID);
         markNativeMethod("construct", STRING, VOID);
@@ -97,7 +98,7 @@ public class xString
         {
         if (constant instanceof StringConstant hString)
             {
-            return frame.pushStack(makeHandle(hString.getValue().toCharArray()));
+            return frame.pushStack(makeHandle(hString.getValue()));
             }
 
         return super.createConstHandle(frame, constant);
@@ -139,24 +140,6 @@ public class xString
             }
         }
 
-    @Override
-    public int invokeNativeGet(Frame frame, String sPropName, ObjectHandle hTarget, int iReturn)
-        {
-        StringHandle hThis = (StringHandle) hTarget;
-
-        switch (sPropName)
-            {
-            case "size":
-                return frame.assignValue(iReturn, xInt64.makeHandle(hThis.m_achValue.length));
-
-            case "chars":
-                return frame.assignValue(iReturn,
-                        xArray.makeCharArrayHandle(hThis.m_achValue, Mutability.Constant));
-            }
-
-        return super.invokeNativeGet(frame, sPropName, hTarget, iReturn);
-        }
-
     @Override
     public int invokeNativeNN(Frame frame, MethodStructure method, ObjectHandle hTarget,
                               ObjectHandle[] ahArg, int[] aiReturn)
@@ -173,12 +156,12 @@ public class xString
                         ObjectHandle hValue = ahArg[0];
                         ObjectHandle hStart = ahArg[1];
 
-                        char chValue = (char) ((JavaLong) hValue).getValue();
+                        int  chValue = (int) ((JavaLong) hValue).getValue();
                         int  ofStart = hStart == ObjectHandle.DEFAULT
                                 ? 0
                                 : (int) ((JavaLong) hStart).getValue();
 
-                        int  ofResult = indexOf(hThis.m_achValue, chValue, ofStart);
+                        int  ofResult = hThis.m_sValue.indexOf(chValue, ofStart);
                         return ofResult < 0
                                 ? frame.assignValue(aiReturn[0], xBoolean.FALSE)
                                 : frame.assignValues(aiReturn, xBoolean.TRUE, xInt64.makeHandle(ofResult));
@@ -195,12 +178,12 @@ public class xString
     @Override
     public int extractArrayValue(Frame frame, ObjectHandle hTarget, long lIndex, int iReturn)
         {
-        char[] ach = ((StringHandle) hTarget).getValue();
-        int    nIx = (int) lIndex;
+        StringHandle hString = (StringHandle) hTarget;
+        int          cch     = hString.length();
 
-        return nIx < 0 || nIx >= ach.length
-                ? frame.raiseException(xException.outOfBounds(frame, lIndex, ach.length))
-                : frame.assignValue(iReturn, xChar.makeHandle(ach[nIx]));
+        return lIndex < 0 || lIndex >= cch
+                ? frame.raiseException(xException.outOfBounds(frame, lIndex, cch))
+                : frame.assignValue(iReturn, xChar.makeHandle(hString.charAt((int) lIndex)));
         }
 
     @Override
@@ -218,7 +201,7 @@ public class xString
     @Override
     public long size(ObjectHandle hTarget)
         {
-        return ((StringHandle) hTarget).getValue().length;
+        return ((StringHandle) hTarget).length();
         }
 
 
@@ -239,7 +222,7 @@ public class xString
         StringHandle h2 = (StringHandle) hValue2;
 
         return frame.assignValue(iReturn,
-                xOrdered.makeHandle(Arrays.compare(h1.m_achValue, h2.m_achValue)));
+                xOrdered.makeHandle(h1.m_sValue.compareTo(h2.m_sValue)));
         }
 
     @Override
@@ -248,7 +231,7 @@ public class xString
         StringHandle h1 = (StringHandle) hValue1;
         StringHandle h2 = (StringHandle) hValue2;
 
-        return Arrays.equals(h1.m_achValue, h2.m_achValue);
+        return h1.m_sValue.equals(h2.m_sValue);
         }
 
     @Override
@@ -282,55 +265,20 @@ public class xString
 
     private static StringHandle concat(StringHandle h1, StringHandle h2)
         {
-        char[] ach1 = h1.m_achValue;
-        char[] ach2 = h2.m_achValue;
+        String s1 = h1.m_sValue;
+        String s2 = h2.m_sValue;
 
-        int c1 = ach1.length;
-        int c2 = ach2.length;
-
-        if (c1 == 0)
+        if (s1.isEmpty())
             {
             return h2;
             }
-        if (c2 == 0)
+        if (s2.isEmpty())
             {
             return h1;
             }
 
-        char[] ach = new char[c1 + c2];
-        System.arraycopy(ach1, 0, ach, 0, c1);
-        System.arraycopy(ach2, 0, ach, c1, c2);
-        return makeHandle(ach);
-        }
-
-    private static int indexOf(char[] achSource, char chTarget, int ofStart)
-        {
-        int cchSource = achSource.length;
-
-        if (ofStart < 0)
-            {
-            ofStart = 0;
-            }
-        else if (ofStart >= cchSource)
-            {
-            return -1;
-            }
-
-        if (chTarget < Character.MIN_SUPPLEMENTARY_CODE_POINT)
-            {
-            for (int of = ofStart; of < cchSource; of++)
-                {
-                if (achSource[of] == chTarget)
-                    {
-                    return of;
-                    }
-                }
-            }
-        else
-            {
-            // TODO: see String.java indexOfSupplementary()
-            }
-        return -1;
+        // the result stays in the compact form if both parts are
+        return new StringHandle(INSTANCE.getCanonicalClass(), s1.concat(s2));
         }
 
     /**
@@ -355,52 +303,90 @@ public class xString
 
     // ----- handle --------------------------------------------------------------------------------
 
+    /**
+     * The String handle. The value is held as a java.lang.String, which (with the JVM's default
+     * "compact strings") takes one byte per char if all the chars are Latin-1, and two otherwise;
+     * since the same String object is handed to and taken from the Java code (the constants, the
+     * native services, the String array delegate), no other copy of the chars is made.
+     */
     public static class StringHandle
             extends ObjectHandle
         {
-        private final     char[]   m_achValue;
-        private transient JavaLong m_hash;   // cached hash value
-        private transient String   m_sValue; // cached String value
+        private final     String      m_sValue;
+        private transient JavaLong    m_hash;   // cached hash value
+        private transient ArrayHandle m_hChars; // cached "chars" array
 
-        protected StringHandle(TypeComposition clazz, char[] achValue)
+        protected StringHandle(TypeComposition clazz, String sValue)
             {
             super(clazz);
 
-            m_achValue = achValue;
+            m_sValue = sValue;
             }
 
+        /**
+         * @return a new array holding the chars of this String
+         */
         public char[] getValue()
             {
-            return m_achValue;
+            return m_sValue.toCharArray();
             }
 
         public String getStringValue()
             {
-            String sValue = m_sValue;
-            return sValue == null
-                    ? (m_sValue = new String(m_achValue))
-                    : sValue;
+            return m_sValue;
+            }
+
+        /**
+         * Obtain the immutable Char array for the "chars" property. The chars are copied out of
+         * the String only once, at the first access, so that indexing "chars" in a loop (as most
+         * of the String.x methods do) does not copy the entire String for each element.
+         *
+         * @return the (cached) immutable array of the chars of this String
+         */
+        public ArrayHandle ensureCharArray()
+            {
+            ArrayHandle hChars = m_hChars;
+            if (hChars == null)
+                {
+                // a race could only produce an equivalent immutable array
+                m_hChars = hChars = xArray.makeCharArrayHandle(
+                        m_sValue.toCharArray(), Mutability.Constant);
+                }
+            return hChars;
+            }
+
+        /**
+         * @return the number of chars (UTF-16 code units) in this String
+         */
+        public int length()
+            {
+            return m_sValue.length();
+            }
+
+        /**
+         * @return the char (UTF-16 code unit) at the specified index
+         */
+        public char charAt(int of)
+            {
+            return m_sValue.charAt(of);
             }
 
         public int calcHashCode()
             {
-            char[] ach  = m_achValue;
-            int    cch  = ach.length;
-            int    hash = 982_451_653;
+            String s   = m_sValue;
+            int    cch = s.length();
             if (cch <= 0x40)
                 {
-                for (char ch : ach)
-                    {
-                    hash = hash * 31 + ch;
-                    }
+                // the same value as hashing the chars one by one starting with the seed, but
+                // computed from (and cached by) the String's own hash
+                return HASH_SEEDS[cch] + s.hashCode();
                 }
-            else
+
+            // just sample ~60 characters from across the entire length of the string
+            int hash = HASH_SEEDS[0];
+            for (int of = 0, cchStep = (cch >>> 6) + 1; of < cch; of += cchStep)
                 {
-                // just sample ~60 characters from across the entire length of the string
-                for (int of = 0, cchStep = (cch >>> 6) + 1; of < cch; of += cchStep)
-                    {
-                    hash = hash * 31 + ach[of];
-                    }
+                hash = hash * 31 + s.charAt(of);
                 }
             return hash;
             }
@@ -424,7 +410,7 @@ public class xString
             {
             if (obj instanceof StringHandle that)
                 {
-                return Arrays.equals(this.m_achValue, that.m_achValue);
+                return this.m_sValue.equals(that.m_sValue);
                 }
             return false;
             }
@@ -436,18 +422,34 @@ public class xString
             Handy.appendString(sb, getStringValue());
             return sb.toString();
             }
+
+        /**
+         * The hash seed multiplied by 31^n, for n in [0, 64].
+         */
+        private static final int[] HASH_SEEDS = new int[0x41];
+        static
+            {
+            int hash = 982_451_653;
+            for (int i = 0; i < HASH_SEEDS.length; i++)
+                {
+                HASH_SEEDS[i] = hash;
+                hash *= 31;
+                }
+            }
         }
 
     public static StringHandle makeHandle(String sValue)
         {
-        return makeHandle(sValue.toCharArray());
+        return sValue.isEmpty()
+            ? EMPTY_STRING
+            : new StringHandle(INSTANCE.getCanonicalClass(), sValue);
         }
 
     public static StringHandle makeHandle(char[] achValue)
         {
         return achValue.length == 0
             ? EMPTY_STRING
-            : new StringHandle(INSTANCE.getCanonicalClass(), achValue);
+            : new StringHandle(INSTANCE.getCanonicalClass(), new String(achValue));
         }
 
 
@@ -804,7 +804,7 @@ public class xConst
                 int iResult;
                 if (methodHash.isNative())
                     {
-                    iResult = hProp.getTemplate().invokeNativeN(frameCaller, methodHash, null,
+                    iResult = hProp.getTemplate().callNativeN(frameCaller, methodHash, null,
                         new ObjectHandle[] {typeProp.ensureTypeHandle(container), hProp}, Op.A_STACK);
                     }
                 else
@@ -88,6 +88,44 @@ public class xService
             }
         }
 
+    /**
+     * Mark the specified method as native and bind the specified implementation to it, the same
+     * way {@link #markNativeMethod1} does, except that the implementation is always executed on the
+     * service's context; a call from any other context is forwarded to the service asynchronously.
+     */
+    protected void markServiceMethod1(String sName, String[] asParamType, String[] asRetType,
+                                      NativeMethod1 impl)
+        {
+        MethodStructure method = markNativeMethod(sName, asParamType, asRetType);
+        if (method != null)
+            {
+            method.bindNative1(this, (frame, hTarget, hArg, iReturn) ->
+                frame.f_context == ((ServiceHandle) hTarget).f_context
+                    ? impl.invoke(frame, hTarget, hArg, iReturn)
+                    : xRTFunction.makeAsyncNativeHandle(method).
+                        call1(frame, hTarget, new ObjectHandle[] {hArg}, iReturn));
+            }
+        }
+
+    /**
+     * Mark the specified method as native and bind the specified implementation to it, the same
+     * way {@link #markNativeMethodN} does, except that the implementation is always executed on the
+     * service's context; a call from any other context is forwarded to the service asynchronously.
+     */
+    protected void markServiceMethodN(String sName, String[] asParamType, String[] asRetType,
+                                      NativeMethodN impl)
+        {
+        MethodStructure method = markNativeMethod(sName, asParamType, asRetType);
+        if (method != null)
+            {
+            method.bindNativeN(this, (frame, hTarget, ahArg, iReturn) ->
+                frame.f_context == ((ServiceHandle) hTarget).f_context
+                    ? impl.invoke(frame, hTarget, ahArg, iReturn)
+                    : xRTFunction.makeAsyncNativeHandle(method).
+                        call1(frame, hTarget, ahArg, iReturn));
+            }
+        }
+
     @Override
     protected ClassConstant getInceptionClassConstant()
         {
@@ -557,6 +595,14 @@ public class xService
             {
             return s_setAtomicProperties.contains(idProp.getName()) || super.isAtomic(idProp);
             }
+
+        /**
+         * Called when the service context has been shut down; a native service should release any
+         * resources it holds.
+         */
+        public void onShutdown()
+            {
+            }
         }
 
     // an operation against a property that takes no parameters and returns one value
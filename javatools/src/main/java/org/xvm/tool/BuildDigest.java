@@ -0,0 +1,306 @@
+package org.xvm.tool;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+
+/**
+ * A record of what a compiled module was built from: the content hash of each of its source and
+ * resource files, the names of the modules that it depends on, and the size and timestamp of the
+ * compiled module file that resulted. It is stored next to the compiled module file, and allows
+ * the compiler to determine that a module is up to date even though the timestamps of its files
+ * have changed (e.g. after a checkout or a "touch"), and to determine which modules need to be
+ * recompiled because a module that they depend on is being recompiled.
+ * <p>
+ * The size and timestamp of each file are recorded with its hash; a file with the same size and
+ * timestamp as recorded is assumed to have the same content, so only the changed files are hashed.
+ */
+public class BuildDigest
+    {
+    // ----- constructors --------------------------------------------------------------------------
+
+    /**
+     * Construct a BuildDigest.
+     *
+     * @param mapFiles    the files that the module was compiled from, keyed by a location-relative
+     *                    name
+     * @param setDepends  the names of the modules that the module depends on
+     * @param cbBinary    the size of the compiled module file
+     * @param ldtBinary   the timestamp of the compiled module file
+     */
+    public BuildDigest(Map<String, FileDigest> mapFiles, Set<String> setDepends,
+                       long cbBinary, long ldtBinary)
+        {
+        f_mapFiles   = Collections.unmodifiableMap(new TreeMap<>(mapFiles));
+        f_setDepends = Collections.unmodifiableSet(new TreeSet<>(setDepends));
+        f_cbBinary   = cbBinary;
+        f_ldtBinary  = ldtBinary;
+        }
+
+
+    // ----- accessors -----------------------------------------------------------------------------
+
+    /**
+     * @return the files that the module was compiled from, keyed by a location-relative name
+     */
+    public Map<String, FileDigest> getFiles()
+        {
+        return f_mapFiles;
+        }
+
+    /**
+     * @return the names of the modules that the module depends on
+     */
+    public Set<String> getDependencies()
+        {
+        return f_setDepends;
+        }
+
+    /**
+     * @param fileBinary  the compiled module file
+     *
+     * @return true iff the compiled module file is the one that this digest was recorded for
+     */
+    public boolean isBinary(File fileBinary)
+        {
+        return fileBinary.length() == f_cbBinary && fileBinary.lastModified() == f_ldtBinary;
+        }
+
+    /**
+     * @param mapThat  the current digests of the module's files, as returned by
+     *                 {@link #digestFiles}
+     *
+     * @return true iff the module's source and resource files have the same content as recorded
+     */
+    public boolean isSameContent(Map<String, FileDigest> mapThat)
+        {
+        Map<String, FileDigest> mapThis = f_mapFiles;
+        if (mapThis.size() != mapThat.size())
+            {
+            return false;
+            }
+
+        for (Map.Entry<String, FileDigest> entry : mapThis.entrySet())
+            {
+            FileDigest digestThat = mapThat.get(entry.getKey());
+            if (digestThat == null || !digestThat.sHash().equals(entry.getValue().sHash()))
+                {
+                return false;
+                }
+            }
+        return true;
+        }
+
+
+    // ----- calculation ---------------------------------------------------------------------------
+
+    /**
+     * Calculate the digest of the specified files.
+     *
+     * @param mapFiles    the files to digest, keyed by a location-relative name
+     * @param digestPrev  a previous digest whose hashes can be re-used for the files that do not
+     *                    appear to have changed, or null
+     *
+     * @return a map of file digests, keyed by the same names
+     *
+     * @throws IOException  if a file could not be read
+     */
+    public static Map<String, FileDigest> digestFiles(Map<String, File> mapFiles, BuildDigest digestPrev)
+            throws IOException
+        {
+        Map<String, FileDigest> mapPrev    = digestPrev == null ? Map.of() : digestPrev.f_mapFiles;
+        Map<String, FileDigest> mapDigests = new TreeMap<>();
+        MessageDigest           sha        = null;
+        byte[]                  abBuf      = null;
+        for (Map.Entry<String, File> entry : mapFiles.entrySet())
+            {
+            String     sName      = entry.getKey();
+            File       file       = entry.getValue();
+            long       cb         = file.length();
+            long       ldt        = file.lastModified();
+            FileDigest digestFile = mapPrev.get(sName);
+            if (digestFile != null && digestFile.cb() == cb && digestFile.ldt() == ldt)
+                {
+                // assume that the content has not changed
+                mapDigests.put(sName, digestFile);
+                continue;
+                }
+
+            if (sha == null)
+                {
+                sha   = newDigest();
+                abBuf = new byte[0x10000];
+                }
+
+            try (InputStream in = Files.newInputStream(file.toPath()))
+                {
+                for (int cbRead; (cbRead = in.read(abBuf)) > 0; )
+                    {
+                    sha.update(abBuf, 0, cbRead);
+                    }
+                }
+            mapDigests.put(sName, new FileDigest(HexFormat.of().formatHex(sha.digest()), cb, ldt));
+            }
+        return mapDigests;
+        }
+
+    private static MessageDigest newDigest()
+        {
+        try
+            {
+            return MessageDigest.getInstance("SHA-256");
+            }
+        catch (NoSuchAlgorithmException e)
+            {
+            throw new IllegalStateException(e);
+            }
+        }
+
+
+    // ----- persistence ---------------------------------------------------------------------------
+
+    /**
+     * Load a BuildDigest from the specified file.
+     *
+     * @param file  the digest file
+     *
+     * @return the digest, or null if the file does not exist or is not a valid digest file
+     */
+    public static BuildDigest load(File file)
+        {
+        if (!file.isFile())
+            {
+            return null;
+            }
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+            {
+            if (!HEADER.equals(in.readLine()))
+                {
+                return null;
+                }
+
+            Map<String, FileDigest> mapFiles   = new TreeMap<>();
+            Set<String>             setDepends = new TreeSet<>();
+            long                    cbBinary   = -1L;
+            long                    ldtBinary  = -1L;
+            for (String sLine; (sLine = in.readLine()) != null; )
+                {
+                // each line is "<kind> <field>*"; a file name (the last field) may contain spaces
+                String[] asField = sLine.split(" ", 5);
+                switch (asField[0])
+                    {
+                    case "binary" ->
+                        {
+                        cbBinary  = Long.parseLong(asField[1]);
+                        ldtBinary = Long.parseLong(asField[2]);
+                        }
+
+                    case "depends" ->
+                        setDepends.add(asField[1]);
+
+                    case "file" ->
+                        mapFiles.put(asField[4], new FileDigest(asField[1],
+                                Long.parseLong(asField[2]), Long.parseLong(asField[3])));
+
+                    default ->
+                        {
+                        return null;
+                        }
+                    }
+                }
+
+            return cbBinary < 0L
+                    ? null
+                    : new BuildDigest(mapFiles, setDepends, cbBinary, ldtBinary);
+            }
+        catch (IOException | RuntimeException e)
+            {
+            return null;
+            }
+        }
+
+    /**
+     * Store this BuildDigest to the specified file.
+     *
+     * @param file  the digest file
+     *
+     * @throws IOException  if the file could not be written
+     */
+    public void store(File file)
+            throws IOException
+        {
+        List<String> listLines = new ArrayList<>();
+        listLines.add(HEADER);
+        listLines.add("binary " + f_cbBinary + ' ' + f_ldtBinary);
+        for (String sModule : f_setDepends)
+            {
+            listLines.add("depends " + sModule);
+            }
+        for (Map.Entry<String, FileDigest> entry : f_mapFiles.entrySet())
+            {
+            FileDigest digest = entry.getValue();
+            listLines.add("file " + digest.sHash() + ' ' + digest.cb() + ' ' + digest.ldt()
+                    + ' ' + entry.getKey());
+            }
+
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null)
+            {
+            Files.createDirectories(dir.toPath());
+            }
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+            {
+            for (String sLine : listLines)
+                {
+                out.write(sLine);
+                out.newLine();
+                }
+            }
+        }
+
+
+    // ----- inner class: FileDigest ---------------------------------------------------------------
+
+    /**
+     * The digest of a single file.
+     *
+     * @param sHash  the hex SHA-256 hash of the file content
+     * @param cb     the size of the file when it was hashed
+     * @param ldt    the timestamp of the file when it was hashed
+     */
+    public record FileDigest(String sHash, long cb, long ldt) {}
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    /**
+     * The first line of a digest file.
+     */
+    private static final String HEADER = "# xcc build digest v1";
+
+    private final Map<String, FileDigest> f_mapFiles;
+    private final Set<String>             f_setDepends;
+    private final long                    f_cbBinary;
+    private final long                    f_ldtBinary;
+    }
@@ -6,8 +6,19 @@ import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.Predicate;
 
 import org.xvm.asm.ClassStructure;
 import org.xvm.asm.ConstantPool;
@@ -158,6 +169,16 @@ public class Compiler
                                                   outputLoc).toArray(new ModuleInfo[0]);
         prevModules = aTarget;
 
+        File digestLoc = options().getDigestLocation();
+        if (digestLoc != null)
+            {
+            digestLoc = resolveFile(digestLoc);
+            for (ModuleInfo info : aTarget)
+                {
+                info.setDigestDir(digestLoc);
+                }
+            }
+
         int cTargets = aTarget.length;
         if (cTargets == 0)
             {
@@ -245,6 +266,7 @@ public class Compiler
         Version verStamp = options().getVersion();
         log(Severity.INFO, "Output-path=" + outputLoc + ", force-rebuild=" + fRebuild);
 
+        Set<String>     setStale       = fRebuild ? null : selectStaleModules(infoByName);
         Map<File, Node> mapTargets     = new ListMap<>(cTargets);
         int             cSystemModules = 0;
         for (ModuleInfo moduleInfo : aTarget)
@@ -254,7 +276,7 @@ public class Compiler
             Node node = moduleInfo.getSourceTree(this);
 
             // short-circuit the compilation of any up-to-date modules
-            if (fRebuild || !moduleInfo.isUpToDate())
+            if (fRebuild || setStale.contains(moduleInfo.getQualifiedModuleName()))
                 {
                 mapTargets.put(moduleInfo.getSourceFile(), node);
                 if (moduleInfo.isSystemModule())
@@ -307,19 +329,36 @@ public class Compiler
         linkModules(compilers, repoLib);
         flushAndCheckErrors(allNodes);
 
-        resolveNames(compilers);
-        flushAndCheckErrors(allNodes);
+        if (options().isParallel())
+            {
+            log(Severity.INFO, "Compiling independent modules in parallel");
+            compilerPool = createCompilerPool();
+            }
 
-        injectNativeTurtle(repoLib);
-        checkErrors();
+        try
+            {
+            resolveNames(compilers);
+            flushAndCheckErrors(allNodes);
 
-        log(Severity.INFO, "Validating expressions");
-        validateExpressions(compilers);
-        flushAndCheckErrors(allNodes);
+            injectNativeTurtle(repoLib);
+            checkErrors();
 
-        log(Severity.INFO, "Generating code");
-        generateCode(compilers);
-        flushAndCheckErrors(allNodes);
+            log(Severity.INFO, "Validating expressions");
+            validateExpressions(compilers);
+            flushAndCheckErrors(allNodes);
+
+            log(Severity.INFO, "Generating code");
+            generateCode(compilers);
+            flushAndCheckErrors(allNodes);
+            }
+        finally
+            {
+            if (compilerPool != null)
+                {
+                compilerPool.shutdown();
+                compilerPool = null;
+                }
+            }
 
         if (allNodes.length == 1)
             {
@@ -337,9 +376,78 @@ public class Compiler
         emitModules(allNodes, repoOutput);
         flushAndCheckErrors(allNodes);
 
+        storeBuildDigests(allNodes);
+
         log(Severity.INFO, "Finished; terminating compiler");
         }
 
+    /**
+     * Determine which of the modules need to be compiled: those that are not up to date, and those
+     * that depend (directly or indirectly) on a module being compiled, as recorded by the
+     * {@link BuildDigest} from the previous compilation.
+     *
+     * @param infoByName  the modules being compiled, keyed by the qualified module name
+     *
+     * @return the names of the modules that need to be compiled
+     */
+    protected Set<String> selectStaleModules(Map<String, ModuleInfo> infoByName)
+        {
+        Set<String> setStale = new HashSet<>();
+        for (Map.Entry<String, ModuleInfo> entry : infoByName.entrySet())
+            {
+            if (!entry.getValue().isUpToDate())
+                {
+                setStale.add(entry.getKey());
+                }
+            }
+
+        boolean fChanged = !setStale.isEmpty();
+        while (fChanged)
+            {
+            fChanged = false;
+            for (Map.Entry<String, ModuleInfo> entry : infoByName.entrySet())
+                {
+                String      sModule = entry.getKey();
+                BuildDigest digest  = entry.getValue().getBuildDigest();
+                if (digest != null && !setStale.contains(sModule)
+                        && !Collections.disjoint(digest.getDependencies(), setStale))
+                    {
+                    log(Severity.INFO, "Module " + sModule
+                            + " depends on a module being compiled; it will be recompiled");
+                    setStale.add(sModule);
+                    fChanged = true;
+                    }
+                }
+            }
+        return setStale;
+        }
+
+    /**
+     * Record what each of the compiled modules was compiled from, so that a later compilation can
+     * tell whether the module needs to be compiled again.
+     *
+     * @param allNodes  the array of module sources that were compiled
+     */
+    protected void storeBuildDigests(Node[] allNodes)
+        {
+        for (Node node : allNodes)
+            {
+            ModuleStructure module  = (ModuleStructure) node.type().getComponent();
+            ModuleInfo      info    = node.moduleInfo();
+            Set<String>     setDeps = new HashSet<>(module.getFileStructure().moduleNames());
+            setDeps.remove(module.getName());
+            try
+                {
+                info.storeBuildDigest(setDeps);
+                }
+            catch (IOException e)
+                {
+                log(Severity.WARNING, "Failed to store the build digest for module "
+                        + info.getQualifiedModuleName() + ": " + e);
+                }
+            }
+        }
+
     /**
      * The compiler depends on the NakedRef type from the prototype module being available to each
      * ConstantPool in the modules being compiled. This method injects that turtle.
@@ -461,20 +569,14 @@ public class Compiler
      */
     protected void resolveNames(org.xvm.compiler.Compiler[] compilers)
         {
+        org.xvm.compiler.Compiler[][] aaLevels = scheduleCompilers(compilers);
+
         int cTriesLeft = 0x3F;
         do
             {
-            boolean fDone = true;
-            for (var compiler : compilers)
-                {
-                fDone &= compiler.resolveNames(cTriesLeft == 1);
-
-                if (compiler.isAbortDesired())
-                    {
-                    return;
-                    }
-                }
-            if (fDone)
+            boolean fLast = cTriesLeft == 1;
+            boolean fDone = advance(aaLevels, compiler -> compiler.resolveNames(fLast));
+            if (fDone || isAbortDesired(compilers))
                 {
                 return;
                 }
@@ -495,20 +597,14 @@ public class Compiler
      */
     protected void validateExpressions(org.xvm.compiler.Compiler[] compilers)
         {
+        org.xvm.compiler.Compiler[][] aaLevels = scheduleCompilers(compilers);
+
         int cTriesLeft = 0x3F;
         do
             {
-            boolean fDone = true;
-            for (var compiler : compilers)
-                {
-                fDone &= compiler.validateExpressions(cTriesLeft == 1);
-
-                if (compiler.isAbortDesired())
-                    {
-                    return;
-                    }
-                }
-            if (fDone)
+            boolean fLast = cTriesLeft == 1;
+            boolean fDone = advance(aaLevels, compiler -> compiler.validateExpressions(fLast));
+            if (fDone || isAbortDesired(compilers))
                 {
                 return;
                 }
@@ -529,31 +625,40 @@ public class Compiler
      */
     protected void generateCode(org.xvm.compiler.Compiler[] compilers)
         {
+        org.xvm.compiler.Compiler[][] aaLevels = scheduleCompilers(compilers);
+
         int cTriesLeft = 0x3F;
         do
             {
-            boolean fDone = true;
-            for (var compiler : compilers)
+            // the failures are collected by the (possibly concurrent) pass, and logged afterwards
+            boolean      fLast     = cTriesLeft == 1;
+            List<String> listFails = Collections.synchronizedList(new ArrayList<>());
+            boolean      fDone     = advance(aaLevels, compiler ->
                 {
                 try
                     {
-                    fDone &= compiler.generateCode(cTriesLeft == 1);
-
-                    if (compiler.isAbortDesired())
-                        {
-                        return;
-                        }
+                    return compiler.generateCode(fLast);
                     }
                 catch (Throwable e)
                     {
-                    System.err.println("Failed to generate code for " + compiler);
-                    e.printStackTrace(System.err);
+                    synchronized (System.err)
+                        {
+                        System.err.println("Failed to generate code for " + compiler);
+                        e.printStackTrace(System.err);
+                        }
 
-                    log(Severity.ERROR, "Failed to generate code for " + compiler
+                    listFails.add("Failed to generate code for " + compiler
                             + " due to exception: " + e);
+                    return true;
                     }
+                });
+
+            for (String sFail : listFails)
+                {
+                log(Severity.ERROR, sFail);
                 }
-            if (fDone)
+
+            if (fDone || isAbortDesired(compilers))
                 {
                 return;
                 }
@@ -567,6 +672,193 @@ public class Compiler
             }
         }
 
+    /**
+     * Determine the order in which the module compilers are advanced through each pass of a
+     * compilation stage.
+     * <p>
+     * Unless the "parallel" option is specified, each level holds a single compiler, in the order
+     * that the modules were specified in. Otherwise, each level holds the modules whose
+     * dependencies that are being compiled at the same time are all in the previous levels; the
+     * modules within a level are independent of each other, and can be advanced concurrently.
+     *
+     * @param compilers  a module compiler for each module
+     *
+     * @return an array of levels, each of which is an array of compilers
+     */
+    protected org.xvm.compiler.Compiler[][] scheduleCompilers(org.xvm.compiler.Compiler[] compilers)
+        {
+        int cCompilers = compilers.length;
+        if (compilerPool == null || cCompilers <= 1)
+            {
+            org.xvm.compiler.Compiler[][] aaLevels = new org.xvm.compiler.Compiler[cCompilers][];
+            for (int i = 0; i < cCompilers; ++i)
+                {
+                aaLevels[i] = new org.xvm.compiler.Compiler[] {compilers[i]};
+                }
+            return aaLevels;
+            }
+
+        Set<String> setBuild = new HashSet<>();
+        for (var compiler : compilers)
+            {
+            setBuild.add(compiler.getFileStructure().getModuleName());
+            }
+
+        List<org.xvm.compiler.Compiler[]> listLevels = new ArrayList<>();
+        List<org.xvm.compiler.Compiler>   listTodo   = new ArrayList<>(List.of(compilers));
+        while (!listTodo.isEmpty())
+            {
+            List<org.xvm.compiler.Compiler> listLevel = new ArrayList<>();
+            for (var compiler : listTodo)
+                {
+                if (!dependsOn(compiler, listTodo, setBuild))
+                    {
+                    listLevel.add(compiler);
+                    }
+                }
+
+            if (listLevel.isEmpty())
+                {
+                // circular dependencies; advance the rest of the modules one at a time
+                for (var compiler : listTodo)
+                    {
+                    listLevels.add(new org.xvm.compiler.Compiler[] {compiler});
+                    }
+                break;
+                }
+
+            listTodo.removeAll(listLevel);
+            listLevels.add(listLevel.toArray(NO_COMPILERS));
+            }
+
+        return listLevels.toArray(new org.xvm.compiler.Compiler[0][]);
+        }
+
+    /**
+     * @param compiler  a module compiler
+     * @param list      the module compilers that have not been scheduled yet
+     * @param setBuild  the names of all modules being compiled
+     *
+     * @return true iff the module depends on any of the modules in the list
+     */
+    private static boolean dependsOn(org.xvm.compiler.Compiler compiler,
+                                     List<org.xvm.compiler.Compiler> list, Set<String> setBuild)
+        {
+        FileStructure struct  = compiler.getFileStructure();
+        String        sModule = struct.getModuleName();
+        for (String sDep : struct.moduleNames())
+            {
+            if (!sDep.equals(sModule) && setBuild.contains(sDep))
+                {
+                for (var compilerDep : list)
+                    {
+                    if (compilerDep.getFileStructure().getModuleName().equals(sDep))
+                        {
+                        return true;
+                        }
+                    }
+                }
+            }
+        return false;
+        }
+
+    /**
+     * Perform a single pass of a compilation stage for each of the module compilers, one level
+     * after another. The compilers within a level are advanced concurrently; the pass stops after
+     * any level that leaves a compiler wanting to abort.
+     *
+     * @param aaLevels  the compilers, as returned from {@link #scheduleCompilers}
+     * @param stage     the pass to perform on a compiler; returns true if the compiler is done
+     *                  with the stage
+     *
+     * @return true iff every compiler is done with the stage
+     */
+    protected boolean advance(org.xvm.compiler.Compiler[][] aaLevels,
+                              Predicate<org.xvm.compiler.Compiler> stage)
+        {
+        boolean fDone = true;
+        for (var aCompiler : aaLevels)
+            {
+            if (aCompiler.length == 1)
+                {
+                fDone &= stage.test(aCompiler[0]);
+                }
+            else
+                {
+                List<Callable<Boolean>> listTasks = new ArrayList<>(aCompiler.length);
+                for (var compiler : aCompiler)
+                    {
+                    listTasks.add(() -> stage.test(compiler));
+                    }
+
+                try
+                    {
+                    for (Future<Boolean> future : compilerPool.invokeAll(listTasks))
+                        {
+                        fDone &= future.get();
+                        }
+                    }
+                catch (InterruptedException e)
+                    {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                    }
+                catch (ExecutionException e)
+                    {
+                    Throwable eCause = e.getCause();
+                    if (eCause instanceof RuntimeException eRT)
+                        {
+                        throw eRT;
+                        }
+                    if (eCause instanceof Error eErr)
+                        {
+                        throw eErr;
+                        }
+                    throw new IllegalStateException(eCause);
+                    }
+                }
+
+            if (isAbortDesired(aCompiler))
+                {
+                return false;
+                }
+            }
+        return fDone;
+        }
+
+    /**
+     * @param compilers  an array of module compilers
+     *
+     * @return true iff any of the compilers wants to abort the compilation
+     */
+    private static boolean isAbortDesired(org.xvm.compiler.Compiler[] compilers)
+        {
+        for (var compiler : compilers)
+            {
+            if (compiler.isAbortDesired())
+                {
+                return true;
+                }
+            }
+        return false;
+        }
+
+    /**
+     * @return a thread pool to compile the modules on; the compiler threads are given the same
+     *         generous stack size that the compiler is normally run with
+     */
+    protected ExecutorService createCompilerPool()
+        {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r ->
+            {
+            Thread thread = new Thread(null, r, "Compiler-" + counter.incrementAndGet(),
+                                       COMPILER_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+            });
+        }
+
     protected boolean addVersion(ModuleInfo info, Version ver)
         {
         File fileBin = info.getBinaryFile();
@@ -575,6 +867,13 @@ public class Compiler
             FileStructure struct = new FileStructure(fileBin);
             struct.getModule().setVersion(ver);
             struct.writeTo(fileBin);
+
+            // the digest refers to the binary that was just replaced
+            BuildDigest digest = info.getBuildDigest();
+            if (digest != null)
+                {
+                info.storeBuildDigest(digest.getDependencies());
+                }
             return true;
             }
         catch (IOException e)
@@ -757,8 +1056,10 @@ public class Compiler
             addOption("L" ,     null,          Form.Repo,   true,  "Module path; a \"" + File.pathSeparator + "\"-delimited list of file and/or directory names");
             addOption("r" ,     null,          Form.File,   true,  "Files and/or directories to read resources from");
             addOption("o" ,     null,          Form.File,   false, "File or directory to write output to");
+            addOption(null,     "digest-dir",  Form.File,   false, "Directory to keep the incremental build digests in (default: next to the output)");
             addOption(null,     "qualify",     Form.Name,   false, "Use full module name for the output file name");
             addOption(null,     "set-version", Form.String, false, "Specify the version to stamp onto the compiled module(s)");
+            addOption(null,     "parallel",    Form.Name,   false, "Compile independent modules concurrently");
             addOption(Trailing, null,          Form.File,   true,  "Source file name(s) and/or module location(s) to compile");
             }
 
@@ -805,6 +1106,15 @@ public class Compiler
             return (File) values().get("o");
             }
 
+        /**
+         * @return the directory to keep the build digests in, or null to keep each digest next to
+         *         its compiled module
+         */
+        public File getDigestLocation()
+            {
+            return (File) values().get("digest-dir");
+            }
+
         /**
          * @return the specified version for the compiler to stamp on the compiled module, or null
          */
@@ -830,6 +1140,14 @@ public class Compiler
             return specified("rebuild");
             }
 
+        /**
+         * @return true if "compile independent modules concurrently" option is set
+         */
+        public boolean isParallel()
+            {
+            return specified("parallel");
+            }
+
         @Override
         public void validate()
             {
@@ -865,6 +1183,13 @@ public class Compiler
 
             // validate the -o file/dir
             validateModuleOutput(getOutputLocation(), listInputs.size() > 1);
+
+            // validate the --digest-dir directory
+            File fileDigest = getDigestLocation();
+            if (fileDigest != null && fileDigest.exists() && !fileDigest.isDirectory())
+                {
+                log(Severity.ERROR, "The digest location " + fileDigest + " is not a directory");
+                }
             }
 
         @Override
@@ -898,6 +1223,12 @@ public class Compiler
 
     protected static org.xvm.compiler.Compiler[] NO_COMPILERS = new org.xvm.compiler.Compiler[0];
 
+    /**
+     * The stack size for the threads that compile modules concurrently; the compiler recurses
+     * deeply through the AST.
+     */
+    protected static final long COMPILER_STACK_SIZE = 64L * 1024 * 1024;
+
 
     // ----- fields --------------------------------------------------------------------------------
 
@@ -907,4 +1238,10 @@ public class Compiler
     protected ModuleInfo[]     prevModules;
     protected ModuleRepository prevLibs;
     protected ModuleRepository prevOutput;
+
+    /**
+     * The thread pool used to compile modules concurrently, or null if they are compiled one at a
+     * time.
+     */
+    protected ExecutorService compilerPool;
     }
\ No newline at end of file
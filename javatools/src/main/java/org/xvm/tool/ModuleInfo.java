@@ -14,6 +14,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 
 import java.util.function.Consumer;
@@ -427,9 +429,19 @@ public class ModuleInfo
     public boolean isUpToDate()
         {
         long binTimestamp = getBinaryTimestamp();
-        return binTimestamp >  0L
-            && binTimestamp >= getSourceTimestamp()
-            && binTimestamp >= getResourceTimestamp();
+        if (binTimestamp <= 0L)
+            {
+            return false;
+            }
+
+        if (binTimestamp >= getSourceTimestamp() && binTimestamp >= getResourceTimestamp())
+            {
+            return true;
+            }
+
+        // the files have been touched since the module was compiled, but their content may still
+        // be the same as what the module was compiled from
+        return isContentUnchanged();
         }
 
     /**
@@ -706,6 +718,152 @@ public class ModuleInfo
         return binaryTimestamp;
         }
 
+    /**
+     * @return the file that holds the {@link BuildDigest} for the compiled module, or null if the
+     *         location of the compiled module cannot be determined
+     */
+    public File getDigestFile()
+        {
+        File file = getBinaryFile();
+        return file == null
+                ? null
+                : digestDir == null
+                        ? new File(file.getPath() + ".digest")
+                        : new File(digestDir, file.getName() + ".digest");
+        }
+
+    /**
+     * Specify the directory to hold the {@link BuildDigest} files, which keeps the digests out of
+     * the directory that the compiled modules are written to (and published from).
+     *
+     * @param dir  the directory for the digest file, or null to store the digest file next to the
+     *             compiled module file
+     */
+    public void setDigestDir(File dir)
+        {
+        if (!Objects.equals(dir, digestDir))
+            {
+            digestDir   = dir;
+            buildDigest = null;
+            }
+        }
+
+    /**
+     * @return the digest that was recorded when the module was last compiled, or null if there is
+     *         none
+     */
+    public BuildDigest getBuildDigest()
+        {
+        if (buildDigest == null)
+            {
+            File file = getDigestFile();
+            if (file != null)
+                {
+                buildDigest = BuildDigest.load(file);
+                }
+            }
+
+        return buildDigest;
+        }
+
+    /**
+     * Record the digest of the module's current source and resource files alongside the compiled
+     * module file; this is done after the module has been compiled (or its binary re-written).
+     *
+     * @param setDepends  the names of the modules that the module depends on
+     *
+     * @throws IOException  if the files could not be read or the digest could not be written
+     */
+    public void storeBuildDigest(Set<String> setDepends)
+            throws IOException
+        {
+        File        fileBin = getBinaryFile();
+        BuildDigest digest  = new BuildDigest(
+                BuildDigest.digestFiles(collectDigestFiles(), getBuildDigest()),
+                setDepends, fileBin.length(), fileBin.lastModified());
+
+        digest.store(getDigestFile());
+        buildDigest = digest;
+        }
+
+    /**
+     * @return true iff the module was compiled into the existing binary from source and resource
+     *         files with the same content as the current ones
+     */
+    private boolean isContentUnchanged()
+        {
+        BuildDigest digest  = getBuildDigest();
+        File        fileBin = getBinaryFile();
+        if (digest == null || fileBin == null || !digest.isBinary(fileBin))
+            {
+            return false;
+            }
+
+        try
+            {
+            return digest.isSameContent(BuildDigest.digestFiles(collectDigestFiles(), digest));
+            }
+        catch (IOException e)
+            {
+            return false;
+            }
+        }
+
+    /**
+     * @return the module's source and resource files, keyed by a name relative to their location
+     */
+    private Map<String, File> collectDigestFiles()
+        {
+        Map<String, File> mapFiles = new TreeMap<>();
+        File              fileBin  = getBinaryFile();
+        File              fileDig  = getDigestFile();
+
+        File fileSrc = getSourceFile();
+        if (fileSrc != null && fileSrc.isFile())
+            {
+            mapFiles.put(fileSrc.getName(), fileSrc);
+
+            File subdir = new File(fileSrc.getParentFile(), removeExtension(fileSrc.getName()));
+            if (sourceIsTree && subdir.isDirectory())
+                {
+                String sPrefix = subdir.getPath();
+                visitTree(subdir, "x", f -> mapFiles.put(relativeName(subdir.getName(), sPrefix, f), f));
+                }
+            }
+
+        File[] aLocs = getResourceDir().getLocations();
+        for (int i = 0, c = aLocs.length; i < c; ++i)
+            {
+            File   loc   = aLocs[i];
+            String sRoot = "resources" + i;
+            if (loc.isDirectory())
+                {
+                String sPrefix = loc.getPath();
+                visitTree(loc, null, f ->
+                    {
+                    if (!f.equals(fileBin) && !f.equals(fileDig))
+                        {
+                        mapFiles.put(relativeName(sRoot, sPrefix, f), f);
+                        }
+                    });
+                }
+            else if (loc.isFile())
+                {
+                mapFiles.put(sRoot + '/' + loc.getName(), loc);
+                }
+            }
+
+        return mapFiles;
+        }
+
+    /**
+     * @return the name of the file within its location, prefixed with the name of the location
+     */
+    private static String relativeName(String sRoot, String sPrefix, File file)
+        {
+        return sRoot + file.getPath().substring(sPrefix.length()).replace(File.separatorChar, '/');
+        }
+
     /**
      * @param dir  a file, directory, or null
      *
@@ -2195,4 +2353,6 @@ public class ModuleInfo
     private Version      binaryVersion;
     private Content      binaryContent = Content.Unknown;  // what is known about the compiled module file content
     private long         binaryTimestamp;
+    private BuildDigest  buildDigest;    // what the compiled module was last compiled from
+    private File         digestDir;      // where the build digest is kept; null for next to the binary
     }
\ No newline at end of file
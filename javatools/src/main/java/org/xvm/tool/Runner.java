@@ -330,7 +330,7 @@ public class Runner
         log(Severity.INFO, "Executing " + sName + " from " + binLocDesc);
         try
             {
-            Connector connector = new Connector(repo);
+            Connector connector = new Connector(repo, options().getSnapshot());
             connector.loadModule(module.getName());
 
             connector.start(options.getInjections());
@@ -482,6 +482,7 @@ public class Runner
             addOption("M",      "method",       Form.String, false, "Method name; defaults to \"run\"");
             addOption(null,     "no-recompile", Form.Name,   false, "Disable automatic compilation");
             addOption("o",      null,           Form.File,   false, "If compilation is necessary, the file or directory to write compiler output to");
+            addOption(null,     "snapshot",     Form.File,   false, "Snapshot file of the linked system modules, used to speed up the start-up; created if missing or out of date");
             addOption(Trailing, null,           Form.File,   false, "Module file name (.xtc) to execute");
             addOption(ArgV,     null,           Form.AsIs,   true,  "Arguments to pass to the method");
             }
@@ -510,6 +511,14 @@ public class Runner
             return specified("no-recompile");
             }
 
+        /**
+         * @return the snapshot file of the linked system modules, or null if none is specified
+         */
+        public File getSnapshot()
+            {
+            return (File) values().get("snapshot");
+            }
+
         /**
          * @return the file to execute
          */
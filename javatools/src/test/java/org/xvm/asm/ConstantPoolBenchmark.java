@@ -0,0 +1,134 @@
+package org.xvm.asm;
+
+
+import java.io.File;
+
+import java.util.Arrays;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.xvm.asm.Constants.Access;
+
+import org.xvm.asm.constants.TypeConstant;
+
+
+/**
+ * Measures the concurrent creation of the parameterized types by a number of threads that share
+ * a ConstantPool, which is what the run-time does when many services create dynamic types.
+ *
+ * ConstantPoolBenchmark path-to-ecstasy.xtc
+ * <p>
+ * The "threads" system property specifies the number of threads (the number of processors by
+ * default) and the "rounds" property the number of rounds; every round loads a fresh copy of the
+ * module, so all the types are newly registered.
+ */
+public final class ConstantPoolBenchmark
+    {
+    private ConstantPoolBenchmark()
+        {
+        }
+
+    public static void main(String[] asArg)
+            throws Exception
+        {
+        if (asArg.length < 1)
+            {
+            System.err.println("Module location is missing");
+            return;
+            }
+
+        File fileModule = new File(asArg[0]);
+        int  cThreads   = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        int  cRounds    = Integer.getInteger("rounds", 5);
+
+        long[] acSingle = new long[cRounds];
+        long[] acMulti  = new long[cRounds];
+        for (int i = 0; i < cRounds; ++i)
+            {
+            acSingle[i] = run(new FileStructure(fileModule).getConstantPool(), 1);
+            acMulti[i]  = run(new FileStructure(fileModule).getConstantPool(), cThreads);
+            }
+
+        System.out.println("Threads: " + cThreads);
+        System.out.println("1 thread:  " + Arrays.toString(acSingle) + " ms; best=" + best(acSingle) + " ms");
+        System.out.println(cThreads + " threads: " + Arrays.toString(acMulti) + " ms; best=" + best(acMulti) + " ms");
+        }
+
+    /**
+     * Create all the types on the specified number of threads; each thread creates the same types,
+     * but in a different order.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private static long run(ConstantPool pool, int cThreads)
+            throws InterruptedException
+        {
+        TypeConstant[] atypeLeaf =
+            {
+            pool.typeObject(), pool.typeBoolean(), pool.typeChar(), pool.typeString(),
+            pool.typeInt8(), pool.typeInt16(), pool.typeInt32(), pool.typeInt64(),
+            pool.typeInt128(), pool.typeUInt8(), pool.typeUInt16(), pool.typeUInt32(),
+            pool.typeUInt64(), pool.typeDec64(), pool.typeDate(), pool.typeTime(),
+            pool.typeDuration(), pool.typeVersion(), pool.typePath(), pool.typeException(),
+            };
+        TypeConstant[] atypeGeneric =
+            {
+            pool.typeList(), pool.typeSet(), pool.typeArray(), pool.typeCollection(),
+            pool.typeIterator(), pool.typeIterable(),
+            };
+
+        CountDownLatch latchStart = new CountDownLatch(1);
+        Thread[]       aThread    = new Thread[cThreads];
+        for (int i = 0; i < cThreads; ++i)
+            {
+            int nShift = i;
+            aThread[i] = new Thread(() ->
+                {
+                try
+                    {
+                    latchStart.await();
+                    }
+                catch (InterruptedException e)
+                    {
+                    return;
+                    }
+
+                int cLeaf = atypeLeaf.length;
+                for (int iKey = 0; iKey < cLeaf; ++iKey)
+                    {
+                    TypeConstant typeKey = atypeLeaf[(iKey + nShift) % cLeaf];
+                    for (TypeConstant typeValue : atypeLeaf)
+                        {
+                        TypeConstant typeMap = pool.ensureParameterizedTypeConstant(
+                                pool.typeMap(), typeKey, typeValue);
+                        pool.ensureImmutableTypeConstant(typeMap);
+                        pool.ensureAccessTypeConstant(typeMap, Access.PRIVATE);
+
+                        for (TypeConstant typeGeneric : atypeGeneric)
+                            {
+                            pool.ensureParameterizedTypeConstant(typeGeneric, typeMap);
+                            }
+                        for (TypeConstant typeOuter : atypeLeaf)
+                            {
+                            pool.ensureParameterizedTypeConstant(pool.typeMap(), typeOuter, typeMap);
+                            }
+                        }
+                    }
+                });
+            aThread[i].start();
+            }
+
+        long ldtStart = System.nanoTime();
+        latchStart.countDown();
+        for (Thread thread : aThread)
+            {
+            thread.join();
+            }
+        return (System.nanoTime() - ldtStart) / 1_000_000;
+        }
+
+    private static long best(long[] ac)
+        {
+        return Arrays.stream(ac).min().orElse(0);
+        }
+    }
@@ -0,0 +1,160 @@
+package org.xvm.asm;
+
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.constants.StringConstant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the ConstantPool registration.
+ */
+public class ConstantPoolTest
+    {
+    @Test
+    public void testRegisterCanonical()
+        {
+        ConstantPool   pool     = new FileStructure("test").getConstantPool();
+        StringConstant constant = pool.ensureStringConstant("hello");
+        assertTrue(constant.getPosition() >= 0);
+        assertSame(constant, pool.getConstant(constant.getPosition()));
+
+        // an equal constant is replaced by the registered one
+        StringConstant constantNew = new StringConstant(pool, "hello");
+        assertNotSame(constant, constantNew);
+        assertSame(constant, pool.register(constantNew));
+        assertSame(constant, pool.register(constant));
+        assertSame(constant, pool.ensureStringConstant("hello"));
+        }
+
+    @Test
+    public void testRegisterAdopted()
+        {
+        ConstantPool   pool      = new FileStructure("test").getConstantPool();
+        ConstantPool   poolOther = new FileStructure("other").getConstantPool();
+        StringConstant constant  = pool.ensureStringConstant("hello");
+
+        // an adopted copy keeps the position it had in the other pool, but it isn't registered
+        StringConstant constantOther = poolOther.ensureStringConstant("hello");
+        Constant       constantCopy  = constantOther.adoptedBy(pool);
+        assertSame(pool, constantCopy.getContaining());
+        assertTrue(constantCopy.getPosition() >= 0);
+        assertSame(constant, pool.register(constantCopy));
+        }
+
+    @Test
+    public void testConcurrentRegisterAndIterate()
+            throws InterruptedException
+        {
+        ConstantPool pool   = new FileStructure("test").getConstantPool();
+        int          cBase  = pool.size();
+        int          cValue = 2_000;
+
+        AtomicBoolean              atomicDone = new AtomicBoolean();
+        AtomicReference<Throwable> atomicFail = new AtomicReference<>();
+
+        // the reader walks the pool while the constants are being registered; every constant it
+        // observes must be there, with its final position
+        Thread threadReader = new Thread(() ->
+            {
+            try
+                {
+                while (!atomicDone.get())
+                    {
+                    int ix = 0;
+                    for (Iterator<? extends XvmStructure> iter = pool.getContained(); iter.hasNext(); ix++)
+                        {
+                        Constant constant = (Constant) iter.next();
+                        if (constant == null || constant.getPosition() != ix)
+                            {
+                            throw new AssertionError("invalid constant at " + ix + ": " + constant);
+                            }
+                        }
+
+                    for (int i = 0, c = pool.size(); i < c; i++)
+                        {
+                        if (pool.getConstant(i) == null)
+                            {
+                            throw new AssertionError("missing constant at " + i);
+                            }
+                        }
+                    }
+                }
+            catch (Throwable e)
+                {
+                atomicFail.compareAndSet(null, e);
+                }
+            });
+        threadReader.start();
+
+        // the writers register the same values (in different orders) as new constants
+        int                        cThreads = 4;
+        List<List<StringConstant>> listAll  = new ArrayList<>();
+        Thread[]                   aWriter  = new Thread[cThreads];
+        for (int i = 0; i < cThreads; i++)
+            {
+            List<StringConstant> listRegistered = new ArrayList<>();
+            listAll.add(listRegistered);
+
+            boolean fReverse = i % 2 == 1;
+            aWriter[i] = new Thread(() ->
+                {
+                try
+                    {
+                    for (int j = 0; j < cValue; j++)
+                        {
+                        int n = fReverse ? cValue - 1 - j : j;
+                        listRegistered.add((StringConstant)
+                                pool.register(new StringConstant(pool, "s" + n)));
+                        }
+                    }
+                catch (Throwable e)
+                    {
+                    atomicFail.compareAndSet(null, e);
+                    }
+                });
+            aWriter[i].start();
+            }
+        for (Thread thread : aWriter)
+            {
+            thread.join();
+            }
+        atomicDone.set(true);
+        threadReader.join();
+
+        assertNull(atomicFail.get());
+        assertEquals(cBase + cValue, pool.size());
+
+        // every thread got the same canonical constant for each value
+        Set<Integer> setPos = new HashSet<>();
+        for (int n = 0; n < cValue; n++)
+            {
+            StringConstant constant = listAll.get(0).get(n);
+            assertEquals("s" + n, constant.getValue());
+            assertSame(constant, pool.getConstant(constant.getPosition()));
+            assertSame(constant, pool.ensureStringConstant("s" + n));
+            assertTrue(setPos.add(constant.getPosition()));
+
+            for (int i = 1; i < cThreads; i++)
+                {
+                int ix = i % 2 == 1 ? cValue - 1 - n : n;
+                assertSame(constant, listAll.get(i).get(ix));
+                }
+            }
+        }
+    }
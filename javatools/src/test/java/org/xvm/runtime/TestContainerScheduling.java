@@ -0,0 +1,180 @@
+package org.xvm.runtime;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.template._native.mgmt.xContainerControl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the Container's fair share scheduling.
+ */
+public class TestContainerScheduling
+    {
+    @BeforeEach
+    public void setUp()
+        {
+        // a single worker makes the processing order deterministic
+        String sParallelism = System.getProperty("xvm.parallelism");
+        System.setProperty("xvm.parallelism", "1");
+        try
+            {
+            m_runtime = new Runtime();
+            }
+        finally
+            {
+            if (sParallelism == null)
+                {
+                System.clearProperty("xvm.parallelism");
+                }
+            else
+                {
+                System.setProperty("xvm.parallelism", sParallelism);
+                }
+            }
+        m_containerParent = createContainer(null, "parent");
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void testWeightedShare()
+            throws InterruptedException
+        {
+        Container containerLow  = createContainer(m_containerParent, "low");
+        Container containerHigh = createContainer(m_containerParent, "high");
+        containerLow.setSchedulingWeight(1);
+        containerHigh.setSchedulingWeight(4);
+
+        // hold the only worker, so both containers get backlogged
+        CountDownLatch latchStarted = new CountDownLatch(1);
+        CountDownLatch latchGate    = new CountDownLatch(1);
+        containerLow.enqueue(() ->
+            {
+            latchStarted.countDown();
+            await(latchGate);
+            }, -1);
+        assertTrue(latchStarted.await(10, TimeUnit.SECONDS));
+
+        int            cEach    = 40;
+        List<String>   listRun  = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latchRun = new CountDownLatch(2 * cEach);
+        for (int i = 0; i < cEach; i++)
+            {
+            containerLow.enqueue(() ->
+                {
+                listRun.add("low");
+                latchRun.countDown();
+                }, -1);
+            containerHigh.enqueue(() ->
+                {
+                listRun.add("high");
+                latchRun.countDown();
+                }, -1);
+            }
+        latchGate.countDown();
+        assertTrue(latchRun.await(10, TimeUnit.SECONDS));
+
+        // while both are backlogged, the high weight container runs four tasks per each one of
+        // the low weight container
+        int cHigh = 0;
+        int cLow  = 0;
+        for (String sName : listRun)
+            {
+            if (sName.equals("high"))
+                {
+                if (++cHigh == cEach)
+                    {
+                    break;
+                    }
+                }
+            else
+                {
+                cLow++;
+                }
+            }
+        assertTrue(cLow >= cEach / 4 - 1 && cLow <= cEach / 4 + 1, "low=" + cLow);
+        }
+
+    @Test
+    public void testInvalidWeight()
+        {
+        assertThrows(IllegalArgumentException.class,
+                () -> m_containerParent.setSchedulingWeight(0));
+        assertEquals(Container.DEFAULT_SCHEDULING_WEIGHT, m_containerParent.getSchedulingWeight());
+        }
+
+    @Test
+    public void testPriority()
+        {
+        int cDefault = Container.DEFAULT_SCHEDULING_WEIGHT;
+
+        assertEquals(0.5, xContainerControl.toPriority(cDefault));
+        assertEquals(cDefault, xContainerControl.toWeight(0.5));
+        assertEquals(4 * cDefault, xContainerControl.toWeight(0.8));
+        assertEquals(1, xContainerControl.toWeight(0));
+        assertTrue(xContainerControl.toWeight(1) > xContainerControl.toWeight(0.9));
+
+        for (double dPriority = 0.1; dPriority < 0.95; dPriority += 0.1)
+            {
+            int cWeight = xContainerControl.toWeight(dPriority);
+            assertEquals(dPriority, xContainerControl.toPriority(cWeight), 0.5 / cWeight);
+            }
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private Container createContainer(Container containerParent, String sModule)
+        {
+        return new Container(m_runtime, containerParent,
+                new FileStructure(sModule).getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+        }
+
+    private static void await(CountDownLatch latch)
+        {
+        try
+            {
+            latch.await();
+            }
+        catch (InterruptedException e)
+            {
+            Thread.currentThread().interrupt();
+            }
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime   m_runtime;
+    private Container m_containerParent;
+    }
@@ -0,0 +1,161 @@
+package org.xvm.runtime;
+
+
+import java.lang.ref.WeakReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the InlineCache.
+ */
+public class TestInlineCache
+    {
+    @Test
+    public void testMonomorphic()
+        {
+        InlineCache cache = new InlineCache();
+        Key         key   = new Key();
+        Object      value = new Object();
+
+        assertNull(cache.get(key));
+
+        cache.put(key, value);
+        assertSame(value, cache.get(key));
+        assertNull(cache.get(new Key()));
+        assertFalse(cache.isPolymorphic());
+
+        // replace the entry for the same key
+        Object value2 = new Object();
+        cache.put(key, value2);
+        assertSame(value2, cache.get(key));
+        assertFalse(cache.isPolymorphic());
+        }
+
+    @Test
+    public void testKeyNotRetained()
+        {
+        InlineCache cache     = new InlineCache();
+        InlineCache cacheMega = new InlineCache();
+        for (int i = 0; i < InlineCache.POLY_LIMIT; i++)
+            {
+            cacheMega.put(new Key(), new Object());
+            }
+
+        // the values reference their keys (as a composition references its container)
+        Key key     = new Key();
+        Key keyMega = new Key();
+        cache.put(key, new Object[] {key});
+        cacheMega.put(keyMega, new Object[] {keyMega});
+        assertTrue(cacheMega.isMegamorphic());
+
+        WeakReference<Key> refKey     = new WeakReference<>(key);
+        WeakReference<Key> refKeyMega = new WeakReference<>(keyMega);
+        key     = null;
+        keyMega = null;
+
+        for (int i = 0; i < 10 && (refKey.get() != null || refKeyMega.get() != null); i++)
+            {
+            System.gc();
+            }
+
+        assertNull(refKey.get());
+        assertNull(refKeyMega.get());
+        }
+
+    @Test
+    public void testValueRetained()
+        {
+        InlineCache cache     = new InlineCache();
+        InlineCache cacheMega = new InlineCache();
+        for (int i = 0; i < InlineCache.POLY_LIMIT; i++)
+            {
+            cacheMega.put(new Key(), new Object());
+            }
+
+        // the values are only referenced by the caches (as a call chain computed for a cache)
+        Key key     = new Key();
+        Key keyMega = new Key();
+        cache.put(key, new Object[] {"value"});
+        cacheMega.put(keyMega, new Object[] {"value"});
+        assertTrue(cacheMega.isMegamorphic());
+
+        for (int i = 0; i < 3; i++)
+            {
+            System.gc();
+            }
+
+        assertNotNull(cache.get(key));
+        assertNotNull(cacheMega.get(keyMega));
+        }
+
+    @Test
+    public void testPolymorphic()
+        {
+        InlineCache cache  = new InlineCache();
+        Key[]       aKey   = new Key[InlineCache.POLY_LIMIT];
+        Object[]    aValue = new Object[InlineCache.POLY_LIMIT];
+
+        for (int i = 0; i < InlineCache.POLY_LIMIT; i++)
+            {
+            cache.put(aKey[i] = new Key(), aValue[i] = new Object());
+            }
+        assertTrue(cache.isPolymorphic());
+        assertFalse(cache.isMegamorphic());
+
+        for (int i = 0; i < InlineCache.POLY_LIMIT; i++)
+            {
+            assertSame(aValue[i], cache.get(aKey[i]));
+            }
+        }
+
+    @Test
+    public void testMegamorphic()
+        {
+        InlineCache cache  = new InlineCache();
+        int         cKeys  = InlineCache.POLY_LIMIT * 4;
+        Key[]       aKey   = new Key[cKeys];
+        Object[]    aValue = new Object[cKeys];
+
+        for (int i = 0; i < cKeys; i++)
+            {
+            cache.put(aKey[i] = new Key(), aValue[i] = new Object());
+            }
+        assertTrue(cache.isMegamorphic());
+
+        // the entries that were placed prior to the megamorphic transition are retained
+        for (int i = 0; i < cKeys; i++)
+            {
+            assertSame(aValue[i], cache.get(aKey[i]));
+            }
+        }
+    
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * A minimal InlineCache key.
+     */
+    private static class Key
+            implements InlineCache.Key
+        {
+        @Override
+        public InlineCache.Retained getRetainedValues()
+            {
+            return m_retained;
+            }
+
+        @Override
+        public void setRetainedValues(InlineCache.Retained retained)
+            {
+            m_retained = retained;
+            }
+
+        private volatile InlineCache.Retained m_retained;
+        }
+    }
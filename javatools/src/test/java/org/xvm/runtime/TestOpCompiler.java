@@ -0,0 +1,418 @@
+package org.xvm.runtime;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+import org.xvm.asm.Op;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.asm.op.Nop;
+
+import org.xvm.runtime.ServiceContext.Message;
+
+import org.xvm.runtime.jit.CompiledMethod;
+import org.xvm.runtime.jit.OpCompiler;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the OpCompiler: every op array is executed by the {@link OpCompiler.Interpreter} (which
+ * runs the ops exactly as the ServiceContext's interpreter loop does) and by the compiled code, and
+ * the executed ops, the results, the yields and the exceptions must be identical.
+ */
+public class TestOpCompiler
+    {
+    @BeforeEach
+    public void setUp()
+        {
+        m_runtime = new Runtime();
+
+        Container container = new Container(m_runtime, null,
+                new FileStructure("test").getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+        m_context = new ServiceContext(container, "test", 0);
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void testDisabledByDefault()
+        {
+        if (System.getProperty("xvm.jit") == null)
+            {
+            assertFalse(OpCompiler.ENABLED);
+            }
+        }
+
+    @Test
+    public void testLoop()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new Step(),
+            new Loop(1, 100),
+            new Nop(),
+            new Exit(Op.R_RETURN),
+            };
+        Outcome outcome = verify(aOp, Integer.MAX_VALUE);
+        assertEquals(Op.R_RETURN, outcome.lastResult());
+        assertEquals(1 + 2 * 100 + 1, outcome.listTrace().size()); // Nop is not traced
+        }
+
+    @Test
+    public void testBudget()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new Loop(0, 50),
+            new Step(),
+            new Exit(Op.R_RETURN),
+            };
+
+        // every exhausted budget returns to the caller, which resumes at the reported op
+        for (int cBudget = 1; cBudget <= 7; cBudget++)
+            {
+            Outcome outcome = verify(aOp, cBudget);
+            assertEquals(Op.R_RETURN, outcome.lastResult());
+            assertEquals(50 * 2 + 2, outcome.listTrace().size());
+            }
+        }
+
+    @Test
+    public void testYield()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new YieldOnce(),
+            new Step(),
+            new Loop(0, 5),
+            new Exit(Op.R_RETURN),
+            };
+        Outcome outcome = verify(aOp, Integer.MAX_VALUE);
+        assertEquals(Op.R_RETURN, outcome.lastResult());
+
+        // every pass yields once at the op #1
+        long cYields = outcome.listStops().stream().filter(s -> s.nResult() == Op.R_REPEAT).count();
+        assertEquals(5, cYields);
+        assertTrue(outcome.listStops().stream()
+                .filter(s -> s.nResult() == Op.R_REPEAT).allMatch(s -> s.iPC() == 1));
+        }
+
+    @Test
+    public void testCall()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new Exit(Op.R_CALL),
+            new Step(),
+            };
+        Outcome outcome = verify(aOp, Integer.MAX_VALUE);
+        assertEquals(Op.R_CALL, outcome.lastResult());
+        assertEquals(1, outcome.listStops().get(0).iPC());
+        }
+
+    @Test
+    public void testException()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new Loop(0, 3),
+            new Exit(Op.R_EXCEPTION),
+            };
+        Outcome outcome = verify(aOp, Integer.MAX_VALUE);
+        assertEquals(Op.R_EXCEPTION, outcome.lastResult());
+        assertNull(outcome.sUnexpected());
+        }
+
+    @Test
+    public void testUnexpectedException()
+        {
+        Op[] aOp =
+            {
+            new Step(),
+            new Step(),
+            new Throw(),
+            new Step(),
+            };
+        Outcome outcome = verify(aOp, Integer.MAX_VALUE);
+        assertEquals(Op.R_EXCEPTION, outcome.lastResult());
+        assertEquals(2, outcome.listStops().get(0).iPC());
+        assertEquals(new IllegalStateException("test").toString(), outcome.sUnexpected());
+        }
+
+    @Test
+    public void testLargeMethod()
+        {
+        // the ops of public top-level classes (e.g. Nop) are invoked on their concrete class
+        int  cOps = 300;
+        Op[] aOp  = new Op[cOps];
+        for (int i = 0; i < cOps - 2; i++)
+            {
+            aOp[i] = i % 2 == 0 ? new Nop() : new Step();
+            }
+        aOp[cOps - 2] = new Loop(0, 3);
+        aOp[cOps - 1] = new Exit(Op.R_RETURN);
+
+        Outcome outcome = verify(aOp, 1_000);
+        assertEquals(Op.R_RETURN, outcome.lastResult());
+
+        // too large op arrays are not compiled
+        Op[] aOpHuge = new Op[1_000];
+        for (int i = 0; i < aOpHuge.length; i++)
+            {
+            aOpHuge[i] = new Step();
+            }
+        assertNull(OpCompiler.compile(aOpHuge));
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Execute the ops both by the interpreter and the compiled code and verify that the outcomes
+     * are identical.
+     */
+    private Outcome verify(Op[] aOp, int cBudget)
+        {
+        CompiledMethod compiled = OpCompiler.compile(aOp);
+        assertNotNull(compiled);
+        assertFalse(compiled instanceof OpCompiler.Interpreter);
+
+        Outcome outcomeInterpreted = execute(new OpCompiler.Interpreter(aOp), aOp, cBudget);
+        Outcome outcomeCompiled    = execute(compiled, aOp, cBudget);
+        assertEquals(outcomeInterpreted, outcomeCompiled);
+        return outcomeCompiled;
+        }
+
+    /**
+     * Execute the ops the same way the ServiceContext does: resume after an exhausted budget or
+     * a yield, and stop at any other result.
+     */
+    private Outcome execute(CompiledMethod method, Op[] aOp, int cBudget)
+        {
+        TestFrame  frame     = new TestFrame(newFiber(), aOp);
+        List<Stop> listStops = new ArrayList<>();
+        int        iPC       = 0;
+        for (int cRuns = 0; cRuns < 10_000; cRuns++)
+            {
+            long lResult = method.execute(frame, aOp, iPC, cBudget);
+            int  cOps    = CompiledMethod.getOpCount(lResult);
+            int  nResult = CompiledMethod.getResult(lResult);
+
+            assertTrue(cOps <= cBudget);
+            if (nResult >= 0)
+                {
+                // the budget has been exhausted
+                assertEquals(cBudget, cOps);
+                iPC = nResult;
+                continue;
+                }
+
+            listStops.add(new Stop(nResult, frame.m_iPC));
+            if (nResult == Op.R_REPEAT)
+                {
+                iPC = frame.m_iPC;
+                continue;
+                }
+            return new Outcome(frame.f_listTrace, listStops, frame.m_sUnexpected);
+            }
+        throw new AssertionError("too many runs");
+        }
+
+    private Fiber newFiber()
+        {
+        return new Fiber(m_context, new Message(null)
+            {
+            @Override
+            public int getCallDepth()
+                {
+                return 0;
+                }
+
+            @Override
+            public ObjectHandle getTimeoutHandle()
+                {
+                return null;
+                }
+
+            @Override
+            public long getTimeoutStamp()
+                {
+                return 0;
+                }
+
+            @Override
+            Frame createFrame(ServiceContext context)
+                {
+                throw new UnsupportedOperationException();
+                }
+            });
+        }
+
+    /**
+     * A frame that records the executed ops and the unexpected exceptions.
+     */
+    private static class TestFrame
+            extends Frame
+        {
+        TestFrame(Fiber fiber, Op[] aOp)
+            {
+            super(fiber, -1, aOp, Utils.OBJECTS_NONE, Op.A_IGNORE, null);
+            }
+
+        @Override
+        public int raiseUnexpectedException(Throwable e)
+            {
+            m_sUnexpected = e.toString();
+            return Op.R_EXCEPTION;
+            }
+
+        final List<Integer>         f_listTrace = new ArrayList<>();
+        final Map<Integer, Integer> f_mapState  = new HashMap<>();
+        String                      m_sUnexpected;
+        }
+
+    /**
+     * An op that records its execution and proceeds to the next op.
+     */
+    private static class Step
+            extends Op
+        {
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            ((TestFrame) frame).f_listTrace.add(iPC);
+            return R_NEXT;
+            }
+        }
+
+    /**
+     * An op that jumps back to the specified op the specified number of times.
+     */
+    private static class Loop
+            extends Op
+        {
+        Loop(int iTarget, int cTimes)
+            {
+            f_iTarget = iTarget;
+            f_cTimes  = cTimes;
+            }
+
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            TestFrame frameTest = (TestFrame) frame;
+            frameTest.f_listTrace.add(iPC);
+
+            int c = frameTest.f_mapState.merge(iPC, 1, Integer::sum);
+            return c < f_cTimes ? f_iTarget : R_NEXT;
+            }
+
+        private final int f_iTarget;
+        private final int f_cTimes;
+        }
+
+    /**
+     * An op that yields (asks to be repeated) every other time it's executed.
+     */
+    private static class YieldOnce
+            extends Op
+        {
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            TestFrame frameTest = (TestFrame) frame;
+            frameTest.f_listTrace.add(iPC);
+
+            int c = frameTest.f_mapState.merge(iPC, 1, Integer::sum);
+            return c % 2 == 1 ? R_REPEAT : R_NEXT;
+            }
+        }
+
+    /**
+     * An op that returns the specified result.
+     */
+    private static class Exit
+            extends Op
+        {
+        Exit(int nResult)
+            {
+            f_nResult = nResult;
+            }
+
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            ((TestFrame) frame).f_listTrace.add(iPC);
+            return f_nResult;
+            }
+
+        private final int f_nResult;
+        }
+
+    /**
+     * An op that throws a Java exception.
+     */
+    private static class Throw
+            extends Op
+        {
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            ((TestFrame) frame).f_listTrace.add(iPC);
+            throw new IllegalStateException("test");
+            }
+        }
+
+    /**
+     * A result that stopped the execution and the op index it was returned at.
+     */
+    private record Stop(int nResult, int iPC) {}
+
+    /**
+     * The outcome of an execution.
+     */
+    private record Outcome(List<Integer> listTrace, List<Stop> listStops, String sUnexpected)
+        {
+        int lastResult()
+            {
+            return listStops.get(listStops.size() - 1).nResult();
+            }
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime        m_runtime;
+    private ServiceContext m_context;
+    }
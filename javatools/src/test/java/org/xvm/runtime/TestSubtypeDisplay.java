@@ -0,0 +1,456 @@
+package org.xvm.runtime;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.ConstantPool;
+import org.xvm.asm.Constants.Access;
+import org.xvm.asm.DirRepository;
+import org.xvm.asm.FileStructure;
+import org.xvm.asm.ModuleRepository;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.tool.Compiler;
+import org.xvm.tool.Launcher.LauncherException;
+
+import org.xvm.util.Handy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the SubtypeDisplay: for every pair of types the answer must be identical to the one of
+ * {@link TypeConstant#isA}.
+ * <p>
+ * The test modules are compiled together with the Ecstasy module from the sources, so the test
+ * takes a while to set up.
+ */
+public class TestSubtypeDisplay
+    {
+    @BeforeAll
+    public static void setUp()
+            throws IOException
+        {
+        File fileEcstasy = findSource("lib_ecstasy/src/main/x/ecstasy.x");
+        File fileTurtle  = findSource("javatools_turtle/src/main/resources/mack.x");
+
+        s_dir = Files.createTempDirectory("subtype");
+        Path pathAlpha = Files.writeString(s_dir.resolve("alpha.x"), ALPHA_SOURCE);
+        Path pathBeta  = Files.writeString(s_dir.resolve("beta.x"),  BETA_SOURCE);
+        Path pathOut   = Files.createDirectory(s_dir.resolve("build"));
+
+        String[] asArg =
+            {
+            "-o", pathOut.toString(),
+            fileEcstasy.getPath(), fileTurtle.getPath(), pathAlpha.toString(), pathBeta.toString(),
+            };
+        try
+            {
+            new Compiler(asArg).run();
+            }
+        catch (LauncherException e)
+            {
+            assertTrue(!e.error, "compilation failed");
+            }
+
+        // each module gets its own FileStructure, and therefore its own ConstantPool, the same way
+        // each container has
+        ModuleRepository repo = new DirRepository(pathOut.toFile(), true);
+        s_fileAlpha = new FileStructure(repo.loadModule(ALPHA), true);
+        assertNull(s_fileAlpha.linkModules(repo, true));
+        s_fileBeta = new FileStructure(repo.loadModule(BETA), true);
+        assertNull(s_fileBeta.linkModules(repo, true));
+
+        assertNotSame(s_fileAlpha.getConstantPool(), s_fileBeta.getConstantPool());
+        }
+
+    @AfterAll
+    public static void tearDown()
+            throws IOException
+        {
+        if (s_dir != null)
+            {
+            try (Stream<Path> stream = Files.walk(s_dir))
+                {
+                stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+        }
+
+    @Test
+    public void testClassChain()
+        {
+        ConstantPool pool = s_fileAlpha.getConstantPool();
+        TypeConstant typeBase    = alpha("Base");
+        TypeConstant typeDerived = alpha("Derived");
+        TypeConstant typeLeaf    = alpha("Leaf");
+
+        assertIsA(typeLeaf,    typeLeaf,          true);
+        assertIsA(typeLeaf,    typeDerived,       true);
+        assertIsA(typeLeaf,    typeBase,          true);
+        assertIsA(typeBase,    pool.typeObject(), true);
+        assertIsA(typeLeaf,    pool.typeObject(), true);
+        assertIsA(typeBase,    typeDerived,       false);
+        assertIsA(typeDerived, typeLeaf,          false);
+        assertIsA(typeLeaf,    alpha("Quacker"),  false);
+        assertIsA(typeLeaf,    pool.typeString(), false);
+        }
+
+    @Test
+    public void testInterfaces()
+        {
+        ConstantPool pool = s_fileAlpha.getConstantPool();
+        TypeConstant typeMarker = alpha("Marker");
+        TypeConstant typeDuck   = alpha("Duck");
+
+        assertIsA(alpha("Derived"), typeMarker, true);
+        assertIsA(alpha("Leaf"),    typeMarker, true);
+        assertIsA(alpha("Base"),    typeMarker, false);
+        assertIsA(typeMarker,       pool.typeObject(), true);
+
+        // duck-typed: Quacker doesn't declare that it implements Duck
+        assertIsA(alpha("Quacker"), typeDuck, true);
+        assertIsA(alpha("Base"),    typeDuck, false);
+        assertIsA(alpha("Secret"),  typeDuck, false);
+        }
+
+    @Test
+    public void testMixins()
+        {
+        ConstantPool pool = s_fileAlpha.getConstantPool();
+        TypeConstant typeHolder;
+        TypeConstant typeIntHolder;
+        TypeConstant typeStringHolder;
+        TypeConstant typeIntNumbered;
+        try (var ignore = ConstantPool.withPool(pool))
+            {
+            typeHolder       = pool.ensureTerminalTypeConstant(alpha("Holder").getDefiningConstant());
+            typeIntHolder    = pool.ensureParameterizedTypeConstant(typeHolder, pool.typeInt64());
+            typeStringHolder = pool.ensureParameterizedTypeConstant(typeHolder, pool.typeString());
+            typeIntNumbered  = pool.ensureParameterizedTypeConstant(
+                    pool.ensureTerminalTypeConstant(alpha("Numbered").getDefiningConstant()),
+                    pool.typeInt64());
+            }
+
+        assertIsA(alpha("Tagger"), alpha("Tagged"), true);
+        assertIsA(alpha("Tagger"), alpha("Base"),   true);
+        assertIsA(alpha("Leaf"),   alpha("Tagged"), false);
+
+        // conditional incorporation
+        assertIsA(typeIntHolder,    typeIntNumbered,  true);
+        assertIsA(typeStringHolder, typeIntNumbered,  false);
+        assertIsA(typeIntHolder,    typeHolder,       true);
+        assertIsA(typeIntHolder,    pool.typeObject(), true);
+        }
+
+    @Test
+    public void testWrappedTypes()
+        {
+        ConstantPool pool = s_fileAlpha.getConstantPool();
+        TypeConstant typeImmutablePoint;
+        TypeConstant typeServiceSvc;
+        TypeConstant typeProtectedLeaf;
+        TypeConstant typePrivateSecret;
+        try (var ignore = ConstantPool.withPool(pool))
+            {
+            typeImmutablePoint = pool.ensureImmutableTypeConstant(alpha("Point"));
+            typeServiceSvc     = pool.ensureServiceTypeConstant(alpha("Svc"));
+            typeProtectedLeaf  = pool.ensureAccessTypeConstant(alpha("Leaf"), Access.PROTECTED);
+            typePrivateSecret  = pool.ensureAccessTypeConstant(alpha("Secret"), Access.PRIVATE);
+            }
+
+        assertIsA(typeImmutablePoint, alpha("Point"),   true);
+        assertIsA(typeImmutablePoint, alpha("Marker"),  true);
+        assertIsA(typeImmutablePoint, pool.typeConst(), true);
+        assertIsA(typeImmutablePoint, alpha("Base"),    false);
+
+        assertIsA(typeServiceSvc, alpha("Svc"),       true);
+        assertIsA(typeServiceSvc, alpha("Marker"),    true);
+        assertIsA(typeServiceSvc, pool.typeService(), true);
+        assertIsA(typeServiceSvc, pool.typeConst(),   false);
+
+        assertIsA(typeProtectedLeaf, alpha("Base"),   true);
+        assertIsA(typeProtectedLeaf, alpha("Marker"), true);
+        assertIsA(typeProtectedLeaf, alpha("Point"),  false);
+
+        // the private method makes the private type a duck
+        assertIsA(typePrivateSecret, alpha("Duck"),   true);
+        assertIsA(typePrivateSecret, alpha("Secret"), true);
+        assertIsA(typePrivateSecret, alpha("Base"),   false);
+        }
+
+    @Test
+    public void testEnumValues()
+        {
+        ConstantPool pool      = s_fileAlpha.getConstantPool();
+        TypeConstant typeColor = alpha("Color");
+        TypeConstant typeRed   = alpha("Color.Red");
+        TypeConstant typeEnum  = pool.ensureEcstasyTypeConstant("Enum");
+
+        assertIsA(typeRed, typeColor,              true);
+        assertIsA(typeRed, typeEnum,               true);
+        assertIsA(typeRed, pool.typeConst(),       true);
+        assertIsA(typeRed, pool.typeObject(),      true);
+        assertIsA(typeRed, alpha("Color.Green"),   false);
+        assertIsA(typeRed, alpha("Point"),         false);
+        assertIsA(typeColor, typeRed,              false);
+        }
+
+    @Test
+    public void testTwoPools()
+        {
+        TypeConstant typeTwig  = beta("Twig");
+        TypeConstant typeOther = beta("Other");
+        TypeConstant typeLeafA = alpha("Leaf");
+        TypeConstant typeLeafB = betaAlpha("Leaf");
+
+        assertNotSame(typeLeafA.getConstantPool(), typeLeafB.getConstantPool());
+
+        assertIsA(typeTwig,  typeLeafA,            true);
+        assertIsA(typeTwig,  alpha("Base"),        true);
+        assertIsA(typeTwig,  alpha("Marker"),      true);
+        assertIsA(typeTwig,  betaAlpha("Base"),    true);
+        assertIsA(typeLeafB, typeLeafA,            true);
+        assertIsA(typeLeafA, typeLeafB,            true);
+        assertIsA(typeLeafA, typeTwig,             false);
+        assertIsA(typeOther, alpha("Marker"),      true);
+        assertIsA(typeOther, alpha("Base"),        false);
+        assertIsA(typeOther, betaAlpha("Quacker"), false);
+        assertIsA(typeTwig,  s_fileAlpha.getConstantPool().typeObject(), true);
+        }
+
+    @Test
+    public void testAllPairs()
+        {
+        List<TypeConstant> listTypes = new ArrayList<>();
+        for (FileStructure file : new FileStructure[] {s_fileAlpha, s_fileBeta})
+            {
+            ConstantPool pool = file.getConstantPool();
+            try (var ignore = ConstantPool.withPool(pool))
+                {
+                for (String sName : ALPHA_NAMES)
+                    {
+                    TypeConstant type = type(file, ALPHA, sName);
+                    listTypes.add(type);
+                    listTypes.add(pool.ensureImmutableTypeConstant(type));
+                    listTypes.add(pool.ensureAccessTypeConstant(type, Access.PROTECTED));
+                    listTypes.add(pool.ensureAccessTypeConstant(type, Access.PRIVATE));
+                    }
+                listTypes.add(pool.ensureServiceTypeConstant(type(file, ALPHA, "Svc")));
+                listTypes.add(pool.typeObject());
+                listTypes.add(pool.typeConst());
+                listTypes.add(pool.typeService());
+                listTypes.add(pool.ensureEcstasyTypeConstant("Enum"));
+                listTypes.add(pool.typeString());
+                listTypes.add(pool.typeInt64());
+                }
+            }
+        listTypes.add(beta("Twig"));
+        listTypes.add(beta("Other"));
+
+        int cTrue = 0;
+        for (TypeConstant typeValue : listTypes)
+            {
+            for (TypeConstant typeTest : listTypes)
+                {
+                if (assertIsA(typeValue, typeTest))
+                    {
+                    cTrue++;
+                    }
+                }
+            }
+
+        // make sure the test is not trivial
+        assertTrue(cTrue > listTypes.size());
+        assertTrue(cTrue < listTypes.size() * listTypes.size() / 2);
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Assert that the SubtypeDisplay answer matches the {@link TypeConstant#isA} one and the
+     * expected one.
+     */
+    private static void assertIsA(TypeConstant typeValue, TypeConstant typeTest, boolean fExpected)
+        {
+        assertEquals(fExpected, assertIsA(typeValue, typeTest),
+                typeValue.getValueString() + " isA " + typeTest.getValueString());
+        }
+
+    /**
+     * Assert that the SubtypeDisplay answer matches the {@link TypeConstant#isA} one.
+     *
+     * @return the answer
+     */
+    private static boolean assertIsA(TypeConstant typeValue, TypeConstant typeTest)
+        {
+        try (var ignore = ConstantPool.withPool(typeValue.getConstantPool()))
+            {
+            boolean fIsA = typeValue.isA(typeTest);
+            assertEquals(fIsA, SubtypeDisplay.isA(typeValue, typeTest),
+                    typeValue.getValueString() + " isA " + typeTest.getValueString());
+
+            // the second call uses the cached displays
+            assertEquals(fIsA, SubtypeDisplay.isA(typeValue, typeTest));
+            return fIsA;
+            }
+        }
+
+    /**
+     * @return the canonical type of the specified class of the "alpha" module in its own pool
+     */
+    private static TypeConstant alpha(String sName)
+        {
+        return type(s_fileAlpha, ALPHA, sName);
+        }
+
+    /**
+     * @return the canonical type of the specified class of the "alpha" module in the "beta" pool
+     */
+    private static TypeConstant betaAlpha(String sName)
+        {
+        return type(s_fileBeta, ALPHA, sName);
+        }
+
+    /**
+     * @return the canonical type of the specified class of the "beta" module
+     */
+    private static TypeConstant beta(String sName)
+        {
+        return type(s_fileBeta, BETA, sName);
+        }
+
+    /**
+     * @return the canonical type of the specified class (a dot-delimited path) of the specified
+     *         module
+     */
+    private static TypeConstant type(FileStructure file, String sModule, String sPath)
+        {
+        ClassStructure clz = file.getModule(sModule);
+        for (String sName : Handy.parseDelimitedString(sPath, '.'))
+            {
+            clz = (ClassStructure) clz.getChild(sName);
+            }
+        try (var ignore = ConstantPool.withPool(file.getConstantPool()))
+            {
+            return clz.getCanonicalType();
+            }
+        }
+
+    /**
+     * Find the specified source file of this project.
+     */
+    private static File findSource(String sPath)
+        {
+        for (File dir = new File("").getAbsoluteFile(); dir != null; dir = dir.getParentFile())
+            {
+            File file = new File(dir, sPath);
+            if (file.isFile())
+                {
+                return file;
+                }
+            }
+        throw new IllegalStateException("cannot find " + sPath);
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private static final String ALPHA = "alpha.test.org";
+    private static final String BETA  = "beta.test.org";
+
+    private static final String ALPHA_SOURCE = """
+            module alpha.test.org
+                {
+                interface Marker
+                    {
+                    Int mark();
+                    }
+                interface Duck
+                    {
+                    Int quack();
+                    }
+                class Quacker
+                    {
+                    Int quack() = 1;
+                    }
+                class Secret
+                    {
+                    private Int quack() = 2;
+                    }
+                class Base {}
+                class Derived extends Base implements Marker
+                    {
+                    @Override
+                    Int mark() = 1;
+                    }
+                class Leaf extends Derived {}
+                mixin Tagged into Base {}
+                class Tagger extends Base incorporates Tagged {}
+                mixin Numbered<Element> into Holder<Element> {}
+                class Holder<Element>
+                        incorporates conditional Numbered<Element extends Int> {}
+                service Svc implements Marker
+                    {
+                    @Override
+                    Int mark() = 2;
+                    }
+                const Point(Int x, Int y) implements Marker
+                    {
+                    @Override
+                    Int mark() = x;
+                    }
+                enum Color {Red, Green}
+                }
+            """;
+
+    private static final String BETA_SOURCE = """
+            module beta.test.org
+                {
+                package alpha import alpha.test.org;
+
+                import alpha.Leaf;
+                import alpha.Marker;
+
+                class Twig extends Leaf {}
+                class Other implements Marker
+                    {
+                    @Override
+                    Int mark() = 3;
+                    }
+                }
+            """;
+
+    /**
+     * The non-generic classes of the "alpha" module.
+     */
+    private static final String[] ALPHA_NAMES =
+        {
+        "Marker", "Duck", "Quacker", "Secret", "Base", "Derived", "Leaf", "Tagged", "Tagger",
+        "Svc", "Point", "Color", "Color.Red", "Color.Green",
+        };
+
+    private static Path          s_dir;
+    private static FileStructure s_fileAlpha;
+    private static FileStructure s_fileBeta;
+    }
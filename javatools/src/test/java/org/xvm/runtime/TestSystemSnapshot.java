@@ -0,0 +1,230 @@
+package org.xvm.runtime;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.time.Instant;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.Component.Format;
+import org.xvm.asm.Constants.Access;
+import org.xvm.asm.FileStructure;
+import org.xvm.asm.ModuleStructure;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the SystemSnapshot: a snapshot of freshly merged modules must load back into an
+ * identical structure, and a snapshot that doesn't match the modules or cannot be read must be
+ * rejected, so the modules get merged again.
+ */
+public class TestSystemSnapshot
+    {
+    @BeforeEach
+    public void setUp()
+            throws IOException
+        {
+        m_dir  = Files.createTempDirectory("snapshot");
+        m_file = m_dir.resolve("system.snapshot").toFile();
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        for (File file : m_dir.toFile().listFiles())
+            {
+            file.delete();
+            }
+        m_dir.toFile().delete();
+        }
+
+    @Test
+    public void testRoundTrip()
+            throws IOException
+        {
+        ModuleStructure[] aModule  = createModules(1L);
+        FileStructure     fileRoot = merge(aModule);
+        String            sKey     = SystemSnapshot.computeKey(aModule);
+        SystemSnapshot    snapshot = new SystemSnapshot(m_file);
+
+        assertNull(snapshot.load(sKey));
+
+        snapshot.store(fileRoot, sKey);
+        assertTrue(m_file.isFile());
+
+        FileStructure fileLoaded = snapshot.load(sKey);
+        assertNotNull(fileLoaded);
+        assertEquals(fileRoot.getModuleName(), fileLoaded.getModuleName());
+        for (ModuleStructure module : aModule)
+            {
+            ModuleStructure moduleLoaded = fileLoaded.getModule(module.getName());
+            assertNotNull(moduleLoaded);
+            assertEquals(module.getChildByNameMap().keySet(),
+                         moduleLoaded.getChildByNameMap().keySet());
+            }
+        assertTrue(fileLoaded.getModule(ALPHA).getChild("Point") instanceof ClassStructure);
+
+        // the loaded structure is binary identical to the one it was created from
+        assertArrayEquals(toBytes(fileRoot), toBytes(fileLoaded));
+
+        // no temporary files are left behind
+        assertEquals(1, m_dir.toFile().listFiles().length);
+        }
+
+    @Test
+    public void testKey()
+        {
+        ModuleStructure[] aModule1 = createModules(1L);
+        ModuleStructure[] aModule2 = createModules(1L);
+        ModuleStructure[] aModule3 = createModules(2L);
+
+        assertEquals(SystemSnapshot.computeKey(aModule1), SystemSnapshot.computeKey(aModule2));
+        assertNotEquals(SystemSnapshot.computeKey(aModule1), SystemSnapshot.computeKey(aModule3));
+        assertNotEquals(SystemSnapshot.computeKey(aModule1[0], aModule1[1]),
+                        SystemSnapshot.computeKey(aModule1[1], aModule1[0]));
+        }
+
+    @Test
+    public void testRejectStale()
+            throws IOException
+        {
+        ModuleStructure[] aModuleOld = createModules(1L);
+        String            sKeyOld    = SystemSnapshot.computeKey(aModuleOld);
+        SystemSnapshot    snapshot   = new SystemSnapshot(m_file);
+        snapshot.store(merge(aModuleOld), sKeyOld);
+
+        // the modules have been rebuilt since the snapshot was created
+        ModuleStructure[] aModuleNew = createModules(2L);
+        String            sKeyNew    = SystemSnapshot.computeKey(aModuleNew);
+        assertNull(snapshot.load(sKeyNew));
+
+        // the stale snapshot gets replaced
+        FileStructure fileRoot = merge(aModuleNew);
+        snapshot.store(fileRoot, sKeyNew);
+        assertNull(snapshot.load(sKeyOld));
+
+        FileStructure fileLoaded = snapshot.load(sKeyNew);
+        assertNotNull(fileLoaded);
+        assertArrayEquals(toBytes(fileRoot), toBytes(fileLoaded));
+        }
+
+    @Test
+    public void testRejectCorrupt()
+            throws IOException
+        {
+        ModuleStructure[] aModule  = createModules(1L);
+        String            sKey     = SystemSnapshot.computeKey(aModule);
+        SystemSnapshot    snapshot = new SystemSnapshot(m_file);
+        snapshot.store(merge(aModule), sKey);
+
+        byte[] ab = Files.readAllBytes(m_file.toPath());
+        assertNotNull(snapshot.load(sKey));
+
+        // empty
+        Files.write(m_file.toPath(), new byte[0]);
+        assertNull(snapshot.load(sKey));
+
+        // not a snapshot
+        byte[] abMagic = ab.clone();
+        abMagic[0] ^= 0x7F;
+        Files.write(m_file.toPath(), abMagic);
+        assertNull(snapshot.load(sKey));
+
+        // truncated in the middle of the key and in the middle of the structure
+        Files.write(m_file.toPath(), Arrays.copyOf(ab, 20));
+        assertNull(snapshot.load(sKey));
+        Files.write(m_file.toPath(), Arrays.copyOf(ab, ab.length - ab.length / 3));
+        assertNull(snapshot.load(sKey));
+
+        // garbage instead of the structure
+        byte[] abGarbage = ab.clone();
+        for (int i = 6 + sKey.length(); i < abGarbage.length; i++)
+            {
+            abGarbage[i] = (byte) (i * 31);
+            }
+        Files.write(m_file.toPath(), abGarbage);
+        assertNull(snapshot.load(sKey));
+
+        // a directory in place of the file
+        assertTrue(m_file.delete());
+        assertTrue(m_file.mkdir());
+        assertFalse(m_file.isFile());
+        assertNull(snapshot.load(sKey));
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Create two modules with a few classes, as if they were built at the specified time.
+     */
+    private static ModuleStructure[] createModules(long lBuild)
+        {
+        FileStructure   fileAlpha   = new FileStructure(ALPHA);
+        ModuleStructure moduleAlpha = fileAlpha.getModule();
+        moduleAlpha.setTimestamp(fileAlpha.getConstantPool().ensureTimeConstant(
+                Instant.ofEpochSecond(lBuild)));
+        moduleAlpha.createClass(Access.PUBLIC, Format.CLASS, "Point", null);
+        moduleAlpha.createPackage(Access.PUBLIC, "shapes", null)
+                   .createClass(Access.PUBLIC, Format.INTERFACE, "Shape", null);
+
+        FileStructure   fileBeta   = new FileStructure(BETA);
+        ModuleStructure moduleBeta = fileBeta.getModule();
+        moduleBeta.setTimestamp(fileBeta.getConstantPool().ensureTimeConstant(
+                Instant.ofEpochSecond(lBuild)));
+        moduleBeta.createClass(Access.PUBLIC, Format.CONST, "Circle", null);
+        moduleBeta.createClass(Access.PUBLIC, Format.ENUM, "Color", null);
+
+        return new ModuleStructure[] {moduleAlpha, moduleBeta};
+        }
+
+    /**
+     * Merge the modules the same way the NativeContainer does.
+     */
+    private static FileStructure merge(ModuleStructure[] aModule)
+        {
+        FileStructure fileRoot = new FileStructure(aModule[0], true);
+        for (int i = 1; i < aModule.length; i++)
+            {
+            fileRoot.merge(aModule[i], true, false);
+            }
+        return fileRoot;
+        }
+
+    private static byte[] toBytes(FileStructure file)
+            throws IOException
+        {
+        ByteArrayOutputStream outBytes = new ByteArrayOutputStream();
+        file.writeTo((DataOutput) new DataOutputStream(outBytes));
+        return outBytes.toByteArray();
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private static final String ALPHA = "alpha.test.org";
+    private static final String BETA  = "beta.test.org";
+
+    private Path m_dir;
+    private File m_file;
+    }
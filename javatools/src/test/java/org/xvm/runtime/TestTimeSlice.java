@@ -0,0 +1,195 @@
+package org.xvm.runtime;
+
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+import org.xvm.asm.Op;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.Fiber.FiberStatus;
+import org.xvm.runtime.ServiceContext.Message;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the time slice based preemption.
+ */
+public class TestTimeSlice
+    {
+    @BeforeEach
+    public void setUp()
+        {
+        m_runtime = new Runtime();
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void testInheritance()
+        {
+        Container containerParent = createContainer(null, "parent");
+        Container containerChild  = createContainer(containerParent, "child");
+        assertEquals(Container.DEFAULT_TIME_SLICE, containerChild.getTimeSlice());
+
+        long cNanos = TimeUnit.MILLISECONDS.toNanos(2);
+        containerParent.setTimeSlice(cNanos);
+        assertEquals(cNanos, containerChild.getTimeSlice());
+
+        ServiceContext context = new ServiceContext(containerChild, "test", 0);
+        assertEquals(cNanos, context.getTimeSlice());
+
+        containerChild.setTimeSlice(2 * cNanos);
+        assertEquals(2 * cNanos, context.getTimeSlice());
+
+        context.setTimeSlice(3 * cNanos);
+        assertEquals(3 * cNanos, context.getTimeSlice());
+
+        // zero reverts to the parent's time slice
+        context.setTimeSlice(0);
+        containerChild.setTimeSlice(0);
+        assertEquals(cNanos, context.getTimeSlice());
+
+        assertThrows(IllegalArgumentException.class, () -> containerChild.setTimeSlice(-1));
+        }
+
+    @Test
+    public void testSmallerSliceYieldsSooner()
+        {
+        Container containerShort = createContainer(null, "short");
+        Container containerLong  = createContainer(null, "long");
+        containerShort.setTimeSlice(TimeUnit.MILLISECONDS.toNanos(1));
+        containerLong .setTimeSlice(TimeUnit.MILLISECONDS.toNanos(50));
+
+        long cShort = Long.MAX_VALUE;
+        long cLong  = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++)
+            {
+            cShort = Math.min(cShort, spin(containerShort));
+            cLong  = Math.min(cLong,  spin(containerLong));
+            }
+
+        assertTrue(cShort >= TimeUnit.MILLISECONDS.toNanos(1), "short=" + cShort);
+        assertTrue(cLong  >= TimeUnit.MILLISECONDS.toNanos(50), "long=" + cLong);
+        assertTrue(cShort * 10 < cLong, "short=" + cShort + "; long=" + cLong);
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Run an endless loop in a service of the specified container until the fiber gets paused.
+     *
+     * @return the time (in nanoseconds) the fiber ran without a pause
+     */
+    private long spin(Container container)
+        {
+        ServiceContext context = new ServiceContext(container, "spin", 0);
+        Fiber          fiber   = newFiber(context);
+        Op[]           aOp     = {new Spin(), new Spin(), new Jump()};
+        Frame          frame   = new Frame(fiber, -1, aOp, Utils.OBJECTS_NONE, Op.A_IGNORE, null);
+
+        long ldtStart = System.nanoTime();
+        assertSame(frame, context.execute(frame));
+        long cNanos = System.nanoTime() - ldtStart;
+
+        assertEquals(FiberStatus.Paused, fiber.getStatus());
+        return cNanos;
+        }
+
+    private Fiber newFiber(ServiceContext context)
+        {
+        return new Fiber(context, new Message(null)
+            {
+            @Override
+            public int getCallDepth()
+                {
+                return 0;
+                }
+
+            @Override
+            public ObjectHandle getTimeoutHandle()
+                {
+                return null;
+                }
+
+            @Override
+            public long getTimeoutStamp()
+                {
+                return 0;
+                }
+
+            @Override
+            Frame createFrame(ServiceContext context)
+                {
+                throw new UnsupportedOperationException();
+                }
+            });
+        }
+
+    private Container createContainer(Container containerParent, String sModule)
+        {
+        return new Container(m_runtime, containerParent,
+                new FileStructure(sModule).getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+        }
+
+    /**
+     * An op that burns a little bit of CPU.
+     */
+    private static class Spin
+            extends Op
+        {
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            long l = iPC;
+            for (int i = 0; i < 100; i++)
+                {
+                l = l * 31 + i;
+                }
+            s_lSink += l;
+            return R_NEXT;
+            }
+        }
+
+    /**
+     * An op that jumps back to the first op.
+     */
+    private static class Jump
+            extends Op
+        {
+        @Override
+        public int process(Frame frame, int iPC)
+            {
+            return 0;
+            }
+        }
+
+    private static volatile long s_lSink;
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime m_runtime;
+    }
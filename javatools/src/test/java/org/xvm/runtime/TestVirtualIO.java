@@ -0,0 +1,163 @@
+package org.xvm.runtime;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the IO task execution modes and the IO metrics.
+ */
+public class TestVirtualIO
+    {
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void testPlatformByDefault()
+            throws Exception
+        {
+        start(null, null);
+        assertFalse(m_runtime.isVirtualIO());
+
+        CompletableFuture<Boolean> cf =
+                m_container.scheduleIO(() -> Thread.currentThread().isVirtual());
+        assertFalse(cf.get(10, TimeUnit.SECONDS));
+        }
+
+    @Test
+    public void testLimit()
+            throws Exception
+        {
+        int cLimit = 4;
+        int cTasks = 40;
+
+        start("virtual", String.valueOf(cLimit));
+        assertTrue(m_runtime.isVirtualIO());
+
+        Container                        container = m_container;
+        CountDownLatch                   latchGate = new CountDownLatch(1);
+        AtomicInteger                    cRunning  = new AtomicInteger();
+        AtomicInteger                    cMax      = new AtomicInteger();
+        List<CompletableFuture<Boolean>> listCf    = new ArrayList<>();
+        for (int i = 0; i < cTasks; i++)
+            {
+            listCf.add(container.scheduleIO(() ->
+                {
+                cMax.accumulateAndGet(cRunning.incrementAndGet(), Math::max);
+                try
+                    {
+                    latchGate.await(10, TimeUnit.SECONDS);
+                    Thread.sleep(1);
+                    }
+                finally
+                    {
+                    cRunning.decrementAndGet();
+                    }
+                return Thread.currentThread().isVirtual();
+                }));
+            }
+
+        // wait for the limit to be reached; the rest of the tasks are held by the container
+        long ldtDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cRunning.get() < cLimit && System.nanoTime() < ldtDeadline)
+            {
+            Thread.sleep(1);
+            }
+        Thread.sleep(50);
+        assertEquals(cLimit, cRunning.get());
+        assertEquals(cTasks, container.getIOInFlightCount());
+        assertEquals(cTasks, m_runtime.getIOInFlightCount());
+
+        latchGate.countDown();
+        for (CompletableFuture<Boolean> cf : listCf)
+            {
+            assertTrue(cf.get(10, TimeUnit.SECONDS));
+            }
+
+        assertEquals(cLimit, cMax.get());
+        assertEquals(cTasks, m_runtime.getIOSubmittedCount());
+
+        // the counters are decremented after the task's future is completed
+        ldtDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((container.getIOInFlightCount() > 0 || m_runtime.getIOInFlightCount() > 0)
+                && System.nanoTime() < ldtDeadline)
+            {
+            Thread.sleep(1);
+            }
+        assertEquals(0, container.getIOInFlightCount());
+        assertEquals(0, m_runtime.getIOInFlightCount());
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Create the runtime and the container using the specified IO mode and limit (both are read
+     * at construction).
+     */
+    private void start(String sMode, String sLimit)
+        {
+        String sModeOld  = System.getProperty("xvm.io");
+        String sLimitOld = System.getProperty("xvm.io.limit");
+        setProperty("xvm.io", sMode);
+        setProperty("xvm.io.limit", sLimit);
+        try
+            {
+            m_runtime   = new Runtime();
+            m_container = new Container(m_runtime, null,
+                    new FileStructure("test").getModule().getIdentityConstant())
+                {
+                @Override
+                public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                                  ObjectHandle hOpts)
+                    {
+                    return null;
+                    }
+                };
+            }
+        finally
+            {
+            setProperty("xvm.io", sModeOld);
+            setProperty("xvm.io.limit", sLimitOld);
+            }
+        }
+
+    private static void setProperty(String sName, String sValue)
+        {
+        if (sValue == null)
+            {
+            System.clearProperty(sName);
+            }
+        else
+            {
+            System.setProperty(sName, sValue);
+            }
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime   m_runtime;
+    private Container m_container;
+    }
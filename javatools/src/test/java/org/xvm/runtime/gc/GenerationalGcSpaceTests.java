@@ -0,0 +1,236 @@
+package org.xvm.runtime.gc;
+
+
+import org.xvm.util.LongMuterator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of the {@link GenerationalGcSpace}; in addition to the generational specific tests, all the
+ * {@link MarkAndSweepGcSpaceTests} are run against the generational collector.
+ * <p>
+ * The {@link #main} method runs a simple benchmark that compares the throughput and the worst
+ * allocation pause of the two collectors for a workload consisting of a large long-lived object
+ * graph and a high rate of short-lived allocations.
+ */
+public class GenerationalGcSpaceTests
+        extends MarkAndSweepGcSpaceTests
+    {
+    public static void main(String[] args)
+        {
+        int cLive = 1_000_000;
+        int cOps  = 20_000_000;
+        if (args != null && args.length > 0)
+            {
+            cLive = Integer.parseInt(args[0]);
+            }
+
+        for (int iIter = 0; iIter < 3; iIter++)
+            {
+            report("MarkAndSweepGcSpace", new MarkAndSweepGcSpace<>(LongArrayObjectManager.INSTANCE, l -> {},
+                    256L * 1024 * 1024, Long.MAX_VALUE), cLive, cOps);
+            report("GenerationalGcSpace", new GenerationalGcSpace<>(LongArrayObjectManager.INSTANCE, l -> {},
+                    256L * 1024 * 1024, Long.MAX_VALUE), cLive, cOps);
+            }
+        }
+
+    private static void report(String sName, GcSpace space, int cLive, int cOps)
+        {
+        // the long-lived object graph: an array of objects, each holding a small chain
+        long[] apLive = new long[cLive];
+        space.addRoot(() -> new LongMuterator()
+            {
+            int i;
+
+            @Override
+            public void set(long value)
+                {
+                apLive[i - 1] = value;
+                }
+
+            @Override
+            public long nextLong()
+                {
+                return apLive[i++];
+                }
+
+            @Override
+            public boolean hasNext()
+                {
+                return i < apLive.length;
+                }
+            });
+        for (int i = 0; i < cLive; i++)
+            {
+            apLive[i] = space.allocate(2);
+            space.setField(apLive[i], 0, space.allocate(1));
+            }
+
+        Random rnd       = new Random(42);
+        long   cMaxNanos = 0;
+        long   ldtStart  = System.nanoTime();
+        for (int i = 0; i < cOps; i++)
+            {
+            long ldtOp = System.nanoTime();
+
+            // mostly short-lived garbage; occasionally replace a long-lived object
+            long p = space.allocate(2);
+            space.setField(p, 1, apLive[rnd.nextInt(cLive)]);
+            if ((i & 0xFF) == 0)
+                {
+                space.setField(apLive[rnd.nextInt(cLive)], 1, p);
+                }
+
+            long cNanos = System.nanoTime() - ldtOp;
+            if (cNanos > cMaxNanos)
+                {
+                cMaxNanos = cNanos;
+                }
+            }
+        long cNanos = System.nanoTime() - ldtStart;
+
+        System.out.printf("%s: %,d allocations/sec; max pause %,d us; %,d bytes retained%n", sName,
+                cOps * 1_000_000_000L / cNanos, cMaxNanos / 1000, space.getByteCount());
+        }
+
+    @Override
+    GcSpace makeSpace(LongConsumer cleared, long capacity)
+        {
+        return new GenerationalGcSpace<>(LongArrayObjectManager.INSTANCE, cleared, capacity, capacity);
+        }
+
+    @Test
+    public void shouldRetainYoungReachableFromTenured()
+        {
+        GenerationalGcSpace<long[]> space = new GenerationalGcSpace<>(LongArrayObjectManager.INSTANCE, l -> {});
+        RootSet root = new RootSet();
+        space.addRoot(root::retained);
+
+        long pOld = space.allocate(1);
+        root.retained.add(pOld);
+        space.gc(); // promote pOld
+
+        // store a young object into the tenured one; only the card marking keeps it alive
+        long pYoung = space.allocate(1);
+        space.setField(pOld, 0, pYoung);
+        long pGarbage = space.allocate(1);
+
+        fillNursery(space);
+
+        assertTrue(space.isValid(pOld));
+        assertTrue(space.isValid(pYoung));
+        assertFalse(space.isValid(pGarbage));
+        assertTrue(space.getYoungCollectionCount() >= 2);
+        }
+
+    @Test
+    public void shouldCollectTenuredIncrementally()
+        {
+        GenerationalGcSpace<long[]> space = new GenerationalGcSpace<>(LongArrayObjectManager.INSTANCE, l -> {});
+        RootSet root = new RootSet();
+        space.addRoot(root::retained);
+
+        // build a tenured list, then drop it
+        long pHead = space.allocate(1);
+        root.retained.add(pHead);
+        long pLast = pHead;
+        List<Long> listDropped = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            {
+            long p = space.allocate(64);
+            space.setField(pLast, 0, p);
+            pLast = p;
+            listDropped.add(p);
+            }
+        fillNursery(space);
+        space.setField(pHead, 0, GcSpace.NULL);
+
+        // keep allocating objects that live long enough to get promoted, but never call gc();
+        // the growth of the tenured space must trigger the collection of the dropped list
+        long[] apWindow = new long[256];
+        for (int i = 0; i < 1_000_000 && space.isValid(listDropped.get(0)); i++)
+            {
+            int  ix   = i % apWindow.length;
+            long pOld = apWindow[ix];
+            if (pOld != GcSpace.NULL)
+                {
+                root.retained.remove(pOld);
+                }
+            root.retained.add(apWindow[ix] = space.allocate(64));
+            }
+
+        assertTrue(space.getTenuredCollectionCount() > 0);
+        assertTrue(space.isValid(pHead));
+        for (long p : listDropped)
+            {
+            assertFalse(space.isValid(p));
+            }
+        }
+
+    @Test
+    public void shouldNotLoseReferencesMovedDuringMarking()
+        {
+        GenerationalGcSpace<long[]> space = new GenerationalGcSpace<>(LongArrayObjectManager.INSTANCE, l -> {});
+        RootSet root = new RootSet();
+        space.addRoot(root::retained);
+
+        // a chain that takes several marking increments to scan: A -> ... -> B -> C
+        int  cChain = 4 * GenerationalGcSpace.MARK_STEP;
+        long pA     = space.allocate(2);
+        long p1     = space.allocate(2);
+        root.retained.add(pA);
+        space.setField(pA, 0, p1);
+
+        long pLast = p1;
+        for (int i = 0; i < cChain; i++)
+            {
+            long p = space.allocate(2);
+            space.setField(pLast, 0, p);
+            pLast = p;
+            }
+        long pB = pLast;
+        long pC = space.allocate(0);
+        space.setField(pB, 0, pC);
+        space.gc();
+
+        // force the next nursery collection to start the marking, and the one after that to
+        // perform the first marking increment
+        space.m_cbTenuredTrigger = 0;
+        fillNursery(space);
+        assertEquals(GenerationalGcSpace.PHASE_MARKING, space.m_nPhase);
+        fillNursery(space);
+        assertEquals(GenerationalGcSpace.PHASE_MARKING, space.m_nPhase);
+
+        // move the only reference to C from a not yet scanned object (B) to an already scanned
+        // one (the second object in the chain)
+        space.setField(p1, 1, pC);
+        space.setField(pB, 0, GcSpace.NULL);
+
+        while (space.m_nPhase != GenerationalGcSpace.PHASE_IDLE)
+            {
+            fillNursery(space);
+            }
+        assertTrue(space.isValid(pC));
+        assertEquals(pC, space.getField(p1, 1));
+        }
+
+    /**
+     * Allocate enough garbage to force a nursery collection.
+     */
+    private static void fillNursery(GcSpace space)
+        {
+        for (int i = 0; i <= GenerationalGcSpace.NURSERY_SIZE; i++)
+            {
+            space.allocate(0);
+            }
+        }
+    }
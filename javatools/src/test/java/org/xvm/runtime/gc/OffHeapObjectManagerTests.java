@@ -0,0 +1,87 @@
+package org.xvm.runtime.gc;
+
+
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests of the {@link OffHeapObjectManager}; in addition to the manager specific tests, all the
+ * {@link MarkAndSweepGcSpaceTests} are run against a space that keeps its objects off-heap.
+ */
+public class OffHeapObjectManagerTests
+        extends MarkAndSweepGcSpaceTests
+    {
+    @Override
+    GcSpace makeSpace(LongConsumer cleared, long capacity)
+        {
+        return new MarkAndSweepGcSpace<>(new OffHeapObjectManager(), cleared, capacity, capacity);
+        }
+
+    @Test
+    public void shouldReadAndWriteFields()
+        {
+        OffHeapObjectManager mgr = new OffHeapObjectManager();
+        Long o1 = mgr.allocate(3);
+        Long o2 = mgr.allocate(0);
+
+        mgr.setHeader(o1, 0x55);
+        mgr.setField(o1, 0, -1L);
+        mgr.setField(o1, 2, 42L);
+        mgr.setHeader(o2, 7);
+
+        assertEquals(0x55, mgr.getHeader(o1));
+        assertEquals(-1L, mgr.getField(o1, 0));
+        assertEquals(0L, mgr.getField(o1, 1));
+        assertEquals(42L, mgr.getField(o1, 2));
+        assertEquals(7, mgr.getHeader(o2));
+        assertThrows(IndexOutOfBoundsException.class, () -> mgr.getField(o1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> mgr.setField(o2, 0, 1L));
+        }
+
+    @Test
+    public void shouldReuseFreedObjects()
+        {
+        OffHeapObjectManager mgr = new OffHeapObjectManager();
+        Long o1 = mgr.allocate(2);
+        mgr.setField(o1, 1, 42L);
+        assertEquals(24, mgr.getByteSize(o1));
+        assertEquals(24, mgr.getUsedByteCount());
+
+        mgr.free(o1);
+        assertEquals(0, mgr.getUsedByteCount());
+        assertThrows(SegFault.class, () -> mgr.getField(o1, 1));
+        assertThrows(SegFault.class, () -> mgr.free(o1));
+
+        // an object of the same size takes the freed storage, and comes back cleared
+        Long o2 = mgr.allocate(2);
+        assertEquals(o1, o2);
+        assertEquals(0L, mgr.getField(o2, 1));
+
+        // a differently sized one does not
+        Long o3 = mgr.allocate(3);
+        assertEquals(56, mgr.getUsedByteCount());
+        mgr.free(o3);
+        assertEquals(o3, mgr.allocate(3));
+        }
+
+    @Test
+    public void shouldReleaseLargeObjects()
+        {
+        OffHeapObjectManager mgr = new OffHeapObjectManager();
+        long cbReserved = mgr.getReservedByteCount();
+
+        Long o = mgr.allocate(100_000);
+        mgr.setField(o, 99_999, 42L);
+        assertEquals(42L, mgr.getField(o, 99_999));
+        assertEquals(800_008, mgr.getByteSize(o));
+        assertEquals(cbReserved + 800_008, mgr.getReservedByteCount());
+
+        mgr.free(o);
+        assertEquals(cbReserved, mgr.getReservedByteCount());
+        assertThrows(SegFault.class, () -> mgr.getHeader(o));
+        }
+    }
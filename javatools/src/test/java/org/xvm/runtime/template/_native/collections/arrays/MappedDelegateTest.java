@@ -0,0 +1,239 @@
+package org.xvm.runtime.template._native.collections.arrays;
+
+
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.ClassStructure;
+import org.xvm.asm.Component.Format;
+import org.xvm.asm.Constants.Access;
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.ClassComposition;
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.Runtime;
+
+import org.xvm.runtime.template._native.collections.arrays.ByteBasedDelegate.ByteArrayHandle;
+import org.xvm.runtime.template._native.collections.arrays.xRTMappedDelegate.MappedHandle;
+
+import org.xvm.runtime.template.collections.xArray.Mutability;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the xRTMappedDelegate class.
+ */
+public class MappedDelegateTest
+    {
+    @BeforeEach
+    public void setUp()
+        {
+        m_runtime = new Runtime();
+
+        FileStructure file = new FileStructure("test");
+        m_container = new Container(m_runtime, null, file.getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+
+        // the handles are never exposed to the natural code, so they don't need a composition
+        ClassStructure structure = file.getModule().createClass(
+                Access.PUBLIC, Format.CLASS, "RTMappedDelegate", null);
+        m_template = new xRTMappedDelegate(m_container, structure, false)
+            {
+            @Override
+            public ClassComposition getCanonicalClass()
+                {
+                return null;
+                }
+            };
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void shouldSliceRemainingBytes()
+        {
+        ByteBuffer buffer = ByteBuffer.wrap(sequence(100)).asReadOnlyBuffer();
+        buffer.position(10).limit(60);
+
+        MappedHandle hMapped = m_template.makeHandle(m_container, buffer, false);
+        assertEquals(50, hMapped.m_cSize);
+        assertEquals(Mutability.Constant, hMapped.getMutability());
+        assertEquals(10, m_template.extractByte(hMapped, 0));
+        assertEquals(59, m_template.extractByte(hMapped, 49));
+
+        // the source buffer is not affected
+        assertEquals(10, buffer.position());
+        assertEquals(60, buffer.limit());
+
+        assertArrayEquals(new byte[] {15, 16, 17, 18}, m_template.getBytes(hMapped, 5, 4, false));
+        assertArrayEquals(new byte[] {18, 17, 16, 15}, m_template.getBytes(hMapped, 5, 4, true));
+        assertArrayEquals(new byte[0], m_template.getBytes(hMapped, 50, 0, false));
+
+        // a constant copy of the whole array is the array itself
+        assertSame(hMapped, m_template.createCopyImpl(hMapped, Mutability.Constant, 0, 50, false));
+        }
+
+    @Test
+    public void shouldProvideIndependentViews()
+        {
+        MappedHandle hMapped = m_template.makeHandle(m_container,
+                ByteBuffer.wrap(sequence(20)).asReadOnlyBuffer(), false);
+
+        ByteBuffer view1 = hMapped.getBuffer();
+        assertTrue(view1.isReadOnly());
+        assertEquals(0, view1.position());
+        assertEquals(20, view1.remaining());
+
+        // consuming a view doesn't change the array or any other view
+        byte[] ab = new byte[20];
+        view1.get(ab);
+        assertArrayEquals(sequence(20), ab);
+        assertEquals(0, view1.remaining());
+
+        ByteBuffer view2 = hMapped.getBuffer();
+        assertEquals(20, view2.remaining());
+        assertEquals(19, m_template.extractByte(hMapped, 19));
+        }
+
+    @Test
+    public void shouldCompareByContent()
+        {
+        MappedHandle h1 = m_template.makeHandle(m_container,
+                ByteBuffer.wrap(sequence(30)).asReadOnlyBuffer(), false);
+        MappedHandle h2 = m_template.makeHandle(m_container,
+                ByteBuffer.allocateDirect(30).put(sequence(30)).flip(), false);
+        MappedHandle h3 = m_template.makeHandle(m_container,
+                ByteBuffer.wrap(sequence(31)).asReadOnlyBuffer(), false);
+
+        assertEquals(h1, h2);
+        assertEquals(h1.hashCode(), h2.hashCode());
+        assertNotEquals(h1, h3);
+        assertTrue(m_template.compareIdentity(h1, h2));
+        assertFalse(m_template.compareIdentity(h1, h3));
+
+        // the heap arrays with the same bytes are equal, regardless of the spare capacity
+        byte[] ab = new byte[40];
+        System.arraycopy(sequence(30), 0, ab, 0, 30);
+        ByteArrayHandle hHeap = new ByteArrayHandle(null, ab, 30, Mutability.Constant);
+        assertTrue(xRTMappedDelegate.equalBytes(h1, hHeap));
+        assertFalse(xRTMappedDelegate.equalBytes(h3, hHeap));
+        }
+
+    @Test
+    public void shouldRejectWritesToReadOnlyBytes()
+        {
+        MappedHandle hMapped = m_template.makeHandle(m_container,
+                ByteBuffer.wrap(sequence(10)).asReadOnlyBuffer(), false);
+
+        assertThrows(IllegalStateException.class, () -> m_template.assignByte(hMapped, 0, (byte) 1));
+        assertThrows(IllegalStateException.class, () -> m_template.fill(hMapped, 10, null));
+        assertEquals(0, m_template.extractByte(hMapped, 0));
+        }
+
+    @Test
+    public void shouldReleaseBudgetWhenCollected()
+            throws Exception
+        {
+        Path path = Files.createTempFile("mapped", ".bin");
+        try
+            {
+            Files.write(path, sequence(4096));
+
+            m_container.setMappedMemoryLimit(4096);
+            assertEquals(0, m_container.getMappedMemory());
+
+            byte[] ab = readMapped(path, 100, 1000);
+            assertArrayEquals(Arrays.copyOfRange(sequence(4096), 100, 1100), ab);
+
+            // the handle is unreachable now; the charge is returned when the cleaner runs
+            for (int i = 0; i < 200 && m_container.getMappedMemory() > 0; i++)
+                {
+                System.gc();
+                Thread.sleep(10);
+                }
+            assertEquals(0, m_container.getMappedMemory());
+            assertTrue(m_container.reserveMappedMemory(4096));
+            assertFalse(m_container.reserveMappedMemory(1));
+            m_container.releaseMappedMemory(4096);
+            }
+        finally
+            {
+            Files.delete(path);
+            }
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    /**
+     * Map the specified region of a file into a charged handle and return a copy of its bytes;
+     * the handle is not retained.
+     */
+    private byte[] readMapped(Path path, long of, int cb)
+            throws IOException
+        {
+        assertTrue(m_container.reserveMappedMemory(cb));
+
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+            {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, of, cb);
+            }
+
+        MappedHandle hMapped = m_template.makeHandle(m_container, buffer, true);
+        assertEquals(cb, m_container.getMappedMemory());
+        assertFalse(m_container.reserveMappedMemory(4096));
+        return m_template.getBytes(hMapped, 0, hMapped.m_cSize, false);
+        }
+
+    private static byte[] sequence(int cb)
+        {
+        byte[] ab = new byte[cb];
+        for (int i = 0; i < cb; i++)
+            {
+            ab[i] = (byte) i;
+            }
+        return ab;
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime           m_runtime;
+    private Container         m_container;
+    private xRTMappedDelegate m_template;
+    }
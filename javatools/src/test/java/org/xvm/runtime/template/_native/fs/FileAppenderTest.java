@@ -0,0 +1,309 @@
+package org.xvm.runtime.template._native.fs;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.Runtime;
+
+import org.xvm.runtime.template._native.fs.FileAppender.SyncPolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the FileAppender class.
+ */
+public class FileAppenderTest
+    {
+    @BeforeEach
+    public void setUp()
+            throws IOException
+        {
+        m_runtime   = new Runtime();
+        m_container = createContainer(m_runtime);
+        m_dir       = Files.createTempDirectory("appender");
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        for (File file : m_dir.toFile().listFiles())
+            {
+            file.delete();
+            }
+        m_dir.toFile().delete();
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void shouldAppendInOrder()
+            throws Exception
+        {
+        FileAppender appender = new FileAppender(SyncPolicy.Never, 0, 4);
+        Path         path     = m_dir.resolve("ordered.log");
+
+        // the appends from each thread are not awaited one by one, so they get batched
+        int                           cThreads = 4;
+        int                           cEach    = 500;
+        Thread[]                      aThread  = new Thread[cThreads];
+        List<CompletableFuture<Void>> listCf   = new ArrayList<>();
+        for (int i = 0; i < cThreads; i++)
+            {
+            int                           nThread    = i;
+            List<CompletableFuture<Void>> listThread = new ArrayList<>();
+            aThread[i] = new Thread(() ->
+                {
+                for (int j = 0; j < cEach; j++)
+                    {
+                    listThread.add(appender.append(m_container, path, bytes(nThread + ":" + j + "\n")));
+                    }
+                synchronized (listCf)
+                    {
+                    listCf.addAll(listThread);
+                    }
+                });
+            aThread[i].start();
+            }
+        for (Thread thread : aThread)
+            {
+            thread.join();
+            }
+        CompletableFuture.allOf(listCf.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        List<String> listLines = Files.readAllLines(path);
+        assertEquals(cThreads * cEach, listLines.size());
+
+        int[] anNext = new int[cThreads];
+        for (String sLine : listLines)
+            {
+            int nThread = Integer.parseInt(sLine.substring(0, sLine.indexOf(':')));
+            int n       = Integer.parseInt(sLine.substring(sLine.indexOf(':') + 1));
+            assertEquals(anNext[nThread]++, n);
+            }
+        for (int i = 0; i < cThreads; i++)
+            {
+            assertEquals(cEach, anNext[i]);
+            }
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        }
+
+    @Test
+    public void shouldNeverSync()
+            throws Exception
+        {
+        FileAppender appender = new FileAppender(SyncPolicy.Never, 0, 4);
+        Path         path     = m_dir.resolve("never.log");
+        for (int i = 0; i < 5; i++)
+            {
+            appender.append(m_container, path, bytes("x")).get(10, TimeUnit.SECONDS);
+            }
+        assertEquals("xxxxx", read(path));
+        assertEquals(0, appender.getSyncCount());
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        }
+
+    @Test
+    public void shouldAlwaysSync()
+            throws Exception
+        {
+        FileAppender appender = new FileAppender(SyncPolicy.Always, 0, 4);
+        Path         path     = m_dir.resolve("always.log");
+        for (int i = 0; i < 5; i++)
+            {
+            appender.append(m_container, path, bytes("x")).get(10, TimeUnit.SECONDS);
+            assertEquals(i + 1, appender.getSyncCount());
+            }
+        assertEquals("xxxxx", read(path));
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        }
+
+    @Test
+    public void shouldSyncAtInterval()
+            throws Exception
+        {
+        long         cIntervalMillis = 300;
+        FileAppender appender        = new FileAppender(SyncPolicy.Interval,
+                TimeUnit.MILLISECONDS.toNanos(cIntervalMillis), 4);
+        Path         path            = m_dir.resolve("interval.log");
+
+        // the very first append doesn't wait for the interval
+        long ldtStart = System.nanoTime();
+        appender.append(m_container, path, bytes("a")).get(10, TimeUnit.SECONDS);
+        long cFirstMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ldtStart);
+        assertTrue(cFirstMillis < cIntervalMillis, "first append took " + cFirstMillis + "ms");
+        assertEquals(1, appender.getSyncCount());
+
+        // the appends within the interval are written and synced as one batch, no sooner than
+        // the interval after the previous sync
+        long ldtSync = System.nanoTime();
+        List<CompletableFuture<Void>> listCf = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            {
+            listCf.add(appender.append(m_container, path, bytes("b")));
+            }
+        CompletableFuture.allOf(listCf.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        long cBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ldtSync);
+
+        assertEquals(2, appender.getSyncCount());
+        assertTrue(cBatchMillis >= cIntervalMillis - cFirstMillis - 20,
+                "batch took " + cBatchMillis + "ms");
+        assertEquals("abbbbb", read(path));
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        }
+
+    @Test
+    public void shouldCloseDuringDrain()
+            throws Exception
+        {
+        FileAppender appender = new FileAppender(SyncPolicy.Interval,
+                TimeUnit.MILLISECONDS.toNanos(300), 4);
+        Path         path     = m_dir.resolve("closed.log");
+
+        appender.append(m_container, path, bytes("a")).get(10, TimeUnit.SECONDS);
+
+        // this append is held by the log until the sync interval passes; the close must wait for
+        // it to be written, but not for the interval to pass
+        CompletableFuture<Void> cf = appender.append(m_container, path, bytes("b"));
+        long ldtStart = System.nanoTime();
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        long cCloseMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ldtStart);
+        assertTrue(cf.isDone());
+        assertTrue(cCloseMillis < 300, "close took " + cCloseMillis + "ms");
+        assertEquals("ab", read(path));
+
+        // the file is deleted after the close; the next append starts a new one
+        Files.delete(path);
+        appender.append(m_container, path, bytes("c")).get(10, TimeUnit.SECONDS);
+        assertEquals("c", read(path));
+
+        appender.closeAll(m_container, m_dir).get(10, TimeUnit.SECONDS);
+        appender.append(m_container, path, bytes("d")).get(10, TimeUnit.SECONDS);
+        assertEquals("cd", read(path));
+        appender.close(m_container, path).get(10, TimeUnit.SECONDS);
+        }
+
+    @Test
+    public void shouldCloseWithoutBlocking()
+            throws Exception
+        {
+        // a single IO thread, which is occupied by the task that closes the file
+        String sParallelism = System.getProperty("xvm.parallelism");
+        System.setProperty("xvm.parallelism", "1");
+        Runtime runtime = new Runtime();
+        if (sParallelism == null)
+            {
+            System.clearProperty("xvm.parallelism");
+            }
+        else
+            {
+            System.setProperty("xvm.parallelism", sParallelism);
+            }
+
+        try
+            {
+            Container    container = createContainer(runtime);
+            FileAppender appender  = new FileAppender(SyncPolicy.Never, 0, 4);
+            Path         path      = m_dir.resolve("single.log");
+
+            CountDownLatch latchAppended = new CountDownLatch(1);
+            CompletableFuture<CompletableFuture<Void>> cfTask = container.scheduleIO(() ->
+                {
+                latchAppended.await();
+                return appender.close(container, path);
+                });
+
+            // the drain for this append is queued behind the task above
+            CompletableFuture<Void> cfAppend = appender.append(container, path, bytes("a"));
+            latchAppended.countDown();
+
+            CompletableFuture<Void> cfClosed = cfTask.get(10, TimeUnit.SECONDS);
+            cfClosed.get(10, TimeUnit.SECONDS);
+            assertTrue(cfAppend.isDone());
+            assertEquals("a", read(path));
+            }
+        finally
+            {
+            runtime.shutdownXVM();
+            }
+        }
+
+    @Test
+    public void shouldEvictChannels()
+            throws Exception
+        {
+        FileAppender appender = new FileAppender(SyncPolicy.Never, 0, 1);
+        Path         path1    = m_dir.resolve("evict1.log");
+        Path         path2    = m_dir.resolve("evict2.log");
+
+        // each append to the other file evicts the channel of the previous one
+        for (int i = 0; i < 3; i++)
+            {
+            CompletableFuture<Void> cf1 = appender.append(m_container, path1, bytes("a"));
+            CompletableFuture<Void> cf2 = appender.append(m_container, path2, bytes("b"));
+            CompletableFuture.allOf(cf1, cf2).get(10, TimeUnit.SECONDS);
+            }
+        assertEquals("aaa", read(path1));
+        assertEquals("bbb", read(path2));
+        appender.closeAll(m_container, m_dir).get(10, TimeUnit.SECONDS);
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private static Container createContainer(Runtime runtime)
+        {
+        return new Container(runtime, null,
+                new FileStructure("test").getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+        }
+
+    private static byte[] bytes(String s)
+        {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+    private static String read(Path path)
+            throws IOException
+        {
+        return Files.readString(path, StandardCharsets.ISO_8859_1);
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime   m_runtime;
+    private Container m_container;
+    private Path      m_dir;
+    }
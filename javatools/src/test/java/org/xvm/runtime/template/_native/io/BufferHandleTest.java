@@ -0,0 +1,102 @@
+package org.xvm.runtime.template._native.io;
+
+
+import java.nio.ByteBuffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.TypeConstant;
+
+import org.xvm.runtime.Container;
+import org.xvm.runtime.Frame;
+import org.xvm.runtime.ObjectHandle;
+import org.xvm.runtime.Runtime;
+
+import org.xvm.runtime.template._native.io.xRawChannel.BufferHandle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the xRawChannel.BufferHandle class.
+ */
+public class BufferHandleTest
+    {
+    @BeforeEach
+    public void setUp()
+        {
+        m_runtime    = new Runtime();
+        m_container  = createContainer("owner");
+        m_container2 = createContainer("other");
+        }
+
+    @AfterEach
+    public void tearDown()
+        {
+        m_runtime.shutdownXVM();
+        }
+
+    @Test
+    public void shouldPassThroughOwningContainerOnly()
+        {
+        ChannelBufferPool pool    = new ChannelBufferPool(1024, 4 << 20);
+        BufferHandle      hBuffer = new BufferHandle(null, m_container, pool, pool.acquire());
+
+        // within a container (null) and into the owning one the buffer is passed by reference;
+        // any other container must get a copy
+        assertTrue(hBuffer.isPassThrough(null));
+        assertTrue(hBuffer.isPassThrough(m_container));
+        assertFalse(hBuffer.isPassThrough(m_container2));
+
+        hBuffer.release();
+        }
+
+    @Test
+    public void shouldReleaseOnLastReference()
+        {
+        ChannelBufferPool pool    = new ChannelBufferPool(1024, 4 << 20);
+        ByteBuffer        buf     = pool.acquire();
+        BufferHandle      hBuffer = new BufferHandle(null, m_container, pool, buf);
+        assertEquals(1, pool.getConsumedBuffers());
+
+        assertTrue(hBuffer.addRef());
+        hBuffer.release();
+        assertEquals(1, pool.getConsumedBuffers());
+        assertEquals(1024, hBuffer.getBuffer().remaining());
+
+        hBuffer.release();
+        assertEquals(0, pool.getConsumedBuffers());
+        assertEquals(0, hBuffer.getBuffer().remaining());
+        assertFalse(hBuffer.addRef());
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private Container createContainer(String sModule)
+        {
+        return new Container(m_runtime, null,
+                new FileStructure(sModule).getModule().getIdentityConstant())
+            {
+            @Override
+            public ObjectHandle getInjectable(Frame frame, String sName, TypeConstant type,
+                                              ObjectHandle hOpts)
+                {
+                return null;
+                }
+            };
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private Runtime   m_runtime;
+    private Container m_container;
+    private Container m_container2;
+    }
@@ -0,0 +1,79 @@
+package org.xvm.runtime.template._native.io;
+
+
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the ChannelBufferPool class.
+ */
+public class ChannelBufferPoolTest
+    {
+    @Test
+    public void shouldCarveBuffersOutOfSlabs()
+        {
+        ChannelBufferPool pool = new ChannelBufferPool(1024, 4 << 20);
+
+        ByteBuffer buf = pool.acquire();
+        assertTrue(buf.isDirect());
+        assertEquals(1024, buf.capacity());
+        assertEquals(1024, buf.remaining());
+
+        // the whole 1MB slab has been allocated at once
+        assertEquals(1024, pool.getTotalBuffers());
+        assertEquals(1 << 20, pool.getTotalBytes());
+        assertEquals(1, pool.getConsumedBuffers());
+        assertEquals(1024, pool.getConsumedBytes());
+
+        pool.release(buf.position(10));
+        assertEquals(0, pool.getConsumedBuffers());
+        assertEquals(1024, pool.getTotalBuffers());
+        }
+
+    @Test
+    public void shouldEnforceCapacityLimit()
+        {
+        ChannelBufferPool pool = new ChannelBufferPool(1024, 3 * 1024 + 100);
+        assertEquals(3 * 1024, pool.getCapacityLimit());
+
+        List<ByteBuffer> listBuf = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            {
+            ByteBuffer buf = pool.acquire();
+            assertNotNull(buf);
+            listBuf.add(buf);
+            }
+        assertNull(pool.acquire());
+        assertEquals(3, pool.getTotalBuffers());
+
+        // a returned buffer is reused and cleared
+        ByteBuffer buf = listBuf.remove(0);
+        buf.put((byte) 1);
+        pool.release(buf);
+
+        ByteBuffer bufNext = pool.acquire();
+        assertSame(buf, bufNext);
+        assertEquals(0, bufNext.position());
+        assertEquals(3, pool.getTotalBuffers());
+        assertNull(pool.acquire());
+        }
+
+    @Test
+    public void shouldRejectInvalidSizes()
+        {
+        assertThrows(IllegalArgumentException.class, () -> new ChannelBufferPool(0, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new ChannelBufferPool(1024, 1000));
+        }
+    }
@@ -0,0 +1,177 @@
+package org.xvm.runtime.template._native.web;
+
+
+import java.io.ByteArrayOutputStream;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+/**
+ * Tests of the Hpack class, using the examples from RFC 7541 appendix C.
+ */
+public class HpackTest
+    {
+    @Test
+    public void shouldDecodeRequestsWithoutHuffman()
+            throws Exception
+        {
+        // RFC 7541 C.3
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+        assertEquals(List.of(":method", "GET", ":scheme", "http", ":path", "/",
+                             ":authority", "www.example.com"),
+                decode(decoder, "828684410f7777772e6578616d706c652e636f6d"));
+        assertEquals(57, decoder.getTableSize());
+
+        assertEquals(List.of(":method", "GET", ":scheme", "http", ":path", "/",
+                             ":authority", "www.example.com", "cache-control", "no-cache"),
+                decode(decoder, "828684be58086e6f2d6361636865"));
+        assertEquals(110, decoder.getTableSize());
+
+        assertEquals(List.of(":method", "GET", ":scheme", "https", ":path", "/index.html",
+                             ":authority", "www.example.com", "custom-key", "custom-value"),
+                decode(decoder, "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565"));
+        assertEquals(164, decoder.getTableSize());
+        }
+
+    @Test
+    public void shouldDecodeRequestsWithHuffman()
+            throws Exception
+        {
+        // RFC 7541 C.4
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+        assertEquals(List.of(":method", "GET", ":scheme", "http", ":path", "/",
+                             ":authority", "www.example.com"),
+                decode(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff"));
+
+        assertEquals(List.of(":method", "GET", ":scheme", "http", ":path", "/",
+                             ":authority", "www.example.com", "cache-control", "no-cache"),
+                decode(decoder, "828684be5886a8eb10649cbf"));
+
+        assertEquals(List.of(":method", "GET", ":scheme", "https", ":path", "/index.html",
+                             ":authority", "www.example.com", "custom-key", "custom-value"),
+                decode(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf"));
+        assertEquals(164, decoder.getTableSize());
+        }
+
+    @Test
+    public void shouldEvictFromSmallTable()
+            throws Exception
+        {
+        // RFC 7541 C.5: the responses with a 256 byte table
+        Hpack.Decoder decoder = new Hpack.Decoder(256);
+
+        decode(decoder, "4803333032580770726976617465611d4d6f6e2c203231204f637420323031332032"
+                      + "303a31333a323120474d546e1768747470733a2f2f7777772e6578616d706c652e636f6d");
+        assertEquals(222, decoder.getTableSize());
+
+        assertEquals(List.of(":status", "307", "cache-control", "private",
+                             "date", "Mon, 21 Oct 2013 20:13:21 GMT",
+                             "location", "https://www.example.com"),
+                decode(decoder, "4803333037c1c0bf"));
+        assertEquals(222, decoder.getTableSize());
+        }
+
+    @Test
+    public void shouldEncodeRequestsWithHuffman()
+        {
+        // RFC 7541 C.4: the encoder is expected to make the same choices as the example
+        Hpack.Encoder         encoder = new Hpack.Encoder();
+        ByteArrayOutputStream out     = new ByteArrayOutputStream();
+
+        encode(encoder, out, ":method", "GET", ":scheme", "http", ":path", "/",
+               ":authority", "www.example.com");
+        assertEquals("828684418cf1e3c2e5f23a6ba0ab90f4ff", HexFormat.of().formatHex(out.toByteArray()));
+
+        out.reset();
+        encode(encoder, out, ":method", "GET", ":scheme", "http", ":path", "/",
+               ":authority", "www.example.com", "cache-control", "no-cache");
+        assertEquals("828684be5886a8eb10649cbf", HexFormat.of().formatHex(out.toByteArray()));
+        }
+
+    @Test
+    public void shouldRoundTrip()
+            throws Exception
+        {
+        Hpack.Encoder encoder = new Hpack.Encoder();
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+        String[] asFields = {":status", "200", "set-cookie", "a=b", "date", "Mon, 21 Oct 2013",
+                             "x-custom", "été", "content-type", "text/plain"};
+        for (int i = 0; i < 3; i++)
+            {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            encode(encoder, out, asFields);
+            assertEquals(List.of(asFields), decode(decoder, HexFormat.of().formatHex(out.toByteArray())));
+            }
+
+        // the table size changes are signalled at the start of the next block
+        encoder.setMaxTableSize(0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(encoder, out, asFields);
+        assertEquals(List.of(asFields), decode(decoder, HexFormat.of().formatHex(out.toByteArray())));
+        assertEquals(0, decoder.getTableSize());
+        }
+
+    @Test
+    public void shouldRejectInvalidBlocks()
+        {
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+        // index 0, an index beyond the tables, a truncated string and a size update over the limit
+        assertThrows(Hpack.CompressionException.class, () -> decode(decoder, "80"));
+        assertThrows(Hpack.CompressionException.class, () -> decode(decoder, "ff00"));
+        assertThrows(Hpack.CompressionException.class, () -> decode(decoder, "400a6375"));
+        assertThrows(Hpack.CompressionException.class, () -> decode(decoder, "3fe21f"));
+        }
+
+    @Test
+    public void shouldCodeHuffman()
+            throws Exception
+        {
+        byte[] ab = new byte[256];
+        for (int i = 0; i < ab.length; i++)
+            {
+            ab[i] = (byte) i;
+            }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Hpack.huffmanEncode(out, ab);
+        assertEquals(Hpack.huffmanLength(ab), out.size());
+        assertEquals(new String(ab, StandardCharsets.ISO_8859_1),
+                Hpack.huffmanDecode(out.toByteArray(), 0, out.size()));
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private static List<String> decode(Hpack.Decoder decoder, String sHex)
+            throws Hpack.CompressionException
+        {
+        List<String> list = new ArrayList<>();
+        decoder.decode(HexFormat.of().parseHex(sHex), (sName, sValue) ->
+            {
+            list.add(sName);
+            list.add(sValue);
+            });
+        return list;
+        }
+
+    private static void encode(Hpack.Encoder encoder, ByteArrayOutputStream out, String... asField)
+        {
+        for (int i = 0; i < asField.length; i += 2)
+            {
+            encoder.encode(out, asField[i], asField[i + 1]);
+            }
+        }
+    }
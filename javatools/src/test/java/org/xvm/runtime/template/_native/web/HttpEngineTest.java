@@ -0,0 +1,776 @@
+package org.xvm.runtime.template._native.web;
+
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the HttpEngine class.
+ * <p>
+ * The {@link #main} method runs a simple load generator against the HttpEngine and the JDK's
+ * HttpServer (previously used by the xRTServer): a number of concurrent keep-alive connections,
+ * each sending requests back to back.
+ */
+public class HttpEngineTest
+    {
+    public static void main(String[] args)
+            throws Exception
+        {
+        int cConnections = 10_000;
+        int cSeconds     = 10;
+        if (args != null && args.length > 0)
+            {
+            cConnections = Integer.parseInt(args[0]);
+            }
+
+        byte[] abBody = "Hello, World!".getBytes(StandardCharsets.ISO_8859_1);
+        for (int iIter = 0; iIter < 2; iIter++)
+            {
+            HttpServer server = HttpServer.create(new InetSocketAddress(LOOPBACK, 0), 1024);
+            server.setExecutor(Executors.newCachedThreadPool(r ->
+                {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                return thread;
+                }));
+            server.createContext("/", exchange ->
+                {
+                exchange.getRequestBody().readAllBytes();
+                exchange.sendResponseHeaders(200, abBody.length);
+                try (OutputStream out = exchange.getResponseBody())
+                    {
+                    out.write(abBody);
+                    }
+                });
+            server.start();
+            report("com.sun HttpServer", server.getAddress().getPort(), cConnections, cSeconds);
+            server.stop(0);
+
+            HttpEngine engine = new HttpEngine(new InetSocketAddress(LOOPBACK, 0), null,
+                    exchange -> exchange.sendResponse(200, abBody));
+            engine.start();
+            report("HttpEngine        ", engine.getAddress().getPort(), cConnections, cSeconds);
+            engine.close();
+            }
+        }
+
+    /**
+     * Run the specified number of keep-alive connections for the specified time.
+     */
+    private static void report(String sName, int nPort, int cConnections, int cSeconds)
+            throws InterruptedException
+        {
+        byte[]         abRequest = ("GET /hello HTTP/1.1\r\nHost: localhost:" + nPort + "\r\n\r\n")
+                                        .getBytes(StandardCharsets.ISO_8859_1);
+        AtomicLong     cRequests = new AtomicLong();
+        AtomicLong     cErrors   = new AtomicLong();
+        CountDownLatch latch     = new CountDownLatch(cConnections);
+        long           ldtStop   = System.nanoTime() + TimeUnit.SECONDS.toNanos(cSeconds);
+        long           ldtStart  = System.nanoTime();
+
+        for (int i = 0; i < cConnections; i++)
+            {
+            Thread.ofVirtual().start(() ->
+                {
+                try (Socket socket = new Socket(LOOPBACK, nPort))
+                    {
+                    InputStream  in  = socket.getInputStream();
+                    OutputStream out = socket.getOutputStream();
+                    while (System.nanoTime() < ldtStop)
+                        {
+                        out.write(abRequest);
+                        readResponse(in);
+                        cRequests.incrementAndGet();
+                        }
+                    }
+                catch (IOException e)
+                    {
+                    cErrors.incrementAndGet();
+                    }
+                finally
+                    {
+                    latch.countDown();
+                    }
+                });
+            }
+        latch.await();
+
+        long cMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ldtStart);
+        System.out.printf("%s: %,d connections; %,d requests/sec; %,d failed connections%n",
+                sName, cConnections, cRequests.get() * 1000 / cMillis, cErrors.get());
+        }
+
+    @Test
+    public void shouldKeepAliveAndPipeline()
+            throws Exception
+        {
+        // respond to the pipelined requests in the reverse order; the responses must still come
+        // back in the request order
+        BlockingQueue<HttpExchange> queue  = new LinkedBlockingQueue<>();
+        HttpEngine                  engine = startEngine(queue::add, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET /a HTTP/1.1\r\nHost: test\r\n\r\n"
+                       + "GET /b HTTP/1.1\r\nHost: test\r\n\r\n");
+
+            HttpExchange exchangeA = queue.poll(10, TimeUnit.SECONDS);
+            HttpExchange exchangeB = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(exchangeA);
+            assertNotNull(exchangeB);
+            assertEquals("/a", exchangeA.getRequestURI());
+            assertEquals("test", exchangeB.getRequestHeaders().getFirst("host"));
+
+            exchangeB.sendResponse(200, bytes("b"));
+            exchangeA.getResponseHeaders().add("X-Test", "1");
+            exchangeA.sendResponse(200, bytes("a"));
+
+            Response responseA = readResponse(socket.getInputStream());
+            Response responseB = readResponse(socket.getInputStream());
+            assertEquals("a", responseA.sBody);
+            assertTrue(responseA.sHead.contains("X-test: 1"));
+            assertEquals("b", responseB.sBody);
+
+            // the connection is still usable
+            send(socket, "GET /c HTTP/1.1\r\nHost: test\r\n\r\n");
+            queue.poll(10, TimeUnit.SECONDS).sendResponse(204, null);
+            assertTrue(readResponse(socket.getInputStream()).sHead.startsWith("HTTP/1.1 204"));
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldRespondToHandlerFailure()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange ->
+            {
+            if (exchange.getRequestURI().equals("/fail"))
+                {
+                throw new IllegalStateException("test");
+                }
+            exchange.sendResponse(200, bytes("ok"));
+            }, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET /fail HTTP/1.1\r\nHost: test\r\n\r\n"
+                       + "GET /ok HTTP/1.1\r\nHost: test\r\n\r\n");
+
+            assertTrue(readResponse(socket.getInputStream()).sHead.startsWith("HTTP/1.1 500"));
+            assertEquals("ok", readResponse(socket.getInputStream()).sBody);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldIdentifyConnections()
+            throws Exception
+        {
+        // the handler shards in xRTServer rely on the requests from the same connection having
+        // the same id, and the consecutive connections having different ids
+        BlockingQueue<HttpExchange> queue  = new LinkedBlockingQueue<>();
+        HttpEngine                  engine = startEngine(queue::add, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket1 = connect(engine); Socket socket2 = connect(engine))
+            {
+            send(socket1, "GET /a HTTP/1.1\r\nHost: test\r\n\r\n"
+                        + "GET /b HTTP/1.1\r\nHost: test\r\n\r\n");
+            HttpExchange exchangeA = queue.poll(10, TimeUnit.SECONDS);
+            HttpExchange exchangeB = queue.poll(10, TimeUnit.SECONDS);
+
+            send(socket2, "GET /c HTTP/1.1\r\nHost: test\r\n\r\n");
+            HttpExchange exchangeC = queue.poll(10, TimeUnit.SECONDS);
+
+            assertEquals(exchangeA.getConnectionId(), exchangeB.getConnectionId());
+            assertNotEquals(exchangeA.getConnectionId(), exchangeC.getConnectionId());
+
+            exchangeA.sendResponse(204, null);
+            exchangeB.sendResponse(204, null);
+            exchangeC.sendResponse(204, null);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldSpreadConnectionsAcrossShards()
+            throws Exception
+        {
+        // each xRTServer handler shard posts the requests to its own HandlerWrapper service, which
+        // wraps its own Handler; record which shard each request has been handed to
+        int                                             cShards = 2;
+        BlockingQueue<Map.Entry<Integer, HttpExchange>> queue   = new LinkedBlockingQueue<>();
+        xRTServer.RequestHandler[]                      aShard  = new xRTServer.RequestHandler[cShards];
+        for (int i = 0; i < cShards; i++)
+            {
+            int iShard = i;
+            aShard[i] = new xRTServer.RequestHandler(null, null, null)
+                {
+                @Override
+                public void handle(HttpExchange exchange)
+                    {
+                    queue.add(Map.entry(iShard, exchange));
+                    }
+                };
+            }
+
+        xRTServer.Router router = new xRTServer.Router();
+        router.mapRoutes.put("test", new xRTServer.RouteInfo(aShard, null, null));
+
+        HttpEngine engine = startEngine(router, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket1 = connect(engine); Socket socket2 = connect(engine))
+            {
+            Map<Integer, Integer> mapShardByConnection = new HashMap<>();
+            for (Socket socket : new Socket[] {socket1, socket2})
+                {
+                send(socket, "GET /a HTTP/1.1\r\nHost: test\r\n\r\n"
+                           + "GET /b HTTP/1.1\r\nHost: test\r\n\r\n");
+                for (int i = 0; i < 2; i++)
+                    {
+                    Map.Entry<Integer, HttpExchange> entry = queue.poll(10, TimeUnit.SECONDS);
+                    assertNotNull(entry);
+
+                    // the requests from the same connection are handled by the same shard
+                    Integer iPrev = mapShardByConnection.put(
+                            entry.getValue().getConnectionId(), entry.getKey());
+                    assertTrue(iPrev == null || iPrev.equals(entry.getKey()));
+                    entry.getValue().sendResponse(204, null);
+                    }
+                }
+
+            // the two connections are handled by two different shards
+            assertEquals(2, mapShardByConnection.size());
+            assertEquals(cShards, new HashSet<>(mapShardByConnection.values()).size());
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldReadRequestBodies()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange -> exchange.getRequestBody().readAll()
+                .thenAccept(ab -> exchange.sendResponse(200, ab)), HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "POST / HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello"
+                       + "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n"
+                       + "3;ext=1\r\nabc\r\n10\r\n0123456789abcdef\r\n0\r\nTrailer: x\r\n\r\n");
+
+            assertEquals("hello", readResponse(socket.getInputStream()).sBody);
+            assertEquals("abc0123456789abcdef", readResponse(socket.getInputStream()).sBody);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldStreamRequestBodies()
+            throws Exception
+        {
+        // the handler reads the body one portion at a time and responds with the portion count
+        // and the total size
+        HttpEngine engine = startEngine(exchange ->
+                readChunks(exchange.getRequestBody(), new long[2]).thenAccept(acb ->
+                        exchange.sendResponse(200, bytes(acb[0] + ":" + acb[1]))),
+                HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            int cbBody = 4 * RequestBody.MAX_QUEUED + 7;
+            send(socket, "POST / HTTP/1.1\r\nContent-Length: " + cbBody + "\r\n\r\n");
+
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[cbBody]);
+            out.flush();
+
+            String[] asResult = readResponse(socket.getInputStream()).sBody.split(":");
+            assertTrue(Integer.parseInt(asResult[0]) > 1);
+            assertEquals(cbBody, Integer.parseInt(asResult[1]));
+
+            // the connection is still usable
+            send(socket, "POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n0\r\n\r\n");
+            assertEquals("1:5", readResponse(socket.getInputStream()).sBody);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldDiscardUnreadRequestBodies()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange -> exchange.sendResponse(200, bytes("ok")),
+                HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            int cbBody = 4 * RequestBody.MAX_QUEUED;
+            send(socket, "POST / HTTP/1.1\r\nContent-Length: " + cbBody + "\r\n\r\n");
+            socket.getOutputStream().write(new byte[cbBody]);
+            send(socket, "GET / HTTP/1.1\r\n\r\n");
+
+            assertEquals("ok", readResponse(socket.getInputStream()).sBody);
+            assertEquals("ok", readResponse(socket.getInputStream()).sBody);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldStreamResponseBodies()
+            throws Exception
+        {
+        // the body is produced by a separate thread that waits for the connection to catch up
+        int        cChunks = 64;
+        byte[]     abChunk = new byte[16 * 1024];
+        HttpEngine engine  = startEngine(exchange ->
+            {
+            String sLength = exchange.getRequestHeaders().getFirst("X-Length");
+            if (sLength != null)
+                {
+                exchange.getResponseHeaders().add("Content-Length", sLength);
+                }
+            ResponseBody body = exchange.startResponse(200);
+            Thread.ofVirtual().start(() ->
+                {
+                for (int i = 0; i < cChunks; i++)
+                    {
+                    body.write(abChunk).join();
+                    }
+                body.end();
+                });
+            }, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            InputStream in = socket.getInputStream();
+
+            // chunked
+            send(socket, "GET / HTTP/1.1\r\n\r\n");
+            Response response = readResponse(in);
+            assertTrue(response.sHead.contains("Transfer-Encoding: chunked"));
+            long cbTotal = 0;
+            while (true)
+                {
+                int cb = Integer.parseInt(readLine(in), 16);
+                if (cb == 0)
+                    {
+                    assertEquals("", readLine(in));
+                    break;
+                    }
+                cbTotal += in.readNBytes(cb).length;
+                assertEquals("", readLine(in));
+                }
+            assertEquals(cChunks * abChunk.length, cbTotal);
+
+            // the explicit Content-Length
+            int cbBody = cChunks * abChunk.length;
+            send(socket, "GET / HTTP/1.1\r\nX-Length: " + cbBody + "\r\n\r\n");
+            assertEquals(cbBody, readResponse(in).sBody.length());
+            }
+
+        try (Socket socket = connect(engine))
+            {
+            // HTTP/1.0 has no chunked coding; the body is delimited by closing the connection
+            send(socket, "GET / HTTP/1.0\r\n\r\n");
+            InputStream in = socket.getInputStream();
+            readResponse(in);
+            assertEquals(cChunks * abChunk.length, in.readAllBytes().length);
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldCloseWhenAsked()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange -> exchange.sendResponse(200, bytes("ok")),
+                HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET / HTTP/1.1\r\nConnection: close\r\n\r\n");
+
+            Response response = readResponse(socket.getInputStream());
+            assertTrue(response.sHead.contains("Connection: close"));
+            assertEquals(-1, socket.getInputStream().read());
+            }
+
+        try (Socket socket = connect(engine))
+            {
+            // HTTP/1.0 is not persistent by default
+            send(socket, "GET / HTTP/1.0\r\n\r\n");
+
+            assertEquals("ok", readResponse(socket.getInputStream()).sBody);
+            assertEquals(-1, socket.getInputStream().read());
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldRejectMalformedRequests()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange -> exchange.sendResponse(200, null),
+                HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET /\r\n\r\n");
+
+            assertTrue(readResponse(socket.getInputStream()).sHead.startsWith("HTTP/1.1 400"));
+            assertEquals(-1, socket.getInputStream().read());
+            }
+
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET / HTTP/1.1\r\nX-Long: " + "x".repeat(HttpEngine.READ_BUFFER_SIZE));
+
+            assertTrue(readResponse(socket.getInputStream()).sHead.startsWith("HTTP/1.1 431"));
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldMultiplexHttp2Streams()
+            throws Exception
+        {
+        // h2c with prior knowledge: two concurrent streams, answered in the reverse order
+        BlockingQueue<HttpExchange> queue  = new LinkedBlockingQueue<>();
+        HttpEngine                  engine = startEngine(queue::add, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            Hpack.Encoder         encoder = new Hpack.Encoder();
+            ByteArrayOutputStream out     = new ByteArrayOutputStream();
+            out.writeBytes(Http2Connection.PREFACE);
+            out.writeBytes(Http2Connection.frame(Http2Connection.SETTINGS, 0, 0, new byte[0]));
+            out.writeBytes(Http2Connection.frame(Http2Connection.HEADERS,
+                    Http2Connection.FLAG_END_HEADERS | Http2Connection.FLAG_END_STREAM, 1,
+                    headerBlock(encoder, "GET", "/a")));
+            out.writeBytes(Http2Connection.frame(Http2Connection.HEADERS,
+                    Http2Connection.FLAG_END_HEADERS, 3, headerBlock(encoder, "POST", "/b")));
+            out.writeBytes(Http2Connection.frame(Http2Connection.DATA,
+                    Http2Connection.FLAG_END_STREAM, 3, bytes("hello")));
+            socket.getOutputStream().write(out.toByteArray());
+
+            HttpExchange exchangeA = queue.poll(10, TimeUnit.SECONDS);
+            HttpExchange exchangeB = queue.poll(10, TimeUnit.SECONDS);
+            assertNotNull(exchangeA);
+            assertNotNull(exchangeB);
+            assertEquals("HTTP/2", exchangeA.getProtocol());
+            assertEquals("/a", exchangeA.getRequestURI());
+            assertEquals("test", exchangeA.getRequestHeaders().getFirst("Host"));
+            assertEquals(1, exchangeA.getStreamId());
+            assertEquals(3, exchangeB.getStreamId());
+            assertEquals(exchangeA.getConnectionId(), exchangeB.getConnectionId());
+            assertEquals("hello", new String(
+                    exchangeB.getRequestBody().readAll().get(10, TimeUnit.SECONDS),
+                    StandardCharsets.ISO_8859_1));
+
+            exchangeB.sendResponse(201, bytes("b"));
+            exchangeA.getResponseHeaders().add("X-Test", "1");
+            exchangeA.sendResponse(200, bytes("a"));
+
+            // collect the responses by the stream id
+            Hpack.Decoder        decoder      = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+            DataInputStream      in           = new DataInputStream(socket.getInputStream());
+            Map<Integer, String> mapResponses = new HashMap<>();
+            for (int cEnded = 0; cEnded < 2; )
+                {
+                int    cb     = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+                int    nType  = in.readUnsignedByte();
+                int    nFlags = in.readUnsignedByte();
+                int    nId    = in.readInt();
+                byte[] ab     = in.readNBytes(cb);
+                if (nType == Http2Connection.HEADERS)
+                    {
+                    StringBuilder sb = new StringBuilder();
+                    decoder.decode(ab, (sName, sValue) ->
+                            sb.append(sName).append(": ").append(sValue).append('\n'));
+                    mapResponses.merge(nId, sb.toString(), String::concat);
+                    }
+                else if (nType == Http2Connection.DATA)
+                    {
+                    mapResponses.merge(nId, new String(ab, StandardCharsets.ISO_8859_1), String::concat);
+                    }
+                else
+                    {
+                    continue;
+                    }
+
+                if ((nFlags & Http2Connection.FLAG_END_STREAM) != 0)
+                    {
+                    cEnded++;
+                    }
+                }
+
+            assertTrue(mapResponses.get(1).startsWith(":status: 200\nx-test: 1\n"));
+            assertTrue(mapResponses.get(1).endsWith("content-length: 1\na"));
+            assertTrue(mapResponses.get(3).startsWith(":status: 201\n"));
+            assertTrue(mapResponses.get(3).endsWith("b"));
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldRespondToHandlerFailureHttp2()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange ->
+            {
+            if (exchange.getRequestURI().equals("/fail"))
+                {
+                throw new IllegalStateException("test");
+                }
+            exchange.sendResponse(200, bytes("ok"));
+            }, HttpEngine.IDLE_TIMEOUT);
+        try (Socket socket = connect(engine))
+            {
+            Hpack.Encoder         encoder = new Hpack.Encoder();
+            ByteArrayOutputStream out     = new ByteArrayOutputStream();
+            out.writeBytes(Http2Connection.PREFACE);
+            out.writeBytes(Http2Connection.frame(Http2Connection.SETTINGS, 0, 0, new byte[0]));
+            out.writeBytes(Http2Connection.frame(Http2Connection.HEADERS,
+                    Http2Connection.FLAG_END_HEADERS | Http2Connection.FLAG_END_STREAM, 1,
+                    headerBlock(encoder, "GET", "/fail")));
+            out.writeBytes(Http2Connection.frame(Http2Connection.HEADERS,
+                    Http2Connection.FLAG_END_HEADERS | Http2Connection.FLAG_END_STREAM, 3,
+                    headerBlock(encoder, "GET", "/ok")));
+            socket.getOutputStream().write(out.toByteArray());
+
+            // the failed stream is answered with 500 and the connection stays usable
+            Hpack.Decoder        decoder      = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+            DataInputStream      in           = new DataInputStream(socket.getInputStream());
+            Map<Integer, String> mapResponses = new HashMap<>();
+            for (int cEnded = 0; cEnded < 2; )
+                {
+                int    cb     = in.readUnsignedByte() << 16 | in.readUnsignedShort();
+                int    nType  = in.readUnsignedByte();
+                int    nFlags = in.readUnsignedByte();
+                int    nId    = in.readInt();
+                byte[] ab     = in.readNBytes(cb);
+                if (nType == Http2Connection.HEADERS)
+                    {
+                    StringBuilder sb = new StringBuilder();
+                    decoder.decode(ab, (sName, sValue) ->
+                            sb.append(sName).append(": ").append(sValue).append('\n'));
+                    mapResponses.merge(nId, sb.toString(), String::concat);
+                    }
+                else if (nType == Http2Connection.DATA)
+                    {
+                    mapResponses.merge(nId, new String(ab, StandardCharsets.ISO_8859_1), String::concat);
+                    }
+                else
+                    {
+                    assertNotEquals(Http2Connection.GOAWAY, nType);
+                    continue;
+                    }
+
+                if ((nFlags & Http2Connection.FLAG_END_STREAM) != 0)
+                    {
+                    cEnded++;
+                    }
+                }
+
+            assertTrue(mapResponses.get(1).startsWith(":status: 500\n"));
+            assertTrue(mapResponses.get(3).startsWith(":status: 200\n"));
+            assertTrue(mapResponses.get(3).endsWith("ok"));
+            }
+        finally
+            {
+            engine.close();
+            }
+        }
+
+    @Test
+    public void shouldCloseIdleConnections()
+            throws Exception
+        {
+        HttpEngine engine = startEngine(exchange -> exchange.sendResponse(200, null), 200);
+        try (Socket socket = connect(engine))
+            {
+            send(socket, "GET / HTTP/1.1\r\n\r\n");
+            readResponse(socket.getInputStream());
+
+            socket.setSoTimeout(10_000);
+            assertEquals(-1, socket.getInputStream().read());
+            }
+        finally
+            {
+            engine.close();
+            }
+
+        for (int i = 0; i < 100 && engine.getConnectionCount() > 0; i++)
+            {
+            Thread.sleep(10);
+            }
+        assertEquals(0, engine.getConnectionCount());
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private static HttpEngine startEngine(HttpEngine.Handler handler, long cIdleMillis)
+            throws IOException
+        {
+        HttpEngine engine = new HttpEngine(new InetSocketAddress(LOOPBACK, 0), null, handler,
+                cIdleMillis);
+        engine.start();
+        return engine;
+        }
+
+    private static Socket connect(HttpEngine engine)
+            throws IOException
+        {
+        Socket socket = new Socket(LOOPBACK, engine.getAddress().getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+        }
+
+    private static void send(Socket socket, String sRequest)
+            throws IOException
+        {
+        socket.getOutputStream().write(bytes(sRequest));
+        socket.getOutputStream().flush();
+        }
+
+    private static byte[] bytes(String s)
+        {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+    private static byte[] headerBlock(Hpack.Encoder encoder, String sMethod, String sPath)
+        {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(out, ":method", sMethod);
+        encoder.encode(out, ":scheme", "http");
+        encoder.encode(out, ":path", sPath);
+        encoder.encode(out, ":authority", "test");
+        return out.toByteArray();
+        }
+
+    /**
+     * Read a response that has a Content-Length (or no body at all).
+     */
+    private static Response readResponse(InputStream in)
+            throws IOException
+        {
+        ByteArrayOutputStream out   = new ByteArrayOutputStream();
+        int                   nLast = 0;
+        while (nLast != 0x0D0A0D0A)
+            {
+            int b = in.read();
+            if (b < 0)
+                {
+                throw new IOException("unexpected end of stream: " + out);
+                }
+            out.write(b);
+            nLast = nLast << 8 | b;
+            }
+
+        String sHead  = out.toString(StandardCharsets.ISO_8859_1);
+        int    cbBody = 0;
+        for (String sLine : sHead.split("\r\n"))
+            {
+            if (sLine.regionMatches(true, 0, "Content-Length:", 0, 15))
+                {
+                cbBody = Integer.parseInt(sLine.substring(15).trim());
+                }
+            }
+        return new Response(sHead, new String(in.readNBytes(cbBody), StandardCharsets.ISO_8859_1));
+        }
+
+    private static String readLine(InputStream in)
+            throws IOException
+        {
+        StringBuilder sb = new StringBuilder();
+        for (int b; (b = in.read()) != '\n'; )
+            {
+            if (b < 0)
+                {
+                throw new IOException("unexpected end of stream");
+                }
+            if (b != '\r')
+                {
+                sb.append((char) b);
+                }
+            }
+        return sb.toString();
+        }
+
+    /**
+     * Read the body one portion at a time, counting the portions and the bytes.
+     */
+    private static CompletableFuture<long[]> readChunks(RequestBody body, long[] acb)
+        {
+        return body.read().thenCompose(ab ->
+            {
+            if (ab == null)
+                {
+                return CompletableFuture.completedFuture(acb);
+                }
+            acb[0]++;
+            acb[1] += ab.length;
+            return readChunks(body, acb);
+            });
+        }
+
+    private record Response(String sHead, String sBody) {}
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+    }
@@ -0,0 +1,149 @@
+package org.xvm.runtime.template.text;
+
+
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import org.xvm.runtime.template.text.xString.StringHandle;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+
+/**
+ * Tests of the String-backed StringHandle.
+ */
+public class StringHandleTest
+    {
+    @Test
+    public void shouldKeepHashValues()
+        {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 300; i++)
+            {
+            String s = sb.toString();
+            assertEquals(hashChars(s.toCharArray()), handle(s).calcHashCode(), s);
+
+            sb.append((char) (i % 3 == 0 ? 'a' + i % 26 : i % 3 == 1 ? 0xE0 + i % 16 : 0x3B1 + i % 24));
+            }
+        }
+
+    @Test
+    public void shouldCompareByValue()
+        {
+        StringHandle h1 = handle("café");
+        StringHandle h2 = handle(new String(new char[] {'c', 'a', 'f', 'é'}));
+        StringHandle h3 = handle("cafε");
+
+        assertEquals(h1, h2);
+        assertEquals(h1.calcHashCode(), h2.calcHashCode());
+        assertNotEquals(h1, h3);
+        assertEquals(4, h3.length());
+        assertEquals('ε', h3.charAt(3));
+        }
+
+    @Test
+    public void shouldCopyChars()
+        {
+        StringHandle h   = handle("abc");
+        char[]       ach = h.getValue();
+
+        assertArrayEquals(new char[] {'a', 'b', 'c'}, ach);
+
+        ach[0] = 'x';
+        assertEquals("abc", h.getStringValue());
+        assertNotSame(ach, h.getValue());
+        }
+
+
+    // ----- heap usage ----------------------------------------------------------------------------
+
+    /**
+     * Compare the heap used by the values of a number of ASCII strings in the former StringHandle
+     * storage (a char[], plus the String that was cached once it was asked for) with the compact
+     * java.lang.String storage; the handles themselves are of the same size either way.
+     *
+     * @param args  the number of strings and their length
+     */
+    public static void main(String[] args)
+        {
+        int cStrings = args != null && args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int cch      = args != null && args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        String[] as = new String[cStrings];
+        for (int i = 0; i < cStrings; i++)
+            {
+            StringBuilder sb = new StringBuilder(cch).append(i);
+            while (sb.length() < cch)
+                {
+                sb.append((char) ('a' + sb.length() % 26));
+                }
+            as[i] = sb.toString();
+            }
+
+        long cbChars  = measure(as, s -> s.toCharArray());
+        long cbCached = measure(as, s -> new Object[] {s.toCharArray(), new String(s.toCharArray())});
+        long cbString = measure(as, s -> handle(new String(s.toCharArray())).getStringValue());
+
+        System.out.printf("%,d strings of %d chars: char[] %,d bytes; char[] and cached String %,d bytes;"
+                + " String %,d bytes%n", cStrings, cch, cbChars, cbCached, cbString);
+        }
+
+    private static long measure(String[] as, Function<String, Object> fn)
+        {
+        Object[] ao     = new Object[as.length];
+        long     cbBase = usedHeap();
+        for (int i = 0; i < as.length; i++)
+            {
+            ao[i] = fn.apply(as[i]);
+            }
+        long cb = usedHeap() - cbBase;
+        ao[0] = null; // keep the values reachable until they are measured
+        return cb;
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private static StringHandle handle(String s)
+        {
+        return new StringHandle(null, s);
+        }
+
+    /**
+     * The hash algorithm used while the handle was backed by a char[].
+     */
+    private static int hashChars(char[] ach)
+        {
+        int hash = 982_451_653;
+        int cch  = ach.length;
+        if (cch <= 0x40)
+            {
+            for (char ch : ach)
+                {
+                hash = hash * 31 + ch;
+                }
+            }
+        else
+            {
+            for (int of = 0, cchStep = (cch >>> 6) + 1; of < cch; of += cchStep)
+                {
+                hash = hash * 31 + ach[of];
+                }
+            }
+        return hash;
+        }
+
+    private static long usedHeap()
+        {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            {
+            System.gc();
+            }
+        return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
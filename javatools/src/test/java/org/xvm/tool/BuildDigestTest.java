@@ -0,0 +1,152 @@
+package org.xvm.tool;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.xvm.tool.BuildDigest.FileDigest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the BuildDigest class.
+ */
+public class BuildDigestTest
+    {
+    @BeforeEach
+    public void setUp()
+            throws IOException
+        {
+        m_dir = Files.createTempDirectory("digest").toFile();
+        }
+
+    @AfterEach
+    public void tearDown()
+            throws IOException
+        {
+        try (Stream<Path> stream = Files.walk(m_dir.toPath()))
+            {
+            stream.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+
+    @Test
+    public void shouldStoreAndLoad()
+            throws IOException
+        {
+        File fileX   = write(m_dir, "test.x", "module test {}");
+        File fileR   = write(m_dir, "some resource.txt", "hello");
+        File fileBin = write(m_dir, "test.xtc", "binary");
+
+        Map<String, File> mapFiles = Map.of("test.x", fileX, "resources0/some resource.txt", fileR);
+        BuildDigest       digest   = new BuildDigest(BuildDigest.digestFiles(mapFiles, null),
+                Set.of("ecstasy.xtclang.org", "json.xtclang.org"), fileBin.length(), fileBin.lastModified());
+
+        File fileDigest = new File(m_dir, "test.xtc.digest");
+        digest.store(fileDigest);
+
+        BuildDigest digestLoaded = BuildDigest.load(fileDigest);
+        assertEquals(digest.getFiles(), digestLoaded.getFiles());
+        assertEquals(digest.getDependencies(), digestLoaded.getDependencies());
+        assertTrue(digestLoaded.isBinary(fileBin));
+        assertTrue(digestLoaded.isSameContent(BuildDigest.digestFiles(mapFiles, digestLoaded)));
+
+        // SHA-256 of "hello"
+        assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+                digestLoaded.getFiles().get("resources0/some resource.txt").sHash());
+        }
+
+    @Test
+    public void shouldDetectContentChanges()
+            throws IOException
+        {
+        File fileX = write(m_dir, "test.x", "module test {}");
+
+        Map<String, File> mapFiles = new TreeMap<>(Map.of("test.x", fileX));
+        BuildDigest       digest   = new BuildDigest(BuildDigest.digestFiles(mapFiles, null),
+                Set.of(), 0L, 0L);
+
+        // touched, but the same content
+        assertTrue(fileX.setLastModified(fileX.lastModified() + 10_000));
+        Map<String, FileDigest> mapTouched = BuildDigest.digestFiles(mapFiles, digest);
+        assertTrue(digest.isSameContent(mapTouched));
+
+        // unchanged size and timestamp: the previous hash is re-used
+        assertSame(mapTouched.get("test.x"),
+                BuildDigest.digestFiles(mapFiles, new BuildDigest(mapTouched, Set.of(), 0L, 0L)).get("test.x"));
+
+        // changed content
+        write(m_dir, "test.x", "module test {} // changed");
+        assertFalse(digest.isSameContent(BuildDigest.digestFiles(mapFiles, digest)));
+
+        // an added file
+        write(m_dir, "test.x", "module test {}");
+        mapFiles.put("test/Other.x", write(m_dir, "Other.x", "class Other {}"));
+        assertFalse(digest.isSameContent(BuildDigest.digestFiles(mapFiles, digest)));
+        }
+
+    @Test
+    public void shouldKeepDigestOutOfOutputDir()
+            throws IOException
+        {
+        File dirOut    = new File(m_dir, "lib");
+        File dirDigest = new File(m_dir, "cache");
+        File fileX     = write(m_dir, "test.x", "module test {}");
+
+        ModuleInfo info = new ModuleInfo(fileX, null, dirOut);
+        assertEquals(new File(dirOut, "test.xtc.digest"), info.getDigestFile());
+
+        info.setDigestDir(dirDigest);
+        assertEquals(new File(dirDigest, "test.xtc.digest"), info.getDigestFile());
+
+        assertTrue(dirOut.mkdirs());
+        write(dirOut, "test.xtc", "binary");
+        info.storeBuildDigest(Set.of());
+        assertTrue(info.getDigestFile().isFile());
+        assertEquals(1, dirOut.list().length);
+        }
+
+    @Test
+    public void shouldRejectInvalidFiles()
+            throws IOException
+        {
+        assertNull(BuildDigest.load(new File(m_dir, "missing.digest")));
+        assertNull(BuildDigest.load(write(m_dir, "bad.digest", "not a digest")));
+        assertNull(BuildDigest.load(write(m_dir, "bad2.digest", "# xcc build digest v1\nfile xyz\n")));
+        }
+
+
+    // ----- helpers -------------------------------------------------------------------------------
+
+    private static File write(File dir, String sName, String sContent)
+            throws IOException
+        {
+        File file = new File(dir, sName);
+        Files.writeString(file.toPath(), sContent);
+        return file;
+        }
+
+
+    // ----- fields --------------------------------------------------------------------------------
+
+    private File m_dir;
+    }
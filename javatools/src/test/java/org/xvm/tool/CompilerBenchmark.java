@@ -0,0 +1,167 @@
+package org.xvm.tool;
+
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xvm.asm.FileStructure;
+
+import org.xvm.asm.constants.LiteralConstant;
+
+import org.xvm.tool.Launcher.LauncherException;
+
+import org.xvm.util.Handy;
+
+
+/**
+ * Compares the wall-clock time of compiling a number of modules one at a time with compiling them
+ * using the "--parallel" option, and verifies that both produce the same modules.
+ *
+ * CompilerBenchmark [-L module-path]* [module-source-path]+
+ * <p>
+ * For example, from the root of the "xvm" project:
+ * <pre>
+ *   CompilerBenchmark -L xdk/build/xdk/lib/ecstasy.xtc -L xdk/build/xdk/javatools/javatools_turtle.xtc
+ *       lib_aggregate/src/main/x/aggregate.x lib_collections/src/main/x/collections.x
+ *       lib_crypto/src/main/x/crypto.x lib_json/src/main/x/json.x lib_net/src/main/x/net.x
+ * </pre>
+ * The compiler recurses deeply, so run it with a large stack (e.g. "-Xss8m").
+ */
+public final class CompilerBenchmark
+    {
+    private CompilerBenchmark()
+        {
+        }
+
+    public static void main(String[] asArg)
+            throws Exception
+        {
+        if (asArg.length < 1)
+            {
+            System.err.println("Module location is missing");
+            return;
+            }
+
+        int cRounds = Integer.getInteger("rounds", 3);
+
+        File dirSeq = Files.createTempDirectory("xcc-seq").toFile();
+        File dirPar = Files.createTempDirectory("xcc-par").toFile();
+
+        long[] acSeq = new long[cRounds];
+        long[] acPar = new long[cRounds];
+        for (int i = 0; i < cRounds; ++i)
+            {
+            // interleave the runs, so that the JIT warm-up does not favor either mode
+            acSeq[i] = compile(asArg, dirSeq, false);
+            acPar[i] = compile(asArg, dirPar, true);
+            }
+
+        System.out.println("Processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.println("Sequential: " + Arrays.toString(acSeq) + " ms; best=" + best(acSeq) + " ms");
+        System.out.println("Parallel:   " + Arrays.toString(acPar) + " ms; best=" + best(acPar) + " ms");
+
+        boolean fSame = true;
+        for (File fileSeq : dirSeq.listFiles())
+            {
+            File    filePar = new File(dirPar, fileSeq.getName());
+            boolean fEqual  = filePar.exists() && sameModule(fileSeq, filePar);
+            System.out.println((fEqual ? "Identical: " : "DIFFERENT: ") + fileSeq.getName());
+            fSame &= fEqual;
+            }
+
+        if (!fSame)
+            {
+            System.exit(-1);
+            }
+        }
+
+    /**
+     * Compile the modules into the specified directory.
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private static long compile(String[] asArg, File dirOut, boolean fParallel)
+        {
+        List<String> listArgs = new ArrayList<>(asArg.length + 4);
+        listArgs.add("--rebuild");
+        if (fParallel)
+            {
+            listArgs.add("--parallel");
+            }
+        listArgs.add("-o");
+        listArgs.add(dirOut.getPath());
+        listArgs.addAll(Arrays.asList(asArg));
+
+        long ldtStart = System.nanoTime();
+        try
+            {
+            new Compiler(listArgs.toArray(Handy.NO_ARGS)).run();
+            }
+        catch (LauncherException e)
+            {
+            if (e.error)
+                {
+                System.exit(-1);
+                }
+            }
+        return (System.nanoTime() - ldtStart) / 1_000_000;
+        }
+
+    /**
+     * @return true iff the two compiled modules are the same, except for the compile time stamp
+     */
+    private static boolean sameModule(File file1, File file2)
+            throws IOException
+        {
+        byte[] ab1 = blankTimestamp(file1);
+        byte[] ab2 = blankTimestamp(file2);
+        return Arrays.equals(ab1, ab2);
+        }
+
+    private static byte[] blankTimestamp(File file)
+            throws IOException
+        {
+        byte[]          ab        = Files.readAllBytes(file.toPath());
+        FileStructure   struct    = new FileStructure(file);
+        LiteralConstant constTime = struct.getModule().getTimestamp();
+        if (constTime != null)
+            {
+            byte[] abTime = constTime.getValue().getBytes(StandardCharsets.UTF_8);
+            int    of     = indexOf(ab, abTime);
+            if (of >= 0)
+                {
+                Arrays.fill(ab, of, of + abTime.length, (byte) 0);
+                }
+            }
+        return ab;
+        }
+
+    private static int indexOf(byte[] ab, byte[] abFind)
+        {
+        NextOffset:
+        for (int of = 0, ofLast = ab.length - abFind.length; of <= ofLast; ++of)
+            {
+            for (int i = 0; i < abFind.length; ++i)
+                {
+                if (ab[of + i] != abFind[i])
+                    {
+                    continue NextOffset;
+                    }
+                }
+            return of;
+            }
+        return -1;
+        }
+
+    private static long best(long[] ac)
+        {
+        return Arrays.stream(ac).min().orElse(0);
+        }
+    }
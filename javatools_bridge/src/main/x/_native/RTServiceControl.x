@@ -21,6 +21,13 @@ class RTServiceControl
 
     // ServiceControl
 
+    @Override Duration timeSlice {
+        Duration get()               {TODO("native");}
+        void     set(Duration slice) {TODO("native");}
+    }
+
+    @Override @RO Duration[] fiberCpuTimes.get() {TODO("native");}
+
     @Override void gc()       {TODO("native");}
     @Override void shutdown() {TODO("native");}
     @Override void kill()     {TODO("native");}
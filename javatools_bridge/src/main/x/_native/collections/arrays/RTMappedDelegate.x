@@ -0,0 +1,5 @@
+/**
+ * The native MappedDelegate class: a read-only ArrayDelegate<Byte> backed by a memory-mapped file.
+ */
+class RTMappedDelegate<Element>
+        extends RTDelegate<Element> {}
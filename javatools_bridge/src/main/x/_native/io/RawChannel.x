@@ -62,6 +62,12 @@ service RawChannel {
      */
     Byte[]|Int take() {TODO("Native");}
 
+    /**
+     * Stop reading from the channel. Any subsequent (or currently pending) [take] returns the
+     * `-2` (`inputShutdown`) status; for a socket, the input side of the connection is shut down.
+     */
+    void shutdownRead() {TODO("Native");}
+
 
     // ----- write operations ----------------------------------------------------------------------
 
@@ -86,6 +92,13 @@ service RawChannel {
      */
     Int submit(Byte[] buffer, Int start, Int end) {TODO("Native");}
 
+    /**
+     * Stop writing to the channel. The buffers that have already been submitted are still written;
+     * for a socket, the output side of the connection is shut down after that, which the peer
+     * observes as the end of the stream.
+     */
+    void shutdownWrite() {TODO("Native");}
+
 
     // ----- buffer operations ---------------------------------------------------------------------
 
@@ -1,4 +1,6 @@
+import ecstasy.io.EndOfFile;
 import ecstasy.io.IOClosed;
+import ecstasy.io.IOException;
 import ecstasy.io.Channel;
 
 import libnet.IPAddress;
@@ -6,20 +8,27 @@ import libnet.Socket;
 import libnet.SocketAddress;
 import libnet.ServerSocket;
 
+import io.RawChannel;
+import io.RTChannel;
+
 /**
  * Implements a native [Socket].
  */
-service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress)
+service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress, RawChannel rawChannel)
         implements Socket {
     /**
      * Constructor from native land.
      *
-     * @param name            the name of this network interface
-     * @param addressesBytes  the byte array for each address of this network interface
+     * @param localAddressBytes   the bytes of the local IP address
+     * @param localPort           the local port
+     * @param remoteAddressBytes  the bytes of the remote IP address
+     * @param remotePort          the remote port
+     * @param rawChannel          the native channel of the connection
      */
-    construct(Byte[] localAddressBytes, UInt16 localPort, Byte[] remoteAddressBytes, UInt16 remotePort) {
+    construct(Byte[] localAddressBytes, UInt16 localPort, Byte[] remoteAddressBytes, UInt16 remotePort,
+              RawChannel rawChannel) {
         construct RTSocket((new IPAddress(localAddressBytes), localPort),
-                           (new IPAddress(remoteAddressBytes), remotePort));
+                           (new IPAddress(remoteAddressBytes), remotePort), rawChannel);
     }
 
     /**
@@ -36,12 +45,18 @@ service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress)
      * The "IO mode" of the socket. Once the socket goes into sync or async mode, it's not supposed
      * switch to the other.
      */
-    private IO mode;
+    private IO mode = None;
+
+    /**
+     * The native channel of the connection; both the synchronous streams and the asynchronous
+     * channel operate directly on it.
+     */
+    protected/private RawChannel rawChannel;
 
     /**
-     * TODO
+     * The input stream, if it has been created.
      */
-    protected/private Channel rawChannel;
+    private SocketInput? input;
 
 
     // ----- Socket methods ------------------------------------------------------------------------
@@ -58,7 +73,7 @@ service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress)
         case None:
         case Async:
             mode = Async;
-            val channel = new SocketChannel(rawChannel);
+            val channel = new RTChannel(rawChannel);
             return &channel.maskAs(Socket.Channel);
 
         case Sync:
@@ -76,6 +91,7 @@ service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress)
         case Sync:
             mode = Sync;
             val stream = new SocketInput();
+            input = stream;
             return &stream.maskAs(BinaryInput);
 
         case Async:
@@ -104,53 +120,204 @@ service RTSocket(SocketAddress localAddress, SocketAddress remoteAddress)
     }
 
     @Override
-    void shutdownInput() {TODO("Native");}
+    void shutdownInput() {
+        rawChannel.shutdownRead();
+    }
 
     @Override
-    void shutdownOutput() {TODO("Native");}
+    void shutdownOutput() {
+        rawChannel.shutdownWrite();
+    }
 
     @Override
-    void close(Exception? cause = Null) {TODO("Native");}
+    void close(Exception? cause = Null) {
+        if (mode != Closed) {
+            mode = Closed;
+            input?.close(cause);
+            rawChannel.close();
+        }
+    }
 
     @Override
     String toString() {
-        return "Socket";
+        return $"Socket({localAddress[0]}:{localAddress[1]} -> {remoteAddress[0]}:{remoteAddress[1]})";
     }
 
 
-    // ----- SocketChannel class -------------------------------------------------------------------
-
-    /**
-     * TODO
-     */
-    class SocketChannel(Channel rawChannel)
-            delegates Channel(rawChannel) {
-        // TODO
-    }
-
     // ----- SocketInput class ---------------------------------------------------------------------
 
     /**
-     * TODO
+     * The synchronous input of the socket, which reads the native buffers taken from the channel.
      */
     class SocketInput
             implements BinaryInput {
-        // TODO
+        /**
+         * The buffer being read, if any.
+         */
+        private Byte[]? buffer;
+
+        /**
+         * The offset of the next byte to read from the buffer.
+         */
+        private Int offset;
+
+        @Override
+        Byte readByte() {
+            Byte[] buffer = ensureBuffer();
+            return buffer[offset++];
+        }
+
+        @Override
+        void readBytes(Byte[] bytes, Int offset, Int count) {
+            assert:arg offset >= 0 && count >= 0 && offset + count <= bytes.size;
+
+            while (count > 0) {
+                Byte[] buffer = ensureBuffer();
+                Int    start  = this.offset;
+                Int    copy   = Int.minOf(count, buffer.size - start);
+                for (Int i : 0 ..< copy) {
+                    bytes[offset + i] = buffer[start + i];
+                }
+                this.offset = start + copy;
+                offset     += copy;
+                count      -= copy;
+            }
+        }
+
+        @Override
+        Byte[] readBytes(Int count) {
+            assert:arg count >= 0;
+
+            if (count == 0) {
+                return [];
+            }
+
+            Byte[] buffer = ensureBuffer();
+            Int    start  = offset;
+            if (count <= buffer.size - start) {
+                // the most common case: a copy of a slice of the current buffer
+                offset = start + count;
+                return buffer[start ..< start + count].reify(Constant);
+            }
+
+            Byte[] bytes = new Byte[count];
+            readBytes(bytes, 0, count);
+            return bytes.freeze(inPlace=True);
+        }
+
+        @Override
+        void close(Exception? cause = Null) {
+            if (Byte[] buffer ?= this.buffer) {
+                this.buffer = Null;
+                rawChannel.decRefCount(buffer);
+            }
+        }
+
+        /**
+         * @return a buffer with at least one byte left to read
+         *
+         * @throws EndOfFile  if the input has reached its end (or has been shut down)
+         */
+        private Byte[] ensureBuffer() {
+            if (Byte[] buffer ?= this.buffer) {
+                if (offset < buffer.size) {
+                    return buffer;
+                }
+                this.buffer = Null;
+                rawChannel.decRefCount(buffer);
+            }
+
+            Byte[]|Int result = rawChannel.take();
+            if (result.is(Int)) {
+                switch (result) {
+                case -1:
+                case -2:
+                    throw new EndOfFile();
+
+                case -3:
+                    throw new IOClosed();
+
+                default:
+                    throw new IOException($"Socket read failed: {result}");
+                }
+            }
+
+            buffer = result;
+            offset = 0;
+            return result;
+        }
     }
 
 
-    // ----- SocketInput class ---------------------------------------------------------------------
+    // ----- SocketOutput class --------------------------------------------------------------------
 
     /**
-     * TODO
+     * The synchronous output of the socket. The bytes are submitted to the channel as they are
+     * written: an immutable array is submitted as is, and the content of a mutable one is copied
+     * into the native buffers.
      */
     class SocketOutput
             implements BinaryOutput {
-        // TODO
-    }
+        @Override
+        void writeByte(Byte value) {
+            writeBytes([value]);
+        }
 
+        @Override
+        void writeBytes(Byte[] bytes, Int offset, Int count) {
+            assert:arg offset >= 0 && count >= 0 && offset + count <= bytes.size;
+
+            if (bytes.is(immutable)) {
+                if (count > 0) {
+                    checkStatus(rawChannel.submit(bytes, offset, offset + count));
+                }
+                return;
+            }
+
+            while (count > 0) {
+                Byte[]|Int result = rawChannel.allocate(True);
+                if (result.is(Int)) {
+                    throw result == -2
+                            ? new IOClosed()
+                            : new IOException($"Socket buffer allocation failed: {result}");
+                }
+
+                Byte[] buffer = result;
+                Int    copy   = Int.minOf(count, buffer.size);
+                for (Int i : 0 ..< copy) {
+                    buffer[i] = bytes[offset + i];
+                }
+                try {
+                    checkStatus(rawChannel.submit(buffer, 0, copy));
+                } finally {
+                    // the channel holds its own reference for the pending write
+                    rawChannel.decRefCount(buffer);
+                }
+                offset += copy;
+                count  -= copy;
+            }
+        }
 
-    // ----- internal ------------------------------------------------------------------------------
+        @Override
+        void close(Exception? cause = Null) {
+            rawChannel.shutdownWrite();
+        }
 
-    // TODO
-}
\ No newline at end of file
+        /**
+         * Translate the status of a submitted write.
+         */
+        private void checkStatus(Int status) {
+            switch (status) {
+            case 0:
+                return;
+
+            case -1:
+            case -2:
+                throw new IOClosed();
+
+            default:
+                throw new IOException($"Socket write failed: {status}");
+            }
+        }
+    }
+}
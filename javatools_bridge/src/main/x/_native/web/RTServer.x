@@ -125,7 +125,7 @@ service RTServer
             handler.configure(decryptor);
         }
 
-        addRouteImpl(hostName, new HandlerWrapper(handler), keystore, tlsKey);
+        addRouteImpl(hostName, createWrappers(handler), keystore, tlsKey);
 
         routes = routes.put(route, handler);
         assert routes.is(immutable);
@@ -141,7 +141,7 @@ service RTServer
             hostName = route.host.toString();
         }
         if (routes.contains(route)) {
-            if (replaceRouteImpl(hostName, new HandlerWrapper(handler))) {
+            if (replaceRouteImpl(hostName, createWrappers(handler))) {
                 routes = routes.put(route, handler);
                 assert routes.is(immutable);
                 return True;
@@ -171,6 +171,24 @@ service RTServer
     @Override
     public/private Map<HostInfo, Handler> routes = [];
 
+    /**
+     * Create the request handler shards for the specified handler; the native server spreads the
+     * incoming connections across the shards. Each shard is a separate service that calls its own
+     * handler: the specified one for the first shard, and the handlers created by it for the rest.
+     * A handler that is not [ShardAware] gets a single shard, since all the requests would be
+     * serialized by that one handler anyway.
+     */
+    private HandlerWrapper[] createWrappers(Handler handler) {
+        HandlerWrapper[] wrappers = new HandlerWrapper[];
+        wrappers.add(new HandlerWrapper(handler));
+        if (handler.is(ShardAware)) {
+            for (Int i : 1 ..< shardCountImpl()) {
+                wrappers.add(new HandlerWrapper(handler.createShard()));
+            }
+        }
+        return wrappers;
+    }
+
 
     // ----- request handling ----------------------------------------------------------------------
 
@@ -198,16 +216,21 @@ service RTServer
         @RO String[] headerNames;
         conditional String[] getHeaderValuesForName(String name);
         conditional Byte[] getBodyBytes();
+        conditional Byte[] readBodyChunk();
         Boolean containsNestedBodies();
         void respond(Int status, String[] headerNames, String[] headerValues, Byte[] body);
+        void respondStreaming(Int status, String[] headerNames, String[] headerValues);
+        void writeBodyChunk(Byte[] chunk);
+        void endBody(Boolean complete);
     }
 
 
     // ----- native implementations all run on the service context ---------------------------------
 
     private void bindImpl(HostInfo binding, String bindAddr, UInt16 httpPort, UInt16 httpsPort)                {TODO("Native");}
-    private void addRouteImpl(String hostName, HandlerWrapper wrapper, KeyStore? keystore, String? tlsKey)     {TODO("Native");}
-    private Boolean replaceRouteImpl(String hostName, HandlerWrapper wrapper)                                  {TODO("Native");}
+    private Int shardCountImpl()                                                                               {TODO("Native");}
+    private void addRouteImpl(String hostName, HandlerWrapper[] wrappers, KeyStore? keystore, String? tlsKey)  {TODO("Native");}
+    private Boolean replaceRouteImpl(String hostName, HandlerWrapper[] wrappers)                               {TODO("Native");}
     private void removeRouteImpl(String hostName)                                                              {TODO("Native");}
     (Byte[], UInt16) getReceivedAtAddress(RequestContext context)                                              {TODO("Native");}
     (Byte[], UInt16) getReceivedFromAddress(RequestContext context)                                            {TODO("Native");}
@@ -216,8 +239,12 @@ service RTServer
     String[] getHeaderNames(RequestContext context)                                                            {TODO("Native");}
     conditional String[] getHeaderValuesForName(RequestContext context, String name)                           {TODO("Native");}
     conditional Byte[] getBodyBytes(RequestContext context)                                                    {TODO("Native");}
+    conditional Byte[] readBodyChunk(RequestContext context)                                                   {TODO("Native");}
     Boolean containsNestedBodies(RequestContext context)                                                       {TODO("Native");}
     void respond(RequestContext context, Int status, String[] headerNames, String[] headerValues, Byte[] body) {TODO("Native");}
+    void respondStreaming(RequestContext context, Int status, String[] headerNames, String[] headerValues)     {TODO("Native");}
+    void writeBodyChunk(RequestContext context, Byte[] chunk)                                                  {TODO("Native");}
+    void endBody(RequestContext context, Boolean complete)                                                     {TODO("Native");}
     @Override void close(Exception? cause = Null)                                                              {TODO("Native");}
 
 
@@ -273,4 +300,13 @@ service RTServer
     static interface DecryptorAware {
         void configure(Decryptor decryptor);
     }
+
+    /**
+     * This interface is used to duck-type to [xenia.HttpHandler] service, which can create
+     * additional handlers for the same route that share its application state, but handle the
+     * requests on their own service contexts.
+     */
+    static interface ShardAware {
+        Handler createShard();
+    }
 }
\ No newline at end of file
@@ -401,6 +401,9 @@ service RequestInfoImpl(RTServer       server,
     @Override
     conditional Byte[] getBodyBytes() = server.getBodyBytes(context);
 
+    @Override
+    conditional Byte[] readBodyChunk() = server.readBodyChunk(context);
+
     @Override
     Boolean containsNestedBodies() = server.containsNestedBodies(context);
 
@@ -409,6 +412,21 @@ service RequestInfoImpl(RTServer       server,
         server.respond(context, status, headerNames, headerValues, body);
     }
 
+    @Override
+    void respondStreaming(Int status, String[] headerNames, String[] headerValues) {
+        server.respondStreaming(context, status, headerNames, headerValues);
+    }
+
+    @Override
+    void writeBodyChunk(Byte[] chunk) {
+        server.writeBodyChunk(context, chunk);
+    }
+
+    @Override
+    void endBody(Boolean complete) {
+        server.endBody(context, complete);
+    }
+
     @Override
     String toString() {
         return $"({uriString=}, {method.name=}, {tls=})";
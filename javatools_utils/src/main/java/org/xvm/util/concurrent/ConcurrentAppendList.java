@@ -0,0 +1,263 @@
+package org.xvm.util.concurrent;
+
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+
+/**
+ * An append-only list that allows any number of threads to add elements concurrently without
+ * locking, while the elements are read by their index.
+ * <p>
+ * An appending thread claims the next index with a single atomic increment and then publishes the
+ * element into the corresponding slot; the storage is a sequence of segments, each twice as large
+ * as the previous one, so the slots never move and the segments are created (via a CAS) only when
+ * the first of their slots is claimed.
+ * <p>
+ * Since a slot is claimed before the element is published, a concurrent reader may observe the
+ * {@link #size} that includes a slot that is still empty; in that case {@link #get} (and therefore
+ * any iteration) waits for the appending thread to publish the element, which it does right after
+ * claiming the slot. As a result, a reader never sees a null element, and an iteration never skips
+ * an element that is included in the size it has observed.
+ * <p>
+ * The {@link #clear} and {@link #set} operations are not thread-safe with respect to the appending
+ * threads.
+ */
+public class ConcurrentAppendList<E>
+        extends AbstractList<E>
+        implements RandomAccess
+    {
+    /**
+     * Construct an empty {@link ConcurrentAppendList}.
+     */
+    public ConcurrentAppendList()
+        {
+        m_aaElement = new Object[MAX_SEGMENTS][];
+        }
+
+
+    // ----- ConcurrentAppendList API --------------------------------------------------------------
+
+    /**
+     * Append the specified element to the list.
+     *
+     * @param e  the element to append
+     *
+     * @return the index of the appended element
+     */
+    public int append(E e)
+        {
+        Objects.requireNonNull(e);
+
+        int i = (int) COUNT_HANDLE.getAndAdd(this, 1);
+        if (i < 0 || i >= MAX_ELEMENTS)
+            {
+            // the claimed slot doesn't exist and is never counted by size()
+            throw new IllegalStateException("list is full");
+            }
+
+        int      nSlot    = i + FIRST_SIZE;
+        int      nSegment = segmentOf(nSlot);
+        Object[] aElement = ensureSegment(nSegment);
+
+        ELEMENT_HANDLE.setRelease(aElement, nSlot - Integer.highestOneBit(nSlot), e);
+        return i;
+        }
+
+    /**
+     * Check whether the specified element is the one at the specified index. Unlike {@link #get},
+     * this method never waits for an element to be published: a slot that is claimed, but still
+     * empty, doesn't hold the element.
+     *
+     * @param index  the index to check; may be out of range
+     * @param e      the element to look for
+     *
+     * @return true iff the element at the specified index is the specified one (by identity)
+     */
+    public boolean isAt(int index, Object e)
+        {
+        if (index < 0 || index >= size())
+            {
+            return false;
+            }
+
+        int      nSlot    = index + FIRST_SIZE;
+        Object[] aElement = (Object[]) SEGMENT_HANDLE.getAcquire(m_aaElement, segmentOf(nSlot));
+        return aElement != null
+                && ELEMENT_HANDLE.getAcquire(aElement, nSlot - Integer.highestOneBit(nSlot)) == e;
+        }
+
+    /**
+     * Make sure that the segments for the specified number of elements are allocated.
+     *
+     * @param cCapacity  the desired capacity
+     */
+    public void ensureCapacity(int cCapacity)
+        {
+        if (cCapacity > 0)
+            {
+            int nLast = segmentOf(cCapacity - 1 + FIRST_SIZE);
+            for (int i = 0; i <= nLast; i++)
+                {
+                ensureSegment(i);
+                }
+            }
+        }
+
+
+    // ----- List interface ------------------------------------------------------------------------
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index)
+        {
+        Objects.checkIndex(index, size());
+
+        int nSlot    = index + FIRST_SIZE;
+        int nSegment = segmentOf(nSlot);
+        int ix       = nSlot - Integer.highestOneBit(nSlot);
+        for (int cSpins = 0; ; cSpins++)
+            {
+            Object[] aElement = (Object[]) SEGMENT_HANDLE.getAcquire(m_aaElement, nSegment);
+            if (aElement != null)
+                {
+                Object e = ELEMENT_HANDLE.getAcquire(aElement, ix);
+                if (e != null)
+                    {
+                    return (E) e;
+                    }
+                }
+
+            // the slot has been claimed, but the element is not published yet
+            if (cSpins < MAX_SPINS)
+                {
+                Thread.onSpinWait();
+                }
+            else
+                {
+                Thread.yield();
+                }
+            }
+        }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E e)
+        {
+        Objects.requireNonNull(e);
+        Objects.checkIndex(index, size());
+
+        int      nSlot    = index + FIRST_SIZE;
+        Object[] aElement = ensureSegment(segmentOf(nSlot));
+        return (E) ELEMENT_HANDLE.getAndSet(aElement, nSlot - Integer.highestOneBit(nSlot), e);
+        }
+
+    @Override
+    public boolean add(E e)
+        {
+        append(e);
+        return true;
+        }
+
+    @Override
+    public int size()
+        {
+        int c = (int) COUNT_HANDLE.getAcquire(this);
+        return c < 0 || c > MAX_ELEMENTS ? MAX_ELEMENTS : c;
+        }
+
+    @Override
+    public void clear()
+        {
+        m_aaElement = new Object[MAX_SEGMENTS][];
+        COUNT_HANDLE.setRelease(this, 0);
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * @return the segment index for the specified (biased) slot number
+     */
+    private static int segmentOf(int nSlot)
+        {
+        return 31 - Integer.numberOfLeadingZeros(nSlot) - FIRST_SHIFT;
+        }
+
+    /**
+     * Obtain the specified segment, creating it if necessary.
+     */
+    private Object[] ensureSegment(int nSegment)
+        {
+        Object[][] aaElement = m_aaElement;
+        Object[]   aElement  = (Object[]) SEGMENT_HANDLE.getAcquire(aaElement, nSegment);
+        if (aElement == null)
+            {
+            Object[] aNew = new Object[FIRST_SIZE << nSegment];
+            aElement = (Object[]) SEGMENT_HANDLE.compareAndExchange(aaElement, nSegment, null, aNew);
+            if (aElement == null)
+                {
+                aElement = aNew;
+                }
+            }
+        return aElement;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * The log2 of the size of the first segment.
+     */
+    private static final int FIRST_SHIFT = 6;
+
+    /**
+     * The size of the first segment.
+     */
+    private static final int FIRST_SIZE = 1 << FIRST_SHIFT;
+
+    /**
+     * The maximum number of segments, which allows for up to 2^31 - 2^6 elements.
+     */
+    private static final int MAX_SEGMENTS = 31 - FIRST_SHIFT;
+
+    /**
+     * The maximum number of elements.
+     */
+    private static final int MAX_ELEMENTS = Integer.MAX_VALUE - FIRST_SIZE + 1;
+
+    /**
+     * The number of busy-waiting iterations for an unpublished element before yielding.
+     */
+    private static final int MAX_SPINS = 100;
+
+    /**
+     * The segments; the segment {@code n} holds {@code FIRST_SIZE << n} elements.
+     */
+    private volatile Object[][] m_aaElement;
+
+    /**
+     * The number of the claimed slots.
+     */
+    private volatile int m_cElements;
+
+    private static final VarHandle COUNT_HANDLE;
+    private static final VarHandle SEGMENT_HANDLE = MethodHandles.arrayElementVarHandle(Object[][].class);
+    private static final VarHandle ELEMENT_HANDLE = MethodHandles.arrayElementVarHandle(Object[].class);
+    static
+        {
+        try
+            {
+            COUNT_HANDLE = MethodHandles.lookup().findVarHandle(
+                    ConcurrentAppendList.class, "m_cElements", int.class);
+            }
+        catch (IllegalAccessException | NoSuchFieldException e)
+            {
+            throw new IllegalStateException(e);
+            }
+        }
+    }
@@ -0,0 +1,279 @@
+package org.xvm.util.concurrent;
+
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import java.util.Objects;
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import java.util.function.Consumer;
+
+
+/**
+ * A multi-producer, single-consumer queue backed by a fixed size ring buffer.
+ * <p>
+ * Producers claim a slot by advancing the tail with a single CAS and then publish the element
+ * into that slot; the consumer takes the elements in the claim order and releases the slots in
+ * batches. Unlike a linked queue, neither {@link #add} nor {@link #poll} allocate anything as long
+ * as the ring has free slots, and the {@link #size} is a constant time operation.
+ * <p>
+ * When the ring is full, the elements spill into an unbounded overflow queue; once anything has
+ * spilled over, all subsequent elements go into the overflow queue as well until the consumer
+ * drains it, so the elements added by any given producer are always consumed in the order they
+ * were added.
+ * <p>
+ * Only one thread at a time may call the consumer-side methods ({@link #poll} and {@link #drain}).
+ */
+public class MpscRingBuffer<E>
+    {
+    /**
+     * Construct a {@link MpscRingBuffer}.
+     *
+     * @param cCapacity  the ring capacity; will be rounded up to a power of two
+     */
+    public MpscRingBuffer(int cCapacity)
+        {
+        if (cCapacity <= 0 || cCapacity > MAX_CAPACITY)
+            {
+            throw new IllegalArgumentException("illegal capacity: " + cCapacity);
+            }
+
+        int cSlots = Integer.highestOneBit(cCapacity);
+        if (cSlots < cCapacity)
+            {
+            cSlots <<= 1;
+            }
+        f_aElement = new Object[cSlots];
+        f_nMask    = cSlots - 1;
+        }
+
+
+    // ----- producer API --------------------------------------------------------------------------
+
+    /**
+     * Add the specified element to the ring, unless the ring is full.
+     *
+     * @param e  the element to add
+     *
+     * @return true iff the element has been added
+     */
+    public boolean offer(E e)
+        {
+        Objects.requireNonNull(e);
+
+        Object[] aElement = f_aElement;
+        long     lTail;
+        do
+            {
+            lTail = m_lTail;
+            if (lTail - m_lHead >= aElement.length)
+                {
+                return false;
+                }
+            }
+        while (!TAIL_HANDLE.compareAndSet(this, lTail, lTail + 1));
+
+        ELEMENT_HANDLE.setRelease(aElement, (int) lTail & f_nMask, e);
+        return true;
+        }
+
+    /**
+     * Add the specified element to the ring or, if the ring is full, to the overflow queue.
+     *
+     * @param e  the element to add
+     *
+     * @return true iff the element has been placed into the ring; false if it has spilled over
+     */
+    public boolean add(E e)
+        {
+        Queue<E> queueOverflow = f_queueOverflow;
+        if (queueOverflow.isEmpty() && offer(e))
+            {
+            return true;
+            }
+
+        queueOverflow.add(e);
+        return false;
+        }
+
+
+    // ----- consumer API --------------------------------------------------------------------------
+
+    /**
+     * Remove the next element.
+     *
+     * @return the next element or null if there is none or if the next element has been claimed,
+     *         but not yet published by its producer
+     */
+    public E poll()
+        {
+        long lHead = m_lHead;
+        E    e     = take(lHead);
+        if (e == null)
+            {
+            // the overflow elements are younger than anything claimed in the ring
+            return lHead == m_lTail ? f_queueOverflow.poll() : null;
+            }
+
+        HEAD_HANDLE.setRelease(this, lHead + 1);
+        return e;
+        }
+
+    /**
+     * Remove all the available elements, passing them to the specified consumer; stop at the first
+     * element that has been claimed, but not yet published by its producer.
+     *
+     * @param consumer  the consumer
+     *
+     * @return the number of removed elements
+     */
+    public int drain(Consumer<? super E> consumer)
+        {
+        long lHeadStart = m_lHead;
+        long lHead      = lHeadStart;
+        try
+            {
+            E e;
+            while ((e = take(lHead)) != null)
+                {
+                // release the slots in batches to avoid a volatile write per element
+                if ((++lHead & RELEASE_MASK) == 0)
+                    {
+                    HEAD_HANDLE.setRelease(this, lHead);
+                    }
+                consumer.accept(e);
+                }
+            }
+        finally
+            {
+            HEAD_HANDLE.setRelease(this, lHead);
+            }
+
+        int cDrained = (int) (lHead - lHeadStart);
+        if (lHead == m_lTail && !f_queueOverflow.isEmpty())
+            {
+            // the overflow elements are younger than anything claimed in the ring
+            E e;
+            while ((e = f_queueOverflow.poll()) != null)
+                {
+                consumer.accept(e);
+                cDrained++;
+                }
+            }
+        return cDrained;
+        }
+
+    /**
+     * Take the published element at the specified position, clearing its slot.
+     *
+     * @return the element or null if the slot has not been claimed or published yet
+     */
+    private E take(long lHead)
+        {
+        Object[] aElement = f_aElement;
+        int      ix       = (int) lHead & f_nMask;
+
+        @SuppressWarnings("unchecked")
+        E e = (E) ELEMENT_HANDLE.getAcquire(aElement, ix);
+        if (e != null)
+            {
+            aElement[ix] = null;
+            }
+        return e;
+        }
+
+
+    // ----- status --------------------------------------------------------------------------------
+
+    /**
+     * @return the number of elements in the ring (including the claimed, but not yet published
+     *         ones) plus the number of elements in the overflow queue
+     */
+    public int size()
+        {
+        int cSize = (int) (m_lTail - m_lHead);
+        return f_queueOverflow.isEmpty() ? cSize : cSize + f_queueOverflow.size();
+        }
+
+    /**
+     * @return true iff there are no elements (including the claimed, but not yet published ones)
+     */
+    public boolean isEmpty()
+        {
+        return m_lTail == m_lHead && f_queueOverflow.isEmpty();
+        }
+
+    /**
+     * @return true iff some elements have spilled into the overflow queue
+     */
+    public boolean isOverflowing()
+        {
+        return !f_queueOverflow.isEmpty();
+        }
+
+    /**
+     * @return the ring capacity
+     */
+    public int getCapacity()
+        {
+        return f_aElement.length;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * The maximum ring capacity.
+     */
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The mask that controls how often the consumer releases the slots while draining.
+     */
+    private static final int RELEASE_MASK = 0x3F;
+
+    /**
+     * The ring.
+     */
+    private final Object[] f_aElement;
+
+    /**
+     * The index mask.
+     */
+    private final int f_nMask;
+
+    /**
+     * The overflow queue.
+     */
+    private final Queue<E> f_queueOverflow = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The position of the next element to consume (written only by the consumer).
+     */
+    private volatile long m_lHead;
+
+    /**
+     * The position of the next slot to claim.
+     */
+    private volatile long m_lTail;
+
+    private static final VarHandle HEAD_HANDLE;
+    private static final VarHandle TAIL_HANDLE;
+    private static final VarHandle ELEMENT_HANDLE = MethodHandles.arrayElementVarHandle(Object[].class);
+    static
+        {
+        try
+            {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD_HANDLE = lookup.findVarHandle(MpscRingBuffer.class, "m_lHead", long.class);
+            TAIL_HANDLE = lookup.findVarHandle(MpscRingBuffer.class, "m_lTail", long.class);
+            }
+        catch (IllegalAccessException | NoSuchFieldException e)
+            {
+            throw new IllegalStateException(e);
+            }
+        }
+    }
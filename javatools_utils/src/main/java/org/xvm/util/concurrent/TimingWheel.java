@@ -0,0 +1,646 @@
+package org.xvm.util.concurrent;
+
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import java.util.Objects;
+import java.util.Queue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A hierarchical timing wheel that is used to schedule a large number of (mostly cancelled)
+ * timeouts with O(1) cost for both scheduling and cancellation.
+ * <p>
+ * The wheel consists of a number of levels, each having {@link #SLOTS} buckets; a bucket on the
+ * level {@code k} covers {@code SLOTS^k} ticks. A timeout is placed into the bucket of the lowest
+ * level that covers its deadline; as the time advances, the buckets of the higher levels are
+ * "cascaded" down to the lower ones, until the timeouts expire at the level zero.
+ * <p>
+ * All the wheel's structures are owned by a single daemon thread (started by {@link #start}),
+ * which also runs the expired tasks; the tasks are, therefore, expected to be short and non-blocking (most commonly they
+ * simply schedule some work elsewhere). Other threads communicate with the wheel thread via
+ * lock-free queues: the {@link #schedule} and the {@link Timeout#cancel} calls never block and
+ * never touch the buckets directly.
+ */
+public class TimingWheel
+    {
+    /**
+     * Construct a {@link TimingWheel} with a one millisecond tick. The wheel doesn't run any tasks
+     * until it is {@link #start started}.
+     *
+     * @param sName  the name of the wheel thread
+     */
+    public TimingWheel(String sName)
+        {
+        this(sName, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+    /**
+     * Construct a {@link TimingWheel}.
+     *
+     * @param sName       the name of the wheel thread
+     * @param cTickNanos  the wheel resolution in nanoseconds
+     */
+    public TimingWheel(String sName, long cTickNanos)
+        {
+        this(sName, cTickNanos, null);
+        }
+
+    /**
+     * Construct a {@link TimingWheel}.
+     *
+     * @param sName       the name of the wheel thread
+     * @param cTickNanos  the wheel resolution in nanoseconds
+     * @param handler     the handler for the exceptions thrown by the tasks; null to use the
+     *                    default handler of the wheel thread
+     */
+    public TimingWheel(String sName, long cTickNanos, Thread.UncaughtExceptionHandler handler)
+        {
+        if (cTickNanos <= 0)
+            {
+            throw new IllegalArgumentException("illegal tick: " + cTickNanos);
+            }
+
+        f_cTickNanos = cTickNanos;
+        f_ldtOrigin  = System.nanoTime();
+
+        Bucket[][] aaBucket = new Bucket[LEVELS][SLOTS];
+        for (Bucket[] aBucket : aaBucket)
+            {
+            for (int i = 0; i < SLOTS; i++)
+                {
+                aBucket[i] = new Bucket();
+                }
+            }
+        f_aaBucket = aaBucket;
+        f_sName    = sName;
+        f_handler  = handler;
+        }
+
+
+    // ----- public API ----------------------------------------------------------------------------
+
+    /**
+     * Start the wheel thread. The tasks that were scheduled before the wheel is started don't run
+     * until it is.
+     *
+     * @return this TimingWheel
+     */
+    public synchronized TimingWheel start()
+        {
+        if (m_thread != null)
+            {
+            throw new IllegalStateException("timing wheel has already been started");
+            }
+
+        Thread                          thread  = new Thread(this::run, f_sName);
+        Thread.UncaughtExceptionHandler handler = f_handler;
+        thread.setDaemon(true);
+        if (handler != null)
+            {
+            thread.setUncaughtExceptionHandler(handler);
+            }
+        m_thread = thread;
+        thread.start();
+        return this;
+        }
+
+    /**
+     * Schedule the specified task to run after the specified delay.
+     *
+     * @param task    the task to run on the wheel thread
+     * @param cDelay  the delay
+     * @param unit    the delay unit
+     *
+     * @return the Timeout that could be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long cDelay, TimeUnit unit)
+        {
+        Objects.requireNonNull(task, "null task");
+        if (m_fShutdown)
+            {
+            throw new IllegalStateException("timing wheel has been shut down");
+            }
+
+        long    ldtNow  = System.nanoTime();
+        long    ldtDue  = ldtNow + Math.max(0, unit.toNanos(cDelay));
+        Timeout timeout = new Timeout(task, ldtDue < ldtNow ? Long.MAX_VALUE : ldtDue);
+
+        f_atomicPending.getAndIncrement();
+        f_queueScheduled.add(timeout);
+
+        // wake up the wheel thread if it's going to sleep past the new deadline
+        long ldtWakeUp = m_ldtWakeUp;
+        if (ldtWakeUp != Long.MIN_VALUE && timeout.f_ldtDue - ldtWakeUp < 0)
+            {
+            LockSupport.unpark(m_thread);
+            }
+        return timeout;
+        }
+
+    /**
+     * @return the approximate number of scheduled tasks that have neither run nor been cancelled
+     */
+    public int getPendingCount()
+        {
+        return f_atomicPending.get();
+        }
+
+    /**
+     * @return the total number of tasks that have run
+     */
+    public long getExpiredCount()
+        {
+        return f_atomicExpired.get();
+        }
+
+    /**
+     * Stop the wheel; none of the pending tasks are going to run.
+     */
+    public void shutdown()
+        {
+        m_fShutdown = true;
+        LockSupport.unpark(m_thread);
+        }
+
+
+    // ----- inner class: Timeout ------------------------------------------------------------------
+
+    /**
+     * A handle for a scheduled task.
+     */
+    public class Timeout
+        {
+        private Timeout(Runnable task, long ldtDue)
+            {
+            f_task   = task;
+            f_ldtDue = ldtDue;
+            }
+
+        /**
+         * Cancel the task.
+         *
+         * @return true iff the task has been cancelled; false if it has already run or has been
+         *         cancelled before
+         */
+        public boolean cancel()
+            {
+            if (STATE_HANDLE.compareAndSet(this, STATE_PENDING, STATE_CANCELLED))
+                {
+                f_atomicPending.getAndDecrement();
+                f_queueCancelled.add(this);
+                return true;
+                }
+            return false;
+            }
+
+        /**
+         * @return true iff the task has been cancelled
+         */
+        public boolean isCancelled()
+            {
+            return m_nState == STATE_CANCELLED;
+            }
+
+        /**
+         * @return true iff the task has run
+         */
+        public boolean isExpired()
+            {
+            return m_nState == STATE_EXPIRED;
+            }
+
+        /**
+         * Run the task unless it has been cancelled.
+         */
+        void expire()
+            {
+            if (STATE_HANDLE.compareAndSet(this, STATE_PENDING, STATE_EXPIRED))
+                {
+                f_atomicPending.getAndDecrement();
+                f_atomicExpired.getAndIncrement();
+                try
+                    {
+                    f_task.run();
+                    }
+                catch (Throwable e)
+                    {
+                    // the tasks are expected to handle their own exceptions; report the failure
+                    // without letting it kill the wheel thread
+                    Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    }
+                }
+            }
+
+        /**
+         * The task.
+         */
+        final Runnable f_task;
+
+        /**
+         * The deadline (in System.nanoTime() terms).
+         */
+        final long f_ldtDue;
+
+        /**
+         * The state (one of the STATE_* values); see {@link #STATE_HANDLE}.
+         */
+        volatile int m_nState = STATE_PENDING;
+
+        /**
+         * The bucket this timeout is currently placed into and the bucket's level (owned by the
+         * wheel thread).
+         */
+        Bucket m_bucket;
+        int    m_iLevel;
+
+        /**
+         * The neighbours within the bucket (owned by the wheel thread).
+         */
+        Timeout m_prev;
+        Timeout m_next;
+        }
+
+
+    // ----- inner class: Bucket -------------------------------------------------------------------
+
+    /**
+     * A doubly-linked list of timeouts.
+     */
+    private static class Bucket
+        {
+        void add(Timeout timeout)
+            {
+            Timeout head = m_head;
+            timeout.m_bucket = this;
+            timeout.m_prev   = null;
+            timeout.m_next   = head;
+            if (head != null)
+                {
+                head.m_prev = timeout;
+                }
+            m_head = timeout;
+            }
+
+        void remove(Timeout timeout)
+            {
+            Timeout prev = timeout.m_prev;
+            Timeout next = timeout.m_next;
+            if (prev == null)
+                {
+                m_head = next;
+                }
+            else
+                {
+                prev.m_next = next;
+                }
+            if (next != null)
+                {
+                next.m_prev = prev;
+                }
+            timeout.m_bucket = null;
+            timeout.m_prev   = null;
+            timeout.m_next   = null;
+            }
+
+        /**
+         * Remove all the timeouts from this bucket.
+         *
+         * @return the former head of the list (still linked via the "next" references)
+         */
+        Timeout clear()
+            {
+            Timeout head = m_head;
+            m_head = null;
+            return head;
+            }
+
+        boolean isEmpty()
+            {
+            return m_head == null;
+            }
+
+        Timeout m_head;
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * The wheel thread's main loop.
+     */
+    private void run()
+        {
+        long nTickCurrent = 0;
+        while (!m_fShutdown)
+            {
+            long nTickNow = tickOf(System.nanoTime());
+
+            // unlink the cancelled timeouts
+            drainCancelled();
+
+            if (m_cTimeouts == 0)
+                {
+                // nothing to expire; jump directly to the current tick
+                nTickCurrent = nTickNow;
+                }
+
+            // place the new timeouts and then advance the wheel to the current tick, expiring the
+            // due timeouts
+            drainScheduled(nTickCurrent);
+            while (nTickCurrent < nTickNow)
+                {
+                advance(++nTickCurrent);
+                }
+
+            // calculate the next wake-up
+            long cTicksSleep;
+            if (m_cTimeouts == 0)
+                {
+                cTicksSleep = MAX_SLEEP_TICKS;
+                }
+            else if (m_acTimeouts[0] > 0)
+                {
+                cTicksSleep = 1;
+                }
+            else
+                {
+                // nothing can expire before the level zero wraps around
+                cTicksSleep = SLOTS - (nTickCurrent & SLOT_MASK);
+                }
+
+            long ldtWakeUp = f_ldtOrigin + (nTickCurrent + cTicksSleep) * f_cTickNanos;
+            m_ldtWakeUp = ldtWakeUp;
+            if (f_queueScheduled.isEmpty() && f_queueCancelled.isEmpty())
+                {
+                LockSupport.parkNanos(this, ldtWakeUp - System.nanoTime());
+                }
+            m_ldtWakeUp = Long.MIN_VALUE;
+            }
+        }
+
+    /**
+     * Advance the wheel by a single tick.
+     *
+     * @param nTick  the new current tick
+     */
+    private void advance(long nTick)
+        {
+        // cascade the higher levels down starting from the top
+        for (int iLevel = LEVELS - 1; iLevel > 0; iLevel--)
+            {
+            if ((nTick & ((1L << (SLOT_BITS * iLevel)) - 1)) == 0)
+                {
+                int iSlot = (int) (nTick >>> (SLOT_BITS * iLevel)) & SLOT_MASK;
+                cascade(iLevel, f_aaBucket[iLevel][iSlot], nTick);
+                }
+            }
+
+        Bucket  bucket  = f_aaBucket[0][(int) nTick & SLOT_MASK];
+        Timeout timeout = bucket.clear();
+        while (timeout != null)
+            {
+            Timeout next = timeout.m_next;
+            timeout.m_bucket = null;
+            timeout.m_prev   = null;
+            timeout.m_next   = null;
+            m_cTimeouts--;
+            m_acTimeouts[0]--;
+            timeout.expire();
+            timeout = next;
+            }
+        }
+
+    /**
+     * Re-distribute the timeouts from the specified bucket into the lower levels.
+     */
+    private void cascade(int iLevel, Bucket bucket, long nTick)
+        {
+        Timeout timeout = bucket.clear();
+        while (timeout != null)
+            {
+            Timeout next = timeout.m_next;
+            m_cTimeouts--;
+            m_acTimeouts[iLevel]--;
+            // the level zero for this tick has not been expired yet
+            place(timeout, nTick - 1);
+            timeout = next;
+            }
+        }
+
+    /**
+     * Place the specified timeout into a bucket.
+     *
+     * @param timeout  the timeout
+     * @param nTick    the current tick
+     */
+    private void place(Timeout timeout, long nTick)
+        {
+        // the deadline falls somewhere within its tick; expire it at the end of that tick
+        long nTickDue = tickOf(timeout.f_ldtDue) + 1;
+        long cTicks   = nTickDue - nTick;
+        if (cTicks <= 0)
+            {
+            // already due; it will expire at the next tick
+            nTickDue = nTick + 1;
+            cTicks   = 1;
+            }
+
+        else if (cTicks >= MAX_TICKS)
+            {
+            // beyond the wheel's range; place it into the farthest bucket, so it gets re-placed
+            // when that bucket cascades
+            nTickDue = nTick + MAX_TICKS - 1;
+            cTicks   = MAX_TICKS - 1;
+            }
+
+        int iLevel = 0;
+        while (cTicks >= (1L << (SLOT_BITS * (iLevel + 1))))
+            {
+            iLevel++;
+            }
+
+        int iSlot = (int) (nTickDue >>> (SLOT_BITS * iLevel)) & SLOT_MASK;
+        f_aaBucket[iLevel][iSlot].add(timeout);
+        timeout.m_iLevel = iLevel;
+        m_cTimeouts++;
+        m_acTimeouts[iLevel]++;
+        }
+
+    /**
+     * Place all the newly scheduled timeouts into the wheel.
+     */
+    private void drainScheduled(long nTick)
+        {
+        Timeout timeout;
+        while ((timeout = f_queueScheduled.poll()) != null)
+            {
+            if (timeout.m_nState == STATE_PENDING)
+                {
+                place(timeout, nTick);
+                }
+            }
+        }
+
+    /**
+     * Unlink all the cancelled timeouts from the wheel.
+     */
+    private void drainCancelled()
+        {
+        Timeout timeout;
+        while ((timeout = f_queueCancelled.poll()) != null)
+            {
+            Bucket bucket = timeout.m_bucket;
+            if (bucket != null)
+                {
+                bucket.remove(timeout);
+                m_cTimeouts--;
+                m_acTimeouts[timeout.m_iLevel]--;
+                }
+            }
+        }
+
+    /**
+     * @return the tick number for the specified System.nanoTime() value
+     */
+    private long tickOf(long ldtNanos)
+        {
+        return ldtNanos == Long.MAX_VALUE
+                ? Long.MAX_VALUE / 2
+                : (ldtNanos - f_ldtOrigin) / f_cTickNanos;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    private static final int STATE_PENDING   = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED   = 2;
+
+    /**
+     * VarHandle for {@link Timeout#m_nState}.
+     */
+    private static final VarHandle STATE_HANDLE;
+    static
+        {
+        try
+            {
+            STATE_HANDLE = MethodHandles.lookup().findVarHandle(Timeout.class,
+                "m_nState", int.class);
+            }
+        catch (IllegalAccessException | NoSuchFieldException e)
+            {
+            throw new IllegalStateException(e);
+            }
+        }
+
+    /**
+     * The number of bits used for the slot index.
+     */
+    private static final int SLOT_BITS = 8;
+
+    /**
+     * The number of slots per level.
+     */
+    public static final int SLOTS = 1 << SLOT_BITS;
+
+    /**
+     * The slot index mask.
+     */
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    /**
+     * The number of levels; with a millisecond tick, four levels cover over 49 days.
+     */
+    private static final int LEVELS = 4;
+
+    /**
+     * The number of ticks covered by the wheel.
+     */
+    private static final long MAX_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    /**
+     * The maximum number of ticks the wheel thread sleeps when there are no timeouts.
+     */
+    private static final long MAX_SLEEP_TICKS = SLOTS;
+
+    /**
+     * The tick duration.
+     */
+    private final long f_cTickNanos;
+
+    /**
+     * The System.nanoTime() value of the tick zero.
+     */
+    private final long f_ldtOrigin;
+
+    /**
+     * The buckets by level and slot (owned by the wheel thread).
+     */
+    private final Bucket[][] f_aaBucket;
+
+    /**
+     * The number of timeouts placed into the wheel (owned by the wheel thread).
+     */
+    private int m_cTimeouts;
+
+    /**
+     * The number of timeouts placed into the wheel per level (owned by the wheel thread).
+     */
+    private final int[] m_acTimeouts = new int[LEVELS];
+
+    /**
+     * The newly scheduled timeouts.
+     */
+    private final Queue<Timeout> f_queueScheduled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The cancelled timeouts that need to be removed from the wheel.
+     */
+    private final Queue<Timeout> f_queueCancelled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The time the wheel thread is going to wake up at or Long.MIN_VALUE if it's awake.
+     */
+    private volatile long m_ldtWakeUp = Long.MIN_VALUE;
+
+    /**
+     * The name of the wheel thread.
+     */
+    private final String f_sName;
+
+    /**
+     * The handler for the exceptions thrown by the tasks; null for the default one.
+     */
+    private final Thread.UncaughtExceptionHandler f_handler;
+
+    /**
+     * The wheel thread; null until the wheel is started.
+     */
+    private volatile Thread m_thread;
+
+    /**
+     * The shutdown flag.
+     */
+    private volatile boolean m_fShutdown;
+
+    /**
+     * Metrics: the number of pending timeouts.
+     */
+    private final AtomicInteger f_atomicPending = new AtomicInteger();
+
+    /**
+     * Metrics: the number of expired timeouts.
+     */
+    private final AtomicLong f_atomicExpired = new AtomicLong();
+    }
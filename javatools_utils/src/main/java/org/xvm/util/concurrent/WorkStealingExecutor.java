@@ -0,0 +1,403 @@
+package org.xvm.util.concurrent;
+
+
+import java.util.Objects;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * A fixed size {@link Executor} that keeps a separate run-queue per worker thread and allows idle
+ * workers to steal work from the busy ones.
+ * <p>
+ * Tasks submitted by a worker thread are placed on that worker's own queue, which keeps the related
+ * work (e.g. a service that re-schedules itself) on the same thread. Tasks submitted by any other
+ * thread are either placed on the queue of the worker indicated by the "affinity" hint or spread
+ * across the workers in a round-robin fashion. Each worker processes its own queue in the FIFO order
+ * and, when its own queue is empty, steals the oldest task from the head of another worker's queue,
+ * so that a stolen task never overtakes the tasks that have been waiting longer (e.g. a container
+ * slice that was re-submitted to the back of the line).
+ */
+public class WorkStealingExecutor
+        implements Executor
+    {
+    /**
+     * Construct a {@link WorkStealingExecutor}.
+     *
+     * @param cWorkers  the number of worker threads
+     * @param factory   the factory to create the worker threads with; the exceptions thrown by
+     *                  the tasks are reported to the worker thread's uncaught exception handler
+     */
+    public WorkStealingExecutor(int cWorkers, ThreadFactory factory)
+        {
+        if (cWorkers <= 0)
+            {
+            throw new IllegalArgumentException("illegal worker count: " + cWorkers);
+            }
+
+        Worker[] aWorker = new Worker[cWorkers];
+        for (int i = 0; i < cWorkers; i++)
+            {
+            Worker worker = aWorker[i] = new Worker(i);
+            worker.m_thread = Objects.requireNonNull(factory.newThread(worker), "null thread");
+            }
+        f_aWorker = aWorker;
+
+        for (Worker worker : aWorker)
+            {
+            worker.m_thread.start();
+            }
+        }
+
+
+    // ----- Executor API --------------------------------------------------------------------------
+
+    @Override
+    public void execute(Runnable task)
+        {
+        execute(task, -1);
+        }
+
+    /**
+     * Execute the specified task, preferably on the worker with the specified index.
+     *
+     * @param task       the task to execute
+     * @param nAffinity  the preferred worker index (as returned by {@link #getCurrentWorker});
+     *                   a negative value indicates no preference
+     */
+    public void execute(Runnable task, int nAffinity)
+        {
+        Objects.requireNonNull(task, "null task");
+        if (m_fShutdown)
+            {
+            throw new RejectedExecutionException("executor has been shut down");
+            }
+
+        Worker[] aWorker = f_aWorker;
+        int      cWorker = aWorker.length;
+        Worker   worker;
+        if (nAffinity >= 0)
+            {
+            worker = aWorker[nAffinity % cWorker];
+            }
+        else
+            {
+            worker = currentWorker();
+            if (worker == null)
+                {
+                worker = aWorker[(f_atomicNext.getAndIncrement() & Integer.MAX_VALUE) % cWorker];
+                }
+            }
+
+        worker.f_queue.addLast(task);
+        f_atomicSubmitted.getAndIncrement();
+
+        signal(worker);
+        }
+
+
+    // ----- public API ----------------------------------------------------------------------------
+
+    /**
+     * @return the index of the worker the calling thread represents or -1 if the calling thread
+     *         is not a worker of this executor
+     */
+    public int getCurrentWorker()
+        {
+        Worker worker = currentWorker();
+        return worker == null ? -1 : worker.f_nIndex;
+        }
+
+    /**
+     * @return the number of worker threads
+     */
+    public int getWorkerCount()
+        {
+        return f_aWorker.length;
+        }
+
+    /**
+     * @return the approximate number of workers that are actively executing tasks
+     */
+    public int getActiveCount()
+        {
+        return f_atomicActive.get();
+        }
+
+    /**
+     * @return the approximate number of tasks that are waiting to be executed
+     */
+    public long getQueuedTaskCount()
+        {
+        long cTasks = 0;
+        for (Worker worker : f_aWorker)
+            {
+            cTasks += worker.f_queue.size();
+            }
+        return cTasks;
+        }
+
+    /**
+     * @return the total number of tasks submitted to this executor
+     */
+    public long getSubmittedTaskCount()
+        {
+        return f_atomicSubmitted.get();
+        }
+
+    /**
+     * @return the total number of tasks that were executed by a worker other than the one they
+     *         were submitted to
+     */
+    public long getStealCount()
+        {
+        return f_atomicSteals.get();
+        }
+
+    /**
+     * Initiate an orderly shutdown; the tasks that have been already submitted will be executed,
+     * but no new tasks will be accepted.
+     */
+    public void shutdown()
+        {
+        m_fShutdown = true;
+        for (Worker worker : f_aWorker)
+            {
+            LockSupport.unpark(worker.m_thread);
+            }
+        }
+
+    /**
+     * @return true iff this executor has been shut down
+     */
+    public boolean isShutdown()
+        {
+        return m_fShutdown;
+        }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * @return the worker associated with the calling thread or null
+     */
+    private Worker currentWorker()
+        {
+        Worker worker = s_tloWorker.get();
+        return worker != null && worker.owner() == this ? worker : null;
+        }
+
+    /**
+     * Notify the workers about a new task on the specified worker's queue.
+     *
+     * @param worker  the worker that received the task
+     */
+    private void signal(Worker worker)
+        {
+        if (worker.m_fParked)
+            {
+            LockSupport.unpark(worker.m_thread);
+            }
+        else if (f_atomicIdle.get() > 0)
+            {
+            // the target is busy; wake up an idle worker that could steal the task
+            for (Worker workerIdle : f_aWorker)
+                {
+                if (workerIdle.m_fParked)
+                    {
+                    LockSupport.unpark(workerIdle.m_thread);
+                    break;
+                    }
+                }
+            }
+        }
+
+    /**
+     * Steal a task from any worker other than the specified one.
+     *
+     * @param workerThief  the worker that is looking for work
+     *
+     * @return a task or null if there are no outstanding tasks
+     */
+    private Runnable steal(Worker workerThief)
+        {
+        Worker[] aWorker = f_aWorker;
+        int      cWorker = aWorker.length;
+        for (int i = 1; i < cWorker; i++)
+            {
+            Worker   worker = aWorker[(workerThief.f_nIndex + i) % cWorker];
+            Runnable task   = worker.f_queue.pollFirst();
+            if (task != null)
+                {
+                f_atomicSteals.getAndIncrement();
+                return task;
+                }
+            }
+        return null;
+        }
+
+    /**
+     * @return true iff any worker's queue is not empty
+     */
+    private boolean hasWork()
+        {
+        for (Worker worker : f_aWorker)
+            {
+            if (!worker.f_queue.isEmpty())
+                {
+                return true;
+                }
+            }
+        return false;
+        }
+
+
+    // ----- inner class: Worker -------------------------------------------------------------------
+
+    /**
+     * A worker with its own run-queue.
+     */
+    private class Worker
+            implements Runnable
+        {
+        Worker(int nIndex)
+            {
+            f_nIndex = nIndex;
+            }
+
+        WorkStealingExecutor owner()
+            {
+            return WorkStealingExecutor.this;
+            }
+
+        @Override
+        public void run()
+            {
+            s_tloWorker.set(this);
+
+            ConcurrentLinkedDeque<Runnable> queue = f_queue;
+            while (true)
+                {
+                Runnable task = queue.pollFirst();
+                if (task == null)
+                    {
+                    task = steal(this);
+                    }
+
+                if (task != null)
+                    {
+                    f_atomicActive.getAndIncrement();
+                    try
+                        {
+                        task.run();
+                        }
+                    catch (Throwable e)
+                        {
+                        // the tasks are expected to handle their own exceptions; report the
+                        // failure without letting it kill the worker
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                        }
+                    finally
+                        {
+                        f_atomicActive.getAndDecrement();
+                        }
+                    continue;
+                    }
+
+                if (m_fShutdown)
+                    {
+                    break;
+                    }
+
+                // announce the intent to park and then re-check the queues; this avoids a race
+                // with a producer that checks the "parked" flag after adding a task
+                m_fParked = true;
+                f_atomicIdle.getAndIncrement();
+                if (!hasWork() && !m_fShutdown)
+                    {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                    }
+                f_atomicIdle.getAndDecrement();
+                m_fParked = false;
+                }
+            }
+
+        /**
+         * The worker index.
+         */
+        final int f_nIndex;
+
+        /**
+         * The worker's run-queue.
+         */
+        final ConcurrentLinkedDeque<Runnable> f_queue = new ConcurrentLinkedDeque<>();
+
+        /**
+         * The worker thread.
+         */
+        Thread m_thread;
+
+        /**
+         * True iff the worker is (or is about to be) parked waiting for work.
+         */
+        volatile boolean m_fParked;
+        }
+
+
+    // ----- constants and fields ------------------------------------------------------------------
+
+    /**
+     * The maximum time an idle worker stays parked before re-checking the queues.
+     */
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /**
+     * The worker associated with the current thread.
+     */
+    private static final ThreadLocal<Worker> s_tloWorker = new ThreadLocal<>();
+
+    /**
+     * The workers.
+     */
+    private final Worker[] f_aWorker;
+
+    /**
+     * The round-robin counter for tasks submitted by non-worker threads.
+     */
+    private final AtomicInteger f_atomicNext = new AtomicInteger();
+
+    /**
+     * The number of workers executing tasks.
+     */
+    private final AtomicInteger f_atomicActive = new AtomicInteger();
+
+    /**
+     * The number of parked workers.
+     */
+    private final AtomicInteger f_atomicIdle = new AtomicInteger();
+
+    /**
+     * Metrics: the number of submitted tasks.
+     */
+    private final AtomicLong f_atomicSubmitted = new AtomicLong();
+
+    /**
+     * Metrics: the number of stolen tasks.
+     */
+    private final AtomicLong f_atomicSteals = new AtomicLong();
+
+    /**
+     * The shutdown flag.
+     */
+    private volatile boolean m_fShutdown;
+    }
@@ -0,0 +1,205 @@
+package org.xvm.util.concurrent;
+
+
+import java.util.HashSet;
+import java.util.Set;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the ConcurrentAppendList class.
+ */
+public class ConcurrentAppendListTest
+    {
+    @Test
+    public void testAppendGet()
+        {
+        ConcurrentAppendList<Integer> list = new ConcurrentAppendList<>();
+        assertTrue(list.isEmpty());
+
+        // cross a number of segment boundaries
+        for (int i = 0; i < 10_000; i++)
+            {
+            assertEquals(i, list.append(i));
+            }
+        assertEquals(10_000, list.size());
+
+        for (int i = 0; i < 10_000; i++)
+            {
+            assertEquals(Integer.valueOf(i), list.get(i));
+            }
+
+        int n = 0;
+        for (Integer I : list)
+            {
+            assertEquals(Integer.valueOf(n++), I);
+            }
+        assertEquals(10_000, n);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(10_000));
+        }
+
+    @Test
+    public void testSetClear()
+        {
+        ConcurrentAppendList<String> list = new ConcurrentAppendList<>();
+        list.ensureCapacity(1000);
+        list.add("a");
+        list.add("b");
+        assertEquals("b", list.set(1, "c"));
+        assertEquals("c", list.get(1));
+
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertEquals(0, list.append("d"));
+        assertEquals("d", list.get(0));
+        }
+
+    @Test
+    public void testIsAt()
+        {
+        ConcurrentAppendList<String> list = new ConcurrentAppendList<>();
+        String                       s    = new String("a");
+        list.add("x");
+        list.add(s);
+
+        assertTrue(list.isAt(1, s));
+        assertFalse(list.isAt(1, new String("a")));
+        assertFalse(list.isAt(0, s));
+        assertFalse(list.isAt(-1, s));
+        assertFalse(list.isAt(2, s));
+        }
+
+    @Test
+    public void testConcurrentAppend()
+            throws InterruptedException
+        {
+        ConcurrentAppendList<Integer> list = new ConcurrentAppendList<>();
+
+        int      cThreads = 4;
+        int      cEach    = 50_000;
+        Thread[] aThread  = new Thread[cThreads];
+        for (int i = 0; i < cThreads; i++)
+            {
+            int nBase = i * cEach;
+            aThread[i] = new Thread(() ->
+                {
+                for (int j = 0; j < cEach; j++)
+                    {
+                    int n  = nBase + j;
+                    int ix = list.append(n);
+
+                    // the appending thread can always read its own element back
+                    assertEquals(Integer.valueOf(n), list.get(ix));
+                    }
+                });
+            aThread[i].start();
+            }
+        for (Thread thread : aThread)
+            {
+            thread.join();
+            }
+
+        assertEquals(cThreads * cEach, list.size());
+
+        Set<Integer> set = new HashSet<>(list);
+        assertEquals(cThreads * cEach, set.size());
+        for (int i = 0; i < cThreads * cEach; i++)
+            {
+            assertTrue(set.contains(i));
+            }
+        }
+
+    @Test
+    public void testConcurrentIteration()
+            throws InterruptedException
+        {
+        ConcurrentAppendList<Integer> list = new ConcurrentAppendList<>();
+
+        int                        cThreads   = 3;
+        int                        cEach      = 100_000;
+        AtomicBoolean              atomicDone = new AtomicBoolean();
+        AtomicReference<Throwable> atomicFail = new AtomicReference<>();
+
+        // the readers observe the claimed slots while the elements are being published; they must
+        // never see a null element or a gap
+        Thread[] aReader = new Thread[2];
+        for (int i = 0; i < aReader.length; i++)
+            {
+            boolean fIterate = i == 0;
+            aReader[i] = new Thread(() ->
+                {
+                try
+                    {
+                    while (!atomicDone.get())
+                        {
+                        if (fIterate)
+                            {
+                            int ix = 0;
+                            for (Integer I : list)
+                                {
+                                if (I == null)
+                                    {
+                                    throw new AssertionError("null element at " + ix);
+                                    }
+                                ix++;
+                                }
+                            }
+                        else
+                            {
+                            for (int ix = 0, cSize = list.size(); ix < cSize; ix++)
+                                {
+                                if (list.get(ix) == null)
+                                    {
+                                    throw new AssertionError("null element at " + ix);
+                                    }
+                                }
+                            }
+                        }
+                    }
+                catch (Throwable e)
+                    {
+                    atomicFail.compareAndSet(null, e);
+                    }
+                });
+            aReader[i].start();
+            }
+
+        Thread[] aWriter = new Thread[cThreads];
+        for (int i = 0; i < cThreads; i++)
+            {
+            int nBase = i * cEach;
+            aWriter[i] = new Thread(() ->
+                {
+                for (int j = 0; j < cEach; j++)
+                    {
+                    list.append(nBase + j);
+                    }
+                });
+            aWriter[i].start();
+            }
+        for (Thread thread : aWriter)
+            {
+            thread.join();
+            }
+        atomicDone.set(true);
+        for (Thread thread : aReader)
+            {
+            thread.join();
+            }
+
+        assertNull(atomicFail.get());
+        assertEquals(cThreads * cEach, list.size());
+        assertEquals(cThreads * cEach, new HashSet<>(list).size());
+        }
+    }
@@ -0,0 +1,114 @@
+package org.xvm.util.concurrent;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the MpscRingBuffer class.
+ */
+public class MpscRingBufferTest
+    {
+    @Test
+    public void testOfferPoll()
+        {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(5);
+        assertEquals(8, ring.getCapacity());
+        assertTrue(ring.isEmpty());
+
+        for (int i = 0; i < 8; i++)
+            {
+            assertTrue(ring.offer(i));
+            }
+        assertFalse(ring.offer(8));
+        assertEquals(8, ring.size());
+
+        for (int i = 0; i < 8; i++)
+            {
+            assertEquals(Integer.valueOf(i), ring.poll());
+            }
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+        }
+
+    @Test
+    public void testOverflow()
+        {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 10; i++)
+            {
+            ring.add(i);
+            }
+        assertTrue(ring.isOverflowing());
+        assertEquals(10, ring.size());
+
+        // the ring is drained first, but as long as anything is in the overflow queue, the new
+        // elements go there as well
+        assertEquals(Integer.valueOf(0), ring.poll());
+        ring.add(10);
+
+        List<Integer> list = new ArrayList<>();
+        assertEquals(10, ring.drain(list::add));
+        for (int i = 0; i < 10; i++)
+            {
+            assertEquals(Integer.valueOf(i + 1), list.get(i));
+            }
+        assertFalse(ring.isOverflowing());
+        assertTrue(ring.isEmpty());
+
+        assertTrue(ring.add(11));
+        assertEquals(Integer.valueOf(11), ring.poll());
+        }
+
+    @Test
+    public void testProducers()
+            throws InterruptedException
+        {
+        int cProducers = 4;
+        int cPerThread = 100_000;
+
+        MpscRingBuffer<long[]> ring    = new MpscRingBuffer<>(64);
+        Thread[]               aThread = new Thread[cProducers];
+        for (int i = 0; i < cProducers; i++)
+            {
+            long nProducer = i;
+            aThread[i] = new Thread(() ->
+                {
+                for (long n = 0; n < cPerThread; n++)
+                    {
+                    ring.add(new long[] {nProducer, n});
+                    }
+                });
+            aThread[i].start();
+            }
+
+        // the elements of every producer must be consumed in the order they were added
+        long[] anNext    = new long[cProducers];
+        int    cConsumed = 0;
+        while (cConsumed < cProducers * cPerThread)
+            {
+            long[] al = ring.poll();
+            if (al == null)
+                {
+                Thread.onSpinWait();
+                continue;
+                }
+            assertEquals(anNext[(int) al[0]]++, al[1]);
+            cConsumed++;
+            }
+
+        for (Thread thread : aThread)
+            {
+            thread.join();
+            }
+        assertTrue(ring.isEmpty());
+        }
+    }
@@ -0,0 +1,270 @@
+package org.xvm.util.concurrent;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the TimingWheel class.
+ * <p>
+ * The {@link #main} method runs a simple benchmark that compares the cost of scheduling and
+ * cancelling timeouts (the most common use of the service and fiber timeouts) with a large number
+ * of pending timeouts against the java.util.Timer (previously used by the runtime).
+ */
+public class TimingWheelTest
+    {
+    public static void main(String[] args)
+            throws InterruptedException
+        {
+        int cThreads = java.lang.Runtime.getRuntime().availableProcessors();
+        int cPending = 100_000;
+        int cOps     = 1_000_000;
+        if (args != null && args.length > 0)
+            {
+            cPending = Integer.parseInt(args[0]);
+            }
+
+        for (int iIter = 0; iIter < 3; iIter++)
+            {
+            Timer timer = new Timer("bench", true);
+            for (int i = 0; i < cPending; i++)
+                {
+                timer.schedule(new NoOpTask(), 3_600_000 + i);
+                }
+            report("java.util.Timer", cThreads, cOps, () ->
+                {
+                Random rnd = new Random();
+                for (int i = 0; i < cOps; i++)
+                    {
+                    TimerTask task = new NoOpTask();
+                    timer.schedule(task, 1_000 + rnd.nextInt(60_000));
+                    task.cancel();
+                    }
+                });
+            timer.cancel();
+
+            TimingWheel wheel = new TimingWheel("bench").start();
+            for (int i = 0; i < cPending; i++)
+                {
+                wheel.schedule(NO_OP, 3_600_000 + i, TimeUnit.MILLISECONDS);
+                }
+            report("TimingWheel    ", cThreads, cOps, () ->
+                {
+                Random rnd = new Random();
+                for (int i = 0; i < cOps; i++)
+                    {
+                    long cDelay = 1_000 + rnd.nextInt(60_000);
+                    wheel.schedule(NO_OP, cDelay, TimeUnit.MILLISECONDS).cancel();
+                    }
+                });
+            wheel.shutdown();
+            }
+        }
+
+    /**
+     * Run the specified schedule/cancel loop concurrently on the specified number of threads.
+     */
+    private static void report(String sName, int cThreads, int cOps, Runnable loop)
+            throws InterruptedException
+        {
+        Thread[] aThread = new Thread[cThreads];
+        for (int i = 0; i < cThreads; i++)
+            {
+            aThread[i] = new Thread(loop);
+            }
+
+        long ldtStart = System.nanoTime();
+        for (Thread thread : aThread)
+            {
+            thread.start();
+            }
+        for (Thread thread : aThread)
+            {
+            thread.join();
+            }
+        long cNanos = System.nanoTime() - ldtStart;
+
+        System.out.printf("%s: %,d schedule+cancel/sec on %d threads%n", sName,
+                cThreads * cOps * 1_000_000_000L / cNanos, cThreads);
+        }
+
+    private static class NoOpTask
+            extends TimerTask
+        {
+        @Override
+        public void run()
+            {
+            }
+        }
+
+    private static final Runnable NO_OP = () -> {};
+
+    @Test
+    public void testExpiry()
+            throws InterruptedException
+        {
+        TimingWheel wheel = new TimingWheel("test").start();
+        try
+            {
+            int            cTasks = 1_000;
+            CountDownLatch latch  = new CountDownLatch(cTasks);
+            AtomicInteger  cEarly = new AtomicInteger();
+            Random         rnd    = new Random(42);
+            for (int i = 0; i < cTasks; i++)
+                {
+                long cDelay = rnd.nextInt(50);
+                long ldtDue = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cDelay);
+                wheel.schedule(() ->
+                    {
+                    if (System.nanoTime() < ldtDue)
+                        {
+                        cEarly.incrementAndGet();
+                        }
+                    latch.countDown();
+                    }, cDelay, TimeUnit.MILLISECONDS);
+                }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, cEarly.get());
+            assertEquals(cTasks, wheel.getExpiredCount());
+            assertEquals(0, wheel.getPendingCount());
+            }
+        finally
+            {
+            wheel.shutdown();
+            }
+        }
+
+    @Test
+    public void testStart()
+            throws InterruptedException
+        {
+        TimingWheel wheel = new TimingWheel("test");
+        try
+            {
+            CountDownLatch latch = new CountDownLatch(1);
+            wheel.schedule(latch::countDown, 1, TimeUnit.MILLISECONDS);
+            assertFalse(latch.await(50, TimeUnit.MILLISECONDS));
+
+            assertSame(wheel, wheel.start());
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, wheel::start);
+            }
+        finally
+            {
+            wheel.shutdown();
+            }
+        }
+
+    @Test
+    public void testCancel()
+            throws InterruptedException
+        {
+        TimingWheel wheel = new TimingWheel("test").start();
+        try
+            {
+            AtomicInteger cRuns = new AtomicInteger();
+
+            TimingWheel.Timeout timeout =
+                    wheel.schedule(cRuns::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+            assertTrue(timeout.cancel());
+            assertFalse(timeout.cancel());
+            assertTrue(timeout.isCancelled());
+
+            CountDownLatch      latch = new CountDownLatch(1);
+            TimingWheel.Timeout last  = wheel.schedule(latch::countDown, 50, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertTrue(last.isExpired());
+            assertFalse(last.cancel());
+
+            assertEquals(0, cRuns.get());
+            assertEquals(1, wheel.getExpiredCount());
+            }
+        finally
+            {
+            wheel.shutdown();
+            }
+        }
+
+    @Test
+    public void testCascade()
+            throws InterruptedException
+        {
+        // use a 10us tick, so the timeouts below end up on all the wheel's levels
+        TimingWheel wheel = new TimingWheel("test", TimeUnit.MICROSECONDS.toNanos(10)).start();
+        try
+            {
+            long[]         acDelay = {1, 20, 300, 700};
+            CountDownLatch latch   = new CountDownLatch(acDelay.length);
+            AtomicInteger  cEarly  = new AtomicInteger();
+            for (long cDelay : acDelay)
+                {
+                long ldtDue = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(cDelay);
+                wheel.schedule(() ->
+                    {
+                    if (System.nanoTime() < ldtDue)
+                        {
+                        cEarly.incrementAndGet();
+                        }
+                    latch.countDown();
+                    }, cDelay, TimeUnit.MILLISECONDS);
+                }
+
+            // a timeout beyond the wheel's range must be accepted, but not run
+            TimingWheel.Timeout timeoutFar = wheel.schedule(() -> {}, 365, TimeUnit.DAYS);
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(0, cEarly.get());
+            assertFalse(timeoutFar.isExpired());
+            assertEquals(1, wheel.getPendingCount());
+            }
+        finally
+            {
+            wheel.shutdown();
+            }
+        }
+
+    @Test
+    public void testTaskFailure()
+            throws InterruptedException
+        {
+        List<Throwable> listFailed = Collections.synchronizedList(new ArrayList<>());
+        TimingWheel     wheel      = new TimingWheel("test", TimeUnit.MILLISECONDS.toNanos(1),
+                                        (t, e) -> listFailed.add(e)).start();
+        try
+            {
+            // the failure is reported to the handler and the wheel keeps running
+            wheel.schedule(() -> {throw new IllegalStateException("test");},
+                    1, TimeUnit.MILLISECONDS);
+
+            CountDownLatch latch = new CountDownLatch(1);
+            wheel.schedule(latch::countDown, 20, TimeUnit.MILLISECONDS);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            assertEquals(1, listFailed.size());
+            assertEquals("test", listFailed.get(0).getMessage());
+            assertEquals(2, wheel.getExpiredCount());
+            }
+        finally
+            {
+            wheel.shutdown();
+            }
+        }
+    }
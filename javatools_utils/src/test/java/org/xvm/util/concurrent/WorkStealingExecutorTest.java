@@ -0,0 +1,266 @@
+package org.xvm.util.concurrent;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Tests of the WorkStealingExecutor class.
+ * <p>
+ * The {@link #main} method runs a simple benchmark that compares the throughput and the p99
+ * wake-up latency of the WorkStealingExecutor against a fixed ThreadPoolExecutor over a single
+ * shared queue (the executor previously used by the runtime).
+ */
+public class WorkStealingExecutorTest
+    {
+    public static void main(String[] args)
+            throws InterruptedException
+        {
+        int cWorkers = java.lang.Runtime.getRuntime().availableProcessors();
+        int cTasks   = 2_000_000;
+        int cChains  = 256;
+        if (args != null && args.length > 0)
+            {
+            cTasks = Integer.parseInt(args[0]);
+            }
+
+        for (int iIter = 0; iIter < 3; iIter++)
+            {
+            ThreadPoolExecutor executorTPE = new ThreadPoolExecutor(cWorkers, cWorkers, 0,
+                    TimeUnit.SECONDS, new ConcurrentLinkedBlockingQueue<>(), daemonFactory());
+            report("ThreadPoolExecutor  ", executorTPE, cTasks, cChains);
+            executorTPE.shutdown();
+
+            WorkStealingExecutor executorWSE = new WorkStealingExecutor(cWorkers, daemonFactory());
+            report("WorkStealingExecutor", executorWSE, cTasks, cChains);
+            System.out.println("    steals=" + executorWSE.getStealCount());
+            executorWSE.shutdown();
+            }
+        }
+
+    private static void report(String sName, Executor executor, int cTasks, int cChains)
+            throws InterruptedException
+        {
+        long   ldtStart  = System.nanoTime();
+        long[] acLatency = runChains(executor, cTasks, cChains);
+        long   cNanos    = System.nanoTime() - ldtStart;
+
+        Arrays.sort(acLatency);
+        System.out.printf("%s: %,d tasks/sec; p50=%,dns p99=%,dns%n", sName,
+                cTasks * 1_000_000_000L / cNanos,
+                acLatency[acLatency.length / 2],
+                acLatency[(int) (acLatency.length * 0.99)]);
+        }
+
+    /**
+     * Run the specified number of "chains" of tasks, where each task re-submits the next task in
+     * the chain (similar to a service rescheduling itself).
+     *
+     * @return the wake-up latencies (the time between the submission and the execution)
+     */
+    private static long[] runChains(Executor executor, int cTasks, int cChains)
+            throws InterruptedException
+        {
+        int            cPerChain = cTasks / cChains;
+        long[]         acLatency = new long[cPerChain * cChains];
+        AtomicInteger  atomicIx  = new AtomicInteger();
+        CountDownLatch latch     = new CountDownLatch(cChains);
+
+        for (int i = 0; i < cChains; i++)
+            {
+            executor.execute(new Runnable()
+                {
+                @Override
+                public void run()
+                    {
+                    long ldtNow = System.nanoTime();
+                    acLatency[atomicIx.getAndIncrement()] = ldtNow - m_ldtSubmit;
+                    if (++m_cRuns < cPerChain)
+                        {
+                        m_ldtSubmit = System.nanoTime();
+                        executor.execute(this);
+                        }
+                    else
+                        {
+                        latch.countDown();
+                        }
+                    }
+
+                long m_ldtSubmit = System.nanoTime();
+                int  m_cRuns;
+                });
+            }
+        latch.await();
+        return acLatency;
+        }
+
+    private static ThreadFactory daemonFactory()
+        {
+        return r ->
+            {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+            };
+        }
+
+    @Test
+    public void testExecuteAll()
+            throws InterruptedException
+        {
+        WorkStealingExecutor executor = new WorkStealingExecutor(4, daemonFactory());
+        try
+            {
+            int            cTasks = 10_000;
+            AtomicLong     atomic = new AtomicLong();
+            CountDownLatch latch  = new CountDownLatch(cTasks);
+            for (int i = 0; i < cTasks; i++)
+                {
+                executor.execute(() ->
+                    {
+                    atomic.incrementAndGet();
+                    latch.countDown();
+                    });
+                }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertEquals(cTasks, atomic.get());
+            assertEquals(cTasks, executor.getSubmittedTaskCount());
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+        }
+
+    @Test
+    public void testAffinity()
+            throws InterruptedException
+        {
+        WorkStealingExecutor executor = new WorkStealingExecutor(4, daemonFactory());
+        try
+            {
+            AtomicInteger  atomicOuter  = new AtomicInteger(-1);
+            AtomicInteger  atomicWorker = new AtomicInteger(-1);
+            CountDownLatch latch        = new CountDownLatch(1);
+
+            // a task submitted by a worker goes to that worker's queue; since the worker is
+            // blocked, the task can only run if another worker steals it (the outer task itself
+            // could also be stolen before the preferred worker gets to it)
+            executor.execute(() ->
+                {
+                atomicOuter.set(executor.getCurrentWorker());
+                executor.execute(() ->
+                    {
+                    atomicWorker.set(executor.getCurrentWorker());
+                    latch.countDown();
+                    });
+                try
+                    {
+                    latch.await(10, TimeUnit.SECONDS);
+                    }
+                catch (InterruptedException ignore) {}
+                }, 2);
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertTrue(atomicWorker.get() >= 0 && atomicWorker.get() != atomicOuter.get());
+            assertEquals(atomicOuter.get() == 2 ? 1 : 2, executor.getStealCount());
+            assertEquals(-1, executor.getCurrentWorker());
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+        }
+
+    @Test
+    public void testStealOrder()
+            throws InterruptedException
+        {
+        WorkStealingExecutor executor = new WorkStealingExecutor(2, daemonFactory());
+        try
+            {
+            int            cTasks   = 100;
+            List<Integer>  listRun  = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch latch    = new CountDownLatch(cTasks);
+
+            // the tasks are queued by a blocked worker, so they all get stolen by the other one,
+            // which must take them in the order they were submitted
+            executor.execute(() ->
+                {
+                for (int i = 0; i < cTasks; i++)
+                    {
+                    int n = i;
+                    executor.execute(() ->
+                        {
+                        listRun.add(n);
+                        latch.countDown();
+                        });
+                    }
+                try
+                    {
+                    latch.await(10, TimeUnit.SECONDS);
+                    }
+                catch (InterruptedException ignore) {}
+                }, 0);
+
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < cTasks; i++)
+                {
+                assertEquals(Integer.valueOf(i), listRun.get(i));
+                }
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+        }
+
+    @Test
+    public void testTaskFailure()
+            throws InterruptedException
+        {
+        List<Throwable> listFailed = Collections.synchronizedList(new ArrayList<>());
+        ThreadFactory   factory    = r ->
+            {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> listFailed.add(e));
+            return thread;
+            };
+
+        WorkStealingExecutor executor = new WorkStealingExecutor(1, factory);
+        try
+            {
+            // the failure is reported to the handler and the worker keeps running
+            executor.execute(() -> {throw new IllegalStateException("test");}, 0);
+
+            CountDownLatch latch = new CountDownLatch(1);
+            executor.execute(latch::countDown, 0);
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            assertEquals(1, listFailed.size());
+            assertEquals("test", listFailed.get(0).getMessage());
+            }
+        finally
+            {
+            executor.shutdown();
+            }
+        }
+    }
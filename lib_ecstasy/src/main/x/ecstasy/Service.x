@@ -77,6 +77,22 @@ interface Service {
          */
         void gc();
 
+        /**
+         * The maximum amount of time that a single fiber of this service is allowed to run before
+         * the runtime pauses it to let other fibers and services run. Setting the value to
+         * [Duration.None] indicates that the time slice of the service's container should be used.
+         *
+         * Shorter time slices reduce the latency of the services that share the CPU with this
+         * service at the cost of a higher scheduling overhead.
+         */
+        Duration timeSlice;
+
+        /**
+         * The amount of time that each of the service's fibers that have not yet completed has
+         * consumed the CPU.
+         */
+        @RO Duration[] fiberCpuTimes;
+
         /**
          * Attempt to terminate the Service gracefully by asking it to shut down itself.
          * A client that has a reference to the Service may shut it down, or the service
@@ -473,6 +473,14 @@ service Container
          */
         @RO Service[] nestedServices;
 
+        /**
+         * The number of I/O operations (such as file reads and writes) that the services within
+         * this container have requested, but that have not completed yet. This includes the
+         * operations that are waiting for the container's I/O concurrency limit, if the runtime
+         * imposes one.
+         */
+        @RO Int pendingIO;
+
         /**
          * Pause all execution of code within the container. This attempts to pause all service
          * execution within the container as that execution reaches safe points (the definition of
@@ -30,6 +30,15 @@ interface Body
         return bytes.knownSize();
     }
 
+    /**
+     * True iff the content of this body is produced on demand rather than held in memory. The
+     * sender of such a body should use the [streamBodyTo] method to send it, so that the entire
+     * body doesn't have to be loaded into memory at once.
+     */
+    @RO Boolean streaming.get() {
+        return False;
+    }
+
     /**
      * The bytes of the body.
      *
@@ -1,5 +1,6 @@
 import ecstasy.fs.FileNode;
 
+import responses.FileResponse;
 import responses.SimpleResponse;
 
 
@@ -23,8 +24,13 @@ mixin StaticContent(String path, FileNode fileNode, MediaType? mediaType = Null,
             if (mediaType == Null) {
                 mediaType := webApp.registry_.findMediaType(file.name);
             }
-            return mediaType == Null
-                ? new SimpleResponse(UnsupportedMediaType, $"Unknown media type for {file.name}")
+            if (mediaType == Null) {
+                return new SimpleResponse(UnsupportedMediaType, $"Unknown media type for {file.name}");
+            }
+
+            // a large file is streamed rather than loaded into memory
+            return file.size > FileResponse.ChunkSize
+                ? new FileResponse(file, mediaType)
                 : new SimpleResponse(OK, mediaType, file.contents);
         }
 
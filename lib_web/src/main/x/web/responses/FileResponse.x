@@ -0,0 +1,59 @@
+/**
+ * The representation of an HTTP response that sends the contents of a file. Unlike a
+ * [SimpleResponse] constructed from the file contents, this response never loads the entire file
+ * into memory; its body is [streamed](Body.streaming) in portions of at most [ChunkSize] bytes.
+ */
+@AutoFreezable
+class FileResponse
+        extends SimpleResponse {
+
+    construct(File file, MediaType mediaType, HttpStatus status = OK) {
+        this.file = file;
+        construct SimpleResponse(status, mediaType);
+    }
+
+    /**
+     * The maximum size of a single portion of the body.
+     */
+    static Int ChunkSize = 64K;
+
+    /**
+     * The file to send.
+     */
+    public/private File file;
+
+
+    // ----- Body interface ------------------------------------------------------------------------
+
+    @Override
+    Boolean streaming.get() {
+        return True;
+    }
+
+    @Override
+    conditional Int knownSize() {
+        return True, file.size;
+    }
+
+    @Override
+    Byte[] bytes.get() {
+        return file.contents;
+    }
+
+    @Override
+    void streamBodyTo(BinaryOutput receiver) {
+        File file = this.file;
+        Int  size = file.size;
+        for (Int offset = 0; offset < size; offset += ChunkSize) {
+            receiver.writeBytes(file.read(offset ..< (offset + ChunkSize).notGreaterThan(size)));
+        }
+    }
+
+
+    // ----- debugging support ---------------------------------------------------------------------
+
+    @Override
+    String toString() {
+        return $"{status} : {file}";
+    }
+}
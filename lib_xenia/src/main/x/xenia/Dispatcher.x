@@ -352,8 +352,7 @@ service Dispatcher {
                     }
                 }
 
-                (Int status, String[] names, String[] values, Byte[] body) = Http1Response.prepare(r);
-                requestInfo.respond(status, names, values, body);
+                Http1Response.send(requestInfo, r);
             });
             return;
         }
@@ -0,0 +1,93 @@
+import ecstasy.io.EndOfFile;
+
+import HttpServer.RequestInfo;
+
+
+/**
+ * A [BinaryInput] that reads the body of a request as it arrives, one portion at a time, using
+ * the [RequestInfo.readBodyChunk] method. At most one portion of the body is held in memory.
+ */
+class Http1BodyInput(RequestInfo info)
+        implements BinaryInput {
+
+    /**
+     * The current portion of the body.
+     */
+    private Byte[] chunk = [];
+
+    /**
+     * The offset of the next byte to read in the current portion of the body.
+     */
+    private Int offset;
+
+    /**
+     * True iff the end of the body has been reached.
+     */
+    private Boolean eof;
+
+
+    // ----- BinaryInput interface -----------------------------------------------------------------
+
+    @Override
+    Byte readByte() {
+        if (offset >= chunk.size && !nextChunk()) {
+            throw new EndOfFile();
+        }
+        return chunk[offset++];
+    }
+
+    @Override
+    void readBytes(Byte[] bytes, Int offset, Int count) {
+        assert:arg offset >= 0 && count >= 0 && offset + count <= bytes.size;
+
+        while (count > 0) {
+            if (this.offset >= chunk.size && !nextChunk()) {
+                throw new EndOfFile();
+            }
+
+            Int first = this.offset;
+            Int copy  = count.notGreaterThan(chunk.size - first);
+            bytes.replaceAll(offset, chunk[first ..< first + copy]);
+            this.offset = first + copy;
+            offset     += copy;
+            count      -= copy;
+        }
+    }
+
+    @Override
+    void pipeTo(BinaryOutput out, Int count) {
+        assert:arg count >= 0;
+
+        while (count > 0) {
+            if (offset >= chunk.size && !nextChunk()) {
+                throw new EndOfFile();
+            }
+
+            Int first = offset;
+            Int copy  = count.notGreaterThan(chunk.size - first);
+            out.writeBytes(chunk, first, copy);
+            offset = first + copy;
+            count -= copy;
+        }
+    }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Obtain the next portion of the body.
+     *
+     * @return True iff there are more bytes to read
+     */
+    private Boolean nextChunk() {
+        if (!eof) {
+            if (Byte[] next := info.readBodyChunk()) {
+                chunk  = next;
+                offset = 0;
+                return True;
+            }
+            eof = True;
+        }
+        return False;
+    }
+}
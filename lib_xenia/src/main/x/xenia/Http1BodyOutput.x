@@ -0,0 +1,92 @@
+import HttpServer.RequestInfo;
+
+
+/**
+ * A [BinaryOutput] that sends the body of a response started by [RequestInfo.respondStreaming],
+ * one portion at a time, using the [RequestInfo.writeBodyChunk] method. The bytes are collected
+ * into portions of (at least) [bufferSize] bytes; closing the stream sends the last portion and
+ * ends the response.
+ */
+class Http1BodyOutput
+        implements BinaryOutput {
+
+    construct(RequestInfo info, Int bufferSize = 16K) {
+        this.info       = info;
+        this.bufferSize = bufferSize;
+        this.buffer     = new Array<Byte>(bufferSize);
+    }
+
+    /**
+     * The request being responded to.
+     */
+    protected RequestInfo info;
+
+    /**
+     * The minimum size of a portion of the body to send.
+     */
+    protected Int bufferSize;
+
+    /**
+     * The bytes that have been written, but not yet sent.
+     */
+    private Byte[] buffer;
+
+    /**
+     * True iff the stream has been closed.
+     */
+    private Boolean closed;
+
+
+    // ----- BinaryOutput interface ----------------------------------------------------------------
+
+    @Override
+    void writeByte(Byte value) {
+        assert !closed;
+
+        buffer.add(value);
+        if (buffer.size >= bufferSize) {
+            flush();
+        }
+    }
+
+    @Override
+    void writeBytes(Byte[] bytes, Int offset, Int count) {
+        assert !closed;
+        assert:arg offset >= 0 && count >= 0 && offset + count <= bytes.size;
+
+        if (count >= bufferSize) {
+            // a large portion is sent as is, without copying it into the buffer
+            flush();
+            info.writeBodyChunk(bytes[offset ..< offset + count].freeze());
+        } else if (count > 0) {
+            buffer.addAll(bytes[offset ..< offset + count]);
+            if (buffer.size >= bufferSize) {
+                flush();
+            }
+        }
+    }
+
+    @Override
+    void close(Exception? cause = Null) {
+        if (!closed) {
+            closed = True;
+            if (cause == Null) {
+                flush();
+            }
+            info.endBody(cause == Null);
+        }
+    }
+
+
+    // ----- internal ------------------------------------------------------------------------------
+
+    /**
+     * Send the buffered bytes, if any.
+     */
+    private void flush() {
+        if (!buffer.empty) {
+            info.writeBodyChunk(buffer.freeze(inPlace=True));
+            buffer = new Array<Byte>(bufferSize);
+        }
+    }
+}
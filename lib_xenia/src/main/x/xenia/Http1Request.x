@@ -25,17 +25,17 @@ const Http1Request(RequestInfo info, UriParameters matchResult)
         implements Body {
 
     assert() {
-        // TODO handle non-simple bodies e.g. multi-part, streaming
+        // TODO handle non-simple bodies e.g. multi-part
         assert !info.containsNestedBodies();
-        if (Byte[] bytes := info.getBodyBytes()) {
+
+        // the body is not read here, since it may be large enough to be streamed; see [bytes]
+        if (contentLength(info) || info.getHeaderValuesForName(Header.TransferEncoding)) {
             this.hasBody = True;
-            this.bytes   = bytes;
 
             assert String[] contentTypes := info.getHeaderValuesForName(Header.ContentType);
             assert mediaType := MediaType.of(contentTypes[0]);
         } else {
             this.hasBody   = False;
-            this.bytes     = [];
             this.mediaType = Text;  // whatever
         }
     }
@@ -45,6 +45,21 @@ const Http1Request(RequestInfo info, UriParameters matchResult)
      */
     protected Boolean hasBody;
 
+    /**
+     * Internal.
+     *
+     * @return True iff the request specifies a non-zero Content-Length
+     * @return (conditional) the Content-Length value
+     */
+    protected static conditional Int contentLength(RequestInfo info) {
+        // the server has already validated the Content-Length
+        if (String[] values := info.getHeaderValuesForName(Header.ContentLength)) {
+            Int size = new Int(values[0].trim());
+            return size > 0, size;
+        }
+        return False;
+    }
+
 
     // ----- HttpMessage interface -----------------------------------------------------------------
 
@@ -271,7 +286,36 @@ const Http1Request(RequestInfo info, UriParameters matchResult)
     MediaType mediaType;
 
     @Override
-    Byte[] bytes;
+    conditional Int knownSize() = contentLength(info);
+
+    /**
+     * The bytes of the body are read on demand; the [bodyReader] and [streamBodyTo] methods
+     * provide an alternative, which allows a large body to be processed as it arrives, without
+     * holding all of it in memory at once.
+     */
+    @Override
+    @Lazy Byte[] bytes.calc() {
+        if (hasBody, Byte[] bytes := info.getBodyBytes()) {
+            return bytes;
+        }
+        return [];
+    }
+
+    @Override
+    BinaryInput bodyReader() {
+        return &bytes.assigned || !hasBody ? super() : new Http1BodyInput(info);
+    }
+
+    @Override
+    void streamBodyTo(BinaryOutput receiver) {
+        if (&bytes.assigned || !hasBody) {
+            super(receiver);
+        } else {
+            while (Byte[] chunk := info.readBodyChunk()) {
+                receiver.writeBytes(chunk);
+            }
+        }
+    }
 
     @Override
     Body from(Object content) {
@@ -1,6 +1,8 @@
 import web.Body;
 import web.Header;
 
+import HttpServer.RequestInfo;
+
 /**
  * An implementation of an HTTP/1 (i.e. 0.9, 1.0, 1.1) response, as sent by a server or received by
  * a client.
@@ -27,11 +29,25 @@ const Http1Response {
         }
 
         if (Body body ?= response.body) {
-            bytes = body.bytes;
             headerNames  += Header.ContentType;
             headerValues += body.mediaType.text;
-            headerNames  += Header.ContentLength;
-            headerValues += bytes.size.toString();
+
+            // a streaming body is not loaded into memory; its length is sent if it's known, and
+            // otherwise the server uses the "chunked" transfer coding
+            Int size;
+            if (body.streaming) {
+                if (!(size := body.knownSize())) {
+                    size = -1;
+                }
+            } else {
+                bytes = body.bytes;
+                size  = bytes.size;
+            }
+
+            if (size >= 0) {
+                headerNames  += Header.ContentLength;
+                headerValues += size.toString();
+            }
         }
 
         return status,
@@ -39,4 +55,28 @@ const Http1Response {
                headerValues.freeze(inPlace=True),
                bytes;
     }
+
+    /**
+     * Send the specified [Response] object to the client using the provided [RequestInfo]. The
+     * body of a [streaming](Body.streaming) response is sent as it's produced, without being loaded
+     * into memory at once.
+     */
+    static void send(RequestInfo info, ResponseOut response) {
+        (Int status, String[] names, String[] values, Byte[] bytes) = prepare(response);
+
+        if (Body body ?= response.body, body.streaming) {
+            info.respondStreaming(status, names, values);
+
+            Http1BodyOutput out = new Http1BodyOutput(info);
+            try {
+                body.streamBodyTo(out);
+                out.close();
+            } catch (Exception e) {
+                // the response has already been started, so all we can do is to abort it
+                out.close(e);
+            }
+        } else {
+            info.respond(status, names, values, bytes);
+        }
+    }
 }
\ No newline at end of file
@@ -46,6 +46,26 @@ service HttpHandler
         registry.registerResource("catalog"       , this.catalog);
     }
 
+    /**
+     * Construct a shard of an HttpHandler (see [createShard]).
+     *
+     * @param route           the HostInfo that routes to this handler
+     * @param catalog         the shared Catalog
+     * @param bundlePool      the shared ChainBundle pool
+     * @param sessionManager  the shared session manager
+     * @param authenticator   the shared Authenticator
+     */
+    private construct(HostInfo route, Catalog catalog, BundlePool bundlePool,
+                      SessionManager sessionManager, Authenticator authenticator) {
+        this.route          = route;
+        this.catalog        = catalog;
+        this.dispatchers    = new Dispatcher[];
+        this.busy           = new Boolean[];
+        this.bundlePool     = bundlePool;
+        this.sessionManager = sessionManager;
+        this.authenticator  = authenticator;
+    }
+
     typedef Map<Class<WebService>, WebService.Constructor> as CatalogExtras;
 
     /**
@@ -83,6 +103,11 @@ service HttpHandler
      */
     protected Authenticator authenticator;
 
+    /**
+     * The shards created by this handler.
+     */
+    protected HttpHandler[] shards = new HttpHandler[];
+
     /**
      * Closing flag.
      */
@@ -145,7 +170,33 @@ service HttpHandler
     @Synchronized
     Boolean shutdown() {
         closing = True;
-        return pendingRequests == 0;
+
+        Boolean done = pendingRequests == 0;
+        for (HttpHandler shard : shards) {
+            if (!shard.shutdown()) {
+                done = False;
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Create a shard of this handler. A shard handles the requests for the same route on its own
+     * service context with its own dispatchers, but shares the catalog, the sessions and the
+     * ChainBundle pool with this handler. This allows an HttpServer to handle the requests for
+     * one route concurrently, instead of serializing all of them on this handler.
+     *
+     * The shards are shut down together with this handler.
+     *
+     * @return a new HttpHandler for the same route
+     */
+    @Synchronized
+    HttpHandler createShard() {
+        assert !closing as "HttpHandler is closing";
+
+        HttpHandler shard = new HttpHandler(route, catalog, bundlePool, sessionManager, authenticator);
+        shards.add(shard);
+        return shard;
     }
 
     @Override
@@ -271,13 +271,23 @@ interface HttpServer
         conditional String[] getHeaderValuesForName(String name);
 
         /**
-         * Obtain all of the bytes in the request body.
+         * Obtain all of the bytes in the request body. If a part of the body has already been
+         * obtained using [readBodyChunk], only the rest of the body is returned.
          *
          * @return True if there is a body
          * @return (conditional) an array of `Byte` representing the body content
          */
         conditional Byte[] getBodyBytes();
 
+        /**
+         * Obtain the next portion of the request body. This allows a large body to be processed
+         * as it arrives, without holding all of it in memory at once.
+         *
+         * @return True if there are more bytes in the body
+         * @return (conditional) an array of `Byte` representing the next portion of the body
+         */
+        conditional Byte[] readBodyChunk();
+
         /**
          * Determine if the body contains nested information (e.g. multi-part) with its own headers,
          * etc.
@@ -321,5 +331,35 @@ interface HttpServer
          *                    does **not** indicate a successful response to a client
          */
         void respond(Int status, String[] headerNames, String[] headerValues, Byte[] body);
+
+        /**
+         * Instruct the server to start a response to a previously received request, with the body
+         * to be sent using any number of subsequent [writeBodyChunk] calls followed by an
+         * [endBody] call. Unless the headers contain a `Content-Length`, the body is sent using
+         * the "chunked" transfer coding.
+         *
+         * @param status        the response `Status-Code`, as defined by rfc2616
+         * @param headerNames   an array of `field-name` strings, each as defined by rfc2616
+         * @param headerValues  an array of `field-value` corresponding to `headerNames`
+         */
+        void respondStreaming(Int status, String[] headerNames, String[] headerValues);
+
+        /**
+         * Send the next portion of the body of a response started by [respondStreaming]. This
+         * call doesn't return until the server is ready to accept more bytes.
+         *
+         * @param chunk  the next portion of the body
+         *
+         * @throws IOException  if the response cannot be sent (e.g. the client is gone)
+         */
+        void writeBodyChunk(Byte[] chunk);
+
+        /**
+         * Finish the response started by [respondStreaming].
+         *
+         * @param complete  False indicates that the body could not be produced in full, in which
+         *                  case the connection is closed without completing the response
+         */
+        void endBody(Boolean complete);
     }
 }
\ No newline at end of file
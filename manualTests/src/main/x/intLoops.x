@@ -0,0 +1,59 @@
+/**
+ * A simple benchmark for integer-heavy loops: counting loops, array indexing and Range iteration.
+ *
+ * To measure the effect of the small integer handle cache, run it with the cache disabled
+ * (-Dxvm.intCache.high=-1 -Dxvm.intCache.low=0) and with the default settings.
+ */
+module TestIntLoops {
+    @Inject Console console;
+    @Inject Timer   timer;
+
+    void run() {
+        Int iterations = 20;
+
+        profile("counting loop", &countLoop(), iterations);
+        profile("array indexing", &arrayIndex(), iterations);
+        profile("range iteration", &rangeLoop(), iterations);
+    }
+
+    Int countLoop() {
+        Int sum = 0;
+        for (Int i = 0; i < 100_000; i++) {
+            sum += i & 0xFF;
+        }
+        return sum;
+    }
+
+    Int[] array = new Int[1000](i -> i % 100).freeze(inPlace=True);
+
+    Int arrayIndex() {
+        Int[] array = this.array;
+        Int   sum   = 0;
+        for (Int j = 0; j < 100; j++) {
+            for (Int i = 0, Int c = array.size; i < c; i++) {
+                sum += array[i];
+            }
+        }
+        return sum;
+    }
+
+    Int rangeLoop() {
+        Int sum = 0;
+        for (Int i : 0 ..< 100_000) {
+            sum += i % 7;
+        }
+        return sum;
+    }
+
+    void profile(String name, function Int () run, Int iterations) {
+        // warmup
+        Int result = run();
+
+        timer.reset();
+        for (Int i = 0; i < iterations; i++) {
+            run();
+        }
+        Duration time = timer.elapsed;
+        console.print($"{name}: result={result}; elapsed {time.milliseconds} ms");
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * A benchmark for the cross-service message delivery: a "ping-pong" between two services and a
+ * "fan-out" of asynchronous calls from a single caller to a number of services.
+ */
+module TestMessaging {
+    @Inject Console console;
+    @Inject Timer   timer;
+
+    void run() {
+        Int iterations = 100_000;
+
+        Echo echo = new Echo();
+        pingPong(echo, 1_000); // warmup
+        timer.reset();
+        pingPong(echo, iterations);
+        report("ping-pong", iterations, timer.elapsed);
+
+        Echo[] echoes = new Echo[8](_ -> new Echo());
+        fanOut(echoes, 1_000); // warmup
+        timer.reset();
+        fanOut(echoes, iterations);
+        report("fan-out", iterations, timer.elapsed);
+    }
+
+    void pingPong(Echo echo, Int count) {
+        for (Int i = 0; i < count; i++) {
+            assert echo.echo(i) == i;
+        }
+    }
+
+    void fanOut(Echo[] echoes, Int count) {
+        Int           services = echoes.size;
+        Future<Int>[] futures  = new Future<Int>[];
+        for (Int i = 0; i < count; i++) {
+            @Future Int result = echoes[i % services].echo(i);
+            futures += &result;
+
+            if (futures.size == 1_000) {
+                for (Future<Int> future : futures) {
+                    future.get();
+                }
+                futures.clear();
+            }
+        }
+        for (Future<Int> future : futures) {
+            future.get();
+        }
+    }
+
+    void report(String name, Int count, Duration time) {
+        console.print($"{name}: {count} calls in {time.milliseconds} ms");
+    }
+
+    service Echo {
+        Int echo(Int n) = n;
+    }
+}
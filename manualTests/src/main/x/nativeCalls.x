@@ -0,0 +1,76 @@
+/**
+ * A benchmark for the calls into the natively implemented methods and properties of the core
+ * types: the integer arithmetic, the String size and the Array element access.
+ */
+module TestNativeCalls {
+    @Inject Console console;
+    @Inject Timer   timer;
+
+    void run() {
+        Int iterations = 20;
+
+        // the first round warms up the runtime
+        for (Int round = 1; round <= 2; round++) {
+            console.print($"round {round}");
+            profile("add",           addLoop,     iterations);
+            profile("shiftAllRight", shiftLoop,   iterations);
+            profile("rotateLeft",    rotateLoop,  iterations);
+            profile("String.size",   sizeLoop,    iterations);
+            profile("getElement",    elementLoop, iterations);
+        }
+    }
+
+    Int addLoop() {
+        Int sum = 0;
+        for (Int i = 0; i < 100_000; i++) {
+            sum = sum.add(i);
+        }
+        return sum;
+    }
+
+    Int shiftLoop() {
+        Int sum = 0;
+        for (Int i = 0; i < 100_000; i++) {
+            sum = sum.add(i.shiftAllRight(1));
+        }
+        return sum;
+    }
+
+    Int rotateLoop() {
+        Int n = 1;
+        for (Int i = 0; i < 100_000; i++) {
+            n = n.rotateLeft(3);
+        }
+        return n;
+    }
+
+    Int sizeLoop() {
+        String s   = "hello, world";
+        Int    sum = 0;
+        for (Int i = 0; i < 100_000; i++) {
+            sum += s.size;
+        }
+        return sum;
+    }
+
+    Int elementLoop() {
+        Int[] array = new Int[100](i -> i);
+        Int   sum   = 0;
+        for (Int i = 0; i < 100_000; i++) {
+            sum += array.getElement(i % 100);
+        }
+        return sum;
+    }
+
+    void profile(String name, function Int () run, Int iterations) {
+        // warmup
+        Int result = run();
+
+        timer.reset();
+        for (Int i = 0; i < iterations; i++) {
+            run();
+        }
+        Duration time = timer.elapsed;
+        console.print($"{name}: result={result}; elapsed {time.milliseconds} ms");
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * A loopback echo test for the native sockets, which also measures the echo throughput.
+ *
+ * The client sends a number of same-sized messages to an echo server and reads each of them back;
+ * run it with different buffer sizes (e.g. -Dxvm.io.bufferSize=65536 with 64K messages) to compare.
+ */
+module TestSockets {
+    package net import net.xtclang.org;
+
+    import net.IPAddress;
+    import net.Network;
+    import net.ServerSocket;
+    import net.Socket;
+
+    import ecstasy.io.IOException;
+
+    @Inject Console console;
+    @Inject Network network;
+    @Inject Timer   timer;
+
+    static Int MessageSize  = 16K;
+    static Int MessageCount = 10K;
+
+    void run() {
+        assert ServerSocket server := network.listen((IPAddress.IPv4Loopback, 0));
+        console.print($"listening on {server.localAddress}");
+
+        EchoServer echo = new EchoServer(server);
+        echo.serve^();
+
+        // nobody listens on the port 1
+        assert !network.connect((IPAddress.IPv4Loopback, 1));
+
+        assert Socket socket := network.connect(server.localAddress);
+        console.print($"connected {socket}");
+
+        Byte[] message = new Byte[MessageSize](i -> i.toUInt8()).freeze(inPlace=True);
+
+        // warm up and verify
+        socket.out.writeBytes(message);
+        assert socket.in.readBytes(MessageSize) == message;
+
+        timer.reset();
+        for (Int i : 1 ..< MessageCount) {
+            socket.out.writeBytes(message);
+            socket.in.readBytes(MessageSize);
+        }
+        Duration elapsed = timer.elapsed;
+
+        Int bytes = 2 * MessageSize * (MessageCount - 1);
+        console.print($|echoed {MessageCount - 1} messages of {MessageSize} bytes in {elapsed}; \
+                       |{bytes * 1000 / elapsed.milliseconds.notLessThan(1) / 1M} MB/s
+                     );
+
+        socket.close();
+        server.close();
+    }
+
+    service EchoServer(ServerSocket server) {
+        void serve() {
+            Socket socket = server.accept();
+            try {
+                while (True) {
+                    socket.out.writeBytes(socket.in.readBytes(MessageSize));
+                }
+            } catch (IOException e) {
+                // the client closed the connection
+            } finally {
+                socket.close();
+            }
+        }
+    }
+}
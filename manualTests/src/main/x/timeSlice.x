@@ -0,0 +1,54 @@
+/**
+ * A test for the time-slice based preemption and the CPU accounting exposed by the ServiceControl.
+ *
+ * A CPU-heavy service should not prevent a latency-sensitive service from responding; run it with
+ * different time slices (e.g. -Dxvm.container.timeSlice=1000 for 1ms) to compare.
+ */
+module TestTimeSlice {
+    @Inject Console console;
+    @Inject Timer   timer;
+
+    void run() {
+        Worker worker = new Worker();
+        console.print($"default time slice: {worker.serviceControl.timeSlice}");
+
+        worker.serviceControl.timeSlice = Duration.ofMillis(1);
+        console.print($"adjusted time slice: {worker.serviceControl.timeSlice}");
+
+        Pinger pinger = new Pinger();
+        timer.reset();
+
+        @Future Int result = worker.spin(3_000_000);
+        Duration    worst  = Duration.None;
+        Int         count  = 0;
+        while (!&result.assigned) {
+            Duration before = timer.elapsed;
+            pinger.ping();
+            Duration latency = timer.elapsed - before;
+            if (latency > worst) {
+                worst = latency;
+            }
+            count++;
+        }
+
+        console.print($"result={result}; pings={count}; worst ping latency={worst}");
+        console.print($|worker cpuTime={worker.serviceControl.cpuTime}; \
+                       |upTime={worker.serviceControl.upTime}; \
+                       |fibers={worker.serviceControl.fiberCpuTimes}
+                     );
+    }
+
+    service Pinger {
+        void ping() {}
+    }
+
+    service Worker {
+        Int spin(Int n) {
+            Int sum = 0;
+            for (Int i = 0; i < n; i++) {
+                sum += i & 3;
+            }
+            return sum;
+        }
+    }
+}
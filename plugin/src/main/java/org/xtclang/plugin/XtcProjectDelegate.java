@@ -264,6 +264,14 @@ public class XtcProjectDelegate extends ProjectDelegate<Void, Void> {
         return project.getLayout().getBuildDirectory().dir(XTC_LANGUAGE_NAME + '/' + sourceSet.getName() + "/resources");
     }
 
+    /**
+     * The directory for the compiler's incremental build digests. This is deliberately not the module output
+     * directory, since that directory is published as the xtcModule artifact and copied into the XDK.
+     */
+    public static Provider<Directory> getXtcDigestDirectory(final Project project, final SourceSet sourceSet) {
+        return project.getLayout().getBuildDirectory().dir(XTC_LANGUAGE_NAME + '/' + sourceSet.getName() + "/digest");
+    }
+
     public static String getCompileTaskName(final SourceSet sourceSet) {
         return sourceSet.getCompileTaskName(XTC_LANGUAGE_NAME);
     }
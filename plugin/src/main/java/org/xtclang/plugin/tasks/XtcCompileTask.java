@@ -205,6 +205,9 @@ public class XtcCompileTask extends XtcSourceTask implements XtcCompilerExtensio
         final File outputDir = getOutputDirectory().get().getAsFile();
         args.add("-o", outputDir.getAbsolutePath());
 
+        final File digestDir = XtcProjectDelegate.getXtcDigestDirectory(project, sourceSet).get().getAsFile();
+        args.add("--digest-dir", digestDir.getAbsolutePath());
+
         logger.info("{} Output directory for {} is : {}", prefix, sourceSet.getName(), outputDir);
         final var processedResourcesDir = getResourceDirectory().get().getAsFile();
         logger.info("{} Resolving resource dir (build): '{}'.", prefix, processedResourcesDir);
@@ -232,6 +232,7 @@ private fun Distribution.contentSpec(distName: String, distVersion: String, dist
         from(configurations.xtcModule) {
             into("lib")
             exclude(JAVATOOLS_PREFIX_PATTERN) // *.xtc, but not javatools_*.xtc
+            exclude("**/*.digest") // stale compiler build digests from before they moved out of the module dir
         }
         from(configurations.xtcModule) {
             into("javatools")